@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import org.candlepin.dto.ModelTranslator;
+import org.candlepin.dto.StandardTranslator;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.ConsumerType;
+import org.candlepin.model.ConsumerType.ConsumerTypeEnum;
+import org.candlepin.model.ConsumerTypeCurator;
+import org.candlepin.model.EnvironmentCurator;
+import org.candlepin.model.Owner;
+import org.candlepin.model.OwnerCurator;
+import org.candlepin.model.Pool;
+import org.candlepin.model.PoolQuantity;
+import org.candlepin.model.Product;
+import org.candlepin.model.Rules;
+import org.candlepin.model.RulesCurator;
+import org.candlepin.policy.js.autobind.AutobindRules;
+import org.candlepin.policy.js.compliance.ComplianceStatus;
+import org.candlepin.util.ObjectMapperFactory;
+import org.candlepin.util.Util;
+
+import com.google.inject.Provider;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+
+
+/**
+ * Measures the cost of passing increasingly large numbers of pools to the autobind rules, with the
+ * arguments serialized to JSON and with the arguments exposed to the rules as DTO views.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JsContextBenchmark {
+
+    private static final String PRODUCT_ID = "benchmark-product";
+
+    @Param({"100", "1000", "10000"})
+    public int poolCount;
+
+    private AutobindRules jsonContextRules;
+    private AutobindRules objectContextRules;
+    private Consumer consumer;
+    private List<Pool> pools;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        RulesCurator rulesCurator = mock(RulesCurator.class);
+        Rules rules = new Rules(Util.readFile(
+            this.getClass().getResourceAsStream(RulesCurator.DEFAULT_RULES_FILE)));
+        doReturn(rules).when(rulesCurator).getRules();
+        doReturn(new Date()).when(rulesCurator).getUpdated();
+
+        Provider<JsRunnerRequestCache> cacheProvider = mock(Provider.class);
+        doReturn(mock(JsRunnerRequestCache.class)).when(cacheProvider).get();
+
+        ConsumerTypeCurator consumerTypeCurator = mock(ConsumerTypeCurator.class);
+        OwnerCurator ownerCurator = mock(OwnerCurator.class);
+        ModelTranslator translator = new StandardTranslator(consumerTypeCurator,
+            mock(EnvironmentCurator.class), ownerCurator);
+
+        JsRunner jsRunner = new JsRunnerProvider(rulesCurator, cacheProvider).get();
+
+        this.jsonContextRules = new AutobindRules(jsRunner, consumerTypeCurator, ownerCurator,
+            new RulesObjectMapper(ObjectMapperFactory.getObjectMapper(), false), translator);
+        this.objectContextRules = new AutobindRules(jsRunner, consumerTypeCurator, ownerCurator,
+            new RulesObjectMapper(ObjectMapperFactory.getObjectMapper(), true), translator);
+
+        Owner owner = new Owner()
+            .setId("benchmark-owner")
+            .setKey("benchmark-owner");
+        doReturn(owner).when(ownerCurator).findOwnerById(owner.getId());
+
+        ConsumerType ctype = new ConsumerType(ConsumerTypeEnum.SYSTEM);
+        ctype.setId("benchmark-ctype");
+        doReturn(ctype).when(consumerTypeCurator).get(ctype.getId());
+        doReturn(ctype).when(consumerTypeCurator).getConsumerType(any());
+
+        this.consumer = new Consumer()
+            .setName("benchmark consumer")
+            .setUsername("benchmark user")
+            .setOwner(owner)
+            .setType(ctype)
+            .setFact("cpu.cpu_socket(s)", "4")
+            .setFact("uname.machine", "x86_64");
+
+        // Fixed seed so every run offers the same pools
+        Random random = new Random(8675309L);
+        Date startDate = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(30));
+        Date endDate = new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(365));
+
+        this.pools = new ArrayList<>();
+        for (int i = 0; i < this.poolCount; i++) {
+            Product product = new Product(PRODUCT_ID, "Benchmark Product")
+                .setAttribute(Product.Attributes.SOCKETS, String.valueOf(1 << random.nextInt(4)))
+                .setAttribute(Product.Attributes.SUPPORT_LEVEL, random.nextBoolean() ? "Premium" : "Standard")
+                .setAttribute(Product.Attributes.ARCHITECTURE, "x86_64");
+
+            Pool pool = new Pool()
+                .setId("pool-" + i)
+                .setOwner(owner)
+                .setProduct(product)
+                .setQuantity((long) (random.nextInt(100) + 1))
+                .setConsumed(0L)
+                .setStartDate(startDate)
+                .setEndDate(endDate);
+
+            this.pools.add(pool);
+        }
+    }
+
+    private List<PoolQuantity> selectBestPools(AutobindRules rules) {
+        return rules.selectBestPools(this.consumer, Set.of(PRODUCT_ID), this.pools, new ComplianceStatus(),
+            null, new HashSet<>(), false);
+    }
+
+    @Benchmark
+    public List<PoolQuantity> jsonContext() {
+        return this.selectBestPools(this.jsonContextRules);
+    }
+
+    @Benchmark
+    public List<PoolQuantity> objectContext() {
+        return this.selectBestPools(this.objectContextRules);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.sync.file;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import org.candlepin.model.ManifestFileRecord;
+import org.candlepin.model.ManifestFileRecordCurator;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+
+/**
+ * Measures the throughput of storing manifests in, and serving them from, the filesystem manifest
+ * store for increasingly large manifests. The curator is mocked, so only the file handling is
+ * measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ManifestFileServiceBenchmark {
+
+    @Param({"1", "16", "128"})
+    public int sizeInMiB;
+
+    private Path directory;
+    private File manifest;
+    private FileSystemManifestService service;
+    private String storedId;
+
+    @Setup
+    public void setup() throws IOException {
+        this.directory = Files.createTempDirectory("manifest_store_benchmark");
+
+        // Fixed seed so every run stores the same content
+        byte[] content = new byte[this.sizeInMiB * 1024 * 1024];
+        new Random(8675309L).nextBytes(content);
+        this.manifest = Files.write(this.directory.resolve("manifest.zip"), content).toFile();
+
+        ManifestFileRecordCurator curator = mock(ManifestFileRecordCurator.class);
+        ManifestFileRecord[] stored = new ManifestFileRecord[1];
+
+        doAnswer(invocation -> {
+            ManifestFileRecord record = new ManifestFileRecord(invocation.getArgument(0),
+                invocation.getArgument(1), invocation.getArgument(2), invocation.getArgument(3), null);
+
+            record.setId("manifest-id");
+            record.setContentHash(invocation.getArgument(4));
+            record.setFileSize(invocation.getArgument(5));
+            stored[0] = record;
+
+            return record;
+        }).when(curator).createRecord(any(), anyString(), anyString(), anyString(), anyString(), anyLong());
+        doAnswer(invocation -> stored[0]).when(curator).findFile(anyString());
+
+        this.service = new FileSystemManifestService(this.directory.resolve("store"), curator);
+        this.storedId = this.service.store(ManifestFileType.EXPORT, this.manifest, "principal", "consumer")
+            .getId();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(this.directory.toFile());
+    }
+
+    @Benchmark
+    public ManifestFile store() {
+        return this.service.store(ManifestFileType.EXPORT, this.manifest, "principal", "consumer");
+    }
+
+    @Benchmark
+    public long retrieveWithTransfer() throws IOException {
+        return this.service.get(this.storedId).writeTo(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public long retrieveWithStream() throws IOException {
+        try (InputStream input = this.service.get(this.storedId).getInputStream()) {
+            return input.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.util;
+
+import static org.mockito.Mockito.mock;
+
+import org.candlepin.config.Configuration;
+import org.candlepin.model.EntitlementCurator;
+import org.candlepin.model.dto.Content;
+import org.candlepin.model.dto.Product;
+import org.candlepin.pki.X509Extension;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+
+
+/**
+ * Measures the cost of encoding the V3 entitlement content path dictionary for increasingly large
+ * numbers of content sets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class X509V3ExtensionUtilBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int contentCount;
+
+    private X509V3ExtensionUtil util;
+    private List<Product> products;
+
+    @Setup
+    public void setup() {
+        this.util = new X509V3ExtensionUtil(mock(Configuration.class), mock(EntitlementCurator.class),
+            ObjectMapperFactory.getX509V3ExtensionUtilObjectMapper());
+
+        // Fixed seed so every run encodes the same path set
+        Random random = new Random(8675309L);
+        List<Content> contents = new ArrayList<>();
+
+        for (int i = 0; i < this.contentCount; i++) {
+            Content content = new Content();
+            content.setId("content-" + i);
+            content.setPath(String.format("/content/dist/rhel%d/%s/%s/repo-%d/$releasever/$basearch/os",
+                random.nextInt(10), random.nextBoolean() ? "server" : "workstation",
+                random.nextBoolean() ? "debug" : "source", random.nextInt(this.contentCount)));
+
+            contents.add(content);
+        }
+
+        Product product = new Product();
+        product.setId("benchmark-product");
+        product.setContent(contents);
+
+        this.products = List.of(product);
+    }
+
+    @Benchmark
+    public Set<X509Extension> encodeContentPayload() throws IOException {
+        return this.util.getByteExtensions(this.products);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async;
+
+import org.candlepin.model.AsyncJobStatus;
+
+import java.util.Map;
+
+
+
+/**
+ * The JobCoalescer interface provides a standard API for merging an inbound job into a job of the
+ * same type which has been queued, but has not yet started executing. Coalesced jobs are executed
+ * once, using the merged arguments of both jobs.
+ */
+public interface JobCoalescer {
+
+    /**
+     * Fetches the arguments a pending job must share with the given inbound job to be considered
+     * for coalescing. If the inbound job cannot be coalesced, this method should return null.
+     *
+     * @param inbound
+     *  the inbound job status
+     *
+     * @throws IllegalArgumentException
+     *  if the inbound job is null
+     *
+     * @return
+     *  a map of serialized arguments pending jobs must match, or null if the inbound job cannot be
+     *  coalesced
+     */
+    Map<String, String> getMatchingArguments(AsyncJobStatus inbound);
+
+    /**
+     * Merges the arguments of an inbound job into those of a pending job. If the jobs cannot be
+     * coalesced, this method should return null.
+     *
+     * @param pending
+     *  the arguments of the pending job
+     *
+     * @param inbound
+     *  the arguments of the inbound job
+     *
+     * @throws IllegalArgumentException
+     *  if either set of arguments is null
+     *
+     * @return
+     *  the merged arguments to use for the pending job, or null if the jobs cannot be coalesced
+     */
+    JobArguments coalesce(JobArguments pending, JobArguments inbound);
+
+}
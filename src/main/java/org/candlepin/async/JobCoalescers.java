@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async;
+
+import org.candlepin.async.impl.ReplaceByArgCoalescer;
+import org.candlepin.async.impl.UnionByArgCoalescer;
+
+
+
+/**
+ * The JobCoalescers class provides a collection of factory methods for quickly building job
+ * coalescers.
+ */
+public class JobCoalescers {
+
+    private JobCoalescers() {
+        throw new UnsupportedOperationException("This class should not be constructed");
+    }
+
+    /**
+     * Creates a new coalescer which replaces the arguments of a pending job with those of the
+     * inbound job, provided both jobs have the same values for the specified parameters.
+     *
+     * @param params
+     *  The parameter, or parameters, which must match for jobs to be coalesced
+     *
+     * @return
+     *  a new replace-by-argument coalescer
+     */
+    public static JobCoalescer replaceByArguments(String... params) {
+        return new ReplaceByArgCoalescer(params);
+    }
+
+    /**
+     * Creates a new coalescer which merges the array argument of an inbound job into that of a
+     * pending job, provided both jobs have the same values for the specified parameters.
+     *
+     * @param unionParam
+     *  The array parameter to merge
+     *
+     * @param params
+     *  The parameter, or parameters, which must match for jobs to be coalesced
+     *
+     * @return
+     *  a new union-by-argument coalescer
+     */
+    public static JobCoalescer unionByArguments(String unionParam, String... params) {
+        return new UnionByArgCoalescer(unionParam, params);
+    }
+}
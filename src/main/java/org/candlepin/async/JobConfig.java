@@ -70,6 +70,8 @@ public class JobConfig<T extends JobConfig> {
     private Owner owner;
     private Map<String, String> arguments;
     private Set<JobConstraint> constraints;
+    private boolean waitWhenBlocked;
+    private JobCoalescer coalescer;
     private int retries;
     private String logLevel;
     private boolean logExecutionDetails;
@@ -306,6 +308,60 @@ public class JobConfig<T extends JobConfig> {
         return Collections.unmodifiableSet(this.constraints);
     }
 
+    /**
+     * Fetches whether or not this job should wait for the jobs blocking it to finish if its
+     * queuing constraints are not met. By default, blocked jobs are aborted.
+     *
+     * @return
+     *  true if this job should wait for its blocking jobs; false if it should be aborted
+     */
+    public boolean waitWhenBlocked() {
+        return this.waitWhenBlocked;
+    }
+
+    /**
+     * Sets whether or not this job should wait for the jobs blocking it to finish if its queuing
+     * constraints are not met. Waiting jobs are queued once all of their blocking jobs have
+     * reached a terminal state.
+     *
+     * @param enabled
+     *  true to wait for blocking jobs; false to abort the job when blocked
+     *
+     * @return
+     *  this JobConfig instance
+     */
+    public T waitWhenBlocked(boolean enabled) {
+        this.waitWhenBlocked = enabled;
+        return (T) this;
+    }
+
+    /**
+     * Fetches the coalescer used to merge this job into a matching job which has not yet started
+     * executing. If this job cannot be coalesced, this method returns null.
+     *
+     * @return
+     *  the coalescer for this job, or null if this job cannot be coalesced
+     */
+    public JobCoalescer getCoalescer() {
+        return this.coalescer;
+    }
+
+    /**
+     * Sets the coalescer used to merge this job into a matching job which has not yet started
+     * executing. Coalescing is attempted before the queuing constraints are tested. If the
+     * coalescer is null, any existing coalescer will be cleared.
+     *
+     * @param coalescer
+     *  the coalescer for this job, or null to clear it
+     *
+     * @return
+     *  this JobConfig instance
+     */
+    public T setCoalescer(JobCoalescer coalescer) {
+        this.coalescer = coalescer;
+        return (T) this;
+    }
+
     /**
      * Sets the number of times this job will be retried if it fails to complete normally. Values
      * lower than 1 indicate the job will not be retried at all on failure.
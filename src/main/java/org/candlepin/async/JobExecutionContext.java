@@ -16,6 +16,8 @@ package org.candlepin.async;
 
 import org.candlepin.model.AsyncJobStatus;
 
+import java.util.function.Consumer;
+
 
 
 /**
@@ -24,6 +26,7 @@ import org.candlepin.model.AsyncJobStatus;
  */
 public class JobExecutionContext {
     private final AsyncJobStatus job;
+    private final Consumer<AsyncJobStatus> progressHandler;
 
     /**
      * Creates a new job execution context for the given job
@@ -35,11 +38,29 @@ public class JobExecutionContext {
      *  if job is null
      */
     public JobExecutionContext(AsyncJobStatus job) {
+        this(job, null);
+    }
+
+    /**
+     * Creates a new job execution context for the given job, which will pass the job to the given
+     * handler whenever the job reports its progress.
+     *
+     * @param job
+     *  the job for this execution context
+     *
+     * @param progressHandler
+     *  the handler to receive progress updates, or null to only record progress as the job result
+     *
+     * @throws IllegalArgumentException
+     *  if job is null
+     */
+    public JobExecutionContext(AsyncJobStatus job, Consumer<AsyncJobStatus> progressHandler) {
         if (job == null) {
             throw new IllegalArgumentException("job is null");
         }
 
         this.job = job;
+        this.progressHandler = progressHandler;
     }
 
     /**
@@ -89,4 +110,23 @@ public class JobExecutionContext {
         this.setJobResult(String.format(format, args));
     }
 
+    /**
+     * Reports the progress of a long-running job. The progress is stored as the job's result, and
+     * published while the job is still executing so it is visible to anyone polling the job's
+     * status. Any result set when the job completes replaces the reported progress.
+     *
+     * @param format
+     *  the format string to use
+     *
+     * @param args
+     *  the arguments to use to construct the formatted progress string
+     */
+    public void setJobProgress(String format, Object... args) {
+        this.setJobResult(format, args);
+
+        if (this.progressHandler != null) {
+            this.progressHandler.accept(this.job);
+        }
+    }
+
 }
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.config.ConfigurationException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+
+
+/**
+ * A JobLane is a named set of job keys which are processed by their own dedicated threads, rather
+ * than the general job thread pool. Lanes keep long-running or bursty jobs from occupying every job
+ * thread, and may optionally limit each owner to a single running job within the lane on each node,
+ * so that a backlog of jobs from one owner cannot hold up the jobs of other owners. See
+ * {@link JobMessageReceiver} for how owner fairness is enforced.
+ * <p></p>
+ * Lanes are read from the configuration using the lane names listed in the
+ * {@link ConfigProperties#ASYNC_JOBS_LANES} property. Jobs which are not assigned to any lane
+ * continue to be processed by the general thread pool.
+ */
+public final class JobLane {
+
+    /** The name given to the general thread pool, processing jobs not assigned to any lane */
+    public static final String DEFAULT_LANE = "default";
+
+    private final String name;
+    private final Set<String> jobKeys;
+    private final int threads;
+    private final boolean ownerFairness;
+
+    /**
+     * Creates a new job lane.
+     *
+     * @param name
+     *  the name of the lane
+     *
+     * @param jobKeys
+     *  the keys of the jobs to process in the lane
+     *
+     * @param threads
+     *  the number of threads processing jobs in the lane
+     *
+     * @param ownerFairness
+     *  whether or not to limit each owner to a single running job within the lane on each node
+     *
+     * @throws IllegalArgumentException
+     *  if the name or job keys are null or empty, or the thread count is not positive
+     */
+    public JobLane(String name, Set<String> jobKeys, int threads, boolean ownerFairness) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("name is null or empty");
+        }
+
+        if (jobKeys == null || jobKeys.isEmpty()) {
+            throw new IllegalArgumentException("jobKeys is null or empty");
+        }
+
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads is less than one: " + threads);
+        }
+
+        this.name = name;
+        this.jobKeys = Collections.unmodifiableSet(new LinkedHashSet<>(jobKeys));
+        this.threads = threads;
+        this.ownerFairness = ownerFairness;
+    }
+
+    /**
+     * Fetches the name of this lane
+     *
+     * @return
+     *  the name of this lane
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Fetches the keys of the jobs processed in this lane
+     *
+     * @return
+     *  an unmodifiable set of the job keys assigned to this lane
+     */
+    public Set<String> getJobKeys() {
+        return this.jobKeys;
+    }
+
+    /**
+     * Fetches the number of threads processing jobs in this lane
+     *
+     * @return
+     *  the number of threads processing jobs in this lane
+     */
+    public int getThreads() {
+        return this.threads;
+    }
+
+    /**
+     * Checks if each owner is limited to a single running job within this lane on each node
+     *
+     * @return
+     *  true if owners are limited to a single running job in this lane on each node; false otherwise
+     */
+    public boolean isOwnerFairness() {
+        return this.ownerFairness;
+    }
+
+    /**
+     * Reads the job lanes defined by the given configuration. Lanes are returned in the order in
+     * which they are listed in the configuration.
+     *
+     * @param config
+     *  the configuration from which to read job lanes
+     *
+     * @throws ConfigurationException
+     *  if a lane is misconfigured, or a job is assigned to more than one lane
+     *
+     * @return
+     *  a list of the configured job lanes; may be empty if no lanes are configured
+     */
+    public static List<JobLane> fromConfig(Configuration config) throws ConfigurationException {
+        Objects.requireNonNull(config);
+
+        List<JobLane> lanes = new ArrayList<>();
+        Map<String, String> assignments = new HashMap<>();
+
+        for (String name : config.getList(ConfigProperties.ASYNC_JOBS_LANES)) {
+            if (name.isEmpty() || DEFAULT_LANE.equals(name)) {
+                throw new ConfigurationException("Invalid job lane name: \"" + name + "\"");
+            }
+
+            if (lanes.stream().anyMatch(lane -> lane.getName().equals(name))) {
+                throw new ConfigurationException("Job lane defined more than once: " + name);
+            }
+
+            Set<String> jobKeys = new LinkedHashSet<>(
+                config.getList(ConfigProperties.laneConfig(name, ConfigProperties.ASYNC_JOBS_LANE_JOBS)));
+            jobKeys.remove("");
+
+            for (String jobKey : jobKeys) {
+                String existing = assignments.putIfAbsent(jobKey, name);
+                if (existing != null) {
+                    throw new ConfigurationException(String.format(
+                        "Job \"%s\" cannot be assigned to both lane \"%s\" and lane \"%s\"",
+                        jobKey, existing, name));
+                }
+            }
+
+            Integer threads = readInteger(config, name, ConfigProperties.ASYNC_JOBS_LANE_THREADS);
+            String fairness = config.getString(
+                ConfigProperties.laneConfig(name, ConfigProperties.ASYNC_JOBS_LANE_OWNER_FAIRNESS));
+
+            try {
+                lanes.add(new JobLane(name, jobKeys, threads != null ? threads : 1,
+                    Boolean.parseBoolean(fairness)));
+            }
+            catch (IllegalArgumentException e) {
+                throw new ConfigurationException("Invalid configuration for job lane \"" + name + "\"", e);
+            }
+        }
+
+        return lanes;
+    }
+
+    private static Integer readInteger(Configuration config, String lane, String cfgName)
+        throws ConfigurationException {
+
+        String key = ConfigProperties.laneConfig(lane, cfgName);
+        String value = config.getString(key);
+
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return Integer.valueOf(value);
+        }
+        catch (NumberFormatException e) {
+            throw new ConfigurationException("Invalid value for " + key + ": " + value, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("JobLane [name: %s, jobs: %s, threads: %d, owner fairness: %s]",
+            this.name, this.jobKeys, this.threads, this.ownerFairness);
+    }
+}
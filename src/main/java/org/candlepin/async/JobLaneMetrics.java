@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+
+
+/**
+ * Collects statistics on the job messages processed by a single job lane on this node: the number
+ * of jobs running and processed, the time job messages waited on the queue, and the time taken to
+ * execute them. The queue depth is not tracked locally, as jobs may be queued and executed by any
+ * node; it is instead looked up on demand.
+ */
+public class JobLaneMetrics implements JobLaneMetricsMXBean {
+    private static Logger log = LoggerFactory.getLogger(JobLaneMetrics.class);
+
+    private final String laneName;
+    private final String[] jobKeys;
+    private final int threads;
+    private final LongSupplier queueDepthSupplier;
+
+    private final AtomicInteger running;
+    private final LongAdder processed;
+    private final LongAdder failed;
+    private final Timer waitTime;
+    private final Timer runTime;
+
+    /**
+     * Creates a new metrics collector for the given lane.
+     *
+     * @param laneName
+     *  the name of the lane
+     *
+     * @param jobKeys
+     *  the keys of the jobs processed in the lane, or null for the default lane
+     *
+     * @param threads
+     *  the number of threads processing jobs in the lane
+     *
+     * @param queueDepthSupplier
+     *  a supplier which looks up the number of jobs in the lane currently queued for execution
+     */
+    public JobLaneMetrics(String laneName, Collection<String> jobKeys, int threads,
+        LongSupplier queueDepthSupplier) {
+
+        this.laneName = Objects.requireNonNull(laneName);
+        this.jobKeys = jobKeys != null ? jobKeys.toArray(new String[0]) : null;
+        this.threads = threads;
+        this.queueDepthSupplier = Objects.requireNonNull(queueDepthSupplier);
+
+        this.running = new AtomicInteger();
+        this.processed = new LongAdder();
+        this.failed = new LongAdder();
+        this.waitTime = new Timer();
+        this.runTime = new Timer();
+    }
+
+    /**
+     * Records the receipt of a job message.
+     *
+     * @param waitTime
+     *  the time, in milliseconds, the message waited between being sent and being received, or a
+     *  negative value if the wait time is not known
+     */
+    public void recordReceipt(long waitTime) {
+        if (waitTime >= 0) {
+            this.waitTime.record(waitTime);
+        }
+
+        this.running.incrementAndGet();
+    }
+
+    /**
+     * Records the completion of the processing of a job message previously recorded as received.
+     *
+     * @param runTime
+     *  the time, in milliseconds, taken to process the message
+     *
+     * @param success
+     *  whether or not the job executed without error
+     */
+    public void recordCompletion(long runTime, boolean success) {
+        this.running.decrementAndGet();
+        this.processed.increment();
+        this.runTime.record(runTime);
+
+        if (!success) {
+            this.failed.increment();
+        }
+    }
+
+    @Override
+    public String getLaneName() {
+        return this.laneName;
+    }
+
+    @Override
+    public String[] getJobKeys() {
+        return this.jobKeys != null ? this.jobKeys.clone() : null;
+    }
+
+    @Override
+    public int getThreads() {
+        return this.threads;
+    }
+
+    @Override
+    public long getQueueDepth() {
+        try {
+            return this.queueDepthSupplier.getAsLong();
+        }
+        catch (Exception e) {
+            log.warn("Unable to determine queue depth for job lane: {}", this.laneName, e);
+            return -1;
+        }
+    }
+
+    @Override
+    public int getRunningJobs() {
+        return this.running.get();
+    }
+
+    @Override
+    public long getProcessedJobs() {
+        return this.processed.sum();
+    }
+
+    @Override
+    public long getFailedJobs() {
+        return this.failed.sum();
+    }
+
+    @Override
+    public long getMeanWaitTime() {
+        return this.waitTime.getMean();
+    }
+
+    @Override
+    public long getMaxWaitTime() {
+        return this.waitTime.getMax();
+    }
+
+    @Override
+    public long getMeanRunTime() {
+        return this.runTime.getMean();
+    }
+
+    @Override
+    public long getMaxRunTime() {
+        return this.runTime.getMax();
+    }
+
+    @Override
+    public void reset() {
+        this.processed.reset();
+        this.failed.reset();
+        this.waitTime.reset();
+        this.runTime.reset();
+    }
+
+    /**
+     * Tracks the count, total and maximum of a series of durations
+     */
+    private static final class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        public void record(long value) {
+            this.count.increment();
+            this.total.add(value);
+            this.max.accumulate(value);
+        }
+
+        public long getMean() {
+            long count = this.count.sum();
+            return count > 0 ? this.total.sum() / count : 0;
+        }
+
+        public long getMax() {
+            return this.max.get();
+        }
+
+        public void reset() {
+            this.count.reset();
+            this.total.reset();
+            this.max.reset();
+        }
+    }
+}
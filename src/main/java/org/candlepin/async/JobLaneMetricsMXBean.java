@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async;
+
+/**
+ * Management interface exposing the statistics collected by {@link JobLaneMetrics}.
+ */
+public interface JobLaneMetricsMXBean {
+
+    /**
+     * @return
+     *  the name of the lane
+     */
+    String getLaneName();
+
+    /**
+     * @return
+     *  the keys of the jobs processed in the lane, or null for the default lane, which processes
+     *  every job not assigned to another lane
+     */
+    String[] getJobKeys();
+
+    /**
+     * @return
+     *  the number of threads processing jobs in the lane on this node
+     */
+    int getThreads();
+
+    /**
+     * @return
+     *  the number of jobs in the lane currently queued for execution across all nodes, or -1 if
+     *  the queue depth cannot be determined
+     */
+    long getQueueDepth();
+
+    /**
+     * @return
+     *  the number of jobs in the lane currently executing on this node
+     */
+    int getRunningJobs();
+
+    /**
+     * @return
+     *  the number of job messages in the lane processed by this node
+     */
+    long getProcessedJobs();
+
+    /**
+     * @return
+     *  the number of job messages in the lane which failed to execute on this node
+     */
+    long getFailedJobs();
+
+    /**
+     * @return
+     *  the mean time, in milliseconds, job messages in the lane waited between being sent and being
+     *  received by this node
+     */
+    long getMeanWaitTime();
+
+    /**
+     * @return
+     *  the longest time, in milliseconds, a job message in the lane waited between being sent and
+     *  being received by this node
+     */
+    long getMaxWaitTime();
+
+    /**
+     * @return
+     *  the mean time, in milliseconds, taken to execute jobs in the lane on this node
+     */
+    long getMeanRunTime();
+
+    /**
+     * @return
+     *  the longest time, in milliseconds, taken to execute a job in the lane on this node
+     */
+    long getMaxRunTime();
+
+    /**
+     * Discards the counts and timings collected for the lane.
+     */
+    void reset();
+}
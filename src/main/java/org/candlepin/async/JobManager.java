@@ -1019,6 +1019,24 @@ public class JobManager implements ModeChangeListener {
         return this.jobCurator.findJobs(queryArgs);
     }
 
+    /**
+     * Fetches the number of jobs currently queued for execution on any node, optionally limited to
+     * jobs with the specified job keys.
+     *
+     * @param jobKeys
+     *  the keys of the jobs to count, or null to count all queued jobs
+     *
+     * @return
+     *  the number of queued jobs with the specified job keys
+     */
+    public long getQueuedJobCount(Collection<String> jobKeys) {
+        AsyncJobStatusQueryArguments queryArgs = new AsyncJobStatusQueryArguments()
+            .setJobStates(JobState.QUEUED)
+            .setJobKeys(jobKeys);
+
+        return this.jobCurator.getJobCount(queryArgs);
+    }
+
     /**
      * Queues a job to be run on any Candlepin node backed by the same database as this node, and
      * is configured to process jobs matching the type of the specified job. If multiple nodes are
@@ -1028,6 +1046,11 @@ public class JobManager implements ModeChangeListener {
      * If the specified job is one which is unique by some criteria, and a matching job is already
      * in the queue or currently executing, a new job will not be queued and the existing job's
      * job status will be returned instead.
+     * <p></p>
+     * If the job has a coalescer and a matching job has not yet started executing, the arguments
+     * of the specified job will be merged into the existing job and the existing job's status will
+     * be returned. If the job is blocked by its constraints and is configured to wait, it will be
+     * left in the WAITING state and queued once its blocking jobs have reached a terminal state.
      *
      * @param config
      *  A JobConfig instance representing the configuration of the job to queue
@@ -1065,6 +1088,13 @@ public class JobManager implements ModeChangeListener {
         AsyncJobStatus status = this.buildJobStatus(config);
 
         try {
+            // Check if the job can be merged into a matching job which has not yet started
+            AsyncJobStatus pending = this.coalesceJob(config.getCoalescer(), status);
+            if (pending != null) {
+                log.info("Job \"{}\" coalesced into existing job: {}", status.getName(), pending);
+                return pending;
+            }
+
             // Check if the queueing is blocked by constraints
             Collection<JobConstraint> constraints = config.getConstraints();
             Set<String> blockingJobIds = new HashSet<>();
@@ -1079,6 +1109,14 @@ public class JobManager implements ModeChangeListener {
                 }
             }
 
+            // If the job is to wait on its blocking jobs, lock those which have yet to finish. A
+            // blocking job cannot reach a terminal state until the waiting job has been committed,
+            // so it cannot miss the waiting job when releasing the jobs it was blocking. Blocking
+            // jobs which finished since the constraints were tested no longer block the job.
+            if (!blockingJobIds.isEmpty() && config.waitWhenBlocked()) {
+                blockingJobIds = this.jobCurator.lockActiveJobs(blockingJobIds);
+            }
+
             // Persist the job status so that the ID will be generated.
             status = this.jobCurator.create(status);
 
@@ -1087,9 +1125,20 @@ public class JobManager implements ModeChangeListener {
                 status = this.postJobStatusMessage(status);
                 log.info("Job queued: {}", status);
             }
-            else {
-                // TODO: Add support for the WAITING option. For now, always default to ABORTED
+            else if (config.waitWhenBlocked()) {
+                String jobIds = blockingJobIds.stream()
+                    .collect(Collectors.joining(", "));
+
+                StringBuilder msg = new StringBuilder("Job waiting on the following existing jobs: ")
+                    .append(jobIds);
+
+                status.setBlockingJobIds(blockingJobIds);
+                status = this.updateJobStatus(status, JobState.WAITING, msg.toString());
 
+                log.info("Job waiting: {}; blocked by the following existing jobs: {}",
+                    status.getName(), jobIds);
+            }
+            else {
                 String jobIds = blockingJobIds.stream()
                     .collect(Collectors.joining(", "));
 
@@ -1151,6 +1200,121 @@ public class JobManager implements ModeChangeListener {
         return status;
     }
 
+    /**
+     * Attempts to merge the given inbound job into a matching job which has not yet started
+     * executing, using the provided coalescer. If the job cannot be coalesced, this method returns
+     * null.
+     *
+     * @param coalescer
+     *  the coalescer to use to merge the jobs, or null if the job cannot be coalesced
+     *
+     * @param inbound
+     *  the job status of the inbound job
+     *
+     * @return
+     *  the updated job status of the job into which the inbound job was merged, or null if the job
+     *  could not be coalesced
+     */
+    private AsyncJobStatus coalesceJob(JobCoalescer coalescer, AsyncJobStatus inbound) {
+        if (coalescer == null) {
+            return null;
+        }
+
+        Map<String, String> matchingArgs = coalescer.getMatchingArguments(inbound);
+        if (matchingArgs == null) {
+            return null;
+        }
+
+        JobArguments inboundArgs = inbound.getJobArguments();
+        List<AsyncJobStatus> candidates = this.jobCurator
+            .fetchPendingJobsByArguments(inbound.getJobKey(), matchingArgs);
+
+        for (AsyncJobStatus pending : candidates) {
+            // Another node may have started the job while we were waiting on the lock
+            if (pending.getState() != JobState.QUEUED && pending.getState() != JobState.WAITING) {
+                continue;
+            }
+
+            if (!Objects.equals(pending.getContextOwnerId(), inbound.getContextOwnerId())) {
+                continue;
+            }
+
+            JobArguments merged = coalescer.coalesce(pending.getJobArguments(), inboundArgs);
+            if (merged != null) {
+                pending.setJobArguments(merged);
+                return this.jobCurator.merge(pending);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Releases all jobs in the WAITING state which are no longer blocked by a non-terminal job,
+     * queuing them for execution. Waiting jobs are normally released as their blocking jobs
+     * finish; this method allows releasing any jobs which may have been missed, such as when the
+     * node executing a blocking job was terminated.
+     *
+     * @return
+     *  the number of jobs released
+     */
+    public int releaseWaitingJobs() {
+        return this.releaseWaitingJobs(null);
+    }
+
+    /**
+     * Releases the jobs in the WAITING state which are no longer blocked by a non-terminal job,
+     * queuing them for execution. If a blocking job ID is provided, only the jobs blocked by that
+     * job are considered.
+     *
+     * @param blockingJobId
+     *  the ID of the job whose waiting jobs should be released, or null to release all waiting
+     *  jobs which are no longer blocked
+     *
+     * @return
+     *  the number of jobs released
+     */
+    @Transactional
+    protected int releaseWaitingJobs(String blockingJobId) {
+        int released = 0;
+
+        for (AsyncJobStatus status : this.jobCurator.fetchReleasableJobs(blockingJobId)) {
+            // Another node may have released the job while we were waiting on the lock
+            if (status.getState() != JobState.WAITING) {
+                continue;
+            }
+
+            try {
+                status = this.postJobStatusMessage(status);
+                ++released;
+
+                log.info("Job released: {}", status);
+            }
+            catch (JobException e) {
+                log.error("Unable to release waiting job: {}", status.getName(), e);
+            }
+        }
+
+        return released;
+    }
+
+    /**
+     * Releases the jobs waiting on the given job, which has just reached a terminal state. Failing
+     * to release the waiting jobs does not affect the given job; any such jobs will be released
+     * by a later pass.
+     *
+     * @param status
+     *  the job status of the job which reached a terminal state
+     */
+    private void releaseJobsBlockedBy(AsyncJobStatus status) {
+        try {
+            this.releaseWaitingJobs(status.getId());
+        }
+        catch (Exception e) {
+            log.warn("Unable to release jobs waiting on job \"{}\"", status.getName(), e);
+        }
+    }
+
     /**
      * Creates and dispatches a job message for the given job status, then updates the state of
      * the job to QUEUED.
@@ -1175,7 +1339,8 @@ public class JobManager implements ModeChangeListener {
 
         try {
             // Build and send the job message
-            JobMessage message = new JobMessage(status.getId(), status.getJobKey());
+            JobMessage message = new JobMessage(status.getId(), status.getJobKey(),
+                status.getContextOwnerId());
             this.dispatcher.postJobMessage(message);
 
             // Update the job's status
@@ -1283,7 +1448,7 @@ public class JobManager implements ModeChangeListener {
 
             EventSink eventSink = this.eventSinkProvider.get();
             try {
-                job.execute(new JobExecutionContext(status));
+                job.execute(new JobExecutionContext(status, this::updateJobProgress));
 
                 // If a transaction was left open, we should scream about it. Note that this will
                 // cause the job to fail if the session cannot be terminated cleanly.
@@ -1311,6 +1476,8 @@ public class JobManager implements ModeChangeListener {
                 log.info("Job \"{}\" completed in {}ms", status.getName(), this.getJobRuntime(status));
             }
 
+            this.releaseJobsBlockedBy(status);
+
             return status;
         }
         finally {
@@ -1588,6 +1755,22 @@ public class JobManager implements ModeChangeListener {
         }
     }
 
+    /**
+     * Publishes the current result of an executing job as its progress. Failing to publish progress
+     * does not fail the job.
+     *
+     * @param status
+     *  The AsyncJobStatus of the executing job
+     */
+    private void updateJobProgress(AsyncJobStatus status) {
+        try {
+            this.jobCurator.updateJobResult(status.getId(), status.getJobResult());
+        }
+        catch (Exception e) {
+            log.warn("Unable to update progress for job \"{}\"", status.getName(), e);
+        }
+    }
+
     /**
      * Calculates the runtime of the given job. If the job has not completed its execution attempt,
      * this method returns -1;
@@ -1652,6 +1835,8 @@ public class JobManager implements ModeChangeListener {
 
             log.error("Job \"{}\" failed in {}ms",
                 status.getName(), this.getJobRuntime(status), throwable);
+
+            this.releaseJobsBlockedBy(status);
         }
 
         return status;
@@ -1703,6 +1888,10 @@ public class JobManager implements ModeChangeListener {
             }
 
             status = this.jobCurator.merge(status);
+
+            if (status.getState() == JobState.CANCELED) {
+                this.releaseJobsBlockedBy(status);
+            }
         }
 
         return status;
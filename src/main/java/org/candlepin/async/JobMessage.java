@@ -15,6 +15,7 @@
 package org.candlepin.async;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 
@@ -25,6 +26,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 public class JobMessage {
     private String jobId;
     private String jobKey;
+    private String ownerId;
 
     @JsonCreator
     public JobMessage(@JsonProperty("jobId") String jobId, @JsonProperty("jobKey") String jobKey) {
@@ -41,6 +43,25 @@ public class JobMessage {
         this.jobKey = jobKey;
     }
 
+    /**
+     * Creates a new job message for a job run in the context of the specified owner. The owner is
+     * used only to route the message, and is not included in the serialized form of the message.
+     *
+     * @param jobId
+     *  the ID of the job represented by this message
+     *
+     * @param jobKey
+     *  the job key for the job represented by this message
+     *
+     * @param ownerId
+     *  the ID of the owner in the context of which the job runs, or null if the job is not run in
+     *  the context of an owner
+     */
+    public JobMessage(String jobId, String jobKey, String ownerId) {
+        this(jobId, jobKey);
+        this.ownerId = ownerId;
+    }
+
     /**
      * Fetches the ID of the job represented by this message
      *
@@ -61,6 +82,19 @@ public class JobMessage {
         return this.jobKey;
     }
 
+    /**
+     * Fetches the ID of the owner in the context of which the job represented by this message runs.
+     * This value is not serialized, and is always null for received messages.
+     *
+     * @return
+     *  The ID of the owner of the job represented by this message, or null if the owner is not
+     *  available
+     */
+    @JsonIgnore
+    public String getOwnerId() {
+        return this.ownerId;
+    }
+
     @Override
     public String toString() {
         return String.format("JobMessage [id: %s, key: %s]", this.jobKey, this.jobId);
@@ -49,6 +49,7 @@ public class JobMessageDispatcher {
     private static Logger log = LoggerFactory.getLogger(JobMessageDispatcher.class);
 
     private static final String JOB_KEY_MESSAGE_PROPERTY = "job_key";
+    private static final String OWNER_ID_MESSAGE_PROPERTY = "owner_id";
 
     /**
      * The ThreadSessionStore is used to store session information per thread.
@@ -201,6 +202,7 @@ public class JobMessageDispatcher {
     private final Map<ThreadReference, ThreadSessionStore> sessions;
 
     private String dispatchAddress;
+    private Map<String, JobLane> lanes;
 
     /**
      * Creates a new JobMessageDispatcher instance for sending job messages to the backing
@@ -247,6 +249,11 @@ public class JobMessageDispatcher {
         if (this.dispatchAddress == null || this.dispatchAddress.isEmpty()) {
             throw new ConfigurationException("Invalid job dispatch address: address cannot be null or empty");
         }
+
+        this.lanes = new HashMap<>();
+        for (JobLane lane : JobLane.fromConfig(config)) {
+            lane.getJobKeys().forEach(jobKey -> this.lanes.put(jobKey, lane));
+        }
     }
 
     /**
@@ -321,6 +328,8 @@ public class JobMessageDispatcher {
                 .setDurable(true)
                 .setProperty(JOB_KEY_MESSAGE_PROPERTY, jobMessage.getJobKey());
 
+            this.applyLaneSettings(message, jobMessage);
+
             String serializedJobMessage = this.objMapper.writeValueAsString(jobMessage);
             message.setBody(serializedJobMessage);
 
@@ -332,6 +341,28 @@ public class JobMessageDispatcher {
         }
     }
 
+    /**
+     * Applies the settings of the lane to which the job is assigned, if any, to the message. The
+     * messages of lanes with owner fairness carry the ID of the job's owner, which the receiver uses
+     * to defer the jobs of owners already running a job in the lane.
+     *
+     * @param message
+     *  the message being sent
+     *
+     * @param jobMessage
+     *  the job message being sent
+     */
+    private void applyLaneSettings(CPMMessage message, JobMessage jobMessage) {
+        JobLane lane = this.lanes.get(jobMessage.getJobKey());
+        if (lane == null) {
+            return;
+        }
+
+        if (lane.isOwnerFairness() && jobMessage.getOwnerId() != null) {
+            message.setProperty(OWNER_ID_MESSAGE_PROPERTY, jobMessage.getOwnerId());
+        }
+    }
+
     /**
      * Commits any pending messages posted to the backing message bus. If no transaction is
      * active, or no messages have been posted, this method returns silently.
@@ -22,11 +22,13 @@ import org.candlepin.messaging.CPMConsumerConfig;
 import org.candlepin.messaging.CPMException;
 import org.candlepin.messaging.CPMMessage;
 import org.candlepin.messaging.CPMMessageListener;
+import org.candlepin.messaging.CPMProducer;
 import org.candlepin.messaging.CPMSession;
 import org.candlepin.messaging.CPMSessionConfig;
 import org.candlepin.messaging.CPMSessionFactory;
 import org.candlepin.model.AsyncJobStatus;
 import org.candlepin.model.AsyncJobStatus.JobState;
+import org.candlepin.util.JmxUtil;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.persist.UnitOfWork;
@@ -34,23 +36,48 @@ import com.google.inject.persist.UnitOfWork;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
+import javax.management.ObjectName;
 
 
 
 /**
  * The JobMessageReceiver class manages the various receivers for handling messages received from
  * the backing message queues, and passes the messages back to the job manager
+ * <p></p>
+ * Each configured {@link JobLane} receives its jobs through its own set of consumers, filtered on
+ * the job key of each message, so the jobs of one lane cannot occupy the threads of another. Jobs
+ * not assigned to any lane are received by the consumers of the default lane.
+ * <p></p>
+ * In lanes with owner fairness, this node runs at most one job per owner at a time. A message
+ * received for an owner which already has a job running in the lane on this node is not
+ * executed, but is sent back to the queue to be delivered again after a delay, which doubles each
+ * time the message is deferred. The lane's threads are thereby left free to run the jobs of other
+ * owners queued behind it, rather than being taken up by the backlog of a single owner. Owners are
+ * not limited across nodes, and deferred jobs may run out of order with respect to the other jobs
+ * of their owner.
  */
 public class JobMessageReceiver {
     private static Logger log = LoggerFactory.getLogger(JobMessageReceiver.class);
 
     private static final String JOB_KEY_MESSAGE_PROPERTY = "job_key";
+    private static final String OWNER_ID_MESSAGE_PROPERTY = "owner_id";
+    private static final String DEFERRALS_MESSAGE_PROPERTY = "deferrals";
+
+    /** The delay, in milliseconds, before a message deferred for the first time is delivered again */
+    private static final long MIN_DEFERRAL_DELAY = 1000;
+
+    /** The maximum delay, in milliseconds, before a deferred message is delivered again */
+    private static final long MAX_DEFERRAL_DELAY = 60000;
 
     private final Configuration config;
     private final CPMSessionFactory cpmSessionFactory;
@@ -59,10 +86,11 @@ public class JobMessageReceiver {
     private boolean initialized;
     private boolean suspended;
 
-    private MessageListener listener;
     private String receiveAddress;
     private String receiveFilter;
-    private Set<CPMSession> sessions;
+    private List<JobLane> lanes;
+    private List<LaneSession> sessions;
+    private List<ObjectName> metricsNames;
     private UnitOfWork unitOfWork;
 
 
@@ -89,7 +117,8 @@ public class JobMessageReceiver {
 
         this.initialized = false;
         this.suspended = false;
-        this.sessions = new HashSet<>();
+        this.sessions = new ArrayList<>();
+        this.metricsNames = new ArrayList<>();
 
         this.configure(this.config);
     }
@@ -110,15 +139,50 @@ public class JobMessageReceiver {
         }
 
         this.receiveFilter = config.getString(ConfigProperties.ASYNC_JOBS_RECEIVE_FILTER);
+        this.lanes = JobLane.fromConfig(config);
+    }
+
+    /**
+     * Builds a message filter matching messages for the given job keys, combined with the configured
+     * receive filter, if any.
+     *
+     * @param jobKeys
+     *  the job keys to match or exclude
+     *
+     * @param exclude
+     *  whether messages for the given job keys should be excluded rather than matched
+     *
+     * @return
+     *  the message filter to use for consumers receiving the specified jobs
+     */
+    private String buildMessageFilter(Collection<String> jobKeys, boolean exclude) {
+        String filter = this.receiveFilter;
+
+        if (!jobKeys.isEmpty()) {
+            String prefix = JOB_KEY_MESSAGE_PROPERTY + (exclude ? " NOT IN (" : " IN (");
+            String keyFilter = jobKeys.stream()
+                .map(key -> "'" + key.replace("'", "''") + "'")
+                .collect(Collectors.joining(", ", prefix, ")"));
+
+            filter = (filter == null || filter.isEmpty()) ? keyFilter : "(" + filter + ") AND " + keyFilter;
+        }
+
+        return filter;
     }
 
     /**
      * Creates and configures a new session and consumer
      *
+     * @param messageFilter
+     *  the filter to apply to the consumer
+     *
+     * @param listener
+     *  the listener to receive the consumer's messages
+     *
      * @return
      *  The newly created CPM session
      */
-    private CPMSession createSession() throws CPMException {
+    private CPMSession createSession(String messageFilter, MessageListener listener) throws CPMException {
         CPMSessionConfig sconfig = this.cpmSessionFactory.createSessionConfig()
             .setTransactional(true);
 
@@ -128,10 +192,10 @@ public class JobMessageReceiver {
 
         CPMConsumerConfig cconfig = session.createConsumerConfig()
             .setQueue(this.receiveAddress)
-            .setMessageFilter(this.receiveFilter);
+            .setMessageFilter(messageFilter);
 
         session.createConsumer(cconfig)
-            .setMessageListener(this.listener);
+            .setMessageListener(listener);
 
         // Once the consumer is configured, we no longer need to propagate it, as it'll be managed
         // indirectly through the session, and passed into the message listener as needed
@@ -144,28 +208,12 @@ public class JobMessageReceiver {
      * will recreate it.
      */
     private void startSessions() throws CPMException {
-        Set<CPMSession> created = null;
-
-        Iterator<CPMSession> iterator = this.sessions.iterator();
-        while (iterator.hasNext()) {
-            CPMSession session = iterator.next();
-
-            if (session == null || session.isClosed()) {
-                if (created == null) {
-                    created = new HashSet<>();
-                }
-
-                iterator.remove();
-                session = this.createSession();
-
-                created.add(session);
+        for (LaneSession laneSession : this.sessions) {
+            if (laneSession.session == null || laneSession.session.isClosed()) {
+                laneSession.session = this.createSession(laneSession.filter, laneSession.listener);
             }
 
-            session.start();
-        }
-
-        if (created != null) {
-            this.sessions.addAll(created);
+            laneSession.session.start();
         }
     }
 
@@ -173,8 +221,70 @@ public class JobMessageReceiver {
      * Close all known sessions.
      */
     private void closeSessions() throws CPMException {
-        for (CPMSession session : this.sessions) {
-            session.close();
+        for (LaneSession laneSession : this.sessions) {
+            laneSession.session.close();
+        }
+    }
+
+    /**
+     * Creates the consumers and metrics for a single lane.
+     *
+     * @param manager
+     *  the JobManager to use to process received job messages
+     *
+     * @param laneName
+     *  the name of the lane
+     *
+     * @param jobKeys
+     *  the keys of the jobs in the lane, or null for the default lane
+     *
+     * @param threads
+     *  the number of consumers to create for the lane
+     *
+     * @param ownerFairness
+     *  whether or not to limit each owner to one running job in the lane on this node
+     *
+     * @param filter
+     *  the message filter selecting the lane's messages
+     */
+    private void createLane(JobManager manager, String laneName, Collection<String> jobKeys, int threads,
+        boolean ownerFairness, String filter) throws CPMException {
+
+        LongSupplier queueDepthSupplier = () -> {
+            this.unitOfWork.begin();
+
+            try {
+                return jobKeys != null ?
+                    manager.getQueuedJobCount(jobKeys) :
+                    manager.getQueuedJobCount(null) - this.lanes.stream()
+                        .mapToLong(lane -> manager.getQueuedJobCount(lane.getJobKeys()))
+                        .sum();
+            }
+            finally {
+                this.unitOfWork.end();
+            }
+        };
+
+        JobLaneMetrics metrics = new JobLaneMetrics(laneName, jobKeys, threads, queueDepthSupplier);
+        ObjectName metricsName = JmxUtil.register(metrics, JobLaneMetrics.class.getSimpleName(), laneName);
+        if (metricsName != null) {
+            this.metricsNames.add(metricsName);
+        }
+
+        // The owners with a job running in the lane are shared by all of its consumers
+        Set<String> runningOwners = ownerFairness ? ConcurrentHashMap.newKeySet() : null;
+
+        MessageListener listener = new MessageListener(manager, this.mapper, this.unitOfWork, metrics,
+            runningOwners);
+
+        log.info("Creating {} threads for job lane \"{}\" receiving job messages from address: \"{}\", " +
+            "with filter: \"{}\"", threads, laneName, this.receiveAddress, filter);
+
+        for (int i = 0; i < threads; ++i) {
+            // Each session+consumer gives us an implicit thread for async job processing, so
+            // we don't need to do any additional thread creation/management ourselves.
+            CPMSession session = this.createSession(filter, listener);
+            this.sessions.add(new LaneSession(filter, listener, session));
         }
     }
 
@@ -201,19 +311,20 @@ public class JobMessageReceiver {
         }
 
         try {
-            this.listener = new MessageListener(manager, this.mapper, this.unitOfWork);
-            int listenerThreads = this.config.getInt(ConfigProperties.ASYNC_JOBS_THREADS);
+            List<String> laneJobKeys = new ArrayList<>();
 
-            log.info("Creating {} threads receiving job messages from address: \"{}\", with filter: \"{}\"",
-                listenerThreads, this.receiveAddress, this.receiveFilter);
+            for (JobLane lane : this.lanes) {
+                this.createLane(manager, lane.getName(), lane.getJobKeys(), lane.getThreads(),
+                    lane.isOwnerFairness(), this.buildMessageFilter(lane.getJobKeys(), false));
 
-            for (int i = 0; i < listenerThreads; ++i) {
-                // Each session+consumer gives us an implicit thread for async job processing, so
-                // we don't need to do any additional thread creation/management ourselves.
-                CPMSession session = this.createSession();
-                this.sessions.add(session);
+                laneJobKeys.addAll(lane.getJobKeys());
             }
 
+            // The default lane receives every job not assigned to one of the configured lanes
+            this.createLane(manager, JobLane.DEFAULT_LANE, null,
+                this.config.getInt(ConfigProperties.ASYNC_JOBS_THREADS), false,
+                this.buildMessageFilter(laneJobKeys, true));
+
             this.initialized = true;
 
             // We're not technically suspended, but we're not started, either. This avoids
@@ -230,13 +341,15 @@ public class JobMessageReceiver {
      */
     public synchronized void shutdown() throws JobException {
         try {
-            for (CPMSession session : this.sessions) {
-                session.close();
-            }
+            this.closeSessions();
         }
         catch (CPMException e) {
             throw new JobException(e);
         }
+        finally {
+            this.metricsNames.forEach(JmxUtil::unregister);
+            this.metricsNames.clear();
+        }
     }
 
     /**
@@ -303,6 +416,22 @@ public class JobMessageReceiver {
         return this.suspended;
     }
 
+    /**
+     * A session receiving the messages of a single lane, along with the configuration needed to
+     * recreate it should it be closed
+     */
+    private static class LaneSession {
+        private final String filter;
+        private final MessageListener listener;
+        private CPMSession session;
+
+        public LaneSession(String filter, MessageListener listener, CPMSession session) {
+            this.filter = filter;
+            this.listener = listener;
+            this.session = session;
+        }
+    }
+
     /**
      * Internal message listener implementation to handle CPM messages
      */
@@ -311,6 +440,8 @@ public class JobMessageReceiver {
         private final JobManager manager;
         private final ObjectMapper mapper;
         private final UnitOfWork unitOfWork;
+        private final JobLaneMetrics metrics;
+        private final Set<String> runningOwners;
 
         /**
          * Initializes a new message listener using the specified job manager to process
@@ -318,11 +449,22 @@ public class JobMessageReceiver {
          *
          * @param manager
          *  The JobManager instance to process received job messages; cannot be null
+         *
+         * @param metrics
+         *  The metrics of the lane to which received job messages belong; cannot be null
+         *
+         * @param runningOwners
+         *  The set of owners with a job running in the lane, shared by the lane's listeners, or null
+         *  if the lane does not limit owners to one running job
          */
-        public MessageListener(JobManager manager, ObjectMapper mapper, UnitOfWork unitOfWork) {
+        public MessageListener(JobManager manager, ObjectMapper mapper, UnitOfWork unitOfWork,
+            JobLaneMetrics metrics, Set<String> runningOwners) {
+
             this.manager = Objects.requireNonNull(manager);
             this.mapper = Objects.requireNonNull(mapper);
             this.unitOfWork = Objects.requireNonNull(unitOfWork);
+            this.metrics = Objects.requireNonNull(metrics);
+            this.runningOwners = runningOwners;
         }
 
         /**
@@ -330,6 +472,23 @@ public class JobMessageReceiver {
          */
         @Override
         public void handleMessage(CPMSession session, CPMConsumer consumer, CPMMessage message) {
+            String ownerId = this.runningOwners != null && message != null ?
+                message.getProperty(OWNER_ID_MESSAGE_PROPERTY) :
+                null;
+
+            // If the owner already has a job running in the lane, leave this thread free to run the
+            // jobs of other owners and have the message delivered again later
+            if (ownerId != null && !this.runningOwners.add(ownerId)) {
+                this.deferMessage(session, message);
+                return;
+            }
+
+            long received = System.currentTimeMillis();
+            long sent = message != null ? message.getTimestamp() : 0;
+            boolean success = false;
+
+            this.metrics.recordReceipt(sent > 0 ? Math.max(0, received - sent) : -1);
+
             try {
                 if (log.isDebugEnabled()) {
                     log.debug("Received message: {}", this.serializeMessage(message));
@@ -351,6 +510,7 @@ public class JobMessageReceiver {
 
                 // We didn't fail! Commit the message
                 this.commit(session);
+                success = true;
             }
             catch (JobExecutionException e) {
                 // The job failed during execution; retry logic within JobManager will handle this
@@ -442,6 +602,58 @@ public class JobMessageReceiver {
             }
             finally {
                 this.unitOfWork.end();
+                this.metrics.recordCompletion(System.currentTimeMillis() - received, success);
+
+                if (ownerId != null) {
+                    this.runningOwners.remove(ownerId);
+                }
+            }
+        }
+
+        /**
+         * Sends a copy of the given message back to the address from which it was received, to be
+         * delivered once the deferral delay has passed, and commits the receipt of the message. The
+         * copy is sent and the message consumed in the same transaction, so the job's message is
+         * neither lost nor duplicated should either fail.
+         *
+         * @param session
+         *  the session through which the message was received
+         *
+         * @param message
+         *  the message to defer
+         */
+        private void deferMessage(CPMSession session, CPMMessage message) {
+            try {
+                message.acknowledge();
+
+                String deferralsValue = message.getProperty(DEFERRALS_MESSAGE_PROPERTY);
+                int deferrals = deferralsValue != null ? Integer.parseInt(deferralsValue) : 0;
+                long delay = Math.min(MIN_DEFERRAL_DELAY << Math.min(deferrals, 16), MAX_DEFERRAL_DELAY);
+
+                CPMMessage deferred = session.createMessage()
+                    .setDurable(true)
+                    .setProperty(JOB_KEY_MESSAGE_PROPERTY, message.getProperty(JOB_KEY_MESSAGE_PROPERTY))
+                    .setProperty(OWNER_ID_MESSAGE_PROPERTY, message.getProperty(OWNER_ID_MESSAGE_PROPERTY))
+                    .setProperty(DEFERRALS_MESSAGE_PROPERTY, String.valueOf(deferrals + 1))
+                    .setScheduledDeliveryTime(System.currentTimeMillis() + delay)
+                    .setBody(message.getBody());
+
+                CPMProducer producer = session.createProducer();
+                try {
+                    producer.send(message.getAddress(), deferred);
+                }
+                finally {
+                    producer.close();
+                }
+
+                log.debug("Deferred job message for {} ms: {}", delay, this.serializeMessage(message));
+                this.commit(session);
+            }
+            catch (Exception e) {
+                log.warn("Unable to defer job message; rolling back client session: {}",
+                    this.serializeMessage(message), e);
+
+                this.rollback(session);
             }
         }
 
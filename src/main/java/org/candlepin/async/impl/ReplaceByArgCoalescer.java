@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async.impl;
+
+import org.candlepin.async.JobArguments;
+import org.candlepin.async.JobCoalescer;
+import org.candlepin.model.AsyncJobStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+
+
+/**
+ * The ReplaceByArgCoalescer coalesces an inbound job into a pending job with the same key and
+ * value of a given parameter, or set of parameters, by replacing the arguments of the pending job
+ * with those of the inbound job. This is suitable for jobs where only the latest request matters.
+ * Jobs which do not have a value for every target parameter are never coalesced.
+ */
+public class ReplaceByArgCoalescer implements JobCoalescer {
+
+    private final List<String> params;
+
+    /**
+     * Creates a new ReplaceByArgCoalescer using the specified parameters as the target.
+     *
+     * @param params
+     *  The parameter, or parameters, which must match for jobs to be coalesced
+     *
+     * @throws IllegalArgumentException
+     *  if params is null or empty, or contains a parameter which is null or empty
+     */
+    public ReplaceByArgCoalescer(String... params) {
+        this(params != null ? Arrays.asList(params) : null);
+    }
+
+    /**
+     * Creates a new ReplaceByArgCoalescer using the specified parameters as the target.
+     *
+     * @param params
+     *  A list of parameters which must match for jobs to be coalesced
+     *
+     * @throws IllegalArgumentException
+     *  if params is null or empty, or contains a parameter which is null or empty
+     */
+    public ReplaceByArgCoalescer(List<String> params) {
+        if (params == null || params.isEmpty()) {
+            throw new IllegalArgumentException("params is null or empty");
+        }
+
+        List<String> plist = new ArrayList<>(params.size());
+        for (String param : params) {
+            if (param == null || param.isEmpty()) {
+                throw new IllegalArgumentException("params contains a null or empty parameter");
+            }
+
+            plist.add(param);
+        }
+
+        this.params = Collections.unmodifiableList(plist);
+    }
+
+    /**
+     * @{inheritDoc}
+     */
+    @Override
+    public Map<String, String> getMatchingArguments(AsyncJobStatus inbound) {
+        if (inbound == null) {
+            throw new IllegalArgumentException("inbound is null");
+        }
+
+        JobArguments jobArgs = inbound.getJobArguments();
+        Map<String, String> argMap = new HashMap<>();
+
+        for (String param : this.params) {
+            String value = jobArgs.getSerializedValue(param);
+
+            // Jobs without a value for every target parameter cannot be reliably matched
+            if (value == null) {
+                return null;
+            }
+
+            argMap.put(param, value);
+        }
+
+        return argMap;
+    }
+
+    /**
+     * @{inheritDoc}
+     */
+    @Override
+    public JobArguments coalesce(JobArguments pending, JobArguments inbound) {
+        if (pending == null) {
+            throw new IllegalArgumentException("pending is null");
+        }
+
+        if (inbound == null) {
+            throw new IllegalArgumentException("inbound is null");
+        }
+
+        return this.matches(pending, inbound) ? this.merge(pending, inbound) : null;
+    }
+
+    /**
+     * Checks that the given job arguments have the same values for all of the target parameters.
+     *
+     * @param pending
+     *  the arguments of the pending job
+     *
+     * @param inbound
+     *  the arguments of the inbound job
+     *
+     * @return
+     *  true if the arguments match; false otherwise
+     */
+    protected boolean matches(JobArguments pending, JobArguments inbound) {
+        return this.params.stream()
+            .allMatch(param -> Objects.equals(pending.getSerializedValue(param),
+                inbound.getSerializedValue(param)));
+    }
+
+    /**
+     * Merges the arguments of two matching jobs. By default, the inbound arguments replace the
+     * pending arguments entirely.
+     *
+     * @param pending
+     *  the arguments of the pending job
+     *
+     * @param inbound
+     *  the arguments of the inbound job
+     *
+     * @return
+     *  the merged arguments
+     */
+    protected JobArguments merge(JobArguments pending, JobArguments inbound) {
+        return new JobArguments(new HashMap<>(inbound.toSerializedMap()));
+    }
+}
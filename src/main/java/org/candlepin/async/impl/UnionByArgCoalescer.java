@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async.impl;
+
+import org.candlepin.async.JobArguments;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+
+/**
+ * The UnionByArgCoalescer coalesces an inbound job into a pending job with the same key and value
+ * of a given parameter, or set of parameters, by merging the values of an array parameter of both
+ * jobs. All other arguments are taken from the inbound job.
+ */
+public class UnionByArgCoalescer extends ReplaceByArgCoalescer {
+
+    private final String unionParam;
+
+    /**
+     * Creates a new UnionByArgCoalescer which merges the given array parameter, using the
+     * specified parameters as the target.
+     *
+     * @param unionParam
+     *  The array parameter to merge
+     *
+     * @param params
+     *  The parameter, or parameters, which must match for jobs to be coalesced
+     *
+     * @throws IllegalArgumentException
+     *  if unionParam is null or empty, or params is null or empty, or contains a parameter which
+     *  is null or empty
+     */
+    public UnionByArgCoalescer(String unionParam, String... params) {
+        this(unionParam, params != null ? Arrays.asList(params) : null);
+    }
+
+    /**
+     * Creates a new UnionByArgCoalescer which merges the given array parameter, using the
+     * specified parameters as the target.
+     *
+     * @param unionParam
+     *  The array parameter to merge
+     *
+     * @param params
+     *  A list of parameters which must match for jobs to be coalesced
+     *
+     * @throws IllegalArgumentException
+     *  if unionParam is null or empty, or params is null or empty, or contains a parameter which
+     *  is null or empty
+     */
+    public UnionByArgCoalescer(String unionParam, List<String> params) {
+        super(params);
+
+        if (unionParam == null || unionParam.isEmpty()) {
+            throw new IllegalArgumentException("unionParam is null or empty");
+        }
+
+        this.unionParam = unionParam;
+    }
+
+    /**
+     * @{inheritDoc}
+     */
+    @Override
+    protected JobArguments merge(JobArguments pending, JobArguments inbound) {
+        Set<Object> union = new LinkedHashSet<>();
+
+        Object[] pendingValues = pending.getAs(this.unionParam, Object[].class);
+        Object[] inboundValues = inbound.getAs(this.unionParam, Object[].class);
+
+        if (pendingValues != null) {
+            Collections.addAll(union, pendingValues);
+        }
+
+        if (inboundValues != null) {
+            Collections.addAll(union, inboundValues);
+        }
+
+        Map<String, String> merged = new HashMap<>(inbound.toSerializedMap());
+        merged.put(this.unionParam, JobArguments.serialize(union.toArray()));
+
+        return new JobArguments(merged);
+    }
+}
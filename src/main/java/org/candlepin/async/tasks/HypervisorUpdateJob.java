@@ -17,6 +17,7 @@ package org.candlepin.async.tasks;
 import org.candlepin.async.ArgumentConversionException;
 import org.candlepin.async.AsyncJob;
 import org.candlepin.async.JobArguments;
+import org.candlepin.async.JobCoalescers;
 import org.candlepin.async.JobConfig;
 import org.candlepin.async.JobConfigValidationException;
 import org.candlepin.async.JobConstraints;
@@ -171,7 +172,9 @@ public class HypervisorUpdateJob implements AsyncJob {
         public HypervisorUpdateJobConfig() {
             this.setJobKey(JOB_KEY)
                 .setJobName(JOB_NAME)
-                .addConstraint(JobConstraints.uniqueByArguments(OWNER_KEY));
+                .addConstraint(JobConstraints.uniqueByArguments(OWNER_KEY))
+                .setCoalescer(JobCoalescers.replaceByArguments(OWNER_KEY, REPORTER_ID_KEY, CREATE_KEY))
+                .waitWhenBlocked(true);
         }
 
         /**
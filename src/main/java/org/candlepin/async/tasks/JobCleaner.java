@@ -38,7 +38,8 @@ import javax.inject.Inject;
 
 
 /**
- * The JobCleaner job deletes terminal jobs older than the max job age (default: 7 days)
+ * The JobCleaner job deletes terminal jobs older than the max job age (default: 7 days), and
+ * releases any waiting jobs which are no longer blocked
  */
 public class JobCleaner implements AsyncJob {
     private static final Logger log = LoggerFactory.getLogger(JobCleaner.class);
@@ -93,6 +94,10 @@ public class JobCleaner implements AsyncJob {
                 aborted, runningCutoff));
         }
 
+        // Release any waiting jobs whose blocking jobs finished or were aborted without releasing them
+        int released = this.jobManager.releaseWaitingJobs();
+        result.append(String.format("Released %d waiting jobs%n", released));
+
         context.setJobResult(result.toString());
     }
 
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async.tasks;
+
+import org.candlepin.async.AsyncJob;
+import org.candlepin.async.JobArguments;
+import org.candlepin.async.JobConfig;
+import org.candlepin.async.JobConstraints;
+import org.candlepin.async.JobExecutionContext;
+import org.candlepin.async.JobExecutionException;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.model.Owner;
+import org.candlepin.model.OwnerCurator;
+import org.candlepin.model.PoolCurator;
+import org.candlepin.model.PoolQuantityDrift;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+
+
+
+/**
+ * The pool quantity repair job checks the consumed and exported quantities stored on pools against
+ * the entitlements actually drawn from them, reporting any pools whose quantities have drifted.
+ * <p>
+ * Pool quantities are maintained incrementally as entitlements are created, adjusted and revoked,
+ * so this job should not normally find anything to report. When repairs are enabled, the quantities
+ * of drifted pools are recalculated; only those pool rows are updated. The job checks every
+ * organization unless it is given a specific one, and is run manually by default.
+ * <p>
+ * When bind quantity reservations are enabled, a server stopping between a reservation and the
+ * commit of its bind leaves the reservation in place, and this job is the only way to correct it.
+ * Reservations held by binds still in progress are indistinguishable from such drift, so repairs
+ * should only be run while no binds are being made against the affected organizations.
+ */
+public class PoolQuantityRepairJob implements AsyncJob {
+    private static final Logger log = LoggerFactory.getLogger(PoolQuantityRepairJob.class);
+
+    public static final String JOB_KEY = "PoolQuantityRepairJob";
+    public static final String JOB_NAME = "Pool Quantity Repair";
+
+    public static final String CFG_REPAIR = "repair";
+    public static final String DEFAULT_REPAIR = "true";
+
+    protected static final String OWNER_KEY = "org";
+
+    private final Configuration config;
+    private final OwnerCurator ownerCurator;
+    private final PoolCurator poolCurator;
+
+    /**
+     * Job configuration object for the pool quantity repair job
+     */
+    public static class PoolQuantityRepairJobConfig extends JobConfig<PoolQuantityRepairJobConfig> {
+        public PoolQuantityRepairJobConfig() {
+            this.setJobKey(JOB_KEY)
+                .setJobName(JOB_NAME)
+                .addConstraint(JobConstraints.uniqueByArguments(OWNER_KEY));
+        }
+
+        /**
+         * Limits the job to the pools of the given owner. If no owner is set, the pools of every
+         * owner are checked.
+         *
+         * @param owner
+         *  the owner whose pools should be checked
+         *
+         * @return
+         *  a reference to this job config
+         */
+        public PoolQuantityRepairJobConfig setOwner(Owner owner) {
+            if (owner == null) {
+                throw new IllegalArgumentException("owner is null");
+            }
+
+            this.setContextOwner(owner)
+                .setJobArgument(OWNER_KEY, owner.getKey());
+
+            return this;
+        }
+    }
+
+    @Inject
+    public PoolQuantityRepairJob(Configuration config, OwnerCurator ownerCurator, PoolCurator poolCurator) {
+        this.config = Objects.requireNonNull(config);
+        this.ownerCurator = Objects.requireNonNull(ownerCurator);
+        this.poolCurator = Objects.requireNonNull(poolCurator);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        boolean repair = this.config.getBoolean(ConfigProperties.jobConfig(JOB_KEY, CFG_REPAIR));
+
+        JobArguments args = context.getJobArguments();
+        String ownerKey = args != null ? args.getAsString(OWNER_KEY) : null;
+
+        List<Owner> owners;
+        if (ownerKey != null) {
+            Owner owner = this.ownerCurator.getByKey(ownerKey);
+            if (owner == null) {
+                throw new JobExecutionException("Nothing to do; owner no longer exists: " + ownerKey, true);
+            }
+
+            owners = List.of(owner);
+        }
+        else {
+            owners = this.ownerCurator.listAll().list();
+        }
+
+        int driftCount = 0;
+        int driftOwnerCount = 0;
+
+        for (Owner owner : owners) {
+            List<PoolQuantityDrift> drift = this.checkOwner(owner, repair);
+
+            if (!drift.isEmpty()) {
+                driftCount += drift.size();
+                ++driftOwnerCount;
+            }
+        }
+
+        log.info("Pool quantity check completed; {} pools with drifted quantities found in {} of {} " +
+            "organizations", driftCount, driftOwnerCount, owners.size());
+
+        context.setJobResult("%s completed successfully. %d pools with drifted quantities found in " +
+            "%d of %d organizations; %d repaired.", JOB_NAME, driftCount, driftOwnerCount, owners.size(),
+            repair ? driftCount : 0);
+    }
+
+    private List<PoolQuantityDrift> checkOwner(Owner owner, boolean repair) {
+        return this.poolCurator.<List<PoolQuantityDrift>>transactional()
+            .allowExistingTransactions()
+            .execute(args -> {
+                List<PoolQuantityDrift> drift = this.poolCurator.findPoolQuantityDrift(owner);
+
+                for (PoolQuantityDrift pool : drift) {
+                    log.warn("Pool {} in organization {} has drifted quantities: consumed {} " +
+                        "(expected {}), exported {} (expected {})", pool.poolId(), owner.getKey(),
+                        pool.consumed(), pool.expectedConsumed(), pool.exported(), pool.expectedExported());
+                }
+
+                if (repair && !drift.isEmpty()) {
+                    this.poolCurator.recalculatePoolQuantities(drift.stream()
+                        .map(PoolQuantityDrift::poolId)
+                        .collect(Collectors.toList()));
+                }
+
+                return drift;
+            });
+    }
+
+    /**
+     * Creates a JobConfig configured to execute the pool quantity repair job. Callers may further
+     * manipulate the JobConfig as necessary before queuing it.
+     *
+     * @return
+     *  a JobConfig instance configured to execute the pool quantity repair job
+     */
+    public static PoolQuantityRepairJobConfig createJobConfig() {
+        return new PoolQuantityRepairJobConfig();
+    }
+}
@@ -17,6 +17,7 @@ package org.candlepin.async.tasks;
 import org.candlepin.async.ArgumentConversionException;
 import org.candlepin.async.AsyncJob;
 import org.candlepin.async.JobArguments;
+import org.candlepin.async.JobCoalescers;
 import org.candlepin.async.JobConfig;
 import org.candlepin.async.JobConfigValidationException;
 import org.candlepin.async.JobExecutionContext;
@@ -76,7 +77,8 @@ public class RegenEnvEntitlementCertsJob implements AsyncJob {
 
         private RegenEnvEntitlementCertsJobConfig() {
             this.setJobKey(JOB_KEY)
-                .setJobName(JOB_NAME);
+                .setJobName(JOB_NAME)
+                .setCoalescer(JobCoalescers.unionByArguments(CONTENT_KEY, ENV_ID_KEY, LAZY_REGEN_KEY));
         }
 
         /**
@@ -23,6 +23,7 @@ import org.candlepin.async.JobConstraints;
 import org.candlepin.async.JobExecutionContext;
 import org.candlepin.async.JobExecutionException;
 import org.candlepin.controller.EntitlementCertificateGenerator;
+import org.candlepin.controller.EntitlementCertificateGenerator.RegenerationProgressListener;
 import org.candlepin.model.Owner;
 import org.candlepin.model.OwnerCurator;
 
@@ -87,8 +88,19 @@ public class RegenProductEntitlementCertsJob implements AsyncJob {
             log.info("Regenerating entitlement certificates for {} owners with product: {}",
                 owners.size(), productId);
 
-            for (Owner owner : owners) {
-                this.ecGenerator.regenerateCertificatesOf(owner, productId, lazyRegen);
+            if (lazyRegen) {
+                for (Owner owner : owners) {
+                    this.ecGenerator.regenerateCertificatesOf(owner, productId, true);
+                }
+            }
+            else {
+                // Regenerate in chunks, each committed separately, reporting progress as we go
+                RegenerationProgressListener listener = (processed, total) -> context.setJobProgress(
+                    "Regenerated %d of %d entitlement certificates using product: %s",
+                    processed, total, productId);
+
+                this.ecGenerator.regenerateCertificatesInChunks(owners, Collections.singleton(productId),
+                    listener);
             }
         }
         else {
@@ -18,21 +18,47 @@ import org.candlepin.async.impl.ActiveMQSessionFactory;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
 import org.apache.activemq.artemis.api.core.ActiveMQException;
 import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.api.core.client.ClientMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * A MessageReceiver implementation that on failure to handle an event, will put the message
  * back in the associated queue and will retry the send on a configured basis. This is the
  * default ActiveMQ message handler implementation.
+ * <p>
+ * Event envelopes are committed or rolled back as a whole. Should the listener fail part way
+ * through an envelope, the receiver remembers how many of its events were processed, and skips
+ * those events when the envelope is redelivered to it. This progress is only kept in memory, by
+ * the receiver which failed, so an envelope redelivered after a restart or to another node has
+ * all of its events passed to the listener again: envelope delivery is at-least-once, and
+ * listeners must tolerate receiving an event more than once.
  */
 public class DefaultEventMessageReceiver extends EventMessageReceiver {
 
     private static Logger log = LoggerFactory.getLogger(DefaultEventMessageReceiver.class);
 
+    /** The number of partially processed envelopes for which progress is remembered */
+    private static final int MAX_ENVELOPE_PROGRESS = 1000;
+
+    /**
+     * The number of events already passed to the listener from each envelope which failed part way
+     * through, by message ID. Envelopes which are never redelivered are eventually evicted.
+     */
+    private final Map<Long, Integer> envelopeProgress = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest) {
+            return this.size() > MAX_ENVELOPE_PROGRESS;
+        }
+    };
+
     public DefaultEventMessageReceiver(EventListener listener, ActiveMQSessionFactory sessionFactory,
         ObjectMapper mapper) {
         super(listener, sessionFactory, mapper);
@@ -48,6 +74,17 @@ public class DefaultEventMessageReceiver extends EventMessageReceiver {
             msg.acknowledge();
             log.debug("ActiveMQ message {} acknowledged for listener: {}", msg.getMessageID(), listener);
 
+            // Envelopes carry several events, each of which is passed to the listener in turn. The
+            // envelope is committed or rolled back as a whole.
+            if (msg.containsProperty(EventEnvelope.ENVELOPE_KEY)) {
+                this.processEnvelope(msg);
+                session.commit();
+
+                // Only forget the envelope's progress once it is gone from the queue
+                this.envelopeProgress.remove(msg.getMessageID());
+                return;
+            }
+
             // Process the message via our EventListener framework.
             if (msg.getType() == ClientMessage.TEXT_TYPE) {
                 SimpleString sstr = msg.getBodyBuffer().readNullableSimpleString();
@@ -90,6 +127,30 @@ public class DefaultEventMessageReceiver extends EventMessageReceiver {
         }
     }
 
+    /**
+     * Passes the events of the given envelope to the listener, resuming after any events which
+     * were processed by an earlier, failed delivery of the envelope.
+     */
+    private void processEnvelope(ClientMessage msg) throws IOException {
+        ActiveMQBuffer buffer = msg.getBodyBuffer();
+        byte[] envelope = new byte[buffer.readableBytes()];
+        buffer.readBytes(envelope);
+
+        long messageId = msg.getMessageID();
+        int processed = this.envelopeProgress.getOrDefault(messageId, 0);
+        if (processed > 0) {
+            log.debug("Resuming envelope {} after {} processed events", messageId, processed);
+        }
+
+        int count = EventEnvelope.read(mapper, envelope, processed, event -> {
+            listener.onEvent(event);
+            this.envelopeProgress.merge(messageId, 1, Integer::sum);
+        });
+
+        log.debug("Message listener {} processed envelope {} of {} events: SUCCESS", listener,
+            messageId, count);
+    }
+
     protected String getQueueAddress() {
         return MessageAddress.DEFAULT_EVENT_MESSAGE_ADDRESS;
     }
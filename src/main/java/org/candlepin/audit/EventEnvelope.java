@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.audit;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+
+
+/**
+ * An event envelope carries several events in a single message. The body of an envelope is a
+ * gzip-compressed JSON array of entries, each holding the type and target of an event alongside
+ * the event itself, so consumers can filter entries without binding every event:
+ *
+ * <pre>
+ *  [{"type": "CREATED", "target": "CONSUMER", "event": {...}}, ...]
+ * </pre>
+ *
+ * Envelope messages are identified by the {@link #ENVELOPE_KEY} property, which holds the number
+ * of events in the envelope.
+ */
+public final class EventEnvelope {
+
+    /** Message property identifying an envelope; its value is the number of events enveloped */
+    public static final String ENVELOPE_KEY = "EVENT_ENVELOPE";
+
+    public static final String TYPE_FIELD = "type";
+    public static final String TARGET_FIELD = "target";
+    public static final String EVENT_FIELD = "event";
+
+    private EventEnvelope() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Reads the events from the given envelope body, passing each to the given listener in the
+     * order in which they were enveloped.
+     *
+     * @param mapper
+     *  the object mapper to use to read the events
+     *
+     * @param body
+     *  the compressed body of the envelope
+     *
+     * @param listener
+     *  the listener to receive the events
+     *
+     * @throws IOException
+     *  if the envelope cannot be decompressed or is malformed
+     *
+     * @return
+     *  the number of events read from the envelope
+     */
+    public static int read(ObjectMapper mapper, byte[] body, EventListener listener) throws IOException {
+        return read(mapper, body, 0, listener);
+    }
+
+    /**
+     * Reads the events from the given envelope body, passing each but the first few to the given
+     * listener in the order in which they were enveloped. This allows an envelope which previously
+     * failed part way through to be resumed after the events which were already processed.
+     *
+     * @param mapper
+     *  the object mapper to use to read the events
+     *
+     * @param body
+     *  the compressed body of the envelope
+     *
+     * @param skip
+     *  the number of events at the start of the envelope to skip, rather than pass to the listener
+     *
+     * @param listener
+     *  the listener to receive the events
+     *
+     * @throws IOException
+     *  if the envelope cannot be decompressed or is malformed
+     *
+     * @return
+     *  the number of events in the envelope, including any which were skipped
+     */
+    public static int read(ObjectMapper mapper, byte[] body, int skip, EventListener listener)
+        throws IOException {
+
+        Objects.requireNonNull(mapper);
+        Objects.requireNonNull(body);
+        Objects.requireNonNull(listener);
+
+        int count = 0;
+
+        try (JsonParser parser = mapper.getFactory()
+            .createParser(new GZIPInputStream(new ByteArrayInputStream(body)))) {
+
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Malformed event envelope: expected an array of entries");
+            }
+
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                boolean skipped = count < skip;
+                boolean found = false;
+                Event event = null;
+
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    parser.nextToken();
+
+                    if (EVENT_FIELD.equals(field)) {
+                        found = true;
+
+                        if (!skipped) {
+                            event = mapper.readValue(parser, Event.class);
+                            continue;
+                        }
+                    }
+
+                    parser.skipChildren();
+                }
+
+                if (!found || (!skipped && event == null)) {
+                    throw new IOException("Malformed event envelope: entry " + count + " has no event");
+                }
+
+                if (!skipped) {
+                    listener.onEvent(event);
+                }
+
+                ++count;
+            }
+
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new IOException("Malformed event envelope: unexpected token " +
+                    parser.currentToken());
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Builds envelopes one event at a time. Each event is serialized by a single, reused generator
+     * into an entry buffer, and only copied into the compressed envelope once it has been written
+     * completely, so an event which fails to serialize does not corrupt the envelope.
+     * <p>
+     * Writers are not thread-safe.
+     */
+    public static class Writer {
+        private final ObjectMapper mapper;
+        private final ByteArrayOutputStream entryBuffer;
+        private JsonGenerator generator;
+
+        private ByteArrayOutputStream envelope;
+        private OutputStream compressor;
+        private int count;
+
+        public Writer(ObjectMapper mapper) {
+            this.mapper = Objects.requireNonNull(mapper);
+            this.entryBuffer = new ByteArrayOutputStream();
+        }
+
+        private JsonGenerator getGenerator() throws IOException {
+            if (this.generator == null) {
+                this.generator = this.mapper.getFactory()
+                    .createGenerator(this.entryBuffer)
+                    .setRootValueSeparator(null);
+            }
+
+            return this.generator;
+        }
+
+        /**
+         * Adds an event to the envelope being built.
+         *
+         * @param event
+         *  the event to add
+         *
+         * @throws IOException
+         *  if the event cannot be serialized; the envelope is left as it was
+         */
+        public void add(Event event) throws IOException {
+            Objects.requireNonNull(event);
+
+            try {
+                JsonGenerator gen = this.getGenerator();
+
+                gen.writeStartObject();
+
+                if (event.getType() != null) {
+                    gen.writeStringField(TYPE_FIELD, event.getType().name());
+                }
+
+                if (event.getTarget() != null) {
+                    gen.writeStringField(TARGET_FIELD, event.getTarget().name());
+                }
+
+                gen.writeFieldName(EVENT_FIELD);
+                gen.writeObject(event);
+                gen.writeEndObject();
+                gen.flush();
+            }
+            catch (IOException | RuntimeException e) {
+                // The generator's state is unknown after a failed write; start over with a new one
+                this.generator = null;
+                this.entryBuffer.reset();
+
+                throw e;
+            }
+
+            if (this.compressor == null) {
+                this.envelope = new ByteArrayOutputStream();
+                this.compressor = new GZIPOutputStream(this.envelope);
+                this.compressor.write('[');
+            }
+            else {
+                this.compressor.write(',');
+            }
+
+            this.entryBuffer.writeTo(this.compressor);
+            this.entryBuffer.reset();
+            ++this.count;
+        }
+
+        /**
+         * Fetches the number of events in the envelope being built.
+         *
+         * @return
+         *  the number of events in the envelope
+         */
+        public int size() {
+            return this.count;
+        }
+
+        public boolean isEmpty() {
+            return this.count == 0;
+        }
+
+        /**
+         * Completes the envelope being built, returning its compressed body. The writer is then
+         * ready to build a new envelope.
+         *
+         * @throws IllegalStateException
+         *  if the envelope is empty
+         *
+         * @throws IOException
+         *  if the envelope cannot be compressed
+         *
+         * @return
+         *  the compressed body of the envelope
+         */
+        public byte[] finish() throws IOException {
+            if (this.isEmpty()) {
+                throw new IllegalStateException("envelope is empty");
+            }
+
+            try {
+                this.compressor.write(']');
+                this.compressor.close();
+
+                return this.envelope.toByteArray();
+            }
+            finally {
+                this.discard();
+            }
+        }
+
+        /**
+         * Discards the envelope being built, along with any events it contains.
+         */
+        public void discard() {
+            this.envelope = null;
+            this.compressor = null;
+            this.count = 0;
+            this.entryBuffer.reset();
+        }
+    }
+}
@@ -15,6 +15,7 @@
 package org.candlepin.audit;
 
 import org.candlepin.async.impl.ActiveMQSessionFactory;
+import org.candlepin.config.ConfigProperties;
 import org.candlepin.config.Configuration;
 import org.candlepin.controller.mode.CandlepinModeManager;
 import org.candlepin.controller.mode.CandlepinModeManager.Mode;
@@ -39,6 +40,7 @@ import org.apache.activemq.artemis.api.core.client.ClientSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -62,6 +64,7 @@ public class EventSinkImpl implements EventSink {
     private EventFilter eventFilter;
     private CandlepinModeManager modeManager;
     private Configuration config;
+    private int envelopeSize;
 
     private ActiveMQSessionFactory sessionFactory;
     private EventMessageSender messageSender;
@@ -77,6 +80,7 @@ public class EventSinkImpl implements EventSink {
         this.modeManager = modeManager;
         this.config = config;
         this.sessionFactory = sessionFactory;
+        this.envelopeSize = Math.max(0, config.getInt(ConfigProperties.AUDIT_EVENT_ENVELOPE_SIZE));
     }
 
     // FIXME This method really does not belong here. It should probably be moved
@@ -112,7 +116,9 @@ public class EventSinkImpl implements EventSink {
      * Events are filtered, meaning that some of them might not even get into ActiveMQ.
      * Details about the filtering are documented in EventFilter class
      *
-     * ActiveMQ transaction actually manages the queue of events to be sent.
+     * ActiveMQ transaction actually manages the queue of events to be sent. When event envelopes
+     * are enabled, events are instead collected into compressed envelopes, each of which is sent as a
+     * single message once it is full or the events are sent.
      */
     @Override
     public void queueEvent(Event event) {
@@ -134,7 +140,13 @@ public class EventSinkImpl implements EventSink {
                 messageSender = new EventMessageSender(this.sessionFactory);
             }
 
-            messageSender.queueMessage(mapper.writeValueAsString(event), event.getType(), event.getTarget());
+            if (this.envelopeSize > 0) {
+                messageSender.queueEnvelopedEvent(event);
+            }
+            else {
+                messageSender.queueMessage(mapper.writeValueAsString(event), event.getType(),
+                    event.getTarget());
+            }
         }
         catch (Exception e) {
             log.error("Error while trying to send event", e);
@@ -242,6 +254,7 @@ public class EventSinkImpl implements EventSink {
         private ActiveMQSessionFactory sessionFactory;
         private ClientSession session;
         private ClientProducer producer;
+        private EventEnvelope.Writer envelope;
 
         public EventMessageSender(ActiveMQSessionFactory sessionFactory) {
             try {
@@ -261,8 +274,7 @@ public class EventSinkImpl implements EventSink {
             log.debug("Created new message sender.");
         }
 
-        public void queueMessage(String eventString, Event.Type type, Event.Target target)
-            throws ActiveMQException {
+        private void reopenSession() {
             if (session.isClosed()) {
                 try {
                     session = sessionFactory.getEgressSession(true);
@@ -273,6 +285,11 @@ public class EventSinkImpl implements EventSink {
                     throw new RuntimeException(e);
                 }
             }
+        }
+
+        public void queueMessage(String eventString, Event.Type type, Event.Target target)
+            throws ActiveMQException {
+            this.reopenSession();
 
             ClientMessage message = session.createMessage(ClientMessage.TEXT_TYPE, true);
             message.getBodyBuffer().writeNullableSimpleString(SimpleString.toSimpleString(eventString));
@@ -290,7 +307,47 @@ public class EventSinkImpl implements EventSink {
             producer.send(message);
         }
 
+        /**
+         * Adds an event to the current envelope, sending the envelope once it is full.
+         */
+        public void queueEnvelopedEvent(Event event) throws IOException, ActiveMQException {
+            if (this.envelope == null) {
+                this.envelope = new EventEnvelope.Writer(mapper);
+            }
+
+            this.envelope.add(event);
+
+            if (this.envelope.size() >= envelopeSize) {
+                this.sendEnvelope();
+            }
+        }
+
+        private void sendEnvelope() throws IOException, ActiveMQException {
+            this.reopenSession();
+
+            int count = this.envelope.size();
+            byte[] body = this.envelope.finish();
+
+            ClientMessage message = session.createMessage(ClientMessage.BYTES_TYPE, true);
+            message.getBodyBuffer().writeBytes(body);
+            message.putIntProperty(EventEnvelope.ENVELOPE_KEY, count);
+
+            log.debug("Queuing envelope of {} events ({} bytes)", count, body.length);
+
+            // NOTE: not actually sent until we commit the session.
+            producer.send(message);
+        }
+
         public void sendMessages() {
+            if (this.envelope != null && !this.envelope.isEmpty()) {
+                try {
+                    this.sendEnvelope();
+                }
+                catch (Exception e) {
+                    log.error("Error sending event envelope", e);
+                }
+            }
+
             log.debug("Committing ActiveMQ transaction.");
             if (!session.isClosed()) {
                 try (ClientSession toClose = session) {
@@ -305,6 +362,10 @@ public class EventSinkImpl implements EventSink {
         }
 
         public void cancelMessages() {
+            if (this.envelope != null) {
+                this.envelope.discard();
+            }
+
             log.warn("Rolling back ActiveMQ transaction.");
             if (!session.isClosed()) {
                 try (ClientSession toClose = session) {
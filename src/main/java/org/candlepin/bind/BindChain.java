@@ -78,6 +78,14 @@ public class BindChain {
     }
 
     private void lock(BindContext context) {
+        if (context.isReservationEnabled()) {
+            log.debug("Requesting pool quantity reservations");
+            if (context.reservePools()) {
+                log.debug("Successfully reserved pool quantities");
+                return;
+            }
+        }
+
         log.debug("Requesting locks");
         context.lockPools();
         log.debug("Successfully achieved locks");
@@ -106,7 +114,18 @@ public class BindChain {
     public Collection<Entitlement> run() throws EntitlementRefusedException {
         if (preProcess(context)) {
             lock(context);
-            if (execute(context)) {
+
+            boolean executed = false;
+            try {
+                executed = execute(context);
+            }
+            finally {
+                if (!executed) {
+                    context.releaseReservations();
+                }
+            }
+
+            if (executed) {
                 return context.getEntitlementMap().values();
             }
         }
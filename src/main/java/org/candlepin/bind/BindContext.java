@@ -27,14 +27,26 @@ import org.candlepin.model.PoolQuantity;
 import org.candlepin.policy.EntitlementRefusedException;
 import org.candlepin.util.Util;
 
+import org.hibernate.LockMode;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.resource.transaction.spi.TransactionStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.xnap.commons.i18n.I18n;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import javax.inject.Inject;
+import javax.persistence.PersistenceException;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
 
 
 
@@ -48,6 +60,8 @@ import javax.inject.Inject;
  * one call per entity type.
  */
 public class BindContext {
+    private static final Logger log = LoggerFactory.getLogger(BindContext.class);
+
     private Consumer consumer;
     private Owner owner;
     private Consumer lockedConsumer;
@@ -62,6 +76,9 @@ public class BindContext {
     private ConsumerTypeCurator consumerTypeCurator;
     private OwnerCurator ownerCurator;
     private I18n i18n;
+    private boolean reservationEnabled;
+    private List<PoolQuantity> reservations;
+    private boolean manifestReservation;
 
     @Inject
     public BindContext(PoolCurator poolCurator,
@@ -70,7 +87,8 @@ public class BindContext {
         OwnerCurator ownerCurator,
         I18n i18n,
         Consumer consumer,
-        Map<String, Integer> quantities) {
+        Map<String, Integer> quantities,
+        boolean reservationEnabled) {
 
         this.poolCurator = poolCurator;
         this.consumerCurator = consumerCurator;
@@ -79,6 +97,7 @@ public class BindContext {
         this.i18n = i18n;
         this.consumer = consumer;
         this.quantities = quantities;
+        this.reservationEnabled = reservationEnabled;
     }
 
     public boolean isQuantityRequested() {
@@ -133,6 +152,167 @@ public class BindContext {
         }
     }
 
+    /**
+     * Checks if this bind should reserve the quantities of its pools rather than lock them.
+     *
+     * @return
+     *  true if quantity reservation is enabled; false otherwise
+     */
+    public boolean isReservationEnabled() {
+        return this.reservationEnabled;
+    }
+
+    /**
+     * Checks if the requested quantities are currently reserved from the pools, in which case the
+     * pools' consumed and exported counts already account for this bind, and the pools are not
+     * locked.
+     *
+     * @return
+     *  true if the requested quantities are reserved; false otherwise
+     */
+    public boolean isQuantityReserved() {
+        return this.reservations != null;
+    }
+
+    /**
+     * Reserves the requested quantities of the pools, each with a short atomic update committed
+     * in a transaction of its own, rather than locking the pools for the remainder of the bind.
+     * Once reserved, the pools are refreshed so their counts include the reservation.
+     * <p></p>
+     * If any of the pools is already locked by the current transaction, does not have enough
+     * quantity remaining, or cannot be updated promptly, including when no database connection is
+     * available for the reservation, the reservations already made are released and this method
+     * returns false, leaving the caller to lock the pools instead.
+     * <p></p>
+     * The reservations are released if the current transaction does not commit; callers must
+     * release them with {@link #releaseReservations()} if the bind fails before then. Only pools
+     * the current transaction has locked through the session are detected; a pool it has updated
+     * through a bulk update or a flushed change makes the reservation wait until it times out
+     * before falling back to locks.
+     *
+     * @return
+     *  true if the requested quantities were reserved; false otherwise
+     */
+    public boolean reservePools() {
+        Map<String, PoolQuantity> requested = this.getPoolQuantities();
+        if (this.isPoolLockHeld(requested.values())) {
+            return false;
+        }
+
+        boolean manifest = this.getConsumerType().isManifest();
+        List<PoolQuantity> reserved = new ArrayList<>();
+
+        try {
+            // Reserve in a deterministic order, so concurrent binds to the same pools contend for
+            // them in the same order
+            for (PoolQuantity poolQuantity : new TreeMap<>(requested).values()) {
+                if (poolQuantity.getQuantity() <= 0) {
+                    continue;
+                }
+
+                if (!poolCurator.reservePoolQuantity(poolQuantity.getPool().getId(),
+                    poolQuantity.getQuantity(), manifest)) {
+
+                    log.debug("Unable to reserve {} of pool {}", poolQuantity.getQuantity(),
+                        poolQuantity.getPool().getId());
+
+                    this.release(reserved, manifest);
+                    return false;
+                }
+
+                reserved.add(poolQuantity);
+            }
+        }
+        catch (PersistenceException e) {
+            log.warn("Unable to reserve pool quantities; falling back to pool locks", e);
+
+            this.release(reserved, manifest);
+            return false;
+        }
+
+        this.reservations = reserved;
+        this.manifestReservation = manifest;
+        this.registerReservationSynchronization();
+
+        List<Pool> pools = new ArrayList<>();
+        for (PoolQuantity poolQuantity : requested.values()) {
+            pools.add(poolQuantity.getPool());
+        }
+
+        this.poolCurator.refresh(pools);
+        return true;
+    }
+
+    /**
+     * Releases the quantities reserved by {@link #reservePools()}. If no quantities are reserved,
+     * or they have already been released, this method does nothing.
+     */
+    public void releaseReservations() {
+        if (this.reservations != null) {
+            List<PoolQuantity> reserved = this.reservations;
+            this.reservations = null;
+
+            this.release(reserved, this.manifestReservation);
+        }
+    }
+
+    private void release(List<PoolQuantity> reserved, boolean manifest) {
+        for (PoolQuantity poolQuantity : reserved) {
+            String poolId = poolQuantity.getPool().getId();
+
+            try {
+                poolCurator.releasePoolQuantity(poolId, poolQuantity.getQuantity(), manifest);
+            }
+            catch (PersistenceException e) {
+                // The bind itself can still proceed or fail on its own terms; the leaked quantity
+                // is left for the pool quantity repair job
+                log.error("Unable to release {} reserved from pool {}", poolQuantity.getQuantity(),
+                    poolId, e);
+            }
+        }
+    }
+
+    /**
+     * Checks if the current transaction holds a lock on any of the pools, in which case a
+     * reservation made in another transaction would wait on this one.
+     */
+    private boolean isPoolLockHeld(Collection<PoolQuantity> poolQuantities) {
+        Session session = this.poolCurator.currentSession();
+
+        for (PoolQuantity poolQuantity : poolQuantities) {
+            Pool pool = poolQuantity.getPool();
+
+            if (session.contains(pool) && session.getCurrentLockMode(pool).greaterThan(LockMode.READ)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void registerReservationSynchronization() {
+        Transaction transaction = this.poolCurator.currentSession().getTransaction();
+
+        if (transaction != null &&
+            transaction.getStatus().isOneOf(TransactionStatus.ACTIVE, TransactionStatus.MARKED_ROLLBACK)) {
+
+            transaction.registerSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                    // Intentionally left empty
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != Status.STATUS_COMMITTED) {
+                        log.debug("Transaction did not commit; releasing reserved pool quantities");
+                        releaseReservations();
+                    }
+                }
+            });
+        }
+    }
+
     public Consumer getLockedConsumer() {
         if (lockedConsumer == null) {
             lockedConsumer = consumerCurator.lock(consumer);
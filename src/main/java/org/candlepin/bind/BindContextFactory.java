@@ -14,6 +14,8 @@
  */
 package org.candlepin.bind;
 
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
 import org.candlepin.model.Consumer;
 import org.candlepin.model.ConsumerCurator;
 import org.candlepin.model.ConsumerTypeCurator;
@@ -36,15 +38,18 @@ public class BindContextFactory {
     private final ConsumerTypeCurator consumerTypeCurator;
     private final OwnerCurator ownerCurator;
     private final I18n i18n;
+    private final Configuration config;
 
     @Inject
     public BindContextFactory(PoolCurator poolCurator, ConsumerCurator consumerCurator,
-        ConsumerTypeCurator consumerTypeCurator, OwnerCurator ownerCurator, I18n i18n) {
+        ConsumerTypeCurator consumerTypeCurator, OwnerCurator ownerCurator, I18n i18n,
+        Configuration config) {
         this.poolCurator = Objects.requireNonNull(poolCurator);
         this.consumerCurator = Objects.requireNonNull(consumerCurator);
         this.consumerTypeCurator = Objects.requireNonNull(consumerTypeCurator);
         this.ownerCurator = Objects.requireNonNull(ownerCurator);
         this.i18n = Objects.requireNonNull(i18n);
+        this.config = Objects.requireNonNull(config);
     }
 
     public BindContext create(Consumer consumer, Map<String, Integer> quantities) {
@@ -55,7 +60,8 @@ public class BindContextFactory {
             ownerCurator,
             i18n,
             consumer,
-            quantities);
+            quantities,
+            config.getBoolean(ConfigProperties.BIND_QUANTITY_RESERVATION));
     }
 
 }
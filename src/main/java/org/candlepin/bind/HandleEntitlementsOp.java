@@ -82,19 +82,26 @@ public class HandleEntitlementsOp implements BindOperation {
             ent.setConsumer(consumer);
             ent.setOwner(pool.getOwner());
 
-            pool.setConsumed(pool.getConsumed() + quantity);
+            // Reserved quantities have already been counted against the pools, which are not locked
+            // and must not be written by this transaction
+            if (!context.isQuantityReserved()) {
+                pool.setConsumed(pool.getConsumed() + quantity);
 
-            if (ctype.isManifest()) {
-                pool.setExported(pool.getExported() + quantity);
+                if (ctype.isManifest()) {
+                    pool.setExported(pool.getExported() + quantity);
+                }
+
+                poolsToSave.add(pool);
             }
 
             consumer.addEntitlement(ent);
             consumer.setEntitlementCount(consumer.getEntitlementCount() + quantity);
-            poolsToSave.add(pool);
         }
 
         entitlementCurator.saveAll(entitlementMap.values(), false, false);
-        poolCurator.updateAll(poolsToSave, false, false);
+        if (!poolsToSave.isEmpty()) {
+            poolCurator.updateAll(poolsToSave, false, false);
+        }
 
         return true;
     }
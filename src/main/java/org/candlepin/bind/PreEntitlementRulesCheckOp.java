@@ -77,7 +77,8 @@ public class PreEntitlementRulesCheckOp implements BindOperation {
 
     /**
      * The pool's quantity might have changed since we last fetched it,
-     * so ensure that the pool still has enough quantity left.
+     * so ensure that the pool still has enough quantity left. If the quantity
+     * has been reserved, the pool's consumed count already includes it.
      * @param context
      */
     @Override
@@ -85,8 +86,8 @@ public class PreEntitlementRulesCheckOp implements BindOperation {
         if (context.isQuantityRequested()) {
             for (PoolQuantity poolQuantity : context.getPoolQuantities().values()) {
                 Pool pool = poolQuantity.getPool();
-                enforcer.finishValidation(results.get(pool.getId()),
-                    pool, context.getPoolQuantities().get(pool.getId()).getQuantity());
+                int quantity = context.isQuantityReserved() ? 0 : poolQuantity.getQuantity();
+                enforcer.finishValidation(results.get(pool.getId()), pool, quantity);
             }
 
             EntitlementRefusedException exception = checkResults();
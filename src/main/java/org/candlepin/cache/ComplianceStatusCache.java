@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.cache;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.config.ConfigurationException;
+import org.candlepin.policy.js.compliance.ComplianceStatus;
+import org.candlepin.util.JmxUtil;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+
+
+/**
+ * Caches the current compliance status of consumers. Each status is stored with a hash of the
+ * inputs it was calculated from, and the date until which it remains valid; a lookup only hits if
+ * the hash of the consumer's current inputs matches and the status has not yet expired, so changes
+ * to a consumer's entitlements, installed products or compliance facts naturally result in a miss.
+ * Entries may also be invalidated explicitly, and are aged out by count and time since last write.
+ * <p>
+ * Hits and misses are counted per call site, so the effectiveness of the cache can be measured for
+ * each path which calculates compliance.
+ */
+@Singleton
+public class ComplianceStatusCache implements ComplianceStatusCacheMXBean {
+
+    /** The call site under which lookups without a more specific call site are counted */
+    public static final String DEFAULT_CALL_SITE = "default";
+
+    private final boolean enabled;
+    private final Cache<String, CachedStatus> cache;
+    private final Map<String, LongAdder> hits;
+    private final Map<String, LongAdder> misses;
+    private final LongAdder invalidations;
+
+    /**
+     * A cached status, along with the hash of the inputs from which it was calculated and the date
+     * at which it expires, if any
+     */
+    private record CachedStatus(String inputHash, ComplianceStatus status, Date validUntil) {
+    }
+
+    @Inject
+    public ComplianceStatusCache(Configuration config) throws ConfigurationException {
+        Objects.requireNonNull(config);
+
+        this.enabled = config.getBoolean(ConfigProperties.CACHE_COMPLIANCE_STATUS_ENABLED);
+
+        long expirationDuration = config.getLong(ConfigProperties.CACHE_COMPLIANCE_STATUS_TTL);
+        if (expirationDuration <= 0) {
+            String msg = ConfigProperties.CACHE_COMPLIANCE_STATUS_TTL + " value must be larger than 0";
+            throw new ConfigurationException(msg);
+        }
+
+        long maxEntries = config.getLong(ConfigProperties.CACHE_COMPLIANCE_STATUS_MAX_ENTRIES);
+        if (maxEntries < 0) {
+            String msg = ConfigProperties.CACHE_COMPLIANCE_STATUS_MAX_ENTRIES +
+                " must be larger than or equal to 0";
+            throw new ConfigurationException(msg);
+        }
+
+        this.cache = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMillis(expirationDuration))
+            .maximumSize(maxEntries)
+            .recordStats()
+            .build();
+
+        this.hits = new ConcurrentHashMap<>();
+        this.misses = new ConcurrentHashMap<>();
+        this.invalidations = new LongAdder();
+
+        JmxUtil.register(this, ComplianceStatusCache.class.getSimpleName(), null);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Retrieves the cached status of the given consumer, if one was calculated from inputs with the
+     * given hash and is still valid on the given date. The returned status is shared with the cache
+     * and any other callers, and must not be modified.
+     *
+     * @param callSite
+     *  the call site under which to count the lookup; if null, the default call site is used
+     *
+     * @param consumerUuid
+     *  the UUID of the consumer for which to fetch the status
+     *
+     * @param inputHash
+     *  the hash of the consumer's current compliance inputs
+     *
+     * @param date
+     *  the date on which the status is to be valid
+     *
+     * @throws IllegalArgumentException
+     *  if consumerUuid, inputHash or date are null
+     *
+     * @return
+     *  the cached status, or null if no valid status with a matching hash is cached
+     */
+    public ComplianceStatus get(String callSite, String consumerUuid, String inputHash, Date date) {
+        if (consumerUuid == null) {
+            throw new IllegalArgumentException("consumerUuid is null");
+        }
+
+        if (inputHash == null) {
+            throw new IllegalArgumentException("inputHash is null");
+        }
+
+        if (date == null) {
+            throw new IllegalArgumentException("date is null");
+        }
+
+        String site = callSite != null ? callSite : DEFAULT_CALL_SITE;
+
+        CachedStatus cached = this.cache.getIfPresent(consumerUuid);
+        if (cached != null && inputHash.equals(cached.inputHash()) &&
+            (cached.validUntil() == null || date.before(cached.validUntil()))) {
+
+            this.hits.computeIfAbsent(site, key -> new LongAdder()).increment();
+            return cached.status();
+        }
+
+        this.misses.computeIfAbsent(site, key -> new LongAdder()).increment();
+        return null;
+    }
+
+    /**
+     * Caches the status of the given consumer. The status must not be modified once cached.
+     *
+     * @param consumerUuid
+     *  the UUID of the consumer to which the status belongs
+     *
+     * @param inputHash
+     *  the hash of the compliance inputs from which the status was calculated
+     *
+     * @param status
+     *  the status to cache
+     *
+     * @param validUntil
+     *  the date at which the status expires, or null if it does not expire
+     *
+     * @throws IllegalArgumentException
+     *  if consumerUuid, inputHash or status are null
+     */
+    public void put(String consumerUuid, String inputHash, ComplianceStatus status, Date validUntil) {
+        if (consumerUuid == null) {
+            throw new IllegalArgumentException("consumerUuid is null");
+        }
+
+        if (inputHash == null) {
+            throw new IllegalArgumentException("inputHash is null");
+        }
+
+        if (status == null) {
+            throw new IllegalArgumentException("status is null");
+        }
+
+        this.cache.put(consumerUuid, new CachedStatus(inputHash, status, validUntil));
+    }
+
+    /**
+     * Removes the cached status of the given consumer, if any.
+     *
+     * @param consumerUuid
+     *  the UUID of the consumer for which to remove the status; null values are silently ignored
+     */
+    public void invalidate(String consumerUuid) {
+        if (consumerUuid != null && this.cache.asMap().remove(consumerUuid) != null) {
+            this.invalidations.increment();
+        }
+    }
+
+    @Override
+    public void removeAll() {
+        this.invalidations.add(this.cache.estimatedSize());
+        this.cache.invalidateAll();
+    }
+
+    @Override
+    public long getHitCount() {
+        return sum(this.hits);
+    }
+
+    @Override
+    public long getMissCount() {
+        return sum(this.misses);
+    }
+
+    @Override
+    public double getHitRate() {
+        long hitCount = this.getHitCount();
+        long total = hitCount + this.getMissCount();
+
+        return total > 0 ? (double) hitCount / total : 1.0;
+    }
+
+    @Override
+    public Map<String, Long> getCallSiteHitCounts() {
+        return snapshot(this.hits);
+    }
+
+    @Override
+    public Map<String, Long> getCallSiteMissCounts() {
+        return snapshot(this.misses);
+    }
+
+    @Override
+    public long getInvalidationCount() {
+        return this.invalidations.sum();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return this.cache.stats().evictionCount();
+    }
+
+    @Override
+    public long getEstimatedSize() {
+        return this.cache.estimatedSize();
+    }
+
+    private static long sum(Map<String, LongAdder> counters) {
+        return counters.values().stream()
+            .mapToLong(LongAdder::sum)
+            .sum();
+    }
+
+    private static Map<String, Long> snapshot(Map<String, LongAdder> counters) {
+        Map<String, Long> output = new TreeMap<>();
+        counters.forEach((site, counter) -> output.put(site, counter.sum()));
+
+        return output;
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.cache;
+
+import java.util.Map;
+
+/**
+ * Management interface exposing the statistics of the {@link ComplianceStatusCache}.
+ */
+public interface ComplianceStatusCacheMXBean {
+
+    /**
+     * @return
+     *  true if compliance statuses are being cached; false otherwise
+     */
+    boolean isEnabled();
+
+    /**
+     * @return
+     *  the number of status lookups served from the cache
+     */
+    long getHitCount();
+
+    /**
+     * @return
+     *  the number of status lookups which required the compliance rules to be run
+     */
+    long getMissCount();
+
+    /**
+     * @return
+     *  the ratio of hits to total lookups, or 1.0 if no lookups have been performed
+     */
+    double getHitRate();
+
+    /**
+     * @return
+     *  the number of lookups served from the cache for each call site
+     */
+    Map<String, Long> getCallSiteHitCounts();
+
+    /**
+     * @return
+     *  the number of lookups which required the compliance rules to be run for each call site
+     */
+    Map<String, Long> getCallSiteMissCounts();
+
+    /**
+     * @return
+     *  the number of statuses explicitly invalidated
+     */
+    long getInvalidationCount();
+
+    /**
+     * @return
+     *  the number of statuses evicted due to size or expiration
+     */
+    long getEvictionCount();
+
+    /**
+     * @return
+     *  the approximate number of statuses currently cached
+     */
+    long getEstimatedSize();
+
+    /**
+     * Discards all cached statuses.
+     */
+    void removeAll();
+}
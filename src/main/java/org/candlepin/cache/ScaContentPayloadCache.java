@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.cache;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.config.ConfigurationException;
+import org.candlepin.util.JmxUtil;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+
+
+/**
+ * Caches signed simple content access payloads so they may be shared by every consumer in an
+ * organization with the same environments and architecture. Entries are keyed on the organization's
+ * last content update, so any change to the organization's content view naturally results in a
+ * miss; stale entries are aged out by size and time since last access.
+ */
+@Singleton
+public class ScaContentPayloadCache implements ScaContentPayloadCacheMXBean {
+    private final boolean enabled;
+    private final Cache<ScaContentPayloadKey, String> cache;
+
+    @Inject
+    public ScaContentPayloadCache(Configuration config) throws ConfigurationException {
+        Objects.requireNonNull(config);
+
+        this.enabled = config.getBoolean(ConfigProperties.CACHE_SCA_CONTENT_PAYLOAD_ENABLED);
+
+        long expirationDuration = config.getLong(ConfigProperties.CACHE_SCA_CONTENT_PAYLOAD_TTL);
+        if (expirationDuration <= 0) {
+            String msg = ConfigProperties.CACHE_SCA_CONTENT_PAYLOAD_TTL + " value must be larger than 0";
+            throw new ConfigurationException(msg);
+        }
+
+        long maxSize = config.getLong(ConfigProperties.CACHE_SCA_CONTENT_PAYLOAD_MAX_SIZE);
+        if (maxSize < 0) {
+            String msg = ConfigProperties.CACHE_SCA_CONTENT_PAYLOAD_MAX_SIZE +
+                " must be larger than or equal to 0";
+            throw new ConfigurationException(msg);
+        }
+
+        this.cache = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofMillis(expirationDuration))
+            .maximumWeight(maxSize)
+            .weigher((ScaContentPayloadKey key, String payload) -> payload.length())
+            .recordStats()
+            .build();
+
+        JmxUtil.register(this, ScaContentPayloadCache.class.getSimpleName(), null);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Retrieves the payload for the given key, building it with the provided function if it is not
+     * already cached. Concurrent lookups for the same missing key are coalesced, such that the
+     * payload is only built once and every caller receives the same instance. If the function
+     * throws an exception, nothing is cached and the exception is propagated to all waiting callers.
+     *
+     * @param key
+     *  the key identifying the payload to fetch
+     *
+     * @param builder
+     *  the function to use to build the payload on a cache miss
+     *
+     * @throws IllegalArgumentException
+     *  if key or builder are null
+     *
+     * @return
+     *  the cached or newly built payload
+     */
+    public String get(ScaContentPayloadKey key, Function<ScaContentPayloadKey, String> builder) {
+        if (key == null) {
+            throw new IllegalArgumentException("key is null");
+        }
+
+        if (builder == null) {
+            throw new IllegalArgumentException("builder is null");
+        }
+
+        return this.cache.get(key, builder);
+    }
+
+    /**
+     * Retrieves the payload for the given key if it is present in the cache.
+     *
+     * @param key
+     *  the key identifying the payload to fetch
+     *
+     * @throws IllegalArgumentException
+     *  if key is null
+     *
+     * @return
+     *  the cached payload, or null if the key is not cached
+     */
+    public String getIfPresent(ScaContentPayloadKey key) {
+        if (key == null) {
+            throw new IllegalArgumentException("key is null");
+        }
+
+        return this.cache.getIfPresent(key);
+    }
+
+    /**
+     * Removes all cached payloads for the given organization.
+     *
+     * @param ownerId
+     *  the ID of the organization for which to remove payloads
+     *
+     * @throws IllegalArgumentException
+     *  if ownerId is null
+     */
+    public void removeOwner(String ownerId) {
+        if (ownerId == null) {
+            throw new IllegalArgumentException("ownerId is null");
+        }
+
+        this.cache.asMap().keySet().removeIf(key -> ownerId.equals(key.ownerId()));
+    }
+
+    @Override
+    public void removeAll() {
+        this.cache.invalidateAll();
+    }
+
+    @Override
+    public long getHitCount() {
+        return this.cache.stats().hitCount();
+    }
+
+    @Override
+    public long getMissCount() {
+        return this.cache.stats().missCount();
+    }
+
+    @Override
+    public double getHitRate() {
+        return this.cache.stats().hitRate();
+    }
+
+    @Override
+    public long getLoadFailureCount() {
+        return this.cache.stats().loadFailureCount();
+    }
+
+    @Override
+    public long getTotalLoadTime() {
+        return TimeUnit.NANOSECONDS.toMillis(this.cache.stats().totalLoadTime());
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return this.cache.stats().evictionCount();
+    }
+
+    @Override
+    public long getEstimatedSize() {
+        return this.cache.estimatedSize();
+    }
+
+    @Override
+    public long getWeightedSize() {
+        return this.cache.policy()
+            .eviction()
+            .map(eviction -> eviction.weightedSize().orElse(0L))
+            .orElse(0L);
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.cache;
+
+/**
+ * Management interface exposing the statistics of the {@link ScaContentPayloadCache}.
+ */
+public interface ScaContentPayloadCacheMXBean {
+
+    /**
+     * @return
+     *  true if payloads are being shared between consumers; false otherwise
+     */
+    boolean isEnabled();
+
+    /**
+     * @return
+     *  the number of payload lookups served from the cache
+     */
+    long getHitCount();
+
+    /**
+     * @return
+     *  the number of payload lookups which required the payload to be built
+     */
+    long getMissCount();
+
+    /**
+     * @return
+     *  the ratio of hits to total lookups, or 1.0 if no lookups have been performed
+     */
+    double getHitRate();
+
+    /**
+     * @return
+     *  the number of payload builds which failed with an exception
+     */
+    long getLoadFailureCount();
+
+    /**
+     * @return
+     *  the total time, in milliseconds, spent building payloads on cache misses
+     */
+    long getTotalLoadTime();
+
+    /**
+     * @return
+     *  the number of payloads evicted due to size or expiration
+     */
+    long getEvictionCount();
+
+    /**
+     * @return
+     *  the approximate number of payloads currently cached
+     */
+    long getEstimatedSize();
+
+    /**
+     * @return
+     *  the approximate total size, in bytes, of the payloads currently cached
+     */
+    long getWeightedSize();
+
+    /**
+     * Discards all cached payloads.
+     */
+    void removeAll();
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.cache;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The inputs that determine the content of a simple content access payload. Two consumers which
+ * produce equal keys will receive identical content payloads.
+ *
+ * @param ownerId
+ *  the ID of the organization providing the content
+ *
+ * @param contentVersion
+ *  the last content update timestamp of the organization, in milliseconds since the epoch
+ *
+ * @param environmentIds
+ *  the IDs of the consumer's environments, in priority order
+ *
+ * @param arch
+ *  the value of the consumer's architecture fact, or null if the fact is not set
+ *
+ * @param supportedArches
+ *  the value of the consumer's supported architectures fact, or null if the fact is not set
+ */
+public record ScaContentPayloadKey(String ownerId, long contentVersion, List<String> environmentIds,
+    String arch, String supportedArches) {
+
+    public ScaContentPayloadKey {
+        Objects.requireNonNull(ownerId);
+        environmentIds = environmentIds != null ? List.copyOf(environmentIds) : List.of();
+    }
+
+}
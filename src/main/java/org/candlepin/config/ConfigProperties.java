@@ -24,6 +24,7 @@ import org.candlepin.async.tasks.ImportRecordCleanerJob;
 import org.candlepin.async.tasks.InactiveConsumerCleanerJob;
 import org.candlepin.async.tasks.JobCleaner;
 import org.candlepin.async.tasks.ManifestCleanerJob;
+import org.candlepin.async.tasks.PoolQuantityRepairJob;
 import org.candlepin.async.tasks.UnmappedGuestEntitlementCleanerJob;
 import org.candlepin.guice.CandlepinContextListener;
 
@@ -58,6 +59,22 @@ public class ConfigProperties {
     public static final String CA_CERT_UPSTREAM = "candlepin.upstream_ca_cert";
     public static final String CA_KEY_PASSWORD = "candlepin.ca_key_password";
 
+    /**
+     * The number of pre-generated consumer key pairs to keep on hand. Key pairs are generated by a
+     * set of background threads whenever the pool drops to or below the low water mark. Setting the
+     * size to zero disables the pool, in which case key pairs are always generated on demand.
+     */
+    public static final String PKI_KEYPAIR_POOL_SIZE = "candlepin.pki.keypair_pool.size";
+    public static final String PKI_KEYPAIR_POOL_LOW_WATER_MARK = "candlepin.pki.keypair_pool.low_water_mark";
+    public static final String PKI_KEYPAIR_POOL_THREADS = "candlepin.pki.keypair_pool.threads";
+
+    /**
+     * The number of threads used to sign entitlement certificates during bulk regeneration. A value
+     * of zero sizes the pool to the number of available processors; a value of one signs every
+     * certificate on the calling thread.
+     */
+    public static final String PKI_SIGNING_THREADS = "candlepin.pki.signing_threads";
+
     /*
      * XXX The actual property key refers to HornetQ which was ActiveMQ's ancestor. We have to keep the
      * key unchanged for compatibility reasons. These are deprecated, however, and should be replaced by
@@ -118,6 +135,12 @@ public class ConfigProperties {
      */
     public static final String AUDIT_FILTER_DEFAULT_POLICY = "candlepin.audit.filter.policy";
 
+    /**
+     * The maximum number of events to send in a single compressed envelope message. When set to
+     * zero, envelopes are disabled and each event is sent as a message of its own.
+     */
+    public static final String AUDIT_EVENT_ENVELOPE_SIZE = "candlepin.audit.envelope.max_events";
+
     public static final String PRETTY_PRINT = "candlepin.pretty_print";
     public static final String ACTIVATION_DEBUG_PREFIX = "candlepin.subscription.activation.debug_prefix";
 
@@ -182,8 +205,51 @@ public class ConfigProperties {
     public static final String CACHE_ANON_CERT_CONTENT_MAX_ENTRIES =
         "candlepin.cache.anonymous.cert.content.max_entries";
 
+    /**
+     * When enabled, simple content access payloads are built once per organization content version,
+     * environment list and architecture, and shared between all matching consumers. Shared payloads
+     * do not carry the consumer UUID; the consumer is identified by the certificate itself.
+     */
+    public static final String CACHE_SCA_CONTENT_PAYLOAD_ENABLED =
+        "candlepin.cache.sca.content_payload.enabled";
+    public static final String CACHE_SCA_CONTENT_PAYLOAD_TTL = "candlepin.cache.sca.content_payload.ttl";
+    public static final String CACHE_SCA_CONTENT_PAYLOAD_MAX_SIZE =
+        "candlepin.cache.sca.content_payload.max_size";
+
+    /**
+     * When enabled, the current compliance status of each consumer is cached along with a hash of
+     * the inputs it was calculated from, and reused until those inputs change or one of the
+     * consumer's entitlements starts or expires.
+     */
+    public static final String CACHE_COMPLIANCE_STATUS_ENABLED = "candlepin.cache.compliance_status.enabled";
+    public static final String CACHE_COMPLIANCE_STATUS_TTL = "candlepin.cache.compliance_status.ttl";
+    public static final String CACHE_COMPLIANCE_STATUS_MAX_ENTRIES =
+        "candlepin.cache.compliance_status.max_entries";
+
+    /**
+     * When enabled, binds reserve the requested pool quantities with a short atomic update made in
+     * a separate transaction, rather than locking the pools for the remainder of the bind. The
+     * reservation is released if the bind fails or its transaction does not commit, but not if the
+     * server stops in between. The resulting drift in the pool's consumed count is never corrected
+     * automatically: the pool quantity repair job is manual by default, and must be run, or given a
+     * schedule, while no binds are being made.
+     * <p></p>
+     * Each reservation needs a database connection in addition to the bind's own. If the
+     * connection pool is exhausted, the reservation gives up once the pool's checkout timeout
+     * expires and the bind falls back to locking the pools.
+     */
+    public static final String BIND_QUANTITY_RESERVATION = "candlepin.bind.quantity_reservation";
+
     public static final String SYNC_WORK_DIR = "candlepin.sync.work_dir";
 
+    /**
+     * Selects where stored import and export manifests are kept: "database" keeps their content in
+     * the database, while "filesystem" keeps it in the directory set by MANIFEST_FILE_STORE_DIR,
+     * leaving only their metadata in the database.
+     */
+    public static final String MANIFEST_FILE_STORE = "candlepin.sync.manifest_store";
+    public static final String MANIFEST_FILE_STORE_DIR = "candlepin.sync.manifest_store.dir";
+
     /**
      *  Controls which facts will be stored by Candlepin -- facts with keys that do not match this
      *  value will be discarded.
@@ -198,6 +264,16 @@ public class ConfigProperties {
     public static final String ENV_CONTENT_FILTERING = "candlepin.environment_content_filtering";
     public static final String USE_SYSTEM_UUID_FOR_MATCHING = "candlepin.use_system_uuid_for_matching";
 
+    /**
+     * Whether hypervisor check-ins are reconciled in bulk: the known hosts for each batch of reported
+     * hypervisors are fetched up front and the changes written in a single transaction per batch,
+     * rather than looking up and writing each hypervisor in its own transaction. Batches which fail
+     * are retried one hypervisor at a time, so failures are still reported per hypervisor.
+     */
+    public static final String HYPERVISOR_BULK_RECONCILIATION = "candlepin.hypervisor.bulk_reconciliation";
+    public static final String HYPERVISOR_RECONCILIATION_BATCH_SIZE =
+        "candlepin.hypervisor.reconciliation_batch_size";
+
     public static final String CONSUMER_SYSTEM_NAME_PATTERN = "candlepin.consumer_system_name_pattern";
     public static final String CONSUMER_PERSON_NAME_PATTERN = "candlepin.consumer_person_name_pattern";
 
@@ -208,6 +284,26 @@ public class ConfigProperties {
     public static final String PRODUCT_CACHE_MAX = "candlepin.cache.product_cache_max";
 
     public static final String CONSUMER_MIGRATION_BATCH_SIZE = "candlepin.consumer.migration.batch.size";
+
+    /**
+     * How long, in seconds, consumer check-ins may be held in memory before they are written to the
+     * database. Pending check-ins are written in batches, either on this interval or when the number
+     * of pending check-ins reaches the flush threshold. An interval of zero writes each check-in as
+     * part of the request which made it.
+     */
+    public static final String CONSUMER_CHECKIN_FLUSH_INTERVAL = "candlepin.consumer.checkin.flush_interval";
+    public static final String CONSUMER_CHECKIN_FLUSH_THRESHOLD =
+        "candlepin.consumer.checkin.flush_threshold";
+
+    /**
+     * How many candidate pools are loaded and run through the rules at a time when paging through
+     * the pools available to a consumer or activation key. Every pool is still filtered to count the
+     * total, unless the client declines the total with include_count=false; filtering then stops
+     * once the requested page is full, and only a lower bound of the total is reported. A size of
+     * zero or less loads and filters every candidate pool at once.
+     */
+    public static final String POOL_LISTING_FILTER_CHUNK_SIZE = "candlepin.pools.listing.filter_chunk_size";
+
     public static final String INTEGER_FACTS = "candlepin.integer_facts";
     private static final String INTEGER_FACT_LIST = "";
 
@@ -263,6 +359,20 @@ public class ConfigProperties {
     public static final String ASYNC_JOBS_RECEIVE_ADDRESS = "candlepin.async.receive_address";
     public static final String ASYNC_JOBS_RECEIVE_FILTER = "candlepin.async.receive_filter";
 
+    // Job lanes partition the job threads by job key. Each lane named in the lanes list is configured
+    // using the syntax "PREFIX.{lane}.SUFFIX". For instance, to give imports their own two threads:
+    // candlepin.async.lanes=imports
+    // candlepin.async.lanes.imports.jobs=ImportJob
+    // candlepin.async.lanes.imports.threads=2
+    // Jobs not assigned to any lane are processed by the candlepin.async.threads pool.
+    public static final String ASYNC_JOBS_LANES = "candlepin.async.lanes";
+    public static final String ASYNC_JOBS_LANE_PREFIX = "candlepin.async.lanes.";
+    public static final String ASYNC_JOBS_LANE_JOBS = "jobs";
+    public static final String ASYNC_JOBS_LANE_THREADS = "threads";
+    // Whether or not jobs in the lane should be limited to one running job per owner on each node. Jobs
+    // of an owner which already has one running are requeued with a delay, letting other owners' run
+    public static final String ASYNC_JOBS_LANE_OWNER_FAIRNESS = "owner_fairness";
+
     // Whether or not we should allow queuing new jobs on this node while the job manager is
     // suspended/paused
     public static final String ASYNC_JOBS_QUEUE_WHILE_SUSPENDED = "candlepin.async.queue_while_suspended";
@@ -286,6 +396,7 @@ public class ConfigProperties {
         ImportRecordCleanerJob.JOB_KEY,
         JobCleaner.JOB_KEY,
         ManifestCleanerJob.JOB_KEY,
+        PoolQuantityRepairJob.JOB_KEY,
         UnmappedGuestEntitlementCleanerJob.JOB_KEY,
         InactiveConsumerCleanerJob.JOB_KEY
     };
@@ -330,8 +441,44 @@ public class ConfigProperties {
         return builder.toString();
     }
 
+    /**
+     * Fetches a configuration string for the given configuration for the specified job lane.
+     *
+     * @param lane
+     *  the name of the lane for which to build the configuration string
+     *
+     * @return
+     *  the configuration string for the given configuration for the specified lane
+     */
+    public static String laneConfig(String lane, String cfgName) {
+        StringBuilder builder = new StringBuilder(ASYNC_JOBS_LANE_PREFIX)
+            .append(lane)
+            .append('.')
+            .append(cfgName);
+
+        return builder.toString();
+    }
+
     public static final String ENTITLER_BULK_SIZE = "entitler.bulk.size";
 
+    /**
+     * The engine used to calculate consumer compliance: "js" evaluates the compliance functions in
+     * the rules file, while "java" uses the native implementation of the same rules.
+     */
+    public static final String COMPLIANCE_ENGINE = "candlepin.compliance.engine";
+
+    /**
+     * Whether the arguments passed to the rules are exposed to the rules scope as views over the
+     * rules DTOs, rather than serialized into a JSON document which the rules then parse.
+     */
+    public static final String RULES_OBJECT_CONTEXT = "candlepin.rules.object_context";
+
+    /**
+     * Whether the time spent serializing arguments for and executing each rules function is
+     * recorded. Metrics may also be enabled or disabled at runtime through JMX.
+     */
+    public static final String RULES_METRICS_ENABLED = "candlepin.rules.metrics.enabled";
+
     public static final Map<String, String> DEFAULT_PROPERTIES = new HashMap<>() {
         private static final long serialVersionUID = 1L;
 
@@ -345,6 +492,10 @@ public class ConfigProperties {
             this.put(CA_KEY, "/etc/candlepin/certs/candlepin-ca.key");
             this.put(CA_CERT, "/etc/candlepin/certs/candlepin-ca.crt");
             this.put(CA_CERT_UPSTREAM, "/etc/candlepin/certs/upstream");
+            this.put(PKI_KEYPAIR_POOL_SIZE, "64");
+            this.put(PKI_KEYPAIR_POOL_LOW_WATER_MARK, "16");
+            this.put(PKI_KEYPAIR_POOL_THREADS, "2");
+            this.put(PKI_SIGNING_THREADS, "0");
 
             this.put(ACTIVATION_DEBUG_PREFIX, "");
 
@@ -374,6 +525,9 @@ public class ConfigProperties {
             this.put(AUDIT_FILTER_ENABLED, "false");
 
             this.put(ENTITLER_BULK_SIZE, "1000");
+            this.put(COMPLIANCE_ENGINE, "js");
+            this.put(RULES_OBJECT_CONTEXT, "false");
+            this.put(RULES_METRICS_ENABLED, "false");
 
             // These default DO_NOT_FILTER events are those events needed by other Satellite components.
             this.put(AUDIT_FILTER_DO_NOT_FILTER,
@@ -385,10 +539,13 @@ public class ConfigProperties {
 
             this.put(AUDIT_FILTER_DO_FILTER, "");
             this.put(AUDIT_FILTER_DEFAULT_POLICY, "DO_FILTER");
+            this.put(AUDIT_EVENT_ENVELOPE_SIZE, "0");
 
             this.put(PRETTY_PRINT, "false");
 
             this.put(SYNC_WORK_DIR, "/var/cache/candlepin/sync");
+            this.put(MANIFEST_FILE_STORE, "database");
+            this.put(MANIFEST_FILE_STORE_DIR, "/var/lib/candlepin/manifests");
             this.put(CONSUMER_FACTS_MATCHER, ".*");
             this.put(TRUSTED_AUTHENTICATION, "false");
             this.put(SSL_AUTHENTICATION, "true");
@@ -412,6 +569,14 @@ public class ConfigProperties {
             this.put(CACHE_CONFIG_FILE_URI, "ehcache.xml");
             this.put(CACHE_ANON_CERT_CONTENT_TTL, "120000"); // milliseconds
             this.put(CACHE_ANON_CERT_CONTENT_MAX_ENTRIES, "10000");
+            this.put(CACHE_SCA_CONTENT_PAYLOAD_ENABLED, "false");
+            this.put(CACHE_SCA_CONTENT_PAYLOAD_TTL, "3600000"); // milliseconds
+            this.put(CACHE_SCA_CONTENT_PAYLOAD_MAX_SIZE, "104857600"); // bytes
+            this.put(CACHE_COMPLIANCE_STATUS_ENABLED, "false");
+            this.put(CACHE_COMPLIANCE_STATUS_TTL, "3600000"); // milliseconds
+            this.put(CACHE_COMPLIANCE_STATUS_MAX_ENTRIES, "100000");
+
+            this.put(BIND_QUANTITY_RESERVATION, "false");
 
             this.put(SUSPEND_MODE_ENABLED, "true");
 
@@ -426,6 +591,8 @@ public class ConfigProperties {
 
             this.put(ENV_CONTENT_FILTERING, "true");
             this.put(USE_SYSTEM_UUID_FOR_MATCHING, "true");
+            this.put(HYPERVISOR_BULK_RECONCILIATION, "false");
+            this.put(HYPERVISOR_RECONCILIATION_BATCH_SIZE, "1000");
 
             // what constitutes a valid consumer name
             this.put(CONSUMER_SYSTEM_NAME_PATTERN, "[\\#\\?\\'\\`\\!@{}()\\[\\]\\?&\\w-\\.]+");
@@ -471,6 +638,7 @@ public class ConfigProperties {
             this.put(ASYNC_JOBS_DISPATCH_ADDRESS, "job");
             this.put(ASYNC_JOBS_RECEIVE_ADDRESS, "jobs");
             this.put(ASYNC_JOBS_RECEIVE_FILTER, "");
+            this.put(ASYNC_JOBS_LANES, "");
 
             // ActiveEntitlementJob
             this.put(jobConfig(ActiveEntitlementJob.JOB_KEY, ASYNC_JOBS_JOB_SCHEDULE),
@@ -522,6 +690,12 @@ public class ConfigProperties {
             this.put(jobConfig(ManifestCleanerJob.JOB_KEY, ManifestCleanerJob.CFG_MAX_AGE_IN_MINUTES),
                 Integer.toString(ManifestCleanerJob.DEFAULT_MAX_AGE_IN_MINUTES));
 
+            // PoolQuantityRepairJob
+            this.put(jobConfig(PoolQuantityRepairJob.JOB_KEY, ASYNC_JOBS_JOB_SCHEDULE),
+                ConfigProperties.ASYNC_JOBS_MANUAL_SCHEDULE);
+            this.put(jobConfig(PoolQuantityRepairJob.JOB_KEY, PoolQuantityRepairJob.CFG_REPAIR),
+                PoolQuantityRepairJob.DEFAULT_REPAIR);
+
             // UnmappedGuestEntitlementCleanerJob
             this.put(jobConfig(UnmappedGuestEntitlementCleanerJob.JOB_KEY, ASYNC_JOBS_JOB_SCHEDULE),
                 UnmappedGuestEntitlementCleanerJob.DEFAULT_SCHEDULE);
@@ -529,6 +703,9 @@ public class ConfigProperties {
             // Set the triggerable jobs list
             this.put(ASYNC_JOBS_TRIGGERABLE_JOBS, String.join(", ", ASYNC_JOBS_TRIGGERABLE_JOBS_LIST));
             this.put(CONSUMER_MIGRATION_BATCH_SIZE, "200");
+            this.put(CONSUMER_CHECKIN_FLUSH_INTERVAL, "0");
+            this.put(CONSUMER_CHECKIN_FLUSH_THRESHOLD, "1000");
+            this.put(POOL_LISTING_FILTER_CHUNK_SIZE, "250");
 
             // Based on testing with the hypervisor check in process, and going a bit conservative
             this.put(DatabaseConfigFactory.IN_OPERATOR_BLOCK_SIZE, "15000");
@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.controller;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.ConsumerCurator;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.persist.UnitOfWork;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+
+
+/**
+ * Records consumer check-ins. The last check-in time of a consumer is only used to find inactive
+ * consumers and for reporting, so rather than updating the consumer within every request which
+ * checks in, check-ins are collected in memory, keeping only the latest check-in of each consumer,
+ * and written to the database in batches by a background thread.
+ * <p>
+ * Pending check-ins are written on a fixed interval, or sooner if the number of pending check-ins
+ * reaches the flush threshold, and when the recorder is shut down. If the flush interval is zero,
+ * each check-in is written immediately as part of the request which made it.
+ */
+@Singleton
+public class ConsumerCheckInRecorder {
+    private static final Logger log = LoggerFactory.getLogger(ConsumerCheckInRecorder.class);
+
+    /** How long to wait for the final flush when shutting down */
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final ConsumerCurator consumerCurator;
+    private final UnitOfWork unitOfWork;
+    private final long flushInterval;
+    private final int flushThreshold;
+
+    private final Map<String, Date> pending;
+    private final AtomicBoolean flushQueued;
+    private final ScheduledExecutorService executor;
+
+    private volatile boolean shutdown;
+
+    /**
+     * Creates a new check-in recorder using the flush settings from the given configuration, and
+     * schedules the periodic flush if check-ins are to be batched.
+     *
+     * @param config
+     *  the configuration from which to read the flush settings
+     *
+     * @param consumerCurator
+     *  the curator to use to write check-ins
+     *
+     * @param unitOfWork
+     *  the unit of work to wrap around each batch written by the background thread
+     *
+     * @throws IllegalArgumentException
+     *  if the configured flush settings are invalid
+     */
+    @Inject
+    public ConsumerCheckInRecorder(Configuration config, ConsumerCurator consumerCurator,
+        UnitOfWork unitOfWork) {
+
+        this.consumerCurator = Objects.requireNonNull(consumerCurator);
+        this.unitOfWork = Objects.requireNonNull(unitOfWork);
+        this.flushInterval = config.getLong(ConfigProperties.CONSUMER_CHECKIN_FLUSH_INTERVAL);
+        this.flushThreshold = config.getInt(ConfigProperties.CONSUMER_CHECKIN_FLUSH_THRESHOLD);
+
+        if (this.flushInterval < 0) {
+            throw new IllegalArgumentException("flush interval is negative: " + this.flushInterval);
+        }
+
+        if (this.flushThreshold < 1) {
+            throw new IllegalArgumentException("flush threshold must be positive: " + this.flushThreshold);
+        }
+
+        this.pending = new ConcurrentHashMap<>();
+        this.flushQueued = new AtomicBoolean(false);
+
+        if (this.flushInterval > 0) {
+            this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("consumer-checkin-recorder-%d")
+                .setDaemon(true)
+                .build());
+
+            this.executor.scheduleWithFixedDelay(this::flush, this.flushInterval, this.flushInterval,
+                TimeUnit.SECONDS);
+        }
+        else {
+            this.executor = null;
+        }
+    }
+
+    /**
+     * Records a check-in for the given consumer at the current time.
+     *
+     * @param consumer
+     *  the consumer checking in
+     */
+    public void recordCheckIn(Consumer consumer) {
+        this.recordCheckIn(consumer, new Date());
+    }
+
+    /**
+     * Records a check-in for the given consumer at the given time. If the consumer already has a
+     * pending check-in, the later of the two is kept.
+     *
+     * @param consumer
+     *  the consumer checking in
+     *
+     * @param checkIn
+     *  the time of the check-in
+     */
+    public void recordCheckIn(Consumer consumer, Date checkIn) {
+        if (consumer == null || consumer.getId() == null || checkIn == null) {
+            return;
+        }
+
+        if (this.executor == null || this.shutdown) {
+            this.consumerCurator.updateLastCheckin(consumer, checkIn);
+            return;
+        }
+
+        this.pending.merge(consumer.getId(), checkIn, ConsumerCheckInRecorder::latest);
+
+        if (this.pending.size() >= this.flushThreshold && this.flushQueued.compareAndSet(false, true)) {
+            try {
+                this.executor.execute(this::flush);
+            }
+            catch (RejectedExecutionException e) {
+                // Only happens while shutting down, in which case the final flush will pick these up
+                this.flushQueued.set(false);
+            }
+        }
+    }
+
+    /**
+     * Writes all pending check-ins to the database in a single batch. If the batch cannot be
+     * written, its check-ins are returned to the pending set to be retried on the next flush.
+     *
+     * @return
+     *  the number of check-ins written
+     */
+    public synchronized int flush() {
+        this.flushQueued.set(false);
+
+        // Remove each check-in individually, so check-ins made while draining are either taken now
+        // or left for the next flush
+        Map<String, Date> batch = new HashMap<>();
+        for (String consumerId : this.pending.keySet()) {
+            Date checkIn = this.pending.remove(consumerId);
+            if (checkIn != null) {
+                batch.put(consumerId, checkIn);
+            }
+        }
+
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            this.unitOfWork.begin();
+            this.consumerCurator.updateLastCheckins(batch);
+
+            log.debug("Wrote {} consumer check-ins", batch.size());
+            return batch.size();
+        }
+        catch (Exception e) {
+            log.warn("Unable to write {} consumer check-ins; retrying on next flush", batch.size(), e);
+            batch.forEach((consumerId, checkIn) ->
+                this.pending.merge(consumerId, checkIn, ConsumerCheckInRecorder::latest));
+
+            return 0;
+        }
+        finally {
+            this.unitOfWork.end();
+        }
+    }
+
+    /**
+     * Fetches the number of check-ins waiting to be written.
+     *
+     * @return
+     *  the number of pending check-ins
+     */
+    public int getPendingCount() {
+        return this.pending.size();
+    }
+
+    /**
+     * Stops the periodic flush and writes any pending check-ins. Check-ins recorded after shutdown
+     * are written immediately.
+     */
+    public void shutdown() {
+        this.shutdown = true;
+
+        if (this.executor == null) {
+            return;
+        }
+
+        try {
+            this.executor.execute(this::flush);
+        }
+        catch (RejectedExecutionException e) {
+            // Already shut down
+            return;
+        }
+
+        this.executor.shutdown();
+
+        try {
+            if (!this.executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Timed out writing {} pending consumer check-ins", this.pending.size());
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Date latest(Date first, Date second) {
+        return first.after(second) ? first : second;
+    }
+}
@@ -17,6 +17,8 @@ package org.candlepin.controller;
 import org.candlepin.audit.EventSink;
 import org.candlepin.cache.AnonymousCertContent;
 import org.candlepin.cache.AnonymousCertContentCache;
+import org.candlepin.cache.ScaContentPayloadCache;
+import org.candlepin.cache.ScaContentPayloadKey;
 import org.candlepin.config.ConfigProperties;
 import org.candlepin.config.Configuration;
 import org.candlepin.controller.util.ContentPathBuilder;
@@ -55,6 +57,7 @@ import org.candlepin.service.model.ProductContentInfo;
 import org.candlepin.service.model.ProductInfo;
 import org.candlepin.util.Arch;
 import org.candlepin.util.Util;
+import org.candlepin.util.X509Util;
 import org.candlepin.util.X509V3ExtensionUtil;
 
 import com.google.inject.persist.Transactional;
@@ -66,6 +69,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigInteger;
 import java.security.GeneralSecurityException;
 import java.security.KeyPair;
@@ -222,6 +226,7 @@ public class ContentAccessManager {
     private final AnonymousContentAccessCertificateCurator anonContentAccessCertCurator;
     private final ProductServiceAdapter prodAdapter;
     private final AnonymousCertContentCache contentCache;
+    private final ScaContentPayloadCache scaPayloadCache;
 
     private final boolean standalone;
 
@@ -242,7 +247,8 @@ public class ContentAccessManager {
         AnonymousCloudConsumerCurator anonCloudConsumerCurator,
         AnonymousContentAccessCertificateCurator anonContentAccessCertCurator,
         ProductServiceAdapter prodAdapter,
-        AnonymousCertContentCache contentCache) {
+        AnonymousCertContentCache contentCache,
+        ScaContentPayloadCache scaPayloadCache) {
 
         this.config = Objects.requireNonNull(config);
         this.pki = Objects.requireNonNull(pki);
@@ -260,6 +266,7 @@ public class ContentAccessManager {
         this.anonContentAccessCertCurator = Objects.requireNonNull(anonContentAccessCertCurator);
         this.prodAdapter = Objects.requireNonNull(prodAdapter);
         this.contentCache = Objects.requireNonNull(contentCache);
+        this.scaPayloadCache = Objects.requireNonNull(scaPayloadCache);
         this.standalone = this.config.getBoolean(ConfigProperties.STANDALONE);
     }
 
@@ -312,15 +319,7 @@ public class ContentAccessManager {
         KeyPair keyPair = this.pki.getConsumerKeyPair(consumer);
         byte[] pemEncodedKeyPair = this.pki.getPemEncoded(keyPair.getPrivate());
         org.candlepin.model.dto.Product container = createSCAProdContainer(owner, consumer);
-
-        List<Environment> environments = this.environmentCurator.getConsumerEnvironments(consumer);
-        ContentPathBuilder contentPathBuilder = ContentPathBuilder.from(owner, environments);
-        PromotedContent promotedContent = new PromotedContent(contentPathBuilder).withAll(environments);
-
-        Map<org.candlepin.model.Content, Boolean> ownerContent = this.contentCurator
-            .getActiveContentByOwner(owner.getId());
-
-        byte[] payloadBytes = createContentAccessDataPayload(consumer, ownerContent, promotedContent);
+        String content = this.getScaContentPayload(consumer, owner);
 
         ContentAccessCertificate existing = new ContentAccessCertificate();
         existing.setSerial(serial);
@@ -329,7 +328,7 @@ public class ContentAccessManager {
 
         existing.setCert(createX509Cert(consumer.getUuid(), owner, serial, keyPair, container,
             SCA_ENTITLEMENT_TYPE, start, end));
-        existing.setContent(this.createPayloadAndSignature(payloadBytes));
+        existing.setContent(content);
         ContentAccessCertificate savedCert = this.contentAccessCertificateCurator.create(existing);
         consumer.setContentAccessCert(savedCert);
         this.consumerCurator.merge(consumer);
@@ -360,21 +359,77 @@ public class ContentAccessManager {
         Date contentUpdate = owner.getLastContentUpdate();
         boolean shouldUpdateContent = !contentUpdate.before(existing.getUpdated());
         if (shouldUpdateContent || isX509CertExpired) {
-            List<Environment> environments = this.environmentCurator.getConsumerEnvironments(consumer);
-            ContentPathBuilder contentPathBuilder = ContentPathBuilder.from(owner, environments);
-            PromotedContent promotedContent = new PromotedContent(contentPathBuilder).withAll(environments);
-
-            Map<org.candlepin.model.Content, Boolean> ownerContent = this.contentCurator
-                .getActiveContentByOwner(owner.getId());
-
-            byte[] payloadBytes = createContentAccessDataPayload(consumer, ownerContent, promotedContent);
-            existing.setContent(this.createPayloadAndSignature(payloadBytes));
+            existing.setContent(this.getScaContentPayload(consumer, owner));
             this.contentAccessCertificateCurator.saveOrUpdate(existing);
         }
 
         return existing;
     }
 
+    /**
+     * Fetches the signed content access payload for the given consumer. If payload sharing is
+     * enabled, the payload is fetched from the shared payload cache, and only built if no other
+     * consumer with the same content inputs has requested it since the organization's content
+     * last changed.
+     *
+     * @param consumer
+     *  the consumer for which to fetch the payload
+     *
+     * @param owner
+     *  the consumer's organization
+     *
+     * @throws IOException
+     *  if the payload cannot be built
+     *
+     * @return
+     *  the signed content access payload for the consumer
+     */
+    private String getScaContentPayload(Consumer consumer, Owner owner) throws IOException {
+        List<Environment> environments = this.environmentCurator.getConsumerEnvironments(consumer);
+
+        if (!this.scaPayloadCache.isEnabled() || owner.getLastContentUpdate() == null) {
+            return this.buildScaContentPayload(consumer, consumer.getUuid(), owner, environments);
+        }
+
+        List<String> environmentIds = environments.stream()
+            .map(Environment::getId)
+            .toList();
+
+        ScaContentPayloadKey key = new ScaContentPayloadKey(owner.getId(),
+            owner.getLastContentUpdate().getTime(), environmentIds,
+            consumer.getFact(X509Util.ARCH_FACT), consumer.getFact(X509Util.SUPPORTED_ARCH_FACT));
+
+        try {
+            return this.scaPayloadCache.get(key, k -> {
+                try {
+                    log.debug("Building shared SCA payload for key: {}", k);
+                    return this.buildScaContentPayload(consumer, null, owner, environments);
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private String buildScaContentPayload(Consumer consumer, String consumerUuid, Owner owner,
+        List<Environment> environments) throws IOException {
+
+        ContentPathBuilder contentPathBuilder = ContentPathBuilder.from(owner, environments);
+        PromotedContent promotedContent = new PromotedContent(contentPathBuilder).withAll(environments);
+
+        Map<org.candlepin.model.Content, Boolean> ownerContent = this.contentCurator
+            .getActiveContentByOwner(owner.getId());
+
+        byte[] payloadBytes = createContentAccessDataPayload(consumer, consumerUuid, ownerContent,
+            promotedContent);
+
+        return this.createPayloadAndSignature(payloadBytes);
+    }
+
     private org.candlepin.model.dto.Product createSCAProdContainer(Owner owner, Consumer consumer) {
         org.candlepin.model.dto.Product container = new org.candlepin.model.dto.Product();
         List<org.candlepin.model.dto.Content> dtoContents = new ArrayList<>();
@@ -407,9 +462,9 @@ public class ContentAccessManager {
 
     private CertificateSerial createSerial(OffsetDateTime end) {
         CertificateSerial serial = new CertificateSerial(Date.from(end.toInstant()));
-        // We need the sequence generated id before we create the Certificate,
-        // otherwise we could have used cascading create
-        serialCurator.create(serial);
+        // The serial's id is assigned when it is persisted, so the insert itself can wait for the
+        // flush which writes the certificate using it
+        serialCurator.create(serial, false);
         return serial;
     }
 
@@ -506,11 +561,10 @@ public class ContentAccessManager {
         return v3extensionUtil.getByteExtensions(products);
     }
 
-    private byte[] createContentAccessDataPayload(Consumer consumer,
+    private byte[] createContentAccessDataPayload(Consumer consumer, String consumerUuid,
         Map<org.candlepin.model.Content, Boolean> ownerContent, PromotedContent promotedContent)
         throws IOException {
 
-        String consumerUuid = consumer != null ? consumer.getUuid() : null;
         log.info("Generating SCA payload for consumer \"{}\"...", consumerUuid);
 
         Product engProduct = new Product()
@@ -821,6 +875,13 @@ public class ContentAccessManager {
         }
 
         owner.syncLastContentUpdate();
+
+        // Payloads for the previous content version can no longer be hit; drop them eagerly rather
+        // than waiting for them to age out
+        if (owner.getId() != null) {
+            this.scaPayloadCache.removeOwner(owner.getId());
+        }
+
         return this.ownerCurator.merge(owner);
     }
 
@@ -947,7 +1008,7 @@ public class ContentAccessManager {
         Map<org.candlepin.model.Content, Boolean> activeContent = new HashMap<>();
         contents.forEach(content -> activeContent.put(content, true));
         PromotedContent promotedContent = new PromotedContent(ContentPathBuilder.from(null, null));
-        byte[] data = createContentAccessDataPayload(null, activeContent, promotedContent);
+        byte[] data = createContentAccessDataPayload(null, null, activeContent, promotedContent);
 
         return createPayloadAndSignature(data);
     }
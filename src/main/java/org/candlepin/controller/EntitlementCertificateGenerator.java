@@ -27,6 +27,7 @@ import org.candlepin.model.Pool;
 import org.candlepin.model.PoolCurator;
 import org.candlepin.model.PoolQuantity;
 import org.candlepin.model.Product;
+import org.candlepin.pki.certs.CertificateCreationException;
 import org.candlepin.service.EntitlementCertServiceAdapter;
 import org.candlepin.util.CertificateSizeException;
 import org.candlepin.version.CertVersionConflictException;
@@ -36,6 +37,7 @@ import com.google.inject.persist.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -45,6 +47,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
@@ -64,6 +67,31 @@ import javax.inject.Inject;
 public class EntitlementCertificateGenerator {
     private static final Logger log = LoggerFactory.getLogger(EntitlementCertificateGenerator.class);
 
+    /**
+     * The number of entitlements regenerated in a single transaction during chunked regeneration.
+     * The entitlements of a consumer are never split across chunks, so a consumer with more
+     * entitlements than this is regenerated in a single, larger chunk.
+     */
+    public static final int REGENERATION_CHUNK_SIZE = 250;
+
+    /**
+     * Receives progress updates from chunked certificate regeneration
+     */
+    @FunctionalInterface
+    public interface RegenerationProgressListener {
+
+        /**
+         * Called each time a chunk of entitlements has been regenerated and committed.
+         *
+         * @param processed
+         *  the number of entitlements processed so far
+         *
+         * @param total
+         *  the total number of entitlements to process
+         */
+        void onProgress(int processed, int total);
+    }
+
     private final EntitlementCertificateCurator entitlementCertificateCurator;
     private final EntitlementCertServiceAdapter entCertServiceAdapter;
     private final ContentAccessManager contentAccessManager;
@@ -364,15 +392,30 @@ public class EntitlementCertificateGenerator {
      *  Whether or not to generate the certificate immediately, or mark it dirty and allow it to be
      *  regenerated on-demand
      */
-    @Transactional
     public void regenerateCertificatesOf(Owner owner, String productId, boolean lazy) {
+        if (lazy) {
+            this.markCertificatesDirty(owner, productId);
+        }
+        else {
+            // Not transactional, so that each chunk is committed as it completes
+            this.regenerateCertificatesInChunks(Collections.singleton(owner),
+                Collections.singleton(productId), null);
+        }
+    }
+
+    /**
+     * Marks the entitlements of all pools using the specified product dirty for later certificate
+     * regeneration.
+     */
+    @Transactional
+    protected void markCertificatesDirty(Owner owner, String productId) {
         Set<Entitlement> entitlements = this.poolCurator
             .listAvailableEntitlementPools(null, owner, productId, new Date())
             .stream()
             .flatMap(pool -> pool.getEntitlements().stream())
             .collect(Collectors.toSet());
 
-        this.regenerateCertificatesOf(entitlements, lazy);
+        this.regenerateCertificatesLazyImpl(entitlements);
     }
 
     /**
@@ -389,7 +432,6 @@ public class EntitlementCertificateGenerator {
      *  Whether or not to generate the certificate immediately, or mark it dirty and allow it to be
      *  regenerated on-demand
      */
-    @Transactional
     public void regenerateCertificatesOf(Owner owner, Product product, boolean lazy) {
         this.regenerateCertificatesOf(owner, product.getId(), lazy);
     }
@@ -410,7 +452,6 @@ public class EntitlementCertificateGenerator {
      *  Whether or not to generate the certificate immediately, or mark it dirty and allow it to be
      *  regenerated on-demand
      */
-    @Transactional
     public void regenerateCertificatesOf(Collection<Owner> owners, Collection<Product> products,
         boolean lazy) {
 
@@ -422,29 +463,180 @@ public class EntitlementCertificateGenerator {
             .map(Product::getId)
             .collect(Collectors.toSet());
 
+        if (lazy) {
+            this.markCertificatesDirty(owners, productIds);
+        }
+        else {
+            // Not transactional, so that each chunk is committed as it completes
+            this.regenerateCertificatesInChunks(owners, productIds, null);
+        }
+    }
+
+    /**
+     * Marks the entitlements of all pools using any of the specified products dirty for later
+     * certificate regeneration, effective for the given owners.
+     */
+    @Transactional
+    protected void markCertificatesDirty(Collection<Owner> owners, Set<String> productIds) {
         // TODO: This is a very expensive operation. Update pool curator with something to let us
         // do this without hitting the DB several times over.
-        if (lazy) {
-            for (Owner owner : owners) {
-                poolCurator.markCertificatesDirtyForPoolsWithProducts(owner, productIds);
+        for (Owner owner : owners) {
+            poolCurator.markCertificatesDirtyForPoolsWithProducts(owner, productIds);
+        }
+    }
+
+    /**
+     * Immediately regenerates the entitlement certificates for all pools using any of the specified
+     * products, effective for the given owners.
+     * <p></p>
+     * The affected entitlements are partitioned by consumer into chunks, and each chunk is
+     * regenerated in its own transaction: the chunk's entitlements, consumers, key pairs and pools
+     * are fetched in bulk, the certificates are signed in parallel, and the new certificates and
+     * serials are written in JDBC batches. When called outside of a transaction, such as from an
+     * async job, each chunk is committed as it completes, and the session is cleared between chunks.
+     *
+     * @param owners
+     *  A collection of owners for which the certificates should be regenerated
+     *
+     * @param productIds
+     *  A collection of IDs of the products for which to regenerate affected certificates
+     *
+     * @param listener
+     *  An optional listener to receive progress updates as each chunk completes
+     *
+     * @return
+     *  the number of entitlement certificates regenerated
+     */
+    public int regenerateCertificatesInChunks(Collection<Owner> owners, Collection<String> productIds,
+        RegenerationProgressListener listener) {
+
+        if (owners == null || owners.isEmpty() || productIds == null || productIds.isEmpty()) {
+            return 0;
+        }
+
+        List<List<String>> chunks = this.listRegenerationChunks(owners, productIds);
+        int total = chunks.stream()
+            .mapToInt(List::size)
+            .sum();
+
+        log.info("Regenerating {} entitlement certificate(s) in {} chunk(s)", total, chunks.size());
+
+        int processed = 0;
+        int regenerated = 0;
+
+        for (List<String> chunk : chunks) {
+            regenerated += this.regenerateCertificateChunk(chunk);
+            processed += chunk.size();
+
+            // Once a chunk has been committed, its entities are no longer needed
+            if (!this.entitlementCurator.inTransaction()) {
+                this.entitlementCurator.clear();
+            }
+
+            if (listener != null) {
+                listener.onProgress(processed, total);
             }
         }
-        else {
-            Date now = new Date();
-            Set<Entitlement> entitlements = new HashSet<>();
 
-            for (Owner owner : owners) {
-                Collection<Entitlement> poolEntitlements = this.poolCurator
-                    .listAvailableEntitlementPools(null, owner, productIds, now)
-                    .stream()
-                    .flatMap(pool -> pool.getEntitlements().stream())
-                    .collect(Collectors.toList());
+        log.info("Regenerated {} of {} entitlement certificate(s)", regenerated, total);
+        return regenerated;
+    }
+
+    /**
+     * Lists the IDs of the entitlements affected by a change to the given products, partitioned by
+     * consumer into chunks of at most REGENERATION_CHUNK_SIZE entitlements.
+     */
+    @Transactional
+    protected List<List<String>> listRegenerationChunks(Collection<Owner> owners,
+        Collection<String> productIds) {
+
+        Date now = new Date();
+        Set<String> poolIds = new HashSet<>();
+
+        for (Owner owner : owners) {
+            this.poolCurator.listAvailableEntitlementPools(null, owner, productIds, now)
+                .forEach(pool -> poolIds.add(pool.getId()));
+        }
+
+        Map<String, List<String>> consumerEntitlementIds = new TreeMap<>();
+        this.entitlementCurator.getEntitlementConsumerIdMapByPoolIds(poolIds)
+            .forEach((entitlementId, consumerId) -> consumerEntitlementIds
+                .computeIfAbsent(consumerId, key -> new ArrayList<>())
+                .add(entitlementId));
+
+        List<List<String>> chunks = new ArrayList<>();
+        List<String> chunk = new ArrayList<>();
+
+        for (List<String> entitlementIds : consumerEntitlementIds.values()) {
+            if (!chunk.isEmpty() && chunk.size() + entitlementIds.size() > REGENERATION_CHUNK_SIZE) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+            }
+
+            chunk.addAll(entitlementIds);
+        }
+
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Regenerates the certificates of a single chunk of entitlements in one transaction.
+     *
+     * @return
+     *  the number of entitlement certificates regenerated
+     */
+    @Transactional
+    protected int regenerateCertificateChunk(List<String> entitlementIds) {
+        List<Entitlement> entitlements = this.entitlementCurator
+            .getEntitlementsForRegeneration(entitlementIds);
+        if (entitlements.isEmpty()) {
+            return 0;
+        }
 
-                entitlements.addAll(poolEntitlements);
+        Map<String, EntitlementCertificate> certificates;
+        try {
+            certificates = this.entCertServiceAdapter.regenerateEntitlementCerts(entitlements);
+        }
+        catch (CertVersionConflictException cvce) {
+            throw cvce;
+        }
+        catch (Exception ex) {
+            throw new CertificateCreationException("Unable to regenerate entitlement certificates", ex);
+        }
+
+        // Clear the old certs before we save so we don't end up in a weird state
+        int count = this.entitlementCertificateCurator.deleteByEntitlementIds(certificates.keySet());
+        log.debug("{} old entitlement certificates deleted", count);
+
+        List<Entitlement> updated = new ArrayList<>();
+        for (Entitlement entitlement : entitlements) {
+            EntitlementCertificate certificate = certificates.get(entitlement.getId());
+            if (certificate == null) {
+                log.warn("The certificate for entitlement {} cannot be regenerated at this time",
+                    entitlement.getId());
+                continue;
             }
 
-            this.regenerateCertificatesOf(entitlements, lazy);
+            entitlement.setDirty(false);
+            entitlement.setCertificates(Collections.singleton(certificate));
+
+            // send entitlement changed event.
+            this.eventSink.queueEvent(this.eventFactory.entitlementChanged(entitlement));
+            updated.add(entitlement);
         }
+
+        // The serials were persisted when the certificates were generated; saving the certificates
+        // and then the entitlements keeps the inserts and updates for each table together, so they
+        // can be written in batches
+        this.entitlementCertificateCurator.saveOrUpdateAll(certificates.values(), false, false);
+        this.entitlementCurator.saveOrUpdateAll(updated, false, false);
+        this.entitlementCurator.flushInBatches();
+
+        return updated.size();
     }
 
 }
@@ -121,6 +121,7 @@ public class PoolManager {
     private final PoolConverter poolConverter;
     private final PoolService poolService;
     private final boolean isStandalone;
+    private final int poolFilterChunkSize;
 
     @Inject
     public PoolManager(
@@ -165,6 +166,7 @@ public class PoolManager {
         this.poolConverter = Objects.requireNonNull(poolConverter);
         this.poolService = Objects.requireNonNull(poolService);
         this.isStandalone = config.getBoolean(ConfigProperties.STANDALONE);
+        this.poolFilterChunkSize = config.getInt(ConfigProperties.POOL_LISTING_FILTER_CHUNK_SIZE);
     }
 
     /*
@@ -211,6 +213,11 @@ public class PoolManager {
         Map<String, Product> existingProducts = refreshResult.getEntities(Product.class, existingStates);
         Map<String, Product> updatedProducts = refreshResult.getEntities(Product.class, EntityState.UPDATED);
 
+        // Subscriptions which haven't changed since they were last refreshed don't need their pools
+        // refreshed, but must still be retained to avoid deleting their pools below
+        Set<String> skippedSubIds = refreshResult.getSkippedEntityIds(Pool.class);
+        Map<String, String> subFingerprints = refreshResult.getFingerprints(Pool.class);
+
         // TODO: Move everything below this line to the refresher
         this.poolCurator.transactional(args -> {
             boolean poolsModified = false;
@@ -230,10 +237,17 @@ public class PoolManager {
             // when we get around to a refresh refactor. :/
 
             // Gather local subscriptions for pool refresh
+            Set<String> refreshedSubIds = new HashSet<>(subMap.keySet());
+            refreshedSubIds.removeAll(skippedSubIds);
+
             Map<String, List<Pool>> subscriptionPools = this.poolCurator
-                .mapPoolsBySubscriptionIds(subMap.keySet());
+                .mapPoolsBySubscriptionIds(refreshedSubIds);
+
+            Map<String, String> refreshedFingerprints = new HashMap<>();
+
+            log.debug("Refreshing {} pool(s); skipping {} unchanged subscription(s)...",
+                refreshedSubIds.size(), subMap.size() - refreshedSubIds.size());
 
-            log.debug("Refreshing {} pool(s)...", subMap.size());
             for (Iterator<? extends SubscriptionInfo> si = subMap.values().iterator(); si.hasNext();) {
                 SubscriptionInfo sub = si.next();
 
@@ -244,6 +258,11 @@ public class PoolManager {
                     continue;
                 }
 
+                if (skippedSubIds.contains(sub.getId())) {
+                    log.debug("Skipping unchanged subscription: {}", sub);
+                    continue;
+                }
+
                 log.debug("Processing subscription: {}", sub);
                 Pool pool = this.poolConverter.convertToPrimaryPool(sub, resolvedOwner, existingProducts);
 
@@ -253,11 +272,19 @@ public class PoolManager {
                 List<Pool> subPools = subscriptionPools.getOrDefault(sub.getId(), Collections.emptyList());
                 this.refreshPoolsForPrimaryPool(pool, false, lazy, updatedProducts, subPools);
                 poolsModified = true;
+
+                if (subFingerprints.containsKey(sub.getId())) {
+                    refreshedFingerprints.put(sub.getId(), subFingerprints.get(sub.getId()));
+                }
             }
 
             // Flush our newly created pools
             this.poolCurator.flush();
 
+            // Record the fingerprints of the subscriptions applied to the pools, so unchanged
+            // subscriptions can be skipped by the next refresh
+            this.poolCurator.updateSubscriptionFingerprints(resolvedOwner.getId(), refreshedFingerprints);
+
             // delete pools whose subscription disappeared:
             log.debug("Deleting pools for absent subscriptions...");
             List<Pool> poolsToDelete = new ArrayList<>();
@@ -991,6 +1018,7 @@ public class PoolManager {
             allOwnerPools.remove(ent.getPool());
         }
         List<Pool> filteredPools = new LinkedList<>();
+        List<Pool> candidatePools = new ArrayList<>();
 
         ComplianceStatus guestCompliance = complianceRules.getStatus(guest, entitleDate, false);
 
@@ -1073,23 +1101,12 @@ public class PoolManager {
             }
 
             if (providesProduct || matchesAddOns || matchesRole) {
-                ValidationResult result = enforcer.preEntitlement(host, pool, 1, CallerType.BEST_POOLS);
-
-                if (result.hasErrors() || result.hasWarnings()) {
-                    // Just keep the last one around, if we need it
-                    failedResults.put(pool.getId(), result);
-                    if (log.isDebugEnabled()) {
-                        log.debug("Pool filtered from candidates due to failed rule(s): {}", pool);
-                        log.debug("  warnings: {}", Util.collectionToString(result.getWarnings()));
-                        log.debug("  errors: {}", Util.collectionToString(result.getErrors()));
-                    }
-                }
-                else {
-                    filteredPools.add(pool);
-                }
+                candidatePools.add(pool);
             }
         }
 
+        this.validateCandidatePools(host, candidatePools, filteredPools, failedResults);
+
         // Only throw refused exception if we actually hit the rules:
         if (filteredPools.size() == 0 && !failedResults.isEmpty()) {
             throw new EntitlementRefusedException(failedResults);
@@ -1249,6 +1266,7 @@ public class PoolManager {
             consumer, null, ownerId, null, null, activePoolDate, false,
             poolFilter, null, false, false, null).getPageData();
         List<Pool> filteredPools = new LinkedList<>();
+        List<Pool> candidatePools = new ArrayList<>();
 
         // We have to check compliance status here so we can replace an empty
         // array of product IDs with the array the consumer actually needs. (i.e. during
@@ -1312,18 +1330,12 @@ public class PoolManager {
             }
 
             if (providesProduct || matchesAddOns || matchesRole) {
-                ValidationResult result = enforcer.preEntitlement(consumer, pool, 1, CallerType.BEST_POOLS);
-
-                if (result.hasErrors() || result.hasWarnings()) {
-                    failedResults.put(pool.getId(), result);
-                    log.debug("Pool filtered from candidates due to rules failure: {}", pool.getId());
-                }
-                else {
-                    filteredPools.add(pool);
-                }
+                candidatePools.add(pool);
             }
         }
 
+        this.validateCandidatePools(consumer, candidatePools, filteredPools, failedResults);
+
         // Only throw refused exception if we actually hit the rules:
         if (filteredPools.isEmpty() && !failedResults.isEmpty()) {
             throw new EntitlementRefusedException(failedResults);
@@ -1337,6 +1349,57 @@ public class PoolManager {
         return enforced;
     }
 
+    /**
+     * Validates the candidate pools for an autobind request against the entitlement rules. All
+     * candidates are checked in a single rules invocation, so the consumer and its entitlements are
+     * translated and passed to the rules once, rather than once per pool.
+     *
+     * @param consumer
+     *  the consumer for which to validate the pools
+     *
+     * @param candidatePools
+     *  the pools to validate
+     *
+     * @param filteredPools
+     *  the list to which the pools passing validation are added, in the order of the candidates
+     *
+     * @param failedResults
+     *  the map to which the results of the pools failing validation are added
+     */
+    private void validateCandidatePools(Consumer consumer, List<Pool> candidatePools,
+        List<Pool> filteredPools, Map<String, ValidationResult> failedResults) {
+
+        if (candidatePools.isEmpty()) {
+            return;
+        }
+
+        List<PoolQuantity> poolQuantities = candidatePools.stream()
+            .map(pool -> new PoolQuantity(pool, 1))
+            .collect(Collectors.toList());
+
+        Map<String, ValidationResult> results = enforcer.preEntitlement(consumer, poolQuantities,
+            CallerType.BEST_POOLS);
+
+        for (Pool pool : candidatePools) {
+            ValidationResult result = results.get(pool.getId());
+
+            if (result == null || result.hasErrors() || result.hasWarnings()) {
+                failedResults.put(pool.getId(), result != null ? result : new ValidationResult());
+                if (log.isDebugEnabled()) {
+                    log.debug("Pool filtered from candidates due to failed rule(s): {}", pool);
+
+                    if (result != null) {
+                        log.debug("  warnings: {}", Util.collectionToString(result.getWarnings()));
+                        log.debug("  errors: {}", Util.collectionToString(result.getErrors()));
+                    }
+                }
+            }
+            else {
+                filteredPools.add(pool);
+            }
+        }
+    }
+
     private Map<String, Integer> convertToMap(List<PoolQuantity> poolQuantities) {
         Map<String, Integer> result = new HashMap<>();
         for (PoolQuantity poolQuantity : poolQuantities) {
@@ -1570,6 +1633,15 @@ public class PoolManager {
             filters.addAttributeFilter(Pool.Attributes.DEVELOPMENT_POOL, "!true");
         }
 
+        // Pages of filtered pools are built by filtering the candidates in order, a chunk at a time
+        if (postFilter && pageRequest != null && pageRequest.isPaging() && this.poolFilterChunkSize > 0) {
+            List<String> poolIds = this.poolCurator.listAvailableEntitlementPoolIds(consumer, ownerId,
+                (productId != null ? List.of(productId) : null), subscriptionId, activeOn, filters,
+                pageRequest, addFuture, onlyFuture, after);
+
+            return this.filterPoolPage(consumer, key, poolIds, includeWarnings, pageRequest);
+        }
+
         Page<List<Pool>> page = this.poolCurator.listAvailableEntitlementPools(consumer,
             ownerId, productId, subscriptionId, activeOn, filters, pageRequest, postFilter,
             addFuture, onlyFuture, after);
@@ -1606,6 +1678,77 @@ public class PoolManager {
         return page;
     }
 
+    /**
+     * Builds the requested page of the pools available to a consumer or activation key by loading
+     * the candidate pools in order, a chunk at a time, and filtering each chunk through the rules.
+     * Every candidate is filtered to count the total, unless the page request declines the count,
+     * in which case filtering stops once a pool beyond the page is found and the count is reported
+     * as a lower bound.
+     *
+     * @param consumer
+     *  the consumer for which to filter the pools, or null
+     *
+     * @param key
+     *  the activation key for which to filter the pools, or null
+     *
+     * @param poolIds
+     *  the IDs of the candidate pools, in the requested order
+     *
+     * @param includeWarnings
+     *  whether to include pools which triggered a rule warning
+     *
+     * @param pageRequest
+     *  the page to build
+     *
+     * @return
+     *  the requested page of filtered pools
+     */
+    private Page<List<Pool>> filterPoolPage(Consumer consumer, ActivationKey key, List<String> poolIds,
+        boolean includeWarnings, PageRequest pageRequest) {
+
+        int offset = (pageRequest.getPage() - 1) * pageRequest.getPerPage();
+        int end = offset + pageRequest.getPerPage();
+        boolean countAll = pageRequest.isIncludeCount();
+
+        List<Pool> pageData = new ArrayList<>();
+        int matched = 0;
+        int filtered = 0;
+
+        while (filtered < poolIds.size() && (countAll || matched <= end)) {
+            List<String> chunk = poolIds.subList(filtered,
+                Math.min(filtered + this.poolFilterChunkSize, poolIds.size()));
+
+            List<Pool> pools = this.poolCurator.listPoolsInOrder(chunk);
+
+            if (consumer != null) {
+                pools = this.enforcer.filterPools(consumer, pools, includeWarnings);
+            }
+
+            if (key != null) {
+                pools = this.filterPoolsForActKey(key, pools, includeWarnings);
+            }
+
+            for (Pool pool : pools) {
+                if (matched >= offset && matched < end) {
+                    pageData.add(pool);
+                }
+
+                ++matched;
+            }
+
+            filtered += chunk.size();
+        }
+
+        log.debug("Filtered {} of {} candidate pools to build page {}; {} pools matched",
+            filtered, poolIds.size(), pageRequest.getPage(), matched);
+
+        return new Page<List<Pool>>()
+            .setPageData(pageData)
+            .setPageRequest(pageRequest)
+            .setMaxRecords(matched)
+            .setMaxRecordsLowerBound(filtered < poolIds.size());
+    }
+
     /**
      * Retrieves a list of pools associated with the specified subscription ID. If there are no
      * pools associated with the given subscription, this method should return an empty list.
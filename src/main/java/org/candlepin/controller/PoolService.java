@@ -393,6 +393,7 @@ public class PoolService {
                 // Recalculate status for affected consumers
                 for (List<Consumer> subList : Iterables.partition(consumerStackedEnts.keySet(), 1000)) {
                     for (Consumer consumer : subList) {
+                        this.complianceRules.invalidateStatus(consumer);
                         this.complianceRules.getStatus(consumer);
                         this.systemPurposeComplianceRules.getStatus(consumer, consumer.getEntitlements(),
                             null, true);
@@ -753,6 +754,7 @@ public class PoolService {
             if (i++ % 1000 == 0) {
                 consumerCurator.flush();
             }
+            complianceRules.invalidateStatus(consumer);
             complianceRules.getStatus(consumer);
             systemPurposeComplianceRules.getStatus(consumer, consumer.getEntitlements(), null, true);
         }
@@ -17,7 +17,6 @@ package org.candlepin.controller;
 import org.candlepin.model.Owner;
 import org.candlepin.model.OwnerCurator;
 import org.candlepin.model.Pool;
-import org.candlepin.model.PoolCurator;
 import org.candlepin.model.Product;
 import org.candlepin.service.ProductServiceAdapter;
 import org.candlepin.service.SubscriptionServiceAdapter;
@@ -48,7 +47,6 @@ public class Refresher {
     private final SubscriptionServiceAdapter subAdapter;
     private final ProductServiceAdapter prodAdapter;
     private final OwnerCurator ownerCurator;
-    private final PoolCurator poolCurator;
     private final PoolConverter poolConverter;
 
     private final Map<String, Owner> owners = new HashMap<>();
@@ -56,14 +54,12 @@ public class Refresher {
     private boolean lazy;
 
     public Refresher(PoolManager poolManager, SubscriptionServiceAdapter subAdapter,
-        ProductServiceAdapter prodAdapter, OwnerCurator ownerCurator, PoolCurator poolCurator,
-        PoolConverter poolConverter) {
+        ProductServiceAdapter prodAdapter, OwnerCurator ownerCurator, PoolConverter poolConverter) {
 
         this.poolManager = Objects.requireNonNull(poolManager);
         this.subAdapter = Objects.requireNonNull(subAdapter);
         this.prodAdapter = Objects.requireNonNull(prodAdapter);
         this.ownerCurator = Objects.requireNonNull(ownerCurator);
-        this.poolCurator = Objects.requireNonNull(poolCurator);
         this.poolConverter = Objects.requireNonNull(poolConverter);
 
         this.lazy = true;
@@ -186,7 +182,6 @@ public class Refresher {
         for (Owner owner : this.owners.values()) {
             try {
                 poolManager.refreshPoolsWithRegeneration(this.subAdapter, this.prodAdapter, owner, this.lazy);
-                recalculatePoolQuantitiesForOwner(owner);
                 updateRefreshDate(owner);
             }
             catch (SubscriptionServiceException e) {
@@ -204,13 +199,4 @@ public class Refresher {
         return this.ownerCurator.merge(owner);
     }
 
-    private void recalculatePoolQuantitiesForOwner(Owner owner) {
-        this.poolCurator.transactional().allowExistingTransactions().execute((args -> {
-            this.poolCurator.calculateConsumedForOwnersPools(owner);
-            this.poolCurator.calculateExportedForOwnersPools(owner);
-
-            return String.format("Successfully recalculated quantities for owner: %s %n", owner.getKey());
-        }));
-    }
-
 }
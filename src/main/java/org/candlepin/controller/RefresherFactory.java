@@ -15,7 +15,6 @@
 package org.candlepin.controller;
 
 import org.candlepin.model.OwnerCurator;
-import org.candlepin.model.PoolCurator;
 import org.candlepin.service.ProductServiceAdapter;
 import org.candlepin.service.SubscriptionServiceAdapter;
 
@@ -28,21 +27,19 @@ import javax.inject.Inject;
 public class RefresherFactory {
 
     private final OwnerCurator ownerCurator;
-    private final PoolCurator poolCurator;
     private final PoolManager poolManager;
     private final PoolConverter poolConverter;
 
     @Inject
     public RefresherFactory(OwnerCurator ownerCurator, PoolManager poolManager,
-        PoolCurator poolCurator, PoolConverter poolConverter) {
+        PoolConverter poolConverter) {
         this.ownerCurator = Objects.requireNonNull(ownerCurator);
-        this.poolCurator = Objects.requireNonNull(poolCurator);
         this.poolManager = Objects.requireNonNull(poolManager);
         this.poolConverter = Objects.requireNonNull(poolConverter);
     }
 
     public Refresher getRefresher(SubscriptionServiceAdapter subAdapter, ProductServiceAdapter prodAdapter) {
-        return new Refresher(this.poolManager, subAdapter, prodAdapter, this.ownerCurator, this.poolCurator,
+        return new Refresher(this.poolManager, subAdapter, prodAdapter, this.ownerCurator,
             this.poolConverter);
     }
 
@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.controller.refresher;
+
+import org.candlepin.service.model.BrandingInfo;
+import org.candlepin.service.model.CdnInfo;
+import org.candlepin.service.model.CertificateInfo;
+import org.candlepin.service.model.CertificateSerialInfo;
+import org.candlepin.service.model.ContentInfo;
+import org.candlepin.service.model.OwnerInfo;
+import org.candlepin.service.model.ProductContentInfo;
+import org.candlepin.service.model.ProductInfo;
+import org.candlepin.service.model.SubscriptionInfo;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+
+
+/**
+ * The Fingerprinter computes stable fingerprints of upstream subscriptions, products and content.
+ * Two upstream entities with the same fingerprint will make the same changes to their local
+ * representations, allowing a refresh to skip entities which have not changed since the previous
+ * refresh.
+ * <p>
+ * Fingerprints are deep: the fingerprint of a subscription covers its product, and the fingerprint
+ * of a product covers its derived and provided products and its content. Unordered collections are
+ * hashed in a canonical order, so a fingerprint does not depend on the order in which upstream
+ * lists an entity's children. Timestamps which are not copied to the local entities, such as the
+ * created and updated dates of products and content, are not included.
+ * <p>
+ * Fingerprints of products and content are cached by instance for the life of the fingerprinter,
+ * as a single upstream product is often shared by many subscriptions. As such, a fingerprinter
+ * should not be reused once the upstream entities it has seen may have been modified.
+ */
+public class Fingerprinter {
+
+    /**
+     * The version of the fingerprint format. This must be changed whenever the data covered by a
+     * fingerprint changes, so fingerprints stored by a previous version never match.
+     */
+    private static final String FORMAT_VERSION = "1";
+
+    private final Map<ProductInfo, String> productFingerprints;
+    private final Map<ContentInfo, String> contentFingerprints;
+
+    /**
+     * Creates a new Fingerprinter instance
+     */
+    public Fingerprinter() {
+        this.productFingerprints = new IdentityHashMap<>();
+        this.contentFingerprints = new IdentityHashMap<>();
+    }
+
+    /**
+     * Computes the fingerprint of the given upstream subscription, including the fingerprint of its
+     * product.
+     *
+     * @param subscription
+     *  the subscription for which to compute a fingerprint
+     *
+     * @return
+     *  the fingerprint of the given subscription, or null if the subscription is null
+     */
+    public String fingerprint(SubscriptionInfo subscription) {
+        if (subscription == null) {
+            return null;
+        }
+
+        OwnerInfo owner = subscription.getOwner();
+
+        Hasher hasher = newHasher("subscription");
+        putString(hasher, subscription.getId());
+        putString(hasher, owner != null ? owner.getKey() : null);
+        putString(hasher, this.fingerprint(subscription.getProduct()));
+        putLong(hasher, subscription.getQuantity());
+        putDate(hasher, subscription.getStartDate());
+        putDate(hasher, subscription.getEndDate());
+        putString(hasher, subscription.getContractNumber());
+        putString(hasher, subscription.getAccountNumber());
+        putString(hasher, subscription.getOrderNumber());
+        putString(hasher, subscription.getUpstreamPoolId());
+        putString(hasher, subscription.getUpstreamEntitlementId());
+        putString(hasher, subscription.getUpstreamConsumerId());
+
+        CdnInfo cdn = subscription.getCdn();
+        putString(hasher, cdn != null ? hashOf("cdn", cdn.getLabel(), cdn.getName(), cdn.getUrl(),
+            fingerprint(cdn.getCertificate())) : null);
+        putString(hasher, fingerprint(subscription.getCertificate()));
+
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Computes the fingerprint of the given upstream product, including the fingerprints of its
+     * derived product, provided products and content.
+     *
+     * @param product
+     *  the product for which to compute a fingerprint
+     *
+     * @return
+     *  the fingerprint of the given product, or null if the product is null
+     */
+    public String fingerprint(ProductInfo product) {
+        if (product == null) {
+            return null;
+        }
+
+        String fingerprint = this.productFingerprints.get(product);
+        if (fingerprint == null) {
+            Hasher hasher = newHasher("product");
+            putString(hasher, product.getId());
+            putString(hasher, product.getName());
+            putLong(hasher, product.getMultiplier());
+            putAttributes(hasher, product.getAttributes());
+            putStrings(hasher, product.getDependentProductIds());
+            putString(hasher, this.fingerprint(product.getDerivedProduct()));
+            putStrings(hasher, map(product.getProvidedProducts(),
+                (ProductInfo elem) -> this.fingerprint(elem)));
+            putStrings(hasher, map(product.getProductContent(),
+                (ProductContentInfo elem) -> this.fingerprint(elem)));
+            putStrings(hasher, map(product.getBranding(), (BrandingInfo elem) -> fingerprint(elem)));
+
+            fingerprint = hasher.hash().toString();
+            this.productFingerprints.put(product, fingerprint);
+        }
+
+        return fingerprint;
+    }
+
+    /**
+     * Computes the fingerprint of the given upstream content.
+     *
+     * @param content
+     *  the content for which to compute a fingerprint
+     *
+     * @return
+     *  the fingerprint of the given content, or null if the content is null
+     */
+    public String fingerprint(ContentInfo content) {
+        if (content == null) {
+            return null;
+        }
+
+        String fingerprint = this.contentFingerprints.get(content);
+        if (fingerprint == null) {
+            Hasher hasher = newHasher("content");
+            putString(hasher, content.getId());
+            putString(hasher, content.getType());
+            putString(hasher, content.getLabel());
+            putString(hasher, content.getName());
+            putString(hasher, content.getVendor());
+            putString(hasher, content.getContentUrl());
+            putString(hasher, content.getRequiredTags());
+            putString(hasher, content.getReleaseVersion());
+            putString(hasher, content.getGpgUrl());
+            putString(hasher, content.getArches());
+            putLong(hasher, content.getMetadataExpiration());
+            putStrings(hasher, content.getRequiredProductIds());
+
+            fingerprint = hasher.hash().toString();
+            this.contentFingerprints.put(content, fingerprint);
+        }
+
+        return fingerprint;
+    }
+
+    private String fingerprint(ProductContentInfo productContent) {
+        if (productContent == null) {
+            return null;
+        }
+
+        Boolean enabled = productContent.isEnabled();
+        return hashOf("product_content", this.fingerprint(productContent.getContent()),
+            enabled != null ? enabled.toString() : null);
+    }
+
+    private static String fingerprint(BrandingInfo branding) {
+        return branding != null ?
+            hashOf("branding", branding.getProductId(), branding.getName(), branding.getType()) :
+            null;
+    }
+
+    private static String fingerprint(CertificateInfo certificate) {
+        if (certificate == null) {
+            return null;
+        }
+
+        CertificateSerialInfo serial = certificate.getSerial();
+        String expiration = serial != null && serial.getExpiration() != null ?
+            String.valueOf(serial.getExpiration().getTime()) :
+            null;
+
+        return hashOf("certificate", certificate.getKey(), certificate.getCertificate(),
+            serial != null ? String.valueOf(serial.isRevoked()) : null, expiration);
+    }
+
+    private static Hasher newHasher(String type) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        putString(hasher, FORMAT_VERSION);
+        putString(hasher, type);
+
+        return hasher;
+    }
+
+    private static String hashOf(String type, String... values) {
+        Hasher hasher = newHasher(type);
+        for (String value : values) {
+            putString(hasher, value);
+        }
+
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Adds a string to the given hasher, prefixed by its length so adjacent values cannot be
+     * confused with each other, and null values cannot be confused with empty ones.
+     */
+    private static void putString(Hasher hasher, String value) {
+        if (value != null) {
+            hasher.putInt(value.length())
+                .putString(value, StandardCharsets.UTF_8);
+        }
+        else {
+            hasher.putInt(-1);
+        }
+    }
+
+    private static void putLong(Hasher hasher, Long value) {
+        hasher.putBoolean(value != null);
+        if (value != null) {
+            hasher.putLong(value);
+        }
+    }
+
+    private static void putDate(Hasher hasher, Date value) {
+        putLong(hasher, value != null ? value.getTime() : null);
+    }
+
+    /**
+     * Adds an unordered collection of strings to the given hasher, in their natural order.
+     */
+    private static void putStrings(Hasher hasher, Collection<String> values) {
+        if (values == null) {
+            hasher.putInt(-1);
+            return;
+        }
+
+        List<String> sorted = new ArrayList<>(values);
+        sorted.sort(Comparator.nullsFirst(Comparator.naturalOrder()));
+
+        hasher.putInt(sorted.size());
+        sorted.forEach(value -> putString(hasher, value));
+    }
+
+    private static void putAttributes(Hasher hasher, Map<String, String> attributes) {
+        if (attributes == null) {
+            hasher.putInt(-1);
+            return;
+        }
+
+        List<String> keys = new ArrayList<>(attributes.keySet());
+        keys.sort(Comparator.nullsFirst(Comparator.naturalOrder()));
+
+        hasher.putInt(keys.size());
+        for (String key : keys) {
+            putString(hasher, key);
+            putString(hasher, attributes.get(key));
+        }
+    }
+
+    private static <T> List<String> map(Collection<? extends T> values, Function<T, String> mapper) {
+        if (values == null) {
+            return null;
+        }
+
+        List<String> output = new ArrayList<>(values.size());
+        values.forEach(value -> output.add(mapper.apply(value)));
+
+        return output;
+    }
+
+}
@@ -18,8 +18,11 @@ import org.candlepin.model.AbstractHibernateObject;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -144,12 +147,16 @@ public class RefreshResult {
     }
 
     private Map<Class, EntityStore> entityStoreMap;
+    private Map<Class, Set<String>> skippedEntityIdMap;
+    private Map<Class, Map<String, String>> fingerprintMap;
 
     /**
      * Creates a new RefreshResult instance with no data
      */
     public RefreshResult() {
         this.entityStoreMap = new HashMap<>();
+        this.skippedEntityIdMap = new HashMap<>();
+        this.fingerprintMap = new HashMap<>();
     }
 
     /**
@@ -447,4 +454,123 @@ public class RefreshResult {
             .anyMatch(entityStore -> entityStore.hasEntity(states));
     }
 
+    /**
+     * Adds the IDs of entities of the given class which were skipped by this refresh, as their
+     * upstream data had not changed since they were last refreshed. Skipped pools are identified by
+     * the IDs of their subscriptions.
+     *
+     * @param cls
+     *  the class of the skipped entities
+     *
+     * @param ids
+     *  a collection of IDs of the skipped entities
+     *
+     * @throws IllegalArgumentException
+     *  if cls is null
+     *
+     * @return
+     *  a reference to this refresh result
+     */
+    public <T extends AbstractHibernateObject> RefreshResult addSkippedEntityIds(Class<T> cls,
+        Collection<String> ids) {
+
+        if (cls == null) {
+            throw new IllegalArgumentException("cls is null");
+        }
+
+        if (ids != null) {
+            this.skippedEntityIdMap.computeIfAbsent(cls, key -> new HashSet<>())
+                .addAll(ids);
+        }
+
+        return this;
+    }
+
+    /**
+     * Fetches the IDs of the entities of the given class which were skipped by this refresh. If no
+     * entities of the given class were skipped, this method returns an empty set.
+     *
+     * @param cls
+     *  the class of the skipped entities to fetch
+     *
+     * @return
+     *  a set containing the IDs of the skipped entities of the given class
+     */
+    public <T extends AbstractHibernateObject> Set<String> getSkippedEntityIds(Class<T> cls) {
+        return this.skippedEntityIdMap.getOrDefault(cls, Collections.emptySet());
+    }
+
+    /**
+     * Fetches the number of entities of the given class which were skipped by this refresh.
+     *
+     * @param cls
+     *  the class of the skipped entities to count
+     *
+     * @return
+     *  the number of skipped entities of the given class
+     */
+    public <T extends AbstractHibernateObject> int getSkippedEntityCount(Class<T> cls) {
+        return this.getSkippedEntityIds(cls).size();
+    }
+
+    /**
+     * Fetches the total number of entities which were skipped by this refresh.
+     *
+     * @return
+     *  the number of skipped entities
+     */
+    public int getSkippedEntityCount() {
+        return this.skippedEntityIdMap.values()
+            .stream()
+            .mapToInt(Set::size)
+            .sum();
+    }
+
+    /**
+     * Adds the fingerprints of the upstream entities applied to entities of the given class by this
+     * refresh. Pool fingerprints are those of their subscriptions, and are mapped by subscription
+     * ID.
+     *
+     * @param cls
+     *  the class of the entities to which the fingerprints apply
+     *
+     * @param fingerprints
+     *  a mapping of entity IDs to the fingerprints of their upstream entities
+     *
+     * @throws IllegalArgumentException
+     *  if cls is null
+     *
+     * @return
+     *  a reference to this refresh result
+     */
+    public <T extends AbstractHibernateObject> RefreshResult addFingerprints(Class<T> cls,
+        Map<String, String> fingerprints) {
+
+        if (cls == null) {
+            throw new IllegalArgumentException("cls is null");
+        }
+
+        if (fingerprints != null) {
+            this.fingerprintMap.computeIfAbsent(cls, key -> new HashMap<>())
+                .putAll(fingerprints);
+        }
+
+        return this;
+    }
+
+    /**
+     * Fetches the fingerprints of the upstream entities applied to entities of the given class by
+     * this refresh, mapped by entity ID. If no fingerprints were computed for the given class, this
+     * method returns an empty map.
+     *
+     * @param cls
+     *  the class of the entities for which to fetch fingerprints
+     *
+     * @return
+     *  a mapping of entity IDs to the fingerprints of their upstream entities
+     */
+    public <T extends AbstractHibernateObject> Map<String, String> getFingerprints(Class<T> cls) {
+        return this.fingerprintMap.getOrDefault(cls, Collections.emptyMap());
+    }
+
 }
@@ -18,7 +18,9 @@ import org.candlepin.controller.refresher.builders.ContentNodeBuilder;
 import org.candlepin.controller.refresher.builders.NodeFactory;
 import org.candlepin.controller.refresher.builders.PoolNodeBuilder;
 import org.candlepin.controller.refresher.builders.ProductNodeBuilder;
+import org.candlepin.controller.refresher.RefreshResult.EntityState;
 import org.candlepin.controller.refresher.mappers.ContentMapper;
+import org.candlepin.controller.refresher.mappers.EntityMapper;
 import org.candlepin.controller.refresher.mappers.NodeMapper;
 import org.candlepin.controller.refresher.mappers.PoolMapper;
 import org.candlepin.controller.refresher.mappers.ProductMapper;
@@ -46,11 +48,14 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.inject.Inject;
 import javax.persistence.EntityTransaction;
@@ -78,6 +83,10 @@ public class RefreshWorker {
     private ProductMapper productMapper;
     private ContentMapper contentMapper;
 
+    /** The IDs of products and content added directly, rather than as children of other entities */
+    private Set<String> rootProductIds;
+    private Set<String> rootContentIds;
+
 
     /**
      * Creates a new RefreshWorker
@@ -93,6 +102,9 @@ public class RefreshWorker {
         this.poolMapper = new PoolMapper();
         this.productMapper = new ProductMapper();
         this.contentMapper = new ContentMapper();
+
+        this.rootProductIds = new HashSet<>();
+        this.rootContentIds = new HashSet<>();
     }
 
     /**
@@ -102,6 +114,9 @@ public class RefreshWorker {
         this.poolMapper.clear();
         this.productMapper.clear();
         this.contentMapper.clear();
+
+        this.rootProductIds.clear();
+        this.rootContentIds.clear();
     }
 
     /**
@@ -150,7 +165,7 @@ public class RefreshWorker {
                 .map(SubscriptionInfo::getProduct)
                 .collect(Collectors.toList());
 
-            this.addProducts(products);
+            this.addProductTrees(products);
         }
 
         return this;
@@ -172,6 +187,28 @@ public class RefreshWorker {
      *  a reference to this refresh worker
      */
     public RefreshWorker addProducts(Collection<? extends ProductInfo> products) {
+        if (products != null) {
+            this.addProductTrees(products);
+
+            products.stream()
+                .filter(Objects::nonNull)
+                .forEach(product -> this.rootProductIds.add(product.getId()));
+        }
+
+        return this;
+    }
+
+    /**
+     * Utility method for adding upstream products to this refresher, along with any children
+     * entities each product contains.
+     *
+     * @param products
+     *  a collection of upstream products to add to this refresher
+     *
+     * @throws IllegalArgumentException
+     *  if any of the given products lacks a valid, mappable ID
+     */
+    private void addProductTrees(Collection<? extends ProductInfo> products) {
         if (products != null) {
             this.productMapper.addImportedEntities(products);
 
@@ -181,15 +218,16 @@ public class RefreshWorker {
                 }
 
                 // Add any nested products
-                this.addProducts(product.getDerivedProduct());
-                this.addProducts(product.getProvidedProducts());
+                if (product.getDerivedProduct() != null) {
+                    this.addProductTrees(List.of(product.getDerivedProduct()));
+                }
+
+                this.addProductTrees(product.getProvidedProducts());
 
                 // Add any content attached to this product...
                 this.addProductContent(product.getProductContent());
             }
         }
-
-        return this;
     }
 
     /**
@@ -239,7 +277,7 @@ public class RefreshWorker {
                     return content;
                 }).collect(Collectors.toList());
 
-            this.addContent(filtered);
+            this.contentMapper.addImportedEntities(filtered);
         }
     }
 
@@ -259,6 +297,13 @@ public class RefreshWorker {
      */
     public RefreshWorker addContent(Collection<? extends ContentInfo> content) {
         this.contentMapper.addImportedEntities(content);
+
+        if (content != null) {
+            content.stream()
+                .filter(Objects::nonNull)
+                .forEach(elem -> this.rootContentIds.add(elem.getId()));
+        }
+
         return this;
     }
 
@@ -380,6 +425,223 @@ public class RefreshWorker {
         this.contentMapper.addExistingEntities(content);
     }
 
+    /**
+     * Computes the fingerprints of the imported subscriptions, mapped by subscription ID.
+     *
+     * @param fingerprinter
+     *  the fingerprinter to use to compute fingerprints
+     *
+     * @return
+     *  a mapping of subscription IDs to the fingerprints of the imported subscriptions
+     */
+    private Map<String, String> getSubscriptionFingerprints(Fingerprinter fingerprinter) {
+        Map<String, String> fingerprints = new HashMap<>();
+
+        this.poolMapper.getImportedEntities()
+            .forEach((id, subscription) -> fingerprints.put(id, fingerprinter.fingerprint(subscription)));
+
+        return fingerprints;
+    }
+
+    /**
+     * Flags the imported subscriptions, products and content which have not changed since they were
+     * last refreshed as skipped, so their existing entities are neither loaded nor processed. A
+     * subscription is skipped if its fingerprint, and that of every product and content in its
+     * tree, matches the fingerprint recorded by the previous refresh. Products and content are
+     * skipped if they do not belong to the tree of any subscription being processed, or to that of
+     * any product or content added directly to this refresher.
+     *
+     * @param owner
+     *  the owner being refreshed
+     *
+     * @param fingerprinter
+     *  the fingerprinter to use to compute fingerprints
+     *
+     * @param subscriptionFingerprints
+     *  the fingerprints of the imported subscriptions, mapped by subscription ID
+     */
+    private void skipUnchangedEntities(Owner owner, Fingerprinter fingerprinter,
+        Map<String, String> subscriptionFingerprints) {
+
+        Map<String, String> recordedSubscriptionFingerprints = this.poolCurator
+            .getSubscriptionFingerprints(owner.getId(), subscriptionFingerprints.keySet());
+
+        // If none of the subscriptions have been refreshed before, there's nothing to skip
+        if (recordedSubscriptionFingerprints.isEmpty()) {
+            return;
+        }
+
+        Map<String, String> recordedProductFingerprints = this.productCurator
+            .getRefreshFingerprints(this.productMapper.getImportedEntities().keySet());
+        Map<String, String> recordedContentFingerprints = this.contentCurator
+            .getRefreshFingerprints(this.contentMapper.getImportedEntities().keySet());
+
+        Map<String, Boolean> unchangedProducts = new HashMap<>();
+        Set<String> skippedSubscriptionIds = new HashSet<>();
+        Set<String> keptProductIds = new HashSet<>();
+        Set<String> keptContentIds = new HashSet<>(this.rootContentIds);
+
+        for (SubscriptionInfo subscription : this.poolMapper.getImportedEntities().values()) {
+            String fingerprint = subscriptionFingerprints.get(subscription.getId());
+            String recorded = recordedSubscriptionFingerprints.get(subscription.getId());
+            ProductInfo product = subscription.getProduct();
+
+            boolean unchanged = fingerprint.equals(recorded) &&
+                (product == null || this.isProductTreeUnchanged(product.getId(), fingerprinter,
+                    recordedProductFingerprints, recordedContentFingerprints, unchangedProducts));
+
+            if (unchanged) {
+                skippedSubscriptionIds.add(subscription.getId());
+            }
+            else if (product != null) {
+                this.collectProductTree(product.getId(), keptProductIds, keptContentIds);
+            }
+        }
+
+        if (skippedSubscriptionIds.isEmpty()) {
+            return;
+        }
+
+        for (String productId : this.rootProductIds) {
+            this.collectProductTree(productId, keptProductIds, keptContentIds);
+        }
+
+        this.poolMapper.addSkippedEntityIds(skippedSubscriptionIds);
+
+        this.productMapper.addSkippedEntityIds(this.productMapper.getImportedEntities().keySet().stream()
+            .filter(id -> !keptProductIds.contains(id))
+            .collect(Collectors.toSet()));
+
+        this.contentMapper.addSkippedEntityIds(this.contentMapper.getImportedEntities().keySet().stream()
+            .filter(id -> !keptContentIds.contains(id))
+            .collect(Collectors.toSet()));
+
+        log.debug("Skipping {} unchanged subscription(s), {} product(s) and {} content",
+            skippedSubscriptionIds.size(), this.productMapper.getSkippedEntityIds().size(),
+            this.contentMapper.getSkippedEntityIds().size());
+    }
+
+    /**
+     * Checks if the imported product with the given ID, and every product and content in its tree,
+     * match the fingerprints recorded by the previous refresh.
+     */
+    private boolean isProductTreeUnchanged(String productId, Fingerprinter fingerprinter,
+        Map<String, String> productFingerprints, Map<String, String> contentFingerprints,
+        Map<String, Boolean> cache) {
+
+        Boolean cached = cache.get(productId);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Consider the product changed while its children are checked, in case its tree is cyclic
+        cache.put(productId, false);
+
+        ProductInfo product = this.productMapper.getImportedEntity(productId);
+        String fingerprint = fingerprinter.fingerprint(product);
+
+        boolean unchanged = fingerprint != null && fingerprint.equals(productFingerprints.get(productId)) &&
+            getChildContentIds(product).allMatch(contentId -> {
+                String cfp = fingerprinter.fingerprint(this.contentMapper.getImportedEntity(contentId));
+                return cfp != null && cfp.equals(contentFingerprints.get(contentId));
+            }) &&
+            getChildProductIds(product).allMatch(childId -> this.isProductTreeUnchanged(childId,
+                fingerprinter, productFingerprints, contentFingerprints, cache));
+
+        cache.put(productId, unchanged);
+        return unchanged;
+    }
+
+    /**
+     * Adds the IDs of the imported product with the given ID, and of every product and content in
+     * its tree, to the given sets.
+     */
+    private void collectProductTree(String productId, Set<String> productIds, Set<String> contentIds) {
+        if (productId == null || !productIds.add(productId)) {
+            return;
+        }
+
+        ProductInfo product = this.productMapper.getImportedEntity(productId);
+        if (product != null) {
+            getChildContentIds(product).forEach(contentIds::add);
+            getChildProductIds(product).forEach(childId -> this.collectProductTree(childId, productIds,
+                contentIds));
+        }
+    }
+
+    private static Stream<String> getChildProductIds(ProductInfo product) {
+        Stream<? extends ProductInfo> provided = product.getProvidedProducts() != null ?
+            product.getProvidedProducts().stream() :
+            Stream.empty();
+
+        return Stream.concat(Stream.ofNullable(product.getDerivedProduct()), provided)
+            .filter(Objects::nonNull)
+            .map(ProductInfo::getId);
+    }
+
+    private static Stream<String> getChildContentIds(ProductInfo product) {
+        Collection<? extends ProductContentInfo> productContent = product.getProductContent();
+        if (productContent == null) {
+            return Stream.empty();
+        }
+
+        return productContent.stream()
+            .filter(Objects::nonNull)
+            .map(ProductContentInfo::getContent)
+            .filter(Objects::nonNull)
+            .map(ContentInfo::getId);
+    }
+
+    /**
+     * Fetches the IDs of the imported entities in the given mapper which have not been skipped.
+     */
+    private Set<String> getUnskippedEntityIds(EntityMapper<?, ?> mapper) {
+        Set<String> ids = new HashSet<>(mapper.getImportedEntities().keySet());
+        ids.removeAll(mapper.getSkippedEntityIds());
+
+        return ids;
+    }
+
+    /**
+     * Records the fingerprints of the imported products and content applied by this refresh on
+     * their entities, for those entities which do not already have the same fingerprint.
+     *
+     * @param result
+     *  the result of the refresh
+     *
+     * @param fingerprinter
+     *  the fingerprinter to use to compute fingerprints
+     */
+    private void updateFingerprints(RefreshResult result, Fingerprinter fingerprinter) {
+        List<EntityState> states = List.of(EntityState.CREATED, EntityState.UPDATED, EntityState.UNCHANGED);
+
+        Map<String, String> productFingerprints = new HashMap<>();
+        result.streamEntities(Product.class, states).forEach(entity -> {
+            ProductInfo imported = this.productMapper.getImportedEntity(entity.getId());
+            String fingerprint = fingerprinter.fingerprint(imported);
+            if (fingerprint != null && !fingerprint.equals(entity.getRefreshFingerprint())) {
+                productFingerprints.put(entity.getUuid(), fingerprint);
+            }
+        });
+
+        Map<String, String> contentFingerprints = new HashMap<>();
+        result.streamEntities(Content.class, states).forEach(entity -> {
+            ContentInfo imported = this.contentMapper.getImportedEntity(entity.getId());
+            String fingerprint = fingerprinter.fingerprint(imported);
+            if (fingerprint != null && !fingerprint.equals(entity.getRefreshFingerprint())) {
+                contentFingerprints.put(entity.getUuid(), fingerprint);
+            }
+        });
+
+        if (!productFingerprints.isEmpty() || !contentFingerprints.isEmpty()) {
+            // The fingerprints are written directly, so our changes must be in the database first
+            this.productCurator.flush();
+
+            this.productCurator.updateRefreshFingerprints(productFingerprints);
+            this.contentCurator.updateRefreshFingerprints(contentFingerprints);
+        }
+    }
+
     /**
      * Performs the import operation on the currently compiled objects
      *
@@ -416,13 +678,33 @@ public class RefreshWorker {
             this.productMapper.clearExistingEntities();
             this.contentMapper.clearExistingEntities();
 
+            this.poolMapper.clearSkippedEntityIds();
+            this.productMapper.clearSkippedEntityIds();
+            this.contentMapper.clearSkippedEntityIds();
+
+            // Skip anything which hasn't changed upstream since it was last refreshed before we
+            // start loading existing entities
+            Fingerprinter fingerprinter = new Fingerprinter();
+            Map<String, String> subscriptionFingerprints = this.getSubscriptionFingerprints(fingerprinter);
+            this.skipUnchangedEntities(owner, fingerprinter, subscriptionFingerprints);
+
             // Add in our existing entities
-            Collection<String> importedProductIds = this.productMapper.getImportedEntities().keySet();
-            Collection<String> importedContentIds = this.contentMapper.getImportedEntities().keySet();
+            Collection<String> importedProductIds = this.getUnskippedEntityIds(this.productMapper);
+            Collection<String> importedContentIds = this.getUnskippedEntityIds(this.contentMapper);
 
             log.debug("Adding existing subscriptions to mapper...");
-            List<Pool> pools = this.poolCurator
-                .listByOwnerAndTypes(owner.getId(), PoolType.NORMAL, PoolType.DEVELOPMENT);
+            List<Pool> pools;
+            if (this.poolMapper.getSkippedEntityIds().isEmpty()) {
+                pools = this.poolCurator
+                    .listByOwnerAndTypes(owner.getId(), PoolType.NORMAL, PoolType.DEVELOPMENT);
+            }
+            else {
+                // Impl note: pools for subscriptions which no longer exist upstream are not
+                // refreshed here, and are cleaned up by the pool manager.
+                pools = this.poolCurator.listByOwnerTypesAndSubscriptionIds(owner.getId(),
+                    this.getUnskippedEntityIds(this.poolMapper), PoolType.NORMAL, PoolType.DEVELOPMENT);
+            }
+
             this.mapExistingPools(pools);
 
             // Add globally namespaced products and content to refresh.
@@ -448,6 +730,19 @@ public class RefreshWorker {
             log.debug("Processing entity nodes...");
             RefreshResult result = nodeProcessor.processNodes();
 
+            // Record the fingerprints of the upstream products and content we've applied, and pass
+            // along those of the subscriptions for the pool manager to record once it has refreshed
+            // the pools
+            log.debug("Updating refresh fingerprints...");
+            this.updateFingerprints(result, fingerprinter);
+
+            subscriptionFingerprints.keySet().removeAll(this.poolMapper.getSkippedEntityIds());
+
+            result.addSkippedEntityIds(Pool.class, this.poolMapper.getSkippedEntityIds())
+                .addSkippedEntityIds(Product.class, this.productMapper.getSkippedEntityIds())
+                .addSkippedEntityIds(Content.class, this.contentMapper.getSkippedEntityIds())
+                .addFingerprints(Pool.class, subscriptionFingerprints);
+
             log.debug("Done. Returning refresh worker result");
             return result;
         });
@@ -45,6 +45,7 @@ public abstract class AbstractEntityMapper<E extends AbstractHibernateObject, I
 
     private Map<String, E> existingEntities;
     private Map<String, I> importedEntities;
+    private Set<String> skippedEntityIds;
 
     /**
      * Creates a new AbstractEntityMapper instance
@@ -52,6 +53,7 @@ public abstract class AbstractEntityMapper<E extends AbstractHibernateObject, I
     public AbstractEntityMapper() {
         this.existingEntities = new HashMap<>();
         this.importedEntities = new HashMap<>();
+        this.skippedEntityIds = new HashSet<>();
     }
 
     /**
@@ -103,10 +105,31 @@ public abstract class AbstractEntityMapper<E extends AbstractHibernateObject, I
 
         ids.addAll(this.existingEntities.keySet());
         ids.addAll(this.importedEntities.keySet());
+        ids.removeAll(this.skippedEntityIds);
 
         return ids;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public EntityMapper<E, I> addSkippedEntityIds(Collection<String> ids) {
+        if (ids != null) {
+            this.skippedEntityIds.addAll(ids);
+        }
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<String> getSkippedEntityIds() {
+        return this.skippedEntityIds;
+    }
+
     /**
      * Fetches the ID of the specified entity. If the given entity is null or does not have a
      * mappable ID, this method should throw an exception.
@@ -204,6 +227,7 @@ public abstract class AbstractEntityMapper<E extends AbstractHibernateObject, I
     public void clear() {
         this.clearExistingEntities();
         this.clearImportedEntities();
+        this.clearSkippedEntityIds();
     }
 
     /**
@@ -221,4 +245,12 @@ public abstract class AbstractEntityMapper<E extends AbstractHibernateObject, I
     public void clearImportedEntities() {
         this.importedEntities.clear();
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearSkippedEntityIds() {
+        this.skippedEntityIds.clear();
+    }
 }
@@ -93,13 +93,33 @@ public interface EntityMapper<E extends AbstractHibernateObject, I extends Servi
 
     /**
      * Fetches a set containing all known IDs which are mapped to an existing entity or an imported
-     * entity.
+     * entity, and which have not been flagged as skipped.
      *
      * @return
      *  the set of all known entity IDs
      */
     Set<String> getEntityIds();
 
+    /**
+     * Flags the given entity IDs as skipped, omitting them from the IDs returned by getEntityIds.
+     * Skipped entities remain mapped, and may still be fetched by ID.
+     *
+     * @param ids
+     *  a collection of IDs of the entities to skip
+     *
+     * @return
+     *  a reference to this entity mapper
+     */
+    EntityMapper<E, I> addSkippedEntityIds(Collection<String> ids);
+
+    /**
+     * Fetches a set containing the IDs of the entities which have been flagged as skipped.
+     *
+     * @return
+     *  the set of skipped entity IDs
+     */
+    Set<String> getSkippedEntityIds();
+
     /**
      * Fetches a map containing all known existing database entities, mapped by entity ID.
      *
@@ -179,7 +199,8 @@ public interface EntityMapper<E extends AbstractHibernateObject, I extends Servi
     EntityMapper<E, I> addImportedEntities(Collection<? extends I> entities);
 
     /**
-     * Clears this entity mapper, removing all known existing and imported entities
+     * Clears this entity mapper, removing all known existing and imported entities, and any skipped
+     * entity IDs
      */
     void clear();
 
@@ -193,4 +214,9 @@ public interface EntityMapper<E extends AbstractHibernateObject, I extends Servi
      * Clears any imported entities from this mapper
      */
     void clearImportedEntities();
+
+    /**
+     * Clears any skipped entity IDs from this mapper
+     */
+    void clearSkippedEntityIds();
 }
@@ -22,9 +22,12 @@ import org.candlepin.audit.ActiveMQContextListener;
 import org.candlepin.config.ConfigProperties;
 import org.candlepin.config.Configuration;
 import org.candlepin.config.RyeConfig;
+import org.candlepin.controller.ConsumerCheckInRecorder;
 import org.candlepin.logging.LoggerContextListener;
 import org.candlepin.logging.LoggingConfigurator;
 import org.candlepin.messaging.CPMContextListener;
+import org.candlepin.pki.PKIUtility;
+import org.candlepin.pki.impl.CertificateSigningPool;
 import org.candlepin.resteasy.MethodLocator;
 import org.candlepin.resteasy.ResourceLocatorMap;
 
@@ -252,6 +255,13 @@ public class CandlepinContextListener extends GuiceResteasyBootstrapServletConte
         // Tear down the job system
         this.jobManager.shutdown();
 
+        // Write out any check-ins which have not yet been flushed
+        injector.getInstance(ConsumerCheckInRecorder.class).shutdown();
+
+        // Stop any background key generation
+        injector.getInstance(PKIUtility.class).shutdown();
+        injector.getInstance(CertificateSigningPool.class).shutdown();
+
         injector.getInstance(PersistService.class).stop();
         // deregister jdbc driver to avoid warning in tomcat shutdown log
         Enumeration<Driver> drivers = DriverManager.getDrivers();
@@ -44,6 +44,17 @@ public class CandlepinRequestScope implements Scope {
         ResteasyContext.popContextData(CandlepinRequestScopeData.class);
     }
 
+    /**
+     * Checks whether or not the current thread is within a scoping block, in which case scoped
+     * objects may be accessed.
+     *
+     * @return
+     *  true if the scope is active on the current thread; false otherwise
+     */
+    public boolean isActive() {
+        return ResteasyContext.getContextData(CandlepinRequestScopeData.class) != null;
+    }
+
     public <T> Provider<T> scope(final Key<T> key, final Provider<T> unscoped) {
         return new Provider<T>() {
             public T get() {
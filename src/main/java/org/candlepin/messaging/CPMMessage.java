@@ -68,6 +68,37 @@ public interface CPMMessage {
      */
     boolean isDurable();
 
+    /**
+     * Sets the time at which this message is to be delivered. Until then, the message is held by
+     * the messaging provider and cannot be received by any consumer.
+     *
+     * @param time
+     *  the time at which to deliver this message, in milliseconds since the epoch, or zero to
+     *  deliver the message as soon as it is sent
+     *
+     * @return
+     *  a reference to this message
+     */
+    CPMMessage setScheduledDeliveryTime(long time);
+
+    /**
+     * Fetches the time at which this message is to be delivered. If the message is to be delivered
+     * as soon as it is sent, this method returns zero.
+     *
+     * @return
+     *  the time at which this message is to be delivered, or zero if its delivery is not scheduled
+     */
+    long getScheduledDeliveryTime();
+
+    /**
+     * Fetches the time at which this message was sent, in milliseconds since the epoch. If the time
+     * is not known, this method returns zero.
+     *
+     * @return
+     *  the time at which this message was sent, or zero if the time is not known
+     */
+    long getTimestamp();
+
 
     // Message details
     /**
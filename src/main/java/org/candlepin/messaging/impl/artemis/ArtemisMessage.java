@@ -19,6 +19,7 @@ import org.candlepin.messaging.CPMMessage;
 
 import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
 import org.apache.activemq.artemis.api.core.ActiveMQException;
+import org.apache.activemq.artemis.api.core.Message;
 import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.api.core.client.ClientMessage;
 
@@ -108,6 +109,39 @@ public class ArtemisMessage implements CPMMessage {
         return this.message.isDurable();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CPMMessage setScheduledDeliveryTime(long time) {
+        if (time > 0) {
+            this.message.putLongProperty(Message.HDR_SCHEDULED_DELIVERY_TIME, time);
+        }
+        else {
+            this.message.removeProperty(Message.HDR_SCHEDULED_DELIVERY_TIME);
+        }
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getScheduledDeliveryTime() {
+        return this.message.containsProperty(Message.HDR_SCHEDULED_DELIVERY_TIME) ?
+            this.message.getLongProperty(Message.HDR_SCHEDULED_DELIVERY_TIME) :
+            0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getTimestamp() {
+        return this.message.getTimestamp();
+    }
+
     // CPMMessage setExpiration(long duration);
 
     // boolean hasExpired();
@@ -19,8 +19,10 @@ import org.candlepin.auth.permissions.Permission;
 import org.candlepin.config.Configuration;
 import org.candlepin.config.DatabaseConfigFactory;
 import org.candlepin.exceptions.ConcurrentModificationException;
+import org.candlepin.guice.CandlepinRequestScope;
 import org.candlepin.guice.PrincipalProvider;
 import org.candlepin.paging.Page;
+import org.candlepin.paging.PageCursor;
 import org.candlepin.paging.PageRequest;
 
 import com.google.common.collect.Iterables;
@@ -52,13 +54,17 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.function.Function;
 
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
@@ -70,6 +76,7 @@ import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.From;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 
@@ -90,6 +97,8 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
     @Inject protected Provider<I18n> i18nProvider;
     @Inject protected Configuration config;
     @Inject private PrincipalProvider principalProvider;
+    @Inject private Provider<EntityIdentityMap> identityMapProvider;
+    @Inject private CandlepinRequestScope requestScope;
 
     private final Class<E> entityType;
     private NaturalIdLoadAccess<E> natIdLoader;
@@ -150,7 +159,56 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
      */
     @Transactional
     public E secureGet(Serializable id) {
-        return id == null ? null : secureGet(entityType, id);
+        if (id == null) {
+            return null;
+        }
+
+        String key = id.toString();
+
+        E entity = this.getResolved(this.entityType, key, Persisted::getId);
+        if (entity == null) {
+            entity = secureGet(this.entityType, id);
+            this.putResolved(this.entityType, key, entity);
+        }
+
+        return entity;
+    }
+
+    /**
+     * Fetches the entities with the given IDs, as {@link #secureGet(Serializable)} would for each
+     * of them, using a single query for all of the entities not already resolved in this request.
+     *
+     * @param ids
+     *  the IDs of the entities to fetch
+     *
+     * @return
+     *  a list of the entities found with the given IDs; may be empty
+     */
+    @Transactional
+    public List<E> secureGetAll(Collection<String> ids) {
+        List<E> entities = new ArrayList<>();
+        Set<String> unresolved = new LinkedHashSet<>();
+
+        if (ids != null) {
+            for (String id : new LinkedHashSet<>(ids)) {
+                E entity = this.getResolved(this.entityType, id, Persisted::getId);
+                if (entity != null) {
+                    entities.add(entity);
+                }
+                else if (id != null) {
+                    unresolved.add(id);
+                }
+            }
+        }
+
+        if (!unresolved.isEmpty()) {
+            for (E entity : this.listAllByIds(unresolved).list()) {
+                this.putResolved(this.entityType, entity.getId().toString(), entity);
+                entities.add(entity);
+            }
+        }
+
+        return entities;
     }
 
     @Transactional
@@ -338,7 +396,7 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
         return query.getResultList();
     }
 
-    private Order createPagingOrder(PageRequest p) {
+    protected Order createPagingOrder(PageRequest p) {
         String sortBy = (p.getSortBy() == null) ? PageRequest.DEFAULT_SORT_FIELD : p.getSortBy();
         PageRequest.Order order = (p.getOrder() == null) ? PageRequest.DEFAULT_ORDER : p.getOrder();
 
@@ -447,6 +505,72 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
         return this.principalProvider.get();
     }
 
+    /**
+     * Fetches the identity map for the current request, or null if there is no request scope, in
+     * which case entities are looked up without it.
+     *
+     * @return
+     *  the identity map for the current request, or null if there is no request scope
+     */
+    protected EntityIdentityMap getIdentityMap() {
+        // Impl note: the scope is checked up front rather than by catching the exception thrown
+        // when it is inactive, as Guice wraps that exception along with any other provisioning
+        // failure, which must not be hidden.
+        return this.requestScope.isActive() ? this.identityMapProvider.get() : null;
+    }
+
+    /**
+     * Fetches the entity of the given type resolved earlier in this request by the given key, if it
+     * is still valid for this lookup. An entity whose key has changed since it was resolved is
+     * dropped from the identity map.
+     *
+     * @param type
+     *  the type of entity to fetch
+     *
+     * @param key
+     *  the key by which the entity was resolved
+     *
+     * @param keyGetter
+     *  a function fetching the current value of the key from the entity
+     *
+     * @return
+     *  the entity resolved by the given key, or null if it must be looked up
+     */
+    protected <T> T getResolved(Class<T> type, String key, Function<T, ?> keyGetter) {
+        EntityIdentityMap identityMap = this.getIdentityMap();
+        if (identityMap == null || key == null) {
+            return null;
+        }
+
+        T entity = identityMap.get(type, key, this.currentSession(), this.getPrincipal());
+        if (entity != null && !key.equals(String.valueOf(keyGetter.apply(entity)))) {
+            identityMap.remove(type, key);
+            return null;
+        }
+
+        return entity;
+    }
+
+    /**
+     * Records the entity of the given type resolved by the given key in the identity map of the
+     * current request, if any.
+     *
+     * @param type
+     *  the type of the entity
+     *
+     * @param key
+     *  the key by which the entity was resolved
+     *
+     * @param entity
+     *  the resolved entity; null entities are not recorded
+     */
+    protected <T> void putResolved(Class<T> type, String key, T entity) {
+        EntityIdentityMap identityMap = this.getIdentityMap();
+        if (identityMap != null) {
+            identityMap.put(type, key, entity, this.getPrincipal());
+        }
+    }
+
     /**
      * Gives the permissions a chance to add aliases and then restrictions to the query.
      * Uses an "or" so a principal could carry permissions for multiple owners
@@ -772,6 +896,27 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
         }
     }
 
+    /**
+     * Flushes the current session, sending its statements to the database in JDBC batches of up to
+     * the configured batch block size. Batching is scoped to this flush rather than enabled for
+     * every session, so it is only used by operations which know they are writing many rows.
+     * <p></p>
+     * Statements are only batched together while they target the same table, so callers should
+     * persist or update their entities grouped by type.
+     */
+    public void flushInBatches() {
+        Session session = this.currentSession();
+        Integer jdbcBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(this.getBatchBlockSize());
+
+        try {
+            this.flush();
+        }
+        finally {
+            session.setJdbcBatchSize(jdbcBatchSize);
+        }
+    }
+
     public void clear() {
         try {
             getEntityManager().clear();
@@ -1483,4 +1628,132 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
 
         return orderList;
     }
+
+    /**
+     * Builds a predicate which restricts the query to the results following the cursor set in the
+     * given query arguments. The predicate seeks past the cursor's sort key, using the ID to break
+     * ties, so the query should also be ordered on the cursor's sort field followed by the ID. The
+     * results are restricted to the cursor's segment: either the results with a null sort key, or
+     * those with a sort key. If the query arguments do not define a cursor, this method returns null.
+     *
+     * @param criteriaBuilder
+     *  the criteria builder to use to build the predicate
+     *
+     * @param root
+     *  the root of the query to restrict
+     *
+     * @param queryArguments
+     *  the query arguments defining the cursor
+     *
+     * @throws InvalidOrderKeyException
+     *  if the cursor's sort field is not an attribute of the root, or its sort key cannot be
+     *  converted to the attribute's type
+     *
+     * @return
+     *  a predicate restricting the query to the results following the cursor, or null if no cursor
+     *  was provided
+     */
+    @SuppressWarnings("unchecked")
+    protected Predicate buildJPACursorPredicate(CriteriaBuilder criteriaBuilder, Root<?> root,
+        QueryArguments<?> queryArguments) {
+
+        PageCursor cursor = queryArguments != null ? queryArguments.getCursor() : null;
+        if (cursor == null) {
+            return null;
+        }
+
+        Path<Comparable<Object>> key;
+        Path<String> id;
+
+        try {
+            key = root.get(cursor.getSortBy());
+            id = root.get(PageCursor.ID_FIELD);
+        }
+        catch (IllegalArgumentException e) {
+            String errmsg = String.format("Invalid attribute key: %s", cursor.getSortBy());
+            throw new InvalidOrderKeyException(errmsg, e);
+        }
+
+        boolean descending = cursor.getOrder() == PageRequest.Order.DESCENDING;
+
+        // Elements with a null sort key are paged separately, ordered by ID alone, so each query
+        // stays within a single segment and never depends on where the database orders nulls
+        if (cursor.isNullKeySegment()) {
+            Predicate isNull = criteriaBuilder.isNull(key);
+            if (cursor.getId() == null) {
+                return isNull;
+            }
+
+            return criteriaBuilder.and(isNull, descending ?
+                criteriaBuilder.lessThan(id, cursor.getId()) :
+                criteriaBuilder.greaterThan(id, cursor.getId()));
+        }
+
+        if (cursor.getId() == null) {
+            return criteriaBuilder.isNotNull(key);
+        }
+
+        Comparable<Object> value = (Comparable<Object>) this.toAttributeValue(cursor.getSortValue(),
+            key.getJavaType(), cursor.getSortBy());
+
+        if (descending) {
+            return criteriaBuilder.or(criteriaBuilder.lessThan(key, value), criteriaBuilder.and(
+                criteriaBuilder.equal(key, value), criteriaBuilder.lessThan(id, cursor.getId())));
+        }
+
+        return criteriaBuilder.or(criteriaBuilder.greaterThan(key, value), criteriaBuilder.and(
+            criteriaBuilder.equal(key, value), criteriaBuilder.greaterThan(id, cursor.getId())));
+    }
+
+    /**
+     * Converts a normalized cursor sort key back to the type of the attribute it was read from.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Object toAttributeValue(Object value, Class<?> type, String attribute) {
+        if (value == null) {
+            String errmsg = String.format("Cursor has no value for attribute: %s", attribute);
+            throw new InvalidOrderKeyException(errmsg);
+        }
+
+        if (type.isInstance(value)) {
+            return value;
+        }
+
+        if (value instanceof Number) {
+            Number number = (Number) value;
+
+            if (type == Integer.class || type == int.class) {
+                return number.intValue();
+            }
+            else if (type == Long.class || type == long.class) {
+                return number.longValue();
+            }
+            else if (type == Short.class || type == short.class) {
+                return number.shortValue();
+            }
+            else if (type == Double.class || type == double.class) {
+                return number.doubleValue();
+            }
+            else if (type == Float.class || type == float.class) {
+                return number.floatValue();
+            }
+        }
+        else if (value instanceof String && type.isEnum()) {
+            try {
+                return Enum.valueOf((Class<Enum>) type, (String) value);
+            }
+            catch (IllegalArgumentException e) {
+                // Handled below
+            }
+        }
+        else if (value instanceof Boolean && type == boolean.class) {
+            return value;
+        }
+        else if (value instanceof Date && Date.class.isAssignableFrom(type)) {
+            return value;
+        }
+
+        String errmsg = String.format("Cursor value cannot be converted for attribute: %s", attribute);
+        throw new InvalidOrderKeyException(errmsg);
+    }
 }
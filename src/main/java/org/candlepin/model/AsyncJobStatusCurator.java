@@ -16,6 +16,8 @@ package org.candlepin.model;
 
 import org.candlepin.model.AsyncJobStatus.JobState;
 
+import com.google.inject.persist.Transactional;
+
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 
@@ -23,12 +25,15 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import javax.inject.Singleton;
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaDelete;
@@ -423,6 +428,31 @@ public class AsyncJobStatusCurator extends AbstractHibernateCurator<AsyncJobStat
         return 0;
     }
 
+    /**
+     * Sets the result of the specified job without loading or merging the job. As the job's version
+     * is not incremented, this is safe to use while the job is executing, such as for reporting its
+     * progress, without conflicting with later updates to the job's state.
+     *
+     * @param jobId
+     *  the ID of the job to update
+     *
+     * @param result
+     *  the serialized result to set for the job
+     *
+     * @return
+     *  the number of jobs updated as a result of a call to this method
+     */
+    @Transactional
+    public int updateJobResult(String jobId, String result) {
+        String jpql = "UPDATE AsyncJobStatus SET result = :result WHERE id = :job_id";
+
+        return this.getEntityManager()
+            .createQuery(jpql)
+            .setParameter("result", result)
+            .setParameter("job_id", jobId)
+            .executeUpdate();
+    }
+
     /**
      * Builds a collection of predicates to be used for querying jobs using the JPA criteria query
      * API.
@@ -522,25 +552,87 @@ public class AsyncJobStatusCurator extends AbstractHibernateCurator<AsyncJobStat
      *  arguments
      */
     public List<String> fetchJobIdsByArguments(String jobKey, Map<String, String> arguments) {
-        if (jobKey == null || jobKey.isEmpty()) {
-            throw new IllegalArgumentException("jobKey is null or empty");
-        }
+        Collection<JobState> states = Arrays.stream(JobState.values())
+            .filter(s -> !s.isTerminal())
+            .collect(Collectors.toSet());
 
-        EntityManager entityManager = this.getEntityManager();
-        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaBuilder criteriaBuilder = this.getEntityManager().getCriteriaBuilder();
         CriteriaQuery<String> query = criteriaBuilder.createQuery(String.class);
         Root<AsyncJobStatus> job = query.from(AsyncJobStatus.class);
 
+        List<Predicate> predicates = this.buildArgumentPredicates(criteriaBuilder, job, jobKey, states,
+            arguments);
+
+        query.select(job.get(AsyncJobStatus_.id));
+
+        Predicate[] predicateArray = new Predicate[predicates.size()];
+        query.where(predicates.toArray(predicateArray));
+
+        return this.getEntityManager()
+            .createQuery(query)
+            .getResultList();
+    }
+
+    /**
+     * Fetches and locks the jobs matching the given job key and having all of the provided job
+     * arguments with the specified values, which have not yet started executing. That is, jobs in
+     * the QUEUED or WAITING states. The jobs are returned in the order they were created.
+     * <p></p>
+     * This method is designed specifically for job coalescing, and should be called from within a
+     * transaction.
+     *
+     * @param jobKey
+     *  the job key to restrict
+     *
+     * @param arguments
+     *  a map containing the arguments to use for filtering jobs; cannot contain more than
+     *  10 entries
+     *
+     * @throws IllegalArgumentException
+     *  if jobKey is null or empty, or the arguments map is too large
+     *
+     * @return
+     *  A list of pending jobs matching the given job key and using the specified arguments
+     */
+    public List<AsyncJobStatus> fetchPendingJobsByArguments(String jobKey, Map<String, String> arguments) {
+        Collection<JobState> states = Arrays.asList(JobState.QUEUED, JobState.WAITING);
+
+        CriteriaBuilder criteriaBuilder = this.getEntityManager().getCriteriaBuilder();
+        CriteriaQuery<AsyncJobStatus> query = criteriaBuilder.createQuery(AsyncJobStatus.class);
+        Root<AsyncJobStatus> job = query.from(AsyncJobStatus.class);
+
+        List<Predicate> predicates = this.buildArgumentPredicates(criteriaBuilder, job, jobKey, states,
+            arguments);
+
+        query.select(job);
+
+        Predicate[] predicateArray = new Predicate[predicates.size()];
+        query.where(predicates.toArray(predicateArray));
+        query.orderBy(criteriaBuilder.asc(job.get(AsyncJobStatus_.created)));
+
+        return this.getEntityManager()
+            .createQuery(query)
+            .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+            .getResultList();
+    }
+
+    /**
+     * Builds the predicates restricting a job query to jobs with the given key, in any of the given
+     * states, and having all of the provided job arguments with the specified values.
+     */
+    private List<Predicate> buildArgumentPredicates(CriteriaBuilder criteriaBuilder, Root<AsyncJobStatus> job,
+        String jobKey, Collection<JobState> states, Map<String, String> arguments) {
+
+        if (jobKey == null || jobKey.isEmpty()) {
+            throw new IllegalArgumentException("jobKey is null or empty");
+        }
+
         List<Predicate> predicates = new ArrayList<>();
 
         // Add the job key restriction
         predicates.add(criteriaBuilder.equal(job.get(AsyncJobStatus_.jobKey), jobKey));
 
-        // Add the non-terminal state restriction
-        Collection<JobState> states = Arrays.stream(JobState.values())
-            .filter(s -> !s.isTerminal())
-            .collect(Collectors.toSet());
-
+        // Add the state restriction
         predicates.add(job.get(AsyncJobStatus_.state).in(states));
 
         // Add the argument restrictions if necessary
@@ -562,13 +654,89 @@ public class AsyncJobStatusCurator extends AbstractHibernateCurator<AsyncJobStat
             }
         }
 
-        query.select(job.get(AsyncJobStatus_.id));
+        return predicates;
+    }
 
-        Predicate[] predicateArray = new Predicate[predicates.size()];
-        query.where(predicates.toArray(predicateArray));
+    /**
+     * Locks the jobs with the given IDs which have not yet reached a terminal state, and returns
+     * their IDs. The jobs are locked for reading, such that they cannot change state until the
+     * current transaction completes. Jobs which have already reached a terminal state, or which
+     * no longer exist, are neither locked nor returned.
+     * <p></p>
+     * This method should be called from within a transaction.
+     *
+     * @param jobIds
+     *  a collection of IDs of the jobs to lock
+     *
+     * @return
+     *  a set containing the IDs of the given jobs which have not yet reached a terminal state
+     */
+    public Set<String> lockActiveJobs(Collection<String> jobIds) {
+        Set<String> active = new HashSet<>();
 
-        return this.getEntityManager()
-            .createQuery(query)
+        if (jobIds == null || jobIds.isEmpty()) {
+            return active;
+        }
+
+        Collection<JobState> states = Arrays.stream(JobState.values())
+            .filter(s -> !s.isTerminal())
+            .collect(Collectors.toSet());
+
+        String jpql = "SELECT aj FROM AsyncJobStatus aj WHERE aj.id IN (:job_ids) AND aj.state IN (:states)";
+
+        for (List<String> block : this.partition(jobIds)) {
+            this.getEntityManager()
+                .createQuery(jpql, AsyncJobStatus.class)
+                .setParameter("job_ids", block)
+                .setParameter("states", states)
+                .setLockMode(LockModeType.PESSIMISTIC_READ)
+                .getResultList()
+                .forEach(job -> active.add(job.getId()));
+        }
+
+        return active;
+    }
+
+    /**
+     * Fetches and locks the jobs in the WAITING state which are no longer blocked by any job in a
+     * non-terminal state. Jobs whose blocking jobs have since been deleted are also considered
+     * released. If a blocking job ID is provided, only jobs blocked by that job are considered. The
+     * jobs are returned in the order they were created.
+     * <p></p>
+     * This method should be called from within a transaction.
+     *
+     * @param blockingJobId
+     *  the ID of the job whose waiting jobs should be considered, or null to consider all waiting
+     *  jobs
+     *
+     * @return
+     *  A list of waiting jobs which may be released for execution
+     */
+    public List<AsyncJobStatus> fetchReleasableJobs(String blockingJobId) {
+        Collection<JobState> states = Arrays.stream(JobState.values())
+            .filter(s -> !s.isTerminal())
+            .collect(Collectors.toSet());
+
+        StringBuilder jpql = new StringBuilder("SELECT aj FROM AsyncJobStatus aj WHERE aj.state = :waiting ");
+
+        if (blockingJobId != null) {
+            jpql.append("AND :blocking_job_id MEMBER OF aj.blockingJobIds ");
+        }
+
+        jpql.append("AND NOT EXISTS (SELECT blocker.id FROM AsyncJobStatus blocker ")
+            .append("WHERE blocker.id MEMBER OF aj.blockingJobIds AND blocker.state IN (:states)) ")
+            .append("ORDER BY aj.created ASC");
+
+        TypedQuery<AsyncJobStatus> query = this.getEntityManager()
+            .createQuery(jpql.toString(), AsyncJobStatus.class)
+            .setParameter("waiting", JobState.WAITING)
+            .setParameter("states", states);
+
+        if (blockingJobId != null) {
+            query.setParameter("blocking_job_id", blockingJobId);
+        }
+
+        return query.setLockMode(LockModeType.PESSIMISTIC_WRITE)
             .getResultList();
     }
 
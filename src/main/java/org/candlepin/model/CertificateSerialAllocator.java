@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.model;
+
+import java.security.SecureRandom;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+
+/**
+ * Hands out certificate serials from blocks of serials reserved ahead of time. Serials are taken
+ * from the current block without locking; only the thread which exhausts a block waits while the
+ * next one is reserved.
+ * <p>
+ * Blocks are aligned to the block size and chosen at random, so nodes sharing a database are
+ * unlikely to contend for the same block. The reservation itself is what guarantees that no two
+ * nodes use the same block.
+ * <p>
+ * Within a block, serials are handed out in the order of a permutation keyed at random for each
+ * block, rather than consecutively. This is weaker than drawing each serial at random: a serial
+ * reveals its block, so the next serials are known to be among those remaining in the block,
+ * although not which of them comes next.
+ */
+public class CertificateSerialAllocator {
+
+    /**
+     * Reserves a block of serials for the exclusive use of this allocator.
+     */
+    @FunctionalInterface
+    public interface BlockReservation {
+        /**
+         * Attempts to reserve the block of serials starting at the given serial.
+         *
+         * @param blockStart
+         *  the first serial in the block
+         *
+         * @param blockSize
+         *  the number of serials in the block
+         *
+         * @return
+         *  true if the block was reserved; false if it is already in use
+         */
+        boolean reserve(long blockStart, int blockSize);
+    }
+
+    /** The number of random blocks to try before giving up on a reservation */
+    private static final int MAX_RESERVATION_ATTEMPTS = 10;
+
+    private final int blockSize;
+    private final Random random;
+    private final AtomicReference<SerialBlock> current;
+
+    public CertificateSerialAllocator(int blockSize) {
+        this(blockSize, new SecureRandom());
+    }
+
+    public CertificateSerialAllocator(int blockSize, Random random) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize must be a positive integer");
+        }
+
+        this.blockSize = blockSize;
+        this.random = Objects.requireNonNull(random);
+        this.current = new AtomicReference<>(SerialBlock.EXHAUSTED);
+    }
+
+    public int getBlockSize() {
+        return this.blockSize;
+    }
+
+    /**
+     * Fetches the next serial, reserving a new block with the given reservation if the current
+     * block has been exhausted.
+     *
+     * @param reservation
+     *  the reservation to use if a new block is required
+     *
+     * @throws IllegalStateException
+     *  if a new block is required but one could not be reserved
+     *
+     * @return
+     *  the next available serial
+     */
+    public long next(BlockReservation reservation) {
+        Objects.requireNonNull(reservation);
+
+        while (true) {
+            SerialBlock block = this.current.get();
+
+            long serial = block.next();
+            if (serial >= 0) {
+                return serial;
+            }
+
+            this.refill(block, reservation);
+        }
+    }
+
+    /**
+     * Replaces the given exhausted block with a newly reserved one, unless another thread has
+     * already done so.
+     */
+    private synchronized void refill(SerialBlock exhausted, BlockReservation reservation) {
+        if (this.current.get() != exhausted) {
+            return;
+        }
+
+        // Block indexes start at 1, so no serial is ever zero, and stop short of overflowing
+        long blocks = Long.MAX_VALUE / this.blockSize;
+
+        for (int attempt = 0; attempt < MAX_RESERVATION_ATTEMPTS; ++attempt) {
+            long index = 1 + Math.floorMod(this.random.nextLong(), blocks - 1);
+            long start = index * this.blockSize;
+
+            if (reservation.reserve(start, this.blockSize)) {
+                this.current.set(new SerialBlock(start, this.blockSize, this.random));
+                return;
+            }
+        }
+
+        throw new IllegalStateException("Unable to reserve a block of certificate serials after " +
+            MAX_RESERVATION_ATTEMPTS + " attempts");
+    }
+
+    /**
+     * A range of reserved serials, consumed in a random order
+     */
+    private static final class SerialBlock {
+        private static final SerialBlock EXHAUSTED = new SerialBlock(0, 0, new Random(0));
+
+        /** The number of Feistel rounds used to permute a block */
+        private static final int ROUNDS = 4;
+
+        private final long start;
+        private final int size;
+        private final int halfBits;
+        private final long halfMask;
+        private final long[] keys;
+        private final AtomicInteger cursor;
+
+        private SerialBlock(long start, int size, Random random) {
+            this.start = start;
+            this.size = size;
+
+            // The permutation works on the smallest domain of an even number of bits covering the
+            // block; positions outside of the block are skipped by walking the permutation's cycle
+            int bits = Math.max(2, Integer.SIZE - Integer.numberOfLeadingZeros(Math.max(size - 1, 1)));
+            this.halfBits = (bits + 1) / 2;
+            this.halfMask = (1L << this.halfBits) - 1;
+
+            this.keys = new long[ROUNDS];
+            for (int round = 0; round < ROUNDS; ++round) {
+                this.keys[round] = random.nextLong();
+            }
+
+            this.cursor = new AtomicInteger();
+        }
+
+        /**
+         * Returns the next serial in this block, or -1 if the block has been exhausted.
+         */
+        public long next() {
+            int index = this.cursor.getAndIncrement();
+            if (index < 0 || index >= this.size) {
+                return -1;
+            }
+
+            long offset = index;
+            do {
+                offset = this.permute(offset);
+            }
+            while (offset >= this.size);
+
+            return this.start + offset;
+        }
+
+        /**
+         * Maps a position to another in a balanced Feistel network keyed by this block's keys.
+         */
+        private long permute(long value) {
+            long left = value >>> this.halfBits;
+            long right = value & this.halfMask;
+
+            for (long key : this.keys) {
+                long mixed = left ^ (mix(key ^ right) & this.halfMask);
+                left = right;
+                right = mixed;
+            }
+
+            return (left << this.halfBits) | right;
+        }
+
+        /**
+         * Scrambles the bits of the given value; this is the finalizer of the SplitMix64 generator.
+         */
+        private static long mix(long value) {
+            value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+            value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+            return value ^ (value >>> 31);
+        }
+    }
+}
@@ -16,15 +16,50 @@ package org.candlepin.model;
 
 import org.candlepin.util.Util;
 
+import org.hibernate.HibernateException;
 import org.hibernate.engine.spi.SharedSessionContractImplementor;
 import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.jdbc.AbstractReturningWork;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 
 /**
  * CertificationSerial object ID generator
+ * <p>
+ * Serials are allocated from blocks reserved in the cp_cert_serial_block table, so they are
+ * assigned without a round trip to the database and may be inserted in JDBC batches alongside the
+ * certificates which use them. Hibernate creates a single generator per session factory, so all
+ * sessions in a node share the current block.
  */
 public class CertificateSerialIdGenerator implements IdentifierGenerator {
+    private static final Logger log = LoggerFactory.getLogger(CertificateSerialIdGenerator.class);
+
+    /** The number of serials reserved at a time; changing this requires a new reservation table */
+    public static final int BLOCK_SIZE = 1024;
+
+    private static final String RESERVE_BLOCK_SQL = "INSERT INTO cp_cert_serial_block " +
+        "(block_start, block_size, node, created) VALUES (?, ?, ?, ?)";
+
+    private static final String CHECK_BLOCK_SQL = "SELECT COUNT(*) FROM cp_cert_serial_block " +
+        "WHERE block_start = ?";
+
+    private static final String CHECK_SERIALS_SQL = "SELECT COUNT(*) FROM " + CertificateSerial.DB_TABLE +
+        " WHERE id >= ? AND id < ?";
+
+    private final CertificateSerialAllocator allocator;
+    private final String node;
+
+    public CertificateSerialIdGenerator() {
+        this.allocator = new CertificateSerialAllocator(BLOCK_SIZE);
+        this.node = fetchNodeName();
+    }
 
     @Override
     public Serializable generate(SharedSessionContractImplementor session, Object object) {
@@ -36,7 +71,78 @@ public class CertificateSerialIdGenerator implements IdentifierGenerator {
             }
         }
 
-        return Util.generateUniqueLong();
+        return this.allocator.next((start, size) -> this.reserveBlock(session, start, size));
+    }
+
+    /**
+     * Reserves a block of serials in a transaction of its own, so the reservation is visible to
+     * other nodes immediately and survives a rollback of the transaction creating the serial.
+     */
+    private boolean reserveBlock(SharedSessionContractImplementor session, long start, int size) {
+        try {
+            // Serials issued before blocks were reserved were random, and may fall in any block. This
+            // is checked on the session's own connection, as it may have serials of its own pending.
+            boolean used = session.doReturningWork(connection ->
+                this.exists(connection, CHECK_SERIALS_SQL, start, start + size));
+
+            if (used) {
+                log.debug("Certificate serial block starting at {} contains existing serials", start);
+                return false;
+            }
+
+            return session.getTransactionCoordinator()
+                .createIsolationDelegate()
+                .delegateWork(new AbstractReturningWork<Boolean>() {
+                    @Override
+                    public Boolean execute(Connection connection) throws SQLException {
+                        return insertBlock(connection, start, size);
+                    }
+                }, true);
+        }
+        catch (HibernateException e) {
+            // Most likely another node reserved the block between our check and insert
+            log.warn("Unable to reserve certificate serial block starting at {}", start, e);
+            return false;
+        }
+    }
 
+    private boolean insertBlock(Connection connection, long start, int size) throws SQLException {
+        if (this.exists(connection, CHECK_BLOCK_SQL, start)) {
+            log.debug("Certificate serial block starting at {} is already reserved", start);
+            return false;
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(RESERVE_BLOCK_SQL)) {
+            statement.setLong(1, start);
+            statement.setInt(2, size);
+            statement.setString(3, this.node);
+            statement.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+            statement.executeUpdate();
+        }
+
+        log.debug("Reserved certificate serial block starting at {} for node {}", start, this.node);
+        return true;
+    }
+
+    private boolean exists(Connection connection, String sql, long... params) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; ++i) {
+                statement.setLong(i + 1, params[i]);
+            }
+
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() && result.getLong(1) > 0;
+            }
+        }
+    }
+
+    private static String fetchNodeName() {
+        try {
+            return Util.getHostname();
+        }
+        catch (RuntimeException e) {
+            log.warn("Unable to determine hostname for certificate serial block reservations", e);
+            return null;
+        }
     }
 }
@@ -19,7 +19,11 @@ import org.candlepin.exceptions.DuplicateEntryException;
 import org.candlepin.service.model.ConsumerInfo;
 import org.candlepin.util.Util;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.Hibernate;
 import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.Cascade;
 import org.hibernate.annotations.Fetch;
@@ -27,6 +31,7 @@ import org.hibernate.annotations.FetchMode;
 import org.hibernate.annotations.GenericGenerator;
 import org.hibernate.annotations.Type;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -253,6 +258,12 @@ public class Consumer extends AbstractHibernateObject<Consumer> implements Linka
     @Cascade({org.hibernate.annotations.CascadeType.ALL})
     private Map<String, String> facts;
 
+    // The fingerprint of the facts above, maintained alongside them so an upload of unchanged facts
+    // can be detected without loading the fact collection. Null for consumers whose facts have not
+    // been set since fingerprints were introduced.
+    @Column(name = "facts_fingerprint", length = 64)
+    private String factsFingerprint;
+
     @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JoinColumn(name = "keypair_id")
     private KeyPairData keyPairData;
@@ -585,6 +596,11 @@ public class Consumer extends AbstractHibernateObject<Consumer> implements Linka
      *  a reference to this consumer instance
      */
     public Consumer setFacts(Map<String, String> facts) {
+        String fingerprint = fingerprintFacts(facts);
+        if (this.factsFingerprint != null && this.factsFingerprint.equals(fingerprint)) {
+            return this;
+        }
+
         if (this.checkForCloudProfileFacts(facts)) {
             this.updateRHCloudProfileModified();
         }
@@ -592,15 +608,90 @@ public class Consumer extends AbstractHibernateObject<Consumer> implements Linka
         if (this.facts == null) {
             this.facts = new HashMap<>();
         }
-        this.facts.clear();
 
+        // Impl note:
+        // Only touch the entries which actually change. Hibernate diffs a persistent map against
+        // its snapshot at flush, so this limits the statements issued to the inserted, updated and
+        // removed facts, and leaves the collection clean if nothing changed at all.
         if (facts != null) {
-            this.facts.putAll(facts);
+            this.facts.keySet().removeIf(key -> !facts.containsKey(key));
+
+            for (Entry<String, String> entry : facts.entrySet()) {
+                String key = entry.getKey();
+                String value = entry.getValue();
+
+                if (!this.facts.containsKey(key) || !Objects.equals(this.facts.get(key), value)) {
+                    this.facts.put(key, value);
+                }
+            }
+        }
+        else if (!this.facts.isEmpty()) {
+            this.facts.clear();
         }
 
+        this.factsFingerprint = fingerprint;
         return this;
     }
 
+    /**
+     * Fetches the fingerprint of this consumer's facts. If the facts of this consumer have not been
+     * set since fingerprints were introduced, this method returns null.
+     *
+     * @return
+     *  the fingerprint of this consumer's facts, or null
+     */
+    public String getFactsFingerprint() {
+        return this.factsFingerprint;
+    }
+
+    /**
+     * Checks if this consumer's fact collection has been loaded. A fact collection which has not
+     * been loaded cannot have been modified since this consumer was fetched.
+     *
+     * @return
+     *  true if this consumer's facts have been loaded; false otherwise
+     */
+    boolean areFactsLoaded() {
+        return Hibernate.isInitialized(this.facts);
+    }
+
+    /**
+     * Computes the fingerprint of the given facts. Facts are hashed in key order, so the fingerprint
+     * does not depend on the order of the map; null and empty values are hashed differently.
+     *
+     * @param facts
+     *  the facts for which to compute a fingerprint
+     *
+     * @return
+     *  the fingerprint of the given facts
+     */
+    static String fingerprintFacts(Map<String, String> facts) {
+        Map<String, String> source = facts != null ? facts : Map.of();
+
+        List<String> keys = new ArrayList<>(source.keySet());
+        keys.sort(Comparator.nullsFirst(Comparator.naturalOrder()));
+
+        Hasher hasher = Hashing.sha256().newHasher()
+            .putInt(keys.size());
+
+        for (String key : keys) {
+            putFactString(hasher, key);
+            putFactString(hasher, source.get(key));
+        }
+
+        return hasher.hash().toString();
+    }
+
+    private static void putFactString(Hasher hasher, String value) {
+        if (value != null) {
+            hasher.putInt(value.length())
+                .putString(value, StandardCharsets.UTF_8);
+        }
+        else {
+            hasher.putInt(-1);
+        }
+    }
+
     /**
      * Returns if the <code>otherFacts</code> are
      * the same as the facts of this consumer model entity.
@@ -609,6 +700,11 @@ public class Consumer extends AbstractHibernateObject<Consumer> implements Linka
      * @return <code>true</code> if the facts are the same, <code>false</code> otherwise
      */
     public boolean factsAreEqual(Map<String, String> otherFacts) {
+        // The fingerprint covers the facts exactly, so comparing it avoids loading the facts
+        if (this.factsFingerprint != null && otherFacts != null) {
+            return this.factsFingerprint.equals(fingerprintFacts(otherFacts));
+        }
+
         if (this.getFacts() == null && otherFacts == null) {
             return true;
         }
@@ -672,6 +768,8 @@ public class Consumer extends AbstractHibernateObject<Consumer> implements Linka
         }
 
         this.facts.put(name, value);
+        this.factsFingerprint = fingerprintFacts(this.facts);
+
         return this;
     }
 
@@ -695,6 +793,7 @@ public class Consumer extends AbstractHibernateObject<Consumer> implements Linka
 
         if (this.facts != null && this.facts.containsKey(name)) {
             this.facts.remove(name);
+            this.factsFingerprint = fingerprintFacts(this.facts);
 
             if (this.checkForCloudProfileFacts(Collections.singletonMap(name, null))) {
                 this.updateRHCloudProfileModified();
@@ -42,6 +42,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -203,6 +206,14 @@ public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
         this.principalProvider = principalProvider;
     }
 
+    /**
+     * Fetches the consumer with the given UUID from the identity map for the current request, if it
+     * was already resolved by an earlier lookup and is still valid for this one.
+     */
+    private Consumer getResolvedConsumer(String uuid) {
+        return this.getResolved(Consumer.class, uuid, Consumer::getUuid);
+    }
+
     @Transactional
     @Override
     public Consumer create(Consumer entity, boolean flush) {
@@ -238,6 +249,11 @@ public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
         // Actually delete the consumer
         super.delete(entity);
 
+        EntityIdentityMap identityMap = this.getIdentityMap();
+        if (identityMap != null) {
+            identityMap.remove(Consumer.class, entity.getUuid());
+        }
+
         // Save our deletion record
         this.deletedConsumerCurator.saveOrUpdate(deletedConsumer);
     }
@@ -412,13 +428,28 @@ public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
     public Collection<Consumer> findByUuids(Collection<String> uuids) {
         Set<Consumer> consumers = new HashSet<>();
 
-        for (List<String> block : this.partition(uuids)) {
+        // Only the consumers not already resolved in this request need to be queried
+        Set<String> unresolved = new HashSet<>();
+        for (String uuid : uuids) {
+            Consumer consumer = this.getResolvedConsumer(uuid);
+            if (consumer != null) {
+                consumers.add(consumer);
+            }
+            else if (uuid != null) {
+                unresolved.add(uuid);
+            }
+        }
+
+        for (List<String> block : this.partition(unresolved)) {
             // Unfortunately, this needs to be a secure criteria due to the contexts in which this
             // is called.
             Criteria criteria = this.createSecureCriteria()
                 .add(Restrictions.in("uuid", block));
 
-            consumers.addAll(criteria.list());
+            List<Consumer> found = criteria.list();
+            found.forEach(consumer -> this.putResolved(Consumer.class, consumer.getUuid(), consumer));
+
+            consumers.addAll(found);
         }
 
         return consumers;
@@ -447,10 +478,18 @@ public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
     // to bypass the authentication. Do not call it!
     // TODO: Come up with a better way to do this!
     public Consumer getConsumer(String uuid) {
+        Consumer consumer = this.getResolvedConsumer(uuid);
+        if (consumer != null) {
+            return consumer;
+        }
+
         Criteria criteria = this.createSecureCriteria()
             .add(Restrictions.eq("uuid", uuid));
 
-        return (Consumer) criteria.uniqueResult();
+        consumer = (Consumer) criteria.uniqueResult();
+        this.putResolved(Consumer.class, uuid, consumer);
+
+        return consumer;
     }
 
     /**
@@ -618,7 +657,9 @@ public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
         }
 
         if (flush) {
-            save(existingConsumer);
+            // Fact changes are written as one statement per added, changed or removed fact
+            this.create(existingConsumer, false);
+            this.flushInBatches();
         }
 
         return existingConsumer;
@@ -645,6 +686,51 @@ public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
             .executeUpdate();
     }
 
+    /**
+     * Sets the last check-in time of a number of consumers. The updates are sent to the database as
+     * JDBC batches of a single prepared statement, rather than as a statement per consumer.
+     *
+     * @param checkins
+     *  a mapping of consumer IDs to the check-in time to set for the consumer
+     *
+     * @return
+     *  the number of consumers updated
+     */
+    @Transactional
+    public int updateLastCheckins(Map<String, Date> checkins) {
+        if (checkins == null || checkins.isEmpty()) {
+            return 0;
+        }
+
+        String sql = "UPDATE cp_consumer SET lastcheckin = ?, updated = ? WHERE id = ?";
+
+        return this.currentSession().doReturningWork(connection -> {
+            int updated = 0;
+
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (List<Entry<String, Date>> block : Iterables.partition(checkins.entrySet(),
+                    this.getBatchBlockSize())) {
+
+                    for (Entry<String, Date> entry : block) {
+                        Timestamp checkin = new Timestamp(entry.getValue().getTime());
+
+                        statement.setTimestamp(1, checkin);
+                        statement.setTimestamp(2, checkin);
+                        statement.setString(3, entry.getKey());
+                        statement.addBatch();
+                    }
+
+                    for (int count : statement.executeBatch()) {
+                        // Some drivers do not report per-statement counts for batches
+                        updated += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+                    }
+                }
+            }
+
+            return updated;
+        });
+    }
+
     @Transactional
     public void heartbeatUpdate(final String reporterId, final Date checkIn, final String ownerKey)
         throws PersistenceException {
@@ -698,6 +784,11 @@ public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
         // Also, we're no longer using ConfigProperties.CONSUMER_FACTS_MATCHER at this point, as
         // it's something that belongs with the other input validation and filtering.
 
+        // Facts which have not been loaded have not been changed since they were last validated
+        if (!consumer.areFactsLoaded()) {
+            return;
+        }
+
         Map<String, String> facts = consumer.getFacts();
         if (facts != null) {
             for (Entry<String, String> fact : facts.entrySet()) {
@@ -1045,6 +1136,117 @@ public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
         return found;
     }
 
+    /**
+     * Lookup the consumers in the given org reporting any of the given system UUIDs in their
+     * dmi.system.uuid fact, locking them for update. This is the bulk form of the system UUID lookup
+     * performed by getExistingConsumerByHypervisorIdOrUuid; as with that method, if more than one
+     * consumer reports the same system UUID, only the most recently updated consumer is returned.
+     *
+     * This is an unsecured query, manually limited to an owner by the parameter given.
+     *
+     * @param ownerId
+     *     ID of the org to search
+     * @param systemUuids
+     *     the system UUIDs to look up
+     *
+     * @return a map of lower-cased system UUID to the consumer reporting it
+     */
+    @SuppressWarnings("unchecked")
+    @Transactional
+    public Map<String, Consumer> getConsumersBySystemUuids(String ownerId, Collection<String> systemUuids) {
+        Map<String, Consumer> consumers = new HashMap<>();
+
+        if (systemUuids == null || systemUuids.isEmpty()) {
+            return consumers;
+        }
+
+        Set<String> uuids = systemUuids.stream()
+            .filter(Objects::nonNull)
+            .map(String::toLowerCase)
+            .collect(Collectors.toSet());
+
+        String sql = "SELECT cp_consumer.id, lower(cp_consumer_facts.element) FROM cp_consumer " +
+            "JOIN cp_consumer_facts ON cp_consumer.id = cp_consumer_facts.cp_consumer_id " +
+            "WHERE cp_consumer_facts.mapkey = :fact_key " +
+            "AND lower(cp_consumer_facts.element) IN (:uuids) " +
+            "AND cp_consumer.owner_id = :owner_id " +
+            "ORDER BY cp_consumer.updated DESC";
+
+        Query query = this.currentSession()
+            .createSQLQuery(sql)
+            .setParameter("fact_key", Consumer.Facts.DMI_SYSTEM_UUID)
+            .setParameter("owner_id", ownerId);
+
+        // Rows are ordered by most recent update, so the first consumer found for a UUID wins
+        Map<String, String> consumerIdMap = new HashMap<>();
+        for (List<String> block : Iterables.partition(uuids, this.getInBlockSize())) {
+            query.setParameterList("uuids", block);
+
+            for (Object[] row : (List<Object[]>) query.list()) {
+                consumerIdMap.putIfAbsent((String) row[1], (String) row[0]);
+            }
+        }
+
+        if (consumerIdMap.isEmpty()) {
+            return consumers;
+        }
+
+        Map<String, Consumer> fetched = new HashMap<>();
+        String jpql = "SELECT c FROM Consumer c WHERE c.id IN (:consumer_ids)";
+
+        for (List<String> block : Iterables.partition(new HashSet<>(consumerIdMap.values()),
+            this.getInBlockSize())) {
+
+            this.getEntityManager()
+                .createQuery(jpql, Consumer.class)
+                .setParameter("consumer_ids", block)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList()
+                .forEach(consumer -> fetched.put(consumer.getId(), consumer));
+        }
+
+        consumerIdMap.forEach((uuid, consumerId) -> {
+            Consumer consumer = fetched.get(consumerId);
+            if (consumer != null) {
+                consumers.put(uuid, consumer);
+            }
+        });
+
+        return consumers;
+    }
+
+    /**
+     * Initializes the guest ID collections of the given consumers using a single query per block of
+     * consumers, rather than lazily loading them a few consumers at a time as each is accessed.
+     * The consumers must be managed by the current session.
+     *
+     * @param consumers
+     *     the consumers for which to fetch guest IDs
+     */
+    @Transactional
+    public void fetchGuestIds(Collection<Consumer> consumers) {
+        if (consumers == null || consumers.isEmpty()) {
+            return;
+        }
+
+        List<String> consumerIds = consumers.stream()
+            .map(Consumer::getId)
+            .filter(Objects::nonNull)
+            .distinct()
+            .collect(Collectors.toList());
+
+        // Fetch joining the collection initializes it on the consumers already in the session
+        String jpql = "SELECT DISTINCT c FROM Consumer c LEFT JOIN FETCH c.guestIds " +
+            "WHERE c.id IN (:consumer_ids)";
+
+        for (List<String> block : Iterables.partition(consumerIds, this.getInBlockSize())) {
+            this.getEntityManager()
+                .createQuery(jpql, Consumer.class)
+                .setParameter("consumer_ids", block)
+                .getResultList();
+        }
+    }
+
     /**
      * Retrieves the identity Certificate ids for the provided consumer ids.
      *
@@ -1153,6 +1355,12 @@ public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
             .setParameter("consumerIds", consumerIds)
             .executeUpdate();
 
+        // The deleted consumers remain in the session, so they must not be resolved from the map
+        EntityIdentityMap identityMap = this.getIdentityMap();
+        if (identityMap != null) {
+            identityMap.removeAll(Consumer.class);
+        }
+
         return consumerIds.size();
     }
 
@@ -1330,6 +1538,11 @@ public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
             predicates.add(securityPredicate);
         }
 
+        Predicate cursorPredicate = this.buildJPACursorPredicate(criteriaBuilder, root, queryArgs);
+        if (cursorPredicate != null) {
+            predicates.add(cursorPredicate);
+        }
+
         if (!predicates.isEmpty()) {
             criteriaQuery.where(predicates.toArray(new Predicate[predicates.size()]));
         }
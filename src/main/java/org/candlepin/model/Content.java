@@ -134,6 +134,11 @@ public class Content extends AbstractHibernateObject implements SharedEntity, Cl
     @Size(max = 255)
     private String arches;
 
+    // Impl note: this column is only written by the refresher's batch updates, and must never be
+    // written by a flush of this entity, which may hold a stale value.
+    @Column(name = "refresh_fingerprint", length = 64, insertable = false, updatable = false)
+    private String refreshFingerprint;
+
     /**
      * Default constructor
      */
@@ -548,6 +553,17 @@ public class Content extends AbstractHibernateObject implements SharedEntity, Cl
         return this.arches != null && !this.arches.isEmpty() ? this.arches : null;
     }
 
+    /**
+     * Fetches the fingerprint of the upstream content from which this content was last refreshed. If the
+     * content has not been refreshed since fingerprints were introduced, this method returns null.
+     *
+     * @return
+     *  the fingerprint of the upstream content last applied to this content, or null
+     */
+    public String getRefreshFingerprint() {
+        return this.refreshFingerprint;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) {
@@ -14,12 +14,15 @@
  */
 package org.candlepin.model;
 
+import com.google.common.collect.Iterables;
 import com.google.inject.persist.Transactional;
 
 import org.hibernate.criterion.Restrictions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.PreparedStatement;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
@@ -28,6 +31,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -233,6 +237,82 @@ public class ContentCurator extends AbstractHibernateCurator<Content> {
         return this.getContentsByIds(namespace, contentIds, null);
     }
 
+    /**
+     * Fetches the fingerprints of the upstream contents last applied to the given global content,
+     * as a mapping of content IDs to fingerprints. Contents which do not exist in the global
+     * namespace, or which do not have a recorded fingerprint, will not have an entry in the map.
+     *
+     * @param contentIds
+     *  a collection of IDs of the content for which to fetch fingerprints
+     *
+     * @return
+     *  a mapping of content IDs to the fingerprints recorded on their global content
+     */
+    public Map<String, String> getRefreshFingerprints(Collection<String> contentIds) {
+        Map<String, String> output = new HashMap<>();
+
+        if (contentIds != null && !contentIds.isEmpty()) {
+            // Impl note: The global/null namespace is stored as an empty string
+            String jpql = "SELECT cont.id, cont.refreshFingerprint FROM Content cont " +
+                "WHERE cont.namespace = :namespace AND cont.id IN (:content_ids) " +
+                "AND cont.refreshFingerprint IS NOT NULL";
+
+            TypedQuery<Object[]> query = this.getEntityManager()
+                .createQuery(jpql, Object[].class)
+                .setParameter("namespace", "");
+
+            for (List<String> block : this.partition(contentIds)) {
+                query.setParameter("content_ids", block)
+                    .getResultList()
+                    .forEach(row -> output.put((String) row[0], (String) row[1]));
+            }
+        }
+
+        return output;
+    }
+
+    /**
+     * Records the fingerprints of the upstream content applied to the given content. The
+     * fingerprints are written directly to the database, so any pending changes to the affected
+     * content should be flushed first.
+     *
+     * @param fingerprints
+     *  a mapping of content UUIDs to the fingerprints to record on those content
+     *
+     * @return
+     *  the number of content updated
+     */
+    public int updateRefreshFingerprints(Map<String, String> fingerprints) {
+        if (fingerprints == null || fingerprints.isEmpty()) {
+            return 0;
+        }
+
+        String sql = "UPDATE " + Content.DB_TABLE + " SET refresh_fingerprint = ? WHERE uuid = ?";
+
+        return this.currentSession().doReturningWork(connection -> {
+            int updated = 0;
+
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (List<Entry<String, String>> block : Iterables.partition(fingerprints.entrySet(),
+                    this.getBatchBlockSize())) {
+
+                    for (Entry<String, String> entry : block) {
+                        statement.setString(1, entry.getValue());
+                        statement.setString(2, entry.getKey());
+                        statement.addBatch();
+                    }
+
+                    for (int count : statement.executeBatch()) {
+                        // Some drivers do not report per-statement counts for batches
+                        updated += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+                    }
+                }
+            }
+
+            return updated;
+        });
+    }
+
     /**
      * Fetches all contents in the given namespace. If the namespace does not exist or does not have
      * any contents, this method returns an empty list.
@@ -46,6 +46,7 @@ import javax.inject.Inject;
 import javax.inject.Singleton;
 import javax.persistence.EntityManager;
 import javax.persistence.Query;
+import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Expression;
@@ -1347,6 +1348,72 @@ public class EntitlementCurator extends AbstractHibernateCurator<Entitlement> {
         return entConsumerIdMap;
     }
 
+    /**
+     * Returns a mapping of entitlement ID to consumer ID for the entitlements of the given pools. If
+     * none of the pools have entitlements, this method returns an empty map.
+     *
+     * @param poolIds
+     *  a collection of pool IDs for which to fetch an entitlement-consumer mapping
+     *
+     * @return
+     *  the entitlement-consumer map for the entitlements of the given pools
+     */
+    public Map<String, String> getEntitlementConsumerIdMapByPoolIds(Iterable<String> poolIds) {
+        Map<String, String> entConsumerIdMap = new HashMap<>();
+
+        if (poolIds != null) {
+            String jpql = "SELECT ent.id, ent.consumer.id FROM Entitlement ent " +
+                "WHERE ent.pool.id IN (:pool_ids)";
+
+            Query query = this.getEntityManager()
+                .createQuery(jpql);
+
+            for (List<String> block : this.partition(poolIds)) {
+                List<Object[]> rows = query.setParameter("pool_ids", block)
+                    .getResultList();
+
+                rows.forEach(row -> entConsumerIdMap.put((String) row[0], (String) row[1]));
+            }
+        }
+
+        return entConsumerIdMap;
+    }
+
+    /**
+     * Fetches the specified entitlements along with the state needed to regenerate their
+     * certificates. The consumer, its key pair, the pool and the pool's product of each entitlement
+     * are fetched with the entitlements, rather than lazily loaded one entitlement at a time.
+     * Entitlements which do not exist are silently omitted from the output.
+     *
+     * @param entitlementIds
+     *  a collection of IDs of the entitlements to fetch
+     *
+     * @return
+     *  a list of the entitlements found
+     */
+    public List<Entitlement> getEntitlementsForRegeneration(Iterable<String> entitlementIds) {
+        List<Entitlement> entitlements = new ArrayList<>();
+
+        if (entitlementIds != null) {
+            String jpql = "SELECT DISTINCT ent FROM Entitlement ent " +
+                "JOIN FETCH ent.consumer consumer " +
+                "LEFT JOIN FETCH consumer.keyPairData " +
+                "JOIN FETCH ent.pool pool " +
+                "LEFT JOIN FETCH pool.product " +
+                "WHERE ent.id IN (:ent_ids)";
+
+            TypedQuery<Entitlement> query = this.getEntityManager()
+                .createQuery(jpql, Entitlement.class);
+
+            for (List<String> block : this.partition(entitlementIds)) {
+                entitlements.addAll(query.setParameter("ent_ids", block)
+                    .getResultList());
+            }
+        }
+
+        return entitlements;
+    }
+
     /**
      * Returns a mapping of entitlement ID to content IDs attached to the base product and provided
      * products for the pool of the entitlement. Entitlements which do not have any content will not
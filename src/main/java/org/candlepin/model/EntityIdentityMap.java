@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.model;
+
+import org.candlepin.auth.Access;
+import org.candlepin.auth.Principal;
+import org.candlepin.auth.SubResource;
+import org.candlepin.guice.CandlepinRequestScoped;
+
+import org.hibernate.Session;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+
+/**
+ * A request scoped identity map of the entities resolved by a lookup key, such as consumers by UUID,
+ * owners by key or pools by ID, so an entity needed by authentication, authorization and the
+ * resource method is only queried once per request.
+ * <p>
+ * An entity is only returned while it is still managed by the session from which it is requested;
+ * once evicted or cleared from the session, it is dropped from the map and must be looked up again.
+ * As lookups are filtered by the permissions of the current principal, an entity resolved under one
+ * principal is only returned to another if that principal has full access or may read the entity.
+ */
+@CandlepinRequestScoped
+public class EntityIdentityMap {
+
+    private final Map<Class<?>, Map<String, Entry>> entities = new HashMap<>();
+
+    /**
+     * Fetches the entity of the given type resolved earlier in this request by the given key, if it
+     * is still managed by the given session and may be read by the given principal.
+     *
+     * @param type
+     *  the type of entity to fetch
+     *
+     * @param key
+     *  the key by which the entity was resolved
+     *
+     * @param session
+     *  the session in which the entity will be used
+     *
+     * @param principal
+     *  the principal for which the entity is being looked up, or null if there is none yet
+     *
+     * @return
+     *  the entity resolved by the given key, or null if it must be looked up
+     */
+    public <E> E get(Class<E> type, String key, Session session, Principal principal) {
+        Map<String, Entry> resolved = this.entities.get(type);
+        Entry entry = resolved != null && key != null ? resolved.get(key) : null;
+
+        if (entry == null) {
+            return null;
+        }
+
+        if (!session.contains(entry.entity)) {
+            resolved.remove(key);
+            return null;
+        }
+
+        boolean visible = principal == null || principal == entry.principal || principal.hasFullAccess() ||
+            principal.canAccess(entry.entity, SubResource.NONE, Access.READ_ONLY);
+
+        return visible ? type.cast(entry.entity) : null;
+    }
+
+    /**
+     * Records the entity of the given type resolved by the given key. Null entities are not
+     * recorded, so failed lookups are always retried.
+     *
+     * @param type
+     *  the type of the entity
+     *
+     * @param key
+     *  the key by which the entity was resolved
+     *
+     * @param entity
+     *  the resolved entity
+     *
+     * @param principal
+     *  the principal for which the entity was looked up, or null if there was none
+     */
+    public <E> void put(Class<E> type, String key, E entity, Principal principal) {
+        if (key != null && entity != null) {
+            this.entities.computeIfAbsent(type, t -> new HashMap<>())
+                .put(key, new Entry(entity, principal));
+        }
+    }
+
+    /**
+     * Removes the entity of the given type resolved by the given key, if any.
+     *
+     * @param type
+     *  the type of the entity
+     *
+     * @param key
+     *  the key by which the entity was resolved
+     */
+    public void remove(Class<?> type, String key) {
+        Map<String, Entry> resolved = this.entities.get(type);
+        if (resolved != null) {
+            resolved.remove(key);
+        }
+    }
+
+    /**
+     * Removes every entity of the given type from this map.
+     *
+     * @param type
+     *  the type of the entities to remove
+     */
+    public void removeAll(Class<?> type) {
+        this.entities.remove(type);
+    }
+
+    private static class Entry {
+        private final Object entity;
+        private final Principal principal;
+
+        public Entry(Object entity, Principal principal) {
+            this.entity = entity;
+            this.principal = principal;
+        }
+    }
+}
@@ -77,6 +77,16 @@ public class ManifestFileRecord extends AbstractHibernateObject implements Manif
 
     private String filename;
 
+    /**
+     * The SHA-256 hash of the file's content, for files whose content is stored outside of the
+     * database. Null for files stored in the fileData column.
+     */
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "file_size")
+    private Long fileSize;
+
     @Lob
     @Basic(fetch = FetchType.LAZY)
     private Blob fileData;
@@ -135,6 +145,22 @@ public class ManifestFileRecord extends AbstractHibernateObject implements Manif
         this.filename = fileName;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public Long getFileSize() {
+        return fileSize;
+    }
+
+    public void setFileSize(Long fileSize) {
+        this.fileSize = fileSize;
+    }
+
     public Blob getFileData() {
         return fileData;
     }
@@ -152,6 +178,10 @@ public class ManifestFileRecord extends AbstractHibernateObject implements Manif
     @Override
     @Transient
     public InputStream getInputStream() {
+        if (fileData == null) {
+            throw new IllegalStateException("Manifest file content is not stored in the database.");
+        }
+
         try {
             return fileData.getBinaryStream();
         }
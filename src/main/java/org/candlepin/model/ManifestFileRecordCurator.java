@@ -18,11 +18,18 @@ import org.candlepin.sync.file.ManifestFileType;
 
 import com.google.inject.persist.Transactional;
 
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.sql.Blob;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import javax.inject.Singleton;
 import javax.persistence.Query;
@@ -64,6 +71,133 @@ public class ManifestFileRecordCurator extends AbstractHibernateCurator<Manifest
         return create(new ManifestFileRecord(type, fileToStore.getName(), principalName, targetId, data));
     }
 
+    /**
+     * Creates a record for a file whose content is stored outside of the database.
+     *
+     * @param type
+     *  the type of the file
+     *
+     * @param filename
+     *  the name of the file
+     *
+     * @param principalName
+     *  the name of the principal storing the file
+     *
+     * @param targetId
+     *  the ID of the file's target
+     *
+     * @param contentHash
+     *  the hash identifying the stored content of the file
+     *
+     * @param fileSize
+     *  the size of the file, in bytes
+     *
+     * @return
+     *  the created record
+     */
+    @Transactional
+    public ManifestFileRecord createRecord(ManifestFileType type, String filename, String principalName,
+        String targetId, String contentHash, long fileSize) {
+
+        ManifestFileRecord record = new ManifestFileRecord(type, filename, principalName, targetId, null);
+        record.setContentHash(contentHash);
+        record.setFileSize(fileSize);
+
+        return create(record);
+    }
+
+    /**
+     * Fetches the content hashes of the files created before the given expiry date.
+     *
+     * @param expiryDate
+     *  the expiry date
+     *
+     * @return
+     *  the content hashes of the expired files
+     */
+    public List<String> getExpiredContentHashes(Date expiryDate) {
+        String jpql = String.format("SELECT DISTINCT r.contentHash FROM %s r " +
+            "WHERE r.created < :expiry AND r.contentHash IS NOT NULL", QUERY_CLASS_NAME);
+
+        return getEntityManager().createQuery(jpql, String.class)
+            .setParameter("expiry", expiryDate)
+            .getResultList();
+    }
+
+    /**
+     * Fetches the content hashes of the files with the given type and target.
+     *
+     * @param type
+     *  the type of the files
+     *
+     * @param targetId
+     *  the ID of the files' target
+     *
+     * @return
+     *  the content hashes of the matching files
+     */
+    public List<String> getContentHashes(ManifestFileType type, String targetId) {
+        String jpql = String.format("SELECT DISTINCT r.contentHash FROM %s r " +
+            "WHERE r.type = :type AND r.targetId = :target AND r.contentHash IS NOT NULL", QUERY_CLASS_NAME);
+
+        return getEntityManager().createQuery(jpql, String.class)
+            .setParameter("type", type)
+            .setParameter("target", targetId)
+            .getResultList();
+    }
+
+    /**
+     * Fetches those of the given content hashes which are still referenced by a committed file
+     * record. The check is made in a session and transaction of its own, so it neither sees nor
+     * flushes any pending changes in the current session.
+     *
+     * @param contentHashes
+     *  the content hashes to check
+     *
+     * @return
+     *  the referenced content hashes
+     */
+    public Set<String> getReferencedContentHashes(Collection<String> contentHashes) {
+        Set<String> referenced = new HashSet<>();
+        if (contentHashes == null || contentHashes.isEmpty()) {
+            return referenced;
+        }
+
+        String jpql = String.format("SELECT DISTINCT r.contentHash FROM %s r " +
+            "WHERE r.contentHash IN (:hashes)", QUERY_CLASS_NAME);
+
+        Session session = this.openSession();
+        Transaction transaction = session.beginTransaction();
+
+        try {
+            for (List<String> block : this.partition(contentHashes)) {
+                referenced.addAll(session.createQuery(jpql, String.class)
+                    .setParameter("hashes", block)
+                    .getResultList());
+            }
+        }
+        finally {
+            // Nothing was changed, so there is nothing to commit
+            transaction.rollback();
+            session.close();
+        }
+
+        return referenced;
+    }
+
+    /**
+     * Fetches the IDs of the files whose content is stored in the database.
+     *
+     * @return
+     *  the IDs of the files stored in the database
+     */
+    public List<String> getDatabaseFileIds() {
+        String jpql = String.format("SELECT r.id FROM %s r WHERE r.contentHash IS NULL", QUERY_CLASS_NAME);
+
+        return getEntityManager().createQuery(jpql, String.class)
+            .getResultList();
+    }
+
     @Transactional
     public int deleteExpired(Date expiryDate) {
         String queryString = String.format("delete from %s r where r.created < :expiry", QUERY_CLASS_NAME);
@@ -29,6 +29,7 @@ import org.hibernate.criterion.Restrictions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -92,6 +93,10 @@ public class OwnerCurator extends AbstractHibernateCurator<Owner> {
             throw new IllegalStateException("owner not found for the id: " + ownerId);
         }
 
+        // Owners are usually looked up by ID while authenticating, and then by key when verifying
+        // access to the request's owner, which the identity map can then answer without a query
+        this.putResolved(Owner.class, owner.getKey(), owner);
+
         return owner;
     }
 
@@ -116,9 +121,55 @@ public class OwnerCurator extends AbstractHibernateCurator<Owner> {
      */
     @Transactional
     public Owner getByKeySecure(String key) {
-        return (Owner) createSecureCriteria()
+        Owner owner = this.getResolved(Owner.class, key, Owner::getKey);
+        if (owner != null) {
+            return owner;
+        }
+
+        owner = (Owner) createSecureCriteria()
             .add(Restrictions.eq("key", key))
             .uniqueResult();
+
+        this.putResolved(Owner.class, key, owner);
+
+        return owner;
+    }
+
+    /**
+     * Fetches the owners with the given keys securely by checking principal permissions, using a
+     * single query for all of the owners not already resolved in this request.
+     *
+     * @param keys
+     *  the keys of the owners to fetch
+     *
+     * @return
+     *  a list of the owners whose keys match those given; may be empty
+     */
+    @Transactional
+    public List<Owner> getByKeysSecure(Collection<String> keys) {
+        List<Owner> owners = new ArrayList<>();
+        Set<String> unresolved = new HashSet<>();
+
+        if (keys != null) {
+            for (String key : new HashSet<>(keys)) {
+                Owner owner = this.getResolved(Owner.class, key, Owner::getKey);
+                if (owner != null) {
+                    owners.add(owner);
+                }
+                else if (key != null) {
+                    unresolved.add(key);
+                }
+            }
+        }
+
+        if (!unresolved.isEmpty()) {
+            for (Owner owner : this.getByKeys(unresolved).list()) {
+                this.putResolved(Owner.class, owner.getKey(), owner);
+                owners.add(owner);
+            }
+        }
+
+        return owners;
     }
 
     /**
@@ -21,6 +21,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.hibernate.Hibernate;
 import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.Cascade;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.Fetch;
 import org.hibernate.annotations.FetchMode;
 import org.hibernate.annotations.GenericGenerator;
@@ -61,8 +62,12 @@ import javax.validation.constraints.Size;
 /**
  * Represents a pool of products eligible to be consumed (entitled).
  * For every Product there will be a corresponding Pool.
+ * <p>
+ * Pools are updated dynamically, so that changes to some of a pool's fields do not write back a
+ * stale consumed or exported count over quantities reserved by concurrent binds.
  */
 @Entity
+@DynamicUpdate
 @Table(name = Pool.DB_TABLE)
 public class Pool extends AbstractHibernateObject<Pool> implements Owned, Named, Comparable<Pool>,
     Eventful, SubscriptionInfo {
@@ -252,6 +257,11 @@ public class Pool extends AbstractHibernateObject<Pool> implements Owned, Named,
     @Column(name = "dirty_product", nullable = false)
     private boolean dirtyProduct;
 
+    // Impl note: this column is only written by the refresher's batch updates, and must never be
+    // written by a flush of this entity, which may hold a stale value.
+    @Column(name = "refresh_fingerprint", length = 64, insertable = false, updatable = false)
+    private String refreshFingerprint;
+
     @ElementCollection
     @BatchSize(size = 1000)
     @CollectionTable(name = "cp_pool_attribute", joinColumns = @JoinColumn(name = "pool_id"))
@@ -890,6 +900,17 @@ public class Pool extends AbstractHibernateObject<Pool> implements Owned, Named,
         return this;
     }
 
+    /**
+     * Fetches the fingerprint of the upstream subscription from which this pool was last refreshed. If the
+     * pool has not been refreshed since fingerprints were introduced, this method returns null.
+     *
+     * @return
+     *  the fingerprint of the upstream subscription last applied to this pool, or null
+     */
+    public String getRefreshFingerprint() {
+        return this.refreshFingerprint;
+    }
+
     /**
      * Sets the Product to represent the top-level product for this pool.
      *
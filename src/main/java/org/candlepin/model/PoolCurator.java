@@ -30,6 +30,7 @@ import org.hibernate.Filter;
 import org.hibernate.Hibernate;
 import org.hibernate.ReplicationMode;
 import org.hibernate.Session;
+import org.hibernate.Transaction;
 import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.criterion.Disjunction;
@@ -47,6 +48,8 @@ import org.hibernate.type.StringType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.PreparedStatement;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -78,6 +81,12 @@ public class PoolCurator extends AbstractHibernateCurator<Pool> {
     /** The recommended number of expired pools to fetch in a single call to listExpiredPools */
     public static final int EXPIRED_POOL_BLOCK_SIZE = 1000;
 
+    /**
+     * The number of seconds to wait for a pool's row when reserving or releasing quantity, before
+     * giving up; bounds the wait should the row be locked by the reserving thread's own transaction
+     */
+    public static final int RESERVATION_TIMEOUT = 5;
+
     private static final Logger log = LoggerFactory.getLogger(PoolCurator.class);
     private final ConsumerCurator consumerCurator;
     private final ConsumerTypeCurator consumerTypeCurator;
@@ -146,6 +155,45 @@ public class PoolCurator extends AbstractHibernateCurator<Pool> {
         return new ArrayList<>();
     }
 
+    /**
+     * Fetches the pools for the given owner of the specified pool types which originate from the
+     * given subscriptions. If no pools match the given inputs, this method returns an empty list.
+     *
+     * @param ownerId
+     *  the ID of the owner to use to match pools
+     *
+     * @param subscriptionIds
+     *  a collection of IDs of the subscriptions to use to match pools
+     *
+     * @param types
+     *  a collection of pool types to use to match pools
+     *
+     * @return
+     *  a list of pools matching the given owner, subscriptions and pool types
+     */
+    public List<Pool> listByOwnerTypesAndSubscriptionIds(String ownerId, Collection<String> subscriptionIds,
+        PoolType... types) {
+
+        List<Pool> output = new ArrayList<>();
+
+        if (subscriptionIds != null && !subscriptionIds.isEmpty() && types != null && types.length > 0) {
+            String jpql = "SELECT p FROM Pool p JOIN p.sourceSubscription ss " +
+                "WHERE p.owner.id = :owner_id AND p.type IN (:pool_types) " +
+                "AND ss.subscriptionId IN (:sub_ids)";
+
+            TypedQuery<Pool> query = this.getEntityManager()
+                .createQuery(jpql, Pool.class)
+                .setParameter("owner_id", ownerId)
+                .setParameter("pool_types", Arrays.asList(types));
+
+            for (List<String> block : this.partition(subscriptionIds)) {
+                output.addAll(query.setParameter("sub_ids", block).getResultList());
+            }
+        }
+
+        return output;
+    }
+
     /**
      * Return all pools referencing the given entitlement as their source entitlement.
      *
@@ -362,12 +410,103 @@ public class PoolCurator extends AbstractHibernateCurator<Pool> {
      * @return List of entitlement pools.
      */
     @Transactional
-    @SuppressWarnings({ "unchecked", "checkstyle:indentation", "checkstyle:methodlength" })
-    // TODO: Remove the methodlength suppression once this method is cleaned up
     public Page<List<Pool>> listAvailableEntitlementPools(Consumer consumer, String ownerId,
         Collection<String> productIds, String subscriptionId, Date activeOn, PoolFilterBuilder filters,
         PageRequest pageRequest, boolean postFilter, boolean addFuture, boolean onlyFuture, Date after) {
 
+        // Impl note:
+        // Hibernate has an issue with properly hydrating objects within collections of the pool
+        // when only a subset of the collection matches the criteria. To work around this, we pull
+        // the ID list from the main filtering query, then pull the pools again using the ID list.
+        // This also makes it easier to eventually start using a cursor, since the distinct entity
+        // functionality doesn't work with cursors.
+
+        List<String> poolIds = this.findAvailableEntitlementPoolIds(consumer, ownerId, productIds,
+            subscriptionId, activeOn, filters, addFuture, onlyFuture, after);
+
+        if (!poolIds.isEmpty()) {
+            Criteria criteria = this.currentSession()
+                .createCriteria(Pool.class)
+                .createAlias("product", "Product");
+            criteria.add(CPRestrictions.in("id", poolIds));
+
+            return this.listByCriteria(criteria, pageRequest, postFilter);
+        }
+
+        return emptyPage();
+    }
+
+    /**
+     * Lists the IDs of the entitlement pools matching the given criteria, ordered as the given page
+     * request would order the pools themselves, without loading the pools. Callers which must
+     * filter the pools in Java may then load and filter them in chunks with
+     * {@link #listPoolsInOrder(List)}, stopping once they have the pools they need.
+     *
+     * @param consumer Consumer being entitled.
+     * @param ownerId Owner whose subscriptions should be inspected.
+     * @param productIds only entitlements which provide these products are included.
+     * @param activeOn Indicates to return only pools valid on this date.
+     *        Set to null for no date filtering.
+     * @param filters filter builder with set filters to apply to the criteria.
+     * @param pageRequest used to specify the order of the pools; the page itself is ignored.
+     * @return List of the IDs of the matching entitlement pools, in order.
+     */
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public List<String> listAvailableEntitlementPoolIds(Consumer consumer, String ownerId,
+        Collection<String> productIds, String subscriptionId, Date activeOn, PoolFilterBuilder filters,
+        PageRequest pageRequest, boolean addFuture, boolean onlyFuture, Date after) {
+
+        List<String> poolIds = this.findAvailableEntitlementPoolIds(consumer, ownerId, productIds,
+            subscriptionId, activeOn, filters, addFuture, onlyFuture, after);
+
+        if (poolIds.isEmpty() || pageRequest == null) {
+            return poolIds;
+        }
+
+        // The distinct ID query can't be ordered by columns it doesn't select, so the order is
+        // applied by a second, ID-only query
+        return this.currentSession()
+            .createCriteria(Pool.class)
+            .createAlias("product", "Product")
+            .add(CPRestrictions.in("id", poolIds))
+            .setProjection(Projections.id())
+            .addOrder(this.createPagingOrder(pageRequest))
+            .list();
+    }
+
+    /**
+     * Fetches the pools with the given IDs, in the order of the IDs. IDs of pools which no longer
+     * exist are skipped.
+     *
+     * @param poolIds
+     *  the IDs of the pools to fetch, in the order in which they should be returned
+     *
+     * @return
+     *  a list of the pools with the given IDs, in order
+     */
+    public List<Pool> listPoolsInOrder(List<String> poolIds) {
+        if (poolIds == null || poolIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<String, Pool> pools = new HashMap<>();
+        for (Pool pool : this.listAllByIds(poolIds)) {
+            pools.put(pool.getId(), pool);
+        }
+
+        return poolIds.stream()
+            .map(pools::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+    }
+
+    @SuppressWarnings({ "unchecked", "checkstyle:indentation", "checkstyle:methodlength" })
+    // TODO: Remove the methodlength suppression once this method is cleaned up
+    private List<String> findAvailableEntitlementPoolIds(Consumer consumer, String ownerId,
+        Collection<String> productIds, String subscriptionId, Date activeOn, PoolFilterBuilder filters,
+        boolean addFuture, boolean onlyFuture, Date after) {
+
         if (log.isDebugEnabled()) {
             log.debug("Listing available pools for:");
             log.debug("    consumer: {}", consumer);
@@ -395,7 +534,7 @@ public class PoolCurator extends AbstractHibernateCurator<Pool> {
                 log.warn("Attempting to filter entitlement pools by owner and a consumer belonging to a " +
                     "different owner: {}, {}", ownerId, consumer);
 
-                return emptyPage();
+                return new ArrayList<>();
             }
 
             // We'll set the owner restriction later
@@ -579,25 +718,8 @@ public class PoolCurator extends AbstractHibernateCurator<Pool> {
             }
         }
 
-        // Impl note:
-        // Hibernate has an issue with properly hydrating objects within collections of the pool
-        // when only a subset of the collection matches the criteria. To work around this, we pull
-        // the ID list from the main filtering query, then pull the pools again using the ID list.
-        // This also makes it easier to eventually start using a cursor, since the distinct entity
-        // functionality doesn't work with cursors.
-
         List<String> poolIds = criteria.list();
-
-        if (poolIds != null && !poolIds.isEmpty()) {
-            criteria = this.currentSession()
-                .createCriteria(Pool.class)
-                .createAlias("product", "Product");
-            criteria.add(CPRestrictions.in("id", poolIds));
-
-            return this.listByCriteria(criteria, pageRequest, postFilter);
-        }
-
-        return emptyPage();
+        return poolIds != null ? poolIds : new ArrayList<>();
     }
 
     private Page<List<Pool>> emptyPage() {
@@ -1426,6 +1548,112 @@ public class PoolCurator extends AbstractHibernateCurator<Pool> {
         return output;
     }
 
+    /**
+     * Fetches the fingerprints of the upstream subscriptions last applied to the primary pools of
+     * the given subscriptions in the specified owner, as a mapping of subscription IDs to
+     * fingerprints. Subscriptions without a primary pool or without a recorded fingerprint,
+     * subscriptions with any pool in the owner flagged as having a dirty product, and subscriptions
+     * whose primary pool's product carries a virt limit but which no longer have a derived pool in
+     * the owner, will not have an entry in the map.
+     *
+     * @param ownerId
+     *  the ID of the owner of the pools
+     *
+     * @param subscriptionIds
+     *  a collection of IDs of the subscriptions for which to fetch fingerprints
+     *
+     * @return
+     *  a mapping of subscription IDs to the fingerprints recorded on their primary pools
+     */
+    public Map<String, String> getSubscriptionFingerprints(String ownerId,
+        Collection<String> subscriptionIds) {
+
+        Map<String, String> output = new HashMap<>();
+
+        if (subscriptionIds != null && !subscriptionIds.isEmpty()) {
+            // Impl note: pools flagged with a dirty product must be refreshed regardless of whether
+            // or not their subscription has changed, so their fingerprints are not returned. The
+            // same goes for subscriptions that should have a derived pool, but whose derived pool
+            // has since been deleted; a refresh is needed to recreate it.
+            String jpql = "SELECT ss.subscriptionId, p.refreshFingerprint " +
+                "FROM Pool p JOIN p.sourceSubscription ss " +
+                "WHERE p.owner.id = :owner_id AND ss.subscriptionSubKey = :sub_key " +
+                "AND ss.subscriptionId IN (:sub_ids) AND p.refreshFingerprint IS NOT NULL " +
+                "AND NOT EXISTS (SELECT dp.id FROM Pool dp JOIN dp.sourceSubscription dss " +
+                "    WHERE dp.owner.id = :owner_id AND dss.subscriptionId = ss.subscriptionId " +
+                "    AND dp.dirtyProduct = true) " +
+                "AND (NOT EXISTS (SELECT prod.uuid FROM Product prod JOIN prod.attributes attr " +
+                "        WHERE prod = p.product AND key(attr) = :virt_limit) " +
+                "    OR EXISTS (SELECT bp.id FROM Pool bp JOIN bp.sourceSubscription bss " +
+                "        WHERE bp.owner.id = :owner_id AND bss.subscriptionId = ss.subscriptionId " +
+                "        AND bss.subscriptionSubKey = :derived_sub_key))";
+
+            TypedQuery<Object[]> query = this.getEntityManager()
+                .createQuery(jpql, Object[].class)
+                .setParameter("owner_id", ownerId)
+                .setParameter("sub_key", SourceSubscription.PRIMARY_POOL_SUB_KEY)
+                .setParameter("virt_limit", Product.Attributes.VIRT_LIMIT)
+                .setParameter("derived_sub_key", SourceSubscription.DERIVED_POOL_SUB_KEY);
+
+            for (List<String> block : this.partition(subscriptionIds)) {
+                query.setParameter("sub_ids", block)
+                    .getResultList()
+                    .forEach(row -> output.put((String) row[0], (String) row[1]));
+            }
+        }
+
+        return output;
+    }
+
+    /**
+     * Records the fingerprints of the upstream subscriptions applied to the primary pools of the
+     * given subscriptions in the specified owner. The fingerprints are written directly to the
+     * database, so any pending changes to the affected pools should be flushed first.
+     *
+     * @param ownerId
+     *  the ID of the owner of the pools
+     *
+     * @param fingerprints
+     *  a mapping of subscription IDs to the fingerprints to record on their primary pools
+     *
+     * @return
+     *  the number of pools updated
+     */
+    public int updateSubscriptionFingerprints(String ownerId, Map<String, String> fingerprints) {
+        if (fingerprints == null || fingerprints.isEmpty()) {
+            return 0;
+        }
+
+        String sql = "UPDATE " + Pool.DB_TABLE + " SET refresh_fingerprint = ? " +
+            "WHERE owner_id = ? AND id IN (SELECT pool_id FROM " + SourceSubscription.DB_TABLE + " " +
+            "WHERE subscription_id = ? AND subscription_sub_key = ?)";
+
+        return this.currentSession().doReturningWork(connection -> {
+            int updated = 0;
+
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (List<Entry<String, String>> block : Iterables.partition(fingerprints.entrySet(),
+                    this.getBatchBlockSize())) {
+
+                    for (Entry<String, String> entry : block) {
+                        statement.setString(1, entry.getValue());
+                        statement.setString(2, ownerId);
+                        statement.setString(3, entry.getKey());
+                        statement.setString(4, SourceSubscription.PRIMARY_POOL_SUB_KEY);
+                        statement.addBatch();
+                    }
+
+                    for (int count : statement.executeBatch()) {
+                        // Some drivers do not report per-statement counts for batches
+                        updated += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+                    }
+                }
+            }
+
+            return updated;
+        });
+    }
+
     @SuppressWarnings("unchecked")
     public CandlepinQuery<Pool> getPoolsBySubscriptionId(String subId) {
         String jpql = "SELECT DISTINCT ss.pool.id FROM SourceSubscription ss WHERE ss.subscriptionId = :sid";
@@ -1566,6 +1794,222 @@ public class PoolCurator extends AbstractHibernateCurator<Pool> {
         q.executeUpdate();
     }
 
+    /**
+     * Compares the consumed and exported quantities stored on the given owner's pools against the
+     * quantities of the entitlements drawn from them, returning a report for each pool whose stored
+     * quantities have drifted. The stored quantities are maintained incrementally as entitlements
+     * are created, adjusted and revoked, so this should normally return an empty list. No pool rows
+     * are locked or modified.
+     *
+     * @param owner
+     *  the owner whose pools should be checked
+     *
+     * @return
+     *  a list of reports for the pools with drifted quantities; never null
+     */
+    public List<PoolQuantityDrift> findPoolQuantityDrift(Owner owner) {
+        if (owner == null) {
+            throw new IllegalArgumentException("owner is null");
+        }
+
+        String consumedJpql = "SELECT ent.pool.id, SUM(ent.quantity) FROM Entitlement ent " +
+            "WHERE ent.pool.owner = :owner GROUP BY ent.pool.id";
+
+        String exportedJpql = "SELECT ent.pool.id, SUM(ent.quantity) " +
+            "FROM Entitlement ent, Consumer cons, ConsumerType ctype " +
+            "WHERE ent.pool.owner = :owner AND ent.consumer.id = cons.id AND cons.typeId = ctype.id " +
+            "AND ctype.manifest = 'Y' GROUP BY ent.pool.id";
+
+        String poolJpql = "SELECT p.id, p.consumed, p.exported FROM Pool p WHERE p.owner = :owner";
+
+        Map<String, Long> consumedMap = this.sumQuantitiesByPool(consumedJpql, owner);
+        Map<String, Long> exportedMap = this.sumQuantitiesByPool(exportedJpql, owner);
+
+        List<Object[]> rows = this.getEntityManager()
+            .createQuery(poolJpql, Object[].class)
+            .setParameter("owner", owner)
+            .getResultList();
+
+        List<PoolQuantityDrift> drift = new ArrayList<>();
+        for (Object[] row : rows) {
+            String poolId = (String) row[0];
+            long consumed = row[1] != null ? ((Number) row[1]).longValue() : 0;
+            long exported = row[2] != null ? ((Number) row[2]).longValue() : 0;
+            long expectedConsumed = consumedMap.getOrDefault(poolId, 0L);
+            long expectedExported = exportedMap.getOrDefault(poolId, 0L);
+
+            if (consumed != expectedConsumed || exported != expectedExported) {
+                drift.add(new PoolQuantityDrift(poolId, consumed, expectedConsumed, exported,
+                    expectedExported));
+            }
+        }
+
+        return drift;
+    }
+
+    private Map<String, Long> sumQuantitiesByPool(String jpql, Owner owner) {
+        List<Object[]> rows = this.getEntityManager()
+            .createQuery(jpql, Object[].class)
+            .setParameter("owner", owner)
+            .getResultList();
+
+        Map<String, Long> sums = new HashMap<>();
+        for (Object[] row : rows) {
+            sums.put((String) row[0], row[1] != null ? ((Number) row[1]).longValue() : 0L);
+        }
+
+        return sums;
+    }
+
+    /**
+     * Recalculates the consumed and exported quantities of the specified pools from the
+     * entitlements drawn from them. Unlike the owner-wide recalculation, only the specified pool
+     * rows are updated.
+     *
+     * @param poolIds
+     *  the IDs of the pools to recalculate
+     *
+     * @return
+     *  the number of pools updated
+     */
+    public int recalculatePoolQuantities(Collection<String> poolIds) {
+        if (poolIds == null || poolIds.isEmpty()) {
+            return 0;
+        }
+
+        String jpql = "UPDATE Pool p SET " +
+            "p.consumed = coalesce((SELECT sum(ent.quantity) FROM Entitlement ent " +
+            "WHERE ent.pool.id = p.id), 0), " +
+            "p.exported = coalesce((SELECT sum(ent.quantity) " +
+            "FROM Entitlement ent, Consumer cons, ConsumerType ctype " +
+            "WHERE ent.pool.id = p.id AND ent.consumer.id = cons.id AND cons.typeId = ctype.id " +
+            "AND ctype.manifest = 'Y'), 0) " +
+            "WHERE p.id IN (:pool_ids)";
+
+        int updated = 0;
+        for (List<String> block : this.partition(poolIds)) {
+            updated += this.getEntityManager()
+                .createQuery(jpql)
+                .setParameter("pool_ids", block)
+                .executeUpdate();
+        }
+
+        return updated;
+    }
+
+    /**
+     * Reserves a quantity of the specified pool by incrementing its consumed count, and its
+     * exported count if the quantity is reserved for a manifest consumer, if and only if the pool
+     * is unlimited or has enough quantity remaining. The check and the increment are made by a
+     * single update, committed in a transaction of its own, so the pool's row is only locked for
+     * the duration of the update rather than for that of the calling transaction.
+     * <p></p>
+     * Since the reservation is committed immediately, the caller is responsible for releasing it
+     * with {@link #releasePoolQuantity(String, long, boolean)} if the operation requiring it does
+     * not complete. A reservation that is never released, because the process stopped between the
+     * reservation and the completion of the operation, leaves the pool's consumed count too high
+     * until the pool quantity repair job is run.
+     * <p></p>
+     * As the update is made in a separate session, it waits on any lock held on the pool's row by
+     * the calling transaction, including the implicit lock taken by an update the caller has
+     * already flushed, until it times out after {@link #RESERVATION_TIMEOUT} seconds. Callers
+     * should not reserve quantities of pools they have already modified. The separate session also
+     * needs a connection of its own; if none is available before the connection pool's checkout
+     * timeout expires, the reservation fails with a persistence exception.
+     *
+     * @param poolId
+     *  the ID of the pool from which to reserve the quantity
+     *
+     * @param quantity
+     *  the quantity to reserve
+     *
+     * @param manifest
+     *  whether or not the quantity is reserved for a manifest consumer, and should also be counted
+     *  as exported
+     *
+     * @throws IllegalArgumentException
+     *  if poolId is null, or quantity is negative
+     *
+     * @throws javax.persistence.PersistenceException
+     *  if a connection could not be obtained, or the pool's row could not be updated within
+     *  {@link #RESERVATION_TIMEOUT} seconds
+     *
+     * @return
+     *  true if the quantity was reserved; false if the pool does not have enough quantity
+     *  remaining or is not visible outside of the calling transaction
+     */
+    public boolean reservePoolQuantity(String poolId, long quantity, boolean manifest) {
+        String jpql = "UPDATE Pool p SET p.consumed = p.consumed + :quantity, " +
+            "p.exported = p.exported + :exported " +
+            "WHERE p.id = :pool_id AND (p.quantity < 0 OR p.consumed + :quantity <= p.quantity)";
+
+        return this.updatePoolQuantity(jpql, poolId, quantity, manifest) > 0;
+    }
+
+    /**
+     * Releases a quantity previously reserved with
+     * {@link #reservePoolQuantity(String, long, boolean)}. Like the reservation, the release is
+     * committed in a transaction of its own.
+     *
+     * @param poolId
+     *  the ID of the pool from which the quantity was reserved
+     *
+     * @param quantity
+     *  the quantity to release
+     *
+     * @param manifest
+     *  whether or not the quantity was reserved for a manifest consumer
+     *
+     * @throws IllegalArgumentException
+     *  if poolId is null, or quantity is negative
+     */
+    public void releasePoolQuantity(String poolId, long quantity, boolean manifest) {
+        String jpql = "UPDATE Pool p SET p.consumed = p.consumed - :quantity, " +
+            "p.exported = p.exported - :exported " +
+            "WHERE p.id = :pool_id";
+
+        this.updatePoolQuantity(jpql, poolId, quantity, manifest);
+    }
+
+    private int updatePoolQuantity(String jpql, String poolId, long quantity, boolean manifest) {
+        if (poolId == null) {
+            throw new IllegalArgumentException("poolId is null");
+        }
+
+        if (quantity < 0) {
+            throw new IllegalArgumentException("quantity is negative");
+        }
+
+        Session session = this.openSession();
+        Transaction transaction = null;
+
+        try {
+            // Impl note: this checks out a second connection alongside the calling transaction's. If
+            // the connection pool is exhausted, this fails once the pool's checkout timeout expires.
+            transaction = session.beginTransaction();
+
+            int updated = session.createQuery(jpql)
+                .setParameter("quantity", quantity)
+                .setParameter("exported", manifest ? quantity : 0L)
+                .setParameter("pool_id", poolId)
+                .setTimeout(RESERVATION_TIMEOUT)
+                .executeUpdate();
+
+            transaction.commit();
+            return updated;
+        }
+        catch (RuntimeException e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            throw e;
+        }
+        finally {
+            session.close();
+        }
+    }
+
     public void markCertificatesDirtyForPoolsWithProducts(Owner owner, Collection<String> productIds) {
         for (List<String> batch : Iterables.partition(productIds, getInBlockSize())) {
             markCertificatesDirtyForPoolsWithNormalProducts(owner, batch);
@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.model;
+
+
+/**
+ * An immutable report of a pool whose stored consumed or exported quantity does not match the
+ * quantities of the entitlements actually drawn from it.
+ *
+ * @param poolId id of the pool
+ * @param consumed the consumed quantity stored on the pool
+ * @param expectedConsumed the total quantity of the pool's entitlements
+ * @param exported the exported quantity stored on the pool
+ * @param expectedExported the total quantity of the pool's entitlements held by manifest consumers
+ */
+public record PoolQuantityDrift(String poolId, long consumed, long expectedConsumed, long exported,
+    long expectedExported) {
+}
@@ -207,6 +207,11 @@ public class Product extends AbstractHibernateObject implements SharedEntity, Li
     @Column
     private Long multiplier;
 
+    // Impl note: this column is only written by the refresher's batch updates, and must never be
+    // written by a flush of this entity, which may hold a stale value.
+    @Column(name = "refresh_fingerprint", length = 64, insertable = false, updatable = false)
+    private String refreshFingerprint;
+
     @ElementCollection
     @BatchSize(size = 32)
     @CollectionTable(name = "cp_product_attributes", joinColumns = @JoinColumn(name = "product_uuid"))
@@ -547,6 +552,17 @@ public class Product extends AbstractHibernateObject implements SharedEntity, Li
         return this;
     }
 
+    /**
+     * Fetches the fingerprint of the upstream product from which this product was last refreshed. If the
+     * product has not been refreshed since fingerprints were introduced, this method returns null.
+     *
+     * @return
+     *  the fingerprint of the upstream product last applied to this product, or null
+     */
+    public String getRefreshFingerprint() {
+        return this.refreshFingerprint;
+    }
+
     /**
      * Retrieves the attributes for this product. If this product does not have any attributes,
      * this method returns an empty map.
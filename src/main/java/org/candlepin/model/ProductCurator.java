@@ -16,11 +16,14 @@ package org.candlepin.model;
 
 import org.candlepin.util.AttributeValidator;
 
+import com.google.common.collect.Iterables;
 import com.google.inject.persist.Transactional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.PreparedStatement;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
@@ -28,6 +31,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 import java.util.SortedSet;
@@ -234,6 +238,82 @@ public class ProductCurator extends AbstractHibernateCurator<Product> {
         return this.getProductsByIds(namespace, productIds, null);
     }
 
+    /**
+     * Fetches the fingerprints of the upstream products last applied to the given global products,
+     * as a mapping of product IDs to fingerprints. Products which do not exist in the global
+     * namespace, or which do not have a recorded fingerprint, will not have an entry in the map.
+     *
+     * @param productIds
+     *  a collection of IDs of the products for which to fetch fingerprints
+     *
+     * @return
+     *  a mapping of product IDs to the fingerprints recorded on their global products
+     */
+    public Map<String, String> getRefreshFingerprints(Collection<String> productIds) {
+        Map<String, String> output = new HashMap<>();
+
+        if (productIds != null && !productIds.isEmpty()) {
+            // Impl note: The global/null namespace is stored as an empty string
+            String jpql = "SELECT prod.id, prod.refreshFingerprint FROM Product prod " +
+                "WHERE prod.namespace = :namespace AND prod.id IN (:product_ids) " +
+                "AND prod.refreshFingerprint IS NOT NULL";
+
+            TypedQuery<Object[]> query = this.getEntityManager()
+                .createQuery(jpql, Object[].class)
+                .setParameter("namespace", "");
+
+            for (List<String> block : this.partition(productIds)) {
+                query.setParameter("product_ids", block)
+                    .getResultList()
+                    .forEach(row -> output.put((String) row[0], (String) row[1]));
+            }
+        }
+
+        return output;
+    }
+
+    /**
+     * Records the fingerprints of the upstream products applied to the given products. The
+     * fingerprints are written directly to the database, so any pending changes to the affected
+     * products should be flushed first.
+     *
+     * @param fingerprints
+     *  a mapping of product UUIDs to the fingerprints to record on those products
+     *
+     * @return
+     *  the number of products updated
+     */
+    public int updateRefreshFingerprints(Map<String, String> fingerprints) {
+        if (fingerprints == null || fingerprints.isEmpty()) {
+            return 0;
+        }
+
+        String sql = "UPDATE " + Product.DB_TABLE + " SET refresh_fingerprint = ? WHERE uuid = ?";
+
+        return this.currentSession().doReturningWork(connection -> {
+            int updated = 0;
+
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (List<Entry<String, String>> block : Iterables.partition(fingerprints.entrySet(),
+                    this.getBatchBlockSize())) {
+
+                    for (Entry<String, String> entry : block) {
+                        statement.setString(1, entry.getValue());
+                        statement.setString(2, entry.getKey());
+                        statement.addBatch();
+                    }
+
+                    for (int count : statement.executeBatch()) {
+                        // Some drivers do not report per-statement counts for batches
+                        updated += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+                    }
+                }
+            }
+
+            return updated;
+        });
+    }
+
     /**
      * Fetches all products in the given namespace. If the namespace does not exist or does not have
      * any products, this method returns an empty list.
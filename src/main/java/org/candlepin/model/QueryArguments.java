@@ -14,6 +14,8 @@
  */
 package org.candlepin.model;
 
+import org.candlepin.paging.PageCursor;
+
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 
@@ -115,6 +117,7 @@ public class QueryArguments<T extends QueryArguments> {
     protected Integer offset;
     protected Integer limit;
     protected Collection<Order> order;
+    protected PageCursor cursor;
 
 
     /**
@@ -221,6 +224,34 @@ public class QueryArguments<T extends QueryArguments> {
         return this.order;
     }
 
+    /**
+     * Sets or clears the cursor after which to begin fetching results. Results are fetched by seeking
+     * past the cursor's sort key and ID, rather than by skipping rows, so the results should also be
+     * ordered on the cursor's sort field followed by the ID. If null, any previously set cursor will
+     * be cleared.
+     *
+     * @param cursor
+     *  the cursor after which to begin fetching results, or null to clear the cursor
+     *
+     * @return
+     *  a reference to this QueryArguments
+     */
+    public T setCursor(PageCursor cursor) {
+        this.cursor = cursor;
+        return (T) this;
+    }
+
+    /**
+     * Gets the cursor after which to begin fetching results. If a cursor has not yet been defined,
+     * this method returns null.
+     *
+     * @return
+     *  the cursor after which to begin fetching results, or null if the cursor has not been defined
+     */
+    public PageCursor getCursor() {
+        return this.cursor;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -237,6 +268,7 @@ public class QueryArguments<T extends QueryArguments> {
                 .append(this.getOffset(), that.getOffset())
                 .append(this.getLimit(), that.getLimit())
                 .append(this.getOrder(), that.getOrder())
+                .append(this.getCursor(), that.getCursor())
                 .isEquals();
         }
 
@@ -252,6 +284,7 @@ public class QueryArguments<T extends QueryArguments> {
             .append(this.getOffset())
             .append(this.getLimit())
             .append(this.getOrder())
+            .append(this.getCursor())
             .toHashCode();
     }
 
@@ -15,6 +15,7 @@
 package org.candlepin.paging;
 
 import java.util.Comparator;
+import java.util.function.Function;
 
 
 
@@ -62,4 +63,23 @@ public interface FieldComparatorFactory<T> {
         return this.getComparator(PageRequest.DEFAULT_SORT_FIELD);
     }
 
+    /**
+     * Fetches a function which reads the value of the given field from elements of this factory's
+     * type. Field accessors are required to continue cursor paged results, as the cursor records the
+     * value of the sort field of the last element of a page.
+     * <p>
+     * The default implementation of this method returns null, indicating that cursor paging is not
+     * supported by this factory.
+     *
+     * @param fieldName
+     *  the name of the field for which to fetch an accessor
+     *
+     * @return
+     *  a function which reads the given field from instances of this factory's type; or null if the
+     *  field name does not have a mapping for the type
+     */
+    default Function<T, Object> getFieldAccessor(String fieldName) {
+        return null;
+    }
+
 }
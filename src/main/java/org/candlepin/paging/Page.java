@@ -25,6 +25,9 @@ public class Page<T> {
     private T pageData;
     private Integer maxRecords;
     private PageRequest pageRequest;
+    private boolean cursorPage;
+    private PageCursor nextCursor;
+    private boolean maxRecordsLowerBound;
 
     public T getPageData() {
         return pageData;
@@ -53,4 +56,52 @@ public class Page<T> {
         return this;
     }
 
+    /**
+     * Checks whether this page was fetched with cursor paging, in which case it is linked to the
+     * next page by cursor rather than by page number.
+     *
+     * @return
+     *  true if this page was fetched with cursor paging; false otherwise
+     */
+    public boolean isCursorPage() {
+        return cursorPage;
+    }
+
+    public Page<T> setCursorPage(boolean cursorPage) {
+        this.cursorPage = cursorPage;
+        return this;
+    }
+
+    /**
+     * Fetches the cursor from which the next page may be fetched, or null if this is the last page.
+     *
+     * @return
+     *  the cursor for the next page, or null if there are no more results
+     */
+    public PageCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public Page<T> setNextCursor(PageCursor nextCursor) {
+        this.nextCursor = nextCursor;
+        return this;
+    }
+
+    /**
+     * Checks whether the record count of this page is only a lower bound on the total number of
+     * results, as the listing stopped processing results once the page was filled. A lower bound
+     * exceeding the end of the page indicates that more results follow.
+     *
+     * @return
+     *  true if the record count is a lower bound; false if it is the exact total
+     */
+    public boolean isMaxRecordsLowerBound() {
+        return maxRecordsLowerBound;
+    }
+
+    public Page<T> setMaxRecordsLowerBound(boolean maxRecordsLowerBound) {
+        this.maxRecordsLowerBound = maxRecordsLowerBound;
+        return this;
+    }
+
 }
@@ -0,0 +1,502 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.paging;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.TemporalAccessor;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Objects;
+
+
+
+/**
+ * A position within a sorted result set, used to continue keyset (seek) paging. Rather than
+ * counting rows from the start of the result set, the next page is fetched by seeking past the
+ * sort key and ID of the last element of the previous page, so the cost of fetching a page does not
+ * depend on how deep into the result set it is.
+ * <p>
+ * Cursors are passed to clients as opaque tokens. A token records the sort field and order it was
+ * built for, so it can be rejected if it is presented with a different sort.
+ * <p>
+ * Elements with a null sort key cannot be reached by seeking past a sort key, and databases do not
+ * agree on where nulls are ordered. Such elements are therefore paged as a separate segment, ordered
+ * by ID alone, which comes before the elements with a sort key in ascending order and after them in
+ * descending order. This matches the ordering of {@link #compareKeys(Object, Object)}. A cursor is
+ * always positioned within a single segment; once a segment is exhausted, paging continues from the
+ * cursor returned by {@link #nextSegment()}.
+ */
+public final class PageCursor {
+
+    /** The field used to break ties between elements with the same sort key */
+    public static final String ID_FIELD = "id";
+
+    private static final String TOKEN_VERSION = "1";
+    private static final String SEPARATOR = ".";
+
+    private static final char TYPE_NULL = 'z';
+    private static final char TYPE_STRING = 's';
+    private static final char TYPE_LONG = 'l';
+    private static final char TYPE_DOUBLE = 'd';
+    private static final char TYPE_BOOLEAN = 'b';
+    private static final char TYPE_DATE = 't';
+
+    private final String sortBy;
+    private final PageRequest.Order order;
+    private final Object sortValue;
+    private final String id;
+    private final boolean nullKeys;
+
+    private PageCursor(String sortBy, PageRequest.Order order, Object sortValue, String id,
+        boolean nullKeys) {
+
+        this.sortBy = sortBy;
+        this.order = order;
+        this.sortValue = sortValue;
+        this.id = id;
+        this.nullKeys = nullKeys;
+    }
+
+    /**
+     * Creates a cursor positioned before the first element of a sorted result set.
+     *
+     * @param sortBy
+     *  the name of the field on which the results are sorted
+     *
+     * @param order
+     *  the order in which the results are sorted
+     *
+     * @throws IllegalArgumentException
+     *  if sortBy or order are null
+     *
+     * @return
+     *  a new cursor positioned before the first element
+     */
+    public static PageCursor first(String sortBy, PageRequest.Order order) {
+        if (sortBy == null || sortBy.isBlank()) {
+            throw new IllegalArgumentException("sortBy is null or empty");
+        }
+
+        if (order == null) {
+            throw new IllegalArgumentException("order is null");
+        }
+
+        // Null sort keys sort first in ascending order
+        return new PageCursor(sortBy, order, null, null, order == PageRequest.Order.ASCENDING);
+    }
+
+    /**
+     * Creates a cursor positioned after an element with the given sort key and ID.
+     *
+     * @param sortBy
+     *  the name of the field on which the results are sorted
+     *
+     * @param order
+     *  the order in which the results are sorted
+     *
+     * @param sortValue
+     *  the value of the sort field of the last element of the page; must be null, or a string,
+     *  number, boolean, date, temporal or enum value
+     *
+     * @param id
+     *  the ID of the last element of the page
+     *
+     * @throws IllegalArgumentException
+     *  if sortBy, order or id are null, or the sort value is of an unsupported type
+     *
+     * @return
+     *  a new cursor positioned after the given element
+     */
+    public static PageCursor after(String sortBy, PageRequest.Order order, Object sortValue, String id) {
+        if (sortBy == null || sortBy.isBlank()) {
+            throw new IllegalArgumentException("sortBy is null or empty");
+        }
+
+        if (order == null) {
+            throw new IllegalArgumentException("order is null");
+        }
+
+        if (id == null) {
+            throw new IllegalArgumentException("id is null");
+        }
+
+        Object normalized = normalize(sortValue);
+        return new PageCursor(sortBy, order, normalized, id, normalized == null);
+    }
+
+    /**
+     * Checks whether values of the given type can be used as cursor sort keys.
+     *
+     * @param type
+     *  the type to check
+     *
+     * @return
+     *  true if values of the given type can be stored in a cursor; false otherwise
+     */
+    public static boolean isSupportedKeyType(Class<?> type) {
+        if (type == null) {
+            return false;
+        }
+
+        if (type.isPrimitive()) {
+            return type != char.class && type != void.class;
+        }
+
+        return String.class == type ||
+            Boolean.class == type ||
+            Date.class.isAssignableFrom(type) ||
+            TemporalAccessor.class.isAssignableFrom(type) ||
+            Double.class == type ||
+            Float.class == type ||
+            Long.class == type ||
+            Integer.class == type ||
+            Short.class == type ||
+            Byte.class == type ||
+            type.isEnum();
+    }
+
+    /**
+     * Converts a sort key to the form in which it is stored in a cursor. Dates and temporal values
+     * are stored as dates, integral numbers as longs, and enums by name.
+     *
+     * @param value
+     *  the value to normalize
+     *
+     * @throws IllegalArgumentException
+     *  if the value is of a type which cannot be stored in a cursor
+     *
+     * @return
+     *  the normalized value
+     */
+    public static Object normalize(Object value) {
+        if (value == null || value instanceof String || value instanceof Boolean) {
+            return value;
+        }
+
+        if (value instanceof Date) {
+            return new Date(((Date) value).getTime());
+        }
+
+        if (value instanceof TemporalAccessor) {
+            return Date.from(Instant.from((TemporalAccessor) value));
+        }
+
+        if (value instanceof Double || value instanceof Float) {
+            return ((Number) value).doubleValue();
+        }
+
+        if (value instanceof Long || value instanceof Integer || value instanceof Short ||
+            value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+
+        if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        }
+
+        throw new IllegalArgumentException("unsupported sort key type: " + value.getClass().getName());
+    }
+
+    /**
+     * Compares two sort keys in ascending order. Both values are normalized before being compared,
+     * and null sorts before any other value.
+     *
+     * @param first
+     *  the first sort key to compare
+     *
+     * @param second
+     *  the second sort key to compare
+     *
+     * @throws IllegalArgumentException
+     *  if either value is of an unsupported type, or the values are not of comparable types
+     *
+     * @return
+     *  a negative integer, zero or a positive integer if the first value is less than, equal to or
+     *  greater than the second
+     */
+    @SuppressWarnings("unchecked")
+    public static int compareKeys(Object first, Object second) {
+        first = normalize(first);
+        second = normalize(second);
+
+        if (first == null || second == null) {
+            return first == second ? 0 : (first == null ? -1 : 1);
+        }
+
+        if (first instanceof Number && second instanceof Number) {
+            return Double.compare(((Number) first).doubleValue(), ((Number) second).doubleValue());
+        }
+
+        if (first.getClass() != second.getClass()) {
+            throw new IllegalArgumentException("incomparable sort keys: " + first.getClass().getName() +
+                ", " + second.getClass().getName());
+        }
+
+        return ((Comparable<Object>) first).compareTo(second);
+    }
+
+    /**
+     * Checks whether this cursor is positioned before an element with the given sort key and ID,
+     * in this cursor's sort order. Only elements preceded by the cursor belong on the next page.
+     *
+     * @param value
+     *  the sort key of the element
+     *
+     * @param id
+     *  the ID of the element
+     *
+     * @return
+     *  true if the element comes after this cursor's position; false otherwise
+     */
+    public boolean precedes(Object value, String id) {
+        if (this.id == null) {
+            // Positioned at the start of a segment: everything in it, and in any later segment, follows
+            return this.nullKeys ?
+                this.order == PageRequest.Order.ASCENDING || value == null :
+                this.order == PageRequest.Order.DESCENDING || value != null;
+        }
+
+        if (this.nullKeys != (normalize(value) == null)) {
+            // Elements in the other segment follow the cursor only if that segment comes later
+            return this.nextSegment() != null;
+        }
+
+        int result = compareKeys(value, this.sortValue);
+        if (result == 0) {
+            result = Objects.compare(id, this.id, String::compareTo);
+        }
+
+        return this.order == PageRequest.Order.DESCENDING ? result < 0 : result > 0;
+    }
+
+    /**
+     * Checks whether this cursor was built for the given sort.
+     *
+     * @param sortBy
+     *  the name of the sort field
+     *
+     * @param order
+     *  the sort order
+     *
+     * @return
+     *  true if this cursor was built for the given sort; false otherwise
+     */
+    public boolean matches(String sortBy, PageRequest.Order order) {
+        return this.sortBy.equals(sortBy) && this.order == order;
+    }
+
+    public String getSortBy() {
+        return this.sortBy;
+    }
+
+    public PageRequest.Order getOrder() {
+        return this.order;
+    }
+
+    /**
+     * Fetches the sort key of the last element of the previous page, in its normalized form.
+     *
+     * @return
+     *  the sort key after which the next page begins
+     */
+    public Object getSortValue() {
+        return this.sortValue;
+    }
+
+    /**
+     * Fetches the ID of the last element of the previous page. If this cursor is positioned at the
+     * start of a segment, this method returns null.
+     *
+     * @return
+     *  the ID after which the next page begins, or null if the next page begins at the start of this
+     *  cursor's segment
+     */
+    public String getId() {
+        return this.id;
+    }
+
+    /**
+     * Checks whether this cursor is positioned within the segment of elements with a null sort key.
+     *
+     * @return
+     *  true if this cursor is positioned among the elements with a null sort key; false otherwise
+     */
+    public boolean isNullKeySegment() {
+        return this.nullKeys;
+    }
+
+    /**
+     * Fetches a cursor positioned at the start of the segment following this cursor's segment. If
+     * this cursor's segment is the last in the sort order, this method returns null.
+     *
+     * @return
+     *  a cursor positioned at the start of the next segment, or null if there are no further segments
+     */
+    public PageCursor nextSegment() {
+        // Null sort keys come first in ascending order, and last in descending order
+        boolean lastSegment = this.nullKeys == (this.order == PageRequest.Order.DESCENDING);
+        return lastSegment ? null : new PageCursor(this.sortBy, this.order, null, null, !this.nullKeys);
+    }
+
+    /**
+     * Encodes this cursor as an opaque, URL-safe token. Only cursors positioned after an element
+     * can be encoded.
+     *
+     * @throws IllegalStateException
+     *  if this cursor is positioned at the start of a segment
+     *
+     * @return
+     *  a token representing this cursor
+     */
+    public String encode() {
+        if (this.id == null) {
+            throw new IllegalStateException("cursor is not positioned after an element");
+        }
+
+        char type;
+        String value;
+
+        if (this.sortValue == null) {
+            type = TYPE_NULL;
+            value = "";
+        }
+        else if (this.sortValue instanceof Date) {
+            type = TYPE_DATE;
+            value = String.valueOf(((Date) this.sortValue).getTime());
+        }
+        else if (this.sortValue instanceof Long) {
+            type = TYPE_LONG;
+            value = this.sortValue.toString();
+        }
+        else if (this.sortValue instanceof Double) {
+            type = TYPE_DOUBLE;
+            value = this.sortValue.toString();
+        }
+        else if (this.sortValue instanceof Boolean) {
+            type = TYPE_BOOLEAN;
+            value = this.sortValue.toString();
+        }
+        else {
+            type = TYPE_STRING;
+            value = (String) this.sortValue;
+        }
+
+        return String.join(SEPARATOR, TOKEN_VERSION, encodePart(this.sortBy),
+            this.order == PageRequest.Order.ASCENDING ? "a" : "d", String.valueOf(type),
+            encodePart(value), encodePart(this.id));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @param token
+     *  the token to decode
+     *
+     * @throws IllegalArgumentException
+     *  if the token is null or malformed
+     *
+     * @return
+     *  the cursor represented by the token
+     */
+    public static PageCursor decode(String token) {
+        if (token == null) {
+            throw new IllegalArgumentException("token is null");
+        }
+
+        String[] parts = token.split("\\.", -1);
+        if (parts.length != 6 || !TOKEN_VERSION.equals(parts[0]) || parts[3].length() != 1) {
+            throw new IllegalArgumentException("malformed page cursor: " + token);
+        }
+
+        PageRequest.Order order;
+        switch (parts[2]) {
+            case "a":
+                order = PageRequest.Order.ASCENDING;
+                break;
+            case "d":
+                order = PageRequest.Order.DESCENDING;
+                break;
+            default:
+                throw new IllegalArgumentException("malformed page cursor: " + token);
+        }
+
+        String value = decodePart(parts[4]);
+        Object sortValue;
+
+        switch (parts[3].charAt(0)) {
+            case TYPE_NULL:
+                sortValue = null;
+                break;
+            case TYPE_STRING:
+                sortValue = value;
+                break;
+            case TYPE_LONG:
+                sortValue = Long.parseLong(value);
+                break;
+            case TYPE_DOUBLE:
+                sortValue = Double.parseDouble(value);
+                break;
+            case TYPE_BOOLEAN:
+                sortValue = Boolean.parseBoolean(value);
+                break;
+            case TYPE_DATE:
+                sortValue = new Date(Long.parseLong(value));
+                break;
+            default:
+                throw new IllegalArgumentException("malformed page cursor: " + token);
+        }
+
+        return after(decodePart(parts[1]), order, sortValue, decodePart(parts[5]));
+    }
+
+    private static String encodePart(String part) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(part.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodePart(String part) {
+        return new String(Base64.getUrlDecoder().decode(part), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+
+        if (!(obj instanceof PageCursor)) {
+            return false;
+        }
+
+        PageCursor that = (PageCursor) obj;
+        return this.sortBy.equals(that.sortBy) &&
+            this.order == that.order &&
+            Objects.equals(this.sortValue, that.sortValue) &&
+            Objects.equals(this.id, that.id) &&
+            this.nullKeys == that.nullKeys;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.sortBy, this.order, this.sortValue, this.id, this.nullKeys);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PageCursor [sortBy: %s, order: %s, sortValue: %s, id: %s, nullKeys: %s]",
+            this.sortBy, this.order, this.sortValue, this.id, this.nullKeys);
+    }
+}
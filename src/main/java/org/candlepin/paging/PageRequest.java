@@ -30,6 +30,8 @@ public class PageRequest {
     public static final String SORT_BY_PARAM = "sort_by";
     public static final String PAGE_PARAM = "page";
     public static final String PER_PAGE_PARAM = "per_page";
+    public static final String CURSOR_PARAM = "cursor";
+    public static final String INCLUDE_COUNT_PARAM = "include_count";
 
     public static final Integer DEFAULT_PAGE = 1;
     public static final Integer DEFAULT_PER_PAGE = 10;
@@ -40,6 +42,9 @@ public class PageRequest {
     private Integer perPage;
     private String sortBy;
     private Order order;
+    private boolean cursorPaging;
+    private PageCursor cursor;
+    private Boolean includeCount;
 
     public Integer getPage() {
         return page;
@@ -80,4 +85,55 @@ public class PageRequest {
     public boolean isPaging() {
         return perPage != null && page != null;
     }
+
+    /**
+     * Checks whether the client asked for cursor (keyset) paging rather than numbered pages. A
+     * cursor paged request is also a request for the first numbered page, so endpoints which do not
+     * support cursors still return a single page of results.
+     *
+     * @return
+     *  true if cursor paging was requested; false otherwise
+     */
+    public boolean isCursorPaging() {
+        return cursorPaging && perPage != null;
+    }
+
+    public PageRequest setCursorPaging(boolean cursorPaging) {
+        this.cursorPaging = cursorPaging;
+        return this;
+    }
+
+    /**
+     * Fetches the position after which the requested page begins. If cursor paging was requested
+     * without a cursor, the first page is requested and this method returns null.
+     *
+     * @return
+     *  the cursor after which the requested page begins, or null for the first page
+     */
+    public PageCursor getCursor() {
+        return cursor;
+    }
+
+    public PageRequest setCursor(PageCursor cursor) {
+        this.cursor = cursor;
+        return this;
+    }
+
+    /**
+     * Checks whether the total number of results should be counted. Cursor paged requests are only
+     * counted if the client asks for the total. Numbered pages are counted unless the client
+     * declines the total, as their links depend on it; listings which can only count their results
+     * by processing all of them may then report a lower bound instead.
+     *
+     * @return
+     *  true if the total number of results should be counted; false otherwise
+     */
+    public boolean isIncludeCount() {
+        return includeCount != null ? includeCount : !isCursorPaging();
+    }
+
+    public PageRequest setIncludeCount(boolean includeCount) {
+        this.includeCount = includeCount;
+        return this;
+    }
 }
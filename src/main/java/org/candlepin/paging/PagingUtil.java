@@ -21,8 +21,11 @@ import org.xnap.commons.i18n.I18n;
 
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 
@@ -83,6 +86,10 @@ public class PagingUtil<T> {
             return stream;
         }
 
+        if (pageRequest.isCursorPaging()) {
+            return this.applyCursorPaging(stream, count, pageRequest);
+        }
+
         // Impl note:
         // Sorting will always be required (for consistency) if a page request object is
         // present -- either .isPaging() will be true, or we'll have ordering config.
@@ -131,6 +138,80 @@ public class PagingUtil<T> {
         return stream;
     }
 
+    /**
+     * Applies cursor paging to the given stream, returning only the elements following the request's
+     * cursor, up to one page. Elements are ordered by the requested sort field and then by ID, so the
+     * position of each element is unique.
+     */
+    private Stream<T> applyCursorPaging(Stream<T> stream, int count, PageRequest pageRequest) {
+        String sortField = pageRequest.getSortBy() != null && !pageRequest.getSortBy().isBlank() ?
+            pageRequest.getSortBy() :
+            PageRequest.DEFAULT_SORT_FIELD;
+
+        PageRequest.Order order = Optional.ofNullable(pageRequest.getOrder())
+            .orElse(PageRequest.DEFAULT_ORDER);
+
+        Function<T, Object> keyAccessor = this.comparatorFactory.getFieldAccessor(sortField);
+        Function<T, Object> idAccessor = this.comparatorFactory.getFieldAccessor(PageCursor.ID_FIELD);
+
+        if (keyAccessor == null || idAccessor == null) {
+            throw new BadRequestException(
+                this.i18n.tr("Cursor paging is not supported for sort-by field: {0}", sortField));
+        }
+
+        PageCursor cursor = pageRequest.getCursor();
+        if (cursor != null && !cursor.matches(sortField, order)) {
+            throw new BadRequestException(
+                this.i18n.tr("The page cursor does not match the requested sort-by field and order"));
+        }
+
+        Function<T, String> idFunction = elem -> String.valueOf(idAccessor.apply(elem));
+        Comparator<T> comparator = Comparator.<T, Object>comparing(keyAccessor, PageCursor::compareKeys)
+            .thenComparing(idFunction);
+
+        if (order == PageRequest.Order.DESCENDING) {
+            comparator = comparator.reversed();
+        }
+
+        int pageSize = pageRequest.getPerPage();
+        List<T> elements;
+
+        try {
+            // Fetch one element beyond the page to find out whether there is a next page
+            elements = stream
+                .filter(elem -> cursor == null ||
+                    cursor.precedes(keyAccessor.apply(elem), idFunction.apply(elem)))
+                .sorted(comparator)
+                .limit(pageSize + 1L)
+                .collect(Collectors.toList());
+        }
+        catch (IllegalArgumentException e) {
+            throw new BadRequestException(
+                this.i18n.tr("Cursor paging is not supported for sort-by field: {0}", sortField), e);
+        }
+
+        PageCursor nextCursor = null;
+        if (elements.size() > pageSize) {
+            elements = elements.subList(0, pageSize);
+
+            T last = elements.get(pageSize - 1);
+            nextCursor = PageCursor.after(sortField, order, keyAccessor.apply(last), idFunction.apply(last));
+        }
+
+        Page<T> contextPage = new Page<T>()
+            .setPageRequest(pageRequest)
+            .setCursorPage(true)
+            .setNextCursor(nextCursor);
+
+        if (pageRequest.isIncludeCount()) {
+            contextPage.setMaxRecords(count);
+        }
+
+        ResteasyContext.pushContext(Page.class, contextPage);
+
+        return elements.stream();
+    }
+
     /**
      * Converts the given collection to a stream, with any paging in the request context applied.
      * If the request does not define any paging information, this method returns the a stream
@@ -85,9 +85,9 @@ public class ReflectionFieldComparatorFactory<T> implements FieldComparatorFacto
     }
 
     /**
-     * Gets the extractor function from the underlying type that best matches the given field name.
-     * The extractor function must be a public method that requires zero parameters, have a return
-     * types implementing the Comparable interface, and following the naming convention of
+     * Gets the accessor method from the underlying type that best matches the given field name. The
+     * accessor must be a public method that requires zero parameters, have a return type
+     * implementing the Comparable interface, and following the naming convention of
      * "[prefix][field_name]", where prefix is one of "get", "is", or "has", and "field_name" is the
      * given field name in title case. If a matching method cannot be found, this method returns null.
      * <p>
@@ -97,15 +97,14 @@ public class ReflectionFieldComparatorFactory<T> implements FieldComparatorFacto
      * <strong>not</strong> "providedproducts".
      *
      * @param fieldName
-     *  the name of the field for which to generate an extractor function; case-sensitive. May be
-     *  specified in either camel case or title case without spaces.
+     *  the name of the field for which to find an accessor; case-sensitive. May be specified in
+     *  either camel case or title case without spaces.
      *
      * @return
-     *  an extractor function for the specified field name, or null if the field name could not be
+     *  the accessor method for the specified field name, or null if the field name could not be
      *  mapped to an accessor method on the underlying type
      */
-    @SuppressWarnings("unchecked")
-    private Function<? super T, Comparable<? super Comparable>> getExtractorFunction(String fieldName) {
+    private Method getAccessorMethod(String fieldName) {
         if (fieldName == null || fieldName.isBlank()) {
             return null;
         }
@@ -117,18 +116,9 @@ public class ReflectionFieldComparatorFactory<T> implements FieldComparatorFacto
                 Method method = this.type.getMethod(candidate);
                 Class<?> returnType = method.getReturnType();
 
-                if (returnType == null || !Comparable.class.isAssignableFrom(returnType)) {
-                    throw new NoSuchMethodException("incomparable return type: " + returnType);
+                if (returnType != null && Comparable.class.isAssignableFrom(returnType)) {
+                    return method;
                 }
-
-                return (T instance) -> {
-                    try {
-                        return (Comparable<? super Comparable>) method.invoke(instance);
-                    }
-                    catch (InvocationTargetException | IllegalAccessException e) {
-                        throw new RuntimeException(e); // This shouldn't happen... probably.
-                    }
-                };
             }
             catch (NoSuchMethodException e) {
                 // Intentionally left empty
@@ -138,6 +128,51 @@ public class ReflectionFieldComparatorFactory<T> implements FieldComparatorFacto
         return null;
     }
 
+    /**
+     * Gets the extractor function from the underlying type that best matches the given field name,
+     * as mapped by {@link #getAccessorMethod(String)}. If a matching method cannot be found, this
+     * method returns null.
+     *
+     * @param fieldName
+     *  the name of the field for which to generate an extractor function; case-sensitive. May be
+     *  specified in either camel case or title case without spaces.
+     *
+     * @return
+     *  an extractor function for the specified field name, or null if the field name could not be
+     *  mapped to an accessor method on the underlying type
+     */
+    @SuppressWarnings("unchecked")
+    private Function<? super T, Comparable<? super Comparable>> getExtractorFunction(String fieldName) {
+        Method method = this.getAccessorMethod(fieldName);
+        if (method == null) {
+            return null;
+        }
+
+        return (T instance) -> {
+            try {
+                return (Comparable<? super Comparable>) method.invoke(instance);
+            }
+            catch (InvocationTargetException | IllegalAccessException e) {
+                throw new RuntimeException(e); // This shouldn't happen... probably.
+            }
+        };
+    }
+
+    /**
+     * Fetches the type of the value returned by the accessor best matching the given field name.
+     *
+     * @param fieldName
+     *  the name of the field for which to fetch the type
+     *
+     * @return
+     *  the type of the given field, or null if the field name could not be mapped to an accessor
+     *  method on the underlying type
+     */
+    public Class<?> getFieldType(String fieldName) {
+        Method method = this.getAccessorMethod(fieldName);
+        return method != null ? method.getReturnType() : null;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -147,6 +182,15 @@ public class ReflectionFieldComparatorFactory<T> implements FieldComparatorFacto
         return extractor != null ? Comparator.comparing(extractor) : null;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Function<T, Object> getFieldAccessor(String fieldName) {
+        Function<? super T, Comparable<? super Comparable>> extractor = this.getExtractorFunction(fieldName);
+        return extractor != null ? extractor::apply : null;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -25,9 +25,11 @@ import java.security.KeyException;
 import java.security.KeyPair;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
+import java.security.Signature;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.Date;
+import java.util.List;
 import java.util.Set;
 
 
@@ -54,11 +56,40 @@ public interface PKIUtility {
 
     byte[] getSHA256WithRSAHash(InputStream input);
 
+    /**
+     * Creates a SHA256withRSA signature initialized for signing with the CA key. Unlike
+     * {@link #getSHA256WithRSAHash(InputStream)}, this allows data to be signed as it is produced,
+     * rather than read back once complete.
+     *
+     * @throws GeneralSecurityException
+     *  if the signature cannot be created or initialized
+     *
+     * @return
+     *  a new Signature instance, ready to be updated with the data to sign
+     */
+    Signature getSHA256WithRSASigner() throws GeneralSecurityException;
+
     boolean verifySHA256WithRSAHashAgainstCACerts(File input, byte[] signedHash)
         throws CertificateException, IOException;
 
     /**
-     * Generates a new, unassociated key pair consisting of a public and private key.
+     * Creates SHA256withRSA signatures initialized for verification, one with the CA certificate and
+     * one with each upstream CA certificate. Unlike
+     * {@link #verifySHA256WithRSAHashAgainstCACerts(File, byte[])}, this allows data to be verified
+     * as it is read, rather than read back from a file. The data is considered verified if any of
+     * the signatures verifies it.
+     *
+     * @throws GeneralSecurityException
+     *  if a signature cannot be created or initialized
+     *
+     * @return
+     *  a list of new Signature instances, ready to be updated with the data to verify
+     */
+    List<Signature> getSHA256WithRSAVerifiers() throws GeneralSecurityException;
+
+    /**
+     * Generates a new, unassociated key pair consisting of a public and private key. Implementations
+     * may hand out key pairs generated ahead of time, but never hand out the same key pair twice.
      *
      * @return
      *  a KeyPair instance containing a new public and private key
@@ -78,4 +109,11 @@ public interface PKIUtility {
      *  the KeyPair instance containing the public and private keys for the specified consumer
      */
     KeyPair getConsumerKeyPair(Consumer consumer) throws KeyException;
+
+    /**
+     * Releases any background resources held by this utility. Called once at shutdown.
+     */
+    default void shutdown() {
+        // Nothing to release by default
+    }
 }
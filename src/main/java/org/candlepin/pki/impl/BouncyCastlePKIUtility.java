@@ -112,6 +112,7 @@ public class BouncyCastlePKIUtility extends ProviderBasedPKIUtility {
 
     private final Provider<BouncyCastleProvider> securityProvider;
     private final KeyPairDataCurator keypairDataCurator;
+    private final KeyPairPool keyPairPool;
 
     @Inject
     public BouncyCastlePKIUtility(Provider<BouncyCastleProvider> securityProvider, CertificateReader reader,
@@ -120,6 +121,7 @@ public class BouncyCastlePKIUtility extends ProviderBasedPKIUtility {
         super(reader, subjectKeyWriter, config);
         this.keypairDataCurator = Objects.requireNonNull(keypairDataCurator);
         this.securityProvider = Objects.requireNonNull(securityProvider);
+        this.keyPairPool = new KeyPairPool(config, this::createKeyPair);
     }
 
     @Override
@@ -445,6 +447,27 @@ public class BouncyCastlePKIUtility extends ProviderBasedPKIUtility {
      */
     @Override
     public KeyPair generateKeyPair() throws KeyException {
+        return this.keyPairPool.take();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void shutdown() {
+        this.keyPairPool.shutdown();
+    }
+
+    /**
+     * Generates a new key pair synchronously, bypassing the key pair pool.
+     *
+     * @throws KeyException
+     *  if the key generation algorithm is not available
+     *
+     * @return
+     *  a new key pair
+     */
+    private KeyPair createKeyPair() throws KeyException {
         try {
             KeyPairGenerator keyGen = KeyPairGenerator.getInstance(KEY_ALGORITHM);
             keyGen.initialize(KEY_SIZE);
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.pki.impl;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+
+
+/**
+ * A bounded pool of threads used to perform the CPU-bound portion of certificate generation in
+ * parallel. Signing a certificate and its payload is pure computation over data which has already
+ * been loaded, so callers prepare everything which requires the database on their own thread and
+ * submit only the signing work to the pool.
+ * <p>
+ * A pool with a single thread is disabled, and simply runs every task on the calling thread.
+ */
+@Singleton
+public class CertificateSigningPool {
+    private static final Logger log = LoggerFactory.getLogger(CertificateSigningPool.class);
+
+    /**
+     * A unit of signing work. Tasks are run on the pool's threads, and must not access the database
+     * or any lazily-loaded entity state.
+     *
+     * @param <T>
+     *  the type of the task's result
+     */
+    @FunctionalInterface
+    public interface SigningTask<T> {
+        T sign() throws GeneralSecurityException, IOException;
+    }
+
+    private final int threads;
+    private final ExecutorService executor;
+
+    @Inject
+    public CertificateSigningPool(Configuration config) {
+        this(config.getInt(ConfigProperties.PKI_SIGNING_THREADS));
+    }
+
+    /**
+     * Creates a new signing pool with the given number of threads.
+     *
+     * @param threads
+     *  the number of threads to use for signing; zero sizes the pool to the number of available
+     *  processors
+     *
+     * @throws IllegalArgumentException
+     *  if the thread count is negative
+     */
+    public CertificateSigningPool(int threads) {
+        if (threads < 0) {
+            throw new IllegalArgumentException("thread count is negative: " + threads);
+        }
+
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        if (this.threads > 1) {
+            this.executor = Executors.newFixedThreadPool(this.threads, new ThreadFactoryBuilder()
+                .setNameFormat("cert-signing-%d")
+                .setDaemon(true)
+                .build());
+        }
+        else {
+            this.executor = null;
+        }
+
+        log.debug("Certificate signing pool created with {} thread(s)", this.threads);
+    }
+
+    /**
+     * Fetches the number of threads used by this pool.
+     *
+     * @return
+     *  the number of signing threads
+     */
+    public int getThreadCount() {
+        return this.threads;
+    }
+
+    /**
+     * Runs the given tasks and returns their results in the order in which the tasks were provided.
+     * If any task fails, the remaining tasks are cancelled and the first failure, in task order, is
+     * rethrown.
+     *
+     * @param tasks
+     *  the tasks to run
+     *
+     * @throws GeneralSecurityException
+     *  if a task fails with a GeneralSecurityException
+     *
+     * @throws IOException
+     *  if a task fails with an IOException
+     *
+     * @return
+     *  a list containing the result of each task
+     */
+    public <T> List<T> signAll(List<? extends SigningTask<T>> tasks)
+        throws GeneralSecurityException, IOException {
+
+        if (this.executor == null || tasks.size() < 2) {
+            return this.signOnCallingThread(tasks);
+        }
+
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        try {
+            for (SigningTask<T> task : tasks) {
+                futures.add(this.executor.submit(task::sign));
+            }
+        }
+        catch (RejectedExecutionException e) {
+            // The pool has been shut down; any tasks already submitted will still complete, but
+            // it's simpler to discard them and sign everything here
+            log.debug("Certificate signing pool is shut down; signing on the calling thread");
+            futures.forEach(future -> future.cancel(true));
+
+            return this.signOnCallingThread(tasks);
+        }
+
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        }
+        catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException("Interrupted while waiting for certificate signing", e);
+        }
+        catch (ExecutionException | CancellationException e) {
+            futures.forEach(future -> future.cancel(true));
+
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof GeneralSecurityException) {
+                throw (GeneralSecurityException) cause;
+            }
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IllegalStateException("Unexpected exception during certificate signing", cause);
+        }
+
+        return results;
+    }
+
+    private <T> List<T> signOnCallingThread(List<? extends SigningTask<T>> tasks)
+        throws GeneralSecurityException, IOException {
+
+        List<T> results = new ArrayList<>(tasks.size());
+        for (SigningTask<T> task : tasks) {
+            results.add(task.sign());
+        }
+
+        return results;
+    }
+
+    /**
+     * Shuts down the pool's threads once any tasks already submitted have completed. Tasks
+     * submitted after shutdown are run on the calling thread.
+     */
+    public void shutdown() {
+        if (this.executor != null) {
+            this.executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.pki.impl;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.util.JmxUtil;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.KeyException;
+import java.security.KeyPair;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.ObjectName;
+
+
+
+/**
+ * A bounded pool of pre-generated key pairs. Generating large RSA keys is expensive and has
+ * unpredictable latency, so rather than generating them within a request, a set of background
+ * threads keep the pool filled, and requests only fall back to synchronous generation when the pool
+ * has been drained.
+ * <p>
+ * The pool is filled when it is created, and refilled whenever a request leaves it at or below its
+ * low water mark. A pool with a capacity of zero is disabled, and simply generates a key pair for
+ * every request.
+ */
+public class KeyPairPool implements KeyPairPoolMXBean {
+    private static final Logger log = LoggerFactory.getLogger(KeyPairPool.class);
+
+    /**
+     * Source of new key pairs for the pool
+     */
+    @FunctionalInterface
+    public interface KeyPairSource {
+        KeyPair generate() throws KeyException;
+    }
+
+    private final KeyPairSource source;
+    private final int capacity;
+    private final int lowWaterMark;
+    private final int threads;
+
+    private final BlockingQueue<KeyPair> pool;
+    private final ExecutorService executor;
+    private final AtomicBoolean refilling;
+    private final ObjectName objectName;
+
+    private final LongAdder pooledCount;
+    private final LongAdder fallbackCount;
+    private final LongAdder generatedCount;
+    private final LongAdder failureCount;
+
+    private volatile boolean shutdown;
+
+    /**
+     * Creates a new key pair pool using the pool settings from the given configuration, and begins
+     * filling it in the background.
+     *
+     * @param config
+     *  the configuration from which to read the pool settings
+     *
+     * @param source
+     *  the source to use to generate key pairs
+     *
+     * @throws IllegalArgumentException
+     *  if the configured pool settings are invalid
+     */
+    public KeyPairPool(Configuration config, KeyPairSource source) {
+        this(config.getInt(ConfigProperties.PKI_KEYPAIR_POOL_SIZE),
+            config.getInt(ConfigProperties.PKI_KEYPAIR_POOL_LOW_WATER_MARK),
+            config.getInt(ConfigProperties.PKI_KEYPAIR_POOL_THREADS),
+            source);
+    }
+
+    /**
+     * Creates a new key pair pool with the given settings, and begins filling it in the background.
+     *
+     * @param capacity
+     *  the maximum number of key pairs to hold; zero disables the pool
+     *
+     * @param lowWaterMark
+     *  the pool depth at or below which a refill will be triggered
+     *
+     * @param threads
+     *  the number of background threads to use to refill the pool
+     *
+     * @param source
+     *  the source to use to generate key pairs
+     *
+     * @throws IllegalArgumentException
+     *  if any of the pool settings are invalid
+     */
+    public KeyPairPool(int capacity, int lowWaterMark, int threads, KeyPairSource source) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity is negative: " + capacity);
+        }
+
+        if (lowWaterMark < 0 || (capacity > 0 && lowWaterMark >= capacity)) {
+            throw new IllegalArgumentException("low water mark must be in the range [0, capacity): " +
+                lowWaterMark);
+        }
+
+        if (capacity > 0 && threads < 1) {
+            throw new IllegalArgumentException("thread count must be positive: " + threads);
+        }
+
+        this.source = Objects.requireNonNull(source);
+        this.capacity = capacity;
+        this.lowWaterMark = lowWaterMark;
+        this.threads = threads;
+
+        this.pooledCount = new LongAdder();
+        this.fallbackCount = new LongAdder();
+        this.generatedCount = new LongAdder();
+        this.failureCount = new LongAdder();
+        this.refilling = new AtomicBoolean(false);
+
+        if (capacity > 0) {
+            this.pool = new ArrayBlockingQueue<>(capacity);
+            this.executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+                .setNameFormat("keypair-pool-%d")
+                .setDaemon(true)
+                .setPriority(Thread.MIN_PRIORITY)
+                .build());
+
+            this.objectName = JmxUtil.register(this, KeyPairPool.class.getSimpleName(), null);
+            this.triggerRefill();
+        }
+        else {
+            this.pool = null;
+            this.executor = null;
+            this.objectName = null;
+        }
+    }
+
+    /**
+     * Takes a key pair from the pool, generating one synchronously if the pool is empty or
+     * disabled. Each key pair is handed out at most once.
+     *
+     * @throws KeyException
+     *  if the pool is empty and a key pair could not be generated
+     *
+     * @return
+     *  a new key pair
+     */
+    public KeyPair take() throws KeyException {
+        if (this.pool == null || this.shutdown) {
+            return this.source.generate();
+        }
+
+        KeyPair keypair = this.pool.poll();
+        if (this.pool.size() <= this.lowWaterMark) {
+            this.triggerRefill();
+        }
+
+        if (keypair != null) {
+            this.pooledCount.increment();
+            return keypair;
+        }
+
+        log.debug("Key pair pool is empty; generating key pair synchronously");
+        this.fallbackCount.increment();
+
+        return this.source.generate();
+    }
+
+    /**
+     * Starts a refill cycle if one is not already running. Each of the pool threads generates key
+     * pairs until the pool is full, then exits; the cycle ends once every thread has exited.
+     */
+    private void triggerRefill() {
+        if (this.shutdown || !this.refilling.compareAndSet(false, true)) {
+            return;
+        }
+
+        AtomicInteger active = new AtomicInteger(this.threads);
+
+        try {
+            for (int i = 0; i < this.threads; ++i) {
+                this.executor.execute(() -> this.refill(active));
+            }
+        }
+        catch (RejectedExecutionException e) {
+            // Only happens while shutting down
+            this.refilling.set(false);
+        }
+    }
+
+    private void refill(AtomicInteger active) {
+        try {
+            while (!this.shutdown && this.pool.remainingCapacity() > 0) {
+                KeyPair keypair = this.source.generate();
+                this.generatedCount.increment();
+
+                // Another thread may have filled the last slot while we were generating
+                if (!this.pool.offer(keypair)) {
+                    break;
+                }
+            }
+        }
+        catch (Exception e) {
+            this.failureCount.increment();
+            log.warn("Unable to generate key pair for pool", e);
+        }
+        finally {
+            if (active.decrementAndGet() == 0) {
+                this.refilling.set(false);
+            }
+        }
+    }
+
+    /**
+     * Stops the background refill threads and discards any pooled key pairs. Subsequent requests
+     * will generate key pairs synchronously.
+     */
+    public void shutdown() {
+        this.shutdown = true;
+
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+            this.pool.clear();
+        }
+
+        JmxUtil.unregister(this.objectName);
+    }
+
+    @Override
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    @Override
+    public int getLowWaterMark() {
+        return this.lowWaterMark;
+    }
+
+    @Override
+    public int getDepth() {
+        return this.pool != null ? this.pool.size() : 0;
+    }
+
+    @Override
+    public long getPooledCount() {
+        return this.pooledCount.sum();
+    }
+
+    @Override
+    public long getFallbackCount() {
+        return this.fallbackCount.sum();
+    }
+
+    @Override
+    public long getGeneratedCount() {
+        return this.generatedCount.sum();
+    }
+
+    @Override
+    public long getFailureCount() {
+        return this.failureCount.sum();
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.pki.impl;
+
+/**
+ * Management interface exposing the state of a {@link KeyPairPool}.
+ */
+public interface KeyPairPoolMXBean {
+
+    /**
+     * @return
+     *  the maximum number of key pairs held by the pool; zero if the pool is disabled
+     */
+    int getCapacity();
+
+    /**
+     * @return
+     *  the pool depth at or below which a refill is triggered
+     */
+    int getLowWaterMark();
+
+    /**
+     * @return
+     *  the number of key pairs currently available in the pool
+     */
+    int getDepth();
+
+    /**
+     * @return
+     *  the number of key pair requests served from the pool
+     */
+    long getPooledCount();
+
+    /**
+     * @return
+     *  the number of key pair requests which found the pool empty and had to generate a key pair
+     *  synchronously
+     */
+    long getFallbackCount();
+
+    /**
+     * @return
+     *  the number of key pairs generated by the background refill threads
+     */
+    long getGeneratedCount();
+
+    /**
+     * @return
+     *  the number of background key pair generation attempts which failed
+     */
+    long getFailureCount();
+}
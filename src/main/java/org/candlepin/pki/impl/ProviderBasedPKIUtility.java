@@ -38,7 +38,9 @@ import java.security.SignatureException;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 
@@ -88,8 +90,7 @@ public abstract class ProviderBasedPKIUtility implements PKIUtility {
     @Override
     public byte[] getSHA256WithRSAHash(InputStream input) {
         try {
-            Signature signature = Signature.getInstance("SHA256withRSA");
-            signature.initSign(reader.getCaKey());
+            Signature signature = this.getSHA256WithRSASigner();
 
             updateSignature(input, signature);
             return signature.sign();
@@ -99,6 +100,33 @@ public abstract class ProviderBasedPKIUtility implements PKIUtility {
         }
     }
 
+    @Override
+    public Signature getSHA256WithRSASigner() throws GeneralSecurityException {
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(reader.getCaKey());
+
+        return signature;
+    }
+
+    @Override
+    public List<Signature> getSHA256WithRSAVerifiers() throws GeneralSecurityException {
+        List<Signature> verifiers = new ArrayList<>();
+        verifiers.add(this.getSHA256WithRSAVerifier(reader.getCACert()));
+
+        for (X509Certificate cert : reader.getUpstreamCACerts()) {
+            verifiers.add(this.getSHA256WithRSAVerifier(cert));
+        }
+
+        return verifiers;
+    }
+
+    private Signature getSHA256WithRSAVerifier(Certificate certificate) throws GeneralSecurityException {
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initVerify(certificate);
+
+        return signature;
+    }
+
     @Override
     public boolean verifySHA256WithRSAHashAgainstCACerts(File input, byte[] signedHash)
         throws CertificateException, IOException {
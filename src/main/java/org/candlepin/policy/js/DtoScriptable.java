@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js;
+
+import org.candlepin.policy.js.ScriptableDtoBridge.DtoAccessor;
+import org.candlepin.policy.js.ScriptableDtoBridge.PropertyAccessor;
+
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+
+
+/**
+ * A JavaScript object backed by a rules DTO. Each property is read from the DTO and converted the
+ * first time the rules access it, then cached in the object like any other property.
+ * <p>
+ * The rules decorate and modify the objects they are given, so the view accepts writes and
+ * deletions, which shadow the DTO's value. The DTO itself is never modified.
+ */
+class DtoScriptable extends ScriptableObject {
+    private static final long serialVersionUID = 1L;
+
+    private final transient ScriptableDtoBridge.Converter converter;
+    private final transient DtoAccessor accessor;
+    private final transient Object dto;
+
+    /** Names of the DTO properties which have been read or overwritten */
+    private final Set<String> resolved;
+
+    public DtoScriptable(ScriptableDtoBridge.Converter converter, DtoAccessor accessor, Object dto,
+        Scriptable scope) {
+
+        this.converter = converter;
+        this.accessor = accessor;
+        this.dto = dto;
+        this.resolved = new HashSet<>();
+
+        this.setParentScope(scope);
+        this.setPrototype(ScriptableObject.getObjectPrototype(scope));
+    }
+
+    @Override
+    public String getClassName() {
+        return "Object";
+    }
+
+    /**
+     * Reads the given DTO property into this object, if it has not already been read or overwritten.
+     */
+    private void resolve(String name) {
+        if (this.resolved.contains(name)) {
+            return;
+        }
+
+        PropertyAccessor property = this.accessor.getProperty(name);
+        if (property != null) {
+            this.resolved.add(name);
+
+            Object value = this.converter.readProperty(this.dto, property);
+            if (value != Scriptable.NOT_FOUND) {
+                super.put(name, this, value);
+            }
+        }
+    }
+
+    @Override
+    public Object get(String name, Scriptable start) {
+        this.resolve(name);
+        return super.get(name, start);
+    }
+
+    @Override
+    public boolean has(String name, Scriptable start) {
+        this.resolve(name);
+        return super.has(name, start);
+    }
+
+    @Override
+    public void put(String name, Scriptable start, Object value) {
+        if (start == this) {
+            this.resolved.add(name);
+        }
+
+        super.put(name, start, value);
+    }
+
+    @Override
+    public void delete(String name) {
+        this.resolved.add(name);
+        super.delete(name);
+    }
+
+    @Override
+    public Object[] getIds() {
+        this.resolveAll();
+        return this.orderIds(super.getIds());
+    }
+
+    @Override
+    public Object[] getAllIds() {
+        this.resolveAll();
+        return this.orderIds(super.getAllIds());
+    }
+
+    private void resolveAll() {
+        for (String name : this.accessor.getPropertyNames()) {
+            this.resolve(name);
+        }
+    }
+
+    /**
+     * Orders the given property IDs as JSON.parse would have: the DTO's properties in their
+     * serialized order, followed by any properties added by the rules.
+     */
+    private Object[] orderIds(Object[] ids) {
+        Set<Object> present = new HashSet<>(Arrays.asList(ids));
+        List<Object> ordered = new ArrayList<>(ids.length);
+
+        for (String name : this.accessor.getPropertyNames()) {
+            if (present.contains(name)) {
+                ordered.add(name);
+            }
+        }
+
+        for (Object id : ids) {
+            if (!(id instanceof String) || this.accessor.getProperty((String) id) == null) {
+                ordered.add(id);
+            }
+        }
+
+        return ordered.toArray();
+    }
+}
@@ -38,6 +38,17 @@ public abstract class JsContext {
         this.contextArgs.put(contextKey, contextVal);
     }
 
+    /**
+     * Fetches the length of the JSON document most recently applied by this context.
+     *
+     * @return
+     *  the length of the JSON document applied by this context, or -1 if this context has not
+     *  applied its arguments as a JSON document
+     */
+    public long getPayloadSize() {
+        return -1;
+    }
+
     /**
      * Apply this context's arguments to the specified {@link Scriptable}.
      *
@@ -24,6 +24,8 @@ import org.mozilla.javascript.Wrapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Objects;
+
 /**
  * JsRunner - Responsible for running the javascript rules methods in all
  * namespaces.
@@ -36,11 +38,17 @@ public class JsRunner {
     private Object rulesNameSpace;
     private String namespace;
     private Scriptable scope;
+    private RulesMetrics metrics;
 
     private boolean initialized = false;
 
     public JsRunner(Scriptable scope) {
+        this(scope, new RulesMetrics(false));
+    }
+
+    public JsRunner(Scriptable scope, RulesMetrics metrics) {
         this.scope = scope;
+        this.metrics = Objects.requireNonNull(metrics);
     }
 
     /**
@@ -95,23 +103,51 @@ public class JsRunner {
         if (!(func instanceof Function)) {
             throw new NoSuchMethodException("no such javascript method: " + method);
         }
+        boolean measured = this.metrics.isEnabled();
+        long start = measured ? System.nanoTime() : 0;
+        boolean success = false;
+
         Context context = Context.enter();
         try {
-            return (T) unwrapReturnValue(((Function) func).call(context, scope,
+            T result = (T) unwrapReturnValue(((Function) func).call(context, scope,
                 localScope, Context.emptyArgs));
+
+            success = true;
+            return result;
         }
         finally {
             Context.exit();
+
+            if (measured) {
+                this.metrics.recordExecution(this.namespace, method, System.nanoTime() - start, success);
+            }
         }
     }
 
     @SuppressWarnings("unchecked")
     public <T> T invokeMethod(String method, JsContext context)
         throws NoSuchMethodException, RhinoException {
-        context.applyTo(scope);
+        this.applyContext(method, context);
         return (T) invokeMethod(method);
     }
 
+    /**
+     * Applies the given context to this runner's scope, recording the time taken to do so against
+     * the given function if metrics are enabled.
+     */
+    private void applyContext(String function, JsContext context) {
+        if (!this.metrics.isEnabled()) {
+            context.applyTo(scope);
+            return;
+        }
+
+        long start = System.nanoTime();
+        context.applyTo(scope);
+
+        this.metrics.recordSerialization(this.namespace, function, System.nanoTime() - start,
+            context.getPayloadSize());
+    }
+
     public <T> T invokeRule(String ruleName) {
         log.debug("Running rule: {} in namespace: {}", ruleName, namespace);
 
@@ -129,7 +165,7 @@ public class JsRunner {
     }
 
     public <T> T invokeRule(String ruleName, JsContext context) {
-        context.applyTo(scope);
+        this.applyContext(ruleName, context);
         return invokeRule(ruleName);
     }
 
@@ -29,6 +29,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Date;
+import java.util.Objects;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -44,6 +45,7 @@ public class JsRunnerProvider implements Provider<JsRunner> {
 
     private RulesCurator rulesCurator;
     private Provider<JsRunnerRequestCache> cacheProvider;
+    private RulesMetrics metrics;
     private Script script;
     private Scriptable scope;
     /**
@@ -82,10 +84,17 @@ public class JsRunnerProvider implements Provider<JsRunner> {
         ContextFactory.initGlobal(new DynamicScopeContextFactory());
     }
 
-    @Inject
     public JsRunnerProvider(RulesCurator rulesCurator, Provider<JsRunnerRequestCache> cacheProvider) {
+        this(rulesCurator, cacheProvider, new RulesMetrics(false));
+    }
+
+    @Inject
+    public JsRunnerProvider(RulesCurator rulesCurator, Provider<JsRunnerRequestCache> cacheProvider,
+        RulesMetrics metrics) {
+
         this.rulesCurator = rulesCurator;
         this.cacheProvider = cacheProvider;
+        this.metrics = Objects.requireNonNull(metrics);
 
         log.debug("Compiling rules for initial load");
         this.rulesCurator.updateDbRules();
@@ -113,6 +122,7 @@ public class JsRunnerProvider implements Provider<JsRunner> {
             }
 
             log.info("Recompiling rules with timestamp: {}", newUpdated);
+            long start = System.nanoTime();
 
             Context context = Context.enter();
             context.setOptimizationLevel(9);
@@ -126,6 +136,8 @@ public class JsRunnerProvider implements Provider<JsRunner> {
                 script.exec(context, scope);
                 ((ScriptableObject) scope).sealObject();
                 this.currentRulesUpdated = newUpdated;
+
+                this.metrics.recordRecompile(rulesVersion, System.nanoTime() - start);
             }
             finally {
                 Context.exit();
@@ -156,6 +168,9 @@ public class JsRunnerProvider implements Provider<JsRunner> {
         if (!updated.equals(this.currentRulesUpdated)) {
             compileRules();
         }
+        boolean measured = this.metrics.isEnabled();
+        long start = measured ? System.nanoTime() : 0;
+
         Scriptable rulesScope;
         scriptLock.readLock().lock();
         try {
@@ -169,7 +184,8 @@ public class JsRunnerProvider implements Provider<JsRunner> {
             scriptLock.readLock().unlock();
         }
 
-        return new JsRunner(rulesScope);
+        this.metrics.recordScopeCreation(measured ? System.nanoTime() - start : -1);
+        return new JsRunner(rulesScope, this.metrics);
     }
 
     public String getRulesVersion() {
@@ -30,21 +30,45 @@ import javax.inject.Inject;
  */
 public class JsonJsContext extends JsContext {
 
-    private final RulesObjectMapper rulesObjectMapper;
+    protected final RulesObjectMapper rulesObjectMapper;
     private ArgumentJsContext nonSerializableContext;
+    private long payloadSize;
 
     @Inject
     public JsonJsContext(RulesObjectMapper objectMapper) {
         this.rulesObjectMapper = objectMapper;
         this.nonSerializableContext = new ArgumentJsContext();
+        this.payloadSize = -1;
     }
 
     @Override
     public void applyTo(Scriptable scope) {
-        scope.put("json_context", scope, this.rulesObjectMapper.toJsonString(contextArgs));
+        Object context = this.buildContext(scope);
+        this.payloadSize = context instanceof String ? ((String) context).length() : -1;
+
+        scope.put("json_context", scope, context);
         nonSerializableContext.applyTo(scope);
     }
 
+    @Override
+    public long getPayloadSize() {
+        return this.payloadSize;
+    }
+
+    /**
+     * Builds the value exposed to the rules as the json_context variable, which the rules pass to
+     * JSON.parse to obtain their arguments.
+     *
+     * @param scope
+     *  the scope into which the context is being applied
+     *
+     * @return
+     *  the JSON context for the rules
+     */
+    protected Object buildContext(Scriptable scope) {
+        return this.rulesObjectMapper.toJsonString(contextArgs);
+    }
+
     public void put(String contextKey, Object contextVal, boolean serializable) {
         if (!serializable) {
             nonSerializableContext.put(contextKey, contextVal);
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js;
+
+import org.mozilla.javascript.BaseFunction;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Function;
+import org.mozilla.javascript.NativeObject;
+import org.mozilla.javascript.ScriptRuntime;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.TopLevel;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+
+/**
+ * ObjectJsContext
+ *
+ * A javascript context which provides its context args to the rules without serializing them to
+ * JSON. The rules obtain their arguments by passing the json_context variable to JSON.parse, so
+ * this context replaces json_context with a handle, and JSON.parse with a function which turns the
+ * handle into an object holding views over the rules DTOs. Strings are still parsed normally, so
+ * rules written against {@link JsonJsContext} work unmodified.
+ */
+public class ObjectJsContext extends JsonJsContext {
+
+    private static final String JSON_OBJECT = "JSON";
+    private static final String PARSE_FUNCTION = "parse";
+
+    public ObjectJsContext(RulesObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected Object buildContext(Scriptable scope) {
+        installParser(scope);
+
+        ScriptableDtoBridge.collectStreams(this.contextArgs);
+        return new ContextHandle(this.rulesObjectMapper.getDtoBridge(), new HashMap<>(this.contextArgs),
+            scope);
+    }
+
+    /**
+     * Shadows the JSON object in the given scope with one whose parse function understands context
+     * handles. The rest of the JSON object is inherited from the original.
+     */
+    private static void installParser(Scriptable scope) {
+        Scriptable json = (Scriptable) ScriptableObject.getProperty(scope, JSON_OBJECT);
+        if (ScriptableObject.getProperty(json, PARSE_FUNCTION) instanceof ContextParser) {
+            return;
+        }
+
+        NativeObject shadow = new NativeObject();
+        shadow.setParentScope(scope);
+        shadow.setPrototype(json);
+        shadow.put(PARSE_FUNCTION, shadow, new ContextParser(scope, json));
+
+        scope.put(JSON_OBJECT, scope, shadow);
+    }
+
+    /**
+     * The value exposed to the rules as json_context. Each time it is parsed, a new set of views over
+     * the context arguments is created, just as parsing a JSON document creates new objects each time.
+     */
+    private static class ContextHandle extends ScriptableObject {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ScriptableDtoBridge bridge;
+        private final transient Map<String, Object> args;
+        private final transient Scriptable scope;
+
+        public ContextHandle(ScriptableDtoBridge bridge, Map<String, Object> args, Scriptable scope) {
+            this.bridge = bridge;
+            this.args = args;
+            this.scope = scope;
+        }
+
+        @Override
+        public String getClassName() {
+            return "JsonContext";
+        }
+
+        public Scriptable parse() {
+            ScriptableDtoBridge.Converter converter = this.bridge.newConverter(this.scope);
+
+            NativeObject context = new NativeObject();
+            ScriptRuntime.setBuiltinProtoAndParent(context, this.scope, TopLevel.Builtins.Object);
+
+            for (Map.Entry<String, Object> entry : this.args.entrySet()) {
+                ScriptableDtoBridge.putProperty(context, entry.getKey(), converter.toJs(entry.getValue()));
+            }
+
+            return context;
+        }
+    }
+
+    /**
+     * A replacement for JSON.parse which returns a fresh context object for context handles, and
+     * defers to the original function for anything else.
+     */
+    private static class ContextParser extends BaseFunction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Scriptable json;
+
+        public ContextParser(Scriptable scope, Scriptable json) {
+            super(scope, ScriptableObject.getFunctionPrototype(scope));
+            this.json = json;
+        }
+
+        @Override
+        public Object call(Context cx, Scriptable scope, Scriptable thisObj, Object[] args) {
+            if (args.length > 0 && args[0] instanceof ContextHandle) {
+                return ((ContextHandle) args[0]).parse();
+            }
+
+            Function parse = (Function) ScriptableObject.getProperty(this.json, PARSE_FUNCTION);
+            return parse.call(cx, scope, this.json, args);
+        }
+
+        @Override
+        public String getFunctionName() {
+            return PARSE_FUNCTION;
+        }
+
+        @Override
+        public int getArity() {
+            return 2;
+        }
+
+        @Override
+        public int getLength() {
+            return 2;
+        }
+    }
+}
@@ -0,0 +1,394 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.util.JmxUtil;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+
+
+/**
+ * Collects statistics on the use of the rules: for each rules function, the number of invocations,
+ * the time taken to serialize its arguments and to execute it, and the size of the JSON document
+ * passed to it; along with the creation of request scopes and the compilation of the rules.
+ * <p>
+ * Function and scope timings are only recorded while measurement is enabled, and callers are
+ * expected to check {@link #isEnabled()} before reading the clock, so disabled metrics cost no more
+ * than a volatile read per invocation. Scope creations are always counted, and compilations always
+ * recorded, as neither happens more than once per request.
+ */
+@Singleton
+public class RulesMetrics implements RulesMetricsMXBean {
+
+    /** The namespace under which functions invoked outside of any namespace are recorded */
+    public static final String GLOBAL_NAMESPACE = "global";
+
+    private volatile boolean enabled;
+
+    private final Map<String, FunctionMetrics> functions;
+    private final LongAdder scopeCreations;
+    private final Histogram scopeCreationTime;
+    private final LongAdder recompiles;
+
+    private volatile Date lastRecompileDate;
+    private volatile long lastRecompileDuration;
+    private volatile String lastRecompileVersion;
+
+    @Inject
+    public RulesMetrics(Configuration config) {
+        this(Objects.requireNonNull(config).getBoolean(ConfigProperties.RULES_METRICS_ENABLED));
+
+        JmxUtil.register(this, RulesMetrics.class.getSimpleName(), null);
+    }
+
+    public RulesMetrics(boolean enabled) {
+        this.enabled = enabled;
+
+        this.functions = new ConcurrentHashMap<>();
+        this.scopeCreations = new LongAdder();
+        this.scopeCreationTime = new Histogram();
+        this.recompiles = new LongAdder();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    private FunctionMetrics getFunctionMetrics(String namespace, String function) {
+        String key = (namespace != null ? namespace : GLOBAL_NAMESPACE) + "." + function;
+        return this.functions.computeIfAbsent(key, name -> new FunctionMetrics());
+    }
+
+    /**
+     * Records the serialization of the arguments passed to a rules function.
+     *
+     * @param namespace
+     *  the namespace of the function, or null if the function is not namespaced
+     *
+     * @param function
+     *  the name of the function
+     *
+     * @param nanos
+     *  the time taken to serialize the arguments, in nanoseconds
+     *
+     * @param payloadSize
+     *  the length of the JSON document passed to the function, or a negative value if the arguments
+     *  were not passed as a JSON document
+     */
+    public void recordSerialization(String namespace, String function, long nanos, long payloadSize) {
+        FunctionMetrics metrics = this.getFunctionMetrics(namespace, function);
+
+        metrics.serializationTime.record(nanos);
+        if (payloadSize >= 0) {
+            metrics.payloadSize.record(payloadSize);
+        }
+    }
+
+    /**
+     * Records the execution of a rules function.
+     *
+     * @param namespace
+     *  the namespace of the function, or null if the function is not namespaced
+     *
+     * @param function
+     *  the name of the function
+     *
+     * @param nanos
+     *  the time taken to execute the function, in nanoseconds
+     *
+     * @param success
+     *  whether or not the function completed without error
+     */
+    public void recordExecution(String namespace, String function, long nanos, boolean success) {
+        FunctionMetrics metrics = this.getFunctionMetrics(namespace, function);
+
+        metrics.executionTime.record(nanos);
+        if (!success) {
+            metrics.failures.increment();
+        }
+    }
+
+    /**
+     * Records the creation of a request scope for the rules.
+     *
+     * @param nanos
+     *  the time taken to create the scope, in nanoseconds, or a negative value if it was not measured
+     */
+    public void recordScopeCreation(long nanos) {
+        this.scopeCreations.increment();
+
+        if (nanos >= 0) {
+            this.scopeCreationTime.record(nanos);
+        }
+    }
+
+    /**
+     * Records the compilation of the rules.
+     *
+     * @param version
+     *  the version of the rules compiled
+     *
+     * @param nanos
+     *  the time taken to compile the rules, in nanoseconds
+     */
+    public void recordRecompile(String version, long nanos) {
+        this.recompiles.increment();
+
+        this.lastRecompileDate = new Date();
+        this.lastRecompileDuration = TimeUnit.NANOSECONDS.toMillis(nanos);
+        this.lastRecompileVersion = version;
+    }
+
+    @Override
+    public Map<String, FunctionStatistics> getFunctionStatistics() {
+        Map<String, FunctionStatistics> output = new TreeMap<>();
+        this.functions.forEach((name, metrics) -> output.put(name, metrics.snapshot(name)));
+
+        return output;
+    }
+
+    @Override
+    public long getScopeCreationCount() {
+        return this.scopeCreations.sum();
+    }
+
+    @Override
+    public HistogramSnapshot getScopeCreationTime() {
+        return this.scopeCreationTime.snapshot();
+    }
+
+    @Override
+    public long getRecompileCount() {
+        return this.recompiles.sum();
+    }
+
+    @Override
+    public Date getLastRecompileDate() {
+        return this.lastRecompileDate;
+    }
+
+    @Override
+    public long getLastRecompileDuration() {
+        return this.lastRecompileDuration;
+    }
+
+    @Override
+    public String getLastRecompileVersion() {
+        return this.lastRecompileVersion;
+    }
+
+    @Override
+    public void reset() {
+        this.functions.clear();
+        this.scopeCreations.reset();
+        this.scopeCreationTime.reset();
+    }
+
+    /**
+     * The metrics collected for a single rules function
+     */
+    private static class FunctionMetrics {
+        private final Histogram serializationTime = new Histogram();
+        private final Histogram executionTime = new Histogram();
+        private final Histogram payloadSize = new Histogram();
+        private final LongAdder failures = new LongAdder();
+
+        public FunctionStatistics snapshot(String name) {
+            HistogramSnapshot execution = this.executionTime.snapshot();
+
+            return new FunctionStatistics(name, execution.getCount(), this.failures.sum(),
+                this.serializationTime.snapshot(), execution, this.payloadSize.snapshot());
+        }
+    }
+
+    /**
+     * A histogram of non-negative values, bucketed by powers of two. Percentiles are estimated from
+     * the bucket in which they fall, and are therefore accurate to within a factor of two.
+     */
+    static class Histogram {
+        private static final int BUCKETS = Long.SIZE + 1;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        public void record(long value) {
+            long sample = Math.max(0, value);
+
+            this.buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(sample));
+            this.count.increment();
+            this.sum.add(sample);
+            this.max.accumulate(sample);
+        }
+
+        public void reset() {
+            for (int i = 0; i < BUCKETS; ++i) {
+                this.buckets.set(i, 0);
+            }
+
+            this.count.reset();
+            this.sum.reset();
+            this.max.reset();
+        }
+
+        public HistogramSnapshot snapshot() {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+
+            for (int i = 0; i < BUCKETS; ++i) {
+                counts[i] = this.buckets.get(i);
+                total += counts[i];
+            }
+
+            long maximum = this.max.get();
+            double mean = total > 0 ? (double) this.sum.sum() / total : 0.0;
+
+            return new HistogramSnapshot(total, mean, maximum, percentile(counts, total, 0.50, maximum),
+                percentile(counts, total, 0.95, maximum), percentile(counts, total, 0.99, maximum));
+        }
+
+        private static long percentile(long[] counts, long total, double percentile, long maximum) {
+            long rank = (long) Math.ceil(total * percentile);
+            long seen = 0;
+
+            for (int i = 0; i < counts.length; ++i) {
+                seen += counts[i];
+
+                if (seen >= rank && seen > 0) {
+                    // The upper bound of the bucket, which holds values in [2^(i-1), 2^i)
+                    long bound = i < Long.SIZE - 1 ? (1L << i) - 1 : Long.MAX_VALUE;
+                    return Math.min(bound, maximum);
+                }
+            }
+
+            return 0;
+        }
+    }
+
+    /**
+     * A point-in-time summary of a histogram
+     */
+    public static final class HistogramSnapshot {
+        private final long count;
+        private final double mean;
+        private final long max;
+        private final long p50;
+        private final long p95;
+        private final long p99;
+
+        public HistogramSnapshot(long count, double mean, long max, long p50, long p95, long p99) {
+            this.count = count;
+            this.mean = mean;
+            this.max = max;
+            this.p50 = p50;
+            this.p95 = p95;
+            this.p99 = p99;
+        }
+
+        public long getCount() {
+            return this.count;
+        }
+
+        public double getMean() {
+            return this.mean;
+        }
+
+        public long getMax() {
+            return this.max;
+        }
+
+        public long getP50() {
+            return this.p50;
+        }
+
+        public long getP95() {
+            return this.p95;
+        }
+
+        public long getP99() {
+            return this.p99;
+        }
+    }
+
+    /**
+     * A point-in-time summary of the metrics collected for a single rules function. Times are
+     * reported in nanoseconds, and payload sizes in characters of JSON.
+     */
+    public static final class FunctionStatistics {
+        private final String name;
+        private final long invocationCount;
+        private final long failureCount;
+        private final HistogramSnapshot serializationTime;
+        private final HistogramSnapshot executionTime;
+        private final HistogramSnapshot payloadSize;
+
+        public FunctionStatistics(String name, long invocationCount, long failureCount,
+            HistogramSnapshot serializationTime, HistogramSnapshot executionTime,
+            HistogramSnapshot payloadSize) {
+
+            this.name = name;
+            this.invocationCount = invocationCount;
+            this.failureCount = failureCount;
+            this.serializationTime = serializationTime;
+            this.executionTime = executionTime;
+            this.payloadSize = payloadSize;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public long getInvocationCount() {
+            return this.invocationCount;
+        }
+
+        public long getFailureCount() {
+            return this.failureCount;
+        }
+
+        public HistogramSnapshot getSerializationTime() {
+            return this.serializationTime;
+        }
+
+        public HistogramSnapshot getExecutionTime() {
+            return this.executionTime;
+        }
+
+        public HistogramSnapshot getPayloadSize() {
+            return this.payloadSize;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Management interface exposing the statistics collected by {@link RulesMetrics}.
+ */
+public interface RulesMetricsMXBean {
+
+    /**
+     * @return
+     *  true if rules invocations are being measured; false otherwise
+     */
+    boolean isEnabled();
+
+    /**
+     * Enables or disables the measurement of rules invocations. Statistics already collected are
+     * retained.
+     *
+     * @param enabled
+     *  whether or not rules invocations should be measured
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return
+     *  the statistics of each rules function invoked while measurement was enabled, keyed by the
+     *  namespace and name of the function
+     */
+    Map<String, RulesMetrics.FunctionStatistics> getFunctionStatistics();
+
+    /**
+     * @return
+     *  the number of request scopes created for running the rules
+     */
+    long getScopeCreationCount();
+
+    /**
+     * @return
+     *  the time, in nanoseconds, taken to create request scopes while measurement was enabled
+     */
+    RulesMetrics.HistogramSnapshot getScopeCreationTime();
+
+    /**
+     * @return
+     *  the number of times the rules have been compiled
+     */
+    long getRecompileCount();
+
+    /**
+     * @return
+     *  the date the rules were last compiled, or null if they have not been compiled
+     */
+    Date getLastRecompileDate();
+
+    /**
+     * @return
+     *  the time, in milliseconds, taken to last compile the rules
+     */
+    long getLastRecompileDuration();
+
+    /**
+     * @return
+     *  the version of the rules last compiled, or null if they have not been compiled
+     */
+    String getLastRecompileVersion();
+
+    /**
+     * Discards the statistics collected for rules functions and scope creation.
+     */
+    void reset();
+}
@@ -14,6 +14,8 @@
  */
 package org.candlepin.policy.js;
 
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
 import org.candlepin.exceptions.IseException;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -52,10 +54,37 @@ public class RulesObjectMapper {
     private static final Logger log = LoggerFactory.getLogger(RulesObjectMapper.class);
 
     private final ObjectMapper mapper;
+    private final ScriptableDtoBridge dtoBridge;
+    private final boolean objectContexts;
 
     @Inject
+    public RulesObjectMapper(ObjectMapper objectMapper, Configuration config) {
+        this(objectMapper, config.getBoolean(ConfigProperties.RULES_OBJECT_CONTEXT));
+    }
+
     public RulesObjectMapper(ObjectMapper objectMapper) {
+        this(objectMapper, false);
+    }
+
+    public RulesObjectMapper(ObjectMapper objectMapper, boolean objectContexts) {
         this.mapper = Objects.requireNonNull(objectMapper);
+        this.dtoBridge = new ScriptableDtoBridge(this.mapper);
+        this.objectContexts = objectContexts;
+    }
+
+    /**
+     * Creates a new context for passing arguments to the rules. Depending on configuration, the
+     * arguments are either serialized to JSON, or exposed to the rules as views over the DTOs.
+     *
+     * @return
+     *  a new context for passing arguments to the rules
+     */
+    public JsonJsContext createContext() {
+        return this.objectContexts ? new ObjectJsContext(this) : new JsonJsContext(this);
+    }
+
+    ScriptableDtoBridge getDtoBridge() {
+        return this.dtoBridge;
     }
 
     public String toJsonString(Map<String, Object> toSerialize) {
@@ -0,0 +1,389 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js;
+
+import org.candlepin.exceptions.IseException;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.node.POJONode;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.std.BeanSerializerBase;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import org.mozilla.javascript.NativeArray;
+import org.mozilla.javascript.NativeObject;
+import org.mozilla.javascript.ScriptRuntime;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.TopLevel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+
+/**
+ * Converts the arguments passed to the rules into JavaScript values without serializing them to
+ * JSON. Rules DTOs are exposed as {@link DtoScriptable} views which read each property from the
+ * DTO the first time the rules access it; all other values are converted to the JavaScript value
+ * JSON.parse would have produced from their serialized form.
+ * <p>
+ * The properties exposed for each DTO class, their order, and whether they require a custom
+ * serializer, are determined once from the object mapper's serializer for the class, so a view
+ * exposes exactly the properties the JSON document would have contained.
+ */
+class ScriptableDtoBridge {
+
+    /** Only the rules DTOs are exposed as views; anything else goes through the object mapper */
+    private static final String DTO_PACKAGE = "org.candlepin.dto.rules.v1";
+
+    private final ObjectMapper mapper;
+    private final Map<Class<?>, Optional<DtoAccessor>> accessors;
+
+    public ScriptableDtoBridge(ObjectMapper mapper) {
+        this.mapper = Objects.requireNonNull(mapper);
+        this.accessors = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Creates a new converter for values exposed to the given scope. Converters are not thread-safe
+     * and should be used for the arguments of a single rules invocation.
+     *
+     * @param scope
+     *  the scope in which the converted values will be used
+     *
+     * @return
+     *  a new converter
+     */
+    public Converter newConverter(Scriptable scope) {
+        return new Converter(scope, this.mapper.getSerializerProviderInstance());
+    }
+
+    private DtoAccessor getAccessor(Class<?> type, SerializerProvider provider) {
+        Package pkg = type.getPackage();
+        if (pkg == null || !DTO_PACKAGE.equals(pkg.getName())) {
+            return null;
+        }
+
+        return this.accessors.computeIfAbsent(type, key -> Optional.ofNullable(buildAccessor(key, provider)))
+            .orElse(null);
+    }
+
+    /**
+     * Builds the accessor for a DTO class from the object mapper's serializer for the class. Classes
+     * which are not serialized as a plain set of properties cannot be exposed as views.
+     */
+    private static DtoAccessor buildAccessor(Class<?> type, SerializerProvider provider) {
+        JsonSerializer<Object> serializer;
+
+        try {
+            serializer = provider.findValueSerializer(type);
+        }
+        catch (JsonMappingException e) {
+            return null;
+        }
+
+        if (!(serializer instanceof BeanSerializerBase) || type.isAnnotationPresent(JsonInclude.class)) {
+            return null;
+        }
+
+        Map<String, PropertyAccessor> properties = new HashMap<>();
+        List<String> names = new ArrayList<>();
+
+        Iterator<PropertyWriter> writers = ((BeanSerializerBase) serializer).properties();
+        while (writers.hasNext()) {
+            PropertyWriter propertyWriter = writers.next();
+            if (!(propertyWriter instanceof BeanPropertyWriter) ||
+                ((BeanPropertyWriter) propertyWriter).isUnwrapping()) {
+                return null;
+            }
+
+            BeanPropertyWriter writer = (BeanPropertyWriter) propertyWriter;
+            properties.put(writer.getName(), new PropertyAccessor(writer, isDirect(writer)));
+            names.add(writer.getName());
+        }
+
+        return new DtoAccessor(properties, names);
+    }
+
+    /**
+     * Checks if a property can be converted directly from its value, or if it has annotations
+     * altering its serialized form and must be converted through the object mapper.
+     */
+    private static boolean isDirect(BeanPropertyWriter writer) {
+        return writer.getAnnotation(JsonSerialize.class) == null &&
+            writer.getAnnotation(JsonFormat.class) == null &&
+            writer.getAnnotation(JsonInclude.class) == null &&
+            writer.getAnnotation(JsonRawValue.class) == null &&
+            !writer.willSuppressNulls();
+    }
+
+    /**
+     * The properties of a DTO class, in the order in which they are serialized
+     */
+    static final class DtoAccessor {
+        private final Map<String, PropertyAccessor> properties;
+        private final List<String> names;
+
+        private DtoAccessor(Map<String, PropertyAccessor> properties, List<String> names) {
+            this.properties = properties;
+            this.names = Collections.unmodifiableList(names);
+        }
+
+        public PropertyAccessor getProperty(String name) {
+            return this.properties.get(name);
+        }
+
+        public List<String> getPropertyNames() {
+            return this.names;
+        }
+    }
+
+    /**
+     * A single serialized property of a DTO class
+     */
+    static final class PropertyAccessor {
+        private final BeanPropertyWriter writer;
+        private final boolean direct;
+
+        private PropertyAccessor(BeanPropertyWriter writer, boolean direct) {
+            this.writer = writer;
+            this.direct = direct;
+        }
+    }
+
+    /**
+     * Converts values for a single rules invocation.
+     */
+    class Converter {
+        private final Scriptable scope;
+        private final SerializerProvider provider;
+
+        private Converter(Scriptable scope, SerializerProvider provider) {
+            this.scope = scope;
+            this.provider = provider;
+        }
+
+        /**
+         * Converts a value to the JavaScript value JSON.parse would have produced from its serialized
+         * form. Rules DTOs are converted to lazily-populated views.
+         *
+         * @param value
+         *  the value to convert
+         *
+         * @return
+         *  the converted value
+         */
+        public Object toJs(Object value) {
+            if (value == null || value instanceof String || value instanceof Boolean) {
+                return value;
+            }
+
+            if (value instanceof Integer || value instanceof Long || value instanceof Short ||
+                value instanceof Byte || value instanceof Double) {
+                return ((Number) value).doubleValue();
+            }
+
+            if (value instanceof Date) {
+                return (double) ((Date) value).getTime();
+            }
+
+            if (value instanceof Collection) {
+                return this.toArray(((Collection<?>) value).toArray());
+            }
+
+            if (value instanceof Object[]) {
+                return this.toArray((Object[]) value);
+            }
+
+            if (value instanceof Map && this.hasStringKeys((Map<?, ?>) value)) {
+                NativeObject object = this.newObject();
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    putProperty(object, (String) entry.getKey(), this.toJs(entry.getValue()));
+                }
+
+                return object;
+            }
+
+            DtoAccessor accessor = getAccessor(value.getClass(), this.provider);
+            if (accessor != null) {
+                return new DtoScriptable(this, accessor, value, this.scope);
+            }
+
+            return this.fromJson(mapper.valueToTree(value));
+        }
+
+        /**
+         * Reads a property of a DTO, returning the converted value of the property, or
+         * {@link Scriptable#NOT_FOUND} if the property would have been omitted from the serialized
+         * form of the DTO.
+         *
+         * @param dto
+         *  the DTO from which to read the property
+         *
+         * @param property
+         *  the property to read
+         *
+         * @return
+         *  the converted value of the property, or Scriptable.NOT_FOUND
+         */
+        public Object readProperty(Object dto, PropertyAccessor property) {
+            try {
+                if (property.direct) {
+                    return this.toJs(property.writer.get(dto));
+                }
+
+                // Let the mapper apply the property's serializer and inclusion rules
+                TokenBuffer buffer = new TokenBuffer(mapper, false);
+                buffer.writeStartObject();
+                property.writer.serializeAsField(dto, buffer, this.provider);
+                buffer.writeEndObject();
+
+                JsonNode field = ((JsonNode) mapper.readTree(buffer.asParser()))
+                    .get(property.writer.getName());
+
+                return field != null ? this.fromJson(field) : Scriptable.NOT_FOUND;
+            }
+            catch (Exception e) {
+                throw new IseException("Unable to read property for rules: " + property.writer.getName(), e);
+            }
+        }
+
+        private Object fromJson(JsonNode node) {
+            switch (node.getNodeType()) {
+                case OBJECT:
+                    NativeObject object = this.newObject();
+                    node.fields().forEachRemaining(field ->
+                        putProperty(object, field.getKey(), this.fromJson(field.getValue())));
+
+                    return object;
+
+                case ARRAY:
+                    Object[] elements = new Object[node.size()];
+                    for (int i = 0; i < elements.length; ++i) {
+                        elements[i] = this.fromJson(node.get(i));
+                    }
+
+                    return this.newArray(elements);
+
+                case STRING:
+                case BINARY:
+                    return node.asText();
+
+                case NUMBER:
+                    return node.doubleValue();
+
+                case BOOLEAN:
+                    return node.booleanValue();
+
+                case POJO:
+                    return this.toJs(((POJONode) node).getPojo());
+
+                default:
+                    return null;
+            }
+        }
+
+        private boolean hasStringKeys(Map<?, ?> map) {
+            return map.keySet().stream().allMatch(key -> key instanceof String);
+        }
+
+        private NativeArray toArray(Object[] values) {
+            Object[] elements = new Object[values.length];
+            for (int i = 0; i < values.length; ++i) {
+                elements[i] = this.toJs(values[i]);
+            }
+
+            return this.newArray(elements);
+        }
+
+        private NativeObject newObject() {
+            NativeObject object = new NativeObject();
+            ScriptRuntime.setBuiltinProtoAndParent(object, this.scope, TopLevel.Builtins.Object);
+            return object;
+        }
+
+        private NativeArray newArray(Object[] elements) {
+            NativeArray array = new NativeArray(elements);
+            ScriptRuntime.setBuiltinProtoAndParent(array, this.scope, TopLevel.Builtins.Array);
+            return array;
+        }
+    }
+
+    /**
+     * Sets a property on an object the way JSON.parse does, storing property names which are array
+     * indexes as indexed properties so the rules can look them up by either form.
+     */
+    static void putProperty(Scriptable object, String name, Object value) {
+        int index = toArrayIndex(name);
+
+        if (index >= 0) {
+            object.put(index, object, value);
+        }
+        else {
+            object.put(name, object, value);
+        }
+    }
+
+    private static int toArrayIndex(String name) {
+        int length = name.length();
+        if (length == 0 || length > 10 || (length > 1 && name.charAt(0) == '0')) {
+            return -1;
+        }
+
+        long index = 0;
+        for (int i = 0; i < length; ++i) {
+            char chr = name.charAt(i);
+            if (chr < '0' || chr > '9') {
+                return -1;
+            }
+
+            index = index * 10 + (chr - '0');
+        }
+
+        return index <= Integer.MAX_VALUE ? (int) index : -1;
+    }
+
+    /**
+     * Converts the streams among the given arguments into lists, as streams can only be consumed
+     * once but the rules may parse their context more than once.
+     *
+     * @param args
+     *  the arguments to convert
+     */
+    static void collectStreams(Map<String, Object> args) {
+        args.replaceAll((key, value) -> value instanceof Stream ?
+            ((Stream<?>) value).collect(Collectors.toList()) : value);
+    }
+}
@@ -127,7 +127,7 @@ public class AutobindRules {
                 .map(this.translator.getStreamMapper(GuestId.class, GuestIdDTO.class));
 
         // Provide objects for the script:
-        JsonJsContext args = new JsonJsContext(mapper);
+        JsonJsContext args = mapper.createContext();
 
         ConsumerDTO consumerDTO = this.translator.translate(consumer, ConsumerDTO.class);
 
@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js.compliance;
+
+import org.candlepin.model.Consumer;
+import org.candlepin.model.ConsumerInstalledProduct;
+import org.candlepin.model.ConsumerType;
+import org.candlepin.model.GuestId;
+import org.candlepin.model.Pool;
+import org.candlepin.model.Product;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+
+
+/**
+ * The consumer-specific state used by the native compliance calculation: the consumer's facts as
+ * the compliance rules interpret them, and the attribute lookups the rules perform against pools,
+ * which differ for guests.
+ */
+class ComplianceContext {
+
+    public static final String SOCKETS_ATTRIBUTE = "sockets";
+    public static final String CORES_ATTRIBUTE = "cores";
+    public static final String ARCH_ATTRIBUTE = "arch";
+    public static final String RAM_ATTRIBUTE = "ram";
+    public static final String VCPU_ATTRIBUTE = "vcpu";
+    public static final String GUEST_LIMIT_ATTRIBUTE = "guest_limit";
+    public static final String STORAGE_BAND_ATTRIBUTE = "storage_band";
+    public static final String INSTANCE_ATTRIBUTE = "instance_multiplier";
+    public static final String REQUIRES_HOST_ATTRIBUTE = "requires_host";
+    public static final String STACKING_ID_ATTRIBUTE = "stacking_id";
+    public static final String UNMAPPED_GUESTS_ONLY_ATTRIBUTE = "unmapped_guests_only";
+
+    public static final String SOCKET_FACT = "cpu.cpu_socket(s)";
+    public static final String CORES_FACT = "cpu.core(s)_per_socket";
+    public static final String RAM_FACT = "memory.memtotal";
+    public static final String ARCH_FACT = "uname.machine";
+    public static final String IS_VIRT_GUEST_FACT = "virt.is_guest";
+    public static final String STORAGE_BAND_FACT = "band.storage.usage";
+
+    /** Attributes considered when determining the coverage of a physical system */
+    private static final List<String> PHYSICAL_ATTRIBUTES = List.of(SOCKETS_ATTRIBUTE, CORES_ATTRIBUTE,
+        RAM_ATTRIBUTE, ARCH_ATTRIBUTE, GUEST_LIMIT_ATTRIBUTE, STORAGE_BAND_ATTRIBUTE);
+
+    /** Attributes considered when determining the coverage of a virtual guest */
+    private static final List<String> VIRT_ATTRIBUTES = List.of(VCPU_ATTRIBUTE, RAM_ATTRIBUTE,
+        ARCH_ATTRIBUTE, GUEST_LIMIT_ATTRIBUTE, STORAGE_BAND_ATTRIBUTE);
+
+    private final Map<String, String> facts;
+    private final String consumerTypeLabel;
+    private final boolean guest;
+    private final List<String> installedProductIds;
+    private final Collection<GuestId> guestIds;
+    private Integer activeGuestCount;
+
+    /**
+     * Creates a new compliance context for the given consumer.
+     *
+     * @param consumer
+     *  the consumer being checked
+     *
+     * @param consumerType
+     *  the type of the consumer being checked, or null if the type is not known
+     */
+    public ComplianceContext(Consumer consumer, ConsumerType consumerType) {
+        this.facts = consumer.getFacts() != null ? consumer.getFacts() : Collections.emptyMap();
+        this.consumerTypeLabel = consumerType != null ? consumerType.getLabel() : null;
+        this.guestIds = consumer.getGuestIds() != null ? consumer.getGuestIds() : Collections.emptyList();
+
+        String isGuest = this.facts.get(IS_VIRT_GUEST_FACT);
+        this.guest = JsValues.isTruthy(isGuest) && "true".equalsIgnoreCase(isGuest);
+
+        this.installedProductIds = new ArrayList<>();
+        if (consumer.getInstalledProducts() != null) {
+            for (ConsumerInstalledProduct installed : consumer.getInstalledProducts()) {
+                this.installedProductIds.add(installed.getProductId());
+            }
+        }
+    }
+
+    public boolean isGuest() {
+        return this.guest;
+    }
+
+    public String getConsumerTypeLabel() {
+        return this.consumerTypeLabel;
+    }
+
+    public List<String> getInstalledProductIds() {
+        return this.installedProductIds;
+    }
+
+    /**
+     * Fetches the product attributes which affect the compliance of the consumer. Guests are
+     * checked against a different set of attributes than physical systems.
+     *
+     * @return
+     *  the attributes considered when calculating coverage for the consumer
+     */
+    public List<String> getComplianceAttributes() {
+        return this.guest ? VIRT_ATTRIBUTES : PHYSICAL_ATTRIBUTES;
+    }
+
+    /**
+     * Fetches the raw value of the given fact, or null if the consumer does not have the fact.
+     *
+     * @param fact
+     *  the name of the fact to fetch
+     *
+     * @return
+     *  the value of the fact, or null
+     */
+    public String getRawFact(String fact) {
+        return this.facts.get(fact);
+    }
+
+    /**
+     * Checks whether the consumer has the given fact, regardless of its value.
+     *
+     * @param fact
+     *  the name of the fact to check
+     *
+     * @return
+     *  true if the consumer has the fact; false otherwise
+     */
+    public boolean hasFact(String fact) {
+        return this.facts.containsKey(fact);
+    }
+
+    /**
+     * Calculates the consumer's value for the given product attribute, for comparison against the
+     * value accumulated by a stack. Most attributes map directly to a consumer fact, defaulting to
+     * one when the fact is missing, but RAM is converted to gigabytes, cores are multiplied by the
+     * socket count, and the guest limit is the number of active guests.
+     *
+     * @param attribute
+     *  the product attribute for which to calculate the consumer's value
+     *
+     * @return
+     *  the consumer's value for the attribute, either a raw fact string or a number
+     */
+    public Object getFact(String attribute) {
+        switch (attribute) {
+            case RAM_ATTRIBUTE:
+                double ramKb = JsValues.parseInt(this.getFactOrDefault(RAM_FACT));
+                return JsValues.round(ramKb / 1024 / 1024);
+
+            case CORES_ATTRIBUTE:
+            case VCPU_ATTRIBUTE:
+                double sockets = JsValues.toNumber(this.getFactOrDefault(SOCKET_FACT));
+                double coresPerSocket = JsValues.toNumber(this.getFactOrDefault(CORES_FACT));
+                return coresPerSocket * sockets;
+
+            case GUEST_LIMIT_ATTRIBUTE:
+                return (double) this.getActiveGuestCount();
+
+            case SOCKETS_ATTRIBUTE:
+                return this.getFactOrDefault(SOCKET_FACT);
+
+            case ARCH_ATTRIBUTE:
+                return this.getFactOrDefault(ARCH_FACT);
+
+            case STORAGE_BAND_ATTRIBUTE:
+                return this.getFactOrDefault(STORAGE_BAND_FACT);
+
+            default:
+                return 1.0;
+        }
+    }
+
+    private Object getFactOrDefault(String fact) {
+        String value = this.facts.get(fact);
+        return JsValues.isTruthy(value) ? value : (Object) 1.0;
+    }
+
+    /**
+     * Counts the consumer's active guests. Only libvirt guests report whether they are active, so
+     * guests reported by any other hypervisor type are never considered active.
+     */
+    private int getActiveGuestCount() {
+        if (this.activeGuestCount == null) {
+            int count = 0;
+
+            for (GuestId guestId : this.guestIds) {
+                Map<String, String> attributes = guestId.getAttributes();
+
+                if (attributes != null && "libvirt".equals(attributes.get("virtWhoType")) &&
+                    attributes.containsKey("active") && "1".equals(attributes.get("active"))) {
+
+                    ++count;
+                }
+            }
+
+            this.activeGuestCount = count;
+        }
+
+        return this.activeGuestCount;
+    }
+
+    /**
+     * Looks up an attribute in the given attribute map. As in the rules file, an attribute with a
+     * value of "0" is considered to be unset.
+     */
+    private static String findAttribute(Map<String, String> attributes, String name) {
+        String value = attributes != null ? attributes.get(name) : null;
+        return "0".equals(value) ? null : value;
+    }
+
+    /**
+     * Fetches the value of an attribute from the given pool, checking the pool's own attributes
+     * before those of its product.
+     *
+     * @param pool
+     *  the pool from which to fetch the attribute
+     *
+     * @param name
+     *  the name of the attribute to fetch
+     *
+     * @return
+     *  the value of the attribute, or null if it is not set
+     */
+    public Object getAttribute(Pool pool, String name) {
+        Object value = findAttribute(pool.getAttributes(), name);
+        if (value == null) {
+            value = findAttribute(pool.getProductAttributes(), name);
+        }
+
+        return value != null ? value : this.getDerivedVcpu(pool, name);
+    }
+
+    /**
+     * Fetches the value of an attribute from the given pool, checking the pool's product attributes
+     * before the pool's own attributes.
+     *
+     * @param pool
+     *  the pool from which to fetch the attribute
+     *
+     * @param name
+     *  the name of the attribute to fetch
+     *
+     * @return
+     *  the value of the attribute, or null if it is not set
+     */
+    public Object getProductAttribute(Pool pool, String name) {
+        Object value = findAttribute(pool.getProductAttributes(), name);
+        if (value == null) {
+            value = findAttribute(pool.getAttributes(), name);
+        }
+
+        return value != null ? value : this.getDerivedVcpu(pool, name);
+    }
+
+    /**
+     * When a guest checks a pool which does not define a vcpu count but does define a core count,
+     * the rules treat the core count as the vcpu count. The rules do this by appending a vcpu
+     * attribute to the pool, which is only visible if the pool does not already carry a vcpu
+     * attribute with a value of "0".
+     */
+    private Object getDerivedVcpu(Pool pool, String name) {
+        if (!this.guest || !VCPU_ATTRIBUTE.equals(name) || pool.getAttributes().containsKey(VCPU_ATTRIBUTE)) {
+            return null;
+        }
+
+        Object cores = findAttribute(pool.getAttributes(), CORES_ATTRIBUTE);
+        if (cores == null) {
+            cores = findAttribute(pool.getProductAttributes(), CORES_ATTRIBUTE);
+        }
+
+        if (cores == null) {
+            return null;
+        }
+
+        double vcpu = JsValues.parseInt(cores);
+        return vcpu != 0 ? vcpu : null;
+    }
+
+    /**
+     * Checks if the given pool is stackable, that is, if its product defines a stacking ID.
+     *
+     * @param pool
+     *  the pool to check
+     *
+     * @return
+     *  true if the pool is stackable; false otherwise
+     */
+    public static boolean isStacked(Pool pool) {
+        return pool.getProductAttributes().containsKey(STACKING_ID_ATTRIBUTE);
+    }
+
+    /**
+     * Checks if the given pool provides the given product, either as its marketing product or as one
+     * of its provided products.
+     *
+     * @param pool
+     *  the pool to check
+     *
+     * @param productId
+     *  the ID of the product to look for
+     *
+     * @return
+     *  true if the pool provides the product; false otherwise
+     */
+    public static boolean provides(Pool pool, String productId) {
+        Product product = pool.getProduct();
+        if (product == null) {
+            return false;
+        }
+
+        if (productId != null && productId.equals(product.getId())) {
+            return true;
+        }
+
+        Collection<Product> provided = product.getProvidedProducts();
+        if (provided != null) {
+            for (Product providedProduct : provided) {
+                if (productId != null && productId.equals(providedProduct.getId())) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+}
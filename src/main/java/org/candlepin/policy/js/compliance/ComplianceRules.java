@@ -15,6 +15,9 @@
 package org.candlepin.policy.js.compliance;
 
 import org.candlepin.audit.EventSink;
+import org.candlepin.cache.ComplianceStatusCache;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
 import org.candlepin.dto.ModelTranslator;
 import org.candlepin.dto.rules.v1.ComplianceReasonDTO;
 import org.candlepin.dto.rules.v1.ComplianceStatusDTO;
@@ -31,24 +34,30 @@ import org.candlepin.model.EntitlementCurator;
 import org.candlepin.model.GuestId;
 import org.candlepin.model.Pool;
 import org.candlepin.model.Product;
+import org.candlepin.model.RulesCurator;
 import org.candlepin.policy.js.JsRunner;
 import org.candlepin.policy.js.JsonJsContext;
 import org.candlepin.policy.js.RuleExecutionException;
 import org.candlepin.policy.js.RulesObjectMapper;
+import org.candlepin.policy.js.compliance.hash.ComplianceInputHasher;
 import org.candlepin.policy.js.compliance.hash.ComplianceStatusHasher;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -59,11 +68,22 @@ import javax.inject.Inject;
 /**
  * ComplianceRules
  *
- * A class used to check consumer compliance status.
+ * A class used to check consumer compliance status. Compliance is calculated either by the rules
+ * file or by the native implementation of the same rules, as selected by the compliance engine
+ * configuration.
+ * <p>
+ * When the compliance status cache is enabled, the current status of a consumer is reused for as
+ * long as the inputs to the calculation remain unchanged, skipping the rules entirely.
  */
 public class ComplianceRules {
     private static final Logger log = LoggerFactory.getLogger(ComplianceRules.class);
 
+    /** Compliance engine which evaluates the compliance functions in the rules file */
+    public static final String ENGINE_JS = "js";
+
+    /** Compliance engine which uses the native implementation of the compliance rules */
+    public static final String ENGINE_JAVA = "java";
+
     private final JsRunner jsRules;
     private final EntitlementCurator entCurator;
     private final StatusReasonMessageGenerator generator;
@@ -72,12 +92,17 @@ public class ComplianceRules {
     private final ConsumerTypeCurator consumerTypeCurator;
     private final RulesObjectMapper mapper;
     private final ModelTranslator translator;
+    private final NativeComplianceCalculator nativeCalculator;
+    private final ComplianceStatusCache statusCache;
+    private final RulesCurator rulesCurator;
+    private final boolean useNativeEngine;
 
     @Inject
     public ComplianceRules(JsRunner jsRules, EntitlementCurator entCurator,
         StatusReasonMessageGenerator generator, EventSink eventSink, ConsumerCurator consumerCurator,
         ConsumerTypeCurator consumerTypeCurator, RulesObjectMapper mapper,
-        ModelTranslator translator) {
+        ModelTranslator translator, Configuration config, NativeComplianceCalculator nativeCalculator,
+        ComplianceStatusCache statusCache, RulesCurator rulesCurator) {
 
         this.jsRules = Objects.requireNonNull(jsRules);
         this.entCurator = Objects.requireNonNull(entCurator);
@@ -87,6 +112,16 @@ public class ComplianceRules {
         this.consumerTypeCurator = Objects.requireNonNull(consumerTypeCurator);
         this.mapper = Objects.requireNonNull(mapper);
         this.translator = Objects.requireNonNull(translator);
+        this.nativeCalculator = Objects.requireNonNull(nativeCalculator);
+        this.statusCache = Objects.requireNonNull(statusCache);
+        this.rulesCurator = Objects.requireNonNull(rulesCurator);
+
+        String engine = config.getString(ConfigProperties.COMPLIANCE_ENGINE).trim().toLowerCase(Locale.ROOT);
+        if (!ENGINE_JS.equals(engine) && !ENGINE_JAVA.equals(engine)) {
+            log.warn("Unknown compliance engine \"{}\"; falling back to \"{}\"", engine, ENGINE_JS);
+        }
+
+        this.useNativeEngine = ENGINE_JAVA.equals(engine);
 
         jsRules.init("compliance_name_space");
     }
@@ -155,11 +190,36 @@ public class ComplianceRules {
      *        (also expensive)
      * @return Compliance status.
      */
-    @SuppressWarnings("checkstyle:indentation")
     public ComplianceStatus getStatus(Consumer consumer, Collection<Entitlement> newEntitlements, Date date,
         boolean calculateCompliantUntil, boolean updateConsumer, boolean calculateProductComplianceDateRanges,
         boolean currentCompliance) {
 
+        return this.getStatus(consumer, newEntitlements, date, calculateCompliantUntil, updateConsumer,
+            calculateProductComplianceDateRanges, currentCompliance, ComplianceStatusCache.DEFAULT_CALL_SITE);
+    }
+
+    /**
+     * Check compliance status for a consumer on a specific date. The current status of a consumer
+     * may be served from the compliance status cache, in which case the lookup is counted against
+     * the given call site.
+     *
+     * @param consumer Consumer to check.
+     * @param date Date to check compliance status for.
+     * @param calculateCompliantUntil calculate how long the system will remain compliant (expensive)
+     * @param updateConsumer whether or not to use consumerCurator.update
+     * @param calculateProductComplianceDateRanges calculate the individual compliance ranges for each product
+     *        (also expensive)
+     * @param callSite the name under which cache lookups are counted
+     * @return Compliance status.
+     */
+    public ComplianceStatus getStatus(Consumer consumer, Collection<Entitlement> newEntitlements, Date date,
+        boolean calculateCompliantUntil, boolean updateConsumer, boolean calculateProductComplianceDateRanges,
+        boolean currentCompliance, String callSite) {
+
+        // Only the current status of a consumer's existing entitlements is cached
+        boolean cacheable = this.statusCache.isEnabled() && date == null && currentCompliance &&
+            (newEntitlements == null || newEntitlements.isEmpty()) && consumer.getUuid() != null;
+
         if (date == null) {
             date = new Date();
         }
@@ -168,15 +228,6 @@ public class ComplianceRules {
             updateEntsOnStart(consumer);
         }
 
-        Stream<EntitlementDTO> entStream = Stream.concat(
-            newEntitlements != null ? newEntitlements.stream() : Stream.empty(),
-            consumer.getEntitlements() != null ? consumer.getEntitlements().stream() : Stream.empty())
-            .map(this.translator.getStreamMapper(Entitlement.class, EntitlementDTO.class));
-
-        Stream<GuestIdDTO> guestIdStream = consumer.getGuestIds() == null ? Stream.empty() :
-            consumer.getGuestIds().stream()
-                .map(this.translator.getStreamMapper(GuestId.class, GuestIdDTO.class));
-
         // Status can only be 'disabled' when in golden ticket mode
         if (consumer.getOwner() != null && consumer.getOwner().isUsingSimpleContentAccess()) {
             ComplianceStatus cs = new ComplianceStatus(new Date());
@@ -192,7 +243,159 @@ public class ComplianceRules {
             return new ComplianceStatus(new Date());
         }
 
-        JsonJsContext args = new JsonJsContext(mapper);
+        List<Entitlement> entitlements = new ArrayList<>();
+        if (newEntitlements != null) {
+            entitlements.addAll(newEntitlements);
+        }
+
+        if (consumer.getEntitlements() != null) {
+            entitlements.addAll(consumer.getEntitlements());
+        }
+
+        String inputHash = null;
+        ComplianceStatus status = null;
+
+        if (cacheable) {
+            // Statuses calculated under other rules must never match, even if this node's cache was
+            // not cleared when the rules were changed on another node
+            String engine = this.useNativeEngine ? ENGINE_JAVA : ENGINE_JS;
+            Date rulesUpdated = this.rulesCurator.getUpdated();
+            inputHash = new ComplianceInputHasher(consumer, ctype, entitlements, rulesUpdated, engine,
+                String.valueOf(calculateCompliantUntil), String.valueOf(calculateProductComplianceDateRanges))
+                .hash();
+
+            status = this.getCachedStatus(callSite, consumer, inputHash, entitlements, date);
+        }
+
+        if (status == null) {
+            if (this.useNativeEngine) {
+                status = this.nativeCalculator.getStatus(consumer, ctype, entitlements, date,
+                    calculateCompliantUntil, calculateProductComplianceDateRanges);
+            }
+            else {
+                status = this.getJsStatus(consumer, entitlements, date, calculateCompliantUntil,
+                    calculateProductComplianceDateRanges);
+            }
+
+            if (inputHash != null) {
+                this.cacheStatus(consumer, inputHash, status, entitlements, date);
+            }
+        }
+
+        for (ComplianceReason reason : status.getReasons()) {
+            generator.setMessage(consumer, reason, status.getDate());
+        }
+
+        if (currentCompliance) {
+            applyStatus(consumer, status, updateConsumer);
+        }
+
+        return status;
+    }
+
+    /**
+     * Fetches the cached status of the given consumer, returning a copy dated on the given date
+     * which refers to the consumer's current entitlements. Returns null if the consumer has no
+     * valid cached status calculated from the same inputs.
+     */
+    private ComplianceStatus getCachedStatus(String callSite, Consumer consumer, String inputHash,
+        List<Entitlement> entitlements, Date date) {
+
+        ComplianceStatus cached = this.statusCache.get(callSite, consumer.getUuid(), inputHash, date);
+        if (cached == null) {
+            return null;
+        }
+
+        UnaryOperator<Entitlement> mapper = UnaryOperator.identity();
+        if (this.useNativeEngine) {
+            Map<String, Entitlement> current = entitlements.stream()
+                .filter(ent -> ent.getId() != null)
+                .collect(Collectors.toMap(Entitlement::getId, Function.identity(), (lhs, rhs) -> lhs));
+
+            mapper = ent -> current.getOrDefault(ent.getId(), ent);
+        }
+
+        return copyStatus(cached, date, mapper);
+    }
+
+    /**
+     * Caches a copy of the given status, which remains valid until the next start or end date among
+     * the entitlements it was calculated from. The native engine refers to the consumer's actual
+     * entitlements, which are replaced in the copy by references holding only their IDs, so the
+     * cache does not hold on to persistent entities.
+     */
+    private void cacheStatus(Consumer consumer, String inputHash, ComplianceStatus status,
+        List<Entitlement> entitlements, Date date) {
+
+        UnaryOperator<Entitlement> mapper = !this.useNativeEngine ? UnaryOperator.identity() :
+            ent -> new Entitlement().setId(ent.getId());
+
+        Date validUntil = entitlements.stream()
+            .flatMap(ent -> Stream.of(ent.getStartDate(), ent.getEndDate()))
+            .filter(boundary -> boundary != null && boundary.after(date))
+            .min(Date::compareTo)
+            .orElse(null);
+
+        this.statusCache.put(consumer.getUuid(), inputHash, copyStatus(status, status.getDate(), mapper),
+            validUntil);
+    }
+
+    private static ComplianceStatus copyStatus(ComplianceStatus source, Date date,
+        UnaryOperator<Entitlement> mapper) {
+
+        ComplianceStatus copy = new ComplianceStatus(date);
+        copy.setCompliantUntil(source.getCompliantUntil());
+        copy.setDisabled(source.isDisabled());
+
+        source.getNonCompliantProducts().forEach(copy::addNonCompliantProduct);
+        source.getCompliantProducts().forEach((pid, ents) ->
+            ents.forEach(ent -> copy.addCompliantProduct(pid, mapper.apply(ent))));
+        source.getPartiallyCompliantProducts().forEach((pid, ents) ->
+            ents.forEach(ent -> copy.addPartiallyCompliantProduct(pid, mapper.apply(ent))));
+        source.getPartialStacks().forEach((sid, ents) ->
+            ents.forEach(ent -> copy.addPartialStack(sid, mapper.apply(ent))));
+        source.getProductComplianceDateRanges().forEach(copy::addProductComplianceDateRange);
+
+        Set<ComplianceReason> reasons = new HashSet<>();
+        for (ComplianceReason reason : source.getReasons()) {
+            ComplianceReason reasonCopy = new ComplianceReason();
+            reasonCopy.setKey(reason.getKey());
+            reasonCopy.setMessage(reason.getMessage());
+            reasonCopy.setAttributes(reason.getAttributes() != null ?
+                new HashMap<>(reason.getAttributes()) :
+                null);
+            reasons.add(reasonCopy);
+        }
+
+        copy.setReasons(reasons);
+
+        return copy;
+    }
+
+    /**
+     * Removes the cached compliance status of the given consumer, if any, such that the next status
+     * check runs the compliance rules.
+     *
+     * @param consumer
+     *  the consumer for which to invalidate the cached status
+     */
+    public void invalidateStatus(Consumer consumer) {
+        if (consumer != null) {
+            this.statusCache.invalidate(consumer.getUuid());
+        }
+    }
+
+    /**
+     * Calculates the compliance status of a consumer by running the compliance rules in the rules
+     * file.
+     */
+    private ComplianceStatus getJsStatus(Consumer consumer, List<Entitlement> entitlements, Date date,
+        boolean calculateCompliantUntil, boolean calculateProductComplianceDateRanges) {
+
+        Stream<EntitlementDTO> entStream = this.translateEntitlements(entitlements);
+        Stream<GuestIdDTO> guestIdStream = this.translateGuestIds(consumer);
+
+        JsonJsContext args = mapper.createContext();
         args.put("consumer", this.translator.translate(consumer, ConsumerDTO.class));
         args.put("entitlements", entStream);
         args.put("ondate", date);
@@ -206,19 +409,7 @@ public class ComplianceRules {
         try {
             ComplianceStatusDTO statusDTO = mapper.toObject(json, ComplianceStatusDTO.class);
             ComplianceStatus status = new ComplianceStatus();
-            Set<Entitlement> allEntitlements = Stream.concat(
-                newEntitlements != null ? newEntitlements.stream() : Stream.empty(),
-                consumer.getEntitlements() != null ? consumer.getEntitlements().stream() : Stream.empty())
-                .collect(Collectors.toSet());
-            populateEntity(status, statusDTO, allEntitlements);
-
-            for (ComplianceReason reason : status.getReasons()) {
-                generator.setMessage(consumer, reason, status.getDate());
-            }
-
-            if (currentCompliance) {
-                applyStatus(consumer, status, updateConsumer);
-            }
+            populateEntity(status, statusDTO, new HashSet<>(entitlements));
 
             return status;
         }
@@ -256,17 +447,18 @@ public class ComplianceRules {
         }
     }
 
-    @SuppressWarnings("checkstyle:indentation")
     public boolean isStackCompliant(Consumer consumer, String stackId, List<Entitlement> entsToConsider) {
-        Stream<EntitlementDTO> entStream = entsToConsider == null ? Stream.empty() :
-            entsToConsider.stream()
-                .map(this.translator.getStreamMapper(Entitlement.class, EntitlementDTO.class));
+        if (this.useNativeEngine) {
+            ConsumerType ctype = this.consumerTypeCurator.getConsumerType(consumer);
+            List<Entitlement> ents = entsToConsider != null ? entsToConsider : List.of();
 
-        Stream<GuestIdDTO> guestIdStream = consumer.getGuestIds() == null ? Stream.empty() :
-            consumer.getGuestIds().stream()
-                .map(this.translator.getStreamMapper(GuestId.class, GuestIdDTO.class));
+            return this.nativeCalculator.isStackCompliant(consumer, ctype, stackId, ents);
+        }
 
-        JsonJsContext args = new JsonJsContext(mapper);
+        Stream<EntitlementDTO> entStream = this.translateEntitlements(entsToConsider);
+        Stream<GuestIdDTO> guestIdStream = this.translateGuestIds(consumer);
+
+        JsonJsContext args = mapper.createContext();
         args.put("stack_id", stackId);
         args.put("consumer", this.translator.translate(consumer, ConsumerDTO.class));
         args.put("entitlements", entStream);
@@ -276,18 +468,19 @@ public class ComplianceRules {
         return jsRules.runJsFunction(Boolean.class, "is_stack_compliant", args);
     }
 
-    @SuppressWarnings("checkstyle:indentation")
     public boolean isEntitlementCompliant(Consumer consumer, Entitlement ent, Date onDate) {
         List<Entitlement> ents = entCurator.listByConsumerAndDate(consumer, onDate).list();
 
-        Stream<EntitlementDTO> entStream = ents == null ? Stream.empty() :
-            ents.stream().map(this.translator.getStreamMapper(Entitlement.class, EntitlementDTO.class));
+        if (this.useNativeEngine) {
+            ConsumerType ctype = this.consumerTypeCurator.getConsumerType(consumer);
+            return this.nativeCalculator.isEntitlementCompliant(consumer, ctype, ent,
+                ents != null ? ents : List.of());
+        }
 
-        Stream<GuestIdDTO> guestIdStream = consumer.getGuestIds() == null ? Stream.empty() :
-            consumer.getGuestIds().stream()
-                .map(this.translator.getStreamMapper(GuestId.class, GuestIdDTO.class));
+        Stream<EntitlementDTO> entStream = this.translateEntitlements(ents);
+        Stream<GuestIdDTO> guestIdStream = this.translateGuestIds(consumer);
 
-        JsonJsContext args = new JsonJsContext(mapper);
+        JsonJsContext args = mapper.createContext();
         args.put("consumer", this.translator.translate(consumer, ConsumerDTO.class));
         args.put("entitlement", this.translator.translate(ent, EntitlementDTO.class));
         args.put("entitlements", entStream);
@@ -297,6 +490,24 @@ public class ComplianceRules {
         return jsRules.runJsFunction(Boolean.class, "is_ent_compliant", args);
     }
 
+    private Stream<EntitlementDTO> translateEntitlements(Collection<Entitlement> entitlements) {
+        if (entitlements == null) {
+            return Stream.empty();
+        }
+
+        return entitlements.stream()
+            .map(this.translator.getStreamMapper(Entitlement.class, EntitlementDTO.class));
+    }
+
+    private Stream<GuestIdDTO> translateGuestIds(Consumer consumer) {
+        if (consumer.getGuestIds() == null) {
+            return Stream.empty();
+        }
+
+        return consumer.getGuestIds().stream()
+            .map(this.translator.getStreamMapper(GuestId.class, GuestIdDTO.class));
+    }
+
     private String getComplianceStatusHash(ComplianceStatus status, Consumer consumer) {
         ComplianceStatusHasher hasher = new ComplianceStatusHasher(consumer, status);
         return hasher.hash();
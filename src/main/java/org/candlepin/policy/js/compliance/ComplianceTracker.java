@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js.compliance;
+
+import org.candlepin.model.Entitlement;
+import org.candlepin.model.Pool;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+
+/**
+ * Tracks the values accumulated by an entitlement or a stack of entitlements. A stack changes what
+ * it provides based on the entitlements which make it up: two stacked entitlements providing four
+ * sockets each, plus a third providing 4GB of RAM, provide eight sockets and 4GB of RAM.
+ * <p>
+ * This is the native counterpart of the compliance tracker in the rules file, and accumulates
+ * values exactly as the rules do.
+ */
+class ComplianceTracker {
+
+    public static final String TYPE_ENTITLEMENT = "ENTITLEMENT";
+    public static final String TYPE_STACK = "STACK";
+
+    /** Attributes not enforced for guests once a host-restricted pool is part of the tracker */
+    private static final Set<String> UNCHECKED_WHEN_HOST_RESTRICTED = Set.of(
+        ComplianceContext.RAM_ATTRIBUTE, ComplianceContext.VCPU_ATTRIBUTE);
+
+    private final ComplianceContext context;
+    private final String type;
+    private final Map<String, Object> accumulatedValues;
+    private final List<String> entitlementIds;
+
+    private String id;
+    private Object hostRestricted;
+    private boolean empty;
+
+    /**
+     * Creates a new tracker. A tracker with a stack ID tracks a stack; a tracker without one tracks
+     * a single entitlement and takes the ID of the first entitlement added to it.
+     *
+     * @param context
+     *  the compliance context of the consumer being checked
+     *
+     * @param stackId
+     *  the ID of the stack to track, or null to track a single entitlement
+     */
+    public ComplianceTracker(ComplianceContext context, String stackId) {
+        this.context = context;
+        this.id = stackId;
+        this.type = stackId == null ? TYPE_ENTITLEMENT : TYPE_STACK;
+        this.accumulatedValues = new HashMap<>();
+        this.entitlementIds = new ArrayList<>();
+        this.empty = true;
+    }
+
+    public String getId() {
+        return this.id;
+    }
+
+    public String getType() {
+        return this.type;
+    }
+
+    public boolean isEmpty() {
+        return this.empty;
+    }
+
+    public Object getAccumulatedValue(String attribute) {
+        return this.accumulatedValues.get(attribute);
+    }
+
+    public void setAccumulatedValue(String attribute, Object value) {
+        this.accumulatedValues.put(attribute, value);
+    }
+
+    /**
+     * Checks whether the given attribute is enforced by this tracker. An attribute is enforced once
+     * any pool added to the tracker defines it, except that guests are not subject to RAM or vcpu
+     * limits when using a host-restricted pool.
+     *
+     * @param attribute
+     *  the attribute to check
+     *
+     * @return
+     *  true if the attribute is enforced; false otherwise
+     */
+    public boolean enforces(String attribute) {
+        if (this.hostRestricted != null && this.context.isGuest() &&
+            UNCHECKED_WHEN_HOST_RESTRICTED.contains(attribute)) {
+            return false;
+        }
+
+        return this.accumulatedValues.containsKey(attribute);
+    }
+
+    /**
+     * Updates the accumulated values as if the given quantity of the pool had been added to this
+     * tracker, without an actual entitlement.
+     *
+     * @param pool
+     *  the pool to add
+     *
+     * @param quantity
+     *  the quantity of the pool to add
+     */
+    public void updateAccumulatedFromPool(Pool pool, double quantity) {
+        if (quantity > 0) {
+            this.empty = false;
+        }
+
+        Object requiresHost = this.context.getAttribute(pool, ComplianceContext.REQUIRES_HOST_ATTRIBUTE);
+        if (JsValues.isTruthy(requiresHost)) {
+            this.hostRestricted = requiresHost;
+        }
+
+        for (String attribute : this.context.getComplianceAttributes()) {
+            Object poolValue = this.context.getProductAttribute(pool, attribute);
+
+            if (poolValue != null) {
+                Object stackValue = this.enforces(attribute) ? this.getAccumulatedValue(attribute) : null;
+                this.setAccumulatedValue(attribute, this.accumulate(attribute, stackValue, poolValue, pool,
+                    quantity));
+            }
+        }
+    }
+
+    /**
+     * Updates the accumulated values from the given entitlement. Non-stacked entitlements only
+     * count once, regardless of their quantity.
+     * <p>
+     * The rules file intends to skip entitlements which have already been added, but its check
+     * never matches, so entitlements are not deduplicated here either.
+     *
+     * @param entitlement
+     *  the entitlement to add
+     */
+    public void updateAccumulatedFromEnt(Entitlement entitlement) {
+        if (TYPE_ENTITLEMENT.equals(this.type) && this.entitlementIds.isEmpty()) {
+            this.id = entitlement.getId();
+        }
+
+        this.empty = false;
+        this.entitlementIds.add(entitlement.getId());
+
+        Integer entQuantity = entitlement.getQuantity();
+        double quantity = entQuantity != null ? entQuantity : 0;
+        if (!ComplianceContext.isStacked(entitlement.getPool()) && quantity > 1) {
+            quantity = 1;
+        }
+
+        this.updateAccumulatedFromPool(entitlement.getPool(), quantity);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object accumulate(String attribute, Object stackValue, Object poolValue, Pool pool,
+        double quantity) {
+
+        switch (attribute) {
+            case ComplianceContext.ARCH_ATTRIBUTE:
+                // Each pool contributes its own comma-separated list of supported architectures
+                List<Object> arches = stackValue instanceof List ? (List<Object>) stackValue :
+                    new ArrayList<>();
+
+                arches.add(poolValue);
+                return arches;
+
+            case ComplianceContext.SOCKETS_ATTRIBUTE:
+                double increment = JsValues.parseInt(
+                    this.context.getProductAttribute(pool, ComplianceContext.INSTANCE_ATTRIBUTE));
+                if (!JsValues.isTruthy(increment)) {
+                    increment = 1;
+                }
+
+                // Use the lowest quantity evenly divisible by the instance multiplier
+                double adjustedQuantity = quantity - (quantity % increment);
+                return JsValues.toInt32(stackValue) +
+                    (JsValues.parseInt(poolValue) * adjustedQuantity) / increment;
+
+            case ComplianceContext.GUEST_LIMIT_ATTRIBUTE:
+                // The value doesn't matter, it just needs to be enforced
+                return -1.0;
+
+            default:
+                return JsValues.toInt32(stackValue) + JsValues.parseInt(poolValue) * quantity;
+        }
+    }
+}
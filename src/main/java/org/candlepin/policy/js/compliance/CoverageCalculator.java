@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js.compliance;
+
+import org.candlepin.model.Entitlement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+
+
+/**
+ * Determines the coverage a compliance tracker provides to a consumer, checking each of the
+ * consumer's compliance attributes enforced by the tracker against the consumer's facts. This is
+ * the native counterpart of the coverage calculator in the rules file.
+ */
+class CoverageCalculator {
+
+    /**
+     * The coverage provided by an entitlement or stack, and the reasons the consumer is not covered
+     * if it is not
+     */
+    public record Coverage(boolean covered, List<ComplianceReason> reasons) {
+    }
+
+    private final ComplianceContext context;
+
+    public CoverageCalculator(ComplianceContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Determines the coverage provided by the given tracker. Global attributes, such as the guest
+     * limit, are calculated across all of the given entitlements rather than those in the tracker.
+     *
+     * @param tracker
+     *  the tracker for which to determine coverage
+     *
+     * @param entitlements
+     *  all of the entitlements attached to the consumer on the date being checked
+     *
+     * @return
+     *  the coverage provided by the tracker
+     */
+    public Coverage getStackCoverage(ComplianceTracker tracker, Collection<Entitlement> entitlements) {
+        for (String attribute : this.context.getComplianceAttributes()) {
+            if (tracker.enforces(attribute) && ComplianceContext.GUEST_LIMIT_ATTRIBUTE.equals(attribute)) {
+                tracker.setAccumulatedValue(attribute, this.getGlobalGuestLimit(entitlements));
+            }
+        }
+
+        List<ComplianceReason> reasons = new ArrayList<>();
+        for (String attribute : this.context.getComplianceAttributes()) {
+            // Attributes which are not enforced are considered covered
+            if (!tracker.enforces(attribute)) {
+                continue;
+            }
+
+            ComplianceReason reason = switch (attribute) {
+                case ComplianceContext.ARCH_ATTRIBUTE -> this.checkArchitecture(tracker);
+                case ComplianceContext.GUEST_LIMIT_ATTRIBUTE -> this.checkGuestLimit(tracker);
+                default -> this.checkQuantity(tracker, attribute);
+            };
+
+            if (reason != null) {
+                reasons.add(reason);
+            }
+        }
+
+        return new Coverage(reasons.isEmpty(), reasons);
+    }
+
+    /**
+     * The guest limit of a consumer is the highest guest limit of any of its entitlements, or
+     * unlimited if any of them is unlimited.
+     */
+    private Double getGlobalGuestLimit(Collection<Entitlement> entitlements) {
+        Double total = null;
+
+        for (Entitlement entitlement : entitlements) {
+            Object value = this.context.getProductAttribute(entitlement.getPool(),
+                ComplianceContext.GUEST_LIMIT_ATTRIBUTE);
+
+            if (value != null) {
+                if (total == null) {
+                    total = 0.0;
+                }
+
+                double poolValue = JsValues.parseInt(value);
+                if (poolValue == -1) {
+                    return poolValue;
+                }
+
+                if (poolValue > total) {
+                    total = poolValue;
+                }
+            }
+        }
+
+        return total;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ComplianceReason checkArchitecture(ComplianceTracker tracker) {
+        Object accumulated = tracker.getAccumulatedValue(ComplianceContext.ARCH_ATTRIBUTE);
+        Collection<Object> supportedArches = accumulated instanceof Collection ?
+            (Collection<Object>) accumulated : List.of();
+
+        String consumerArch = this.context.hasFact(ComplianceContext.ARCH_FACT) ?
+            this.context.getRawFact(ComplianceContext.ARCH_FACT) : null;
+
+        for (Object archString : supportedArches) {
+            if (!architectureMatches(archString, consumerArch, this.context.getConsumerTypeLabel())) {
+                return buildReason(ComplianceContext.ARCH_ATTRIBUTE, tracker, consumerArch, archString);
+            }
+        }
+
+        return null;
+    }
+
+    private ComplianceReason checkGuestLimit(ComplianceTracker tracker) {
+        Object consumerQuantity = this.context.getFact(ComplianceContext.GUEST_LIMIT_ATTRIBUTE);
+        Object sourceValue = tracker.getAccumulatedValue(ComplianceContext.GUEST_LIMIT_ATTRIBUTE);
+
+        // Same as the quantity check, except -1 is unlimited
+        boolean covered = (sourceValue instanceof Double && (Double) sourceValue == -1) ||
+            JsValues.parseInt(sourceValue) >= JsValues.toNumber(consumerQuantity);
+
+        return covered ? null :
+            buildReason(ComplianceContext.GUEST_LIMIT_ATTRIBUTE, tracker, consumerQuantity, sourceValue);
+    }
+
+    private ComplianceReason checkQuantity(ComplianceTracker tracker, String attribute) {
+        Object consumerQuantity = this.context.getFact(attribute);
+        Object sourceValue = tracker.getAccumulatedValue(attribute);
+
+        boolean covered = JsValues.parseInt(sourceValue) >= JsValues.toNumber(consumerQuantity);
+
+        return covered ? null : buildReason(attribute, tracker, consumerQuantity, sourceValue);
+    }
+
+    /**
+     * Checks if a comma-separated list of product architectures covers the consumer's architecture.
+     * Consumers which are not systems and do not report an architecture are always covered.
+     *
+     * @param productArches
+     *  the comma-separated list of architectures supported by a product
+     *
+     * @param consumerArch
+     *  the consumer's architecture, or null if it does not report one
+     *
+     * @param consumerType
+     *  the label of the consumer's type
+     *
+     * @return
+     *  true if the product architectures cover the consumer's architecture; false otherwise
+     */
+    public static boolean architectureMatches(Object productArches, String consumerArch,
+        String consumerType) {
+
+        if (!JsValues.isTruthy(consumerArch) && !"system".equals(consumerType)) {
+            return true;
+        }
+
+        if (productArches == null) {
+            return true;
+        }
+
+        List<String> supportedArches = new ArrayList<>(Arrays.asList(
+            JsValues.toString(productArches).toUpperCase(Locale.ROOT).split(",", -1)));
+
+        // If X86 is supported, add all of its variants
+        if (supportedArches.contains("X86")) {
+            supportedArches.addAll(List.of("I386", "I586", "I686"));
+        }
+
+        return supportedArches.contains("ALL") || (JsValues.isTruthy(consumerArch) &&
+            supportedArches.contains(consumerArch.toUpperCase(Locale.ROOT)));
+    }
+
+    private static ComplianceReason buildReason(String attribute, ComplianceTracker tracker, Object has,
+        Object covered) {
+
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put(ComplianceReason.Attributes.PRESENT, JsValues.toJsonString(has));
+        attributes.put(ComplianceReason.Attributes.COVERED, JsValues.toJsonString(covered));
+
+        if (ComplianceTracker.TYPE_STACK.equals(tracker.getType())) {
+            attributes.put(ComplianceReason.Attributes.STACKING_ID, tracker.getId());
+        }
+        else {
+            attributes.put(ComplianceReason.Attributes.ENTITLEMENT_ID, tracker.getId());
+        }
+
+        String key = attribute.toUpperCase(Locale.ROOT);
+
+        ComplianceReason reason = new ComplianceReason();
+        reason.setKey(key);
+        reason.setMessage(key);
+        reason.setAttributes(attributes);
+
+        return reason;
+    }
+}
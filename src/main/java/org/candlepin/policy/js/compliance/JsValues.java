@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js.compliance;
+
+import java.math.BigDecimal;
+import java.util.regex.Pattern;
+
+
+
+/**
+ * Conversions reproducing the JavaScript value semantics the compliance rules depend on. Attribute
+ * and fact values are strings which the rules file coerces with parseInt and implicit numeric
+ * conversion, so the native compliance implementation has to coerce them the same way to produce
+ * the same results for malformed or unusual values.
+ * <p>
+ * Numeric values are represented as doubles, as they are in JavaScript.
+ */
+final class JsValues {
+
+    private static final Pattern DECIMAL_LITERAL =
+        Pattern.compile("[+-]?(?:\\d+(?:\\.\\d*)?|\\.\\d+)(?:[eE][+-]?\\d+)?");
+
+    private JsValues() {
+        // Intentionally left empty
+    }
+
+    /**
+     * Checks if the given value would be considered truthy by JavaScript. Null, empty strings, zero
+     * and NaN are falsy; everything else is truthy.
+     *
+     * @param value
+     *  the value to check
+     *
+     * @return
+     *  true if the value is truthy; false otherwise
+     */
+    public static boolean isTruthy(Object value) {
+        if (value == null) {
+            return false;
+        }
+
+        if (value instanceof String) {
+            return !((String) value).isEmpty();
+        }
+
+        if (value instanceof Double) {
+            double number = (Double) value;
+            return number != 0 && !Double.isNaN(number);
+        }
+
+        return true;
+    }
+
+    /**
+     * Reproduces JavaScript's parseInt function with no explicit radix: leading whitespace is
+     * skipped, an optional sign and hexadecimal prefix are accepted, and as many digits as possible
+     * are consumed. Non-string values are converted to strings first.
+     *
+     * @param value
+     *  the value to parse
+     *
+     * @return
+     *  the parsed integer, or NaN if the value does not begin with an integer
+     */
+    public static double parseInt(Object value) {
+        String str = toString(value);
+
+        int offset = skipWhitespace(str, 0);
+        int end = str.length();
+        double sign = 1;
+
+        if (offset < end && (str.charAt(offset) == '-' || str.charAt(offset) == '+')) {
+            sign = str.charAt(offset) == '-' ? -1 : 1;
+            ++offset;
+        }
+
+        int radix = 10;
+        if (offset + 1 < end && str.charAt(offset) == '0' &&
+            (str.charAt(offset + 1) == 'x' || str.charAt(offset + 1) == 'X')) {
+
+            radix = 16;
+            offset += 2;
+        }
+
+        double result = 0;
+        int digits = 0;
+
+        for (; offset < end; ++offset, ++digits) {
+            int digit = Character.digit(str.charAt(offset), radix);
+            if (digit < 0 || str.charAt(offset) > 0x7F) {
+                break;
+            }
+
+            result = result * radix + digit;
+        }
+
+        return digits > 0 ? sign * result : Double.NaN;
+    }
+
+    /**
+     * Reproduces JavaScript's implicit numeric conversion, as applied when a string is used in an
+     * arithmetic or relational expression. Unlike parseInt, the entire string must be numeric, and
+     * an empty string converts to zero.
+     *
+     * @param value
+     *  the value to convert
+     *
+     * @return
+     *  the numeric value of the given value, or NaN if it is not numeric
+     */
+    public static double toNumber(Object value) {
+        if (value == null) {
+            return 0;
+        }
+
+        if (value instanceof Double) {
+            return (Double) value;
+        }
+
+        if (!(value instanceof String)) {
+            return Double.NaN;
+        }
+
+        String str = trim((String) value);
+        if (str.isEmpty()) {
+            return 0;
+        }
+
+        if (str.length() > 2 && str.charAt(0) == '0') {
+            int radix = switch (str.charAt(1)) {
+                case 'x', 'X' -> 16;
+                case 'o', 'O' -> 8;
+                case 'b', 'B' -> 2;
+                default -> 0;
+            };
+
+            if (radix > 0) {
+                double result = 0;
+                for (int i = 2; i < str.length(); ++i) {
+                    int digit = Character.digit(str.charAt(i), radix);
+                    if (digit < 0 || str.charAt(i) > 0x7F) {
+                        return Double.NaN;
+                    }
+
+                    result = result * radix + digit;
+                }
+
+                return result;
+            }
+        }
+
+        switch (str) {
+            case "Infinity":
+            case "+Infinity":
+                return Double.POSITIVE_INFINITY;
+
+            case "-Infinity":
+                return Double.NEGATIVE_INFINITY;
+
+            default:
+                return DECIMAL_LITERAL.matcher(str).matches() ? Double.parseDouble(str) : Double.NaN;
+        }
+    }
+
+    /**
+     * Reproduces JavaScript's bitwise-or-zero idiom ({@code value | 0}), which converts a value to
+     * a signed 32-bit integer, mapping NaN, infinities and null to zero.
+     *
+     * @param value
+     *  the value to convert
+     *
+     * @return
+     *  the 32-bit integer value of the given value
+     */
+    public static double toInt32(Object value) {
+        double number = toNumber(value);
+        if (Double.isNaN(number) || Double.isInfinite(number)) {
+            return 0;
+        }
+
+        return (int) (long) number;
+    }
+
+    /**
+     * Reproduces JavaScript's Math.round, which rounds half-way values towards positive infinity.
+     *
+     * @param value
+     *  the value to round
+     *
+     * @return
+     *  the rounded value
+     */
+    public static double round(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return value;
+        }
+
+        return Math.floor(value + 0.5);
+    }
+
+    /**
+     * Converts a value to a string the way JavaScript would, formatting integral numbers without a
+     * fractional part.
+     *
+     * @param value
+     *  the value to convert
+     *
+     * @return
+     *  the string form of the given value
+     */
+    public static String toString(Object value) {
+        if (value == null) {
+            return "null";
+        }
+
+        if (!(value instanceof Double)) {
+            return value.toString();
+        }
+
+        double number = (Double) value;
+        if (Double.isNaN(number)) {
+            return "NaN";
+        }
+
+        if (Double.isInfinite(number)) {
+            return number > 0 ? "Infinity" : "-Infinity";
+        }
+
+        if (number == 0) {
+            return "0";
+        }
+
+        double magnitude = Math.abs(number);
+        if (magnitude >= 1e-6 && magnitude < 1e21) {
+            return new BigDecimal(Double.toString(number)).stripTrailingZeros().toPlainString();
+        }
+
+        // Exponent form: Java renders 1.0E-7 where JavaScript renders 1e-7
+        String[] parts = Double.toString(number).split("E");
+        String mantissa = parts[0].endsWith(".0") ? parts[0].substring(0, parts[0].length() - 2) : parts[0];
+        String exponent = parts[1].startsWith("-") ? parts[1] : "+" + parts[1];
+
+        return mantissa + "e" + exponent;
+    }
+
+    /**
+     * Converts a value to the string it would be read back as after a round trip through
+     * JSON.stringify and Jackson. Strings are unchanged, numbers are formatted as JavaScript would
+     * format them, and null or non-finite numbers become null.
+     *
+     * @param value
+     *  the value to convert
+     *
+     * @return
+     *  the serialized form of the given value, or null
+     */
+    public static String toJsonString(Object value) {
+        if (value == null) {
+            return null;
+        }
+
+        if (value instanceof Double) {
+            double number = (Double) value;
+            if (Double.isNaN(number) || Double.isInfinite(number)) {
+                return null;
+            }
+        }
+
+        return toString(value);
+    }
+
+    private static boolean isWhitespace(char chr) {
+        return Character.isWhitespace(chr) || Character.isSpaceChar(chr) || chr == '\uFEFF';
+    }
+
+    private static int skipWhitespace(String str, int offset) {
+        while (offset < str.length() && isWhitespace(str.charAt(offset))) {
+            ++offset;
+        }
+
+        return offset;
+    }
+
+    private static String trim(String str) {
+        int start = skipWhitespace(str, 0);
+        int end = str.length();
+
+        while (end > start && isWhitespace(str.charAt(end - 1))) {
+            --end;
+        }
+
+        return str.substring(start, end);
+    }
+}
@@ -0,0 +1,538 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js.compliance;
+
+import org.candlepin.dto.api.server.v1.DateRange;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.ConsumerType;
+import org.candlepin.model.Entitlement;
+import org.candlepin.util.Util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+
+
+/**
+ * A native implementation of the compliance calculation performed by the compliance namespace of
+ * the rules file. It operates directly on the entitlement and pool model objects, avoiding the
+ * cost of serializing the consumer and its entitlements to JSON and evaluating the rules in Rhino,
+ * and produces the same compliance status the rules do.
+ */
+public class NativeComplianceCalculator {
+    private static final Logger log = LoggerFactory.getLogger(NativeComplianceCalculator.class);
+
+    /** One second, in milliseconds */
+    private static final long COMPLIANT_UNTIL_OFFSET = 1000;
+
+    /**
+     * Calculates the compliance status of a consumer on the given date.
+     *
+     * @param consumer
+     *  the consumer to check
+     *
+     * @param consumerType
+     *  the type of the consumer
+     *
+     * @param entitlements
+     *  the entitlements to consider attached to the consumer
+     *
+     * @param onDate
+     *  the date for which to calculate the compliance status
+     *
+     * @param calculateCompliantUntil
+     *  whether or not to calculate how long the consumer will remain compliant
+     *
+     * @param calculateProductComplianceDateRanges
+     *  whether or not to calculate the compliance date ranges of each installed product
+     *
+     * @return
+     *  the compliance status of the consumer
+     */
+    public ComplianceStatus getStatus(Consumer consumer, ConsumerType consumerType,
+        List<Entitlement> entitlements, Date onDate, boolean calculateCompliantUntil,
+        boolean calculateProductComplianceDateRanges) {
+
+        Calculation calculation = new Calculation(new ComplianceContext(consumer, consumerType),
+            entitlements);
+
+        long date = onDate.getTime();
+        StatusOnDate status = calculation.getStatusOnDate(date);
+
+        ComplianceStatus output = new ComplianceStatus(new Date(date));
+        status.compliantProducts
+            .forEach((pid, ents) -> ents.forEach(e -> output.addCompliantProduct(pid, e)));
+        status.partiallyCompliantProducts
+            .forEach((pid, ents) -> ents.forEach(e -> output.addPartiallyCompliantProduct(pid, e)));
+        status.partialStacks
+            .forEach((sid, ents) -> ents.forEach(e -> output.addPartialStack(sid, e)));
+        status.nonCompliantProducts.forEach(output::addNonCompliantProduct);
+
+        // The rules return reasons as a list, but equal reasons are collapsed once deserialized
+        Set<List<Object>> seen = new HashSet<>();
+        for (ComplianceReason reason : status.reasons) {
+            if (seen.add(Arrays.asList(reason.getKey(), reason.getMessage(), reason.getAttributes()))) {
+                output.getReasons().add(reason);
+            }
+        }
+
+        if (status.isCompliant() && calculateCompliantUntil && !entitlements.isEmpty()) {
+            Long compliantUntil = calculation.determineCompliantUntilDate(date);
+            output.setCompliantUntil(compliantUntil != null ? new Date(compliantUntil) : null);
+        }
+
+        if (status.isPartiallyCompliant() && calculateProductComplianceDateRanges &&
+            !entitlements.isEmpty()) {
+
+            calculation.getProductComplianceDateRanges(date, status).forEach((pid, range) -> {
+                DateRange dateRange = new DateRange();
+                dateRange.setStartDate(Util.toDateTime(new Date(range[0])));
+                dateRange.setEndDate(Util.toDateTime(new Date(range[1])));
+
+                output.addProductComplianceDateRange(pid, dateRange);
+            });
+        }
+
+        return output;
+    }
+
+    /**
+     * Checks if the given entitlements fully cover the consumer for the specified stack.
+     *
+     * @param consumer
+     *  the consumer to check
+     *
+     * @param consumerType
+     *  the type of the consumer
+     *
+     * @param stackId
+     *  the ID of the stack to check
+     *
+     * @param entitlements
+     *  the entitlements to consider attached to the consumer
+     *
+     * @return
+     *  true if the stack is compliant; false otherwise
+     */
+    public boolean isStackCompliant(Consumer consumer, ConsumerType consumerType, String stackId,
+        List<Entitlement> entitlements) {
+
+        Calculation calculation = new Calculation(new ComplianceContext(consumer, consumerType),
+            entitlements);
+
+        return calculation.getStackCoverage(stackId, entitlements).covered();
+    }
+
+    /**
+     * Checks if the given entitlement fully covers the consumer.
+     *
+     * @param consumer
+     *  the consumer to check
+     *
+     * @param consumerType
+     *  the type of the consumer
+     *
+     * @param entitlement
+     *  the entitlement to check
+     *
+     * @param entitlements
+     *  the entitlements to consider attached to the consumer
+     *
+     * @return
+     *  true if the entitlement is compliant; false otherwise
+     */
+    public boolean isEntitlementCompliant(Consumer consumer, ConsumerType consumerType,
+        Entitlement entitlement, List<Entitlement> entitlements) {
+
+        Calculation calculation = new Calculation(new ComplianceContext(consumer, consumerType),
+            entitlements);
+
+        return calculation.getEntitlementCoverage(entitlement, entitlements).covered();
+    }
+
+    /**
+     * The compliance status of a consumer on a single date, as built up by the rules
+     */
+    private static class StatusOnDate {
+        private final Map<String, List<Entitlement>> partialStacks = new LinkedHashMap<>();
+        private final Map<String, List<Entitlement>> partiallyCompliantProducts = new LinkedHashMap<>();
+        private final Map<String, List<Entitlement>> compliantProducts = new LinkedHashMap<>();
+        private final List<String> nonCompliantProducts = new ArrayList<>();
+        private final List<ComplianceReason> reasons = new ArrayList<>();
+
+        private static void add(Map<String, List<Entitlement>> map, String key, Entitlement entitlement) {
+            map.computeIfAbsent(key, k -> new ArrayList<>()).add(entitlement);
+        }
+
+        public boolean isCompliant() {
+            return this.nonCompliantProducts.isEmpty() && this.partiallyCompliantProducts.isEmpty();
+        }
+
+        public boolean isPartiallyCompliant() {
+            return !this.compliantProducts.isEmpty() || !this.partiallyCompliantProducts.isEmpty();
+        }
+
+        public boolean isCompliant(String productId) {
+            return this.compliantProducts.containsKey(productId);
+        }
+
+        public boolean isPartiallyCompliant(String productId) {
+            return this.partiallyCompliantProducts.containsKey(productId);
+        }
+    }
+
+    /**
+     * A compliance calculation for a single consumer and set of entitlements
+     */
+    private static class Calculation {
+        private final ComplianceContext context;
+        private final CoverageCalculator coverageCalculator;
+        private final List<Entitlement> entitlements;
+
+        public Calculation(ComplianceContext context, List<Entitlement> entitlements) {
+            this.context = context;
+            this.coverageCalculator = new CoverageCalculator(context);
+            this.entitlements = entitlements;
+        }
+
+        public CoverageCalculator.Coverage getStackCoverage(String stackId, Collection<Entitlement> ents) {
+            ComplianceTracker tracker = new ComplianceTracker(this.context, stackId);
+
+            for (Entitlement entitlement : ents) {
+                if (ComplianceContext.isStacked(entitlement.getPool()) &&
+                    Objects.equals(stackId, this.getStackId(entitlement))) {
+                    tracker.updateAccumulatedFromEnt(entitlement);
+                }
+            }
+
+            return this.coverageCalculator.getStackCoverage(tracker, ents);
+        }
+
+        public CoverageCalculator.Coverage getEntitlementCoverage(Entitlement entitlement,
+            Collection<Entitlement> ents) {
+
+            ComplianceTracker tracker = new ComplianceTracker(this.context, null);
+            tracker.updateAccumulatedFromEnt(entitlement);
+
+            return this.coverageCalculator.getStackCoverage(tracker, ents);
+        }
+
+        private String getStackId(Entitlement entitlement) {
+            Object stackId = this.context.getProductAttribute(entitlement.getPool(),
+                ComplianceContext.STACKING_ID_ATTRIBUTE);
+
+            return stackId != null ? JsValues.toString(stackId) : null;
+        }
+
+        private boolean isUnmappedGuest(Entitlement entitlement) {
+            Object value = this.context.getAttribute(entitlement.getPool(),
+                ComplianceContext.UNMAPPED_GUESTS_ONLY_ATTRIBUTE);
+
+            return value != null && "true".equalsIgnoreCase(JsValues.toString(value));
+        }
+
+        /**
+         * Determines the compliance status of the consumer on the given date, considering only the
+         * entitlements active on that date.
+         */
+        public StatusOnDate getStatusOnDate(long date) {
+            StatusOnDate status = new StatusOnDate();
+
+            // Track the stack IDs we've already checked to save some time
+            Set<String> compliantStackIds = new HashSet<>();
+            Set<String> nonCompliantStackIds = new HashSet<>();
+
+            List<Entitlement> entitlementsOnDate = new ArrayList<>();
+            for (Entitlement entitlement : this.entitlements) {
+                if (toTime(entitlement.getStartDate()) <= date && toTime(entitlement.getEndDate()) >= date) {
+                    entitlementsOnDate.add(entitlement);
+                }
+            }
+
+            for (Entitlement entitlement : entitlementsOnDate) {
+                List<String> relevantPids = new ArrayList<>();
+                for (String pid : this.context.getInstalledProductIds()) {
+                    if (ComplianceContext.provides(entitlement.getPool(), pid)) {
+                        relevantPids.add(pid);
+                    }
+                }
+
+                boolean partiallyStacked = false;
+                boolean stacked = ComplianceContext.isStacked(entitlement.getPool());
+
+                // If the pool is stacked, check that the stack requirements are met
+                if (stacked) {
+                    String stackId = this.getStackId(entitlement);
+
+                    if (nonCompliantStackIds.contains(stackId)) {
+                        partiallyStacked = true;
+                        StatusOnDate.add(status.partialStacks, stackId, entitlement);
+                    }
+                    else if (!compliantStackIds.contains(stackId)) {
+                        CoverageCalculator.Coverage coverage = this.getStackCoverage(stackId,
+                            entitlementsOnDate);
+
+                        if (!coverage.covered()) {
+                            partiallyStacked = true;
+                            StatusOnDate.add(status.partialStacks, stackId, entitlement);
+                            nonCompliantStackIds.add(stackId);
+                            status.reasons.addAll(coverage.reasons());
+                        }
+                        else {
+                            compliantStackIds.add(stackId);
+                        }
+                    }
+                }
+
+                // If we have no installed products and the entitlement is partially covered, we want
+                // the system to be partial
+                if (relevantPids.isEmpty() && !stacked) {
+                    CoverageCalculator.Coverage coverage = this.getEntitlementCoverage(entitlement,
+                        entitlementsOnDate);
+
+                    if (!coverage.covered()) {
+                        status.reasons.addAll(coverage.reasons());
+                    }
+                }
+
+                // An entitlement from an unmapped guest pool can only hope to be yellow
+                if (this.isUnmappedGuest(entitlement)) {
+                    status.reasons.add(buildReason(ComplianceReason.ReasonKeys.UNMAPPED_GUEST,
+                        ComplianceReason.Attributes.ENTITLEMENT_ID, entitlement.getId()));
+                }
+
+                for (String pid : relevantPids) {
+                    if (partiallyStacked) {
+                        StatusOnDate.add(status.partiallyCompliantProducts, pid, entitlement);
+                        continue;
+                    }
+
+                    CoverageCalculator.Coverage coverage = this.getEntitlementCoverage(entitlement,
+                        entitlementsOnDate);
+
+                    if (!coverage.covered() && !stacked) {
+                        StatusOnDate.add(status.partiallyCompliantProducts, pid, entitlement);
+                        status.reasons.addAll(coverage.reasons());
+                    }
+                    else {
+                        StatusOnDate.add(status.compliantProducts, pid, entitlement);
+                    }
+                }
+            }
+
+            // Products provided by a regular entitlement are not partially compliant, even if they
+            // are also provided by a partial stack. The stack itself remains in the partial stacks.
+            status.partiallyCompliantProducts.keySet().removeAll(status.compliantProducts.keySet());
+
+            // Any installed product we didn't find an entitlement for is not compliant
+            for (String pid : this.context.getInstalledProductIds()) {
+                if (!status.compliantProducts.containsKey(pid) &&
+                    !status.partiallyCompliantProducts.containsKey(pid)) {
+
+                    status.nonCompliantProducts.add(pid);
+                    status.reasons.add(buildReason(ComplianceReason.ReasonKeys.NOT_COVERED,
+                        ComplianceReason.Attributes.PRODUCT_ID, pid));
+                }
+            }
+
+            log.debug("Calculated compliance status on {}: {} compliant, {} partial, {} non-compliant",
+                date, status.compliantProducts.size(), status.partiallyCompliantProducts.size(),
+                status.nonCompliantProducts.size());
+
+            return status;
+        }
+
+        /**
+         * Determines the date on which the consumer stops being compliant, by checking the status
+         * one second after each end date of the entitlements providing installed products.
+         */
+        public Long determineCompliantUntilDate(long startDate) {
+            List<String> installed = this.context.getInstalledProductIds();
+            if (installed.isEmpty()) {
+                return null;
+            }
+
+            List<Entitlement> providing = new ArrayList<>();
+            for (Entitlement entitlement : this.entitlements) {
+                boolean providesInstalled = installed.stream()
+                    .anyMatch(pid -> ComplianceContext.provides(entitlement.getPool(), pid));
+
+                if (providesInstalled) {
+                    providing.add(entitlement);
+                }
+            }
+
+            long lastDate = startDate;
+            for (long date : getSortedEntitlementDates(providing, false, true)) {
+                // Ignore past dates and duplicates
+                if (date <= lastDate) {
+                    continue;
+                }
+
+                // Check if we're still compliant just after the end date
+                lastDate = date + COMPLIANT_UNTIL_OFFSET;
+
+                if (!this.getStatusOnDate(lastDate).isCompliant()) {
+                    return lastDate;
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Determines the range of dates over which each compliant or partially compliant installed
+         * product keeps its current status, by stepping through the start and end dates of the
+         * consumer's entitlements in either direction from the given date.
+         *
+         * @return
+         *  a mapping of product IDs to a two-element array of the range start and end times
+         */
+        public Map<String, long[]> getProductComplianceDateRanges(long onDate, StatusOnDate current) {
+            Map<String, long[]> ranges = new LinkedHashMap<>();
+
+            for (String pid : this.context.getInstalledProductIds()) {
+                if (!current.nonCompliantProducts.contains(pid)) {
+                    ranges.put(pid, new long[2]);
+                }
+            }
+
+            if (ranges.isEmpty()) {
+                return ranges;
+            }
+
+            long[] dates = getSortedEntitlementDates(this.entitlements, true, true);
+            Set<String> startFound = new HashSet<>();
+            Set<String> endFound = new HashSet<>();
+
+            // Find the first date in the future
+            int nextDate = 0;
+            for (int i = dates.length - 1; i >= 0; --i) {
+                if (dates[i] <= onDate) {
+                    nextDate = i + 1;
+                    break;
+                }
+            }
+
+            // Find start dates. We add a millisecond to each date to move just outside the range of
+            // the entitlement an end date came from, so we don't bridge any coverage gaps.
+            long lastValidDate = onDate;
+            for (int i = nextDate - 1; i >= 0 && startFound.size() < ranges.size(); --i) {
+                StatusOnDate status = this.getStatusOnDate(dates[i] + 1);
+
+                for (Map.Entry<String, long[]> entry : ranges.entrySet()) {
+                    String pid = entry.getKey();
+
+                    boolean lostStatus = status.nonCompliantProducts.contains(pid) ||
+                        (current.isCompliant(pid) && !status.isCompliant(pid)) ||
+                        (current.isPartiallyCompliant(pid) && !status.isPartiallyCompliant(pid));
+
+                    if (!startFound.contains(pid) && lostStatus) {
+
+                        entry.getValue()[0] = lastValidDate;
+                        startFound.add(pid);
+                    }
+                }
+
+                lastValidDate = dates[i];
+            }
+
+            // Find end dates
+            for (int i = nextDate; i < dates.length && endFound.size() < ranges.size(); ++i) {
+                StatusOnDate status = this.getStatusOnDate(dates[i] + 1);
+
+                for (Map.Entry<String, long[]> entry : ranges.entrySet()) {
+                    String pid = entry.getKey();
+
+                    boolean lostStatus = status.nonCompliantProducts.contains(pid) ||
+                        (current.isCompliant(pid) && !status.isCompliant(pid)) ||
+                        (current.isPartiallyCompliant(pid) && !status.isPartiallyCompliant(pid) &&
+                        !status.isCompliant(pid));
+
+                    if (!endFound.contains(pid) && lostStatus) {
+
+                        entry.getValue()[1] = dates[i];
+                        endFound.add(pid);
+                    }
+                }
+            }
+
+            // Products valid all the way to the ends of our date range get the extremes
+            for (Map.Entry<String, long[]> entry : ranges.entrySet()) {
+                if (!startFound.contains(entry.getKey())) {
+                    entry.getValue()[0] = dates[0];
+                }
+
+                if (!endFound.contains(entry.getKey())) {
+                    entry.getValue()[1] = dates[dates.length - 1];
+                }
+            }
+
+            return ranges;
+        }
+
+        private static long[] getSortedEntitlementDates(Collection<Entitlement> entitlements,
+            boolean useStartDates, boolean useEndDates) {
+
+            int datesPerEntitlement = (useStartDates ? 1 : 0) + (useEndDates ? 1 : 0);
+            long[] dates = new long[entitlements.size() * datesPerEntitlement];
+            int index = 0;
+
+            for (Entitlement entitlement : entitlements) {
+                if (useStartDates) {
+                    dates[index++] = toTime(entitlement.getStartDate());
+                }
+
+                if (useEndDates) {
+                    dates[index++] = toTime(entitlement.getEndDate());
+                }
+            }
+
+            Arrays.sort(dates);
+            return dates;
+        }
+
+        /**
+         * Converts a date to its time in milliseconds. Missing dates are treated as the epoch, as
+         * they are by the rules.
+         */
+        private static long toTime(Date date) {
+            return date != null ? date.getTime() : 0;
+        }
+
+        private static ComplianceReason buildReason(String key, String attribute, String value) {
+            Map<String, String> attributes = new LinkedHashMap<>();
+            attributes.put(attribute, value);
+
+            ComplianceReason reason = new ComplianceReason();
+            reason.setKey(key);
+            reason.setMessage(key);
+            reason.setAttributes(attributes);
+
+            return reason;
+        }
+    }
+}
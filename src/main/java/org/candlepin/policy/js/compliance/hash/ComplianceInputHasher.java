@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js.compliance.hash;
+
+import org.candlepin.model.Consumer;
+import org.candlepin.model.ConsumerType;
+import org.candlepin.model.Entitlement;
+import org.candlepin.model.GuestId;
+import org.candlepin.model.Pool;
+import org.candlepin.model.Product;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Creates a hash of the inputs to a compliance calculation, such that two calculations with the
+ * same input hash will produce the same compliance status on the same date.
+ *
+ * Unlike the {@link ComplianceStatusHasher}, this hash is computed before the compliance rules
+ * are run, and covers the consumer's type, compliance facts, installed products and guests, along
+ * with the entitlements considered, the last update of the rules in use and the options the
+ * calculation was requested with. The
+ * attributes and last update of each entitlement's pool and products are included, so a refresh
+ * which changes a product without updating its pools still changes the hash.
+ */
+public class ComplianceInputHasher extends Hasher {
+
+    private static final HashableStringGenerator<Entitlement> ENTITLEMENT_DATES = ent ->
+        ent == null ? null : ent.getId() + getTime(ent.getStartDate()) + getTime(ent.getEndDate());
+
+    private static final HashableStringGenerator<Entitlement> ENTITLEMENT_PRODUCTS = ent -> {
+        if (ent == null || ent.getPool() == null) {
+            return null;
+        }
+
+        Pool pool = ent.getPool();
+        return ent.getId() +
+            generateFromAttributes(pool.getAttributes()) +
+            generateFromProduct(pool.getProduct(), true) +
+            generateFromProduct(pool.getDerivedProduct(), true);
+    };
+
+    private static final HashableStringGenerator<Product> PROVIDED_PRODUCT = product ->
+        generateFromProduct(product, false);
+
+    private static final HashableStringGenerator<GuestId> GUEST_ID = guest ->
+        guest == null ? null : guest.getGuestId();
+
+    public ComplianceInputHasher(Consumer consumer, ConsumerType type, Collection<Entitlement> entitlements,
+        Date rulesUpdated, String... options) {
+
+        putObject(consumer.getUuid(), HashableStringGenerators.STRING);
+        putObject(type != null ? type.getLabel() : null, HashableStringGenerators.STRING);
+        putCollection(ComplianceFacts.of(consumer), HashableStringGenerators.STRING_ENTRY);
+        putCollection(consumer.getInstalledProducts(), HashableStringGenerators.INSTALLED_PRODUCT);
+        putCollection(consumer.getGuestIds(), GUEST_ID);
+        putCollection(entitlements, HashableStringGenerators.ENTITLEMENT);
+        putCollection(entitlements, ENTITLEMENT_DATES);
+        putCollection(entitlements, ENTITLEMENT_PRODUCTS);
+        putObject(rulesUpdated != null ? String.valueOf(rulesUpdated.getTime()) : null,
+            HashableStringGenerators.STRING);
+
+        for (String option : options) {
+            putObject(option, HashableStringGenerators.STRING);
+        }
+    }
+
+    /**
+     * Generates a string from the given product, its attributes and, optionally, its provided
+     * products.
+     */
+    private static String generateFromProduct(Product product, boolean includeProvided) {
+        if (product == null) {
+            return null;
+        }
+
+        String generated = product.getUuid() + product.getId() + getTime(product.getUpdated()) +
+            generateFromAttributes(product.getAttributes());
+
+        if (includeProvided) {
+            generated += HashableStringGenerators.generateFromCollection(product.getProvidedProducts(),
+                PROVIDED_PRODUCT);
+        }
+
+        return generated;
+    }
+
+    private static String generateFromAttributes(Map<String, String> attributes) {
+        return attributes == null ? null :
+            HashableStringGenerators.generateFromCollection(attributes.entrySet(),
+                HashableStringGenerators.STRING_ENTRY);
+    }
+
+    private static Long getTime(Date date) {
+        return date == null ? null : date.getTime();
+    }
+
+}
@@ -148,7 +148,7 @@ public class EntitlementRules implements Enforcer {
             entitlementPoolQuantities.stream()
                 .map(this.translator.getStreamMapper(PoolQuantity.class, PoolQuantityDTO.class));
 
-        JsonJsContext args = new JsonJsContext(objectMapper);
+        JsonJsContext args = objectMapper.createContext();
         args.put("consumer", this.translator.translate(consumer, ConsumerDTO.class));
         args.put("hostConsumer", this.translator.translate(host, ConsumerDTO.class));
         args.put("consumerEntitlements", entStream.collect(Collectors.toSet()));
@@ -185,7 +185,7 @@ public class EntitlementRules implements Enforcer {
     @Override
     @SuppressWarnings("checkstyle:indentation")
     public List<Pool> filterPools(Consumer consumer, List<Pool> pools, boolean showAll) {
-        JsonJsContext args = new JsonJsContext(objectMapper);
+        JsonJsContext args = objectMapper.createContext();
 
         ConsumerType ctype = this.consumerTypeCurator.getConsumerType(consumer);
 
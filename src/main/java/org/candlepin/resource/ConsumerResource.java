@@ -39,6 +39,7 @@ import org.candlepin.config.ConfigProperties;
 import org.candlepin.config.Configuration;
 import org.candlepin.controller.AutobindDisabledForOwnerException;
 import org.candlepin.controller.AutobindHypervisorDisabledException;
+import org.candlepin.controller.ConsumerCheckInRecorder;
 import org.candlepin.controller.ContentAccessManager;
 import org.candlepin.controller.ContentAccessManager.ContentAccessMode;
 import org.candlepin.controller.EntitlementCertificateGenerator;
@@ -204,6 +205,9 @@ public class ConsumerResource implements ConsumerApi {
     /** The maximum number of consumers to return per list or find request */
     private static final int MAX_CONSUMERS_PER_REQUEST = 1000;
 
+    /** The call site under which compliance status cache lookups made by consumer updates are counted */
+    private static final String COMPLIANCE_UPDATE_CALL_SITE = "consumer_update";
+
     private final ConsumerCurator consumerCurator;
     private final ConsumerTypeCurator consumerTypeCurator;
     private final SubscriptionServiceAdapter subAdapter;
@@ -245,6 +249,7 @@ public class ConsumerResource implements ConsumerApi {
     private final EntitlementCertificateGenerator entCertGenerator;
     private final AnonymousCloudConsumerCurator anonymousConsumerCurator;
     private final AnonymousContentAccessCertificateCurator anonymousCertCurator;
+    private final ConsumerCheckInRecorder checkInRecorder;
 
 
     private final EntitlementEnvironmentFilter entitlementEnvironmentFilter;
@@ -296,7 +301,8 @@ public class ConsumerResource implements ConsumerApi {
         CloudRegistrationAdapter cloudAdapter,
         PoolCurator poolCurator,
         AnonymousCloudConsumerCurator anonymousConsumerCurator,
-        AnonymousContentAccessCertificateCurator anonymousCertCurator) {
+        AnonymousContentAccessCertificateCurator anonymousCertCurator,
+        ConsumerCheckInRecorder checkInRecorder) {
 
         this.consumerCurator = Objects.requireNonNull(consumerCurator);
         this.consumerTypeCurator = Objects.requireNonNull(consumerTypeCurator);
@@ -339,6 +345,7 @@ public class ConsumerResource implements ConsumerApi {
         this.poolService = Objects.requireNonNull(poolService);
         this.anonymousConsumerCurator = Objects.requireNonNull(anonymousConsumerCurator);
         this.anonymousCertCurator = Objects.requireNonNull(anonymousCertCurator);
+        this.checkInRecorder = Objects.requireNonNull(checkInRecorder);
 
         this.entitlementEnvironmentFilter = new EntitlementEnvironmentFilter(
             entitlementCurator, environmentContentCurator);
@@ -1683,7 +1690,8 @@ public class ConsumerResource implements ConsumerApi {
 
         if (complianceChangesMade) {
             // this should update compliance on toUpdate, but not call the curator
-            complianceRules.getStatus(toUpdate, null, false, false);
+            complianceRules.getStatus(toUpdate, null, null, false, false, false, true,
+                COMPLIANCE_UPDATE_CALL_SITE);
         }
 
         return changesMade;
@@ -1694,6 +1702,11 @@ public class ConsumerResource implements ConsumerApi {
             return false;
         }
 
+        // Avoid loading the existing facts when the fingerprints show nothing has changed
+        if (toUpdate.getFactsFingerprint() != null && toUpdate.factsAreEqual(updated.getFacts())) {
+            return false;
+        }
+
         return !Objects.equals(ComplianceFacts.of(updated), ComplianceFacts.of(toUpdate));
     }
 
@@ -1916,6 +1929,12 @@ public class ConsumerResource implements ConsumerApi {
             existing.setFacts(incomingFacts);
             return true;
         }
+        else if (existing.getFactsFingerprint() == null) {
+            // The facts are unchanged, but predate fingerprints. Record the fingerprint so the
+            // next unchanged upload can be detected without loading the facts.
+            existing.setFacts(incomingFacts);
+        }
+
         return false;
     }
 
@@ -2142,7 +2161,7 @@ public class ConsumerResource implements ConsumerApi {
         log.debug("Getting client certificates for consumer: {}", consumerUuid);
         if (principal instanceof ConsumerPrincipal) {
             ConsumerPrincipal p = (ConsumerPrincipal) principal;
-            consumerCurator.updateLastCheckin(p.getConsumer());
+            this.checkInRecorder.recordCheckIn(p.getConsumer());
         }
 
         return getEntitlementCertificatesForConsumer(consumerUuid, serials);
@@ -26,6 +26,7 @@ import org.candlepin.model.Content;
 import org.candlepin.model.ContentCurator;
 import org.candlepin.model.Owner;
 import org.candlepin.model.OwnerCurator;
+import org.candlepin.paging.CursorPaging;
 import org.candlepin.paging.PagingUtilFactory;
 import org.candlepin.resource.server.v1.OwnerContentApi;
 import org.candlepin.resource.util.InfoAdapter;
@@ -268,6 +269,7 @@ public class OwnerContentResource implements OwnerContentApi {
 
     @Override
     @Transactional
+    @CursorPaging
     public Stream<ContentDTO> getContentsByOwner(@Verify(Owner.class) String ownerKey,
         List<String> contentIds, Boolean omitGlobalEntities) {
 
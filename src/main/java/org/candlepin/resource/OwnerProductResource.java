@@ -42,6 +42,7 @@ import org.candlepin.model.ProductCertificate;
 import org.candlepin.model.ProductCertificateCurator;
 import org.candlepin.model.ProductContent;
 import org.candlepin.model.ProductCurator;
+import org.candlepin.paging.CursorPaging;
 import org.candlepin.paging.PagingUtilFactory;
 import org.candlepin.resource.server.v1.OwnerProductApi;
 import org.candlepin.resource.util.InfoAdapter;
@@ -554,6 +555,7 @@ public class OwnerProductResource implements OwnerProductApi {
 
     @Override
     @Transactional
+    @CursorPaging
     public Stream<ProductDTO> getProductsByOwner(@Verify(Owner.class) String ownerKey,
         List<String> productIds, Boolean omitGlobalEntities) {
 
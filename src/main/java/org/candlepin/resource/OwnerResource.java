@@ -105,9 +105,12 @@ import org.candlepin.model.UpstreamConsumer;
 import org.candlepin.model.activationkeys.ActivationKey;
 import org.candlepin.model.activationkeys.ActivationKeyContentOverride;
 import org.candlepin.model.activationkeys.ActivationKeyCurator;
+import org.candlepin.paging.CursorPaging;
 import org.candlepin.paging.Page;
+import org.candlepin.paging.PageCursor;
 import org.candlepin.paging.PageRequest;
 import org.candlepin.paging.PagingUtilFactory;
+import org.candlepin.paging.ReflectionFieldComparatorFactory;
 import org.candlepin.resource.server.v1.OwnerApi;
 import org.candlepin.resource.util.AttachedFile;
 import org.candlepin.resource.util.CalculatedAttributesUtil;
@@ -150,6 +153,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -172,6 +176,10 @@ public class OwnerResource implements OwnerApi {
     /** The maximum number of consumers to return per list or find request */
     private static final int MAX_CONSUMERS_PER_REQUEST = 1000;
 
+    /** Maps consumer sort fields to the values recorded in page cursors */
+    private static final ReflectionFieldComparatorFactory<Consumer> CONSUMER_FIELDS =
+        new ReflectionFieldComparatorFactory<>(Consumer.class, null);
+
     private final OwnerCurator ownerCurator;
     private final OwnerInfoCurator ownerInfoCurator;
     private final ActivationKeyCurator activationKeyCurator;
@@ -1083,6 +1091,7 @@ public class OwnerResource implements OwnerApi {
     }
 
     @Override
+    @CursorPaging
     @RootResource.LinkedResource
     public Stream<EnvironmentDTO> listEnvironments(
         @Verify(Owner.class) String ownerKey, String envName, List<String> type, Boolean listAll) {
@@ -1123,6 +1132,7 @@ public class OwnerResource implements OwnerApi {
     }
 
     @Override
+    @CursorPaging
     public Stream<ConsumerDTOArrayElement> listConsumers(
         @Verify(value = Owner.class, subResource = SubResource.CONSUMERS) String ownerKey,
         String username,
@@ -1144,11 +1154,15 @@ public class OwnerResource implements OwnerApi {
         new KeyValueStringParser(this.i18n).parseKeyValuePairs(facts)
             .forEach(kvpair -> queryArgs.addFact(kvpair.getKey(), kvpair.getValue()));
 
+        // Do paging bits, if necessary
+        PageRequest pageRequest = ResteasyContext.getContextData(PageRequest.class);
+        if (pageRequest != null && pageRequest.isCursorPaging()) {
+            return this.listConsumersAfterCursor(queryArgs, pageRequest);
+        }
+
         long count = this.consumerCurator.getConsumerCount(queryArgs);
         log.debug("Consumer query will fetch {} consumers", count);
 
-        // Do paging bits, if necessary
-        PageRequest pageRequest = ResteasyContext.getContextData(PageRequest.class);
         if (pageRequest != null) {
             Page<Stream<ConsumerDTOArrayElement>> pageResponse = new Page<>();
             pageResponse.setPageRequest(pageRequest);
@@ -1186,6 +1200,84 @@ public class OwnerResource implements OwnerApi {
         }
     }
 
+    /**
+     * Fetches a page of consumers by seeking past the request's cursor rather than by skipping rows,
+     * so deep pages cost as much to fetch as the first. The consumers are only counted if the client
+     * asked for the total.
+     */
+    private Stream<ConsumerDTOArrayElement> listConsumersAfterCursor(ConsumerQueryArguments queryArgs,
+        PageRequest pageRequest) {
+
+        String sortBy = pageRequest.getSortBy() != null ?
+            pageRequest.getSortBy() :
+            PageRequest.DEFAULT_SORT_FIELD;
+
+        PageRequest.Order order = pageRequest.getOrder() != null ?
+            pageRequest.getOrder() :
+            PageRequest.DEFAULT_ORDER;
+
+        // Validate the sort before fetching anything, so a walk cannot fail partway through when the
+        // cursor for a later page is built
+        Function<Consumer, Object> accessor = CONSUMER_FIELDS.getFieldAccessor(sortBy);
+        if (accessor == null || !PageCursor.isSupportedKeyType(CONSUMER_FIELDS.getFieldType(sortBy))) {
+            throw new BadRequestException(
+                this.i18n.tr("Cursor paging is not supported for sort-by field: {0}", sortBy));
+        }
+
+        PageCursor cursor = pageRequest.getCursor();
+        if (cursor != null && !cursor.matches(sortBy, order)) {
+            throw new BadRequestException(
+                this.i18n.tr("The page cursor does not match the requested sort-by field and order"));
+        }
+
+        Page<Stream<ConsumerDTOArrayElement>> pageResponse = new Page<Stream<ConsumerDTOArrayElement>>()
+            .setPageRequest(pageRequest)
+            .setCursorPage(true);
+
+        if (pageRequest.isIncludeCount()) {
+            pageResponse.setMaxRecords((int) this.consumerCurator.getConsumerCount(queryArgs));
+        }
+
+        int perPage = pageRequest.getPerPage();
+        boolean reverse = order == PageRequest.Order.DESCENDING;
+
+        queryArgs.addOrder(sortBy, reverse)
+            .addOrder(PageCursor.ID_FIELD, reverse);
+
+        // Consumers with a null sort key are paged as a separate segment, so a page may span the end
+        // of one segment and the start of the next. Fetch one consumer beyond the page to find out
+        // whether there is a next page.
+        List<Consumer> consumers = new ArrayList<>();
+        PageCursor position = cursor != null ? cursor : PageCursor.first(sortBy, order);
+
+        while (position != null && consumers.size() <= perPage) {
+            queryArgs.setCursor(position)
+                .setLimit(perPage + 1 - consumers.size());
+
+            try {
+                consumers.addAll(this.consumerCurator.findConsumers(queryArgs));
+            }
+            catch (InvalidOrderKeyException e) {
+                throw new BadRequestException(e.getMessage(), e);
+            }
+
+            position = position.nextSegment();
+        }
+
+        if (consumers.size() > perPage) {
+            consumers = consumers.subList(0, perPage);
+
+            Consumer last = consumers.get(perPage - 1);
+            pageResponse.setNextCursor(PageCursor.after(sortBy, order, accessor.apply(last), last.getId()));
+        }
+
+        // Store the page for the LinkHeaderResponseFilter
+        ResteasyContext.pushContext(Page.class, pageResponse);
+
+        return consumers.stream()
+            .map(this.translator.getStreamMapper(Consumer.class, ConsumerDTOArrayElement.class));
+    }
+
     @Override
     public Integer countConsumers(
         @Verify(value = Owner.class, subResource = SubResource.CONSUMERS) String ownerKey,
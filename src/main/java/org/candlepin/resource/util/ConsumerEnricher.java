@@ -46,6 +46,9 @@ public class ConsumerEnricher {
     private static final String GREEN_STATUS = "green";
     private static final String GRAY_STATUS = "gray";
 
+    /** The call site under which compliance status cache lookups are counted */
+    private static final String COMPLIANCE_CALL_SITE = "consumer_enricher";
+
     private final ComplianceRules complianceRules;
     private final ProductCurator productCurator;
 
@@ -62,7 +65,7 @@ public class ConsumerEnricher {
         }
 
         ComplianceStatus status = this.complianceRules.getStatus(consumer, null, null, false, true,
-            true, true);
+            true, true, COMPLIANCE_CALL_SITE);
         Map<String, DateRange> ranges = status.getProductComplianceDateRanges();
 
         // Compile and prefetch the IDs of the products we're going to be enriching
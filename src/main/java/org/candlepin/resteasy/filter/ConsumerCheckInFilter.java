@@ -17,7 +17,7 @@ package org.candlepin.resteasy.filter;
 import org.candlepin.auth.ConsumerPrincipal;
 import org.candlepin.auth.Principal;
 import org.candlepin.auth.UpdateConsumerCheckIn;
-import org.candlepin.model.ConsumerCurator;
+import org.candlepin.controller.ConsumerCheckInRecorder;
 import org.candlepin.resteasy.AnnotationLocator;
 
 import org.jboss.resteasy.core.ResteasyContext;
@@ -42,12 +42,13 @@ import javax.ws.rs.ext.Provider;
 @Priority(Priorities.USER)
 @Provider
 public class ConsumerCheckInFilter implements ContainerRequestFilter {
-    private final ConsumerCurator consumerCurator;
+    private final ConsumerCheckInRecorder checkInRecorder;
     private final AnnotationLocator annotationLocator;
 
     @Inject
-    public ConsumerCheckInFilter(ConsumerCurator consumerCurator, AnnotationLocator annotationLocator) {
-        this.consumerCurator = consumerCurator;
+    public ConsumerCheckInFilter(ConsumerCheckInRecorder checkInRecorder,
+        AnnotationLocator annotationLocator) {
+        this.checkInRecorder = checkInRecorder;
         this.annotationLocator = annotationLocator;
     }
 
@@ -60,7 +61,7 @@ public class ConsumerCheckInFilter implements ContainerRequestFilter {
         if (principal instanceof ConsumerPrincipal &&
             annotationLocator.getAnnotation(method, UpdateConsumerCheckIn.class) != null) {
             ConsumerPrincipal p = (ConsumerPrincipal) principal;
-            consumerCurator.updateLastCheckin(p.getConsumer());
+            checkInRecorder.recordCheckIn(p.getConsumer());
         }
     }
 }
@@ -16,6 +16,7 @@ package org.candlepin.resteasy.filter;
 
 import org.candlepin.config.Configuration;
 import org.candlepin.paging.Page;
+import org.candlepin.paging.PageCursor;
 import org.candlepin.paging.PageRequest;
 
 import org.apache.commons.lang3.StringUtils;
@@ -56,6 +57,7 @@ public class LinkHeaderResponseFilter implements ContainerResponseFilter {
     // we still leave plenty of space for other headers.
     private static final int MAX_LINK_LENGTH = 1024;
     private static final String TOTAL_RECORDS_COUNT = "X-total-count";
+    private static final String TOTAL_RECORDS_LOWER_BOUND = "X-total-count-lower-bound";
     private static final String LINK_TYPE = MediaType.APPLICATION_JSON;
     public static final String LINK_HEADER = "Link";
 
@@ -95,20 +97,9 @@ public class LinkHeaderResponseFilter implements ContainerResponseFilter {
         //TODO add missing parameters like the default limit if no limit is given.
 
         try {
-            LinkHeader header = new LinkHeader();
-
-            Integer next = getNextPage(page);
-            if (next != null) {
-                header.addLink("next", "next", buildPageLink(builder, next), LINK_TYPE);
-            }
-
-            Integer prev = getPrevPage(page);
-            if (prev != null) {
-                header.addLink("prev", "prev", buildPageLink(builder, prev), LINK_TYPE);
-            }
-
-            header.addLink("first", "first", buildPageLink(builder, 1), LINK_TYPE);
-            header.addLink("last", "last", buildPageLink(builder, getLastPage(page)), LINK_TYPE);
+            LinkHeader header = page.isCursorPage() ?
+                this.buildCursorLinks(builder, page) :
+                this.buildPageLinks(builder, page);
 
             respContext.getHeaders().add(LINK_HEADER, header.toString());
         }
@@ -118,7 +109,64 @@ public class LinkHeaderResponseFilter implements ContainerResponseFilter {
                 MAX_LINK_LENGTH, e);
         }
 
-        respContext.getHeaders().add(TOTAL_RECORDS_COUNT, page.getMaxRecords());
+        // Cursor paged requests only count the results if asked to
+        if (page.getMaxRecords() != null) {
+            respContext.getHeaders().add(page.isMaxRecordsLowerBound() ?
+                TOTAL_RECORDS_LOWER_BOUND : TOTAL_RECORDS_COUNT, page.getMaxRecords());
+        }
+    }
+
+    private LinkHeader buildPageLinks(UriBuilder builder, Page<?> page) {
+        LinkHeader header = new LinkHeader();
+
+        Integer next = getNextPage(page);
+        if (next != null) {
+            header.addLink("next", "next", buildPageLink(builder, next), LINK_TYPE);
+        }
+
+        Integer prev = getPrevPage(page);
+        if (prev != null) {
+            header.addLink("prev", "prev", buildPageLink(builder, prev), LINK_TYPE);
+        }
+
+        header.addLink("first", "first", buildPageLink(builder, 1), LINK_TYPE);
+
+        // The last page is unknown if the results were only counted up to the end of this page
+        if (!page.isMaxRecordsLowerBound()) {
+            header.addLink("last", "last", buildPageLink(builder, getLastPage(page)), LINK_TYPE);
+        }
+
+        return header;
+    }
+
+    /**
+     * Cursor paged results can only be walked forward, so they are linked to the first page and,
+     * unless this is the last page, to the next page by its cursor.
+     */
+    private LinkHeader buildCursorLinks(UriBuilder builder, Page<?> page) {
+        LinkHeader header = new LinkHeader();
+
+        PageCursor next = page.getNextCursor();
+        if (next != null) {
+            header.addLink("next", "next", buildCursorLink(builder, next.encode()), LINK_TYPE);
+        }
+
+        header.addLink("first", "first", buildCursorLink(builder, ""), LINK_TYPE);
+
+        return header;
+    }
+
+    protected String buildCursorLink(UriBuilder b, String cursor) {
+        UriBuilder builder = b.clone();
+        builder.queryParam(PageRequest.CURSOR_PARAM, cursor);
+
+        String link = builder.build().toString();
+
+        if (link.length() > MAX_LINK_LENGTH) {
+            throw new LinkTooLongException(link);
+        }
+
+        return link;
     }
 
     protected String buildPageLink(UriBuilder b, int value) {
@@ -198,10 +246,11 @@ public class LinkHeaderResponseFilter implements ContainerResponseFilter {
     protected UriBuilder addUnchangingQueryParams(UriBuilder builder,
         MultivaluedMap<String, String> params) {
         // This will take care of adding back any order, per_page, or sort_by
-        // parameters provided too.
+        // parameters provided too. The page or cursor is set per link.
         if (params != null) {
             for (Entry<String, List<String>> e : params.entrySet()) {
-                if (!e.getKey().equals(PageRequest.PAGE_PARAM)) {
+                if (!e.getKey().equals(PageRequest.PAGE_PARAM) &&
+                    !e.getKey().equals(PageRequest.CURSOR_PARAM)) {
                     for (String v : e.getValue()) {
                         builder = builder.queryParam(e.getKey(), v);
                     }
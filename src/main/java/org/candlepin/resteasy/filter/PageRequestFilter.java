@@ -15,12 +15,16 @@
 package org.candlepin.resteasy.filter;
 
 import org.candlepin.exceptions.BadRequestException;
+import org.candlepin.paging.CursorPaging;
+import org.candlepin.paging.PageCursor;
 import org.candlepin.paging.PageRequest;
 import org.candlepin.paging.PageRequest.Order;
+import org.candlepin.resteasy.AnnotationLocator;
 
 import org.jboss.resteasy.core.ResteasyContext;
 import org.xnap.commons.i18n.I18n;
 
+import java.lang.reflect.Method;
 import java.util.Objects;
 
 import javax.annotation.Priority;
@@ -28,6 +32,7 @@ import javax.inject.Inject;
 import javax.ws.rs.Priorities;
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ResourceInfo;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.Provider;
 
@@ -40,10 +45,12 @@ import javax.ws.rs.ext.Provider;
 @Priority(Priorities.USER)
 public class PageRequestFilter implements ContainerRequestFilter {
     private final javax.inject.Provider<I18n> i18nProvider;
+    private final AnnotationLocator annotationLocator;
 
     @Inject
-    public PageRequestFilter(javax.inject.Provider<I18n> i18nProvider) {
+    public PageRequestFilter(javax.inject.Provider<I18n> i18nProvider, AnnotationLocator annotationLocator) {
         this.i18nProvider = Objects.requireNonNull(i18nProvider);
+        this.annotationLocator = Objects.requireNonNull(annotationLocator);
     }
 
     @Override
@@ -56,8 +63,10 @@ public class PageRequestFilter implements ContainerRequestFilter {
         String perPage = params.getFirst(PageRequest.PER_PAGE_PARAM);
         String order = params.getFirst(PageRequest.ORDER_PARAM);
         String sortBy = params.getFirst(PageRequest.SORT_BY_PARAM);
+        String cursor = params.getFirst(PageRequest.CURSOR_PARAM);
+        String includeCount = params.getFirst(PageRequest.INCLUDE_COUNT_PARAM);
 
-        if (page != null || perPage != null || order != null || sortBy != null) {
+        if (page != null || perPage != null || order != null || sortBy != null || cursor != null) {
             p = new PageRequest();
 
             if (order == null) {
@@ -90,6 +99,34 @@ public class PageRequestFilter implements ContainerRequestFilter {
                 throw new BadRequestException(i18n.tr("offset and limit parameters" +
                     " must be positive integers"), nfe);
             }
+
+            // An empty cursor requests the first page of a cursor paged listing
+            if (cursor != null) {
+                if (page != null) {
+                    I18n i18n = this.i18nProvider.get();
+                    throw new BadRequestException(i18n.tr("the page and cursor parameters" +
+                        " cannot be used together"));
+                }
+
+                if (!this.supportsCursorPaging()) {
+                    I18n i18n = this.i18nProvider.get();
+                    throw new BadRequestException(i18n.tr("the cursor parameter is not supported" +
+                        " by this request"));
+                }
+
+                // Cursor paged listings are always limited to a page, starting at the first
+                if (perPage == null) {
+                    p.setPage(PageRequest.DEFAULT_PAGE);
+                    p.setPerPage(PageRequest.DEFAULT_PER_PAGE);
+                }
+
+                p.setCursorPaging(true);
+                p.setCursor(readCursor(cursor));
+            }
+
+            if (includeCount != null) {
+                p.setIncludeCount(Boolean.parseBoolean(includeCount));
+            }
         }
 
         ResteasyContext.pushContext(PageRequest.class, p);
@@ -108,6 +145,30 @@ public class PageRequestFilter implements ContainerRequestFilter {
                 " \"ascending\" or \"descending\""));
     }
 
+    /**
+     * Checks whether the resource method handling the current request supports cursor paging.
+     */
+    private boolean supportsCursorPaging() {
+        ResourceInfo resourceInfo = ResteasyContext.getContextData(ResourceInfo.class);
+        Method method = resourceInfo != null ? resourceInfo.getResourceMethod() : null;
+
+        return method != null && this.annotationLocator.getAnnotation(method, CursorPaging.class) != null;
+    }
+
+    private PageCursor readCursor(String cursor) {
+        if (cursor.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return PageCursor.decode(cursor);
+        }
+        catch (IllegalArgumentException e) {
+            I18n i18n = this.i18nProvider.get();
+            throw new BadRequestException(i18n.tr("the cursor parameter is not a valid page cursor"), e);
+        }
+    }
+
     private Integer readInteger(String value) {
         if (value != null) {
             int i = Integer.parseInt(value);
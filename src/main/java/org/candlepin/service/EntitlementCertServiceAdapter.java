@@ -17,11 +17,15 @@ package org.candlepin.service;
 import org.candlepin.model.Consumer;
 import org.candlepin.model.Entitlement;
 import org.candlepin.model.EntitlementCertificate;
+import org.candlepin.model.Pool;
 import org.candlepin.model.PoolQuantity;
 import org.candlepin.model.Product;
+import org.candlepin.util.CertificateSizeException;
 
 import java.io.IOException;
 import java.security.GeneralSecurityException;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -65,6 +69,43 @@ public interface EntitlementCertServiceAdapter {
         Map<String, Product> products, boolean save)
         throws GeneralSecurityException, IOException;
 
+    /**
+     * Generate new entitlement certificates for the given entitlements, which may belong to any
+     * number of consumers. The serials of the new certificates are persisted, but the certificates
+     * themselves are neither attached to their entitlements nor persisted. Entitlements for which
+     * a certificate cannot be generated because it would be too large are omitted from the output.
+     *
+     * @param entitlements the entitlements for which to generate certificates.
+     * @return The generated certificates, indexed by entitlement ID.
+     * @throws IOException thrown if there's a problem reading the cert.
+     * @throws GeneralSecurityException thrown security problem
+     */
+    default Map<String, EntitlementCertificate> regenerateEntitlementCerts(
+        Collection<Entitlement> entitlements) throws GeneralSecurityException, IOException {
+
+        Map<String, EntitlementCertificate> certificates = new HashMap<>();
+
+        for (Entitlement entitlement : entitlements) {
+            Pool pool = entitlement.getPool();
+
+            try {
+                Map<String, EntitlementCertificate> generated = this.generateEntitlementCerts(
+                    entitlement.getConsumer(),
+                    Map.of(pool.getId(), new PoolQuantity(pool, entitlement.getQuantity())),
+                    Map.of(pool.getId(), entitlement),
+                    Map.of(pool.getId(), pool.getProduct()),
+                    false);
+
+                certificates.put(entitlement.getId(), generated.get(pool.getId()));
+            }
+            catch (CertificateSizeException e) {
+                // Omitted from the output; the caller decides how to report it
+            }
+        }
+
+        return certificates;
+    }
+
     /**
      * Return a list of all entitlement certificates for a given consumer.
      *
@@ -37,11 +37,13 @@ import org.candlepin.model.Pool;
 import org.candlepin.model.PoolQuantity;
 import org.candlepin.model.Product;
 import org.candlepin.model.ProductContent;
+import org.candlepin.model.dto.EntitlementBody;
 import org.candlepin.pki.DistinguishedName;
 import org.candlepin.pki.OID;
 import org.candlepin.pki.PKIUtility;
 import org.candlepin.pki.X509Extension;
 import org.candlepin.pki.certs.X509StringExtension;
+import org.candlepin.pki.impl.CertificateSigningPool;
 import org.candlepin.util.CertificateSizeException;
 import org.candlepin.util.Util;
 import org.candlepin.util.X509ExtensionUtil;
@@ -61,10 +63,13 @@ import java.math.BigInteger;
 import java.security.GeneralSecurityException;
 import java.security.KeyPair;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -90,6 +95,7 @@ public class DefaultEntitlementCertServiceAdapter extends BaseEntitlementCertSer
     private final Configuration config;
     private final ConsumerTypeCurator consumerTypeCurator;
     private final EnvironmentCurator environmentCurator;
+    private final CertificateSigningPool signingPool;
 
     @Inject
     public DefaultEntitlementCertServiceAdapter(PKIUtility pki,
@@ -101,7 +107,8 @@ public class DefaultEntitlementCertServiceAdapter extends BaseEntitlementCertSer
         EntitlementCurator entCurator, I18n i18n,
         Configuration config,
         ConsumerTypeCurator consumerTypeCurator,
-        EnvironmentCurator environmentCurator) {
+        EnvironmentCurator environmentCurator,
+        CertificateSigningPool signingPool) {
 
         this.pki = pki;
         this.extensionUtil = extensionUtil;
@@ -114,6 +121,7 @@ public class DefaultEntitlementCertServiceAdapter extends BaseEntitlementCertSer
         this.config = config;
         this.consumerTypeCurator = consumerTypeCurator;
         this.environmentCurator = environmentCurator;
+        this.signingPool = signingPool;
     }
 
 
@@ -170,13 +178,28 @@ public class DefaultEntitlementCertServiceAdapter extends BaseEntitlementCertSer
         KeyPair keyPair, PromotedContent promotedContent, Set<Pool> entitledPools)
         throws GeneralSecurityException, IOException {
 
+        products.add(product);
+
+        CertificateRequest request = this.prepareCertificateRequest(consumer, owner, pool, ent, products,
+            productModels, keyPair, promotedContent, entitledPools, this.shouldGenerateV3(consumer));
+
+        return this.signX509Certificate(request, serialNumber);
+    }
+
+    /**
+     * Gathers everything needed to sign the certificate for a single entitlement. Building the
+     * extensions requires the entitlement's products, content and environments, so this must be done
+     * on the calling thread; the resulting request can then be signed on any thread.
+     */
+    private CertificateRequest prepareCertificateRequest(Consumer consumer, Owner owner, Pool pool,
+        Entitlement ent, Set<Product> products, List<org.candlepin.model.dto.Product> productModels,
+        KeyPair keyPair, PromotedContent promotedContent, Set<Pool> entitledPools, boolean v3) {
+
         // oidutil is busted at the moment, so do this manually
         Set<X509Extension> extensions = new HashSet<>();
-        products.add(product);
 
-        if (shouldGenerateV3(consumer)) {
+        if (v3) {
             extensions.addAll(prepareV3Extensions(pool));
-            extensions.addAll(this.v3extensionUtil.getByteExtensions(productModels));
         }
         else {
             extensions = prepareV1Extensions(products, pool, consumer, ent.getQuantity(),
@@ -195,9 +218,28 @@ public class DefaultEntitlementCertServiceAdapter extends BaseEntitlementCertSer
         }
         DistinguishedName dn = new DistinguishedName(ent.getId(), owner);
 
-        return this.pki.createX509Certificate(
-            dn, extensions, startDate,
-            endDate, keyPair, serialNumber, null);
+        CertificateRequest request = new CertificateRequest();
+        request.dn = dn;
+        request.extensions = extensions;
+        request.productModels = v3 ? productModels : null;
+        request.startDate = startDate;
+        request.endDate = endDate;
+        request.keyPair = keyPair;
+
+        return request;
+    }
+
+    private X509Certificate signX509Certificate(CertificateRequest request, BigInteger serialNumber)
+        throws GeneralSecurityException, IOException {
+
+        Set<X509Extension> extensions = request.extensions;
+        if (request.productModels != null) {
+            extensions = new HashSet<>(extensions);
+            extensions.addAll(this.v3extensionUtil.getByteExtensions(request.productModels));
+        }
+
+        return this.pki.createX509Certificate(request.dn, extensions, request.startDate,
+            request.endDate, request.keyPair, serialNumber, null);
     }
 
     /**
@@ -360,89 +402,168 @@ public class DefaultEntitlementCertServiceAdapter extends BaseEntitlementCertSer
         boolean save)
         throws GeneralSecurityException, IOException {
 
-        Owner owner = ownerCurator.findOwnerById(consumer.getOwnerId());
-
-        log.debug("Generating entitlement cert for entitlements");
-        KeyPair keyPair = this.pki.getConsumerKeyPair(consumer);
-        byte[] pemEncodedKeyPair = pki.getPemEncoded(keyPair.getPrivate());
-
-        Map<String, CertificateSerial> serialMap = new HashMap<>();
-        for (Entry<String, PoolQuantity> entry : poolQuantities.entrySet()) {
-            serialMap.put(entry.getKey(), new CertificateSerial(entry.getValue().getPool().getEndDate()));
-        }
-
-        // Serials need to be saved to get generated ID.
-        log.debug("Persisting new certificate serials");
-        serialCurator.saveOrUpdateAll(serialMap.values(), false, false);
         Set<Pool> entitledPools = poolQuantities.values().stream()
             .map(PoolQuantity::getPool)
             .collect(Collectors.toSet());
 
-        List<Environment> environments = this.environmentCurator.getConsumerEnvironments(consumer);
-        ContentPathBuilder contentPathBuilder = ContentPathBuilder.from(owner, environments);
-        PromotedContent promotedContent = new PromotedContent(contentPathBuilder)
-            .withAll(environments);
+        ConsumerState state = this.buildConsumerState(consumer, entitledPools);
 
-        Map<String, EntitlementCertificate> entitlementCerts = new HashMap<>();
+        Map<String, CertificateRequest> requests = new LinkedHashMap<>();
         for (Entry<String, PoolQuantity> entry : poolQuantities.entrySet()) {
             Pool pool = entry.getValue().getPool();
             Entitlement ent = entitlements.get(entry.getKey());
-            CertificateSerial serial = serialMap.get(entry.getKey());
             Product product = productMap.get(entry.getKey());
 
-            log.info("Generating entitlement cert for pool: {} quantity: {} entitlement id: {}",
-                pool,
-                ent.getQuantity(),
-                ent.getId());
+            requests.put(entry.getKey(), this.prepareCertificateRequest(state, pool, ent, product));
+        }
 
-            Set<Product> products = new HashSet<>(pool.getProduct().getProvidedProducts());
+        Map<String, EntitlementCertificate> entitlementCerts = this.signCertificates(requests);
 
-            // If creating a certificate for a distributor, we need
-            // to add any derived products as well so that their content
-            // is available in the upstream certificate.
-            products.addAll(getDerivedProductsForDistributor(pool, consumer));
-            products.add(product);
+        if (save) {
+            for (Entry<String, EntitlementCertificate> entry : entitlementCerts.entrySet()) {
+                entitlements.get(entry.getKey()).addCertificate(entry.getValue());
+            }
 
-            log.info("Creating X509 cert for product: {}", product);
-            log.debug("Provided products: {}", products);
-            List<org.candlepin.model.dto.Product> productModels = v3extensionUtil.createProducts(product,
-                products, promotedContent, consumer, pool, entitledPools);
+            log.info("Persisting certs.");
+            entCertCurator.saveOrUpdateAll(entitlementCerts.values(), false, false);
+        }
 
-            X509Certificate x509Cert = createX509Certificate(consumer, owner, pool, ent,
-                product, products, productModels,
-                BigInteger.valueOf(serial.getId()), keyPair, promotedContent, entitledPools);
+        return entitlementCerts;
+    }
 
-            log.debug("Getting PEM encoded cert.");
-            String pem = new String(this.pki.getPemEncoded(x509Cert));
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The products, content and key pair of every consumer are resolved up front on the calling
+     * thread, the serials of every certificate are persisted in a single batch, and the signing of
+     * the certificates is spread across the certificate signing pool.
+     */
+    @Override
+    public Map<String, EntitlementCertificate> regenerateEntitlementCerts(
+        Collection<Entitlement> entitlements) throws GeneralSecurityException, IOException {
 
-            if (shouldGenerateV3(consumer)) {
-                log.debug("Generating v3 entitlement data");
+        Map<String, List<Entitlement>> consumerEntitlements = new LinkedHashMap<>();
+        for (Entitlement entitlement : entitlements) {
+            consumerEntitlements.computeIfAbsent(entitlement.getConsumer().getId(), key -> new ArrayList<>())
+                .add(entitlement);
+        }
 
-                byte[] payloadBytes = v3extensionUtil.createEntitlementDataPayload(productModels,
-                    consumer.getUuid(), pool, ent.getQuantity());
+        Map<String, CertificateRequest> requests = new LinkedHashMap<>();
+        for (List<Entitlement> group : consumerEntitlements.values()) {
+            Consumer consumer = group.get(0).getConsumer();
+            Set<Pool> entitledPools = group.stream()
+                .map(Entitlement::getPool)
+                .collect(Collectors.toSet());
 
-                String payload = "-----BEGIN ENTITLEMENT DATA-----\n";
-                payload += Util.toBase64(payloadBytes);
-                payload += "-----END ENTITLEMENT DATA-----\n";
+            ConsumerState state = this.buildConsumerState(consumer, entitledPools);
 
-                byte[] bytes = pki.getSHA256WithRSAHash(new ByteArrayInputStream(payloadBytes));
-                String signature = "-----BEGIN RSA SIGNATURE-----\n";
-                signature += Util.toBase64(bytes);
-                signature += "-----END RSA SIGNATURE-----\n";
+            for (Entitlement entitlement : group) {
+                Pool pool = entitlement.getPool();
 
-                pem += payload + signature;
+                try {
+                    requests.put(entitlement.getId(),
+                        this.prepareCertificateRequest(state, pool, entitlement, pool.getProduct()));
+                }
+                catch (CertificateSizeException e) {
+                    log.warn("The certificate cannot be regenerated at this time: {}", e.getMessage());
+                }
             }
+        }
 
-            // Build a skeleton cert as part of the entitlement processing.
-            EntitlementCertificate cert = new EntitlementCertificate();
-            cert.setKeyAsBytes(pemEncodedKeyPair);
-            cert.setCert(pem);
-            if (save) {
-                cert.setEntitlement(ent);
-            }
+        return this.signCertificates(requests);
+    }
+
+    /**
+     * Resolves the per-consumer state shared by all of the certificates generated for a consumer.
+     */
+    private ConsumerState buildConsumerState(Consumer consumer, Set<Pool> entitledPools)
+        throws GeneralSecurityException, IOException {
+
+        ConsumerState state = new ConsumerState();
+        state.consumer = consumer;
+        state.owner = ownerCurator.findOwnerById(consumer.getOwnerId());
+        state.entitledPools = entitledPools;
+        state.v3 = this.shouldGenerateV3(consumer);
+
+        log.debug("Generating entitlement cert for entitlements");
+        state.keyPair = this.pki.getConsumerKeyPair(consumer);
+        state.pemEncodedKeyPair = pki.getPemEncoded(state.keyPair.getPrivate());
+
+        List<Environment> environments = this.environmentCurator.getConsumerEnvironments(consumer);
+        ContentPathBuilder contentPathBuilder = ContentPathBuilder.from(state.owner, environments);
+        state.promotedContent = new PromotedContent(contentPathBuilder)
+            .withAll(environments);
+
+        return state;
+    }
+
+    private CertificateRequest prepareCertificateRequest(ConsumerState state, Pool pool, Entitlement ent,
+        Product product) {
+
+        Consumer consumer = state.consumer;
+
+        log.info("Generating entitlement cert for pool: {} quantity: {} entitlement id: {}",
+            pool,
+            ent.getQuantity(),
+            ent.getId());
+
+        Set<Product> products = new HashSet<>(pool.getProduct().getProvidedProducts());
+
+        // If creating a certificate for a distributor, we need
+        // to add any derived products as well so that their content
+        // is available in the upstream certificate.
+        products.addAll(getDerivedProductsForDistributor(pool, consumer));
+        products.add(product);
+
+        log.info("Creating X509 cert for product: {}", product);
+        log.debug("Provided products: {}", products);
+        List<org.candlepin.model.dto.Product> productModels = v3extensionUtil.createProducts(product,
+            products, state.promotedContent, consumer, pool, state.entitledPools);
+
+        CertificateRequest request = this.prepareCertificateRequest(consumer, state.owner, pool, ent,
+            products, productModels, state.keyPair, state.promotedContent, state.entitledPools, state.v3);
+
+        if (state.v3) {
+            request.entitlementBody = v3extensionUtil.createEntitlementBody(productModels,
+                consumer.getUuid(), pool, ent.getQuantity());
+        }
+
+        request.serial = new CertificateSerial(pool.getEndDate());
+        request.pemEncodedKeyPair = state.pemEncodedKeyPair;
+
+        return request;
+    }
+
+    /**
+     * Persists the serials of the given requests in a single batch, then signs the certificates on
+     * the signing pool. The returned certificates are not attached to their entitlements.
+     */
+    private Map<String, EntitlementCertificate> signCertificates(Map<String, CertificateRequest> requests)
+        throws GeneralSecurityException, IOException {
+
+        // Serials need to be saved to get generated ID.
+        log.debug("Persisting new certificate serials");
+        List<CertificateSerial> serials = requests.values().stream()
+            .map(request -> request.serial)
+            .collect(Collectors.toList());
+
+        serialCurator.saveOrUpdateAll(serials, false, false);
+
+        List<CertificateSigningPool.SigningTask<EntitlementCertificate>> tasks = requests.values().stream()
+            .map(request -> (CertificateSigningPool.SigningTask<EntitlementCertificate>) () ->
+                this.signCertificate(request))
+            .collect(Collectors.toList());
+
+        List<EntitlementCertificate> certs = this.signingPool.signAll(tasks);
+
+        Map<String, EntitlementCertificate> entitlementCerts = new HashMap<>();
+        int index = 0;
+        for (Entry<String, CertificateRequest> entry : requests.entrySet()) {
+            EntitlementCertificate cert = certs.get(index++);
+            cert.setSerial(entry.getValue().serial);
 
             if (log.isDebugEnabled()) {
-                log.debug("Generated cert serial number: {}", serial.getId());
+                log.debug("Generated cert serial number: {}", cert.getSerial().getId());
                 log.debug("Key: {}", cert.getKey());
                 log.debug("Cert: {}", cert.getCert());
             }
@@ -450,39 +571,77 @@ public class DefaultEntitlementCertServiceAdapter extends BaseEntitlementCertSer
             entitlementCerts.put(entry.getKey(), cert);
         }
 
-        // Now that the serials have been saved, update the newly created
-        // certs with their serials and add them to the entitlements.
-        for (Entry<String, PoolQuantity> entry : poolQuantities.entrySet()) {
-            CertificateSerial nextSerial = serialMap.get(entry.getKey());
-            if (nextSerial == null) {
-                // This should never happen, but checking to be safe.
-                throw new RuntimeException(
-                    "Certificate serial not found for entitlement during cert generation.");
-            }
+        return entitlementCerts;
+    }
 
-            EntitlementCertificate nextCert = entitlementCerts.get(entry.getKey());
-            if (nextCert == null) {
-                // This should never happen, but checking to be safe.
-                throw new RuntimeException(
-                    "Entitlement certificate not found for entitlement during cert generation");
-            }
+    /**
+     * Signs a prepared certificate and, for v3 certificates, its entitlement data payload. This is
+     * run on the signing pool, and must only use the state captured in the request.
+     */
+    private EntitlementCertificate signCertificate(CertificateRequest request)
+        throws GeneralSecurityException, IOException {
 
-            nextCert.setSerial(nextSerial);
-            if (save) {
-                Entitlement ent = entitlements.get(entry.getKey());
-                ent.addCertificate(nextCert);
-            }
-        }
+        X509Certificate x509Cert = this.signX509Certificate(request,
+            BigInteger.valueOf(request.serial.getId()));
 
-        if (save) {
-            log.info("Persisting certs.");
-            entCertCurator.saveOrUpdateAll(entitlementCerts.values(), false, false);
+        log.debug("Getting PEM encoded cert.");
+        String pem = new String(this.pki.getPemEncoded(x509Cert));
+
+        if (request.entitlementBody != null) {
+            log.debug("Generating v3 entitlement data");
+
+            byte[] payloadBytes = v3extensionUtil.createEntitlementDataPayload(request.entitlementBody);
+
+            String payload = "-----BEGIN ENTITLEMENT DATA-----\n";
+            payload += Util.toBase64(payloadBytes);
+            payload += "-----END ENTITLEMENT DATA-----\n";
+
+            byte[] bytes = pki.getSHA256WithRSAHash(new ByteArrayInputStream(payloadBytes));
+            String signature = "-----BEGIN RSA SIGNATURE-----\n";
+            signature += Util.toBase64(bytes);
+            signature += "-----END RSA SIGNATURE-----\n";
+
+            pem += payload + signature;
         }
 
-        return entitlementCerts;
+        // Build a skeleton cert as part of the entitlement processing.
+        EntitlementCertificate cert = new EntitlementCertificate();
+        cert.setKeyAsBytes(request.pemEncodedKeyPair);
+        cert.setCert(pem);
+
+        return cert;
     }
 
     public List<Long> listEntitlementSerialIds(Consumer consumer) {
         return serialCurator.listEntitlementSerialIds(consumer);
     }
+
+    /**
+     * The state shared by every certificate generated for a single consumer
+     */
+    private static class ConsumerState {
+        private Consumer consumer;
+        private Owner owner;
+        private KeyPair keyPair;
+        private byte[] pemEncodedKeyPair;
+        private PromotedContent promotedContent;
+        private Set<Pool> entitledPools;
+        private boolean v3;
+    }
+
+    /**
+     * Everything needed to sign the certificate for a single entitlement, detached from the
+     * database session so it may be signed on another thread
+     */
+    private static class CertificateRequest {
+        private DistinguishedName dn;
+        private Set<X509Extension> extensions;
+        private List<org.candlepin.model.dto.Product> productModels;
+        private EntitlementBody entitlementBody;
+        private Date startDate;
+        private Date endDate;
+        private KeyPair keyPair;
+        private byte[] pemEncodedKeyPair;
+        private CertificateSerial serial;
+    }
 }
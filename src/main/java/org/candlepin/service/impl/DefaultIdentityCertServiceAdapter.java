@@ -123,9 +123,9 @@ public class DefaultIdentityCertServiceAdapter implements
         Date endDate = this.endDateGenerator.apply(new Date());
 
         CertificateSerial serial = new CertificateSerial(endDate);
-        // We need the sequence generated id before we create the EntitlementCertificate,
-        // otherwise we could have used cascading create
-        serialCurator.create(serial);
+        // The serial's id is assigned when it is persisted, so the insert itself can wait for the
+        // flush which writes the certificate using it
+        serialCurator.create(serial, false);
         DistinguishedName dn = new DistinguishedName(consumer.getUuid(), consumer.getOwner());
 
         IdentityCertificate identityCert = new IdentityCertificate();
@@ -38,11 +38,14 @@ import org.candlepin.resource.util.GuestMigration;
 import org.candlepin.service.SubscriptionServiceAdapter;
 import org.candlepin.util.Transactional;
 
+import com.google.common.collect.Iterables;
+
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -50,7 +53,9 @@ import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
@@ -110,6 +115,25 @@ public class HypervisorUpdateAction {
         parseHypervisorList(hypervisors, hosts, guests, incomingHosts);
         VirtConsumerMap hypervisorConsumersMap = new VirtConsumerMap();
 
+        if (config.getBoolean(ConfigProperties.HYPERVISOR_BULK_RECONCILIATION)) {
+            this.reconcileHostsInBatches(owner, hosts, incomingHosts, result, hypervisorConsumersMap,
+                create, principal, jobReporterId);
+        }
+        else {
+            this.reconcileHosts(owner, hosts, incomingHosts, result, hypervisorConsumersMap, create,
+                principal, jobReporterId);
+        }
+
+        return new Result(result, hypervisorConsumersMap);
+    }
+
+    /**
+     * Reconciles each of the given hosts in its own transaction.
+     */
+    private void reconcileHosts(Owner owner, Collection<String> hosts, Map<String, ConsumerDTO> incomingHosts,
+        HypervisorUpdateResultDTO result, VirtConsumerMap hypervisorConsumersMap, Boolean create,
+        String principal, String jobReporterId) {
+
         HypervisorUpdateAction act = this;
         Transactional<Consumer> transaction = this.consumerCurator.transactional(args ->
             act.reconcileHost((Owner) args[0], (ConsumerDTO) args[1], (HypervisorUpdateResultDTO) args[2],
@@ -133,8 +157,161 @@ public class HypervisorUpdateAction {
                     hypervisorId, e);
             }
         }
+    }
 
-        return new Result(result, hypervisorConsumersMap);
+    /**
+     * Reconciles the given hosts in batches, each in a single transaction. Should a batch fail, its
+     * hosts are reconciled again individually, so the failure is reported against the hosts which
+     * caused it.
+     */
+    @SuppressWarnings("unchecked")
+    private void reconcileHostsInBatches(Owner owner, Collection<String> hosts,
+        Map<String, ConsumerDTO> incomingHosts, HypervisorUpdateResultDTO result,
+        VirtConsumerMap hypervisorConsumersMap, Boolean create, String principal, String jobReporterId) {
+
+        int batchSize = Math.max(1, config.getInt(ConfigProperties.HYPERVISOR_RECONCILIATION_BATCH_SIZE));
+
+        HypervisorUpdateAction act = this;
+        Transactional<Result> transaction = this.consumerCurator.<Result>transactional(args ->
+            act.reconcileHostBatch((Owner) args[0], (List<ConsumerDTO>) args[1], (Boolean) args[2],
+            (String) args[3], (String) args[4], (List<Consumer>) args[5]))
+            .onCommit(status -> sink.sendEvents())
+            .onRollback(status -> sink.rollback());
+
+        for (List<String> batch : Iterables.partition(hosts, batchSize)) {
+            List<ConsumerDTO> incoming = batch.stream()
+                .map(incomingHosts::get)
+                .collect(Collectors.toList());
+
+            List<Consumer> touched = new ArrayList<>();
+
+            try {
+                Result batchResult = transaction.execute(owner, incoming, create, principal, jobReporterId,
+                    touched);
+
+                mergeResult(result, batchResult.getResult());
+                for (Consumer knownHost : batchResult.getKnownConsumers().getConsumers()) {
+                    hypervisorConsumersMap.add(knownHost.getHypervisorId().getHypervisorId(), knownHost);
+                }
+            }
+            catch (Exception e) {
+                log.warn("Unable to reconcile a batch of {} hypervisors for org {}; " +
+                    "reconciling them individually", batch.size(), owner.getKey(), e);
+
+                // The failed batch may have left pending changes anywhere in the session, not only on
+                // the hosts it loaded; start the per-host retry from a clean session
+                this.consumerCurator.clear();
+                this.reconcileHosts(owner, batch, incomingHosts, result, hypervisorConsumersMap, create,
+                    principal, jobReporterId);
+            }
+        }
+    }
+
+    /**
+     * Reconciles a batch of hosts within the current transaction. The known hosts and their guests
+     * are fetched for the entire batch up front, and the changes are flushed together once the
+     * batch has been reconciled.
+     *
+     * @param touched
+     *  a list to populate with the host consumers loaded or created by this batch
+     *
+     * @return
+     *  the result of reconciling the batch, and the hosts it created or updated
+     */
+    public Result reconcileHostBatch(Owner owner, List<ConsumerDTO> incomingHosts, boolean create,
+        String principal, String jobReporterId, List<Consumer> touched) {
+
+        HypervisorUpdateResultDTO result = initResultDTO();
+        VirtConsumerMap knownHosts = new VirtConsumerMap();
+        boolean matchSystemUuid = config.getBoolean(ConfigProperties.USE_SYSTEM_UUID_FOR_MATCHING);
+
+        // Fetch the known hosts by hypervisor ID, falling back to the system UUID for the rest
+        List<String> hypervisorIds = incomingHosts.stream()
+            .map(host -> host.getHypervisorId().getHypervisorId())
+            .collect(Collectors.toList());
+
+        VirtConsumerMap hostsById = this.consumerCurator.getHostConsumersMap(owner, hypervisorIds);
+        touched.addAll(hostsById.getConsumers());
+
+        Map<String, Consumer> hostsBySystemUuid = new HashMap<>();
+        if (matchSystemUuid) {
+            Set<String> systemUuids = incomingHosts.stream()
+                .filter(host -> hostsById.get(host.getHypervisorId().getHypervisorId()) == null)
+                .map(this::getSystemUuid)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+            hostsBySystemUuid.putAll(this.consumerCurator.getConsumersBySystemUuids(owner.getId(),
+                systemUuids));
+            touched.addAll(hostsBySystemUuid.values());
+        }
+
+        // Lock the known hosts before changing them, as the per-host reconciliation does, so
+        // concurrent check-ins for the same hosts are serialized. The hosts are locked in ID order to
+        // avoid deadlocking against other batches, and refreshed afterward since they were read
+        // before the lock was acquired.
+        Collection<Consumer> lockedHosts = this.consumerCurator.lock(touched);
+        this.consumerCurator.refresh(lockedHosts);
+        this.consumerCurator.fetchGuestIds(lockedHosts);
+
+        for (ConsumerDTO incomingHost : incomingHosts) {
+            String hypervisorId = incomingHost.getHypervisorId().getHypervisorId();
+            String systemUuid = matchSystemUuid ? this.getSystemUuid(incomingHost) : null;
+
+            Consumer host = hostsById.get(hypervisorId);
+            if (host == null && systemUuid != null) {
+                host = hostsBySystemUuid.get(systemUuid);
+            }
+
+            if (host == null) {
+                if (!create) {
+                    result.setFailedUpdate(addFailed(result.getFailedUpdate(),
+                        hypervisorId + ": " + "Unable to find hypervisor with id " + hypervisorId +
+                        " in org " + owner.getKey()));
+
+                    continue;
+                }
+
+                log.debug("Registering new host consumer for hypervisor ID: {}", hypervisorId);
+                host = this.createHost(owner, incomingHost, principal, jobReporterId);
+                touched.add(host);
+
+                this.consumerCurator.create(host, false);
+                result.setCreated(addHypervisorConsumerDTO(result.getCreated(), host));
+                sink.queueEvent(evtFactory.consumerCreated(host));
+
+                // Later reports of the same host in this batch should update the new consumer
+                hostsById.add(host.getHypervisorId().getHypervisorId(), host);
+                if (systemUuid != null) {
+                    hostsBySystemUuid.putIfAbsent(systemUuid, host);
+                }
+            }
+            else {
+                this.updateHost(host, owner, incomingHost, result, jobReporterId);
+                this.consumerCurator.update(host, false);
+            }
+
+            knownHosts.add(host.getHypervisorId().getHypervisorId(), host);
+        }
+
+        this.consumerCurator.flushInBatches();
+
+        return new Result(result, knownHosts);
+    }
+
+    private String getSystemUuid(ConsumerDTO incomingHost) {
+        String systemUuid = incomingHost.getFacts() != null ?
+            incomingHost.getFacts().get(Consumer.Facts.DMI_SYSTEM_UUID) :
+            null;
+
+        return systemUuid != null ? systemUuid.toLowerCase() : null;
+    }
+
+    private void mergeResult(HypervisorUpdateResultDTO result, HypervisorUpdateResultDTO batchResult) {
+        result.getCreated().addAll(batchResult.getCreated());
+        result.getUpdated().addAll(batchResult.getUpdated());
+        result.getUnchanged().addAll(batchResult.getUnchanged());
+        result.getFailedUpdate().addAll(batchResult.getFailedUpdate());
     }
 
     private HypervisorUpdateResultDTO initResultDTO() {
@@ -171,17 +348,7 @@ public class HypervisorUpdateAction {
             }
             else {
                 log.debug("Registering new host consumer for hypervisor ID: {}", hypervisorId);
-                resultHost = createConsumerForHypervisorId(hypervisorId,
-                    jobReporterId, owner, principal, incomingHost);
-
-                // Since we just created this new consumer, we can migrate the guests immediately
-                GuestMigration guestMigration = new GuestMigration(consumerCurator)
-                    .buildMigrationManifest(incomingHost, resultHost);
-
-                // Now that we have the new consumer persisted, immediately migrate the guests to it
-                if (guestMigration.isMigrationPending()) {
-                    guestMigration.migrate(false);
-                }
+                resultHost = this.createHost(owner, incomingHost, principal, jobReporterId);
 
                 try {
                     consumerCurator.create(resultHost);
@@ -199,54 +366,7 @@ public class HypervisorUpdateAction {
         }
         else {
             consumerCurator.lock(resultHost);
-            boolean hypervisorIdUpdated = updateHypervisorId(resultHost, owner, jobReporterId,
-                hypervisorId);
-
-            boolean nameUpdated = incomingHost.getName() != null &&
-                (resultHost.getName() == null ||
-                !resultHost.getName().equals(incomingHost.getName()));
-            if (nameUpdated) {
-                resultHost.setName(incomingHost.getName());
-            }
-
-            if (jobReporterId != null && resultHost.getHypervisorId() != null &&
-                hypervisorId.equalsIgnoreCase(resultHost.getHypervisorId().getHypervisorId()) &&
-                resultHost.getHypervisorId().getReporterId() != null &&
-                !jobReporterId.equalsIgnoreCase(resultHost.getHypervisorId().getReporterId())) {
-                log.debug("Reporter changed for Hypervisor {} of Owner {} from {} to {}",
-                    hypervisorId, owner.getKey(), resultHost.getHypervisorId().getReporterId(),
-                    jobReporterId);
-            }
-
-            boolean typeUpdated = false;
-            if (!hypervisorType.getId().equals(resultHost.getTypeId())) {
-                typeUpdated = true;
-                resultHost.setType(hypervisorType);
-            }
-
-            final GuestMigration guestMigration = new GuestMigration(consumerCurator)
-                .buildMigrationManifest(incomingHost, resultHost);
-
-            final boolean factsUpdated = consumerResource.checkForFactsUpdate(resultHost, incomingHost);
-            resultHost.setLastCheckin(new Date());
-
-            if (factsUpdated || guestMigration.isMigrationPending() || typeUpdated ||
-                hypervisorIdUpdated || nameUpdated) {
-                guestMigration.migrate(false);
-                result.setUpdated(addHypervisorConsumerDTO(result.getUpdated(), resultHost));
-            }
-            else {
-                result.setUnchanged(addHypervisorConsumerDTO(result.getUnchanged(), resultHost));
-            }
-
-            // update reporter id if it changed
-            if (jobReporterId != null && resultHost != null &&
-                resultHost.getHypervisorId() != null &&
-                (resultHost.getHypervisorId().getReporterId() == null ||
-                !jobReporterId.contentEquals(resultHost.getHypervisorId().getReporterId()))) {
-
-                resultHost.getHypervisorId().setReporterId(jobReporterId);
-            }
+            this.updateHost(resultHost, owner, incomingHost, result, jobReporterId);
 
             try {
                 consumerCurator.update(resultHost);
@@ -262,6 +382,88 @@ public class HypervisorUpdateAction {
         return resultHost;
     }
 
+    /**
+     * Builds a new host consumer for the incoming host, and migrates the incoming host's guests to
+     * it. The new consumer is not persisted.
+     */
+    private Consumer createHost(Owner owner, ConsumerDTO incomingHost, String principal,
+        String jobReporterId) {
+
+        String hypervisorId = incomingHost.getHypervisorId().getHypervisorId();
+        Consumer host = createConsumerForHypervisorId(hypervisorId, jobReporterId, owner, principal,
+            incomingHost);
+
+        // Since we just created this new consumer, we can migrate the guests immediately
+        GuestMigration guestMigration = new GuestMigration(consumerCurator)
+            .buildMigrationManifest(incomingHost, host);
+
+        // Now that we have the new consumer persisted, immediately migrate the guests to it
+        if (guestMigration.isMigrationPending()) {
+            guestMigration.migrate(false);
+        }
+
+        return host;
+    }
+
+    /**
+     * Applies the incoming host's name, type, facts, guests and hypervisor ID to the existing host
+     * consumer, recording the host as updated or unchanged in the given result. The changes are not
+     * persisted.
+     */
+    private void updateHost(Consumer resultHost, Owner owner, ConsumerDTO incomingHost,
+        HypervisorUpdateResultDTO result, String jobReporterId) {
+
+        String hypervisorId = incomingHost.getHypervisorId().getHypervisorId();
+        boolean hypervisorIdUpdated = updateHypervisorId(resultHost, owner, jobReporterId,
+            hypervisorId);
+
+        boolean nameUpdated = incomingHost.getName() != null &&
+            (resultHost.getName() == null ||
+            !resultHost.getName().equals(incomingHost.getName()));
+        if (nameUpdated) {
+            resultHost.setName(incomingHost.getName());
+        }
+
+        if (jobReporterId != null && resultHost.getHypervisorId() != null &&
+            hypervisorId.equalsIgnoreCase(resultHost.getHypervisorId().getHypervisorId()) &&
+            resultHost.getHypervisorId().getReporterId() != null &&
+            !jobReporterId.equalsIgnoreCase(resultHost.getHypervisorId().getReporterId())) {
+            log.debug("Reporter changed for Hypervisor {} of Owner {} from {} to {}",
+                hypervisorId, owner.getKey(), resultHost.getHypervisorId().getReporterId(),
+                jobReporterId);
+        }
+
+        boolean typeUpdated = false;
+        if (!hypervisorType.getId().equals(resultHost.getTypeId())) {
+            typeUpdated = true;
+            resultHost.setType(hypervisorType);
+        }
+
+        final GuestMigration guestMigration = new GuestMigration(consumerCurator)
+            .buildMigrationManifest(incomingHost, resultHost);
+
+        final boolean factsUpdated = consumerResource.checkForFactsUpdate(resultHost, incomingHost);
+        resultHost.setLastCheckin(new Date());
+
+        if (factsUpdated || guestMigration.isMigrationPending() || typeUpdated ||
+            hypervisorIdUpdated || nameUpdated) {
+            guestMigration.migrate(false);
+            result.setUpdated(addHypervisorConsumerDTO(result.getUpdated(), resultHost));
+        }
+        else {
+            result.setUnchanged(addHypervisorConsumerDTO(result.getUnchanged(), resultHost));
+        }
+
+        // update reporter id if it changed
+        if (jobReporterId != null && resultHost != null &&
+            resultHost.getHypervisorId() != null &&
+            (resultHost.getHypervisorId().getReporterId() == null ||
+            !jobReporterId.contentEquals(resultHost.getHypervisorId().getReporterId()))) {
+
+            resultHost.getHypervisorId().setReporterId(jobReporterId);
+        }
+    }
+
     private boolean updateHypervisorId(Consumer consumer, Owner owner, String reporterId,
         String hypervisorId) {
 
@@ -16,23 +16,21 @@ package org.candlepin.sync;
 
 import org.candlepin.model.Certificate;
 
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 
 /**
  * Certificate exporter
  */
 public class CertificateExporter {
 
-    void exportCertificate(Certificate cert, File file) throws IOException {
-        try (FileWriter writer = new FileWriter(file)) {
+    void exportCertificate(Certificate cert, Writer writer) throws IOException {
+        try {
             writer.write(cert.getCert());
             writer.write(cert.getKey());
         }
         catch (IOException ioExp) {
             throw new IOException("Error occurred while exporting certificates", ioExp);
         }
-
     }
 }
@@ -245,7 +245,33 @@ public class EntitlementImporter {
         Meta meta)
         throws IOException, SyncDataFormatException {
 
-        EntitlementDTO entitlement = mapper.readValue(reader, EntitlementDTO.class);
+        return this.importObject(mapper.readValue(reader, EntitlementDTO.class), owner, consumerUuid, meta);
+    }
+
+    /**
+     * Builds a local subscription from an upstream entitlement which has already been read from the
+     * manifest.
+     *
+     * @param entitlement
+     *  the upstream entitlement from which to build a subscription
+     *
+     * @param owner
+     *  the owner into which the manifest is being imported
+     *
+     * @param consumerUuid
+     *  the UUID of the upstream consumer
+     *
+     * @param meta
+     *  the manifest metadata
+     *
+     * @throws SyncDataFormatException
+     *  if the entitlement references a product not defined in the manifest
+     *
+     * @return
+     *  the subscription built from the entitlement
+     */
+    public SubscriptionDTO importObject(EntitlementDTO entitlement, Owner owner, String consumerUuid,
+        Meta meta) throws SyncDataFormatException {
 
         SubscriptionDTO subscription = new SubscriptionDTO();
 
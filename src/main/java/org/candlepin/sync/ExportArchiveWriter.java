@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.sync;
+
+import org.apache.commons.io.output.CloseShieldOutputStream;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.Objects;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+
+
+/**
+ * Writes a signed export archive to an output stream in a single pass. Files added to the export
+ * are compressed straight into the inner export archive, which is written into the outer archive
+ * as it is produced while its signature is computed, so no part of the export is staged on disk
+ * or read back, and memory use does not depend on the size of the export.
+ * <p>
+ * The archives written are identical in layout to those previously assembled from an export
+ * directory: the outer archive holds the inner archive and its signature, and the inner archive
+ * holds the exported files under the export directory.
+ */
+class ExportArchiveWriter implements Closeable {
+
+    /** The name of the inner archive within the outer archive */
+    public static final String EXPORT_ARCHIVE_NAME = "consumer_export.zip";
+
+    /** The name of the signature of the inner archive within the outer archive */
+    public static final String SIGNATURE_NAME = "signature";
+
+    /** The directory under which exported files are stored within the inner archive */
+    public static final String EXPORT_DIR = "export";
+
+    /**
+     * Writes the content of a single exported file.
+     */
+    @FunctionalInterface
+    public interface EntryWriter {
+        void write(Writer writer) throws IOException;
+    }
+
+    private final ZipOutputStream outer;
+    private final ZipOutputStream inner;
+    private final Signature signature;
+    private boolean finished;
+
+    /**
+     * Creates a new writer which writes the archive to the given output stream. The output stream
+     * is closed when the writer is closed.
+     *
+     * @param output
+     *  the output stream to which to write the archive
+     *
+     * @param signature
+     *  a signature initialized for signing, with which to sign the inner archive
+     *
+     * @param comment
+     *  the comment to set on the inner archive
+     *
+     * @param signedComment
+     *  the comment to set on the outer archive
+     *
+     * @throws IOException
+     *  if the archive cannot be started
+     */
+    public ExportArchiveWriter(OutputStream output, Signature signature, String comment,
+        String signedComment) throws IOException {
+
+        Objects.requireNonNull(output);
+        this.signature = Objects.requireNonNull(signature);
+
+        this.outer = new ZipOutputStream(output);
+        this.outer.setComment(signedComment);
+        this.outer.putNextEntry(new ZipEntry(EXPORT_ARCHIVE_NAME));
+
+        this.inner = new ZipOutputStream(new SigningOutputStream(CloseShieldOutputStream.wrap(this.outer),
+            this.signature));
+        this.inner.setComment(comment);
+    }
+
+    /**
+     * Adds a file to the export.
+     *
+     * @param path
+     *  the path of the file, relative to the export directory
+     *
+     * @param entryWriter
+     *  the writer to use to write the content of the file
+     *
+     * @throws IOException
+     *  if the file cannot be written
+     */
+    public void addEntry(String path, EntryWriter entryWriter) throws IOException {
+        if (this.finished) {
+            throw new IllegalStateException("export archive has already been finished");
+        }
+
+        this.inner.putNextEntry(new ZipEntry(EXPORT_DIR + "/" + path));
+
+        // Exporters are free to close the writer they are given, which must not close the archive
+        Writer writer = new BufferedWriter(new OutputStreamWriter(CloseShieldOutputStream.wrap(this.inner),
+            Charset.defaultCharset()));
+
+        try (writer) {
+            entryWriter.write(writer);
+        }
+
+        this.inner.closeEntry();
+    }
+
+    /**
+     * Completes the inner archive, signs it, and completes the outer archive. No further files may
+     * be added once the archive has been finished.
+     *
+     * @throws IOException
+     *  if the archive cannot be completed or signed
+     */
+    public void finish() throws IOException {
+        if (this.finished) {
+            return;
+        }
+
+        this.finished = true;
+        this.inner.finish();
+        this.outer.closeEntry();
+
+        byte[] signed;
+        try {
+            signed = this.signature.sign();
+        }
+        catch (SignatureException e) {
+            throw new IOException("Unable to sign export archive", e);
+        }
+
+        this.outer.putNextEntry(new ZipEntry(SIGNATURE_NAME));
+        this.outer.write(signed, 0, signed.length);
+        this.outer.closeEntry();
+        this.outer.finish();
+    }
+
+    /**
+     * Closes the writer and its output stream. If the archive has not been finished, the output
+     * will not contain a valid archive.
+     */
+    @Override
+    public void close() throws IOException {
+        this.finished = true;
+        this.outer.close();
+    }
+
+    /**
+     * Updates a signature with all data written through it.
+     */
+    private static class SigningOutputStream extends FilterOutputStream {
+        private final Signature signature;
+
+        public SigningOutputStream(OutputStream output, Signature signature) {
+            super(output);
+            this.signature = signature;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            try {
+                this.signature.update(buffer, offset, length);
+            }
+            catch (SignatureException e) {
+                throw new IOException("Unable to sign export archive", e);
+            }
+
+            this.out.write(buffer, offset, length);
+        }
+    }
+}
@@ -44,25 +44,25 @@ import org.candlepin.version.VersionUtil;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.Signature;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -157,22 +157,38 @@ public class Exporter {
      */
     public File getFullExport(Consumer consumer, String cdnLabel, String webUrl,
         String apiUrl) throws ExportCreationException {
-        try {
-            File tmpDir = syncUtils.makeTempDir("export");
-            File baseDir = new File(tmpDir.getAbsolutePath(), "export");
-            baseDir.mkdir();
-
-            exportMeta(baseDir, cdnLabel);
-            exportConsumer(baseDir, consumer, webUrl, apiUrl);
-            exportIdentityCertificate(baseDir, consumer);
-            exportEntitlements(baseDir, consumer);
-            exportEntitlementsCerts(baseDir, consumer, null, true);
-            exportProducts(baseDir, consumer);
-            exportConsumerTypes(baseDir);
-            exportRules(baseDir);
-            exportDistributorVersions(baseDir);
-            exportContentDeliveryNetworks(baseDir);
-            return makeArchive(consumer, tmpDir, baseDir);
+
+        return this.createArchiveFile(consumer,
+            output -> this.writeFullExport(consumer, cdnLabel, webUrl, apiUrl, output));
+    }
+
+    /**
+     * Writes a manifest archive for the target {@link Consumer} to the given output stream. The
+     * archive is signed as it is written, so the output stream receives the complete signed
+     * archive in a single pass. The output stream is closed once the archive has been written.
+     *
+     * @param consumer the target consumer to export.
+     * @param cdnLabel the CDN label to store in the meta file.
+     * @param webUrl the URL pointing to the manifest's originating web application.
+     * @param apiUrl the API URL pointing to the manifest's originating candlepin API.
+     * @param output the output stream to which to write the manifest archive.
+     * @throws ExportCreationException when an error occurs while creating the manifest archive.
+     */
+    public void writeFullExport(Consumer consumer, String cdnLabel, String webUrl, String apiUrl,
+        OutputStream output) throws ExportCreationException {
+
+        try (ExportArchiveWriter archive = this.openArchive(consumer, output)) {
+            exportMeta(archive, cdnLabel);
+            exportConsumer(archive, consumer, webUrl, apiUrl);
+            exportIdentityCertificate(archive, consumer);
+            exportEntitlements(archive, consumer);
+            exportEntitlementsCerts(archive, consumer, null, true);
+            exportProducts(archive, consumer);
+            exportConsumerTypes(archive);
+            exportRules(archive);
+            exportDistributorVersions(archive);
+            exportContentDeliveryNetworks(archive);
+            archive.finish();
         }
         catch (IOException e) {
             log.error("Error generating entitlement export", e);
@@ -183,160 +199,111 @@ public class Exporter {
     public File getEntitlementExport(Consumer consumer, Set<Long> serials) throws ExportCreationException {
         // TODO: need to delete tmpDir (which contains the archive,
         // which we need to return...)
-        try {
-            File tmpDir = syncUtils.makeTempDir("export");
-            File baseDir = new File(tmpDir.getAbsolutePath(), "export");
-            baseDir.mkdir();
-
-            exportMeta(baseDir, null);
-            exportEntitlementsCerts(baseDir, consumer, serials, false);
-            exportContentAccessCerts(baseDir, consumer, serials);
-            return makeArchive(consumer, tmpDir, baseDir);
-        }
-        catch (IOException e) {
-            log.error("Error generating entitlement export", e);
-            throw new ExportCreationException("Unable to create export archive", e);
-        }
+        return this.createArchiveFile(consumer,
+            output -> this.writeEntitlementExport(consumer, serials, output));
     }
 
     /**
-     * Create a tar.gz archive of the exported directory.
+     * Writes an archive of the entitlement and content access certificates of the target
+     * {@link Consumer} to the given output stream, in a single pass. The output stream is closed
+     * once the archive has been written.
      *
-     * @param exportDir Directory where Candlepin data was exported.
-     * @return File reference to the new archive zip.
+     * @param consumer the consumer for which to export certificates.
+     * @param serials the serials of the certificates to export, or null to export all certificates.
+     * @param output the output stream to which to write the archive.
+     * @throws ExportCreationException when an error occurs while creating the archive.
      */
-    private File makeArchive(Consumer consumer, File tempDir, File exportDir)
-        throws IOException {
-        String exportFileName = String.format("%s-%s.zip", consumer.getUuid(), exportDir.getName());
-        log.info("Creating archive of " + exportDir.getAbsolutePath() + " in: " +
-            exportFileName);
-
-        File archive = createZipArchiveWithDir(tempDir, exportDir, "consumer_export.zip",
-            "Candlepin export for " + consumer.getUuid());
-
-        InputStream archiveInputStream = null;
-        try {
-            archiveInputStream = new FileInputStream(archive);
-            File signedArchive = createSignedZipArchive(
-                tempDir, archive, exportFileName,
-                pki.getSHA256WithRSAHash(archiveInputStream),
-                "signed Candlepin export for " + consumer.getUuid());
+    public void writeEntitlementExport(Consumer consumer, Set<Long> serials, OutputStream output)
+        throws ExportCreationException {
 
-            log.debug("Returning file: " + archive.getAbsolutePath());
-            return signedArchive;
+        try (ExportArchiveWriter archive = this.openArchive(consumer, output)) {
+            exportMeta(archive, null);
+            exportEntitlementsCerts(archive, consumer, serials, false);
+            exportContentAccessCerts(archive, consumer, serials);
+            archive.finish();
         }
-        finally {
-            if (archiveInputStream != null) {
-                try {
-                    archiveInputStream.close();
-                }
-                catch (Exception e) {
-                    // nothing to do
-                }
-            }
+        catch (IOException e) {
+            log.error("Error generating entitlement export", e);
+            throw new ExportCreationException("Unable to create export archive", e);
         }
     }
 
-    private File createZipArchiveWithDir(File tempDir, File exportDir,
-        String exportFileName, String comment)
-        throws FileNotFoundException, IOException {
+    /**
+     * Writes an archive to a new file in its own temporary directory. The directory is removed if
+     * the archive cannot be written.
+     */
+    private File createArchiveFile(Consumer consumer, ArchiveProducer producer)
+        throws ExportCreationException {
 
-        File archive = new File(tempDir, exportFileName);
-        ZipOutputStream out = null;
+        File tmpDir;
         try {
-            out = new ZipOutputStream(new FileOutputStream(archive));
-            out.setComment(comment);
-            addFilesToArchive(out, exportDir.getParent().length() + 1, exportDir);
+            tmpDir = syncUtils.makeTempDir("export");
         }
-        finally {
-            if (out != null) {
-                out.close();
-            }
+        catch (IOException e) {
+            log.error("Error generating entitlement export", e);
+            throw new ExportCreationException("Unable to create export archive", e);
         }
-        return archive;
-    }
 
-    private File createSignedZipArchive(File tempDir, File toAdd,
-        String exportFileName, byte[] signature, String comment)
-        throws FileNotFoundException, IOException {
+        File archive = new File(tmpDir, String.format("%s-export.zip", consumer.getUuid()));
+        log.info("Creating export archive: {}", archive.getAbsolutePath());
 
-        File archive = new File(tempDir, exportFileName);
-        ZipOutputStream out = null;
+        boolean created = false;
         try {
-            out = new ZipOutputStream(new FileOutputStream(archive));
-            out.setComment(comment);
-            addFileToArchive(out, toAdd.getParent().length() + 1, toAdd);
-            addSignatureToArchive(out, signature);
+            producer.write(new BufferedOutputStream(new FileOutputStream(archive)));
+            created = true;
+
+            log.debug("Returning file: {}", archive.getAbsolutePath());
+            return archive;
         }
-        finally {
-            if (out != null) {
-                out.close();
-            }
+        catch (FileNotFoundException e) {
+            log.error("Error generating entitlement export", e);
+            throw new ExportCreationException("Unable to create export archive", e);
         }
-        return archive;
-    }
-
-    private void addFilesToArchive(ZipOutputStream out, int charsToDropFromName,
-        File directory) throws IOException {
-        for (File file : directory.listFiles()) {
-            if (file.isDirectory()) {
-                addFilesToArchive(out, charsToDropFromName, file);
-            }
-            else {
-                addFileToArchive(out, charsToDropFromName, file);
+        finally {
+            if (!created) {
+                FileUtils.deleteQuietly(tmpDir);
             }
         }
     }
 
-    private void addFileToArchive(ZipOutputStream out, int charsToDropFromName,
-        File file) throws IOException, FileNotFoundException {
-        log.debug("Adding file to archive: " +
-            file.getAbsolutePath().substring(charsToDropFromName));
-        out.putNextEntry(new ZipEntry(
-            file.getAbsolutePath().substring(charsToDropFromName)));
-        FileInputStream in = null;
+    /**
+     * Opens a new signed archive for the given consumer's export on the given output stream.
+     */
+    private ExportArchiveWriter openArchive(Consumer consumer, OutputStream output) throws IOException {
         try {
-            in = new FileInputStream(file);
+            Signature signature = pki.getSHA256WithRSASigner();
 
-            byte[] buf = new byte[1024];
-            int len;
-            while ((len = in.read(buf)) > 0) {
-                out.write(buf, 0, len);
-            }
-            out.closeEntry();
+            return new ExportArchiveWriter(output, signature,
+                "Candlepin export for " + consumer.getUuid(),
+                "signed Candlepin export for " + consumer.getUuid());
         }
-        finally {
-            if (in != null) {
-                in.close();
-            }
+        catch (GeneralSecurityException e) {
+            output.close();
+            throw new IOException("Unable to sign export archive", e);
+        }
+        catch (IOException e) {
+            output.close();
+            throw e;
         }
     }
 
-    private void addSignatureToArchive(ZipOutputStream out, byte[] signature)
-        throws IOException, FileNotFoundException {
-
-        log.debug("Adding signature to archive.");
-        out.putNextEntry(new ZipEntry("signature"));
-        out.write(signature, 0, signature.length);
-        out.closeEntry();
+    /**
+     * Writes an export archive to an output stream.
+     */
+    @FunctionalInterface
+    private interface ArchiveProducer {
+        void write(OutputStream output) throws ExportCreationException;
     }
 
-    private void exportMeta(File baseDir, String cdnKey)
+    private void exportMeta(ExportArchiveWriter archive, String cdnKey)
         throws IOException {
-        File file = new File(baseDir.getCanonicalPath(), "meta.json");
-        FileWriter writer = null;
-        try {
-            writer = new FileWriter(file);
+
+        archive.addEntry("meta.json", writer -> {
             Meta m = new Meta(getVersion(), new Date(),
                 principalProvider.get().getName(),
                 null, cdnKey);
             meta.export(mapper, writer, m);
-        }
-        finally {
-            if (writer != null) {
-                writer.close();
-            }
-        }
+        });
     }
 
     private String getPrefixWebUrl(String override) {
@@ -370,22 +337,18 @@ public class Exporter {
         return map.get("version") + "-" + map.get("release");
     }
 
-    private void exportConsumer(File baseDir, Consumer consumer, String webAppPrefix, String apiUrl)
-        throws IOException {
+    private void exportConsumer(ExportArchiveWriter archive, Consumer consumer, String webAppPrefix,
+        String apiUrl) throws IOException {
 
-        File file = new File(baseDir.getCanonicalPath(), "consumer.json");
-        try (FileWriter writer = new FileWriter(file)) {
-            this.consumerExporter.export(mapper, writer, consumer,
-                getPrefixWebUrl(webAppPrefix), getPrefixApiUrl(apiUrl));
-        }
+        archive.addEntry("consumer.json", writer -> this.consumerExporter.export(mapper, writer, consumer,
+            getPrefixWebUrl(webAppPrefix), getPrefixApiUrl(apiUrl)));
     }
 
-    private void exportEntitlementsCerts(File baseDir, Consumer consumer,
+    private void exportEntitlementsCerts(ExportArchiveWriter archive, Consumer consumer,
         Set<Long> serials, boolean manifest)
         throws IOException {
 
-        File entCertDir = new File(baseDir.getCanonicalPath(), "entitlement_certificates");
-        entCertDir.mkdir();
+        CertificateExporter certExporter = new CertificateExporter();
 
         for (EntitlementCertificate cert : entCertAdapter.listForConsumer(consumer)) {
             if (manifest && !this.exportRules.canExport(cert.getEntitlement())) {
@@ -397,9 +360,8 @@ public class Exporter {
 
             if ((serials == null) || (serials.contains(cert.getSerial().getId()))) {
                 log.debug("Exporting entitlement certificate: {}", cert.getSerial());
-                File file = new File(entCertDir.getCanonicalPath(), cert.getSerial().getId() + ".pem");
-
-                new CertificateExporter().exportCertificate(cert, file);
+                archive.addEntry("entitlement_certificates/" + cert.getSerial().getId() + ".pem",
+                    writer -> certExporter.exportCertificate(cert, writer));
             }
         }
     }
@@ -408,8 +370,8 @@ public class Exporter {
      * Exports content access certificates for a consumer.
      * Consumer must belong to owner with SCA enabled.
      *
-     * @param baseDir
-     *  Base directory path.
+     * @param archive
+     *  The archive to which to add the certificates.
      *
      * @param consumer
      *  Consumer for which content access certificates needs to be exported.
@@ -420,46 +382,35 @@ public class Exporter {
      * @throws IOException
      *  Throws IO exception if unable to export content access certs for the consumer.
      */
-    private void exportContentAccessCerts(File baseDir, Consumer consumer,
+    private void exportContentAccessCerts(ExportArchiveWriter archive, Consumer consumer,
         Set<Long> serials) throws IOException {
         ContentAccessCertificate contentAccessCert = this.contentAccessManager.getCertificate(consumer);
 
         if (contentAccessCert != null &&
             (serials == null || contentAccessCert.getSerial() == null ||
                 serials.contains(contentAccessCert.getSerial().getId()))) {
-            File contentAccessCertDir = new File(baseDir.getCanonicalPath(), "content_access_certificates");
-            contentAccessCertDir.mkdir();
 
             log.debug("Exporting content access certificate: {}", contentAccessCert.getSerial());
-            File file = new File(contentAccessCertDir.getCanonicalPath(),
-                contentAccessCert.getSerial().getId() + ".pem");
-
-            new CertificateExporter().exportCertificate(contentAccessCert, file);
+            archive.addEntry("content_access_certificates/" + contentAccessCert.getSerial().getId() + ".pem",
+                writer -> new CertificateExporter().exportCertificate(contentAccessCert, writer));
         }
     }
 
-    private void exportIdentityCertificate(File baseDir, Consumer consumer)
+    private void exportIdentityCertificate(ExportArchiveWriter archive, Consumer consumer)
         throws IOException {
 
-        File idcertdir = new File(baseDir.getCanonicalPath(), "upstream_consumer");
-        idcertdir.mkdir();
-
         IdentityCertificate cert = consumer.getIdCert();
         if (cert == null) {
             throw new RuntimeException("The consumer for export does not have a valid identity certificate");
         }
 
         // paradigm dictates this should go in an exporter.export method
-        File file = new File(idcertdir.getCanonicalPath(), cert.getSerial().getId() + ".json");
-        try (FileWriter writer = new FileWriter(file)) {
-            mapper.writeValue(writer, this.translator.translate(cert, CertificateDTO.class));
-        }
+        archive.addEntry("upstream_consumer/" + cert.getSerial().getId() + ".json",
+            writer -> mapper.writeValue(writer, this.translator.translate(cert, CertificateDTO.class)));
     }
 
-    private void exportEntitlements(File baseDir, Consumer consumer)
+    private void exportEntitlements(ExportArchiveWriter archive, Consumer consumer)
         throws IOException, ExportCreationException {
-        File entCertDir = new File(baseDir.getCanonicalPath(), "entitlements");
-        entCertDir.mkdir();
 
         for (Entitlement ent : entitlementCurator.listByConsumer(consumer)) {
             if (ent.isDirty()) {
@@ -473,18 +424,12 @@ public class Exporter {
             }
 
             log.debug("Exporting entitlement for product {}", ent.getPool().getProductId());
-
-            File file = new File(entCertDir.getCanonicalPath(), ent.getId() + ".json");
-            try (FileWriter writer = new FileWriter(file)) {
-                entExporter.export(mapper, writer, ent);
-            }
+            archive.addEntry("entitlements/" + ent.getId() + ".json",
+                writer -> entExporter.export(mapper, writer, ent));
         }
     }
 
-    private void exportProducts(File baseDir, Consumer consumer) throws IOException {
-        File productDir = new File(baseDir.getCanonicalPath(), "products");
-        productDir.mkdir();
-
+    private void exportProducts(ExportArchiveWriter archive, Consumer consumer) throws IOException {
         // TODO: This could be bulked into a single query rather than iterating and likely hitting
         // a bunch of lazy lookups.
         Map<String, Product> productMap = new HashMap<>();
@@ -495,13 +440,8 @@ public class Exporter {
         }
 
         for (Product product : productMap.values()) {
-            String path = productDir.getCanonicalPath();
-            String productId = product.getId();
-
-            File file = new File(path, productId + ".json");
-            try (FileWriter writer = new FileWriter(file)) {
-                productExporter.export(mapper, writer, product);
-            }
+            archive.addEntry("products/" + product.getId() + ".json",
+                writer -> productExporter.export(mapper, writer, product));
         }
     }
 
@@ -535,94 +475,45 @@ public class Exporter {
         this.collectProducts(product.getDerivedProduct(), productMap);
     }
 
-    private void exportConsumerTypes(File baseDir) throws IOException {
-        File typeDir = new File(baseDir.getCanonicalPath(), "consumer_types");
-        typeDir.mkdir();
-
+    private void exportConsumerTypes(ExportArchiveWriter archive) throws IOException {
         for (ConsumerType type : consumerTypeCurator.listAll()) {
-            File file = new File(typeDir.getCanonicalPath(), type.getLabel() + ".json");
-            FileWriter writer = null;
-            try {
-                writer = new FileWriter(file);
-                consumerType.export(mapper, writer, type);
-            }
-            finally {
-                if (writer != null) {
-                    writer.close();
-                }
-            }
+            archive.addEntry("consumer_types/" + type.getLabel() + ".json",
+                writer -> consumerType.export(mapper, writer, type));
         }
     }
 
-    private void exportRules(File baseDir) throws IOException {
+    private void exportRules(ExportArchiveWriter archive) throws IOException {
         // Because old candlepin servers assume to import a file in rules dir, we had to
         // move to a new directory for versioned rules file:
-        File newRulesDir = new File(baseDir.getCanonicalPath(), "rules2");
-        newRulesDir.mkdir();
-        File newRulesFile = new File(newRulesDir.getCanonicalPath(), "rules.js");
-        FileWriter writer = null;
-        try {
-            writer = new FileWriter(newRulesFile);
-            rules.export(writer);
-        }
-        finally {
-            if (writer != null) {
-                writer.close();
-            }
-        }
+        archive.addEntry("rules2/rules.js", writer -> rules.export(writer));
     }
 
-    private void exportDistributorVersions(File baseDir) throws IOException {
+    private void exportDistributorVersions(ExportArchiveWriter archive) throws IOException {
         List<DistributorVersion> versions = distVerCurator.findAll();
         if (versions == null || versions.isEmpty()) {
             return;
         }
 
-        File distVerDir = new File(baseDir.getCanonicalPath(), "distributor_version");
-        distVerDir.mkdir();
-
-        FileWriter writer = null;
         for (DistributorVersion dv : versions) {
             if (log.isDebugEnabled()) {
                 log.debug("Exporting Distributor Version" + dv.getName());
             }
-            try {
-                File file = new File(distVerDir.getCanonicalPath(), dv.getName() + ".json");
-                writer = new FileWriter(file);
-                distVerExporter.export(mapper, writer, dv);
-            }
-            finally {
-                if (writer != null) {
-                    writer.close();
-                }
-            }
+
+            archive.addEntry("distributor_version/" + dv.getName() + ".json",
+                writer -> distVerExporter.export(mapper, writer, dv));
         }
     }
 
-    private void exportContentDeliveryNetworks(File baseDir) throws IOException {
+    private void exportContentDeliveryNetworks(ExportArchiveWriter archive) throws IOException {
         ResultIterator<Cdn> iterator = this.cdnCurator.listAll().iterate();
 
         try {
-            if (iterator.hasNext()) {
-                File cdnDir = new File(baseDir.getCanonicalPath(), "content_delivery_network");
-                cdnDir.mkdir();
-
-                while (iterator.hasNext()) {
-                    Cdn cdn = iterator.next();
-                    log.debug("Exporting CDN: {}", cdn.getName());
-
-                    FileWriter writer = null;
-                    try {
-                        File file = new File(cdnDir.getCanonicalPath(), cdn.getLabel() + ".json");
-                        writer = new FileWriter(file);
-                        cdnExporter.export(mapper, writer, cdn);
-                    }
-                    finally {
-                        if (writer != null) {
-                            writer.close();
-                        }
-                    }
-                }
+            while (iterator.hasNext()) {
+                Cdn cdn = iterator.next();
+                log.debug("Exporting CDN: {}", cdn.getName());
+
+                archive.addEntry("content_delivery_network/" + cdn.getLabel() + ".json",
+                    writer -> cdnExporter.export(mapper, writer, cdn));
             }
         }
         finally {
@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.sync;
+
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+
+
+/**
+ * Reads a signed export archive from an input stream in a single pass. The inner export archive is
+ * decompressed as it is read out of the outer archive while its signature is verified, and each
+ * exported file is handed to an entry reader as it is decompressed, so no part of the archive is
+ * staged on disk or read twice.
+ * <p>
+ * The signature may follow the inner archive, so it can only be checked once the whole archive has
+ * been read. Nothing read from the exported files should be acted upon until the caller has
+ * checked {@link #isSignatureVerified()}.
+ */
+class ImportArchiveReader {
+    private static final Logger log = LoggerFactory.getLogger(ImportArchiveReader.class);
+
+    /** The prefix of the exported files within the inner archive */
+    private static final String EXPORT_PREFIX = ExportArchiveWriter.EXPORT_DIR + "/";
+
+    /**
+     * Reads the content of a single exported file.
+     */
+    @FunctionalInterface
+    public interface EntryReader {
+        void read(String path, InputStream input) throws IOException;
+    }
+
+    private final List<Signature> verifiers;
+
+    private int archiveEntryCount;
+    private boolean exportArchiveFound;
+    private int exportEntryCount;
+    private int exportFileCount;
+    private byte[] signature;
+    private boolean signatureVerified;
+
+    /**
+     * Creates a new reader which verifies the inner archive with the given signatures. The archive
+     * is considered verified if any of the signatures verifies it.
+     *
+     * @param verifiers
+     *  a collection of signatures initialized for verification
+     */
+    public ImportArchiveReader(Collection<Signature> verifiers) {
+        this.verifiers = new ArrayList<>(Objects.requireNonNull(verifiers));
+    }
+
+    /**
+     * Reads the archive from the given input stream, passing each exported file to the entry reader
+     * with its path relative to the export directory. The input stream is closed once the archive
+     * has been read. A reader may only be used to read a single archive.
+     *
+     * @param input
+     *  the input stream from which to read the archive
+     *
+     * @param entryReader
+     *  the reader to use to read the content of each exported file
+     *
+     * @throws IOException
+     *  if the archive cannot be read, or the entry reader fails to read an exported file
+     */
+    public void read(InputStream input, EntryReader entryReader) throws IOException {
+        Objects.requireNonNull(entryReader);
+
+        try (ZipInputStream outer = new ZipInputStream(Objects.requireNonNull(input))) {
+            for (ZipEntry entry = outer.getNextEntry(); entry != null; entry = outer.getNextEntry()) {
+                ++this.archiveEntryCount;
+
+                if (ExportArchiveWriter.EXPORT_ARCHIVE_NAME.equals(entry.getName())) {
+                    this.exportArchiveFound = true;
+                    this.readExportArchive(outer, entryReader);
+                }
+                else if (ExportArchiveWriter.SIGNATURE_NAME.equals(entry.getName())) {
+                    this.signature = outer.readAllBytes();
+                }
+
+                outer.closeEntry();
+            }
+        }
+
+        this.signatureVerified = this.verifySignature();
+    }
+
+    private void readExportArchive(InputStream outer, EntryReader entryReader) throws IOException {
+        VerifyingInputStream verifying = new VerifyingInputStream(CloseShieldInputStream.wrap(outer),
+            this.verifiers);
+
+        ZipInputStream inner = new ZipInputStream(verifying);
+        for (ZipEntry entry = inner.getNextEntry(); entry != null; entry = inner.getNextEntry()) {
+            ++this.exportEntryCount;
+
+            String name = entry.getName();
+            log.debug("entryname {}", name);
+
+            if (!entry.isDirectory() && name.startsWith(EXPORT_PREFIX)) {
+                ++this.exportFileCount;
+
+                // Entry readers are free to close the stream they are given, which must not close
+                // the archive
+                entryReader.read(name.substring(EXPORT_PREFIX.length()), CloseShieldInputStream.wrap(inner));
+            }
+
+            inner.closeEntry();
+        }
+
+        // The signature covers the whole of the inner archive, including the trailing directory
+        verifying.transferTo(OutputStream.nullOutputStream());
+    }
+
+    private boolean verifySignature() {
+        if (!this.exportArchiveFound || !this.hasSignature()) {
+            return false;
+        }
+
+        for (Signature verifier : this.verifiers) {
+            try {
+                if (verifier.verify(this.signature)) {
+                    return true;
+                }
+            }
+            catch (SignatureException e) {
+                log.debug("Unable to verify export archive signature", e);
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks if the archive read contained any entries at all.
+     *
+     * @return
+     *  true if the archive contained at least one entry; false otherwise
+     */
+    public boolean hasEntries() {
+        return this.archiveEntryCount > 0;
+    }
+
+    /**
+     * Checks if the archive read contained a non-empty signature.
+     *
+     * @return
+     *  true if the archive contained a signature; false otherwise
+     */
+    public boolean hasSignature() {
+        return this.signature != null && this.signature.length > 0;
+    }
+
+    /**
+     * Checks if the archive read contained an inner export archive.
+     *
+     * @return
+     *  true if the archive contained an inner export archive; false otherwise
+     */
+    public boolean hasExportArchive() {
+        return this.exportArchiveFound;
+    }
+
+    /**
+     * Fetches the number of entries found in the inner export archive, including any which are not
+     * exported files.
+     *
+     * @return
+     *  the number of entries in the inner export archive
+     */
+    public int getExportEntryCount() {
+        return this.exportEntryCount;
+    }
+
+    /**
+     * Fetches the number of exported files passed to the entry reader.
+     *
+     * @return
+     *  the number of exported files read
+     */
+    public int getExportFileCount() {
+        return this.exportFileCount;
+    }
+
+    /**
+     * Checks if the inner export archive was verified by its signature. Always false if either the
+     * inner archive or its signature was missing.
+     *
+     * @return
+     *  true if the inner export archive was verified by its signature; false otherwise
+     */
+    public boolean isSignatureVerified() {
+        return this.signatureVerified;
+    }
+
+    /**
+     * Updates a set of signatures with all data read through it.
+     */
+    private static class VerifyingInputStream extends FilterInputStream {
+        private final List<Signature> verifiers;
+
+        public VerifyingInputStream(InputStream input, List<Signature> verifiers) {
+            super(input);
+            this.verifiers = verifiers;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] buffer = new byte[1];
+            return this.read(buffer, 0, 1) > 0 ? (buffer[0] & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = this.in.read(buffer, offset, length);
+
+            if (count > 0) {
+                try {
+                    for (Signature verifier : this.verifiers) {
+                        verifier.update(buffer, offset, count);
+                    }
+                }
+                catch (SignatureException e) {
+                    throw new IOException("Unable to verify export archive", e);
+                }
+            }
+
+            return count;
+        }
+
+        @Override
+        public long skip(long count) throws IOException {
+            // Skipped data must still be verified
+            byte[] buffer = new byte[(int) Math.min(count, 8192)];
+            int read = this.read(buffer, 0, buffer.length);
+
+            return Math.max(read, 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
@@ -22,6 +22,7 @@ import org.candlepin.dto.manifest.v1.CertificateDTO;
 import org.candlepin.dto.manifest.v1.ConsumerDTO;
 import org.candlepin.dto.manifest.v1.ConsumerTypeDTO;
 import org.candlepin.dto.manifest.v1.DistributorVersionDTO;
+import org.candlepin.dto.manifest.v1.EntitlementDTO;
 import org.candlepin.dto.manifest.v1.ProductDTO;
 import org.candlepin.dto.manifest.v1.SubscriptionDTO;
 import org.candlepin.model.CdnCurator;
@@ -51,7 +52,6 @@ import org.candlepin.sync.file.ManifestFileServiceException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.persist.Transactional;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
@@ -61,23 +61,22 @@ import org.xnap.commons.i18n.I18n;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
-import java.security.cert.CertificateException;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -135,7 +134,6 @@ public class Importer {
     private final EventSink sink;
     private final I18n i18n;
     private final DistributorVersionCurator distVerCurator;
-    private final SyncUtils syncUtils;
     private final ImportRecordCurator importRecordCurator;
     private final SubscriptionReconciler subscriptionReconciler;
     private final ModelTranslator translator;
@@ -145,7 +143,7 @@ public class Importer {
         RulesImporter rulesImporter, OwnerCurator ownerCurator, IdentityCertificateCurator idCertCurator,
         RefresherFactory refresherFactory, PKIUtility pki, ExporterMetadataCurator emc,
         CertificateSerialCurator csc, EventSink sink, I18n i18n, DistributorVersionCurator distVerCurator,
-        CdnCurator cdnCurator, SyncUtils syncUtils, @Named("ImportObjectMapper") ObjectMapper mapper,
+        CdnCurator cdnCurator, @Named("ImportObjectMapper") ObjectMapper mapper,
         ImportRecordCurator importRecordCurator, SubscriptionReconciler subscriptionReconciler,
         ModelTranslator translator) {
 
@@ -154,7 +152,6 @@ public class Importer {
         this.ownerCurator = Objects.requireNonNull(ownerCurator);
         this.idCertCurator = Objects.requireNonNull(idCertCurator);
         this.refresherFactory = Objects.requireNonNull(refresherFactory);
-        this.syncUtils = Objects.requireNonNull(syncUtils);
         this.mapper = Objects.requireNonNull(mapper);
         this.pki = Objects.requireNonNull(pki);
         this.expMetaCurator = Objects.requireNonNull(emc);
@@ -171,7 +168,7 @@ public class Importer {
     public ImportRecord loadExport(Owner owner, File archive, ConflictOverrides overrides,
         String uploadedFileName) throws ImporterException {
         try {
-            return doExport(owner, unpackExportFile(archive.getName(), new FileInputStream(archive)),
+            return doExport(owner, readExportFile(archive.getName(), new FileInputStream(archive), overrides),
                 overrides, uploadedFileName);
         }
         catch (FileNotFoundException e) {
@@ -193,7 +190,7 @@ public class Importer {
     public ImportRecord loadStoredExport(ManifestFile export, Owner owner, ConflictOverrides overrides,
         String uploadedFileName) throws ImporterException {
         try {
-            return doExport(owner, extractFromService(export), overrides, uploadedFileName);
+            return doExport(owner, readFromService(export, overrides), overrides, uploadedFileName);
         }
         catch (ManifestFileServiceException e) {
             throw new ImporterException("Could not load stored manifest file for async import", e);
@@ -281,33 +278,31 @@ public class Importer {
     //       Because of this, we make this method transactional.
 
     /**
-     * Pulls the manifest from the {@link ManifestFileService} and unpacks it. The manifest file
-     * is deleted as soon as it is extracted.
+     * Streams the manifest from the {@link ManifestFileService} and reads its content.
      *
      * @param export the manifest's file.
-     * @return a {@link File} pointing to the unpacked manifest directory.
+     * @param overrides the conflicts that are to be overridden.
+     * @return the content read from the manifest.
      * @throws ManifestFileServiceException
      * @throws ImporterException
      */
     @Transactional
-    protected File extractFromService(ManifestFile export)
+    protected ManifestContent readFromService(ManifestFile export, ConflictOverrides overrides)
         throws ManifestFileServiceException, ImporterException {
-        return unpackExportFile(export.getId(), export.getInputStream());
+        return readExportFile(export.getId(), export.getInputStream(), overrides);
     }
 
     /**
      * Check to make sure the meta data is newer than the imported data.
      * @param type ExporterMetadata.TYPE_PER_USER or TYPE_SYSTEM
      * @param owner Owner in the case of PER_USER
-     * @param meta meta.json file
+     * @param m the manifest metadata read from meta.json
      * @param forcedConflicts Conflicts we will override if encountered
-     * @throws IOException thrown if there's a problem reading the file
      * @throws ImporterException thrown if the metadata is invalid.
      */
-    protected ExporterMetadata validateMetadata(String type, Owner owner, File meta,
-        ConflictOverrides forcedConflicts) throws IOException, ImporterException {
+    protected ExporterMetadata validateMetadata(String type, Owner owner, Meta m,
+        ConflictOverrides forcedConflicts) throws ImporterException {
 
-        Meta m = mapper.readValue(meta, Meta.class);
         if (type == null) {
             throw new ImporterException(i18n.tr("Wrong metadata type"));
         }
@@ -365,71 +360,19 @@ public class Importer {
         return lastrun;
     }
 
-    private ImportRecord doExport(Owner owner, File exportDir, ConflictOverrides overrides,
+    private ImportRecord doExport(Owner owner, ManifestContent manifest, ConflictOverrides overrides,
         String uploadedFileName) throws ImporterException {
 
         Map<String, Object> result = new HashMap<>();
         try {
-            File signature = new File(exportDir, "signature");
-            if (signature.length() == 0) {
-                throw new ImportExtractionException(
-                    i18n.tr("The archive does not contain the required signature file"));
-            }
-
-            boolean verifiedSignature = pki.verifySHA256WithRSAHashAgainstCACerts(
-                new File(exportDir, "consumer_export.zip"), loadSignature(new File(exportDir, "signature")));
-
-            if (!verifiedSignature) {
-                log.warn("Archive signature check failed.");
-
-                if (!overrides.isForced(Conflict.SIGNATURE_CONFLICT)) {
-                    /*
-                     * Normally for import conflicts that can be overridden, we try to
-                     * report them all the first time so if the user intends to override,
-                     * they can do so with just one more request. However in the case of
-                     * a bad signature, we're going to report immediately due to the nature
-                     * of what this might mean.
-                     */
-                    throw new ImportConflictException(i18n.tr("Archive failed signature check"),
-                        Conflict.SIGNATURE_CONFLICT);
-                }
-                else {
-                    log.warn("Ignoring signature check failure.");
-                }
-            }
-
-            File consumerExport = new File(exportDir, "consumer_export.zip");
-            File consumerExportDir = extractArchive(exportDir, consumerExport.getName(),
-                new FileInputStream(consumerExport));
-
-            Map<String, File> importFiles = new HashMap<>();
-            File[] listFiles = consumerExportDir.listFiles();
-            if (listFiles == null || listFiles.length == 0) {
-                throw new ImportExtractionException(
-                    i18n.tr("The provided manifest has no content in the exported consumer archive"));
-            }
-            for (File file : listFiles) {
-                importFiles.put(file.getName(), file);
-            }
-
-            // Need the rules file as well which is in a nested dir:
-            File rulesFile = new File(consumerExportDir, ImportFile.RULES_FILE.fileName());
-            importFiles.put(ImportFile.RULES_FILE.fileName(), rulesFile);
-
-            List<SubscriptionDTO> importSubs = importObjects(owner, importFiles, overrides);
-            Meta m = mapper.readValue(importFiles.get(ImportFile.META.fileName()), Meta.class);
+            List<SubscriptionDTO> importSubs = importObjects(owner, manifest, overrides);
 
             result.put("subscriptions", importSubs);
-            result.put("meta", m);
+            result.put("meta", manifest.getMeta());
 
             sink.emitImportCreated(owner);
             return recordImportSuccess(owner, result, overrides, uploadedFileName);
         }
-        catch (FileNotFoundException fnfe) {
-            log.error("Archive file does not contain consumer_export.zip", fnfe);
-            throw new ImportExtractionException(i18n.tr("The archive does not contain " +
-                "the required consumer_export.zip file"));
-        }
         catch (ConstraintViolationException cve) {
             log.error("Failed to import archive", cve);
             throw new ImporterException(i18n.tr("Failed to import archive"), cve, result);
@@ -442,51 +385,189 @@ public class Importer {
             log.error("Exception caught importing archive", e);
             throw new ImportExtractionException(i18n.tr("Unable to extract export archive"), e, result);
         }
-        catch (CertificateException e) {
+    }
+
+    /**
+     * Reads the content of a manifest from its archive in a single pass, verifying the signature of
+     * the inner export archive as it is read. The content is only deserialized; nothing is stored
+     * until the signature has been checked and the archive has been validated.
+     *
+     * @param fileName the name of the manifest file, for error reporting.
+     * @param exportInputStream the stream from which to read the manifest; closed once read.
+     * @param overrides the conflicts that are to be overridden.
+     * @return the content read from the manifest.
+     * @throws ImporterException if the archive cannot be read or is invalid.
+     */
+    private ManifestContent readExportFile(String fileName, InputStream exportInputStream,
+        ConflictOverrides overrides) throws ImporterException {
+
+        ManifestContent manifest = new ManifestContent();
+        ImportArchiveReader archive;
+
+        try (InputStream archiveStream = exportInputStream) {
+            archive = new ImportArchiveReader(this.pki.getSHA256WithRSAVerifiers());
+            archive.read(archiveStream, (path, input) -> this.readManifestEntry(manifest, path, input));
+        }
+        catch (GeneralSecurityException e) {
             log.error("Certificate exception checking archive signature", e);
             throw new ImportExtractionException(
-                i18n.tr("Certificate exception checking archive signature"), e, result);
+                i18n.tr("Certificate exception checking archive signature"), e);
         }
-        finally {
-            if (exportDir != null) {
-                try {
-                    FileUtils.deleteDirectory(exportDir);
-                }
-                catch (IOException e) {
-                    log.error("Failed to delete extracted export", e);
-                }
+        catch (IOException e) {
+            log.error("Unable to extract export archive", e);
+            throw new ImportExtractionException(i18n.tr("Unable to extract export archive"), e);
+        }
+
+        if (!archive.hasEntries()) {
+            throw new ImportExtractionException(i18n.tr(
+                "The archive {0} is not a properly compressed file or is empty", fileName));
+        }
+
+        if (!archive.hasSignature()) {
+            throw new ImportExtractionException(
+                i18n.tr("The archive does not contain the required signature file"));
+        }
+
+        if (!archive.hasExportArchive()) {
+            log.error("Archive file does not contain {}", ExportArchiveWriter.EXPORT_ARCHIVE_NAME);
+            throw new ImportExtractionException(i18n.tr("The archive does not contain " +
+                "the required consumer_export.zip file"));
+        }
+
+        if (!archive.isSignatureVerified()) {
+            log.warn("Archive signature check failed.");
+
+            if (!overrides.isForced(Conflict.SIGNATURE_CONFLICT)) {
+                /*
+                 * Normally for import conflicts that can be overridden, we try to
+                 * report them all the first time so if the user intends to override,
+                 * they can do so with just one more request. However in the case of
+                 * a bad signature, we're going to report immediately due to the nature
+                 * of what this might mean.
+                 */
+                throw new ImportConflictException(i18n.tr("Archive failed signature check"),
+                    Conflict.SIGNATURE_CONFLICT);
+            }
+            else {
+                log.warn("Ignoring signature check failure.");
+            }
+        }
+
+        if (archive.getExportEntryCount() == 0) {
+            throw new ImportExtractionException(i18n.tr(
+                "The archive {0} is not a properly compressed file or is empty",
+                ExportArchiveWriter.EXPORT_ARCHIVE_NAME));
+        }
+
+        if (archive.getExportFileCount() == 0) {
+            throw new ImportExtractionException(
+                i18n.tr("The provided manifest has no content in the exported consumer archive"));
+        }
+
+        return manifest;
+    }
+
+    /**
+     * Deserializes a single file of the manifest into the given manifest content as it is read
+     * from the export archive. Files the importer does not use are skipped.
+     *
+     * @param manifest the manifest content to receive the file's data.
+     * @param path the path of the file, relative to the export directory.
+     * @param input the stream from which to read the file.
+     * @throws IOException if the file cannot be deserialized.
+     */
+    private void readManifestEntry(ManifestContent manifest, String path, InputStream input)
+        throws IOException {
+
+        Reader reader = new InputStreamReader(input, Charset.defaultCharset());
+
+        if (ImportFile.META.fileName().equals(path)) {
+            manifest.setMeta(mapper.readValue(reader, Meta.class));
+            return;
+        }
+
+        if (ImportFile.CONSUMER.fileName().equals(path)) {
+            manifest.setConsumer(mapper.readValue(reader, ConsumerDTO.class));
+            return;
+        }
+
+        if (ImportFile.RULES_FILE.fileName().equals(path)) {
+            manifest.setRules(StringFromReader.asString(reader));
+            return;
+        }
+
+        // Everything else we use is a file directly within one of the manifest's directories
+        int separator = path.indexOf('/');
+        if (separator < 0 || path.indexOf('/', separator + 1) >= 0) {
+            return;
+        }
+
+        String directory = path.substring(0, separator);
+        String name = path.substring(separator + 1);
+
+        if (ImportFile.CONSUMER_TYPE.fileName().equals(directory)) {
+            manifest.addConsumerType(
+                new ConsumerTypeImporter(consumerTypeCurator).createObject(mapper, reader));
+        }
+        else if (ImportFile.UPSTREAM_CONSUMER.fileName().equals(directory)) {
+            if (name.endsWith(".json")) {
+                log.debug("Import upstream consumeridentity certificate: {}", name);
+                manifest.setUpstreamIdentityCertificate(mapper.readValue(reader, CertificateDTO.class));
+            }
+            else {
+                log.warn("Extra file found in upstream_consumer directory: {}", name);
             }
         }
+        else if (ImportFile.DISTRIBUTOR_VERSIONS.fileName().equals(directory)) {
+            manifest.addDistributorVersion(
+                new DistributorVersionImporter(distVerCurator).createObject(mapper, reader));
+        }
+        else if (ImportFile.CONTENT_DELIVERY_NETWORKS.fileName().equals(directory)) {
+            manifest.addCdn(new CdnImporter(cdnCurator).createObject(mapper, reader));
+        }
+        else if (ImportFile.PRODUCTS.fileName().equals(directory)) {
+            if (manifest.getProductImporter() == null) {
+                manifest.setProductImporter(new ProductImporter(this.mapper, this.i18n));
+            }
+
+            if (name.endsWith(ProductImporter.PRODUCT_FILE_SUFFIX)) {
+                manifest.getProductImporter().readProduct(reader);
+            }
+        }
+        else if (ImportFile.ENTITLEMENTS.fileName().equals(directory)) {
+            log.debug("Reading entitlement from file: {}", name);
+            manifest.addEntitlement(mapper.readValue(reader, EntitlementDTO.class));
+        }
     }
 
     @SuppressWarnings("checkstyle:methodlength")
     @Transactional(rollbackOn = { IOException.class, ImporterException.class,
         RuntimeException.class, ImportConflictException.class })
     // WARNING: Keep this method public, otherwise @Transactional is ignored:
-    public List<SubscriptionDTO> importObjects(Owner owner, Map<String, File> importFiles,
+    public List<SubscriptionDTO> importObjects(Owner owner, ManifestContent manifest,
         ConflictOverrides overrides) throws IOException, ImporterException {
 
         ownerCurator.lock(owner);
 
         log.debug("Importing objects for owner: {}", owner);
 
-        File metadata = importFiles.get(ImportFile.META.fileName());
+        Meta metadata = manifest.getMeta();
         if (metadata == null) {
             throw new ImporterException(i18n.tr("The archive does not contain the required meta.json file"));
         }
-        File consumerTypes = importFiles.get(ImportFile.CONSUMER_TYPE.fileName());
+        Set<ConsumerType> consumerTypes = manifest.getConsumerTypes();
         if (consumerTypes == null) {
             throw new ImporterException(
                 i18n.tr("The archive does not contain the required consumer_types directory"));
         }
-        File consumerFile = importFiles.get(ImportFile.CONSUMER.fileName());
-        if (consumerFile == null) {
+        ConsumerDTO consumerDto = manifest.getConsumer();
+        if (consumerDto == null) {
             throw new ImporterException(
                 i18n.tr("The archive does not contain the required consumer.json file"));
         }
-        File products = importFiles.get(ImportFile.PRODUCTS.fileName());
-        File entitlements = importFiles.get(ImportFile.ENTITLEMENTS.fileName());
-        if (products != null && entitlements == null) {
+        ProductImporter productImporter = manifest.getProductImporter();
+        List<EntitlementDTO> entitlements = manifest.getEntitlements();
+        if (productImporter != null && entitlements == null) {
             throw new ImporterException(
                 i18n.tr("The archive does not contain the required entitlements directory"));
         }
@@ -507,19 +588,16 @@ public class Importer {
         // if desired:
         List<ImportConflictException> conflictExceptions = new LinkedList<>();
 
-        File rules = importFiles.get(ImportFile.RULES_FILE.fileName());
-        importRules(rules, metadata);
+        importRules(manifest.getRules());
 
-        importConsumerTypes(consumerTypes.listFiles());
+        importConsumerTypes(consumerTypes);
 
-        File distributorVersions = importFiles.get(ImportFile.DISTRIBUTOR_VERSIONS.fileName());
-        if (distributorVersions != null) {
-            importDistributorVersions(distributorVersions.listFiles());
+        if (manifest.getDistributorVersions() != null) {
+            importDistributorVersions(manifest.getDistributorVersions());
         }
 
-        File cdns = importFiles.get(ImportFile.CONTENT_DELIVERY_NETWORKS.fileName());
-        if (cdns != null) {
-            importContentDeliveryNetworks(cdns.listFiles());
+        if (manifest.getCdns() != null) {
+            importContentDeliveryNetworks(manifest.getCdns());
         }
 
         // per user elements
@@ -533,15 +611,8 @@ public class Importer {
 
         ConsumerDTO consumer = null;
         try {
-            Meta m = mapper.readValue(metadata, Meta.class);
-            File upstreamFile = importFiles.get(ImportFile.UPSTREAM_CONSUMER.fileName());
-            File[] dafiles = new File[0];
-
-            if (upstreamFile != null) {
-                dafiles = upstreamFile.listFiles();
-            }
-
-            consumer = importConsumer(owner, consumerFile, dafiles, overrides, m);
+            consumer = importConsumer(owner, consumerDto, manifest.getUpstreamIdentityCertificate(),
+                overrides, metadata);
         }
         catch (ImportConflictException e) {
             conflictExceptions.add(e);
@@ -567,19 +638,15 @@ public class Importer {
 
         // If the consumer has no entitlements, this products directory will end up empty.
         // This also implies there will be no entitlements to import.
-        Meta meta = mapper.readValue(metadata, Meta.class);
         Map<String, ProductDTO> importedProductsMap;
         List<SubscriptionDTO> importedSubs;
 
         // TODO: If EntitlementImporter is ever updated to be more on-demand like the ProductImporter
         // refactor, update this block/class to not be doing half of the entitlement importing bits.
-        File productsDir = importFiles.get(ImportFile.PRODUCTS.fileName());
-        if (productsDir != null) {
-            ProductImporter productImporter = new ProductImporter(productsDir, this.mapper, this.i18n);
-
+        if (productImporter != null) {
             importedProductsMap = productImporter.importProductMap();
-            importedSubs = this.importEntitlements(owner, importedProductsMap, entitlements.listFiles(),
-                consumer.getUuid(), meta);
+            importedSubs = this.importEntitlements(owner, importedProductsMap, entitlements,
+                consumer.getUuid(), metadata);
         }
         else {
             log.warn("No products found to import, skipping product import.");
@@ -587,7 +654,7 @@ public class Importer {
 
             importedProductsMap = null;
             importedSubs = this.importEntitlements(owner, importedProductsMap, null, consumer.getUuid(),
-                meta);
+                metadata);
         }
 
         // Setup our import subscription adapter with the subscriptions imported:
@@ -602,92 +669,75 @@ public class Importer {
         return importedSubs;
     }
 
-    protected void importRules(File rulesFile, File metadata) throws IOException {
-        try (Reader reader = new FileReader(rulesFile)) {
-            rulesImporter.importObject(reader);
-        }
-        catch (FileNotFoundException e) {
+    protected void importRules(String rules) throws IOException {
+        if (rules == null) {
             log.warn("Skipping rules import, manifest does not contain rules file: {}",
-                ImportFile.RULES_FILE.fileName(), e);
+                ImportFile.RULES_FILE.fileName());
+            return;
         }
-    }
 
-    protected void importConsumerTypes(File[] consumerTypes) throws IOException {
-        ConsumerTypeImporter importer = new ConsumerTypeImporter(consumerTypeCurator);
-        Set<ConsumerType> consumerTypeObjs = new HashSet<>();
-
-        for (File consumerType : consumerTypes) {
-            try (Reader reader = new FileReader(consumerType)) {
-                consumerTypeObjs.add(importer.createObject(mapper, reader));
-            }
+        try (Reader reader = new StringReader(rules)) {
+            rulesImporter.importObject(reader);
         }
+    }
 
-        importer.store(consumerTypeObjs);
+    protected void importConsumerTypes(Set<ConsumerType> consumerTypes) {
+        ConsumerTypeImporter importer = new ConsumerTypeImporter(consumerTypeCurator);
+        importer.store(consumerTypes);
     }
 
-    protected ConsumerDTO importConsumer(Owner owner, File consumerFile, File[] upstreamConsumer,
-        ConflictOverrides forcedConflicts, Meta meta) throws IOException, SyncDataFormatException {
+    protected ConsumerDTO importConsumer(Owner owner, ConsumerDTO consumer, CertificateDTO upstreamCert,
+        ConflictOverrides forcedConflicts, Meta meta) throws SyncDataFormatException {
 
         IdentityCertificate idcert = null;
-        for (File uc : upstreamConsumer) {
-            if (uc.getName().endsWith(".json")) {
-                log.debug("Import upstream consumeridentity certificate: {}", uc.getName());
-
-                try (Reader reader = new FileReader(uc)) {
-                    CertificateDTO dtoCert = mapper.readValue(reader, CertificateDTO.class);
-                    idcert = new IdentityCertificate();
-                    ImporterUtils.populateEntity(idcert, dtoCert);
-                    idcert.setId(dtoCert.getId());
-                }
-            }
-            else {
-                log.warn("Extra file found in upstream_consumer directory: {}", uc.getName());
-            }
+        if (upstreamCert != null) {
+            idcert = new IdentityCertificate();
+            ImporterUtils.populateEntity(idcert, upstreamCert);
+            idcert.setId(upstreamCert.getId());
         }
 
         ConsumerImporter importer = new ConsumerImporter(ownerCurator, idCertCurator, i18n, csCurator);
-        ConsumerDTO consumer = null;
 
-        try (Reader reader = new FileReader(consumerFile)) {
-            consumer = importer.createObject(mapper, reader);
-            // we can not rely on the actual ConsumerType in the ConsumerDto
-            // because it could have an id not in our database. We need to
-            // stick with the label. Hence we need to lookup the ACTUAL type
-            // by label here before attempting to store the UpstreamConsumer
-            ConsumerType type = consumerTypeCurator.getByLabel(consumer.getType().getLabel());
-            consumer.setType(this.translator.translate(type, ConsumerTypeDTO.class));
-
-            // in older manifests the web app prefix will not
-            // be on the consumer, we can use the one stored in
-            // the metadata
-            if (StringUtils.isEmpty(consumer.getUrlWeb())) {
-                consumer.setUrlWeb(meta.getWebAppPrefix());
-            }
+        // we can not rely on the actual ConsumerType in the ConsumerDto
+        // because it could have an id not in our database. We need to
+        // stick with the label. Hence we need to lookup the ACTUAL type
+        // by label here before attempting to store the UpstreamConsumer
+        ConsumerType type = consumerTypeCurator.getByLabel(consumer.getType().getLabel());
+        consumer.setType(this.translator.translate(type, ConsumerTypeDTO.class));
 
-            importer.store(owner, consumer, forcedConflicts, idcert);
+        // in older manifests the web app prefix will not
+        // be on the consumer, we can use the one stored in
+        // the metadata
+        if (StringUtils.isEmpty(consumer.getUrlWeb())) {
+            consumer.setUrlWeb(meta.getWebAppPrefix());
         }
 
+        importer.store(owner, consumer, forcedConflicts, idcert);
+
         return consumer;
     }
 
     protected List<SubscriptionDTO> importEntitlements(Owner owner,
-        Map<String, ProductDTO> importedProductsMap, File[] entitlementFiles, String consumerUuid, Meta meta)
-        throws IOException, SyncDataFormatException {
+        Map<String, ProductDTO> importedProductsMap, List<EntitlementDTO> entitlements, String consumerUuid,
+        Meta meta) throws SyncDataFormatException {
 
         log.debug("Importing entitlements for owner: {}", owner);
 
         List<SubscriptionDTO> subscriptionsToImport = new ArrayList<>();
 
-        if (importedProductsMap != null && entitlementFiles != null) {
+        if (importedProductsMap != null && entitlements != null) {
             EntitlementImporter importer = new EntitlementImporter(cdnCurator, i18n, translator,
                 importedProductsMap);
 
-            for (File entitlement : entitlementFiles) {
-                try (Reader reader = new FileReader(entitlement)) {
-                    log.debug("Importing entitlement from file: {}", entitlement.getName());
-                    subscriptionsToImport.add(
-                        importer.importObject(mapper, reader, owner, consumerUuid, meta));
-                }
+            // Entitlements are released from the list as they are imported, so the entitlements
+            // read from the manifest and the subscriptions built from them are not both held in full
+            ListIterator<EntitlementDTO> iterator = entitlements.listIterator();
+            while (iterator.hasNext()) {
+                EntitlementDTO entitlement = iterator.next();
+                iterator.set(null);
+
+                log.debug("Importing entitlement: {}", entitlement.getId());
+                subscriptionsToImport.add(importer.importObject(entitlement, owner, consumerUuid, meta));
             }
         }
 
@@ -697,97 +747,13 @@ public class Importer {
         return subscriptionsToImport;
     }
 
-    /**
-     * Create a tar.gz archive of the exported directory.
-     *
-     * @param tempDir Directory where Candlepin data was exported.
-     * @return File reference to the new archive tar.gz.
-     */
-    private File extractArchive(File tempDir, String exportFileName, InputStream exportFileStream)
-        throws IOException, ImportExtractionException {
-
-        log.debug("Extracting archive to: {}", tempDir.getAbsolutePath());
-
-        byte[] buf = new byte[1024];
-
-        try (ZipInputStream zipinputstream = new ZipInputStream(exportFileStream)) {
-            ZipEntry zipentry = zipinputstream.getNextEntry();
-
-            if (zipentry == null) {
-                throw new ImportExtractionException(i18n.tr(
-                    "The archive {0} is not a properly compressed file or is empty", exportFileName));
-            }
-
-            while (zipentry != null) {
-                //for each entry to be extracted
-                String entryName = zipentry.getName();
-                log.debug("entryname {}", entryName);
-
-                File newFile = new File(tempDir, entryName).getCanonicalFile();
-
-                // Check if the file is outside of the target directory
-                if (!newFile.getPath().startsWith(tempDir.getCanonicalPath())) {
-                    throw new ImportExtractionException(i18n.tr(
-                        "Entry is outside of the target directory: {0}", entryName));
-                }
-
-                String directory = newFile.getParent();
-                if (directory != null) {
-                    new File(directory).mkdirs();
-                }
-
-                try (FileOutputStream fileoutputstream = new FileOutputStream(newFile)) {
-                    int n;
-                    while ((n = zipinputstream.read(buf, 0, 1024)) > -1) {
-                        fileoutputstream.write(buf, 0, n);
-                    }
-                }
-
-                zipinputstream.closeEntry();
-                zipentry = zipinputstream.getNextEntry();
-            }
-        }
-
-        return new File(tempDir.getAbsolutePath(), "export");
-    }
-
-    private byte[] loadSignature(File signatureFile) throws IOException {
-        // signature is never going to be a huge file, therefore cast is a-okay
-        byte[] signatureBytes = new byte[(int) signatureFile.length()];
-        try (FileInputStream signature = new FileInputStream(signatureFile)) {
-            int offset = 0;
-            int numRead = 0;
-            while (offset < signatureBytes.length && numRead >= 0) {
-                numRead = signature.read(signatureBytes, offset, signatureBytes.length - offset);
-                offset += numRead;
-            }
-
-            return signatureBytes;
-        }
-    }
-
-    protected void importDistributorVersions(File[] versionFiles) throws IOException {
+    protected void importDistributorVersions(Set<DistributorVersionDTO> distVers) {
         DistributorVersionImporter importer = new DistributorVersionImporter(distVerCurator);
-        Set<DistributorVersionDTO> distVers = new HashSet<>();
-
-        for (File verFile : versionFiles) {
-            try (Reader reader = new FileReader(verFile)) {
-                distVers.add(importer.createObject(mapper, reader));
-            }
-        }
         importer.store(distVers);
     }
 
-    protected void importContentDeliveryNetworks(File[] cdnFiles) throws IOException {
+    protected void importContentDeliveryNetworks(Set<CdnDTO> cdns) {
         CdnImporter importer = new CdnImporter(cdnCurator);
-        Set<CdnDTO> cdns = new HashSet<>();
-
-        for (File cdnFile : cdnFiles) {
-            try (Reader reader = new FileReader(cdnFile)) {
-                cdns.add(importer.createObject(mapper, reader));
-            }
-        }
-
         importer.store(cdns);
     }
 
@@ -806,17 +772,4 @@ public class Importer {
         return iup;
     }
 
-    private File unpackExportFile(String fileName, InputStream exportInputStream)
-        throws ImportExtractionException {
-        try {
-            File tmpDir = syncUtils.makeTempDir("import");
-            extractArchive(tmpDir, fileName, exportInputStream);
-            return tmpDir;
-        }
-        catch (IOException e) {
-            log.error("Unable to extract export archive", e);
-            throw new ImportExtractionException(i18n.tr("Unable to extract export archive"), e);
-        }
-    }
-
 }
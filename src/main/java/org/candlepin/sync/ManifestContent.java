@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.sync;
+
+import org.candlepin.dto.manifest.v1.CdnDTO;
+import org.candlepin.dto.manifest.v1.CertificateDTO;
+import org.candlepin.dto.manifest.v1.ConsumerDTO;
+import org.candlepin.dto.manifest.v1.DistributorVersionDTO;
+import org.candlepin.dto.manifest.v1.EntitlementDTO;
+import org.candlepin.model.ConsumerType;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+
+
+/**
+ * The content of a manifest, as read from its export archive. Each collection is null if the
+ * corresponding directory was not present in the manifest, and empty if it was present but held
+ * no files.
+ * <p>
+ * Products are held by a {@link ProductImporter}, which only normalizes and resolves them once
+ * they are imported.
+ * <p>
+ * The content is held in full until it is imported, rather than imported as it is read. Exported
+ * manifests place the entitlements before the products they reference, and the consumer types
+ * and signature last, so no entry can be validated or imported until the whole archive has been
+ * read. Entitlements are released as they are imported.
+ */
+public class ManifestContent {
+
+    private Meta meta;
+    private String rules;
+    private ConsumerDTO consumer;
+    private CertificateDTO upstreamIdentityCertificate;
+    private Set<ConsumerType> consumerTypes;
+    private Set<DistributorVersionDTO> distributorVersions;
+    private Set<CdnDTO> cdns;
+    private ProductImporter productImporter;
+    private List<EntitlementDTO> entitlements;
+
+    public Meta getMeta() {
+        return this.meta;
+    }
+
+    public ManifestContent setMeta(Meta meta) {
+        this.meta = meta;
+        return this;
+    }
+
+    public String getRules() {
+        return this.rules;
+    }
+
+    public ManifestContent setRules(String rules) {
+        this.rules = rules;
+        return this;
+    }
+
+    public ConsumerDTO getConsumer() {
+        return this.consumer;
+    }
+
+    public ManifestContent setConsumer(ConsumerDTO consumer) {
+        this.consumer = consumer;
+        return this;
+    }
+
+    public CertificateDTO getUpstreamIdentityCertificate() {
+        return this.upstreamIdentityCertificate;
+    }
+
+    public ManifestContent setUpstreamIdentityCertificate(CertificateDTO certificate) {
+        this.upstreamIdentityCertificate = certificate;
+        return this;
+    }
+
+    public Set<ConsumerType> getConsumerTypes() {
+        return this.consumerTypes;
+    }
+
+    public ManifestContent setConsumerTypes(Set<ConsumerType> consumerTypes) {
+        this.consumerTypes = consumerTypes;
+        return this;
+    }
+
+    public ManifestContent addConsumerType(ConsumerType consumerType) {
+        if (this.consumerTypes == null) {
+            this.consumerTypes = new HashSet<>();
+        }
+
+        this.consumerTypes.add(consumerType);
+        return this;
+    }
+
+    public Set<DistributorVersionDTO> getDistributorVersions() {
+        return this.distributorVersions;
+    }
+
+    public ManifestContent setDistributorVersions(Set<DistributorVersionDTO> distributorVersions) {
+        this.distributorVersions = distributorVersions;
+        return this;
+    }
+
+    public ManifestContent addDistributorVersion(DistributorVersionDTO distributorVersion) {
+        if (this.distributorVersions == null) {
+            this.distributorVersions = new HashSet<>();
+        }
+
+        this.distributorVersions.add(distributorVersion);
+        return this;
+    }
+
+    public Set<CdnDTO> getCdns() {
+        return this.cdns;
+    }
+
+    public ManifestContent setCdns(Set<CdnDTO> cdns) {
+        this.cdns = cdns;
+        return this;
+    }
+
+    public ManifestContent addCdn(CdnDTO cdn) {
+        if (this.cdns == null) {
+            this.cdns = new HashSet<>();
+        }
+
+        this.cdns.add(cdn);
+        return this;
+    }
+
+    public ProductImporter getProductImporter() {
+        return this.productImporter;
+    }
+
+    public ManifestContent setProductImporter(ProductImporter productImporter) {
+        this.productImporter = productImporter;
+        return this;
+    }
+
+    public List<EntitlementDTO> getEntitlements() {
+        return this.entitlements;
+    }
+
+    public ManifestContent setEntitlements(List<EntitlementDTO> entitlements) {
+        this.entitlements = entitlements;
+        return this;
+    }
+
+    public ManifestContent addEntitlement(EntitlementDTO entitlement) {
+        if (this.entitlements == null) {
+            this.entitlements = new ArrayList<>();
+        }
+
+        this.entitlements.add(entitlement);
+        return this;
+    }
+}
@@ -24,8 +24,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xnap.commons.i18n.I18n;
 
-import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
@@ -33,8 +31,6 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 
 
@@ -48,17 +44,13 @@ public class ProductImporter {
 
     private Map<String, ProductDTO> cache;
 
-    private File productDir;
+    /** Products read from the manifest which have not yet been normalized and resolved */
+    private Map<String, ProductDTO> definitions;
+
     private ObjectMapper mapper;
     private I18n i18n;
 
-    // TODO: We really should be providing something more generic like a DataSource or some such,
-    // but this will work for a quick retrofit.
-    public ProductImporter(File productDir, ObjectMapper mapper, I18n i18n) {
-        if (productDir == null) {
-            throw new IllegalArgumentException("productDir is null");
-        }
-
+    public ProductImporter(ObjectMapper mapper, I18n i18n) {
         if (mapper == null) {
             throw new IllegalArgumentException("mapper is null");
         }
@@ -68,8 +60,8 @@ public class ProductImporter {
         }
 
         this.cache = new HashMap<>();
+        this.definitions = new HashMap<>();
 
-        this.productDir = productDir;
         this.mapper = mapper;
         this.i18n = i18n;
     }
@@ -132,15 +124,37 @@ public class ProductImporter {
     }
 
     /**
-     * Fetches the product from the backing manifest, if it exists. If the product does not exist
-     * in the manifest, this method returns null. If the product exists and is loaded successfully,
-     * it will be added to the cache for future reads/imports.
+     * Reads a product definition from the manifest. Products are read as the manifest is read, in
+     * no particular order, so they are only normalized and their children resolved once they are
+     * imported. If the manifest defines the same product more than once, the last definition read
+     * is used.
+     *
+     * @param reader
+     *  the reader from which to read the product definition
+     *
+     * @throws IOException
+     *  if the product definition cannot be read
+     *
+     * @return
+     *  the product definition read
+     */
+    public ProductDTO readProduct(Reader reader) throws IOException {
+        ProductDTO product = this.mapper.readValue(reader, ProductDTO.class);
+        this.definitions.put(product.getId(), product);
+
+        return product;
+    }
+
+    /**
+     * Fetches the product from the definitions read from the manifest, if it exists. If the product
+     * does not exist in the manifest, this method returns null. If the product exists, it is
+     * normalized, its children are resolved, and it is moved to the cache for future reads/imports.
      *
      * @param productId
      *  the ID of the product to fetch from the manifest
      *
      * @throws IOException
-     *  if an unexpected exception occurs while reading product data from the manifest
+     *  if an unexpected exception occurs while resolving product data from the manifest
      *
      * @return
      *  the loaded product if present in the manifest; null otherwise
@@ -148,19 +162,16 @@ public class ProductImporter {
     private ProductDTO readFromManifest(String productId) throws IOException {
         log.debug("loading product from manifest: {}", productId);
 
-        File pfile = new File(this.productDir, productId + PRODUCT_FILE_SUFFIX);
-        if (!pfile.exists()) {
+        ProductDTO product = this.definitions.remove(productId);
+        if (product == null) {
             return null;
         }
 
-        try (Reader reader = new FileReader(pfile)) {
-            ProductDTO product = this.mapper.readValue(reader, ProductDTO.class);
-            this.normalizeProduct(product);
-            this.resolveChildren(product);
+        this.normalizeProduct(product);
+        this.resolveChildren(product);
 
-            this.cache.put(product.getId(), product);
-            return product;
-        }
+        this.cache.put(product.getId(), product);
+        return product;
     }
 
     /**
@@ -322,26 +333,18 @@ public class ProductImporter {
      *  a mapping of products defined in the manifest
      */
     public Map<String, ProductDTO> importProductMap() throws IOException {
-        File[] files = this.productDir.listFiles();
-
-        Map<String, ProductDTO> output = new HashMap<>();
-        Pattern fnPattern = Pattern.compile("^(.*)" + Pattern.quote(PRODUCT_FILE_SUFFIX));
-
         try {
-            for (File candidate : files) {
-                Matcher matcher = fnPattern.matcher(candidate.getName());
-                if (matcher.matches()) {
-                    ProductDTO product = this.importProduct(matcher.group(1));
-                    output.put(product.getId(), product);
-                }
+            // Resolving a product may resolve and remove others, so work from a copy of the IDs
+            for (String productId : new ArrayList<>(this.definitions.keySet())) {
+                this.importProduct(productId);
             }
         }
         catch (SyncDataFormatException e) {
-            // Given that we're feeding it the product IDs from filenames, this shouldn't ever happen
+            // Given that we're feeding it the product IDs from definitions, this shouldn't ever happen
             throw new RuntimeException(e);
         }
 
-        return output;
+        return new HashMap<>(this.cache);
     }
 
 }
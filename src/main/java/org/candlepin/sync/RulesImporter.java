@@ -15,6 +15,7 @@
 package org.candlepin.sync;
 
 import org.candlepin.audit.EventSink;
+import org.candlepin.cache.ComplianceStatusCache;
 import org.candlepin.model.Rules;
 import org.candlepin.model.RulesCurator;
 import org.candlepin.policy.js.JsRunnerProvider;
@@ -37,12 +38,15 @@ public class RulesImporter {
     private RulesCurator curator;
     private EventSink sink;
     private JsRunnerProvider jsProvider;
+    private ComplianceStatusCache complianceStatusCache;
 
     @Inject
-    RulesImporter(RulesCurator curator, EventSink sink, JsRunnerProvider jsProvider) {
+    RulesImporter(RulesCurator curator, EventSink sink, JsRunnerProvider jsProvider,
+        ComplianceStatusCache complianceStatusCache) {
         this.curator = curator;
         this.sink = sink;
         this.jsProvider = jsProvider;
+        this.complianceStatusCache = complianceStatusCache;
     }
 
     public void importObject(Reader reader) throws IOException {
@@ -59,6 +63,9 @@ public class RulesImporter {
 
             // Trigger a recompile of the rules:
             jsProvider.compileRules();
+
+            // Statuses calculated by the previous rules are no longer valid
+            complianceStatusCache.removeAll();
         }
         else {
             log.info("Ignoring older rules in manifest, current version: " +
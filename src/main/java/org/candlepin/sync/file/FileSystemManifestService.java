@@ -0,0 +1,497 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.sync.file;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.model.ManifestFileRecord;
+import org.candlepin.model.ManifestFileRecordCurator;
+
+import org.apache.commons.codec.binary.Hex;
+import org.hibernate.Transaction;
+import org.hibernate.resource.transaction.spi.TransactionStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+
+
+
+/**
+ * A ManifestFileService implementation that stores manifest files in a local directory, keeping
+ * only their metadata in the DB.
+ * <p>
+ * Files are named by the SHA-256 hash of their content. Each file is written to a temporary file
+ * in the store directory, synced to disk, and then atomically renamed into place, so a file is
+ * never visible under its final name until its content is complete. Identical files share their
+ * content, which is deleted once no record refers to it.
+ * <p>
+ * Content is written before its record is created, and is only deleted after the transaction
+ * removing its last record has committed. As a store of the same content may be in progress at
+ * that point, recently written content is left in place; it is swept up along with the content of
+ * stores which were rolled back each time expired files are cleaned up.
+ * <p>
+ * Files stored by the {@link DBManifestService} remain readable through this service, and are
+ * moved out of the database each time expired files are cleaned up.
+ */
+@Singleton
+public class FileSystemManifestService implements ManifestFileService {
+    private static final Logger log = LoggerFactory.getLogger(FileSystemManifestService.class);
+
+    private static final String CONTENT_DIGEST = "SHA-256";
+    private static final String INCOMING_PREFIX = ".incoming-";
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * How long content is protected from deletion after it is written, as a store of the same
+     * content may still be waiting to commit the record referring to it
+     */
+    private static final Duration STORE_GRACE_PERIOD = Duration.ofHours(1);
+
+    private final ManifestFileRecordCurator curator;
+    private final Path directory;
+
+    @Inject
+    public FileSystemManifestService(Configuration config, ManifestFileRecordCurator curator) {
+        this(Paths.get(config.getString(ConfigProperties.MANIFEST_FILE_STORE_DIR)), curator);
+    }
+
+    public FileSystemManifestService(Path directory, ManifestFileRecordCurator curator) {
+        this.directory = Objects.requireNonNull(directory);
+        this.curator = Objects.requireNonNull(curator);
+    }
+
+    @Override
+    public ManifestFile get(String id) throws ManifestFileServiceException {
+        ManifestFileRecord record = this.curator.findFile(id);
+        if (record == null || record.getContentHash() == null) {
+            // Files stored in the DB are served from there until they are migrated
+            return record;
+        }
+
+        Path path = this.getContentPath(record.getContentHash());
+        if (!Files.isRegularFile(path)) {
+            throw new ManifestFileServiceException("Content of manifest file " + id + " is missing: " + path);
+        }
+
+        return new StoredManifestFile(record, path);
+    }
+
+    @Override
+    public ManifestFile store(ManifestFileType type, File fileToStore, String principalName,
+        String targetId) throws ManifestFileServiceException {
+
+        try (FileChannel source = FileChannel.open(fileToStore.toPath(), StandardOpenOption.READ)) {
+            StoredContent content = this.storeContent(source);
+            ManifestFileRecord record = this.curator.createRecord(type, fileToStore.getName(), principalName,
+                targetId, content.hash, content.size);
+
+            return new StoredManifestFile(record, this.getContentPath(content.hash));
+        }
+        catch (IOException e) {
+            throw new ManifestFileServiceException(e);
+        }
+    }
+
+    @Override
+    public boolean delete(String id) throws ManifestFileServiceException {
+        ManifestFileRecord record = this.curator.findFile(id);
+        if (record == null) {
+            return false;
+        }
+
+        String hash = record.getContentHash();
+        boolean deleted = this.curator.deleteById(id);
+
+        if (hash != null) {
+            this.afterCommit(() -> this.deleteUnreferencedContent(Set.of(hash), getGraceCutoff()));
+        }
+
+        return deleted;
+    }
+
+    @Override
+    public int deleteExpired(Date expiryDate) throws ManifestFileServiceException {
+        List<String> hashes = this.curator.getExpiredContentHashes(expiryDate);
+        int deleted = this.curator.deleteExpired(expiryDate);
+
+        this.afterCommit(() -> {
+            Instant graceCutoff = getGraceCutoff();
+            Instant expiry = expiryDate.toInstant();
+
+            this.deleteUnreferencedContent(hashes, graceCutoff);
+            this.deleteOrphanedContent(expiry.isBefore(graceCutoff) ? expiry : graceCutoff);
+        });
+
+        this.deleteAbandonedIncomingFiles(expiryDate);
+        this.migrateDatabaseFiles();
+
+        return deleted;
+    }
+
+    @Override
+    public int delete(ManifestFileType type, String targetId) throws ManifestFileServiceException {
+        List<String> hashes = this.curator.getContentHashes(type, targetId);
+        int deleted = this.curator.deleteMatching(type, targetId);
+
+        this.afterCommit(() -> this.deleteUnreferencedContent(hashes, getGraceCutoff()));
+
+        return deleted;
+    }
+
+    /**
+     * Moves the content of any files stored in the DB to the store directory. Must be called in
+     * the transaction in which the files will be updated, as their content can only be streamed
+     * from the DB within the transaction in which they were looked up.
+     *
+     * @return
+     *  the number of files migrated
+     */
+    public int migrateDatabaseFiles() {
+        int migrated = 0;
+
+        for (String id : this.curator.getDatabaseFileIds()) {
+            ManifestFileRecord record = this.curator.findFile(id);
+            if (record == null || record.getFileData() == null) {
+                continue;
+            }
+
+            try (ReadableByteChannel source = Channels.newChannel(record.getInputStream())) {
+                StoredContent content = this.storeContent(source);
+
+                record.setContentHash(content.hash);
+                record.setFileSize(content.size);
+                record.setFileData(null);
+                this.curator.merge(record);
+
+                ++migrated;
+            }
+            catch (IOException | RuntimeException e) {
+                log.warn("Unable to move manifest file out of the database: {}", id, e);
+            }
+        }
+
+        if (migrated > 0) {
+            log.info("Moved {} manifest file(s) from the database to {}", migrated, this.directory);
+        }
+
+        return migrated;
+    }
+
+    /**
+     * Copies the given content to the store in fixed-size chunks, hashing it as it is written, and
+     * moves it into place under its content hash once it has been synced to disk.
+     */
+    private StoredContent storeContent(ReadableByteChannel source) throws IOException {
+        MessageDigest digest = createDigest();
+        long size = 0;
+
+        Files.createDirectories(this.directory);
+        Path incoming = Files.createTempFile(this.directory, INCOMING_PREFIX, null);
+
+        try {
+            try (FileChannel target = FileChannel.open(incoming, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+
+                while (source.read(buffer) != -1) {
+                    buffer.flip();
+                    digest.update(buffer.array(), 0, buffer.limit());
+                    size += buffer.limit();
+
+                    while (buffer.hasRemaining()) {
+                        target.write(buffer);
+                    }
+
+                    buffer.clear();
+                }
+
+                target.force(true);
+            }
+
+            String hash = Hex.encodeHexString(digest.digest());
+            Path path = this.getContentPath(hash);
+
+            Files.createDirectories(path.getParent());
+            Files.move(incoming, path, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory(path.getParent());
+
+            return new StoredContent(hash, size);
+        }
+        finally {
+            Files.deleteIfExists(incoming);
+        }
+    }
+
+    /**
+     * Runs the given content cleanup once the current transaction has committed, or immediately if
+     * there is no transaction in progress. Should the transaction roll back, its records remain, and
+     * so must their content.
+     */
+    private void afterCommit(Runnable cleanup) {
+        Transaction transaction = this.curator.currentSession().getTransaction();
+
+        if (transaction != null &&
+            transaction.getStatus().isOneOf(TransactionStatus.ACTIVE, TransactionStatus.MARKED_ROLLBACK)) {
+
+            transaction.registerSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                    // Intentionally left empty
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == Status.STATUS_COMMITTED) {
+                        runCleanup(cleanup);
+                    }
+                }
+            });
+        }
+        else {
+            runCleanup(cleanup);
+        }
+    }
+
+    private static void runCleanup(Runnable cleanup) {
+        try {
+            cleanup.run();
+        }
+        catch (RuntimeException e) {
+            // Anything left behind is swept up the next time expired files are cleaned up
+            log.warn("Unable to clean up stored manifest content", e);
+        }
+    }
+
+    /**
+     * Deletes the content with the given hashes which is no longer referenced by any committed
+     * record, and was written before the given cutoff.
+     */
+    private void deleteUnreferencedContent(Collection<String> hashes, Instant cutoff) {
+        if (hashes == null || hashes.isEmpty()) {
+            return;
+        }
+
+        Set<String> unreferenced = new HashSet<>(hashes);
+        unreferenced.removeAll(this.curator.getReferencedContentHashes(unreferenced));
+
+        for (String hash : unreferenced) {
+            Path path = this.getContentPath(hash);
+
+            try {
+                if (isWrittenBefore(path, cutoff)) {
+                    Files.deleteIfExists(path);
+                }
+            }
+            catch (IOException e) {
+                log.warn("Unable to delete stored manifest content: {}", hash, e);
+            }
+        }
+    }
+
+    /**
+     * Deletes any content written before the given cutoff which no committed record refers to, such
+     * as the content of stores which were rolled back.
+     */
+    private void deleteOrphanedContent(Instant cutoff) {
+        if (!Files.isDirectory(this.directory)) {
+            return;
+        }
+
+        // Content is stored one level down, by the first characters of its hash
+        List<String> hashes;
+        try (Stream<Path> files = Files.walk(this.directory, 2)) {
+            hashes = files
+                .filter(file -> !this.directory.equals(file.getParent()))
+                .filter(Files::isRegularFile)
+                .filter(file -> isWrittenBefore(file, cutoff))
+                .map(file -> file.getFileName().toString())
+                .collect(Collectors.toList());
+        }
+        catch (IOException | UncheckedIOException e) {
+            log.warn("Unable to sweep orphaned manifest content in {}", this.directory, e);
+            return;
+        }
+
+        this.deleteUnreferencedContent(hashes, cutoff);
+    }
+
+    /**
+     * Deletes any temporary files left behind by stores which did not complete.
+     */
+    private void deleteAbandonedIncomingFiles(Date expiryDate) {
+        if (!Files.isDirectory(this.directory)) {
+            return;
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory, INCOMING_PREFIX + "*")) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toMillis() < expiryDate.getTime()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        catch (IOException e) {
+            log.warn("Unable to clean up incomplete manifest files in {}", this.directory, e);
+        }
+    }
+
+    private static Instant getGraceCutoff() {
+        return Instant.now().minus(STORE_GRACE_PERIOD);
+    }
+
+    private static boolean isWrittenBefore(Path path, Instant cutoff) {
+        try {
+            return Files.getLastModifiedTime(path).toInstant().isBefore(cutoff);
+        }
+        catch (IOException e) {
+            // Most likely already deleted
+            return false;
+        }
+    }
+
+    /**
+     * Fetches the path at which content with the given hash is stored. Content is spread over
+     * subdirectories by the first two characters of its hash, to keep directories small.
+     */
+    private Path getContentPath(String hash) {
+        return this.directory.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance(CONTENT_DIGEST);
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Syncs the given directory, so the renames made in it survive a crash. Not every platform
+     * supports syncing directories, in which case the rename is left to the filesystem.
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+        catch (IOException e) {
+            log.debug("Unable to sync directory: {}", directory, e);
+        }
+    }
+
+    /**
+     * The hash and size of content written to the store
+     */
+    private static final class StoredContent {
+        private final String hash;
+        private final long size;
+
+        private StoredContent(String hash, long size) {
+            this.hash = hash;
+            this.size = size;
+        }
+    }
+
+    /**
+     * A manifest file whose content is stored in the store directory
+     */
+    private static final class StoredManifestFile implements ManifestFile {
+        private final ManifestFileRecord record;
+        private final Path path;
+
+        private StoredManifestFile(ManifestFileRecord record, Path path) {
+            this.record = record;
+            this.path = path;
+        }
+
+        @Override
+        public String getId() {
+            return this.record.getId();
+        }
+
+        @Override
+        public String getName() {
+            return this.record.getName();
+        }
+
+        @Override
+        public String getTargetId() {
+            return this.record.getTargetId();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            try {
+                return Files.newInputStream(this.path);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException("InputStream not available for manifest file.", e);
+            }
+        }
+
+        /**
+         * Writes the file to the given output stream with FileChannel.transferTo, which lets the
+         * platform copy the file without reading it into the heap.
+         */
+        @Override
+        public long writeTo(OutputStream output) throws IOException {
+            try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ)) {
+                // The target channel is left open, as closing it would close the output stream
+                WritableByteChannel target = Channels.newChannel(output);
+
+                long size = channel.size();
+                long position = 0;
+
+                while (position < size) {
+                    position += channel.transferTo(position, size - position, target);
+                }
+
+                return position;
+            }
+        }
+    }
+}
@@ -14,7 +14,9 @@
  */
 package org.candlepin.sync.file;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
  * Represents a manifest file that is stored in the {@link ManifestFileService}.
@@ -42,6 +44,20 @@ public interface ManifestFile {
      */
     InputStream getInputStream();
 
+    /**
+     * Writes the content of the stored file to the given output stream. The output stream is not
+     * closed.
+     *
+     * @param output the output stream to write the file to.
+     * @return the number of bytes written.
+     * @throws IOException if the file cannot be read or written.
+     */
+    default long writeTo(OutputStream output) throws IOException {
+        try (InputStream input = this.getInputStream()) {
+            return input.transferTo(output);
+        }
+    }
+
     /**
      * Gets the target id of the stored file. If the file was created as part of
      * a consumer export, it should be the consumer UUID. If it was created as part
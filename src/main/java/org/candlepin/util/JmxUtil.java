@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+
+
+/**
+ * Utility methods for publishing Candlepin runtime statistics through the platform MBean server.
+ * All beans are registered under the "org.candlepin" domain.
+ */
+public final class JmxUtil {
+    private static final Logger log = LoggerFactory.getLogger(JmxUtil.class);
+
+    public static final String DOMAIN = "org.candlepin";
+
+    private JmxUtil() {
+        // utility class
+    }
+
+    /**
+     * Registers the given MBean with the platform MBean server, replacing any bean already
+     * registered under the same name. Registration failures are logged rather than thrown, as
+     * statistics are never critical to the operation of the component publishing them.
+     *
+     * @param mbean
+     *  the MBean or MXBean instance to register
+     *
+     * @param type
+     *  the value of the "type" key of the object name; typically the simple name of the component
+     *
+     * @param name
+     *  the value of the "name" key of the object name, or null to omit the key
+     *
+     * @throws IllegalArgumentException
+     *  if mbean or type are null
+     *
+     * @return
+     *  the object name the bean was registered under, or null if registration failed
+     */
+    public static ObjectName register(Object mbean, String type, String name) {
+        if (mbean == null) {
+            throw new IllegalArgumentException("mbean is null");
+        }
+
+        if (type == null || type.isEmpty()) {
+            throw new IllegalArgumentException("type is null or empty");
+        }
+
+        try {
+            String oname = DOMAIN + ":type=" + ObjectName.quote(type);
+            if (name != null) {
+                oname += ",name=" + ObjectName.quote(name);
+            }
+
+            ObjectName objectName = new ObjectName(oname);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+
+            server.registerMBean(mbean, objectName);
+            log.debug("Registered MBean: {}", objectName);
+
+            return objectName;
+        }
+        catch (JMException e) {
+            log.warn("Unable to register MBean for {}/{}", type, name, e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Unregisters the MBean registered under the given name, if any. Failures are logged and
+     * otherwise ignored.
+     *
+     * @param objectName
+     *  the name of the bean to unregister; null values are silently ignored
+     */
+    public static void unregister(ObjectName objectName) {
+        if (objectName == null) {
+            return;
+        }
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        }
+        catch (JMException e) {
+            log.warn("Unable to unregister MBean: {}", objectName, e);
+        }
+    }
+}
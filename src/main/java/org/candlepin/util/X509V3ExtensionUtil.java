@@ -45,17 +45,21 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 import java.util.zip.Inflater;
@@ -77,8 +81,10 @@ public class X509V3ExtensionUtil extends X509Util {
     private final Configuration config;
     private final EntitlementCurator entCurator;
 
-    private long pathNodeId = 0;
-    private long huffNodeId = 0;
+    // Node IDs only need to be unique and increasing within a single tree, but trees may be built
+    // concurrently when certificates are generated in parallel
+    private final AtomicLong pathNodeId = new AtomicLong();
+    private final AtomicLong huffNodeId = new AtomicLong();
 
     @Inject
     public X509V3ExtensionUtil(Configuration config, EntitlementCurator entCurator,
@@ -112,14 +118,47 @@ public class X509V3ExtensionUtil extends X509Util {
         String consumerUuid, Pool pool, Integer quantity) throws IOException {
 
         EntitlementBody map = createEntitlementBody(productModels, consumerUuid, pool, quantity);
+        return this.createEntitlementDataPayload(map);
+    }
 
-        String json = toJson(map);
+    /**
+     * Serializes and compresses a previously built entitlement body. The body is a detached DTO, so
+     * unlike building it, this may safely be done off of the request thread.
+     *
+     * @param body
+     *  the entitlement body to serialize
+     *
+     * @throws IOException
+     *  if the body cannot be serialized or compressed
+     *
+     * @return
+     *  the compressed entitlement data payload
+     */
+    public byte[] createEntitlementDataPayload(EntitlementBody body) throws IOException {
+        String json = toJson(body);
         return processPayload(json);
     }
 
     private byte[] retrieveContentValue(EntitlementBody eb) throws IOException {
         List<Content> contentList = getContentList(eb);
         PathNode treeRoot = makePathTree(contentList, new PathNode());
+        return encodePathTree(treeRoot);
+    }
+
+    /**
+     * Encodes a condensed path tree into the compressed string dictionary and Huffman-coded node
+     * dictionary carried by the entitlement data extension.
+     *
+     * @param treeRoot
+     *  the root of a path tree built by {@link #makePathTree(List, PathNode)}
+     *
+     * @throws IOException
+     *  if the dictionaries cannot be written
+     *
+     * @return
+     *  the encoded content payload, or an empty array if the tree contains no paths
+     */
+    byte[] encodePathTree(PathNode treeRoot) throws IOException {
         List<String> nodeStrings = orderStrings(treeRoot);
         if (nodeStrings.isEmpty()) {
             return new byte[0];
@@ -554,12 +593,14 @@ public class X509V3ExtensionUtil extends X509Util {
     private void condenseSubTreeNodes(PathNode location) {
         // "equivalent" parents are merged
         List<PathNode> parentResult = new ArrayList<>(location.getParents());
+        // membership checks against the list are linear; mirror it in a set for the lookups
+        Set<PathNode> remaining = new HashSet<>(parentResult);
         for (PathNode parent1 : location.getParents()) {
-            if (!parentResult.contains(parent1)) {
+            if (!remaining.contains(parent1)) {
                 continue;
             }
             for (PathNode parent2 : location.getParents()) {
-                if (!parentResult.contains(parent2) ||
+                if (!remaining.contains(parent2) ||
                     parent2.getId() == parent1.getId()) {
                     continue;
                 }
@@ -595,6 +636,7 @@ public class X509V3ExtensionUtil extends X509Util {
                         }
                     }
                     parentResult.remove(toRemove);
+                    remaining.remove(toRemove);
                 }
             }
         }
@@ -605,30 +647,23 @@ public class X509V3ExtensionUtil extends X509Util {
     }
 
     public List<String> orderStrings(PathNode parent) throws IOException {
-        List<String> parts = new ArrayList<>();
         // walk tree to make string map
         Map<String, Integer> segments = new HashMap<>();
         Set<PathNode> nodes = new HashSet<>();
         buildSegments(segments, nodes, parent);
-        for (Entry<String, Integer> entry : segments.entrySet()) {
-            String part = entry.getKey();
+
+        List<String> parts = new ArrayList<>(segments.size());
+        for (String part : segments.keySet()) {
             if (!part.equals("")) {
-                int count = entry.getValue();
-                if (parts.size() == 0) {
-                    parts.add(part);
-                }
-                else {
-                    int pos = parts.size();
-                    for (int i = 0; i < parts.size(); i++) {
-                        if (count < segments.get(parts.get(i))) {
-                            pos = i;
-                            break;
-                        }
-                    }
-                    parts.add(pos, part);
-                }
+                parts.add(part);
             }
         }
+
+        // Stable sort by frequency; segments with equal counts keep their map iteration order.
+        // The order of this list defines the string weights, so it must remain stable for
+        // the decoder to rebuild the same trie.
+        parts.sort(Comparator.comparingInt(segments::get));
+
         if (TREE_DEBUG) {
             log.debug("Parts List: " + parts);
         }
@@ -651,35 +686,15 @@ public class X509V3ExtensionUtil extends X509Util {
     }
 
     private List<PathNode> orderNodes(PathNode treeRoot) {
-        List<PathNode> result = new ArrayList<>();
-
         // walk tree to make string map
-        Set<PathNode> nodes =  getPathNodes(treeRoot);
-        for (PathNode pn : nodes) {
-            int count = pn.getParents().size();
-            if (nodes.size() == 0) {
-                nodes.add(pn);
-            }
-            else {
-                int pos = result.size();
-                for (int i = 0; i < result.size(); i++) {
-                    if (count <= result.get(i).getParents().size()) {
-                        pos = i;
-                        break;
-                    }
-                    if (count == result.get(i).getParents().size()) {
-                        if (pn.getId() < result.get(i).getId()) {
-                            pos = i;
-                        }
-                        else {
-                            pos = i + 1;
-                        }
-                        break;
-                    }
-                }
-                result.add(pos, pn);
-            }
-        }
+        Set<PathNode> nodes = getPathNodes(treeRoot);
+        List<PathNode> result = new ArrayList<>(nodes);
+
+        // Sort by parent count, with ties placed in reverse iteration order. This is the order the
+        // original insertion sort produced, and it determines the node weights in the trie.
+        Collections.reverse(result);
+        result.sort(Comparator.comparingInt(pn -> pn.getParents().size()));
+
         // single node plus term node. We need to have one more for huffman trie
         if (result.size() == 2) {
             result.add(new PathNode());
@@ -723,37 +738,20 @@ public class X509V3ExtensionUtil extends X509Util {
         else {
             baos.write(nodeSize);
         }
-        StringBuilder bits = new StringBuilder();
-        String endNodeLocation = findHuffPath(stringParent, END_NODE);
+        Map<Object, HuffCode> stringCodes = buildCodeTable(stringParent);
+        Map<Object, HuffCode> pathNodeCodes = buildCodeTable(pathNodeParent);
+        HuffCode endNodeCode = stringCodes.getOrDefault(END_NODE, HuffCode.EMPTY);
+
+        BitWriter bits = new BitWriter(baos);
         for (PathNode pn : pathNodes) {
             for (NodePair np : pn.getChildren()) {
-                bits.append(findHuffPath(stringParent, np.getName()));
-                bits.append(findHuffPath(pathNodeParent, np.getConnection()));
-            }
-            bits.append(endNodeLocation);
-            while (bits.length() >= 8) {
-                int next = 0;
-                for (int i = 0; i < 8; i++) {
-                    next = (byte) next << 1;
-                    if (bits.charAt(i) == '1') {
-                        next++;
-                    }
-                }
-                baos.write(next);
-                bits.delete(0, 8);
+                bits.write(stringCodes.getOrDefault(np.getName(), HuffCode.EMPTY));
+                bits.write(pathNodeCodes.getOrDefault(np.getConnection(), HuffCode.EMPTY));
             }
+            bits.write(endNodeCode);
         }
+        bits.flush();
 
-        if (bits.length() > 0) {
-            int next = 0;
-            for (int i = 0;  i < 8; i++) {
-                next = (byte) next << 1;
-                if (i < bits.length() && bits.charAt(i) == '1') {
-                    next++;
-                }
-            }
-            baos.write(next);
-        }
         byte[] result = baos.toByteArray();
         if (TREE_DEBUG) {
             ByteArrayInputStream bais = new ByteArrayInputStream(result);
@@ -775,6 +773,53 @@ public class X509V3ExtensionUtil extends X509Util {
             (byte) value};
     }
 
+    /**
+     * Builds a lookup table mapping each leaf value in the given trie to its Huffman code. The
+     * codes are identical to those produced by {@link #findHuffPath(HuffNode, Object)}, but the
+     * trie is only walked once, rather than once per lookup.
+     *
+     * @param trie
+     *  the root of the trie for which to build a code table
+     *
+     * @return
+     *  a map of leaf values to their codes
+     */
+    private Map<Object, HuffCode> buildCodeTable(HuffNode trie) {
+        Map<Object, HuffCode> codes = new HashMap<>();
+
+        Deque<HuffCodeFrame> stack = new ArrayDeque<>();
+        stack.push(new HuffCodeFrame(trie, 0L, 0));
+
+        while (!stack.isEmpty()) {
+            HuffCodeFrame frame = stack.pop();
+            HuffNode node = frame.node();
+
+            // The root itself never has a code; findHuffPath only matches against children
+            if (frame.length() > 0 && node.getValue() != null) {
+                codes.putIfAbsent(node.getValue(), new HuffCode(frame.bits(), frame.length()));
+            }
+
+            if (node.getLeft() == null && node.getRight() == null) {
+                continue;
+            }
+
+            if (frame.length() >= Long.SIZE) {
+                throw new IllegalStateException("Huffman code length exceeds " + Long.SIZE + " bits");
+            }
+
+            // Push right first so the left subtree is visited first, matching findHuffPath
+            if (node.getRight() != null) {
+                stack.push(new HuffCodeFrame(node.getRight(), (frame.bits() << 1) | 1L, frame.length() + 1));
+            }
+
+            if (node.getLeft() != null) {
+                stack.push(new HuffCodeFrame(node.getLeft(), frame.bits() << 1, frame.length() + 1));
+            }
+        }
+
+        return codes;
+    }
+
     public String findHuffPath(HuffNode trie, Object need) {
         HuffNode left = trie.getLeft();
         HuffNode right = trie.getRight();
@@ -851,34 +896,35 @@ public class X509V3ExtensionUtil extends X509Util {
         if (nodesList.get(0).getValue() instanceof PathNode) {
             nodesList.remove(0);
         }
-        while (nodesList.size() > 1) {
-            int node1 = findSmallest(-1, nodesList);
-            int node2 = findSmallest(node1, nodesList);
-            HuffNode hn1 = nodesList.get(node1);
-            HuffNode hn2 = nodesList.get(node2);
-            HuffNode merged = mergeNodes(hn1, hn2);
-            nodesList.remove(hn1);
-            nodesList.remove(hn2);
-            nodesList.add(merged);
+
+        // Nodes are ordered by weight, with ties going to the node which entered the working set
+        // first. This is the same order the original linear scan over the node list produced,
+        // which the decoder relies on to rebuild an identical trie.
+        PriorityQueue<QueuedHuffNode> queue = new PriorityQueue<>(Math.max(1, nodesList.size()),
+            Comparator.comparingInt((QueuedHuffNode qn) -> qn.node().getWeight())
+                .thenComparingInt(QueuedHuffNode::sequence));
+
+        int sequence = 0;
+        for (HuffNode node : nodesList) {
+            queue.add(new QueuedHuffNode(node, sequence++));
         }
-        if (TREE_DEBUG) {
-            printTrie(nodesList.get(0), 0);
+
+        while (queue.size() > 1) {
+            HuffNode hn1 = queue.poll().node();
+            HuffNode hn2 = queue.poll().node();
+            queue.add(new QueuedHuffNode(mergeNodes(hn1, hn2), sequence++));
         }
-        return nodesList.get(0);
-    }
 
-    private int findSmallest(int exclude, List<HuffNode> nodes) {
-        int smallest = -1;
-        for (int index = 0; index < nodes.size(); index++) {
-            if (index == exclude) {
-                continue;
-            }
-            if (smallest == -1 || nodes.get(index).getWeight() <
-                nodes.get(smallest).getWeight()) {
-                smallest = index;
-            }
+        HuffNode root = queue.poll().node();
+
+        // Leave the list in the same state the original in-place merge did
+        nodesList.clear();
+        nodesList.add(root);
+
+        if (TREE_DEBUG) {
+            printTrie(root, 0);
         }
-        return smallest;
+        return root;
     }
 
     private HuffNode mergeNodes(HuffNode left, HuffNode right) {
@@ -1082,6 +1128,63 @@ public class X509V3ExtensionUtil extends X509Util {
         return baos.toByteArray();
     }
 
+    /**
+     * A Huffman code, stored as the right-aligned bits of a long along with its length in bits.
+     */
+    private record HuffCode(long bits, int length) {
+        static final HuffCode EMPTY = new HuffCode(0L, 0);
+    }
+
+    private record HuffCodeFrame(HuffNode node, long bits, int length) {
+    }
+
+    private record QueuedHuffNode(HuffNode node, int sequence) {
+    }
+
+    /**
+     * Packs Huffman codes into bytes, most significant bit first. Any trailing partial byte is
+     * padded with zero bits on flush.
+     */
+    private static class BitWriter {
+        private final ByteArrayOutputStream out;
+        private long buffer;
+        private int count;
+
+        BitWriter(ByteArrayOutputStream out) {
+            this.out = out;
+        }
+
+        void write(HuffCode code) {
+            int remaining = code.length();
+
+            // Feed the code in chunks of at most 32 bits so the buffer never holds more than
+            // 39 pending bits
+            while (remaining > 0) {
+                int chunk = Math.min(remaining, Integer.SIZE);
+                long mask = (1L << chunk) - 1;
+
+                remaining -= chunk;
+                this.buffer = (this.buffer << chunk) | ((code.bits() >>> remaining) & mask);
+                this.count += chunk;
+
+                while (this.count >= Byte.SIZE) {
+                    this.count -= Byte.SIZE;
+                    this.out.write((int) (this.buffer >>> this.count) & 0xFF);
+                }
+
+                this.buffer &= (1L << this.count) - 1;
+            }
+        }
+
+        void flush() {
+            if (this.count > 0) {
+                this.out.write((int) (this.buffer << (Byte.SIZE - this.count)) & 0xFF);
+                this.buffer = 0;
+                this.count = 0;
+            }
+        }
+    }
+
     public class HuffNode {
         private long id = 0;
         private Object value = null;
@@ -1094,12 +1197,12 @@ public class X509V3ExtensionUtil extends X509Util {
             this.weight = weight;
             this.left = left;
             this.right = right;
-            this.id = huffNodeId++;
+            this.id = huffNodeId.getAndIncrement();
         }
         public HuffNode(Object value, int weight) {
             this.value = value;
             this.weight = weight;
-            this.id = huffNodeId++;
+            this.id = huffNodeId.getAndIncrement();
         }
 
         public Object getValue() {
@@ -1137,7 +1240,7 @@ public class X509V3ExtensionUtil extends X509Util {
         private List<PathNode> parents = new ArrayList<>();
 
         public PathNode() {
-            this.id = pathNodeId++;
+            this.id = pathNodeId.getAndIncrement();
         }
 
         public long getId() {
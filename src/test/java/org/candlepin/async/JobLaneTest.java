@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.ConfigurationException;
+import org.candlepin.config.DevConfig;
+import org.candlepin.config.TestConfig;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+
+
+/**
+ * Test suite for the JobLane class
+ */
+public class JobLaneTest {
+
+    private DevConfig config;
+
+    @BeforeEach
+    public void init() {
+        this.config = TestConfig.defaults();
+    }
+
+    private void setLaneConfig(String lane, String cfgName, String value) {
+        this.config.setProperty(ConfigProperties.laneConfig(lane, cfgName), value);
+    }
+
+    @Test
+    public void testNoLanesConfiguredByDefault() throws Exception {
+        assertTrue(JobLane.fromConfig(this.config).isEmpty());
+    }
+
+    @Test
+    public void testReadsLanesFromConfig() throws Exception {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_LANES, "imports, regen");
+        this.setLaneConfig("imports", ConfigProperties.ASYNC_JOBS_LANE_JOBS,
+            "ImportJob, HypervisorUpdateJob");
+        this.setLaneConfig("imports", ConfigProperties.ASYNC_JOBS_LANE_THREADS, "3");
+        this.setLaneConfig("imports", ConfigProperties.ASYNC_JOBS_LANE_OWNER_FAIRNESS, "true");
+        this.setLaneConfig("regen", ConfigProperties.ASYNC_JOBS_LANE_JOBS, "RegenEnvEntitlementCertsJob");
+
+        List<JobLane> lanes = JobLane.fromConfig(this.config);
+        assertEquals(2, lanes.size());
+
+        JobLane imports = lanes.get(0);
+        assertEquals("imports", imports.getName());
+        assertEquals(Set.of("ImportJob", "HypervisorUpdateJob"), imports.getJobKeys());
+        assertEquals(3, imports.getThreads());
+        assertTrue(imports.isOwnerFairness());
+
+        JobLane regen = lanes.get(1);
+        assertEquals("regen", regen.getName());
+        assertEquals(Set.of("RegenEnvEntitlementCertsJob"), regen.getJobKeys());
+        assertEquals(1, regen.getThreads());
+        assertFalse(regen.isOwnerFairness());
+    }
+
+    @Test
+    public void testJobCannotBeAssignedToMultipleLanes() {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_LANES, "imports, regen");
+        this.setLaneConfig("imports", ConfigProperties.ASYNC_JOBS_LANE_JOBS, "ImportJob");
+        this.setLaneConfig("regen", ConfigProperties.ASYNC_JOBS_LANE_JOBS, "ImportJob");
+
+        assertThrows(ConfigurationException.class, () -> JobLane.fromConfig(this.config));
+    }
+
+    @Test
+    public void testLaneRequiresJobs() {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_LANES, "imports");
+
+        assertThrows(ConfigurationException.class, () -> JobLane.fromConfig(this.config));
+    }
+
+    @Test
+    public void testLaneCannotUseDefaultName() {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_LANES, JobLane.DEFAULT_LANE);
+        this.setLaneConfig(JobLane.DEFAULT_LANE, ConfigProperties.ASYNC_JOBS_LANE_JOBS, "ImportJob");
+
+        assertThrows(ConfigurationException.class, () -> JobLane.fromConfig(this.config));
+    }
+
+    @Test
+    public void testLaneRejectsInvalidThreads() {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_LANES, "imports");
+        this.setLaneConfig("imports", ConfigProperties.ASYNC_JOBS_LANE_JOBS, "ImportJob");
+        this.setLaneConfig("imports", ConfigProperties.ASYNC_JOBS_LANE_THREADS, "0");
+
+        assertThrows(ConfigurationException.class, () -> JobLane.fromConfig(this.config));
+    }
+
+    @Test
+    public void testLaneRejectsNonNumericThreads() {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_LANES, "imports");
+        this.setLaneConfig("imports", ConfigProperties.ASYNC_JOBS_LANE_JOBS, "ImportJob");
+        this.setLaneConfig("imports", ConfigProperties.ASYNC_JOBS_LANE_THREADS, "many");
+
+        assertThrows(ConfigurationException.class, () -> JobLane.fromConfig(this.config));
+    }
+}
@@ -24,6 +24,7 @@ import static org.hamcrest.Matchers.isEmptyOrNullString;
 import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -35,12 +36,14 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyCollection;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
@@ -86,6 +89,7 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -1376,6 +1380,198 @@ public class JobManagerTest {
         assertThat(result.getJobResult(), containsString("Job blocked by the following existing jobs:"));
     }
 
+    @Test
+    public void testJobWaitsIfConstraintFailsAndWaitingIsEnabled() throws Exception {
+        JobConfig builder = JobConfig.forJob(TestJob.JOB_KEY)
+            .addConstraint((curator, job) -> Arrays.asList("job-1", "job-2"))
+            .waitWhenBlocked(true);
+
+        doReturn(Set.of("job-1", "job-2")).when(this.jobCurator).lockActiveJobs(anyCollection());
+
+        JobManager manager = this.createJobManager();
+        manager.initialize();
+        manager.start();
+
+        AsyncJobStatus result = manager.queueJob(builder);
+
+        assertNotNull(result);
+        assertEquals(JobState.WAITING, result.getState());
+        assertEquals(Set.of("job-1", "job-2"), result.getBlockingJobIds());
+        assertThat(result.getJobResult(), containsString("Job waiting on the following existing jobs:"));
+
+        verify(this.dispatcher, never()).postJobMessage(any(JobMessage.class));
+    }
+
+    @Test
+    public void testWaitingJobLocksBlockingJobsBeforePersisting() throws Exception {
+        JobConfig builder = JobConfig.forJob(TestJob.JOB_KEY)
+            .addConstraint((curator, job) -> Arrays.asList("job-1", "job-2"))
+            .waitWhenBlocked(true);
+
+        doReturn(Set.of("job-1", "job-2")).when(this.jobCurator).lockActiveJobs(anyCollection());
+
+        JobManager manager = this.createJobManager();
+        manager.initialize();
+        manager.start();
+
+        manager.queueJob(builder);
+
+        // The blocking jobs must be locked before the waiting job is persisted, or a blocking job
+        // could finish in between without releasing the waiting job
+        InOrder inOrder = inOrder(this.jobCurator);
+        inOrder.verify(this.jobCurator).lockActiveJobs(Set.of("job-1", "job-2"));
+        inOrder.verify(this.jobCurator).create(any(AsyncJobStatus.class));
+    }
+
+    @Test
+    public void testJobWaitsOnlyOnBlockingJobsStillActiveOnceLocked() throws Exception {
+        JobConfig builder = JobConfig.forJob(TestJob.JOB_KEY)
+            .addConstraint((curator, job) -> Arrays.asList("job-1", "job-2"))
+            .waitWhenBlocked(true);
+
+        // job-1 reaches a terminal state after the constraint is tested, but before it is locked
+        doReturn(Set.of("job-2")).when(this.jobCurator).lockActiveJobs(anyCollection());
+
+        JobManager manager = this.createJobManager();
+        manager.initialize();
+        manager.start();
+
+        AsyncJobStatus result = manager.queueJob(builder);
+
+        assertNotNull(result);
+        assertEquals(JobState.WAITING, result.getState());
+        assertEquals(Set.of("job-2"), result.getBlockingJobIds());
+
+        verify(this.dispatcher, never()).postJobMessage(any(JobMessage.class));
+    }
+
+    @Test
+    public void testJobIsQueuedIfBlockingJobsFinishBeforeWaiting() throws Exception {
+        JobConfig builder = JobConfig.forJob(TestJob.JOB_KEY)
+            .addConstraint((curator, job) -> Arrays.asList("job-1", "job-2"))
+            .waitWhenBlocked(true);
+
+        // Both blocking jobs reach a terminal state after the constraint is tested, and will not
+        // release the job, as it is not yet waiting
+        doReturn(Set.of()).when(this.jobCurator).lockActiveJobs(anyCollection());
+
+        JobManager manager = this.createJobManager();
+        manager.initialize();
+        manager.start();
+
+        AsyncJobStatus result = manager.queueJob(builder);
+
+        assertNotNull(result);
+        assertEquals(JobState.QUEUED, result.getState());
+        assertEquals(Set.of(), result.getBlockingJobIds());
+
+        verify(this.dispatcher, times(1)).postJobMessage(any(JobMessage.class));
+    }
+
+    @Test
+    public void testJobIsCoalescedIntoPendingJob() throws Exception {
+        Map<String, Object> pendingArgs = Map.of("arg1", "val1", "ids", new String[] { "a", "b" });
+        AsyncJobStatus pending = this.createJobStatus("pending_job", null, JobState.QUEUED)
+            .setJobKey(TestJob.JOB_KEY)
+            .setJobArguments(this.buildJobArguments(pendingArgs));
+
+        doReturn(List.of(pending)).when(this.jobCurator)
+            .fetchPendingJobsByArguments(eq(TestJob.JOB_KEY), any(Map.class));
+
+        JobConfig builder = JobConfig.forJob(TestJob.JOB_KEY)
+            .setCoalescer(JobCoalescers.unionByArguments("ids", "arg1"))
+            .setJobArgument("arg1", "val1")
+            .setJobArgument("ids", new String[] { "b", "c" });
+
+        JobManager manager = this.createJobManager();
+        manager.initialize();
+        manager.start();
+
+        AsyncJobStatus result = manager.queueJob(builder);
+
+        assertNotNull(result);
+        assertEquals("pending_job", result.getId());
+        assertEquals(JobState.QUEUED, result.getState());
+        assertArrayEquals(new String[] { "a", "b", "c" },
+            result.getJobArguments().getAs("ids", String[].class));
+
+        verify(this.jobCurator, never()).create(any(AsyncJobStatus.class));
+        verify(this.dispatcher, never()).postJobMessage(any(JobMessage.class));
+    }
+
+    @Test
+    public void testJobIsNotCoalescedIntoStartedJob() throws Exception {
+        AsyncJobStatus started = this.createJobStatus("started_job", null, JobState.RUNNING)
+            .setJobKey(TestJob.JOB_KEY)
+            .setJobArguments(this.buildJobArguments(Map.of("arg1", "val1")));
+
+        doReturn(List.of(started)).when(this.jobCurator)
+            .fetchPendingJobsByArguments(eq(TestJob.JOB_KEY), any(Map.class));
+
+        JobConfig builder = JobConfig.forJob(TestJob.JOB_KEY)
+            .setCoalescer(JobCoalescers.replaceByArguments("arg1"))
+            .setJobArgument("arg1", "val1");
+
+        JobManager manager = this.createJobManager();
+        manager.initialize();
+        manager.start();
+
+        AsyncJobStatus result = manager.queueJob(builder);
+
+        assertNotNull(result);
+        assertNotEquals("started_job", result.getId());
+        assertEquals(JobState.QUEUED, result.getState());
+
+        verify(this.jobCurator, times(1)).create(any(AsyncJobStatus.class));
+        verify(this.dispatcher, times(1)).postJobMessage(any(JobMessage.class));
+    }
+
+    @Test
+    public void testFinishedJobReleasesWaitingJobs() throws Exception {
+        AsyncJobStatus status = this.createJobStatus(JOB_ID)
+            .setJobKey(TestJob.JOB_KEY)
+            .setState(JobState.QUEUED);
+
+        AsyncJobStatus waiting = this.createJobStatus("waiting_job", null, JobState.WAITING)
+            .setJobKey(TestJob.JOB_KEY)
+            .setBlockingJobIds(List.of(JOB_ID));
+
+        doReturn(mock(AsyncJob.class)).when(injector).getInstance(TestJob.class);
+        doReturn(List.of(waiting)).when(this.jobCurator).fetchReleasableJobs(JOB_ID);
+        this.injectMockedJobStatus(status);
+
+        JobManager manager = createJobManager();
+        manager.initialize();
+        manager.start();
+
+        manager.executeJob(new JobMessage(JOB_ID, TestJob.JOB_KEY));
+
+        assertEquals(JobState.FINISHED, status.getState());
+        assertEquals(JobState.QUEUED, waiting.getState());
+
+        ArgumentCaptor<JobMessage> captor = ArgumentCaptor.forClass(JobMessage.class);
+        verify(this.dispatcher, times(1)).postJobMessage(captor.capture());
+        assertEquals("waiting_job", captor.getValue().getJobId());
+    }
+
+    @Test
+    public void testCanceledJobReleasesWaitingJobs() throws Exception {
+        AsyncJobStatus status = this.createJobStatus(JOB_ID, null, JobState.QUEUED);
+        AsyncJobStatus waiting = this.createJobStatus("waiting_job", null, JobState.WAITING)
+            .setJobKey(TestJob.JOB_KEY)
+            .setBlockingJobIds(List.of(JOB_ID));
+
+        doReturn(List.of(waiting)).when(this.jobCurator).fetchReleasableJobs(JOB_ID);
+        this.injectMockedJobStatus(status);
+
+        JobManager manager = this.createJobManager();
+        AsyncJobStatus output = manager.cancelJob(JOB_ID);
+
+        assertEquals(JobState.CANCELED, output.getState());
+        assertEquals(JobState.QUEUED, waiting.getState());
+        verify(this.dispatcher, times(1)).postJobMessage(any(JobMessage.class));
+    }
+
     @Test
     public void jobStatusFound() {
         String jobId = "jobId";
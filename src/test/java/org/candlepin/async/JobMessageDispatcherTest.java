@@ -21,6 +21,7 @@ import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -43,6 +44,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
@@ -205,6 +207,56 @@ public class JobMessageDispatcherTest {
         verify(producer, times(1)).send(eq(address), any(CPMMessage.class));
     }
 
+    @Test
+    public void testAppliesLaneOwnerProperty() throws Exception {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_LANES, "imports");
+        this.config.setProperty(ConfigProperties.laneConfig("imports", ConfigProperties.ASYNC_JOBS_LANE_JOBS),
+            "job_key-1");
+        this.config.setProperty(
+            ConfigProperties.laneConfig("imports", ConfigProperties.ASYNC_JOBS_LANE_OWNER_FAIRNESS), "true");
+
+        JobMessageDispatcher dispatcher = this.buildJobMessageDispatcher();
+
+        CPMSession session = this.mockCPMSession();
+        CPMProducer producer = mock(CPMProducer.class);
+
+        doReturn(session).when(this.sessionFactory).createSession(any(CPMSessionConfig.class));
+        doReturn(producer).when(session).createProducer(any(CPMProducerConfig.class));
+
+        dispatcher.postJobMessage(new JobMessage("job_id-1", "job_key-1", "owner_id-1"));
+
+        ArgumentCaptor<CPMMessage> captor = ArgumentCaptor.forClass(CPMMessage.class);
+        verify(producer, times(1)).send(anyString(), captor.capture());
+
+        CPMMessage message = captor.getValue();
+        verify(message, times(1)).setProperty("owner_id", "owner_id-1");
+    }
+
+    @Test
+    public void testDoesNotApplyLaneSettingsToUnassignedJobs() throws Exception {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_LANES, "imports");
+        this.config.setProperty(ConfigProperties.laneConfig("imports", ConfigProperties.ASYNC_JOBS_LANE_JOBS),
+            "job_key-1");
+        this.config.setProperty(
+            ConfigProperties.laneConfig("imports", ConfigProperties.ASYNC_JOBS_LANE_OWNER_FAIRNESS), "true");
+
+        JobMessageDispatcher dispatcher = this.buildJobMessageDispatcher();
+
+        CPMSession session = this.mockCPMSession();
+        CPMProducer producer = mock(CPMProducer.class);
+
+        doReturn(session).when(this.sessionFactory).createSession(any(CPMSessionConfig.class));
+        doReturn(producer).when(session).createProducer(any(CPMProducerConfig.class));
+
+        dispatcher.postJobMessage(new JobMessage("job_id-2", "job_key-2", "owner_id-1"));
+
+        ArgumentCaptor<CPMMessage> captor = ArgumentCaptor.forClass(CPMMessage.class);
+        verify(producer, times(1)).send(anyString(), captor.capture());
+
+        CPMMessage message = captor.getValue();
+        verify(message, never()).setProperty(eq("owner_id"), anyString());
+    }
+
     @Test
     public void testThreadsReuseSessions() throws Exception {
         JobMessageDispatcher dispatcher = this.buildJobMessageDispatcher();
@@ -17,8 +17,12 @@ package org.candlepin.async;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.RETURNS_SELF;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.argThat;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
@@ -36,6 +40,7 @@ import org.candlepin.messaging.CPMConsumerConfig;
 import org.candlepin.messaging.CPMException;
 import org.candlepin.messaging.CPMMessage;
 import org.candlepin.messaging.CPMMessageListener;
+import org.candlepin.messaging.CPMProducer;
 import org.candlepin.messaging.CPMSession;
 import org.candlepin.messaging.CPMSessionConfig;
 import org.candlepin.messaging.CPMSessionFactory;
@@ -51,6 +56,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 
 
 public class JobMessageReceiverTest {
@@ -141,6 +153,20 @@ public class JobMessageReceiverTest {
         return message;
     }
 
+    private CPMMessage createCPMMessage(String jobId, String jobKey, String ownerId) {
+        CPMMessage message = this.createCPMMessage(jobId, jobKey);
+
+        doReturn(jobKey).when(message).getProperty("job_key");
+        doReturn(ownerId).when(message).getProperty("owner_id");
+        doReturn("job").when(message).getAddress();
+
+        return message;
+    }
+
+    private JobMessage jobMessageFor(String jobId) {
+        return argThat(jobMessage -> jobMessage != null && jobId.equals(jobMessage.getJobId()));
+    }
+
     private JobMessageReceiver buildJobMessageReceiver() throws Exception {
         JobMessageReceiver receiver = new JobMessageReceiver(this.config, this.cpmSessionFactory,
             this.mapper, this.unitOfWork);
@@ -197,6 +223,52 @@ public class JobMessageReceiverTest {
         assertEquals(filter, config.getMessageFilter());
     }
 
+    @Test
+    public void testCreatesConsumersForEachJobLane() throws Exception {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_LANES, "imports");
+        this.config.setProperty(ConfigProperties.laneConfig("imports", ConfigProperties.ASYNC_JOBS_LANE_JOBS),
+            "ImportJob, Job'Key");
+        this.config.setProperty(
+            ConfigProperties.laneConfig("imports", ConfigProperties.ASYNC_JOBS_LANE_THREADS), "2");
+
+        ArgumentCaptor<CPMConsumerConfig> captor = ArgumentCaptor.forClass(CPMConsumerConfig.class);
+
+        this.buildJobMessageReceiver();
+
+        verify(this.session, times(3)).createConsumer(captor.capture());
+
+        List<String> filters = captor.getAllValues().stream()
+            .map(CPMConsumerConfig::getMessageFilter)
+            .toList();
+
+        assertEquals(List.of(
+            "job_key IN ('ImportJob', 'Job''Key')",
+            "job_key IN ('ImportJob', 'Job''Key')",
+            "job_key NOT IN ('ImportJob', 'Job''Key')"), filters);
+    }
+
+    @Test
+    public void testJobLaneFiltersIncludeConfiguredFilter() throws Exception {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_RECEIVE_FILTER, "node = 'a'");
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_LANES, "imports");
+        this.config.setProperty(ConfigProperties.laneConfig("imports", ConfigProperties.ASYNC_JOBS_LANE_JOBS),
+            "ImportJob");
+
+        ArgumentCaptor<CPMConsumerConfig> captor = ArgumentCaptor.forClass(CPMConsumerConfig.class);
+
+        this.buildJobMessageReceiver();
+
+        verify(this.session, times(2)).createConsumer(captor.capture());
+
+        List<String> filters = captor.getAllValues().stream()
+            .map(CPMConsumerConfig::getMessageFilter)
+            .toList();
+
+        assertEquals(List.of(
+            "(node = 'a') AND job_key IN ('ImportJob')",
+            "(node = 'a') AND job_key NOT IN ('ImportJob')"), filters);
+    }
+
     @Test
     public void testMessageAckAndSessionCommitOnSuccess() throws Exception {
         CPMMessage message = this.createCPMMessage("test_id", "test_key");
@@ -355,4 +427,74 @@ public class JobMessageReceiverTest {
         verify(this.unitOfWork, times(1)).end();
     }
 
+    @Test
+    public void testBackloggedOwnerDoesNotHoldUpOtherOwnersInFairLane() throws Exception {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_LANES, "imports");
+        this.config.setProperty(ConfigProperties.laneConfig("imports", ConfigProperties.ASYNC_JOBS_LANE_JOBS),
+            "ImportJob");
+        this.config.setProperty(
+            ConfigProperties.laneConfig("imports", ConfigProperties.ASYNC_JOBS_LANE_THREADS), "2");
+        this.config.setProperty(
+            ConfigProperties.laneConfig("imports", ConfigProperties.ASYNC_JOBS_LANE_OWNER_FAIRNESS), "true");
+
+        ArgumentCaptor<CPMMessageListener> captor = ArgumentCaptor.forClass(CPMMessageListener.class);
+
+        this.buildJobMessageReceiver();
+
+        // Both consumers of the lane share the lane's listener, which is created before the default's
+        verify(this.consumer, times(3)).setMessageListener(captor.capture());
+        CPMMessageListener listener = captor.getAllValues().get(0);
+
+        CPMProducer producer = mock(CPMProducer.class);
+        CPMMessage deferred = mock(CPMMessage.class, RETURNS_SELF);
+        doReturn(producer).when(this.session).createProducer();
+        doReturn(deferred).when(this.session).createMessage();
+
+        // The first job of the backlogged owner keeps its consumer busy until released
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        doAnswer(iom -> {
+            running.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(this.jobManager).executeJob(this.jobMessageFor("job-a1"));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<?> first = executor.submit(() -> listener.handleMessage(this.session, this.consumer,
+                this.createCPMMessage("job-a1", "ImportJob", "owner-a")));
+
+            assertTrue(running.await(10, TimeUnit.SECONDS));
+
+            // The rest of the backlog is deferred, while the small owner's job queued behind it runs
+            listener.handleMessage(this.session, this.consumer,
+                this.createCPMMessage("job-a2", "ImportJob", "owner-a"));
+            listener.handleMessage(this.session, this.consumer,
+                this.createCPMMessage("job-b1", "ImportJob", "owner-b"));
+
+            verify(this.jobManager, never()).executeJob(this.jobMessageFor("job-a2"));
+            verify(this.jobManager, times(1)).executeJob(this.jobMessageFor("job-b1"));
+
+            verify(producer, times(1)).send("job", deferred);
+            verify(deferred, times(1)).setProperty("owner_id", "owner-a");
+            verify(deferred, times(1)).setProperty("deferrals", "1");
+            verify(deferred, times(1)).setScheduledDeliveryTime(anyLong());
+
+            release.countDown();
+            first.get(10, TimeUnit.SECONDS);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        // Once its running job completes, the owner's deferred job is run when delivered again
+        listener.handleMessage(this.session, this.consumer,
+            this.createCPMMessage("job-a2", "ImportJob", "owner-a"));
+
+        verify(this.jobManager, times(1)).executeJob(this.jobMessageFor("job-a2"));
+        verify(producer, times(1)).send(anyString(), any(CPMMessage.class));
+    }
+
 }
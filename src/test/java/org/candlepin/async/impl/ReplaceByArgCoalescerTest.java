@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.candlepin.async.JobArguments;
+import org.candlepin.async.JobCoalescer;
+import org.candlepin.async.JobConfig;
+import org.candlepin.model.AsyncJobStatus;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+
+
+/**
+ * Test suite for the ReplaceByArgCoalescer class
+ */
+public class ReplaceByArgCoalescerTest {
+
+    private JobArguments buildJobArguments(String... pairs) {
+        JobConfig config = JobConfig.forJob("dummy_job");
+
+        for (int i = 0; i < pairs.length; i += 2) {
+            config.setJobArgument(pairs[i], pairs[i + 1]);
+        }
+
+        return config.getJobArguments();
+    }
+
+    @Test
+    public void testRequiresParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new ReplaceByArgCoalescer());
+        assertThrows(IllegalArgumentException.class, () -> new ReplaceByArgCoalescer("param1", null));
+        assertThrows(IllegalArgumentException.class, () -> new ReplaceByArgCoalescer("param1", ""));
+    }
+
+    @Test
+    public void testGetMatchingArguments() {
+        AsyncJobStatus inbound = new AsyncJobStatus()
+            .setJobKey("test_key")
+            .setJobArguments(this.buildJobArguments("param1", "val1", "param2", "val2", "data", "abc"));
+
+        JobCoalescer coalescer = new ReplaceByArgCoalescer("param1", "param2");
+        Map<String, String> output = coalescer.getMatchingArguments(inbound);
+
+        assertNotNull(output);
+        assertEquals(2, output.size());
+        assertEquals(JobArguments.serialize("val1"), output.get("param1"));
+        assertEquals(JobArguments.serialize("val2"), output.get("param2"));
+    }
+
+    @Test
+    public void testJobsWithUnsetParametersCannotBeCoalesced() {
+        AsyncJobStatus inbound = new AsyncJobStatus()
+            .setJobKey("test_key")
+            .setJobArguments(this.buildJobArguments("param1", "val1"));
+
+        JobCoalescer coalescer = new ReplaceByArgCoalescer("param1", "param2");
+
+        assertNull(coalescer.getMatchingArguments(inbound));
+    }
+
+    @Test
+    public void testCoalesceReplacesPendingArguments() {
+        JobArguments pending = this.buildJobArguments("param1", "val1", "data", "old");
+        JobArguments inbound = this.buildJobArguments("param1", "val1", "data", "new");
+
+        JobCoalescer coalescer = new ReplaceByArgCoalescer("param1");
+        JobArguments output = coalescer.coalesce(pending, inbound);
+
+        assertNotNull(output);
+        assertEquals("val1", output.getAsString("param1"));
+        assertEquals("new", output.getAsString("data"));
+    }
+
+    @Test
+    public void testCoalesceRejectsMismatchedArguments() {
+        JobArguments pending = this.buildJobArguments("param1", "val1", "data", "old");
+        JobArguments inbound = this.buildJobArguments("param1", "val2", "data", "new");
+
+        JobCoalescer coalescer = new ReplaceByArgCoalescer("param1");
+
+        assertNull(coalescer.coalesce(pending, inbound));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.candlepin.async.JobArguments;
+import org.candlepin.async.JobCoalescer;
+import org.candlepin.async.JobConfig;
+
+import org.junit.jupiter.api.Test;
+
+
+
+/**
+ * Test suite for the UnionByArgCoalescer class
+ */
+public class UnionByArgCoalescerTest {
+
+    private JobArguments buildJobArguments(String envId, boolean lazy, String... contentIds) {
+        return JobConfig.forJob("dummy_job")
+            .setJobArgument("env_id", envId)
+            .setJobArgument("lazy", lazy)
+            .setJobArgument("content_ids", contentIds)
+            .getJobArguments();
+    }
+
+    @Test
+    public void testRequiresUnionParameter() {
+        assertThrows(IllegalArgumentException.class, () -> new UnionByArgCoalescer(null, "env_id"));
+        assertThrows(IllegalArgumentException.class, () -> new UnionByArgCoalescer("", "env_id"));
+    }
+
+    @Test
+    public void testCoalesceMergesArrayArgument() {
+        JobArguments pending = this.buildJobArguments("env-1", true, "c1", "c2");
+        JobArguments inbound = this.buildJobArguments("env-1", true, "c2", "c3");
+
+        JobCoalescer coalescer = new UnionByArgCoalescer("content_ids", "env_id", "lazy");
+        JobArguments output = coalescer.coalesce(pending, inbound);
+
+        assertNotNull(output);
+        assertEquals("env-1", output.getAsString("env_id"));
+        assertEquals(true, output.getAsBoolean("lazy"));
+        assertArrayEquals(new String[] { "c1", "c2", "c3" }, output.getAs("content_ids", String[].class));
+    }
+
+    @Test
+    public void testCoalesceRejectsMismatchedArguments() {
+        JobArguments pending = this.buildJobArguments("env-1", true, "c1");
+        JobArguments inbound = this.buildJobArguments("env-1", false, "c2");
+
+        JobCoalescer coalescer = new UnionByArgCoalescer("content_ids", "env_id", "lazy");
+
+        assertNull(coalescer.coalesce(pending, inbound));
+    }
+}
@@ -21,10 +21,12 @@ import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
@@ -68,6 +70,8 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 
@@ -540,4 +544,91 @@ public class HypervisorUpdateJobTest {
         assertEquals(currentDate, updated.getRHCloudProfileModified());
     }
 
+    private void enableBulkReconciliation() {
+        when(config.getBoolean(eq(ConfigProperties.HYPERVISOR_BULK_RECONCILIATION))).thenReturn(true);
+        when(config.getInt(eq(ConfigProperties.HYPERVISOR_RECONCILIATION_BATCH_SIZE))).thenReturn(10);
+        when(consumerCurator.getConsumersBySystemUuids(anyString(), anyCollection())).thenReturn(Map.of());
+    }
+
+    @Test
+    public void bulkReconciliationCreatesMissingHosts() throws JobExecutionException {
+        this.enableBulkReconciliation();
+        when(ownerCurator.getByKey(eq("joe"))).thenReturn(owner);
+        when(consumerCurator.getHostConsumersMap(eq(owner), Mockito.<String>anyIterable()))
+            .thenReturn(new VirtConsumerMap());
+
+        JobExecutionContext ctx = mock(JobExecutionContext.class);
+        when(ctx.getJobArguments()).thenReturn(createJobConfig("bulkReporterId").getJobArguments());
+
+        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator,
+            hypervisorUpdateAction, objectMapper);
+        job.execute(ctx);
+
+        ArgumentCaptor<Consumer> createCaptor = ArgumentCaptor.forClass(Consumer.class);
+        verify(consumerCurator, times(1)).create(createCaptor.capture(), eq(false));
+        verify(consumerCurator, times(1)).flushInBatches();
+        verify(consumerCurator, never()).getExistingConsumerByHypervisorIdOrUuid(anyString(), anyString(),
+            nullable(String.class));
+
+        Consumer created = createCaptor.getValue();
+        assertEquals("uuid_999", created.getHypervisorId().getHypervisorId());
+        assertEquals("bulkReporterId", created.getHypervisorId().getReporterId());
+    }
+
+    @Test
+    public void bulkReconciliationUpdatesKnownHosts() throws JobExecutionException {
+        this.enableBulkReconciliation();
+        when(ownerCurator.getByKey(eq("joe"))).thenReturn(owner);
+
+        Consumer hypervisor = new Consumer();
+        hypervisor.ensureUUID();
+        hypervisor.setName("hypervisor_name");
+        hypervisor.setOwner(owner);
+        hypervisor.setHypervisorId(new HypervisorId().setHypervisorId("uuid_999"));
+
+        VirtConsumerMap knownHosts = new VirtConsumerMap();
+        knownHosts.add("uuid_999", hypervisor);
+        when(consumerCurator.getHostConsumersMap(eq(owner), Mockito.<String>anyIterable()))
+            .thenReturn(knownHosts);
+
+        JobExecutionContext ctx = mock(JobExecutionContext.class);
+        when(ctx.getJobArguments()).thenReturn(createJobConfig(null).getJobArguments());
+
+        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator,
+            hypervisorUpdateAction, objectMapper);
+        job.execute(ctx);
+
+        ArgumentCaptor<Iterable<Consumer>> lockCaptor = ArgumentCaptor.forClass(Iterable.class);
+        verify(consumerCurator).lock(lockCaptor.capture());
+        assertEquals(List.of(hypervisor), lockCaptor.getValue());
+
+        verify(consumerResource).checkForFactsUpdate(eq(hypervisor), any(ConsumerDTO.class));
+        verify(consumerCurator, times(1)).update(hypervisor, false);
+        verify(consumerCurator, never()).create(any(Consumer.class), anyBoolean());
+        verify(consumerCurator, never()).update(any(Consumer.class));
+        assertEquals("hypervisor_999", hypervisor.getName());
+    }
+
+    @Test
+    public void bulkReconciliationRetriesFailedBatchPerHost() throws JobExecutionException {
+        this.enableBulkReconciliation();
+        when(ownerCurator.getByKey(eq("joe"))).thenReturn(owner);
+        when(consumerCurator.getHostConsumersMap(eq(owner), Mockito.<String>anyIterable()))
+            .thenReturn(new VirtConsumerMap());
+        doThrow(new RuntimeException("constraint violation")).when(consumerCurator).flushInBatches();
+
+        JobExecutionContext ctx = mock(JobExecutionContext.class);
+        when(ctx.getJobArguments()).thenReturn(createJobConfig(null).getJobArguments());
+
+        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator,
+            hypervisorUpdateAction, objectMapper);
+        job.execute(ctx);
+
+        // The failed batch is discarded and its host reconciled in its own transaction
+        verify(consumerCurator).clear();
+        verify(consumerCurator).getExistingConsumerByHypervisorIdOrUuid(anyString(), eq("uuid_999"),
+            nullable(String.class));
+        verify(consumerCurator, times(1)).create(any(Consumer.class));
+        verify(sink).rollback();
+    }
 }
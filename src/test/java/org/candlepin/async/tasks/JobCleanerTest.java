@@ -131,6 +131,7 @@ public class JobCleanerTest {
 
         verify(this.jobManager, times(1)).cleanupJobs(termCaptor.capture());
         verify(this.jobManager, times(2)).abortNonTerminalJobs(nontermCaptor.capture());
+        verify(this.jobManager, times(1)).releaseWaitingJobs();
 
         AsyncJobStatusQueryArguments termArgs = termCaptor.getValue();
         AsyncJobStatusQueryArguments nontermArgs = nontermCaptor.getAllValues().get(0);
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async.tasks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import org.candlepin.async.JobExecutionContext;
+import org.candlepin.async.JobExecutionException;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.model.AsyncJobStatus;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.Entitlement;
+import org.candlepin.model.Owner;
+import org.candlepin.model.Pool;
+import org.candlepin.model.Product;
+import org.candlepin.test.DatabaseTestFixture;
+import org.candlepin.test.TestUtil;
+import org.candlepin.util.Util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+
+
+public class PoolQuantityRepairJobTest extends DatabaseTestFixture {
+
+    private Owner owner;
+    private Pool pool;
+
+    @BeforeEach
+    public void setUp() {
+        this.owner = this.createOwner();
+        Product product = this.createProduct(TestUtil.createProduct());
+        Consumer consumer = this.createConsumer(this.owner, this.createConsumerType(true));
+
+        this.pool = this.createPool(this.owner, product, 10L, TestUtil.createDate(2000, 1, 1),
+            TestUtil.createDate(2100, 1, 1));
+
+        // Created directly, so the pool's quantities are not updated
+        Entitlement entitlement = new Entitlement(this.pool, consumer, this.owner, 3);
+        entitlement.setId(Util.generateDbUUID());
+        this.entitlementCurator.create(entitlement);
+    }
+
+    private PoolQuantityRepairJob createJobInstance() {
+        return new PoolQuantityRepairJob(this.config, this.ownerCurator, this.poolCurator);
+    }
+
+    private JobExecutionContext createJobContext(Owner owner) {
+        PoolQuantityRepairJob.PoolQuantityRepairJobConfig jobConfig = PoolQuantityRepairJob.createJobConfig();
+        if (owner != null) {
+            jobConfig.setOwner(owner);
+        }
+
+        AsyncJobStatus status = mock(AsyncJobStatus.class);
+        doReturn(jobConfig.getJobArguments()).when(status).getJobArguments();
+
+        return spy(new JobExecutionContext(status));
+    }
+
+    @Test
+    public void testRepairsDriftedPools() throws Exception {
+        JobExecutionContext context = this.createJobContext(this.owner);
+        this.createJobInstance().execute(context);
+
+        this.poolCurator.refresh(this.pool);
+        assertEquals(3L, this.pool.getConsumed());
+        assertEquals(3L, this.pool.getExported());
+        assertTrue(this.poolCurator.findPoolQuantityDrift(this.owner).isEmpty());
+
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(context).setJobResult(captor.capture());
+        assertEquals("Pool Quantity Repair completed successfully. 1 pools with drifted quantities " +
+            "found in 1 of 1 organizations; 1 repaired.", captor.getValue());
+    }
+
+    @Test
+    public void testChecksAllOwnersWhenNoOwnerIsSet() throws Exception {
+        this.createJobInstance().execute(this.createJobContext(null));
+
+        this.poolCurator.refresh(this.pool);
+        assertEquals(3L, this.pool.getConsumed());
+        assertEquals(3L, this.pool.getExported());
+    }
+
+    @Test
+    public void testOnlyReportsWhenRepairIsDisabled() throws Exception {
+        this.config.setProperty(ConfigProperties.jobConfig(PoolQuantityRepairJob.JOB_KEY,
+            PoolQuantityRepairJob.CFG_REPAIR), "false");
+
+        this.createJobInstance().execute(this.createJobContext(this.owner));
+
+        this.poolCurator.refresh(this.pool);
+        assertEquals(0L, this.pool.getConsumed());
+        assertEquals(0L, this.pool.getExported());
+        assertEquals(1, this.poolCurator.findPoolQuantityDrift(this.owner).size());
+    }
+
+    @Test
+    public void testFailsForUnknownOwner() {
+        Owner unknown = TestUtil.createOwner("unknown-owner");
+
+        assertThrows(JobExecutionException.class,
+            () -> this.createJobInstance().execute(this.createJobContext(unknown)));
+    }
+}
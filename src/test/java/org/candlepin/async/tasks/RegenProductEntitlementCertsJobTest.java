@@ -20,7 +20,9 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyBoolean;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -31,6 +33,7 @@ import org.candlepin.async.JobConfig;
 import org.candlepin.async.JobExecutionContext;
 import org.candlepin.async.JobExecutionException;
 import org.candlepin.controller.EntitlementCertificateGenerator;
+import org.candlepin.controller.EntitlementCertificateGenerator.RegenerationProgressListener;
 import org.candlepin.model.Owner;
 import org.candlepin.model.OwnerCurator;
 import org.candlepin.util.Util;
@@ -149,6 +152,48 @@ public class RegenProductEntitlementCertsJobTest {
             .regenerateCertificatesOf(owner3, productId, lazyRegen);
     }
 
+    @Test
+    public void testNonLazyExecutionRegeneratesInChunksWithProgress() throws JobExecutionException {
+        String productId = "test_prod_id";
+        Set<String> productIds = Collections.singleton(productId);
+
+        Owner owner1 = new Owner()
+            .setKey("test_owner_key-1")
+            .setDisplayName("test_owner_name-1");
+        Owner owner2 = new Owner()
+            .setKey("test_owner_key-2")
+            .setDisplayName("test_owner_name-2");
+
+        Set<Owner> matchingOwners = Util.asSet(owner1, owner2);
+        doReturn(matchingOwners).when(this.ownerCurator).getOwnersWithProducts(productIds);
+
+        doAnswer(invocation -> {
+            RegenerationProgressListener listener = invocation.getArgument(2);
+            listener.onProgress(250, 300);
+            listener.onProgress(300, 300);
+
+            return 300;
+        }).when(this.ecGenerator).regenerateCertificatesInChunks(any(), any(), any());
+
+        JobConfig config = RegenProductEntitlementCertsJob.createJobConfig()
+            .setProductId(productId)
+            .setLazyRegeneration(false);
+
+        JobExecutionContext context = mock(JobExecutionContext.class);
+        doReturn(config.getJobArguments()).when(context).getJobArguments();
+
+        RegenProductEntitlementCertsJob testJob = this.buildTestJob();
+        testJob.execute(context);
+
+        verify(this.ecGenerator, times(1)).regenerateCertificatesInChunks(eq(matchingOwners),
+            eq(productIds), any(RegenerationProgressListener.class));
+        verify(this.ecGenerator, never())
+            .regenerateCertificatesOf(any(Owner.class), anyString(), anyBoolean());
+
+        verify(context, times(1)).setJobProgress(anyString(), eq(250), eq(300), eq(productId));
+        verify(context, times(1)).setJobProgress(anyString(), eq(300), eq(300), eq(productId));
+    }
+
     @Test
     public void testExecutionWithNoMatchingOwners() throws JobExecutionException {
         String productId = "test_prod_id";
@@ -14,12 +14,15 @@
  */
 package org.candlepin.audit;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -47,6 +50,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -54,6 +58,8 @@ import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 
 import java.io.StringWriter;
+import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 
@@ -198,6 +204,88 @@ public class DefaultEventMessageReceiverTest {
         verify(clientSession).isClosed();
     }
 
+    private void primeEnvelope(int count) throws Exception {
+        EventEnvelope.Writer writer = new EventEnvelope.Writer(mapper);
+        for (int i = 0; i < count; ++i) {
+            Event event = new Event();
+            event.setId(String.valueOf(i));
+            event.setType(Event.Type.CREATED);
+            event.setTarget(Event.Target.CONSUMER);
+
+            writer.add(event);
+        }
+
+        doReturn(ClientMessage.BYTES_TYPE).when(this.clientMessage).getType();
+        doReturn(true).when(this.clientMessage).containsProperty(EventEnvelope.ENVELOPE_KEY);
+        this.activeMQBuffer.writeBytes(writer.finish());
+    }
+
+    @Test
+    public void envelopedEventsAreEachPassedToListener() throws Exception {
+        this.primeEnvelope(3);
+
+        receiver.onMessage(clientMessage);
+        verify(eventListener, times(3)).onEvent(any(Event.class));
+        verify(clientMessage).acknowledge();
+        verify(clientSession).commit();
+        verify(clientSession, never()).rollback();
+    }
+
+    @Test
+    public void envelopeIsRolledBackWhenListenerFails() throws Exception {
+        this.primeEnvelope(3);
+
+        doNothing().doThrow(new RuntimeException("Forced")).when(eventListener).onEvent(any(Event.class));
+        receiver.onMessage(clientMessage);
+        verify(eventListener, times(2)).onEvent(any(Event.class));
+        verify(clientSession).rollback();
+        verify(clientSession, never()).commit();
+    }
+
+    @Test
+    public void redeliveredEnvelopeResumesAfterProcessedEvents() throws Exception {
+        this.primeEnvelope(3);
+        doReturn(42L).when(this.clientMessage).getMessageID();
+
+        doNothing().doThrow(new RuntimeException("Forced")).doNothing()
+            .when(eventListener).onEvent(any(Event.class));
+
+        receiver.onMessage(clientMessage);
+        verify(clientSession).rollback();
+        verify(clientSession, never()).commit();
+
+        // The broker redelivers the same message in full
+        this.activeMQBuffer.readerIndex(0);
+        receiver.onMessage(clientMessage);
+        verify(clientSession).commit();
+
+        // The first event was processed by the failed delivery, and is not passed on again
+        ArgumentCaptor<Event> captor = ArgumentCaptor.forClass(Event.class);
+        verify(eventListener, times(4)).onEvent(captor.capture());
+        assertEquals(List.of("0", "1", "1", "2"), captor.getAllValues().stream()
+            .map(Event::getId)
+            .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void envelopeProgressIsNotSharedBetweenMessages() throws Exception {
+        this.primeEnvelope(2);
+        doReturn(42L).when(this.clientMessage).getMessageID();
+        doNothing().doThrow(new RuntimeException("Forced")).when(eventListener).onEvent(any(Event.class));
+
+        receiver.onMessage(clientMessage);
+        verify(clientSession).rollback();
+
+        // A different envelope is processed from its first event
+        this.activeMQBuffer.readerIndex(0);
+        doReturn(43L).when(this.clientMessage).getMessageID();
+        doNothing().when(eventListener).onEvent(any(Event.class));
+
+        receiver.onMessage(clientMessage);
+        verify(clientSession).commit();
+        verify(eventListener, times(4)).onEvent(any(Event.class));
+    }
+
     private String eventJson() throws Exception {
         StringWriter sw = new StringWriter();
         Event e = new Event();
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.audit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.candlepin.util.ObjectMapperFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+
+
+/**
+ * Test suite for the EventEnvelope class
+ */
+public class EventEnvelopeTest {
+
+    private ObjectMapper mapper;
+
+    @BeforeEach
+    public void init() {
+        this.mapper = ObjectMapperFactory.getObjectMapper();
+    }
+
+    /**
+     * An event which cannot be serialized
+     */
+    private static class BrokenEvent extends Event {
+        @Override
+        public String getConsumerUuid() {
+            throw new IllegalStateException("induced exception");
+        }
+    }
+
+    private Event buildEvent(String id, Event.Type type, Event.Target target) {
+        return this.populate(new Event(), id, type, target);
+    }
+
+    private Event populate(Event event, String id, Event.Type type, Event.Target target) {
+        event.setId(id);
+        event.setType(type);
+        event.setTarget(target);
+        event.setConsumerUuid("consumer-" + id);
+
+        return event;
+    }
+
+    private List<Event> readEnvelope(byte[] body) throws IOException {
+        List<Event> events = new ArrayList<>();
+        EventEnvelope.read(this.mapper, body, events::add);
+
+        return events;
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        EventEnvelope.Writer writer = new EventEnvelope.Writer(this.mapper);
+        writer.add(this.buildEvent("1", Event.Type.CREATED, Event.Target.CONSUMER));
+        writer.add(this.buildEvent("2", Event.Type.DELETED, Event.Target.ENTITLEMENT));
+        writer.add(this.buildEvent("3", Event.Type.MODIFIED, Event.Target.POOL));
+
+        assertEquals(3, writer.size());
+
+        List<Event> events = this.readEnvelope(writer.finish());
+
+        assertEquals(3, events.size());
+        assertEquals("1", events.get(0).getId());
+        assertEquals(Event.Type.CREATED, events.get(0).getType());
+        assertEquals(Event.Target.CONSUMER, events.get(0).getTarget());
+        assertEquals("consumer-1", events.get(0).getConsumerUuid());
+        assertEquals("2", events.get(1).getId());
+        assertEquals(Event.Target.ENTITLEMENT, events.get(1).getTarget());
+        assertEquals("3", events.get(2).getId());
+        assertEquals(Event.Type.MODIFIED, events.get(2).getType());
+    }
+
+    @Test
+    public void testReadSkipsProcessedEvents() throws Exception {
+        EventEnvelope.Writer writer = new EventEnvelope.Writer(this.mapper);
+        writer.add(this.buildEvent("1", Event.Type.CREATED, Event.Target.CONSUMER));
+        writer.add(this.buildEvent("2", Event.Type.DELETED, Event.Target.ENTITLEMENT));
+        writer.add(this.buildEvent("3", Event.Type.MODIFIED, Event.Target.POOL));
+
+        List<Event> events = new ArrayList<>();
+        int count = EventEnvelope.read(this.mapper, writer.finish(), 2, events::add);
+
+        assertEquals(3, count);
+        assertEquals(1, events.size());
+        assertEquals("3", events.get(0).getId());
+        assertEquals("consumer-3", events.get(0).getConsumerUuid());
+    }
+
+    @Test
+    public void testEntriesCarryTypeAndTarget() throws Exception {
+        EventEnvelope.Writer writer = new EventEnvelope.Writer(this.mapper);
+        writer.add(this.buildEvent("1", Event.Type.EXPIRED, Event.Target.SUBSCRIPTION));
+
+        byte[] body = writer.finish();
+        JsonNode entries = this.mapper.readTree(new GZIPInputStream(new ByteArrayInputStream(body)));
+
+        assertTrue(entries.isArray());
+        assertEquals(1, entries.size());
+        assertEquals("EXPIRED", entries.get(0).get(EventEnvelope.TYPE_FIELD).asText());
+        assertEquals("SUBSCRIPTION", entries.get(0).get(EventEnvelope.TARGET_FIELD).asText());
+        assertEquals("1", entries.get(0).get(EventEnvelope.EVENT_FIELD).get("id").asText());
+    }
+
+    @Test
+    public void testWriterIsReusableAfterFinish() throws Exception {
+        EventEnvelope.Writer writer = new EventEnvelope.Writer(this.mapper);
+        writer.add(this.buildEvent("1", Event.Type.CREATED, Event.Target.CONSUMER));
+        byte[] first = writer.finish();
+
+        assertTrue(writer.isEmpty());
+
+        writer.add(this.buildEvent("2", Event.Type.CREATED, Event.Target.CONSUMER));
+        writer.add(this.buildEvent("3", Event.Type.CREATED, Event.Target.CONSUMER));
+        byte[] second = writer.finish();
+
+        assertEquals(1, this.readEnvelope(first).size());
+
+        List<Event> events = this.readEnvelope(second);
+        assertEquals(2, events.size());
+        assertEquals("2", events.get(0).getId());
+        assertEquals("3", events.get(1).getId());
+    }
+
+    @Test
+    public void testFailedEventDoesNotCorruptEnvelope() throws Exception {
+        EventEnvelope.Writer writer = new EventEnvelope.Writer(this.mapper);
+        writer.add(this.buildEvent("1", Event.Type.CREATED, Event.Target.CONSUMER));
+
+        Event broken = this.populate(new BrokenEvent(), "2", Event.Type.CREATED, Event.Target.CONSUMER);
+        assertThrows(Exception.class, () -> writer.add(broken));
+
+        writer.add(this.buildEvent("3", Event.Type.CREATED, Event.Target.CONSUMER));
+        assertEquals(2, writer.size());
+
+        List<Event> events = this.readEnvelope(writer.finish());
+        assertEquals(2, events.size());
+        assertEquals("1", events.get(0).getId());
+        assertEquals("3", events.get(1).getId());
+    }
+
+    @Test
+    public void testFinishRequiresEvents() {
+        EventEnvelope.Writer writer = new EventEnvelope.Writer(this.mapper);
+
+        assertThrows(IllegalStateException.class, writer::finish);
+    }
+
+    @Test
+    public void testDiscardDropsPendingEvents() throws Exception {
+        EventEnvelope.Writer writer = new EventEnvelope.Writer(this.mapper);
+        writer.add(this.buildEvent("1", Event.Type.CREATED, Event.Target.CONSUMER));
+        writer.discard();
+
+        assertTrue(writer.isEmpty());
+
+        writer.add(this.buildEvent("2", Event.Type.CREATED, Event.Target.CONSUMER));
+        List<Event> events = this.readEnvelope(writer.finish());
+
+        assertEquals(1, events.size());
+        assertEquals("2", events.get(0).getId());
+    }
+
+    @Test
+    public void testReadRejectsUncompressedBody() {
+        byte[] body = "[]".getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(IOException.class, () -> this.readEnvelope(body));
+    }
+}
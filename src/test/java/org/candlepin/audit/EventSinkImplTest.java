@@ -25,11 +25,14 @@ import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.candlepin.async.impl.ActiveMQSessionFactory;
 import org.candlepin.auth.Principal;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.DevConfig;
 import org.candlepin.config.TestConfig;
 import org.candlepin.controller.mode.CandlepinModeManager;
 import org.candlepin.controller.mode.CandlepinModeManager.Mode;
@@ -67,6 +70,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 
+import java.util.ArrayList;
 import java.util.List;
 
 
@@ -257,4 +261,64 @@ public class EventSinkImplTest {
         verify(mockClientProducer).send(any(ClientMessage.class));
     }
 
+    @Test
+    public void envelopedEventsAreSentInBatches() throws Exception {
+        DevConfig config = TestConfig.defaults();
+        config.setProperty(ConfigProperties.AUDIT_EVENT_ENVELOPE_SIZE, "2");
+
+        List<ActiveMQBuffer> buffers = new ArrayList<>();
+        when(mockClientSession.createMessage(anyByte(), anyBoolean())).thenAnswer(invocation -> {
+            ClientMessage message = mock(ClientMessage.class);
+            ActiveMQBuffer buffer = ActiveMQBuffers.fixedBuffer(2000);
+            when(message.getBodyBuffer()).thenReturn(buffer);
+
+            buffers.add(buffer);
+            return message;
+        });
+
+        EventSinkImpl sink = new EventSinkImpl(eventFilter, factory, mapper, config,
+            this.amqSessionFactory, mockModeManager);
+
+        sink.emitOwnerCreated(this.o);
+        sink.emitOwnerCreated(this.o);
+        sink.emitOwnerCreated(this.o);
+
+        // The first envelope is queued as soon as it fills; the rest waits for the events to be sent
+        verify(mockClientProducer, times(1)).send(any(ClientMessage.class));
+
+        sink.sendEvents();
+        verify(mockClientProducer, times(2)).send(any(ClientMessage.class));
+        verify(mockClientSession).commit();
+
+        List<Event> events = new ArrayList<>();
+        for (ActiveMQBuffer buffer : buffers) {
+            byte[] body = new byte[buffer.readableBytes()];
+            buffer.readBytes(body);
+
+            EventEnvelope.read(mapper, body, events::add);
+        }
+
+        assertEquals(2, buffers.size());
+        assertEquals(3, events.size());
+        for (Event event : events) {
+            assertEquals(Event.Type.CREATED, event.getType());
+            assertEquals(Event.Target.OWNER, event.getTarget());
+        }
+    }
+
+    @Test
+    public void envelopedEventsAreDiscardedOnRollback() throws Exception {
+        DevConfig config = TestConfig.defaults();
+        config.setProperty(ConfigProperties.AUDIT_EVENT_ENVELOPE_SIZE, "10");
+
+        EventSinkImpl sink = new EventSinkImpl(eventFilter, factory, mapper, config,
+            this.amqSessionFactory, mockModeManager);
+
+        sink.emitOwnerCreated(this.o);
+        sink.rollback();
+
+        verify(mockClientProducer, never()).send(any(ClientMessage.class));
+        verify(mockClientSession).rollback();
+    }
+
 }
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.bind;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.controller.PoolManager;
+import org.candlepin.guice.CandlepinRequestScope;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.ConsumerType;
+import org.candlepin.model.ConsumerType.ConsumerTypeEnum;
+import org.candlepin.model.Entitlement;
+import org.candlepin.model.Owner;
+import org.candlepin.model.Pool;
+import org.candlepin.model.Product;
+import org.candlepin.policy.EntitlementRefusedException;
+import org.candlepin.test.DatabaseTestFixture;
+import org.candlepin.test.TestUtil;
+
+import com.google.inject.persist.UnitOfWork;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+
+
+/**
+ * Exercises the bind chain against the database, where concurrent binds contend for the same
+ * pools through real transactions.
+ */
+public class BindChainTest extends DatabaseTestFixture {
+
+    private Owner owner;
+    private ConsumerType systemType;
+
+    @BeforeEach
+    public void init() throws Exception {
+        super.init(false);
+
+        this.config.setProperty(ConfigProperties.BIND_QUANTITY_RESERVATION, "true");
+
+        this.owner = this.createOwner();
+        this.systemType = this.consumerTypeCurator.getByLabel(ConsumerTypeEnum.SYSTEM.getLabel(), true);
+    }
+
+    /**
+     * Binds the consumer to a single entitlement of the pool in a unit of work and request scope of
+     * its own, as a request handled by another thread would.
+     *
+     * @return
+     *  true if the consumer was entitled; false if the bind was refused
+     */
+    private boolean bind(String consumerId, String poolId) throws Exception {
+        UnitOfWork unitOfWork = this.injector.getInstance(UnitOfWork.class);
+        CandlepinRequestScope requestScope = this.injector.getInstance(CandlepinRequestScope.class);
+
+        unitOfWork.begin();
+        requestScope.enter();
+
+        try {
+            Consumer consumer = this.consumerCurator.get(consumerId);
+            this.injector.getInstance(PoolManager.class).entitleByPools(consumer, Map.of(poolId, 1));
+
+            return true;
+        }
+        catch (EntitlementRefusedException e) {
+            return false;
+        }
+        finally {
+            requestScope.exit();
+            unitOfWork.end();
+        }
+    }
+
+    @Test
+    public void testConcurrentBindsDoNotOverconsumePool() throws Exception {
+        int quantity = 5;
+        int binds = 20;
+
+        Product product = this.createProduct();
+        Pool pool = this.createPool(this.owner, product, (long) quantity,
+            TestUtil.createDateOffset(-1, 0, 0), TestUtil.createDateOffset(1, 0, 0));
+
+        // Every bind is released at once, so they all contend for the pool's remaining quantity
+        CyclicBarrier barrier = new CyclicBarrier(binds);
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int i = 0; i < binds; ++i) {
+            String consumerId = this.createConsumer(this.owner, this.systemType).getId();
+
+            tasks.add(() -> {
+                barrier.await(10, TimeUnit.SECONDS);
+                return this.bind(consumerId, pool.getId());
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(binds);
+        int entitled = 0;
+
+        try {
+            for (Future<Boolean> result : executor.invokeAll(tasks)) {
+                if (result.get()) {
+                    ++entitled;
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(quantity, entitled);
+
+        this.poolCurator.clear();
+        Pool updated = this.poolCurator.get(pool.getId());
+
+        long granted = 0;
+        for (Entitlement entitlement : updated.getEntitlements()) {
+            granted += entitlement.getQuantity();
+        }
+
+        assertEquals(quantity, granted);
+        assertEquals((long) quantity, updated.getConsumed());
+    }
+}
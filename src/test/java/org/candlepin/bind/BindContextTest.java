@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.bind;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.candlepin.model.CandlepinQuery;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.ConsumerCurator;
+import org.candlepin.model.ConsumerType;
+import org.candlepin.model.ConsumerType.ConsumerTypeEnum;
+import org.candlepin.model.ConsumerTypeCurator;
+import org.candlepin.model.Owner;
+import org.candlepin.model.OwnerCurator;
+import org.candlepin.model.Pool;
+import org.candlepin.model.PoolCurator;
+import org.candlepin.model.Product;
+import org.candlepin.test.TestUtil;
+
+import org.hibernate.LockMode;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.resource.transaction.spi.TransactionStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.xnap.commons.i18n.I18n;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.PersistenceException;
+import javax.persistence.QueryTimeoutException;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+
+
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class BindContextTest {
+
+    @Mock
+    private PoolCurator poolCurator;
+    @Mock
+    private ConsumerCurator consumerCurator;
+    @Mock
+    private ConsumerTypeCurator consumerTypeCurator;
+    @Mock
+    private OwnerCurator ownerCurator;
+    @Mock
+    private I18n i18n;
+    @Mock
+    private Session session;
+    @Mock
+    private Transaction transaction;
+
+    private Consumer consumer;
+    private Pool pool1;
+    private Pool pool2;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        Owner owner = TestUtil.createOwner();
+        Product product = TestUtil.createProduct();
+
+        ConsumerType ctype = new ConsumerType(ConsumerTypeEnum.SYSTEM);
+        ctype.setId("test-ctype");
+        this.consumer = new Consumer()
+            .setOwner(owner)
+            .setType(ctype);
+        doReturn(ctype).when(consumerTypeCurator).getConsumerType(consumer);
+
+        this.pool1 = TestUtil.createPool(owner, product, 10);
+        this.pool1.setId("pool-1");
+        this.pool2 = TestUtil.createPool(owner, product, 10);
+        this.pool2.setId("pool-2");
+
+        CandlepinQuery<Pool> query = mock(CandlepinQuery.class);
+        doReturn(List.of(pool1, pool2).iterator()).when(query).iterator();
+        doReturn(query).when(poolCurator).listAllByIds(any());
+
+        doReturn(session).when(poolCurator).currentSession();
+        doReturn(transaction).when(session).getTransaction();
+        doReturn(TransactionStatus.ACTIVE).when(transaction).getStatus();
+    }
+
+    private BindContext buildContext() {
+        Map<String, Integer> quantities = new HashMap<>();
+        quantities.put(pool1.getId(), 2);
+        quantities.put(pool2.getId(), 3);
+
+        BindContext context = new BindContext(poolCurator, consumerCurator, consumerTypeCurator, ownerCurator,
+            i18n, consumer, quantities, true);
+
+        context.getPoolQuantities();
+        return context;
+    }
+
+    @Test
+    public void testReservePools() {
+        doReturn(true).when(poolCurator).reservePoolQuantity(anyString(), anyLong(), anyBoolean());
+        BindContext context = this.buildContext();
+
+        assertTrue(context.reservePools());
+        assertTrue(context.isQuantityReserved());
+
+        verify(poolCurator).reservePoolQuantity(pool1.getId(), 2, false);
+        verify(poolCurator).reservePoolQuantity(pool2.getId(), 3, false);
+        verify(poolCurator).refresh(any(Iterable.class));
+        verify(poolCurator, never()).lockAndLoad(any(Iterable.class));
+        verify(poolCurator, never()).releasePoolQuantity(anyString(), anyLong(), anyBoolean());
+    }
+
+    @Test
+    public void testReservePoolsReleasesPartialReservationWhenRefused() {
+        doReturn(true).when(poolCurator).reservePoolQuantity(pool1.getId(), 2, false);
+        doReturn(false).when(poolCurator).reservePoolQuantity(pool2.getId(), 3, false);
+        BindContext context = this.buildContext();
+
+        assertFalse(context.reservePools());
+        assertFalse(context.isQuantityReserved());
+
+        verify(poolCurator).releasePoolQuantity(pool1.getId(), 2, false);
+        verify(poolCurator, never()).releasePoolQuantity(pool2.getId(), 3, false);
+    }
+
+    @Test
+    public void testReservePoolsReleasesPartialReservationOnTimeout() {
+        doReturn(true).when(poolCurator).reservePoolQuantity(pool1.getId(), 2, false);
+        doThrow(new QueryTimeoutException()).when(poolCurator).reservePoolQuantity(pool2.getId(), 3, false);
+        BindContext context = this.buildContext();
+
+        assertFalse(context.reservePools());
+        assertFalse(context.isQuantityReserved());
+
+        verify(poolCurator).releasePoolQuantity(pool1.getId(), 2, false);
+    }
+
+    @Test
+    public void testReservePoolsFallsBackWhenNoConnectionIsAvailable() {
+        doReturn(true).when(poolCurator).reservePoolQuantity(pool1.getId(), 2, false);
+        doThrow(new PersistenceException("Unable to acquire JDBC Connection"))
+            .when(poolCurator).reservePoolQuantity(pool2.getId(), 3, false);
+        doThrow(new PersistenceException("Unable to acquire JDBC Connection"))
+            .when(poolCurator).releasePoolQuantity(pool1.getId(), 2, false);
+        BindContext context = this.buildContext();
+
+        assertFalse(context.reservePools());
+        assertFalse(context.isQuantityReserved());
+
+        verify(poolCurator).releasePoolQuantity(pool1.getId(), 2, false);
+    }
+
+    @Test
+    public void testReservePoolsSkipsPoolsLockedByTransaction() {
+        doReturn(true).when(session).contains(pool2);
+        doReturn(LockMode.PESSIMISTIC_WRITE).when(session).getCurrentLockMode(pool2);
+        BindContext context = this.buildContext();
+
+        assertFalse(context.reservePools());
+
+        verify(poolCurator, never()).reservePoolQuantity(anyString(), anyLong(), anyBoolean());
+    }
+
+    @Test
+    public void testReleaseReservationsOnlyReleasesOnce() {
+        doReturn(true).when(poolCurator).reservePoolQuantity(anyString(), anyLong(), anyBoolean());
+        BindContext context = this.buildContext();
+
+        assertTrue(context.reservePools());
+        context.releaseReservations();
+        context.releaseReservations();
+
+        assertFalse(context.isQuantityReserved());
+        verify(poolCurator, times(1)).releasePoolQuantity(pool1.getId(), 2, false);
+        verify(poolCurator, times(1)).releasePoolQuantity(pool2.getId(), 3, false);
+    }
+
+    @Test
+    public void testReservationsReleasedWhenTransactionRollsBack() {
+        doReturn(true).when(poolCurator).reservePoolQuantity(anyString(), anyLong(), anyBoolean());
+        BindContext context = this.buildContext();
+
+        assertTrue(context.reservePools());
+
+        ArgumentCaptor<Synchronization> captor = ArgumentCaptor.forClass(Synchronization.class);
+        verify(transaction).registerSynchronization(captor.capture());
+        captor.getValue().afterCompletion(Status.STATUS_ROLLEDBACK);
+
+        verify(poolCurator).releasePoolQuantity(pool1.getId(), 2, false);
+        verify(poolCurator).releasePoolQuantity(pool2.getId(), 3, false);
+    }
+
+    @Test
+    public void testReservationsKeptWhenTransactionCommits() {
+        doReturn(true).when(poolCurator).reservePoolQuantity(anyString(), anyLong(), anyBoolean());
+        BindContext context = this.buildContext();
+
+        assertTrue(context.reservePools());
+
+        ArgumentCaptor<Synchronization> captor = ArgumentCaptor.forClass(Synchronization.class);
+        verify(transaction).registerSynchronization(captor.capture());
+        captor.getValue().afterCompletion(Status.STATUS_COMMITTED);
+
+        verify(poolCurator, never()).releasePoolQuantity(anyString(), anyLong(), anyBoolean());
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.ConfigurationException;
+import org.candlepin.config.DevConfig;
+import org.candlepin.config.TestConfig;
+import org.candlepin.policy.js.compliance.ComplianceStatus;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Date;
+import java.util.Map;
+
+public class ComplianceStatusCacheTest {
+
+    private DevConfig config;
+
+    @BeforeEach
+    public void beforeEach() {
+        config = TestConfig.defaults();
+        config.setProperty(ConfigProperties.CACHE_COMPLIANCE_STATUS_ENABLED, "true");
+    }
+
+    @ParameterizedTest(name = "{displayName} {index}: {0}")
+    @ValueSource(longs = { 0L, -1000L })
+    public void testCacheCreationWithInvalidDuration(long duration) {
+        config.setProperty(ConfigProperties.CACHE_COMPLIANCE_STATUS_TTL, String.valueOf(duration));
+
+        assertThrows(ConfigurationException.class, () -> new ComplianceStatusCache(config));
+    }
+
+    @Test
+    public void testCacheCreationWithInvalidMaxEntries() {
+        config.setProperty(ConfigProperties.CACHE_COMPLIANCE_STATUS_MAX_ENTRIES, "-1");
+
+        assertThrows(ConfigurationException.class, () -> new ComplianceStatusCache(config));
+    }
+
+    @Test
+    public void testGetAndPutWithNullArguments() throws Exception {
+        ComplianceStatusCache cache = new ComplianceStatusCache(config);
+        Date now = new Date();
+        ComplianceStatus status = new ComplianceStatus(now);
+
+        assertThrows(IllegalArgumentException.class, () -> cache.get("site", null, "hash", now));
+        assertThrows(IllegalArgumentException.class, () -> cache.get("site", "uuid", null, now));
+        assertThrows(IllegalArgumentException.class, () -> cache.get("site", "uuid", "hash", null));
+        assertThrows(IllegalArgumentException.class, () -> cache.put(null, "hash", status, null));
+        assertThrows(IllegalArgumentException.class, () -> cache.put("uuid", null, status, null));
+        assertThrows(IllegalArgumentException.class, () -> cache.put("uuid", "hash", null, null));
+    }
+
+    @Test
+    public void testGetReturnsStatusWithMatchingHash() throws Exception {
+        ComplianceStatusCache cache = new ComplianceStatusCache(config);
+        Date now = new Date();
+        ComplianceStatus status = new ComplianceStatus(now);
+
+        assertNull(cache.get("site", "uuid", "hash", now));
+
+        cache.put("uuid", "hash", status, null);
+
+        assertSame(status, cache.get("site", "uuid", "hash", now));
+        assertNull(cache.get("site", "uuid", "other_hash", now));
+        assertNull(cache.get("site", "other_uuid", "hash", now));
+    }
+
+    @Test
+    public void testGetIgnoresExpiredStatus() throws Exception {
+        ComplianceStatusCache cache = new ComplianceStatusCache(config);
+        Date now = new Date();
+        Date validUntil = new Date(now.getTime() + 60000);
+        ComplianceStatus status = new ComplianceStatus(now);
+
+        cache.put("uuid", "hash", status, validUntil);
+
+        assertSame(status, cache.get("site", "uuid", "hash", now));
+        assertNull(cache.get("site", "uuid", "hash", validUntil));
+        assertNull(cache.get("site", "uuid", "hash", new Date(validUntil.getTime() + 1)));
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        ComplianceStatusCache cache = new ComplianceStatusCache(config);
+        Date now = new Date();
+
+        cache.put("uuid_1", "hash", new ComplianceStatus(now), null);
+        cache.put("uuid_2", "hash", new ComplianceStatus(now), null);
+
+        cache.invalidate("uuid_1");
+        cache.invalidate("unknown");
+        cache.invalidate(null);
+
+        assertNull(cache.get("site", "uuid_1", "hash", now));
+        assertEquals(1, cache.getInvalidationCount());
+
+        cache.removeAll();
+
+        assertNull(cache.get("site", "uuid_2", "hash", now));
+        assertEquals(0, cache.getEstimatedSize());
+    }
+
+    @Test
+    public void testStatisticsAreCountedPerCallSite() throws Exception {
+        ComplianceStatusCache cache = new ComplianceStatusCache(config);
+        Date now = new Date();
+
+        assertEquals(1.0, cache.getHitRate());
+
+        cache.put("uuid", "hash", new ComplianceStatus(now), null);
+
+        cache.get("enricher", "uuid", "hash", now);
+        cache.get("enricher", "uuid", "hash", now);
+        cache.get("enricher", "uuid", "other_hash", now);
+        cache.get("update", "uuid", "other_hash", now);
+        cache.get(null, "uuid", "hash", now);
+
+        assertEquals(3, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(0.6, cache.getHitRate(), 0.0001);
+        assertEquals(Map.of("enricher", 2L, ComplianceStatusCache.DEFAULT_CALL_SITE, 1L),
+            cache.getCallSiteHitCounts());
+        assertEquals(Map.of("enricher", 1L, "update", 1L), cache.getCallSiteMissCounts());
+    }
+
+}
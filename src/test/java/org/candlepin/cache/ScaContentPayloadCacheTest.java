@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.ConfigurationException;
+import org.candlepin.config.DevConfig;
+import org.candlepin.config.TestConfig;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ScaContentPayloadCacheTest {
+
+    private DevConfig config;
+
+    @BeforeEach
+    public void beforeEach() {
+        config = TestConfig.defaults();
+        config.setProperty(ConfigProperties.CACHE_SCA_CONTENT_PAYLOAD_ENABLED, "true");
+    }
+
+    private ScaContentPayloadKey key(String ownerId, long version, String... envIds) {
+        return new ScaContentPayloadKey(ownerId, version, List.of(envIds), "x86_64", null);
+    }
+
+    @ParameterizedTest(name = "{displayName} {index}: {0}")
+    @ValueSource(longs = { 0L, -1000L })
+    public void testCacheCreationWithInvalidDuration(long duration) {
+        config.setProperty(ConfigProperties.CACHE_SCA_CONTENT_PAYLOAD_TTL, String.valueOf(duration));
+
+        assertThrows(ConfigurationException.class, () -> new ScaContentPayloadCache(config));
+    }
+
+    @Test
+    public void testCacheCreationWithInvalidMaxSize() {
+        config.setProperty(ConfigProperties.CACHE_SCA_CONTENT_PAYLOAD_MAX_SIZE, "-1");
+
+        assertThrows(ConfigurationException.class, () -> new ScaContentPayloadCache(config));
+    }
+
+    @Test
+    public void testGetWithNullKeyOrBuilder() throws Exception {
+        ScaContentPayloadCache cache = new ScaContentPayloadCache(config);
+
+        assertThrows(IllegalArgumentException.class, () -> cache.get(null, k -> "payload"));
+        assertThrows(IllegalArgumentException.class, () -> cache.get(key("owner", 1L), null));
+    }
+
+    @Test
+    public void testPayloadIsBuiltOncePerKey() throws Exception {
+        ScaContentPayloadCache cache = new ScaContentPayloadCache(config);
+        AtomicInteger builds = new AtomicInteger();
+
+        String first = cache.get(key("owner", 1L, "env1"), k -> "payload-" + builds.incrementAndGet());
+        String second = cache.get(key("owner", 1L, "env1"), k -> "payload-" + builds.incrementAndGet());
+
+        assertEquals("payload-1", first);
+        assertSame(first, second);
+        assertEquals(1, builds.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testKeysDifferByVersionAndEnvironmentOrder() throws Exception {
+        ScaContentPayloadCache cache = new ScaContentPayloadCache(config);
+
+        cache.get(key("owner", 1L, "env1", "env2"), k -> "a");
+
+        assertNull(cache.getIfPresent(key("owner", 2L, "env1", "env2")));
+        assertNull(cache.getIfPresent(key("owner", 1L, "env2", "env1")));
+        assertEquals("a", cache.getIfPresent(key("owner", 1L, "env1", "env2")));
+    }
+
+    @Test
+    public void testConcurrentMissesAreCoalesced() throws Exception {
+        ScaContentPayloadCache cache = new ScaContentPayloadCache(config);
+        AtomicInteger builds = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        int threads = 8;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; ++i) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get(key("owner", 1L), k -> {
+                        builds.incrementAndGet();
+                        return "payload";
+                    });
+                }));
+            }
+
+            start.countDown();
+            for (Future<String> future : futures) {
+                assertEquals("payload", future.get(10, TimeUnit.SECONDS));
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, builds.get());
+    }
+
+    @Test
+    public void testFailedBuildIsNotCached() throws Exception {
+        ScaContentPayloadCache cache = new ScaContentPayloadCache(config);
+
+        assertThrows(UncheckedIOException.class, () -> cache.get(key("owner", 1L), k -> {
+            throw new UncheckedIOException(new IOException("oops"));
+        }));
+
+        assertNull(cache.getIfPresent(key("owner", 1L)));
+        assertEquals(1, cache.getLoadFailureCount());
+    }
+
+    @Test
+    public void testRemoveOwner() throws Exception {
+        ScaContentPayloadCache cache = new ScaContentPayloadCache(config);
+
+        cache.get(key("owner1", 1L), k -> "a");
+        cache.get(key("owner1", 2L, "env"), k -> "b");
+        cache.get(key("owner2", 1L), k -> "c");
+
+        cache.removeOwner("owner1");
+
+        assertNull(cache.getIfPresent(key("owner1", 1L)));
+        assertNull(cache.getIfPresent(key("owner1", 2L, "env")));
+        assertEquals("c", cache.getIfPresent(key("owner2", 1L)));
+    }
+}
@@ -60,6 +60,8 @@ public final class TestConfig {
         defaults.put(DatabaseConfigFactory.QUERY_PARAMETER_LIMIT, "32000");
         defaults.put(ConfigProperties.CACHE_ANON_CERT_CONTENT_TTL, "120000");
         defaults.put(ConfigProperties.CACHE_ANON_CERT_CONTENT_MAX_ENTRIES, "10000");
+        // Don't spin up background key generation for every PKI utility built by the tests
+        defaults.put(ConfigProperties.PKI_KEYPAIR_POOL_SIZE, "0");
 
         return defaults;
     }
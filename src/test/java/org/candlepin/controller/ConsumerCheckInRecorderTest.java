@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.DevConfig;
+import org.candlepin.config.TestConfig;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.ConsumerCurator;
+
+import com.google.inject.persist.UnitOfWork;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.Date;
+import java.util.Map;
+
+
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class ConsumerCheckInRecorderTest {
+
+    @Mock
+    private ConsumerCurator consumerCurator;
+    @Mock
+    private UnitOfWork unitOfWork;
+
+    private DevConfig config;
+    private ConsumerCheckInRecorder recorder;
+
+    @BeforeEach
+    public void setUp() {
+        this.config = TestConfig.defaults();
+
+        // Long enough that the periodic flush never runs during a test
+        this.config.setProperty(ConfigProperties.CONSUMER_CHECKIN_FLUSH_INTERVAL, "3600");
+        this.config.setProperty(ConfigProperties.CONSUMER_CHECKIN_FLUSH_THRESHOLD, "1000");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (this.recorder != null) {
+            this.recorder.shutdown();
+        }
+    }
+
+    private ConsumerCheckInRecorder buildRecorder() {
+        this.recorder = new ConsumerCheckInRecorder(this.config, this.consumerCurator, this.unitOfWork);
+        return this.recorder;
+    }
+
+    private Consumer buildConsumer(String id) {
+        Consumer consumer = new Consumer();
+        consumer.setId(id);
+
+        return consumer;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Date> captureBatch() {
+        ArgumentCaptor<Map<String, Date>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(this.consumerCurator).updateLastCheckins(captor.capture());
+
+        return captor.getValue();
+    }
+
+    @Test
+    public void testCheckInsWrittenImmediatelyWithoutFlushInterval() {
+        this.config.setProperty(ConfigProperties.CONSUMER_CHECKIN_FLUSH_INTERVAL, "0");
+        ConsumerCheckInRecorder recorder = this.buildRecorder();
+
+        Consumer consumer = this.buildConsumer("consumer-1");
+        Date checkIn = new Date();
+
+        recorder.recordCheckIn(consumer, checkIn);
+
+        verify(this.consumerCurator).updateLastCheckin(consumer, checkIn);
+        assertEquals(0, recorder.getPendingCount());
+    }
+
+    @Test
+    public void testCheckInsHeldUntilFlush() {
+        ConsumerCheckInRecorder recorder = this.buildRecorder();
+
+        recorder.recordCheckIn(this.buildConsumer("consumer-1"));
+        recorder.recordCheckIn(this.buildConsumer("consumer-2"));
+
+        verify(this.consumerCurator, never()).updateLastCheckin(any(Consumer.class), any(Date.class));
+        verify(this.consumerCurator, never()).updateLastCheckins(anyMap());
+        assertEquals(2, recorder.getPendingCount());
+
+        assertEquals(2, recorder.flush());
+
+        Map<String, Date> batch = this.captureBatch();
+        assertEquals(2, batch.size());
+        assertEquals(0, recorder.getPendingCount());
+
+        verify(this.unitOfWork).begin();
+        verify(this.unitOfWork).end();
+    }
+
+    @Test
+    public void testLatestCheckInKeptPerConsumer() {
+        ConsumerCheckInRecorder recorder = this.buildRecorder();
+        Consumer consumer = this.buildConsumer("consumer-1");
+
+        Date early = new Date(1000);
+        Date late = new Date(2000);
+
+        recorder.recordCheckIn(consumer, late);
+        recorder.recordCheckIn(consumer, early);
+
+        assertEquals(1, recorder.getPendingCount());
+        recorder.flush();
+
+        assertEquals(Map.of("consumer-1", late), this.captureBatch());
+    }
+
+    @Test
+    public void testFlushWithNoPendingCheckInsDoesNothing() {
+        ConsumerCheckInRecorder recorder = this.buildRecorder();
+
+        assertEquals(0, recorder.flush());
+        verify(this.consumerCurator, never()).updateLastCheckins(anyMap());
+    }
+
+    @Test
+    public void testThresholdTriggersFlush() {
+        this.config.setProperty(ConfigProperties.CONSUMER_CHECKIN_FLUSH_THRESHOLD, "3");
+        ConsumerCheckInRecorder recorder = this.buildRecorder();
+
+        recorder.recordCheckIn(this.buildConsumer("consumer-1"));
+        recorder.recordCheckIn(this.buildConsumer("consumer-2"));
+        recorder.recordCheckIn(this.buildConsumer("consumer-3"));
+
+        verify(this.consumerCurator, timeout(5000)).updateLastCheckins(anyMap());
+    }
+
+    @Test
+    public void testFailedFlushRetainsCheckIns() {
+        ConsumerCheckInRecorder recorder = this.buildRecorder();
+        Consumer consumer = this.buildConsumer("consumer-1");
+
+        Date failed = new Date(1000);
+        Date later = new Date(2000);
+
+        recorder.recordCheckIn(consumer, failed);
+        doThrow(new RuntimeException("database unavailable"))
+            .when(this.consumerCurator).updateLastCheckins(anyMap());
+
+        assertEquals(0, recorder.flush());
+        assertEquals(1, recorder.getPendingCount());
+        verify(this.unitOfWork).end();
+
+        // A check-in made since the failure must not be overwritten by the retried one
+        recorder.recordCheckIn(consumer, later);
+        doReturn(1).when(this.consumerCurator).updateLastCheckins(anyMap());
+
+        assertEquals(1, recorder.flush());
+        verify(this.consumerCurator).updateLastCheckins(Map.of("consumer-1", later));
+        assertEquals(0, recorder.getPendingCount());
+    }
+
+    @Test
+    public void testShutdownFlushesPendingCheckIns() {
+        ConsumerCheckInRecorder recorder = this.buildRecorder();
+        Consumer consumer = this.buildConsumer("consumer-1");
+
+        recorder.recordCheckIn(consumer);
+        recorder.shutdown();
+
+        assertEquals(1, this.captureBatch().size());
+        assertEquals(0, recorder.getPendingCount());
+
+        // Check-ins made after shutdown are written directly
+        Date checkIn = new Date();
+        recorder.recordCheckIn(consumer, checkIn);
+        verify(this.consumerCurator).updateLastCheckin(consumer, checkIn);
+    }
+
+    @Test
+    public void testInvalidSettingsRejected() {
+        this.config.setProperty(ConfigProperties.CONSUMER_CHECKIN_FLUSH_INTERVAL, "-1");
+        assertThrows(IllegalArgumentException.class, this::buildRecorder);
+
+        this.config.setProperty(ConfigProperties.CONSUMER_CHECKIN_FLUSH_INTERVAL, "60");
+        this.config.setProperty(ConfigProperties.CONSUMER_CHECKIN_FLUSH_THRESHOLD, "0");
+        assertThrows(IllegalArgumentException.class, this::buildRecorder);
+    }
+}
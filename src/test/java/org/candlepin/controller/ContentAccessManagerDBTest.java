@@ -21,6 +21,7 @@ import static org.mockito.Mockito.spy;
 
 import org.candlepin.audit.EventSink;
 import org.candlepin.cache.AnonymousCertContentCache;
+import org.candlepin.cache.ScaContentPayloadCache;
 import org.candlepin.controller.ContentAccessManager.ContentAccessMode;
 import org.candlepin.model.CertificateSerial;
 import org.candlepin.model.Consumer;
@@ -66,6 +67,7 @@ public class ContentAccessManagerDBTest extends DatabaseTestFixture {
 
     private EventSink mockEventSink;
     private AnonymousCertContentCache cache;
+    private ScaContentPayloadCache scaPayloadCache;
 
     @Mock
     private ProductServiceAdapter mockProdAdapter;
@@ -83,6 +85,7 @@ public class ContentAccessManagerDBTest extends DatabaseTestFixture {
 
         this.mockEventSink = mock(EventSink.class);
         this.cache = new AnonymousCertContentCache(this.config);
+        this.scaPayloadCache = new ScaContentPayloadCache(this.config);
     }
 
     private ContentAccessManager createManager() {
@@ -90,7 +93,7 @@ public class ContentAccessManagerDBTest extends DatabaseTestFixture {
             this.caCertCurator, this.certSerialCurator, this.ownerCurator, this.contentCurator,
             this.consumerCurator, this.consumerTypeCurator, this.environmentCurator, this.caCertCurator,
             this.mockEventSink, this.anonymousCloudConsumerCurator, this.anonymousContentAccessCertCurator,
-            this.mockProdAdapter, this.cache);
+            this.mockProdAdapter, this.cache, this.scaPayloadCache);
     }
 
     private Owner createSCAOwner() {
@@ -23,6 +23,7 @@ import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
@@ -38,6 +39,7 @@ import static org.mockito.Mockito.when;
 import org.candlepin.audit.EventSink;
 import org.candlepin.cache.AnonymousCertContent;
 import org.candlepin.cache.AnonymousCertContentCache;
+import org.candlepin.cache.ScaContentPayloadCache;
 import org.candlepin.config.ConfigProperties;
 import org.candlepin.config.DevConfig;
 import org.candlepin.config.TestConfig;
@@ -158,6 +160,7 @@ public class ContentAccessManagerTest {
     private PKIUtility pkiUtility;
     private X509V3ExtensionUtil x509V3ExtensionUtil;
     private AnonymousCertContentCache cache;
+    private ScaContentPayloadCache scaPayloadCache;
 
     private final String entitlementMode = ContentAccessMode.ENTITLEMENT.toDatabaseValue();
     private final String orgEnvironmentMode = ContentAccessMode.ORG_ENVIRONMENT.toDatabaseValue();
@@ -208,13 +211,14 @@ public class ContentAccessManagerTest {
             }
 
             return serial;
-        }).when(this.mockCertSerialCurator).create(any(CertificateSerial.class));
+        }).when(this.mockCertSerialCurator).create(any(CertificateSerial.class), anyBoolean());
 
         EntityManager entityManager = mock(EntityManager.class);
         TestUtil.mockTransactionalFunctionality(entityManager, this.mockConsumerCurator,
             this.mockAnonCloudConsumerCurator);
 
         cache = new AnonymousCertContentCache(config);
+        scaPayloadCache = new ScaContentPayloadCache(config);
     }
 
     public static class PersistSimulator<T extends AbstractHibernateObject> implements Answer<T> {
@@ -241,7 +245,7 @@ public class ContentAccessManagerTest {
             this.mockCertSerialCurator, this.mockOwnerCurator, this.mockContentCurator,
             this.mockConsumerCurator, this.mockConsumerTypeCurator, this.mockEnvironmentCurator,
             this.mockContentAccessCertCurator, this.mockEventSink, this.mockAnonCloudConsumerCurator,
-            this.mockAnonContentAccessCertCurator, this.mockProdAdapter, this.cache);
+            this.mockAnonContentAccessCertCurator, this.mockProdAdapter, this.cache, this.scaPayloadCache);
     }
 
     private ContentAccessManager createManager() {
@@ -716,6 +720,58 @@ public class ContentAccessManagerTest {
         this.verifyContainerContentPath(expectedPrefix);
     }
 
+    @Test
+    public void testSharedScaPayloadIsBuiltOncePerContentVersion() throws Exception {
+        this.config.setProperty(ConfigProperties.CACHE_SCA_CONTENT_PAYLOAD_ENABLED, "true");
+        this.scaPayloadCache = new ScaContentPayloadCache(this.config);
+
+        Owner owner = this.mockOwner();
+        Consumer consumer1 = this.mockConsumer(owner);
+        Consumer consumer2 = this.mockConsumer(owner)
+            .setUuid("test-consumer-uuid-2")
+            .setId("test-consumer-id-2");
+
+        ContentAccessManager manager = this.createManager();
+
+        assertNotNull(manager.getCertificate(consumer1));
+        assertNotNull(manager.getCertificate(consumer2));
+
+        verify(this.mockContentCurator, times(1)).getActiveContentByOwner(owner.getId());
+        assertEquals(consumer1.getContentAccessCert().getContent(),
+            consumer2.getContentAccessCert().getContent());
+        assertEquals(1, this.scaPayloadCache.getHitCount());
+        assertEquals(1, this.scaPayloadCache.getMissCount());
+
+        // Changing the org's content view must force a rebuild
+        manager.syncOwnerLastContentUpdate(owner);
+        Consumer consumer3 = this.mockConsumer(owner)
+            .setUuid("test-consumer-uuid-3")
+            .setId("test-consumer-id-3");
+
+        assertNotNull(manager.getCertificate(consumer3));
+        verify(this.mockContentCurator, times(2)).getActiveContentByOwner(owner.getId());
+    }
+
+    @Test
+    public void testScaPayloadIsNotSharedWhenCacheDisabled() throws Exception {
+        this.config.setProperty(ConfigProperties.CACHE_SCA_CONTENT_PAYLOAD_ENABLED, "false");
+        this.scaPayloadCache = new ScaContentPayloadCache(this.config);
+
+        Owner owner = this.mockOwner();
+        Consumer consumer1 = this.mockConsumer(owner);
+        Consumer consumer2 = this.mockConsumer(owner)
+            .setUuid("test-consumer-uuid-2")
+            .setId("test-consumer-id-2");
+
+        ContentAccessManager manager = this.createManager();
+
+        assertNotNull(manager.getCertificate(consumer1));
+        assertNotNull(manager.getCertificate(consumer2));
+
+        verify(this.mockContentCurator, times(2)).getActiveContentByOwner(owner.getId());
+        assertEquals(0, this.scaPayloadCache.getEstimatedSize());
+    }
+
     @Test
     public void testGetCertificateReturnsNullOnException() throws Exception {
         Owner owner = this.mockOwner();
@@ -15,16 +15,20 @@
 package org.candlepin.controller;
 
 import static org.candlepin.model.SourceSubscription.PRIMARY_POOL_SUB_KEY;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyBoolean;
+import static org.mockito.Mockito.anyCollection;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -46,6 +50,7 @@ import org.candlepin.model.PoolCurator;
 import org.candlepin.model.PoolQuantity;
 import org.candlepin.model.Product;
 import org.candlepin.model.SourceSubscription;
+import org.candlepin.pki.certs.CertificateCreationException;
 import org.candlepin.service.EntitlementCertServiceAdapter;
 import org.candlepin.test.TestUtil;
 
@@ -89,6 +94,7 @@ public class EntitlementCertificateGeneratorTest {
     @Captor private ArgumentCaptor<Map<String, Entitlement>> entMapCaptor;
     @Captor private ArgumentCaptor<Map<String, Product>> productMapCaptor;
     @Captor private ArgumentCaptor<Map<String, PoolQuantity>> poolQuantityMapCaptor;
+    @Captor private ArgumentCaptor<List<String>> entIdListCaptor;
 
     private EntitlementCertificateGenerator ecGenerator;
 
@@ -307,30 +313,96 @@ public class EntitlementCertificateGeneratorTest {
         Product product = TestUtil.createProduct();
         Pool pool = TestUtil.createPool(owner, product);
         Entitlement entitlement = TestUtil.createEntitlement(owner, consumer, pool, null);
-        Set<Entitlement> entitlements = new HashSet<>();
-        entitlements.add(entitlement);
-        pool.setEntitlements(entitlements);
+        entitlement.setDirty(true);
 
-        HashMap<String, EntitlementCertificate> ecMap = new HashMap<>();
-        ecMap.put(pool.getId(), new EntitlementCertificate());
+        EntitlementCertificate certificate = new EntitlementCertificate();
 
         when(this.mockPoolCurator.listAvailableEntitlementPools(isNull(), eq(owner),
-            eq(product.getId()), any(Date.class))).thenReturn(Arrays.asList(pool));
-        when(this.mockEntCertAdapter.generateEntitlementCerts(any(Consumer.class), anyMap(),
-            anyMap(), anyMap(), anyBoolean())).thenReturn(ecMap);
+            eq(Set.of(product.getId())), any(Date.class))).thenReturn(Arrays.asList(pool));
+        when(this.mockEntitlementCurator.getEntitlementConsumerIdMapByPoolIds(Set.of(pool.getId())))
+            .thenReturn(Map.of(entitlement.getId(), consumer.getId()));
+        when(this.mockEntitlementCurator.getEntitlementsForRegeneration(List.of(entitlement.getId())))
+            .thenReturn(List.of(entitlement));
+        when(this.mockEntCertAdapter.regenerateEntitlementCerts(List.of(entitlement)))
+            .thenReturn(Map.of(entitlement.getId(), certificate));
 
         when(mockEventFactory.entitlementChanged(any(Entitlement.class))).thenReturn(mock(Event.class));
         this.ecGenerator.regenerateCertificatesOf(owner, product.getId(), false);
 
         assertFalse(entitlement.isDirty());
+        assertEquals(Set.of(certificate), entitlement.getCertificates());
 
-        verify(this.mockEntCertAdapter, times(1)).generateEntitlementCerts(any(Consumer.class),
-            this.poolQuantityMapCaptor.capture(), this.entMapCaptor.capture(),
-            this.productMapCaptor.capture(), eq(false));
-
+        verify(this.mockEntCertAdapter, never()).generateEntitlementCerts(any(Consumer.class), anyMap(),
+            anyMap(), anyMap(), anyBoolean());
+        verify(this.mockEntCertCurator, times(1)).deleteByEntitlementIds(Set.of(entitlement.getId()));
+        verify(this.mockEntitlementCurator, times(1)).flushInBatches();
         verify(this.mockEventSink, times(1)).queueEvent(any(Event.class));
     }
 
+    @Test
+    public void testChunkedRegenerationFailureIsReported() throws Exception {
+        Owner owner = TestUtil.createOwner("test-owner", "Test Owner");
+        Consumer consumer = TestUtil.createConsumer(owner);
+        Product product = TestUtil.createProduct();
+        Pool pool = TestUtil.createPool(owner, product);
+        Entitlement entitlement = TestUtil.createEntitlement(owner, consumer, pool, null);
+
+        when(this.mockPoolCurator.listAvailableEntitlementPools(isNull(), eq(owner),
+            eq(Set.of(product.getId())), any(Date.class))).thenReturn(Arrays.asList(pool));
+        when(this.mockEntitlementCurator.getEntitlementConsumerIdMapByPoolIds(Set.of(pool.getId())))
+            .thenReturn(Map.of(entitlement.getId(), consumer.getId()));
+        when(this.mockEntitlementCurator.getEntitlementsForRegeneration(List.of(entitlement.getId())))
+            .thenReturn(List.of(entitlement));
+        when(this.mockEntCertAdapter.regenerateEntitlementCerts(List.of(entitlement)))
+            .thenThrow(new GeneralSecurityException("bad signature"));
+
+        CertificateCreationException exception = assertThrows(CertificateCreationException.class,
+            () -> this.ecGenerator.regenerateCertificatesOf(owner, product.getId(), false));
+
+        assertTrue(exception.getCause() instanceof GeneralSecurityException);
+        verify(this.mockEntCertCurator, never()).deleteByEntitlementIds(anyCollection());
+    }
+
+    @Test
+    public void testChunkedRegenerationKeepsConsumersTogetherAndReportsProgress() throws Exception {
+        Owner owner = TestUtil.createOwner("test-owner", "Test Owner");
+        Product product = TestUtil.createProduct();
+        Pool pool = TestUtil.createPool(owner, product);
+
+        // Two consumers whose entitlements together exceed a single chunk
+        int perConsumer = EntitlementCertificateGenerator.REGENERATION_CHUNK_SIZE - 10;
+        Map<String, String> entConsumerMap = new HashMap<>();
+        for (int i = 0; i < perConsumer; ++i) {
+            entConsumerMap.put("consumer-a-ent-" + i, "consumer-a");
+            entConsumerMap.put("consumer-b-ent-" + i, "consumer-b");
+        }
+
+        when(this.mockPoolCurator.listAvailableEntitlementPools(isNull(), eq(owner),
+            eq(Set.of(product.getId())), any(Date.class))).thenReturn(Arrays.asList(pool));
+        when(this.mockEntitlementCurator.getEntitlementConsumerIdMapByPoolIds(Set.of(pool.getId())))
+            .thenReturn(entConsumerMap);
+
+        List<int[]> progress = new ArrayList<>();
+        int regenerated = this.ecGenerator.regenerateCertificatesInChunks(List.of(owner),
+            Set.of(product.getId()), (processed, total) -> progress.add(new int[] { processed, total }));
+
+        // Nothing was found to regenerate, but every chunk should still have been processed
+        assertEquals(0, regenerated);
+
+        verify(this.mockEntitlementCurator, times(2))
+            .getEntitlementsForRegeneration(this.entIdListCaptor.capture());
+
+        List<List<String>> chunks = this.entIdListCaptor.getAllValues();
+        assertEquals(perConsumer, chunks.get(0).size());
+        assertTrue(chunks.get(0).stream().allMatch(id -> id.startsWith("consumer-a")));
+        assertEquals(perConsumer, chunks.get(1).size());
+        assertTrue(chunks.get(1).stream().allMatch(id -> id.startsWith("consumer-b")));
+
+        assertEquals(2, progress.size());
+        assertArrayEquals(new int[] { perConsumer, perConsumer * 2 }, progress.get(0));
+        assertArrayEquals(new int[] { perConsumer * 2, perConsumer * 2 }, progress.get(1));
+    }
+
     @Test
     public void testLazyRegenerateForConsumer() {
         Entitlement entitlement = new Entitlement();
@@ -72,7 +72,6 @@ import org.xnap.commons.i18n.I18n;
 import org.xnap.commons.i18n.I18nFactory;
 
 import java.io.File;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -378,18 +377,16 @@ public class ManifestManagerTest {
         String manifestFilename = "manifest.zip";
 
         ManifestFile manifest = mock(ManifestFile.class);
-        InputStream mockManifestInputStream = mock(InputStream.class);
         when(manifest.getId()).thenReturn(manifestId);
         when(manifest.getName()).thenReturn(manifestFilename);
         when(manifest.getTargetId()).thenReturn(exportedConsumer.getUuid());
-        when(manifest.getInputStream()).thenReturn(mockManifestInputStream);
         when(fileService.get(eq(manifestId))).thenReturn(manifest);
-        when(mockManifestInputStream.read()).thenReturn(-1); // Simulate no data for test.
 
         manager.writeStoredExportToResponse(manifestId, exportedConsumer.getUuid(), response);
         verify(fileService).get(eq(manifestId));
         verify(response).setContentType("application/zip");
         verify(response).setHeader(eq("Content-Disposition"), eq("attachment; filename=" + manifestFilename));
+        verify(manifest).writeTo(responseOutputStream);
         verify(responseOutputStream).flush();
     }
 
@@ -18,6 +18,7 @@ import static org.candlepin.model.SourceSubscription.DERIVED_POOL_SUB_KEY;
 import static org.candlepin.model.SourceSubscription.PRIMARY_POOL_SUB_KEY;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -273,7 +274,7 @@ public class PoolManagerTest {
             activationKeyRules, mockOwnerCurator, i18n, poolService, mockBindChainFactory,
             refreshWorkerProvider, poolOpProcessor, poolConverter));
 
-        this.refresherFactory = new RefresherFactory(ownerCurator, manager, poolCurator, poolConverter);
+        this.refresherFactory = new RefresherFactory(ownerCurator, manager, poolConverter);
 
         setupBindChain();
 
@@ -358,7 +359,8 @@ public class PoolManagerTest {
                         mockOwnerCurator,
                         i18n,
                         consumer,
-                        pQ);
+                        pQ,
+                        false);
                 }
             });
 
@@ -1165,8 +1167,7 @@ public class PoolManagerTest {
         CandlepinQuery mockQuery = mock(CandlepinQuery.class);
         when(poolCurator.listAllByIds(nullable(Set.class))).thenReturn(mockQuery);
         when(mockQuery.iterator()).thenReturn(Collections.singletonList(pool1).listIterator());
-        when(enforcer.preEntitlement(any(Consumer.class), any(Pool.class), anyInt(),
-            any(CallerType.class))).thenReturn(result);
+        this.mockPreEntitlement(result);
 
         when(enforcer.postEntitlement(any(Consumer.class), anyMap(),
             anyList(), eq(false), anyMap())).thenReturn(new PoolOperations());
@@ -1230,8 +1231,8 @@ public class PoolManagerTest {
         List<Pool> poolList = List.of(pool1);
         doAnswer(iom -> poolList.iterator()).when(mockQuery).iterator();
 
-        when(enforcer.preEntitlement(any(Consumer.class), any(Pool.class), any(Integer.class),
-            any(CallerType.class))).thenReturn(validationResult);
+        when(enforcer.preEntitlement(any(Consumer.class), anyCollection(), any(CallerType.class)))
+            .thenReturn(resultMap);
 
         // Impl note: this list *must* be mutable, or we'll cause an exception deep in the guts of
         // the autobind flow
@@ -1244,12 +1245,17 @@ public class PoolManagerTest {
 
         assertThrows(EntitlementRefusedException.class, () -> manager.entitleByProducts(data));
 
-        // Impl note: Enforcer.preEntitlement gets hit once per iteration for each pool, for a total
-        // of 8 times for this test.
-        verify(enforcer, times(4)).preEntitlement(eq(consumer), eq(pool1), any(Integer.class),
-            any(CallerType.class));
-        verify(enforcer, times(4)).preEntitlement(eq(consumer), eq(pool2), any(Integer.class),
-            any(CallerType.class));
+        // Impl note: Enforcer.preEntitlement gets hit once per iteration with every candidate pool,
+        // for a total of 4 times for this test.
+        ArgumentCaptor<Collection<PoolQuantity>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(enforcer, times(4)).preEntitlement(eq(consumer), captor.capture(),
+            eq(CallerType.BEST_POOLS));
+
+        for (Collection<PoolQuantity> poolQuantities : captor.getAllValues()) {
+            assertEquals(List.of(pool1, pool2), poolQuantities.stream()
+                .map(PoolQuantity::getPool)
+                .collect(Collectors.toList()));
+        }
     }
 
     @Test
@@ -1445,8 +1451,7 @@ public class PoolManagerTest {
         when(poolCurator.listAllByIds(anyList())).thenReturn(mockQuery);
         when(mockQuery.iterator()).thenReturn(Collections.singletonList(pool1).listIterator());
 
-        when(enforcer.preEntitlement(any(Consumer.class), any(Pool.class), anyInt(),
-            any(CallerType.class))).thenReturn(result);
+        this.mockPreEntitlement(result);
         when(enforcer.postEntitlement(any(Consumer.class), anyMap(),
             anyList(), eq(false), anyMap())).thenReturn(new PoolOperations());
         when(result.isSuccessful()).thenReturn(true);
@@ -1532,6 +1537,16 @@ public class PoolManagerTest {
         assertPoolsAreEqual(TestUtil.copyFromSub(sub), argPool.getValue());
     }
 
+    private void mockPreEntitlement(ValidationResult result) {
+        doAnswer(iom -> {
+            Collection<PoolQuantity> poolQuantities = iom.getArgument(1);
+
+            Map<String, ValidationResult> results = new HashMap<>();
+            poolQuantities.forEach(pq -> results.put(pq.getPool().getId(), result));
+            return results;
+        }).when(enforcer).preEntitlement(any(Consumer.class), anyCollection(), any(CallerType.class));
+    }
+
     private void mockPoolsList(List<Pool> pools) {
         List<Pool> floating = new LinkedList<>();
         subToPools = new HashMap<>();
@@ -1902,4 +1917,111 @@ public class PoolManagerTest {
         assertEquals(2, derivedPool3.getConsumed().intValue());
     }
 
+    private PoolManager buildChunkedFilteringManager(Consumer consumer, List<Pool> pools, int chunkSize) {
+        when(config.getInt(ConfigProperties.POOL_LISTING_FILTER_CHUNK_SIZE)).thenReturn(chunkSize);
+
+        List<String> poolIds = pools.stream()
+            .map(Pool::getId)
+            .collect(Collectors.toList());
+
+        Map<String, Pool> poolMap = pools.stream()
+            .collect(Collectors.toMap(Pool::getId, Function.identity()));
+
+        doReturn(poolIds).when(poolCurator).listAvailableEntitlementPoolIds(eq(consumer),
+            nullable(String.class), nullable(Collection.class), nullable(String.class), nullable(Date.class),
+            any(PoolFilterBuilder.class), any(PageRequest.class), anyBoolean(), anyBoolean(),
+            nullable(Date.class));
+
+        doAnswer(iom -> ((List<String>) iom.getArgument(0)).stream()
+            .map(poolMap::get)
+            .collect(Collectors.toList()))
+            .when(poolCurator).listPoolsInOrder(anyList());
+
+        // Every other pool fails the rules
+        doAnswer(iom -> ((List<Pool>) iom.getArgument(1)).stream()
+            .filter(pool -> pools.indexOf(pool) % 2 == 0)
+            .collect(Collectors.toList()))
+            .when(enforcer).filterPools(eq(consumer), anyList(), anyBoolean());
+
+        return new PoolManager(poolCurator, mockEventSink, eventFactory, config, enforcer, poolRules,
+            entitlementCurator, consumerCuratorMock, consumerTypeCurator, mockECGenerator, complianceRules,
+            autobindRules, activationKeyRules, mockOwnerCurator, i18n, poolService, mockBindChainFactory,
+            refreshWorkerProvider, poolOpProcessor, poolConverter);
+    }
+
+    private List<Pool> createPools(Product product, int count) {
+        List<Pool> pools = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            pools.add(TestUtil.createPool(owner, product).setId("pool-" + i));
+        }
+
+        return pools;
+    }
+
+    @Test
+    public void testListAvailablePoolsFiltersChunksUntilPageIsFullWithoutCount() {
+        Consumer consumer = TestUtil.createConsumer(owner);
+        List<Pool> pools = this.createPools(TestUtil.createProduct(), 12);
+        PoolManager chunkedManager = this.buildChunkedFilteringManager(consumer, pools, 3);
+
+        PageRequest pageRequest = new PageRequest()
+            .setPage(2)
+            .setPerPage(2)
+            .setIncludeCount(false);
+
+        Page<List<Pool>> page = chunkedManager.listAvailableEntitlementPools(consumer, null, owner.getId(),
+            null, null, new Date(), false, new PoolFilterBuilder(), pageRequest, false, false, null);
+
+        // The page needs the 3rd and 4th passing pools, plus one more to show a next page exists
+        assertEquals(List.of(pools.get(4), pools.get(6)), page.getPageData());
+        assertEquals(5, page.getMaxRecords());
+        assertTrue(page.isMaxRecordsLowerBound());
+
+        verify(enforcer, times(3)).filterPools(eq(consumer), anyList(), anyBoolean());
+        verify(poolCurator, never()).listPoolsInOrder(List.of("pool-9", "pool-10", "pool-11"));
+        verify(poolCurator, never()).listAvailableEntitlementPools(any(Consumer.class),
+            nullable(String.class), nullable(String.class), nullable(String.class), nullable(Date.class),
+            any(PoolFilterBuilder.class), nullable(PageRequest.class), anyBoolean(), anyBoolean(),
+            anyBoolean(), nullable(Date.class));
+    }
+
+    @Test
+    public void testListAvailablePoolsFiltersEveryChunkToCount() {
+        Consumer consumer = TestUtil.createConsumer(owner);
+        List<Pool> pools = this.createPools(TestUtil.createProduct(), 12);
+        PoolManager chunkedManager = this.buildChunkedFilteringManager(consumer, pools, 5);
+
+        PageRequest pageRequest = new PageRequest()
+            .setPage(1)
+            .setPerPage(4);
+
+        Page<List<Pool>> page = chunkedManager.listAvailableEntitlementPools(consumer, null, owner.getId(),
+            null, null, new Date(), false, new PoolFilterBuilder(), pageRequest, false, false, null);
+
+        assertEquals(List.of(pools.get(0), pools.get(2), pools.get(4), pools.get(6)), page.getPageData());
+        assertEquals(6, page.getMaxRecords());
+        assertFalse(page.isMaxRecordsLowerBound());
+
+        verify(enforcer, times(3)).filterPools(eq(consumer), anyList(), anyBoolean());
+    }
+
+    @Test
+    public void testListAvailablePoolsReportsExactCountOnceCandidatesAreExhausted() {
+        Consumer consumer = TestUtil.createConsumer(owner);
+        List<Pool> pools = this.createPools(TestUtil.createProduct(), 7);
+        PoolManager chunkedManager = this.buildChunkedFilteringManager(consumer, pools, 4);
+
+        PageRequest pageRequest = new PageRequest()
+            .setPage(2)
+            .setPerPage(3)
+            .setIncludeCount(false);
+
+        Page<List<Pool>> page = chunkedManager.listAvailableEntitlementPools(consumer, null, owner.getId(),
+            null, null, new Date(), false, new PoolFilterBuilder(), pageRequest, false, false, null);
+
+        assertEquals(List.of(pools.get(6)), page.getPageData());
+        assertEquals(4, page.getMaxRecords());
+        assertFalse(page.isMaxRecordsLowerBound());
+    }
+
 }
@@ -27,7 +27,6 @@ import static org.mockito.Mockito.anyMap;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
-import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -35,7 +34,6 @@ import static org.mockito.Mockito.when;
 import org.candlepin.model.Owner;
 import org.candlepin.model.OwnerCurator;
 import org.candlepin.model.Pool;
-import org.candlepin.model.PoolCurator;
 import org.candlepin.model.Product;
 import org.candlepin.model.SourceSubscription;
 import org.candlepin.model.dto.Subscription;
@@ -45,7 +43,6 @@ import org.candlepin.service.exception.product.ProductServiceException;
 import org.candlepin.service.exception.subscription.SubscriptionServiceException;
 import org.candlepin.service.model.SubscriptionInfo;
 import org.candlepin.test.TestUtil;
-import org.candlepin.util.Transactional;
 import org.candlepin.util.Util;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -74,20 +71,14 @@ public class RefresherTest {
     @Mock
     private OwnerCurator ownerCurator;
     @Mock
-    private PoolCurator poolCurator;
-    @Mock
     private PoolConverter poolConverter;
 
     private Refresher refresher;
 
     @BeforeEach
     public void setUp() {
-        Transactional transaction = mock(Transactional.class);
-        when(poolCurator.transactional()).thenReturn(transaction);
-        when(transaction.allowExistingTransactions()).thenReturn(transaction);
-
         refresher = new Refresher(
-            poolManager, subAdapter, prodAdapter, ownerCurator, poolCurator, poolConverter)
+            poolManager, subAdapter, prodAdapter, ownerCurator, poolConverter)
             .setLazyCertificateRegeneration(false);
     }
 
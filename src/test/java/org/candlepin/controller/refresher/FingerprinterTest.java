@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.controller.refresher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import org.candlepin.model.Content;
+import org.candlepin.model.Product;
+import org.candlepin.service.model.ContentInfo;
+import org.candlepin.service.model.ProductInfo;
+import org.candlepin.service.model.SubscriptionInfo;
+import org.candlepin.test.TestUtil;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+
+
+
+/**
+ * Test suite for the Fingerprinter class
+ */
+public class FingerprinterTest {
+
+    private Content buildContent(String id) {
+        return TestUtil.createContent(id, id + "_name")
+            .setLabel(id + "_label")
+            .setArches("x86_64");
+    }
+
+    private Product buildProduct(String id, Content... content) {
+        Product product = TestUtil.createProduct(id, id + "_name")
+            .setAttribute("version", "1.0")
+            .setAttribute("arch", "x86_64");
+
+        for (Content elem : content) {
+            product.addContent(elem, true);
+        }
+
+        return product;
+    }
+
+    private SubscriptionInfo mockSubscriptionInfo(String id, ProductInfo product, long quantity) {
+        SubscriptionInfo sinfo = mock(SubscriptionInfo.class);
+        doReturn(id).when(sinfo).getId();
+        doReturn(product).when(sinfo).getProduct();
+        doReturn(quantity).when(sinfo).getQuantity();
+        doReturn(new Date(1000)).when(sinfo).getStartDate();
+        doReturn(new Date(2000)).when(sinfo).getEndDate();
+
+        return sinfo;
+    }
+
+    @Test
+    public void testFingerprintsOfNullEntitiesAreNull() {
+        Fingerprinter fingerprinter = new Fingerprinter();
+
+        assertNull(fingerprinter.fingerprint((SubscriptionInfo) null));
+        assertNull(fingerprinter.fingerprint((ProductInfo) null));
+        assertNull(fingerprinter.fingerprint((ContentInfo) null));
+    }
+
+    @Test
+    public void testFingerprintsAreStableAcrossInstances() {
+        Product product1 = this.buildProduct("pid", this.buildContent("cid"));
+        Product product2 = this.buildProduct("pid", this.buildContent("cid"));
+
+        String fingerprint1 = new Fingerprinter().fingerprint(product1);
+        String fingerprint2 = new Fingerprinter().fingerprint(product2);
+
+        assertNotNull(fingerprint1);
+        assertEquals(64, fingerprint1.length());
+        assertEquals(fingerprint1, fingerprint2);
+    }
+
+    @Test
+    public void testProductFingerprintIgnoresChildOrder() {
+        Content content1 = this.buildContent("cid-1");
+        Content content2 = this.buildContent("cid-2");
+        Product provided1 = this.buildProduct("pid-1");
+        Product provided2 = this.buildProduct("pid-2");
+
+        Product product1 = this.buildProduct("pid", content1, content2)
+            .setProvidedProducts(List.of(provided1, provided2));
+        Product product2 = this.buildProduct("pid", content2, content1)
+            .setProvidedProducts(List.of(provided2, provided1));
+
+        Fingerprinter fingerprinter = new Fingerprinter();
+
+        assertEquals(fingerprinter.fingerprint(product1), fingerprinter.fingerprint(product2));
+    }
+
+    @Test
+    public void testProductFingerprintIgnoresTimestamps() {
+        Product product1 = this.buildProduct("pid");
+        Product product2 = this.buildProduct("pid");
+        product1.setUpdated(new Date(1000));
+        product2.setUpdated(new Date(2000));
+
+        Fingerprinter fingerprinter = new Fingerprinter();
+
+        assertEquals(fingerprinter.fingerprint(product1), fingerprinter.fingerprint(product2));
+    }
+
+    @Test
+    public void testProductFingerprintChangesWithAttributes() {
+        Product product1 = this.buildProduct("pid");
+        Product product2 = this.buildProduct("pid")
+            .setAttribute("version", "2.0");
+
+        Fingerprinter fingerprinter = new Fingerprinter();
+
+        assertNotEquals(fingerprinter.fingerprint(product1), fingerprinter.fingerprint(product2));
+    }
+
+    @Test
+    public void testProductFingerprintChangesWithNestedContent() {
+        Product product1 = this.buildProduct("pid")
+            .setProvidedProducts(List.of(this.buildProduct("pid-1", this.buildContent("cid"))));
+        Product product2 = this.buildProduct("pid")
+            .setProvidedProducts(List.of(this.buildProduct("pid-1", this.buildContent("cid")
+                .setArches("aarch64"))));
+
+        Fingerprinter fingerprinter = new Fingerprinter();
+
+        assertNotEquals(fingerprinter.fingerprint(product1), fingerprinter.fingerprint(product2));
+    }
+
+    @Test
+    public void testProductFingerprintChangesWithContentEnablement() {
+        Product product1 = this.buildProduct("pid");
+        Product product2 = this.buildProduct("pid");
+        product1.addContent(this.buildContent("cid"), true);
+        product2.addContent(this.buildContent("cid"), false);
+
+        Fingerprinter fingerprinter = new Fingerprinter();
+
+        assertNotEquals(fingerprinter.fingerprint(product1), fingerprinter.fingerprint(product2));
+    }
+
+    @Test
+    public void testNullAndEmptyCollectionsHaveDifferentFingerprints() {
+        ContentInfo content1 = mock(ContentInfo.class);
+        ContentInfo content2 = mock(ContentInfo.class);
+        doReturn("cid").when(content1).getId();
+        doReturn("cid").when(content2).getId();
+        doReturn(null).when(content1).getRequiredProductIds();
+        doReturn(List.of()).when(content2).getRequiredProductIds();
+
+        Fingerprinter fingerprinter = new Fingerprinter();
+
+        assertNotEquals(fingerprinter.fingerprint(content1), fingerprinter.fingerprint(content2));
+    }
+
+    @Test
+    public void testSubscriptionFingerprintChangesWithQuantity() {
+        Product product = this.buildProduct("pid");
+
+        Fingerprinter fingerprinter = new Fingerprinter();
+        String fingerprint1 = fingerprinter.fingerprint(this.mockSubscriptionInfo("sub", product, 10));
+        String fingerprint2 = fingerprinter.fingerprint(this.mockSubscriptionInfo("sub", product, 10));
+        String fingerprint3 = fingerprinter.fingerprint(this.mockSubscriptionInfo("sub", product, 20));
+
+        assertEquals(fingerprint1, fingerprint2);
+        assertNotEquals(fingerprint1, fingerprint3);
+    }
+
+    @Test
+    public void testSubscriptionFingerprintChangesWithProduct() {
+        Product product1 = this.buildProduct("pid");
+        Product product2 = this.buildProduct("pid")
+            .setName("renamed");
+
+        Fingerprinter fingerprinter = new Fingerprinter();
+        String fingerprint1 = fingerprinter.fingerprint(this.mockSubscriptionInfo("sub", product1, 10));
+        String fingerprint2 = fingerprinter.fingerprint(this.mockSubscriptionInfo("sub", product2, 10));
+
+        assertNotEquals(fingerprint1, fingerprint2);
+    }
+
+}
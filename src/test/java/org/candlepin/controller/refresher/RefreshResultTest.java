@@ -390,6 +390,33 @@ public class RefreshResultTest {
         assertEquals(0, output.size());
     }
 
+    @Test
+    public void testSkippedEntityIds() {
+        RefreshResult refreshResult = new RefreshResult()
+            .addSkippedEntityIds(Pool.class, List.of("sub-1", "sub-2"))
+            .addSkippedEntityIds(Product.class, List.of("prod-1"))
+            .addSkippedEntityIds(Product.class, List.of("prod-2", "prod-1"));
+
+        assertEquals(Set.of("sub-1", "sub-2"), refreshResult.getSkippedEntityIds(Pool.class));
+        assertEquals(Set.of("prod-1", "prod-2"), refreshResult.getSkippedEntityIds(Product.class));
+        assertEquals(Set.of(), refreshResult.getSkippedEntityIds(Content.class));
+
+        assertEquals(2, refreshResult.getSkippedEntityCount(Pool.class));
+        assertEquals(2, refreshResult.getSkippedEntityCount(Product.class));
+        assertEquals(0, refreshResult.getSkippedEntityCount(Content.class));
+        assertEquals(4, refreshResult.getSkippedEntityCount());
+    }
+
+    @Test
+    public void testFingerprints() {
+        RefreshResult refreshResult = new RefreshResult()
+            .addFingerprints(Pool.class, Map.of("sub-1", "fp-1"))
+            .addFingerprints(Pool.class, Map.of("sub-2", "fp-2"));
+
+        assertEquals(Map.of("sub-1", "fp-1", "sub-2", "fp-2"), refreshResult.getFingerprints(Pool.class));
+        assertEquals(Map.of(), refreshResult.getFingerprints(Product.class));
+    }
+
 
 
 }
@@ -24,11 +24,13 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyBoolean;
+import static org.mockito.Mockito.argThat;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -1251,4 +1253,158 @@ public class RefreshWorkerTest {
         verify(mockProductCurator, times(1)).create(Mockito.any(Product.class));
     }
 
+    @Test
+    public void testExecuteSkipsUnchangedSubscriptions() {
+        Owner owner = new Owner();
+        owner.setId("owner_id");
+
+        ProductContentInfo pcinfo1 = this.mockProductContentInfo("cid-1", "content-1");
+        ProductInfo pinfo1 = this.mockProductInfo("pid-1", "product-1");
+        ProductInfo pinfo2 = this.mockProductInfo("pid-2", "product-2");
+        doReturn(List.of(pcinfo1)).when(pinfo1).getProductContent();
+
+        SubscriptionInfo sinfo1 = this.mockSubscriptionInfo("sub-1", pinfo1);
+        SubscriptionInfo sinfo2 = this.mockSubscriptionInfo("sub-2", pinfo2);
+
+        Fingerprinter fingerprinter = new Fingerprinter();
+
+        doReturn(Map.of("sub-1", fingerprinter.fingerprint(sinfo1), "sub-2", "stale"))
+            .when(this.mockPoolCurator)
+            .getSubscriptionFingerprints(eq(owner.getId()), any(Collection.class));
+        Map<String, String> productFingerprints = Map.of(
+            "pid-1", fingerprinter.fingerprint(pinfo1),
+            "pid-2", fingerprinter.fingerprint(pinfo2));
+
+        doReturn(productFingerprints)
+            .when(this.mockProductCurator)
+            .getRefreshFingerprints(any(Collection.class));
+        doReturn(Map.of("cid-1", fingerprinter.fingerprint(pcinfo1.getContent())))
+            .when(this.mockContentCurator)
+            .getRefreshFingerprints(any(Collection.class));
+
+        this.mockProductLookup(List.of());
+        this.mockContentLookup(List.of());
+
+        RefreshWorker worker = this.buildRefreshWorker();
+        worker.addSubscriptions(sinfo1, sinfo2);
+
+        RefreshResult result = worker.execute(owner);
+
+        assertEquals(Set.of("sub-1"), result.getSkippedEntityIds(Pool.class));
+        assertEquals(Set.of("pid-1"), result.getSkippedEntityIds(Product.class));
+        assertEquals(Set.of("cid-1"), result.getSkippedEntityIds(Content.class));
+        assertEquals(3, result.getSkippedEntityCount());
+
+        // Only the changed subscription and its tree should be loaded and processed
+        Map<String, Product> productMap = result.getEntities(Product.class);
+        assertEquals(Set.of("pid-2"), productMap.keySet());
+        assertEquals(0, result.getEntities(Content.class).size());
+
+        verify(this.mockPoolCurator, never()).listByOwnerAndTypes(any(), any(PoolType[].class));
+        verify(this.mockPoolCurator, times(1)).listByOwnerTypesAndSubscriptionIds(eq(owner.getId()),
+            eq(Set.of("sub-2")), any(PoolType[].class));
+
+        // The fingerprint of the refreshed subscription should be passed along for the pool manager
+        assertEquals(Map.of("sub-2", fingerprinter.fingerprint(sinfo2)), result.getFingerprints(Pool.class));
+    }
+
+    @Test
+    public void testExecuteDoesNotSkipSubscriptionsWithChangedChildren() {
+        Owner owner = new Owner();
+        owner.setId("owner_id");
+
+        ProductContentInfo pcinfo1 = this.mockProductContentInfo("cid-1", "content-1");
+        ProductInfo pinfo1 = this.mockProductInfo("pid-1", "product-1");
+        doReturn(List.of(pcinfo1)).when(pinfo1).getProductContent();
+
+        SubscriptionInfo sinfo1 = this.mockSubscriptionInfo("sub-1", pinfo1);
+
+        Fingerprinter fingerprinter = new Fingerprinter();
+
+        doReturn(Map.of("sub-1", fingerprinter.fingerprint(sinfo1)))
+            .when(this.mockPoolCurator)
+            .getSubscriptionFingerprints(eq(owner.getId()), any(Collection.class));
+        doReturn(Map.of("pid-1", fingerprinter.fingerprint(pinfo1)))
+            .when(this.mockProductCurator)
+            .getRefreshFingerprints(any(Collection.class));
+        doReturn(Map.of("cid-1", "stale"))
+            .when(this.mockContentCurator)
+            .getRefreshFingerprints(any(Collection.class));
+
+        this.mockProductLookup(List.of());
+        this.mockContentLookup(List.of());
+
+        RefreshWorker worker = this.buildRefreshWorker();
+        worker.addSubscriptions(sinfo1);
+
+        RefreshResult result = worker.execute(owner);
+
+        assertEquals(0, result.getSkippedEntityCount());
+        assertThat(result.getEntities(Product.class), hasKey("pid-1"));
+        assertThat(result.getEntities(Content.class), hasKey("cid-1"));
+
+        verify(this.mockPoolCurator, times(1)).listByOwnerAndTypes(eq(owner.getId()), any(PoolType[].class));
+    }
+
+    @Test
+    public void testExecuteDoesNotSkipProductsAddedDirectly() {
+        Owner owner = new Owner();
+        owner.setId("owner_id");
+
+        ProductInfo pinfo1 = this.mockProductInfo("pid-1", "product-1");
+        ProductInfo pinfo2 = this.mockProductInfo("pid-2", "product-2");
+        SubscriptionInfo sinfo1 = this.mockSubscriptionInfo("sub-1", pinfo1);
+        SubscriptionInfo sinfo2 = this.mockSubscriptionInfo("sub-2", pinfo2);
+
+        Fingerprinter fingerprinter = new Fingerprinter();
+
+        doReturn(Map.of("sub-1", fingerprinter.fingerprint(sinfo1)))
+            .when(this.mockPoolCurator)
+            .getSubscriptionFingerprints(eq(owner.getId()), any(Collection.class));
+        doReturn(Map.of("pid-1", fingerprinter.fingerprint(pinfo1)))
+            .when(this.mockProductCurator)
+            .getRefreshFingerprints(any(Collection.class));
+
+        this.mockProductLookup(List.of());
+        this.mockContentLookup(List.of());
+
+        RefreshWorker worker = this.buildRefreshWorker();
+        worker.addSubscriptions(sinfo1, sinfo2);
+        worker.addProducts(pinfo1);
+
+        RefreshResult result = worker.execute(owner);
+
+        assertEquals(Set.of("sub-1"), result.getSkippedEntityIds(Pool.class));
+        assertEquals(0, result.getSkippedEntityCount(Product.class));
+        assertEquals(Set.of("pid-1", "pid-2"), result.getEntities(Product.class).keySet());
+    }
+
+    @Test
+    public void testExecuteRecordsFingerprintsOfAppliedProductsAndContent() {
+        Owner owner = new Owner();
+        owner.setId("owner_id");
+
+        ProductContentInfo pcinfo1 = this.mockProductContentInfo("cid-1", "content-1");
+        ProductInfo pinfo1 = this.mockProductInfo("pid-1", "product-1");
+        doReturn(List.of(pcinfo1)).when(pinfo1).getProductContent();
+
+        this.mockProductLookup(List.of());
+        this.mockContentLookup(List.of());
+
+        RefreshWorker worker = this.buildRefreshWorker();
+        worker.addProducts(pinfo1);
+
+        RefreshResult result = worker.execute(owner);
+        assertEquals(0, result.getSkippedEntityCount());
+
+        Fingerprinter fingerprinter = new Fingerprinter();
+        String productFingerprint = fingerprinter.fingerprint(pinfo1);
+        String contentFingerprint = fingerprinter.fingerprint(pcinfo1.getContent());
+
+        verify(this.mockProductCurator, times(1)).updateRefreshFingerprints(
+            argThat(map -> map.size() == 1 && map.containsValue(productFingerprint)));
+        verify(this.mockContentCurator, times(1)).updateRefreshFingerprints(
+            argThat(map -> map.size() == 1 && map.containsValue(contentFingerprint)));
+    }
+
 }
@@ -735,6 +735,33 @@ public abstract class AbstractEntityMapperTest<E extends AbstractHibernateObject
         assertThat(ids, hasItems(imported1Id, imported2Id, imported3Id, imported4Id));
     }
 
+    @Test
+    public void testGetEntityIdsOmitsSkippedEntities() {
+        Owner owner = TestUtil.createOwner();
+
+        E existing = this.buildLocalEntity(owner, "shared_id");
+        I imported1 = this.buildImportedEntity(owner, "shared_id");
+        I imported2 = this.buildImportedEntity(owner, "imported_id");
+
+        EntityMapper<E, I> mapper = this.buildEntityMapper();
+        mapper.addExistingEntity(existing);
+        mapper.addImportedEntities(Arrays.asList(imported1, imported2));
+        mapper.addSkippedEntityIds(List.of("shared_id"));
+
+        assertEquals(Set.of("imported_id"), mapper.getEntityIds());
+        assertEquals(Set.of("shared_id"), mapper.getSkippedEntityIds());
+
+        // Skipped entities should remain mapped
+        assertTrue(mapper.hasEntity("shared_id"));
+        assertEquals(existing, mapper.getExistingEntity("shared_id"));
+        assertEquals(imported1, mapper.getImportedEntity("shared_id"));
+
+        mapper.clearSkippedEntityIds();
+
+        assertEquals(Set.of("shared_id", "imported_id"), mapper.getEntityIds());
+        assertThat(mapper.getSkippedEntityIds(), empty());
+    }
+
     @Test
     public void testClear() {
         Owner owner = TestUtil.createOwner();
@@ -764,4 +791,14 @@ public abstract class AbstractEntityMapperTest<E extends AbstractHibernateObject
         assertFalse(mapper.hasEntity(importedId));
     }
 
+    @Test
+    public void testClearRemovesSkippedEntityIds() {
+        EntityMapper<E, I> mapper = this.buildEntityMapper();
+        mapper.addSkippedEntityIds(List.of("test_id-1"));
+
+        mapper.clear();
+
+        assertThat(mapper.getSkippedEntityIds(), empty());
+    }
+
 }
@@ -32,6 +32,7 @@ import org.candlepin.auth.Principal;
 import org.candlepin.auth.permissions.Permission;
 import org.candlepin.test.DatabaseTestFixture;
 
+import org.hibernate.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
@@ -109,6 +110,29 @@ public class AbstractHibernateCuratorTest extends DatabaseTestFixture {
         this.injectMembers(this.testEnvironmentCurator);
     }
 
+    @Test
+    public void testFlushInBatchesScopesBatchSizeToFlush() {
+        Session session = this.testOwnerCurator.currentSession();
+        Integer jdbcBatchSize = session.getJdbcBatchSize();
+
+        List<String> ownerIds = new LinkedList<>();
+        for (int i = 0; i < 5; ++i) {
+            Owner owner = new Owner()
+                .setKey("owner_key-" + i)
+                .setDisplayName("owner-" + i);
+
+            ownerIds.add(this.testOwnerCurator.create(owner, false).getId());
+        }
+
+        this.testOwnerCurator.flushInBatches();
+        assertEquals(jdbcBatchSize, session.getJdbcBatchSize());
+
+        this.testOwnerCurator.clear();
+        for (String ownerId : ownerIds) {
+            assertNotNull(this.testOwnerCurator.get(ownerId));
+        }
+    }
+
     @Test
     public void testLockAndLoadWithSingleId() {
         Owner owner = this.createOwner("owner_key-1", "owner-1");
@@ -24,6 +24,7 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import org.candlepin.async.JobArguments;
 import org.candlepin.model.AsyncJobStatus.JobState;
 import org.candlepin.model.AsyncJobStatusCurator.AsyncJobStatusQueryArguments;
 import org.candlepin.test.DatabaseTestFixture;
@@ -2668,5 +2669,83 @@ public class AsyncJobStatusCuratorTest extends DatabaseTestFixture {
         this.validateJobStates(jobMap, Arrays.asList(), JobState.ABORTED);
     }
 
+    private AsyncJobStatus createJob(String name, String key, JobState state, Map<String, String> args,
+        String... blockingJobIds) {
+
+        AsyncJobStatus job = new AsyncJobStatus()
+            .setName(name)
+            .setJobKey(key)
+            .setState(state)
+            .setJobArguments(new JobArguments(args))
+            .setBlockingJobIds(Arrays.asList(blockingJobIds));
+
+        return this.asyncJobCurator.create(job);
+    }
+
+    @Test
+    public void testFetchPendingJobsByArguments() {
+        Map<String, String> args = Map.of("arg1", "val1");
+
+        AsyncJobStatus queued = this.createJob("queued", "job_key", JobState.QUEUED, args);
+        AsyncJobStatus waiting = this.createJob("waiting", "job_key", JobState.WAITING, args);
+        this.createJob("running", "job_key", JobState.RUNNING, args);
+        this.createJob("finished", "job_key", JobState.FINISHED, args);
+        this.createJob("other_key", "other_key", JobState.QUEUED, args);
+        this.createJob("other_arg", "job_key", JobState.QUEUED, Map.of("arg1", "val2"));
+
+        List<AsyncJobStatus> output = this.asyncJobCurator.fetchPendingJobsByArguments("job_key", args);
+
+        assertNotNull(output);
+        assertEquals(2, output.size());
+        assertTrue(output.contains(queued));
+        assertTrue(output.contains(waiting));
+    }
+
+    @Test
+    public void testFetchReleasableJobs() {
+        AsyncJobStatus running = this.createJob("running", "job_key", JobState.RUNNING, Map.of());
+        AsyncJobStatus finished = this.createJob("finished", "job_key", JobState.FINISHED, Map.of());
+
+        AsyncJobStatus released = this.createJob("released", "job_key", JobState.WAITING, Map.of(),
+            finished.getId());
+        AsyncJobStatus orphaned = this.createJob("orphaned", "job_key", JobState.WAITING, Map.of(),
+            "deleted_job_id");
+        this.createJob("blocked", "job_key", JobState.WAITING, Map.of(), finished.getId(), running.getId());
+        this.createJob("queued", "job_key", JobState.QUEUED, Map.of(), finished.getId());
+        this.asyncJobCurator.flush();
+
+        List<AsyncJobStatus> output = this.asyncJobCurator.fetchReleasableJobs(null);
+
+        assertNotNull(output);
+        assertEquals(2, output.size());
+        assertTrue(output.contains(released));
+        assertTrue(output.contains(orphaned));
+
+        output = this.asyncJobCurator.fetchReleasableJobs(finished.getId());
+
+        assertNotNull(output);
+        assertEquals(1, output.size());
+        assertTrue(output.contains(released));
+    }
+
+    @Test
+    public void testLockActiveJobs() {
+        AsyncJobStatus queued = this.createJob("queued", "job_key", JobState.QUEUED, Map.of());
+        AsyncJobStatus running = this.createJob("running", "job_key", JobState.RUNNING, Map.of());
+        AsyncJobStatus finished = this.createJob("finished", "job_key", JobState.FINISHED, Map.of());
+        AsyncJobStatus canceled = this.createJob("canceled", "job_key", JobState.CANCELED, Map.of());
+        this.asyncJobCurator.flush();
+
+        Set<String> output = this.asyncJobCurator.lockActiveJobs(List.of(queued.getId(), running.getId(),
+            finished.getId(), canceled.getId(), "deleted_job_id"));
+
+        assertEquals(Set.of(queued.getId(), running.getId()), output);
+    }
+
+    @Test
+    public void testLockActiveJobsWithNoJobs() {
+        assertEquals(Set.of(), this.asyncJobCurator.lockActiveJobs(List.of()));
+        assertEquals(Set.of(), this.asyncJobCurator.lockActiveJobs(null));
+    }
 
 }
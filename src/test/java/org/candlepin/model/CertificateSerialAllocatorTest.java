@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CertificateSerialAllocatorTest {
+
+    @Test
+    public void testServesEverySerialOfReservedBlockOnce() {
+        CertificateSerialAllocator allocator = new CertificateSerialAllocator(8, new Random(12345));
+        List<Long> blocks = new ArrayList<>();
+
+        Set<Long> serials = new HashSet<>();
+        for (int i = 0; i < 8; ++i) {
+            serials.add(allocator.next((start, size) -> blocks.add(start)));
+        }
+
+        assertEquals(1, blocks.size());
+
+        long block = blocks.get(0);
+        assertEquals(0, block % 8);
+        assertTrue(block > 0);
+
+        Set<Long> expected = new HashSet<>();
+        for (long serial = block; serial < block + 8; ++serial) {
+            expected.add(serial);
+        }
+
+        assertEquals(expected, serials);
+    }
+
+    @Test
+    public void testServesSerialsOfBlockSizesOtherThanPowersOfTwo() {
+        CertificateSerialAllocator allocator = new CertificateSerialAllocator(10, new Random(12345));
+        List<Long> blocks = new ArrayList<>();
+
+        Set<Long> serials = new HashSet<>();
+        for (int i = 0; i < 10; ++i) {
+            long serial = allocator.next((start, size) -> blocks.add(start));
+            long block = blocks.get(0);
+
+            assertTrue(serial >= block && serial < block + 10);
+            serials.add(serial);
+        }
+
+        assertEquals(1, blocks.size());
+        assertEquals(10, serials.size());
+    }
+
+    @Test
+    public void testServesSerialsOutOfOrder() {
+        int blockSize = CertificateSerialIdGenerator.BLOCK_SIZE;
+        CertificateSerialAllocator allocator = new CertificateSerialAllocator(blockSize);
+
+        int consecutive = 0;
+        long previous = allocator.next((start, size) -> true);
+        for (int i = 1; i < blockSize; ++i) {
+            long serial = allocator.next((start, size) -> true);
+            if (serial == previous + 1) {
+                ++consecutive;
+            }
+
+            previous = serial;
+        }
+
+        // A random order has very few serials directly following the one before them
+        assertTrue(consecutive < blockSize / 4, "too many consecutive serials: " + consecutive);
+    }
+
+    @Test
+    public void testReservesNewBlockWhenExhausted() {
+        CertificateSerialAllocator allocator = new CertificateSerialAllocator(4, new Random(12345));
+        List<Long> blocks = new ArrayList<>();
+
+        for (int i = 0; i < 10; ++i) {
+            long serial = allocator.next((start, size) -> blocks.add(start));
+            long block = blocks.get(blocks.size() - 1);
+
+            assertTrue(serial >= block && serial < block + 4);
+        }
+
+        assertEquals(3, blocks.size());
+    }
+
+    @Test
+    public void testRetriesBlocksAlreadyInUse() {
+        CertificateSerialAllocator allocator = new CertificateSerialAllocator(4, new Random(12345));
+        AtomicInteger attempts = new AtomicInteger();
+
+        allocator.next((start, size) -> attempts.incrementAndGet() > 2);
+
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void testFailsWhenNoBlockCanBeReserved() {
+        CertificateSerialAllocator allocator = new CertificateSerialAllocator(4, new Random(12345));
+
+        assertThrows(IllegalStateException.class, () -> allocator.next((start, size) -> false));
+    }
+
+    @Test
+    public void testRejectsInvalidBlockSize() {
+        assertThrows(IllegalArgumentException.class, () -> new CertificateSerialAllocator(0));
+    }
+
+    @Test
+    public void testConcurrentAllocationProducesUniqueSerials() throws Exception {
+        CertificateSerialAllocator allocator = new CertificateSerialAllocator(16);
+        Set<Long> reserved = ConcurrentHashMap.newKeySet();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; ++t) {
+                futures.add(executor.submit(() -> {
+                    List<Long> serials = new ArrayList<>();
+                    for (int i = 0; i < 500; ++i) {
+                        serials.add(allocator.next((start, size) -> reserved.add(start)));
+                    }
+
+                    return serials;
+                }));
+            }
+
+            Set<Long> serials = new HashSet<>();
+            for (Future<List<Long>> future : futures) {
+                serials.addAll(future.get());
+            }
+
+            assertEquals(4000, serials.size());
+            assertEquals(250, reserved.size());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+}
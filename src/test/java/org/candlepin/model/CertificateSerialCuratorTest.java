@@ -15,6 +15,7 @@
 package org.candlepin.model;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -26,7 +27,9 @@ import org.junit.jupiter.api.Test;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 
 
@@ -158,4 +161,29 @@ public class CertificateSerialCuratorTest extends DatabaseTestFixture {
         }
     }
 
+    @Test
+    public void assignsSerialsFromReservedBlocksBeforeFlushing() {
+        int count = CertificateSerialIdGenerator.BLOCK_SIZE + 1;
+        Set<Long> serialIds = new HashSet<>();
+
+        for (int i = 0; i < count; ++i) {
+            CertificateSerial serial = certSerialCurator.create(new CertificateSerial(NOT_EXPIRED), false);
+
+            assertNotNull(serial.getId());
+            serialIds.add(serial.getId());
+        }
+
+        certSerialCurator.flush();
+        assertEquals(count, serialIds.size());
+
+        List<Number> blocks = this.getEntityManager()
+            .createNativeQuery("SELECT block_start FROM cp_cert_serial_block")
+            .getResultList();
+
+        assertFalse(blocks.isEmpty());
+        for (Number block : blocks) {
+            assertEquals(0, block.longValue() % CertificateSerialIdGenerator.BLOCK_SIZE);
+        }
+    }
+
 }
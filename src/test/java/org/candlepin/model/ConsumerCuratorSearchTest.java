@@ -30,13 +30,18 @@ import org.candlepin.auth.Principal;
 import org.candlepin.auth.permissions.OwnerPermission;
 import org.candlepin.auth.permissions.Permission;
 import org.candlepin.model.ConsumerCurator.ConsumerQueryArguments;
+import org.candlepin.paging.PageCursor;
+import org.candlepin.paging.PageRequest;
 import org.candlepin.test.DatabaseTestFixture;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -1070,4 +1075,104 @@ public class ConsumerCuratorSearchTest extends DatabaseTestFixture {
         }
     }
 
+    @ParameterizedTest
+    @ValueSource(booleans = { false, true })
+    public void testFindConsumersAfterCursor(boolean reverse) {
+        Owner owner = this.createOwner();
+        ConsumerType ctype = this.createConsumerType();
+
+        // Duplicate names ensure the pages are split between consumers with the same sort key
+        List<Consumer> created = new ArrayList<>();
+        for (String name : List.of("b", "a", "c", "b", "a", "b", "d")) {
+            created.add(this.consumerCurator.create(new Consumer()
+                .setName(name)
+                .setUsername("test-user")
+                .setOwner(owner)
+                .setType(ctype)));
+        }
+
+        Comparator<Consumer> comparator = Comparator.comparing(Consumer::getName)
+            .thenComparing(Consumer::getId);
+
+        List<String> expected = created.stream()
+            .sorted(reverse ? comparator.reversed() : comparator)
+            .map(Consumer::getId)
+            .collect(Collectors.toList());
+
+        PageRequest.Order order = reverse ? PageRequest.Order.DESCENDING : PageRequest.Order.ASCENDING;
+        List<String> fetched = new ArrayList<>();
+        PageCursor cursor = null;
+
+        do {
+            ConsumerQueryArguments queryArgs = new ConsumerQueryArguments()
+                .setOwner(owner)
+                .setCursor(cursor)
+                .setLimit(3)
+                .addOrder("name", reverse)
+                .addOrder(PageCursor.ID_FIELD, reverse);
+
+            List<Consumer> page = this.consumerCurator.findConsumers(queryArgs);
+            page.forEach(consumer -> fetched.add(consumer.getId()));
+
+            Consumer last = page.isEmpty() ? null : page.get(page.size() - 1);
+            cursor = page.size() < 3 ? null : PageCursor.after("name", order, last.getName(), last.getId());
+        }
+        while (cursor != null);
+
+        assertEquals(expected, fetched);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { false, true })
+    public void testFindConsumersAfterCursorIncludesNullSortKeys(boolean reverse) {
+        Owner owner = this.createOwner();
+        ConsumerType ctype = this.createConsumerType();
+
+        // Consumers which have never checked in have no check-in date to seek past
+        List<Consumer> created = new ArrayList<>();
+        for (Long checkin : Arrays.asList(null, 2000L, null, 1000L, 2000L, null, 3000L)) {
+            created.add(this.consumerCurator.create(new Consumer()
+                .setName("consumer")
+                .setUsername("test-user")
+                .setOwner(owner)
+                .setType(ctype)
+                .setLastCheckin(checkin != null ? new Date(checkin) : null)));
+        }
+
+        Comparator<Consumer> comparator = Comparator.comparing(Consumer::getLastCheckin,
+            Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Consumer::getId);
+
+        List<String> expected = created.stream()
+            .sorted(reverse ? comparator.reversed() : comparator)
+            .map(Consumer::getId)
+            .collect(Collectors.toList());
+
+        PageRequest.Order order = reverse ? PageRequest.Order.DESCENDING : PageRequest.Order.ASCENDING;
+        List<String> fetched = new ArrayList<>();
+        PageCursor cursor = PageCursor.first("lastCheckin", order);
+
+        while (cursor != null) {
+            ConsumerQueryArguments queryArgs = new ConsumerQueryArguments()
+                .setOwner(owner)
+                .setCursor(cursor)
+                .setLimit(2)
+                .addOrder("lastCheckin", reverse)
+                .addOrder(PageCursor.ID_FIELD, reverse);
+
+            List<Consumer> page = this.consumerCurator.findConsumers(queryArgs);
+            page.forEach(consumer -> fetched.add(consumer.getId()));
+
+            if (page.size() < 2) {
+                cursor = cursor.nextSegment();
+            }
+            else {
+                Consumer last = page.get(page.size() - 1);
+                cursor = PageCursor.after("lastCheckin", order, last.getLastCheckin(), last.getId());
+            }
+        }
+
+        assertEquals(expected, fetched);
+    }
+
 }
@@ -18,7 +18,9 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.times;
@@ -28,6 +30,7 @@ import static org.mockito.Mockito.when;
 import org.candlepin.async.tasks.InactiveConsumerCleanerJob;
 import org.candlepin.config.ConfigProperties;
 import org.candlepin.exceptions.NotFoundException;
+import org.candlepin.guice.CandlepinRequestScope;
 import org.candlepin.model.ConsumerType.ConsumerTypeEnum;
 import org.candlepin.test.DatabaseTestFixture;
 import org.candlepin.test.TestUtil;
@@ -44,6 +47,7 @@ import java.lang.reflect.Field;
 import java.math.BigInteger;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -1123,6 +1127,49 @@ public class ConsumerCuratorTest extends DatabaseTestFixture {
         assertEquals(consumer.getLastCheckin().getTime(), dt.getTime());
     }
 
+    @Test
+    public void updateLastCheckins() {
+        Map<String, Date> checkins = new HashMap<>();
+        List<Consumer> consumers = new ArrayList<>();
+
+        // Enough consumers to span more than one block
+        int count = consumerCurator.getBatchBlockSize() + 5;
+        for (int i = 0; i < count; ++i) {
+            Consumer consumer = consumerCurator.create(new Consumer()
+                .setName("consumer-" + i)
+                .setUsername("testUser")
+                .setOwner(owner)
+                .setType(ct));
+
+            consumers.add(consumer);
+            checkins.put(consumer.getId(), new Date(Util.yesterday().getTime() - i * 1000L));
+        }
+
+        Date untouchedCheckin = Util.tomorrow();
+        Consumer untouched = new Consumer()
+            .setName("untouched")
+            .setUsername("testUser")
+            .setOwner(owner)
+            .setType(ct);
+        untouched.setLastCheckin(untouchedCheckin);
+        untouched = consumerCurator.create(untouched);
+
+        assertEquals(count, consumerCurator.updateLastCheckins(checkins));
+
+        for (Consumer consumer : consumers) {
+            consumerCurator.refresh(consumer);
+            assertEquals(checkins.get(consumer.getId()).getTime(), consumer.getLastCheckin().getTime());
+        }
+
+        consumerCurator.refresh(untouched);
+        assertEquals(untouchedCheckin.getTime(), untouched.getLastCheckin().getTime());
+    }
+
+    @Test
+    public void updateLastCheckinsWithNoCheckins() {
+        assertEquals(0, consumerCurator.updateLastCheckins(Map.of()));
+    }
+
     @Test
     public void updateLastCheckIn() throws Exception {
         Date date = new Date();
@@ -1550,6 +1597,91 @@ public class ConsumerCuratorTest extends DatabaseTestFixture {
         assertNull(result);
     }
 
+    private Consumer createConsumerWithUuid(String uuid) {
+        Consumer consumer = new Consumer()
+            .setUuid(uuid)
+            .setName("consumer-" + uuid)
+            .setUsername("user-" + uuid)
+            .setOwner(owner)
+            .setType(ct);
+
+        return consumerCurator.create(consumer);
+    }
+
+    @Test
+    public void testFindByUuidResolvesConsumerOncePerRequest() {
+        Consumer consumer = this.createConsumerWithUuid("1");
+        ConsumerCurator curator = Mockito.spy(consumerCurator);
+
+        assertEquals(consumer, curator.findByUuid("1"));
+        assertEquals(consumer, curator.verifyAndLookupConsumer("1"));
+        assertEquals(consumer, curator.getConsumer("1"));
+
+        verify(curator, times(1)).createSecureCriteria();
+    }
+
+    @Test
+    public void testFindByUuidReloadsEvictedConsumer() {
+        Consumer consumer = this.createConsumerWithUuid("1");
+        ConsumerCurator curator = Mockito.spy(consumerCurator);
+
+        assertSame(consumer, curator.findByUuid("1"));
+        curator.evict(consumer);
+
+        Consumer result = curator.findByUuid("1");
+        assertEquals(consumer, result);
+        assertNotSame(consumer, result);
+
+        verify(curator, times(2)).createSecureCriteria();
+    }
+
+    @Test
+    public void testFindByUuidDoesNotResolveDeletedConsumer() {
+        Consumer consumer = this.createConsumerWithUuid("1");
+
+        assertEquals(consumer, consumerCurator.findByUuid("1"));
+        consumerCurator.delete(consumer);
+
+        assertNull(consumerCurator.findByUuid("1"));
+    }
+
+    @Test
+    public void testFindByUuidsOnlyQueriesUnresolvedConsumers() {
+        Consumer consumer1 = this.createConsumerWithUuid("1");
+        Consumer consumer2 = this.createConsumerWithUuid("2");
+        ConsumerCurator curator = Mockito.spy(consumerCurator);
+
+        assertEquals(consumer1, curator.findByUuid("1"));
+
+        Collection<Consumer> results = curator.findByUuids(List.of("1", "2"));
+        assertEquals(Set.of(consumer1, consumer2), new HashSet<>(results));
+
+        // Both consumers have now been resolved
+        curator.findByUuids(List.of("1", "2"));
+        assertEquals(consumer2, curator.findByUuid("2"));
+
+        verify(curator, times(2)).createSecureCriteria();
+    }
+
+    @Test
+    public void testFindByUuidOutsideOfRequestScope() {
+        Consumer consumer = this.createConsumerWithUuid("1");
+        ConsumerCurator curator = Mockito.spy(consumerCurator);
+        CandlepinRequestScope requestScope = this.injector.getInstance(CandlepinRequestScope.class);
+
+        requestScope.exit();
+        try {
+            assertEquals(consumer, curator.findByUuid("1"));
+            assertEquals(consumer, curator.findByUuid("1"));
+        }
+        finally {
+            requestScope.enter();
+        }
+
+        // Without a request scope, there is no identity map to resolve the consumer from
+        verify(curator, times(2)).createSecureCriteria();
+    }
+
     @Test
     public void testVerifyAndLookupConsumer() {
         Consumer consumer = new Consumer()
@@ -16,6 +16,7 @@ package org.candlepin.model;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -35,6 +36,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -551,6 +553,104 @@ public class ConsumerTest extends DatabaseTestFixture {
         assertTrue(consumer.getUsage().isEmpty());
     }
 
+    @Test
+    public void testFactsFingerprintIgnoresOrder() {
+        Map<String, String> facts1 = new LinkedHashMap<>();
+        facts1.put("key1", "1");
+        facts1.put("key2", "2");
+
+        Map<String, String> facts2 = new LinkedHashMap<>();
+        facts2.put("key2", "2");
+        facts2.put("key1", "1");
+
+        assertEquals(Consumer.fingerprintFacts(facts1), Consumer.fingerprintFacts(facts2));
+    }
+
+    @Test
+    public void testFactsFingerprintDistinguishesNullAndEmptyValues() {
+        Map<String, String> facts1 = new HashMap<>();
+        facts1.put("key1", null);
+
+        Map<String, String> facts2 = new HashMap<>();
+        facts2.put("key1", "");
+
+        assertNotEquals(Consumer.fingerprintFacts(facts1), Consumer.fingerprintFacts(facts2));
+    }
+
+    @Test
+    public void testFactsFingerprintTracksFactChanges() {
+        Consumer consumer = new Consumer();
+        assertNull(consumer.getFactsFingerprint());
+
+        consumer.setFacts(Map.of("key1", "1", "key2", "2"));
+        assertEquals(Consumer.fingerprintFacts(Map.of("key1", "1", "key2", "2")),
+            consumer.getFactsFingerprint());
+
+        consumer.setFact("key3", "3");
+        assertEquals(Consumer.fingerprintFacts(Map.of("key1", "1", "key2", "2", "key3", "3")),
+            consumer.getFactsFingerprint());
+
+        consumer.removeFact("key1");
+        assertEquals(Consumer.fingerprintFacts(Map.of("key2", "2", "key3", "3")),
+            consumer.getFactsFingerprint());
+    }
+
+    @Test
+    public void testSetFactsAppliesChanges() {
+        Consumer consumer = new Consumer()
+            .setFact("unchanged", "1")
+            .setFact("updated", "2")
+            .setFact("removed", "3");
+
+        Map<String, String> facts = new HashMap<>();
+        facts.put("unchanged", "1");
+        facts.put("updated", "two");
+        facts.put("inserted", "4");
+
+        consumer.setFacts(facts);
+
+        assertEquals(facts, consumer.getFacts());
+    }
+
+    @Test
+    public void testUnchangedFactsDoNotLoadFactCollection() {
+        Map<String, String> facts = Map.of("foo", "bar", "foo1", "bar1", "uptime", "100");
+
+        consumer.setFacts(facts);
+        consumerCurator.merge(consumer);
+        consumerCurator.flush();
+        consumerCurator.clear();
+
+        Consumer lookedUp = consumerCurator.get(consumer.getId());
+        assertFalse(lookedUp.areFactsLoaded());
+
+        assertTrue(lookedUp.factsAreEqual(new HashMap<>(facts)));
+        lookedUp.setFacts(new HashMap<>(facts));
+        assertFalse(lookedUp.areFactsLoaded());
+
+        assertFalse(lookedUp.factsAreEqual(Map.of("foo", "bar", "foo1", "bar1", "uptime", "200")));
+    }
+
+    @Test
+    public void testUpdatedFactsArePersisted() {
+        consumer.setFacts(Map.of("foo", "bar", "foo1", "bar1", "uptime", "100"));
+        consumerCurator.merge(consumer);
+        consumerCurator.flush();
+        consumerCurator.clear();
+
+        Map<String, String> updated = Map.of("foo", "baz", "uptime", "200", "memory", "4096");
+
+        Consumer lookedUp = consumerCurator.get(consumer.getId());
+        lookedUp.setFacts(updated);
+        consumerCurator.merge(lookedUp);
+        consumerCurator.flush();
+        consumerCurator.clear();
+
+        lookedUp = consumerCurator.get(consumer.getId());
+        assertEquals(updated, lookedUp.getFacts());
+        assertEquals(Consumer.fingerprintFacts(updated), lookedUp.getFactsFingerprint());
+    }
+
     @Test
     public void testCloudProfileFactDidNotChange() {
         Consumer consumer = new Consumer();
@@ -180,6 +180,25 @@ public class ContentCuratorTest extends DatabaseTestFixture {
         assertEquals(content2, output);
     }
 
+    @Test
+    public void testUpdateAndGetRefreshFingerprints() {
+        Content content1 = this.createNamespacedContent("test_content-1", null);
+        Content content2 = this.createNamespacedContent("test_content-2", null);
+        Content content3 = this.createNamespacedContent("test_content-3", "namespace-1");
+        this.contentCurator.flush();
+
+        List<String> ids = List.of("test_content-1", "test_content-2", "test_content-3");
+        assertEquals(Map.of(), this.contentCurator.getRefreshFingerprints(ids));
+
+        int updated = this.contentCurator.updateRefreshFingerprints(Map.of(
+            content1.getUuid(), "fp-1",
+            content3.getUuid(), "fp-3"));
+        assertEquals(2, updated);
+
+        // Only content in the global namespace should be returned
+        assertEquals(Map.of("test_content-1", "fp-1"), this.contentCurator.getRefreshFingerprints(ids));
+    }
+
     @Test
     public void testGetContentsByIds() {
         Content content1 = this.createNamespacedContent("test_content-1", null); // global namespace
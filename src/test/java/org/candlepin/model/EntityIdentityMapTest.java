@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.model;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.candlepin.auth.Access;
+import org.candlepin.auth.Principal;
+import org.candlepin.auth.SubResource;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+
+public class EntityIdentityMapTest {
+
+    private EntityIdentityMap identityMap;
+    private Session session;
+    private Consumer consumer;
+
+    @BeforeEach
+    public void setUp() {
+        this.identityMap = new EntityIdentityMap();
+        this.session = mock(Session.class);
+        this.consumer = new Consumer().setUuid("uuid-1");
+
+        doReturn(true).when(this.session).contains(this.consumer);
+    }
+
+    private Principal mockPrincipal(boolean fullAccess, boolean canAccess) {
+        Principal principal = mock(Principal.class);
+        when(principal.hasFullAccess()).thenReturn(fullAccess);
+        when(principal.canAccess(any(), any(SubResource.class), any(Access.class))).thenReturn(canAccess);
+
+        return principal;
+    }
+
+    @Test
+    public void testGetResolvedEntity() {
+        this.identityMap.put(Consumer.class, "uuid-1", this.consumer, null);
+
+        assertSame(this.consumer, this.identityMap.get(Consumer.class, "uuid-1", this.session, null));
+        assertNull(this.identityMap.get(Consumer.class, "uuid-2", this.session, null));
+        assertNull(this.identityMap.get(Owner.class, "uuid-1", this.session, null));
+    }
+
+    @Test
+    public void testNullEntitiesAreNotRecorded() {
+        this.identityMap.put(Consumer.class, "uuid-1", null, null);
+        this.identityMap.put(Consumer.class, null, this.consumer, null);
+
+        assertNull(this.identityMap.get(Consumer.class, "uuid-1", this.session, null));
+        assertNull(this.identityMap.get(Consumer.class, null, this.session, null));
+    }
+
+    @Test
+    public void testEntitiesNoLongerInSessionAreDropped() {
+        this.identityMap.put(Consumer.class, "uuid-1", this.consumer, null);
+        doReturn(false).when(this.session).contains(this.consumer);
+
+        assertNull(this.identityMap.get(Consumer.class, "uuid-1", this.session, null));
+
+        // Once dropped, the entity is not returned even if it is attached again
+        doReturn(true).when(this.session).contains(this.consumer);
+        assertNull(this.identityMap.get(Consumer.class, "uuid-1", this.session, null));
+    }
+
+    @Test
+    public void testEntitiesAreOnlyReturnedToPrincipalsWhichMayReadThem() {
+        Principal resolver = this.mockPrincipal(false, true);
+        this.identityMap.put(Consumer.class, "uuid-1", this.consumer, resolver);
+
+        assertSame(this.consumer, this.identityMap.get(Consumer.class, "uuid-1", this.session, resolver));
+        assertSame(this.consumer, this.identityMap.get(Consumer.class, "uuid-1", this.session,
+            this.mockPrincipal(true, false)));
+        assertSame(this.consumer, this.identityMap.get(Consumer.class, "uuid-1", this.session,
+            this.mockPrincipal(false, true)));
+        assertNull(this.identityMap.get(Consumer.class, "uuid-1", this.session,
+            this.mockPrincipal(false, false)));
+    }
+
+    @Test
+    public void testRemove() {
+        Owner owner = new Owner().setKey("owner");
+        doReturn(true).when(this.session).contains(owner);
+
+        this.identityMap.put(Consumer.class, "uuid-1", this.consumer, null);
+        this.identityMap.put(Owner.class, "owner", owner, null);
+
+        this.identityMap.remove(Consumer.class, "uuid-1");
+        assertNull(this.identityMap.get(Consumer.class, "uuid-1", this.session, null));
+
+        this.identityMap.put(Consumer.class, "uuid-1", this.consumer, null);
+        this.identityMap.removeAll(Consumer.class);
+        assertNull(this.identityMap.get(Consumer.class, "uuid-1", this.session, null));
+        assertSame(owner, this.identityMap.get(Owner.class, "owner", this.session, null));
+    }
+}
@@ -17,9 +17,16 @@ package org.candlepin.model;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import org.candlepin.controller.OwnerContentAccess;
 import org.candlepin.model.ConsumerType.ConsumerTypeEnum;
@@ -405,4 +412,44 @@ public class OwnerCuratorTest extends DatabaseTestFixture {
         assertFalse(now.isBefore(owner2.getLastContentUpdate().toInstant()));
         assertFalse(now.isBefore(owner3.getLastContentUpdate().toInstant()));
     }
+
+    @Test
+    public void testGetByKeySecureResolvesOwnerOncePerRequest() {
+        Owner owner = this.createOwner();
+        OwnerCurator curator = spy(this.ownerCurator);
+
+        assertSame(owner, curator.getByKeySecure(owner.getKey()));
+        assertSame(owner, curator.getByKeySecure(owner.getKey()));
+        assertEquals(List.of(owner), curator.getByKeysSecure(List.of(owner.getKey())));
+
+        verify(curator, times(1)).createSecureCriteria();
+        verify(curator, never()).getByKeys(anyCollection());
+    }
+
+    @Test
+    public void testGetByKeySecureResolvesOwnerFoundById() {
+        Owner owner = this.createOwner();
+        OwnerCurator curator = spy(this.ownerCurator);
+
+        // As when the owner of a consumer is loaded while authenticating the consumer
+        assertSame(owner, curator.findOwnerById(owner.getId()));
+        assertSame(owner, curator.getByKeySecure(owner.getKey()));
+
+        verify(curator, never()).createSecureCriteria();
+    }
+
+    @Test
+    public void testGetByKeySecureReloadsEvictedOwner() {
+        Owner owner = this.createOwner();
+        OwnerCurator curator = spy(this.ownerCurator);
+
+        assertSame(owner, curator.getByKeySecure(owner.getKey()));
+        curator.evict(owner);
+
+        Owner result = curator.getByKeySecure(owner.getKey());
+        assertNotSame(owner, result);
+        assertEquals(owner.getId(), result.getId());
+
+        verify(curator, times(2)).createSecureCriteria();
+    }
 }
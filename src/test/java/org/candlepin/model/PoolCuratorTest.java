@@ -28,6 +28,11 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import org.candlepin.auth.NoAuthPrincipal;
 import org.candlepin.config.DatabaseConfigFactory;
@@ -65,6 +70,10 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -264,6 +273,42 @@ public class PoolCuratorTest extends DatabaseTestFixture {
         assertEquals(pool2.getId(), results.get(0).getId());
     }
 
+    @Test
+    public void availablePoolIdsAreListedInPageOrder() {
+        Date activeDate = TestUtil.createDate(2000, 3, 2);
+
+        Pool pool1 = poolCurator.create(createPool(owner, product, 30L,
+            activeDate, TestUtil.createDate(2005, 3, 2)));
+        Pool pool2 = poolCurator.create(createPool(owner, product, 10L,
+            activeDate, TestUtil.createDate(2005, 3, 2)));
+        Pool pool3 = poolCurator.create(createPool(owner, product, 20L,
+            activeDate, TestUtil.createDate(2005, 3, 2)));
+
+        PageRequest req = new PageRequest()
+            .setPage(1)
+            .setPerPage(1)
+            .setOrder(PageRequest.Order.ASCENDING)
+            .setSortBy("quantity");
+
+        // The page itself is ignored; every matching ID is listed
+        List<String> poolIds = poolCurator.listAvailableEntitlementPoolIds(null, owner.getId(),
+            null, null, activeDate, new PoolFilterBuilder(), req, false, false, null);
+
+        assertEquals(List.of(pool2.getId(), pool3.getId(), pool1.getId()), poolIds);
+    }
+
+    @Test
+    public void poolsAreListedInTheOrderOfTheirIds() {
+        Pool pool1 = poolCurator.create(createPool(owner, product, 10L,
+            TestUtil.createDate(2000, 3, 2), TestUtil.createDate(2005, 3, 2)));
+        Pool pool2 = poolCurator.create(createPool(owner, product, 10L,
+            TestUtil.createDate(2000, 3, 2), TestUtil.createDate(2005, 3, 2)));
+
+        List<Pool> pools = poolCurator.listPoolsInOrder(List.of(pool2.getId(), "missing", pool1.getId()));
+
+        assertEquals(List.of(pool2, pool1), pools);
+    }
+
     @Test
     public void availablePoolsCanBeFilteredByPoolId() {
         Date activeDate = TestUtil.createDate(2000, 3, 2);
@@ -2025,6 +2070,138 @@ public class PoolCuratorTest extends DatabaseTestFixture {
         assertEquals(0, pool.getExported().longValue());
     }
 
+    @Test
+    public void testFindAndRecalculatePoolQuantityDrift() {
+        Consumer consumer = createMockConsumer(owner, true);
+
+        Pool pool = createPool(owner, product)
+            .setQuantity(10L)
+            .setStartDate(TestUtil.createDate(2010, 3, 2))
+            .setEndDate(TestUtil.createDate(Calendar.getInstance().get(Calendar.YEAR) + 1, 3, 2));
+        poolCurator.create(pool);
+        Entitlement e = new Entitlement(pool, consumer, owner, 5);
+        e.setId(Util.generateDbUUID());
+        entitlementCurator.create(e);
+
+        List<PoolQuantityDrift> drift = poolCurator.findPoolQuantityDrift(owner);
+        assertEquals(List.of(new PoolQuantityDrift(pool.getId(), 0, 5, 0, 5)), drift);
+
+        assertEquals(1, poolCurator.recalculatePoolQuantities(List.of(pool.getId())));
+        poolCurator.refresh(pool);
+
+        assertEquals(5, pool.getConsumed().longValue());
+        assertEquals(5, pool.getExported().longValue());
+        assertTrue(poolCurator.findPoolQuantityDrift(owner).isEmpty());
+    }
+
+    @Test
+    public void testFindPoolQuantityDriftIgnoresAccuratePools() {
+        Consumer consumer = this.createConsumer(owner);
+
+        Pool pool = createPool(owner, product)
+            .setQuantity(20L)
+            .setStartDate(TestUtil.createDate(2010, 3, 2))
+            .setEndDate(TestUtil.createDate(Calendar.getInstance().get(Calendar.YEAR) + 1, 3, 2));
+        pool.setConsumed(5L);
+        poolCurator.create(pool);
+        Entitlement e = new Entitlement(pool, consumer, owner, 5);
+        e.setId(Util.generateDbUUID());
+        entitlementCurator.create(e);
+
+        // Pools without entitlements should not be reported either
+        createPool(owner, product);
+
+        assertTrue(poolCurator.findPoolQuantityDrift(owner).isEmpty());
+    }
+
+    @Test
+    public void testReservePoolQuantity() {
+        Pool pool = this.createPool(owner, product, 10L, TestUtil.createDate(2000, 1, 1),
+            TestUtil.createDate(2100, 1, 1));
+        this.commitTransaction();
+
+        assertTrue(poolCurator.reservePoolQuantity(pool.getId(), 6, false));
+        assertFalse(poolCurator.reservePoolQuantity(pool.getId(), 5, false));
+        assertTrue(poolCurator.reservePoolQuantity(pool.getId(), 4, true));
+
+        this.beginTransaction();
+        poolCurator.refresh(pool);
+
+        assertEquals(10L, pool.getConsumed());
+        assertEquals(4L, pool.getExported());
+    }
+
+    @Test
+    public void testReservePoolQuantityFromUnlimitedPool() {
+        Pool pool = this.createPool(owner, product, -1L, TestUtil.createDate(2000, 1, 1),
+            TestUtil.createDate(2100, 1, 1));
+        this.commitTransaction();
+
+        assertTrue(poolCurator.reservePoolQuantity(pool.getId(), 1000, false));
+
+        this.beginTransaction();
+        poolCurator.refresh(pool);
+
+        assertEquals(1000L, pool.getConsumed());
+    }
+
+    @Test
+    public void testReservePoolQuantityRequiresExistingPool() {
+        this.commitTransaction();
+
+        assertFalse(poolCurator.reservePoolQuantity("bad_pool_id", 1, false));
+    }
+
+    @Test
+    public void testReleasePoolQuantity() {
+        Pool pool = this.createPool(owner, product, 10L, TestUtil.createDate(2000, 1, 1),
+            TestUtil.createDate(2100, 1, 1));
+        this.commitTransaction();
+
+        assertTrue(poolCurator.reservePoolQuantity(pool.getId(), 10, true));
+        poolCurator.releasePoolQuantity(pool.getId(), 10, true);
+
+        this.beginTransaction();
+        poolCurator.refresh(pool);
+
+        assertEquals(0L, pool.getConsumed());
+        assertEquals(0L, pool.getExported());
+    }
+
+    @Test
+    public void testReservePoolQuantityConcurrently() throws Exception {
+        int quantity = 20;
+        int binds = 100;
+
+        Pool pool = this.createPool(owner, product, (long) quantity, TestUtil.createDate(2000, 1, 1),
+            TestUtil.createDate(2100, 1, 1));
+        this.commitTransaction();
+
+        List<Callable<Boolean>> tasks = Collections.nCopies(binds,
+            () -> poolCurator.reservePoolQuantity(pool.getId(), 1, false));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        int reserved = 0;
+
+        try {
+            for (Future<Boolean> result : executor.invokeAll(tasks)) {
+                if (result.get()) {
+                    ++reserved;
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(quantity, reserved);
+
+        this.beginTransaction();
+        poolCurator.refresh(pool);
+
+        assertEquals((long) quantity, pool.getConsumed());
+    }
+
     @Test
     public void testMarkCertificatesDirtyForPoolsWithNormalProduct() {
         Consumer consumer = this.createConsumer(owner);
@@ -2904,6 +3081,120 @@ public class PoolCuratorTest extends DatabaseTestFixture {
         assertTrue(result.isEmpty());
     }
 
+    private Pool createSubscriptionPool(Owner owner, String subscriptionId, String subKey) {
+        Pool pool = TestUtil.createPool(owner, this.createProduct())
+            .setSourceSubscription(new SourceSubscription(subscriptionId, subKey));
+
+        return this.poolCurator.create(pool);
+    }
+
+    @Test
+    public void testListByOwnerTypesAndSubscriptionIds() {
+        Owner owner = this.createOwner();
+        Owner other = this.createOwner();
+
+        Pool pool1 = this.createSubscriptionPool(owner, "sub-1", SourceSubscription.PRIMARY_POOL_SUB_KEY);
+        Pool pool2 = this.createSubscriptionPool(owner, "sub-2", SourceSubscription.PRIMARY_POOL_SUB_KEY);
+        this.createSubscriptionPool(owner, "sub-3", SourceSubscription.PRIMARY_POOL_SUB_KEY);
+        this.createSubscriptionPool(other, "sub-1", SourceSubscription.PRIMARY_POOL_SUB_KEY);
+
+        List<Pool> pools = this.poolCurator.listByOwnerTypesAndSubscriptionIds(owner.getId(),
+            List.of("sub-1", "sub-2", "sub-4"), Pool.PoolType.NORMAL);
+
+        assertNotNull(pools);
+        assertEquals(2, pools.size());
+        assertTrue(pools.containsAll(List.of(pool1, pool2)));
+
+        assertEquals(0, this.poolCurator.listByOwnerTypesAndSubscriptionIds(owner.getId(),
+            List.of("sub-1"), Pool.PoolType.DEVELOPMENT).size());
+        assertEquals(0, this.poolCurator.listByOwnerTypesAndSubscriptionIds(owner.getId(),
+            List.of(), Pool.PoolType.NORMAL).size());
+    }
+
+    @Test
+    public void testUpdateAndGetSubscriptionFingerprints() {
+        Owner owner = this.createOwner();
+        Owner other = this.createOwner();
+
+        this.createSubscriptionPool(owner, "sub-1", SourceSubscription.PRIMARY_POOL_SUB_KEY);
+        this.createSubscriptionPool(owner, "sub-1", SourceSubscription.DERIVED_POOL_SUB_KEY);
+        this.createSubscriptionPool(owner, "sub-2", SourceSubscription.PRIMARY_POOL_SUB_KEY);
+        this.createSubscriptionPool(other, "sub-1", SourceSubscription.PRIMARY_POOL_SUB_KEY);
+        this.poolCurator.flush();
+
+        // Nothing should be recorded initially
+        assertEquals(Map.of(), this.poolCurator.getSubscriptionFingerprints(owner.getId(),
+            List.of("sub-1", "sub-2")));
+
+        // Only the primary pool of each subscription should be updated
+        int updated = this.poolCurator.updateSubscriptionFingerprints(owner.getId(),
+            Map.of("sub-1", "fp-1", "sub-2", "fp-2", "sub-3", "fp-3"));
+        assertEquals(2, updated);
+
+        assertEquals(Map.of("sub-1", "fp-1", "sub-2", "fp-2"), this.poolCurator
+            .getSubscriptionFingerprints(owner.getId(), List.of("sub-1", "sub-2", "sub-3")));
+        assertEquals(Map.of(), this.poolCurator.getSubscriptionFingerprints(other.getId(),
+            List.of("sub-1")));
+    }
+
+    @Test
+    public void testGetSubscriptionFingerprintsOmitsSubscriptionsWithDirtyPools() {
+        Owner owner = this.createOwner();
+
+        this.createSubscriptionPool(owner, "sub-1", SourceSubscription.PRIMARY_POOL_SUB_KEY);
+        Pool derived = this.createSubscriptionPool(owner, "sub-1", SourceSubscription.DERIVED_POOL_SUB_KEY);
+        this.createSubscriptionPool(owner, "sub-2", SourceSubscription.PRIMARY_POOL_SUB_KEY);
+        this.poolCurator.flush();
+
+        this.poolCurator.updateSubscriptionFingerprints(owner.getId(),
+            Map.of("sub-1", "fp-1", "sub-2", "fp-2"));
+        this.poolCurator.markPoolsDirtyReferencingProducts(List.of(derived.getProductUuid()));
+
+        assertEquals(Map.of("sub-2", "fp-2"), this.poolCurator.getSubscriptionFingerprints(owner.getId(),
+            List.of("sub-1", "sub-2")));
+    }
+
+    @Test
+    public void testGetSubscriptionFingerprintsIgnoresDirtyPoolsOfOtherOwners() {
+        Owner owner = this.createOwner();
+        Owner other = this.createOwner();
+
+        this.createSubscriptionPool(owner, "sub-1", SourceSubscription.PRIMARY_POOL_SUB_KEY);
+        Pool otherPool = this.createSubscriptionPool(other, "sub-1", SourceSubscription.PRIMARY_POOL_SUB_KEY);
+        this.poolCurator.flush();
+
+        this.poolCurator.updateSubscriptionFingerprints(owner.getId(), Map.of("sub-1", "fp-1"));
+        this.poolCurator.markPoolsDirtyReferencingProducts(List.of(otherPool.getProductUuid()));
+
+        assertEquals(Map.of("sub-1", "fp-1"), this.poolCurator.getSubscriptionFingerprints(owner.getId(),
+            List.of("sub-1")));
+    }
+
+    @Test
+    public void testGetSubscriptionFingerprintsOmitsSubscriptionsMissingDerivedPools() {
+        Owner owner = this.createOwner();
+
+        Product product = this.createProduct(TestUtil.createProduct()
+            .setAttribute(Product.Attributes.VIRT_LIMIT, "4"));
+
+        // Both subscriptions should have a derived pool, but only sub-2 still does
+        for (String subscriptionId : List.of("sub-1", "sub-2")) {
+            this.poolCurator.create(TestUtil.createPool(owner, product)
+                .setSourceSubscription(new SourceSubscription(subscriptionId,
+                    SourceSubscription.PRIMARY_POOL_SUB_KEY)));
+        }
+
+        this.createSubscriptionPool(owner, "sub-2", SourceSubscription.DERIVED_POOL_SUB_KEY);
+        this.createSubscriptionPool(owner, "sub-3", SourceSubscription.PRIMARY_POOL_SUB_KEY);
+        this.poolCurator.flush();
+
+        this.poolCurator.updateSubscriptionFingerprints(owner.getId(),
+            Map.of("sub-1", "fp-1", "sub-2", "fp-2", "sub-3", "fp-3"));
+
+        assertEquals(Map.of("sub-2", "fp-2", "sub-3", "fp-3"), this.poolCurator
+            .getSubscriptionFingerprints(owner.getId(), List.of("sub-1", "sub-2", "sub-3")));
+    }
+
     @Test
     public void testCreatePool() {
         Product prod = this.createProduct();
@@ -3398,4 +3689,37 @@ public class PoolCuratorTest extends DatabaseTestFixture {
         assertFalse(pool6.hasDirtyProduct());
     }
 
+    @Test
+    public void testSecureGetResolvesPoolOncePerRequest() {
+        Pool pool = this.poolCurator.create(createPool(owner, product, 100L,
+            TestUtil.createDate(2000, 3, 2), TestUtil.createDate(2050, 3, 2)));
+        PoolCurator curator = spy(this.poolCurator);
+
+        assertSame(pool, curator.secureGet(pool.getId()));
+        assertEquals(List.of(pool), curator.secureGetAll(List.of(pool.getId())));
+        assertSame(pool, curator.secureGet(pool.getId()));
+
+        verify(curator, times(1)).createSecureCriteria();
+        verify(curator, never()).listAllByIds(anyCollection());
+    }
+
+    @Test
+    public void testSecureGetAllOnlyQueriesUnresolvedPools() {
+        Pool pool1 = this.poolCurator.create(createPool(owner, product, 100L,
+            TestUtil.createDate(2000, 3, 2), TestUtil.createDate(2050, 3, 2)));
+        Pool pool2 = this.poolCurator.create(createPool(owner, product, 100L,
+            TestUtil.createDate(2000, 3, 2), TestUtil.createDate(2050, 3, 2)));
+        PoolCurator curator = spy(this.poolCurator);
+
+        assertSame(pool1, curator.secureGet(pool1.getId()));
+
+        List<Pool> pools = curator.secureGetAll(List.of(pool1.getId(), pool2.getId()));
+        assertEquals(Set.of(pool1, pool2), new HashSet<>(pools));
+        verify(curator, times(1)).listAllByIds(Set.of(pool2.getId()));
+
+        // Both pools have now been resolved
+        assertSame(pool2, curator.secureGet(pool2.getId()));
+        verify(curator, times(1)).createSecureCriteria();
+    }
+
 }
@@ -168,6 +168,27 @@ public class ProductCuratorTest extends DatabaseTestFixture {
         assertEquals(product2, output);
     }
 
+    @Test
+    public void testUpdateAndGetRefreshFingerprints() {
+        Product product1 = this.createProduct("p1");
+        Product product2 = this.createProduct("p2");
+        Product product3 = this.createProduct(TestUtil.createProduct("p3")
+            .setNamespace(this.createOwner()));
+        this.productCurator.flush();
+
+        assertEquals(Map.of(), this.productCurator.getRefreshFingerprints(List.of("p1", "p2", "p3")));
+
+        int updated = this.productCurator.updateRefreshFingerprints(Map.of(
+            product1.getUuid(), "fp-1",
+            product3.getUuid(), "fp-3"));
+        assertEquals(2, updated);
+
+        // Only products in the global namespace should be returned
+        assertEquals(Map.of("p1", "fp-1"), this.productCurator
+            .getRefreshFingerprints(List.of("p1", "p2", "p3")));
+        assertEquals(Map.of(), this.productCurator.getRefreshFingerprints(null));
+    }
+
     @Test
     public void testGetProductsByIds() {
         Product product1 = this.createNamespacedProduct("test_prod-1", null); // global namespace
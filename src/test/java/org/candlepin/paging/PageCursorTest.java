@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.paging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+
+
+public class PageCursorTest {
+
+    private enum Color { RED, GREEN }
+
+    @Test
+    public void testEncodedCursorRoundTrips() {
+        Date created = new Date();
+        PageCursor cursor = PageCursor.after("created", PageRequest.Order.DESCENDING, created, "id-1");
+
+        PageCursor decoded = PageCursor.decode(cursor.encode());
+
+        assertEquals(cursor, decoded);
+        assertEquals("created", decoded.getSortBy());
+        assertEquals(PageRequest.Order.DESCENDING, decoded.getOrder());
+        assertEquals(created, decoded.getSortValue());
+        assertEquals("id-1", decoded.getId());
+    }
+
+    @Test
+    public void testEncodedCursorIsUrlSafe() {
+        PageCursor cursor = PageCursor.after("name", PageRequest.Order.ASCENDING, "a/b+c d?&=.", "id.1");
+
+        String token = cursor.encode();
+
+        assertTrue(token.matches("[A-Za-z0-9_.-]+"), token);
+        assertEquals(cursor, PageCursor.decode(token));
+    }
+
+    @Test
+    public void testSortValuesAreNormalized() {
+        Instant instant = Instant.ofEpochMilli(1234567890L);
+
+        assertEquals(5L, PageCursor.after("f", PageRequest.Order.ASCENDING, 5, "id").getSortValue());
+        assertEquals(2.5, PageCursor.after("f", PageRequest.Order.ASCENDING, 2.5f, "id").getSortValue());
+        assertEquals("GREEN", PageCursor.after("f", PageRequest.Order.ASCENDING, Color.GREEN, "id")
+            .getSortValue());
+        assertEquals(Date.from(instant), PageCursor.after("f", PageRequest.Order.ASCENDING,
+            OffsetDateTime.ofInstant(instant, ZoneOffset.UTC), "id").getSortValue());
+        assertNull(PageCursor.after("f", PageRequest.Order.ASCENDING, null, "id").getSortValue());
+    }
+
+    @Test
+    public void testEachValueTypeRoundTrips() {
+        Object[] values = { null, "value", 7L, 1.5, true, new Date(1000L) };
+
+        for (Object value : values) {
+            PageCursor cursor = PageCursor.after("f", PageRequest.Order.ASCENDING, value, "id");
+            assertEquals(value, PageCursor.decode(cursor.encode()).getSortValue());
+        }
+    }
+
+    @Test
+    public void testUnsupportedSortValueRejected() {
+        assertThrows(IllegalArgumentException.class,
+            () -> PageCursor.after("f", PageRequest.Order.ASCENDING, new Object(), "id"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "", "garbage", "1.a.a.s.a", "2.Zg.a.s.dg.aWQ", "1.Zg.x.s.dg.aWQ",
+        "1.Zg.a.q.dg.aWQ", "1.Zg.a.l.eA.aWQ", "1.Zg.a.s.dg.!!" })
+    public void testMalformedTokensRejected(String token) {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(token));
+    }
+
+    @Test
+    public void testPrecedesInAscendingOrder() {
+        PageCursor cursor = PageCursor.after("f", PageRequest.Order.ASCENDING, 5, "m");
+
+        assertTrue(cursor.precedes(6, "a"));
+        assertTrue(cursor.precedes(5, "n"));
+        assertFalse(cursor.precedes(5, "m"));
+        assertFalse(cursor.precedes(5, "a"));
+        assertFalse(cursor.precedes(4, "z"));
+        assertFalse(cursor.precedes(null, "z"));
+    }
+
+    @Test
+    public void testPrecedesInDescendingOrder() {
+        PageCursor cursor = PageCursor.after("f", PageRequest.Order.DESCENDING, "m", "m");
+
+        assertTrue(cursor.precedes("a", "z"));
+        assertTrue(cursor.precedes("m", "a"));
+        assertFalse(cursor.precedes("m", "m"));
+        assertFalse(cursor.precedes("m", "n"));
+        assertFalse(cursor.precedes("z", "a"));
+    }
+
+    @Test
+    public void testMatches() {
+        PageCursor cursor = PageCursor.after("name", PageRequest.Order.ASCENDING, "n", "id");
+
+        assertTrue(cursor.matches("name", PageRequest.Order.ASCENDING));
+        assertFalse(cursor.matches("name", PageRequest.Order.DESCENDING));
+        assertFalse(cursor.matches("created", PageRequest.Order.ASCENDING));
+    }
+
+    @Test
+    public void testNullKeysComeFirstInAscendingOrder() {
+        PageCursor first = PageCursor.first("f", PageRequest.Order.ASCENDING);
+        assertTrue(first.isNullKeySegment());
+        assertNull(first.getId());
+
+        PageCursor next = first.nextSegment();
+        assertFalse(next.isNullKeySegment());
+        assertNull(next.getId());
+        assertNull(next.nextSegment());
+
+        PageCursor cursor = PageCursor.after("f", PageRequest.Order.ASCENDING, null, "m");
+        assertTrue(cursor.isNullKeySegment());
+        assertTrue(cursor.precedes(null, "n"));
+        assertFalse(cursor.precedes(null, "a"));
+        assertTrue(cursor.precedes("a", "a"));
+    }
+
+    @Test
+    public void testNullKeysComeLastInDescendingOrder() {
+        PageCursor first = PageCursor.first("f", PageRequest.Order.DESCENDING);
+        assertFalse(first.isNullKeySegment());
+
+        PageCursor next = first.nextSegment();
+        assertTrue(next.isNullKeySegment());
+        assertNull(next.nextSegment());
+
+        PageCursor keyed = PageCursor.after("f", PageRequest.Order.DESCENDING, "m", "m");
+        assertTrue(keyed.precedes(null, "z"));
+
+        PageCursor cursor = PageCursor.after("f", PageRequest.Order.DESCENDING, null, "m");
+        assertTrue(cursor.precedes(null, "a"));
+        assertFalse(cursor.precedes(null, "n"));
+        assertFalse(cursor.precedes("a", "a"));
+    }
+
+    @Test
+    public void testSegmentStartPrecedesItsSegmentAndLaterSegments() {
+        PageCursor ascending = PageCursor.first("f", PageRequest.Order.ASCENDING).nextSegment();
+        assertTrue(ascending.precedes("a", "a"));
+        assertFalse(ascending.precedes(null, "a"));
+
+        PageCursor descending = PageCursor.first("f", PageRequest.Order.DESCENDING);
+        assertTrue(descending.precedes("a", "a"));
+        assertTrue(descending.precedes(null, "a"));
+    }
+
+    @Test
+    public void testSegmentStartCannotBeEncoded() {
+        PageCursor cursor = PageCursor.first("f", PageRequest.Order.ASCENDING);
+
+        assertThrows(IllegalStateException.class, cursor::encode);
+    }
+
+    @Test
+    public void testSupportedKeyTypes() {
+        for (Class<?> type : new Class<?>[] { String.class, Boolean.class, boolean.class, Date.class,
+            OffsetDateTime.class, Integer.class, int.class, Long.class, Double.class, Color.class }) {
+
+            assertTrue(PageCursor.isSupportedKeyType(type), type.getName());
+        }
+
+        for (Class<?> type : new Class<?>[] { null, Object.class, Character.class, char.class,
+            PageCursor.class }) {
+
+            assertFalse(PageCursor.isSupportedKeyType(type), String.valueOf(type));
+        }
+    }
+}
@@ -33,6 +33,7 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 
@@ -59,6 +60,19 @@ public class PagingUtilTest {
         public Comparator<Pageable> getDefaultComparator() {
             return this.getComparator("fieldOne");
         }
+
+        @Override
+        public Function<Pageable, Object> getFieldAccessor(String fieldName) {
+            // Field one doubles as the ID for cursor paging
+            if ("fieldOne".equals(fieldName) || PageCursor.ID_FIELD.equals(fieldName)) {
+                return Pageable::getFieldOne;
+            }
+            else if ("fieldTwo".equals(fieldName)) {
+                return Pageable::getFieldTwo;
+            }
+
+            return null;
+        }
     }
 
 
@@ -583,4 +597,129 @@ public class PagingUtilTest {
         assertNotNull(errmsg);
         assertTrue(errmsg.contains("no sort-by field provided"));
     }
+
+    private List<Pageable> fetchCursorPage(List<Pageable> elements, PageRequest pageRequest) {
+        ResteasyContext.clearContextData();
+        ResteasyContext.pushContext(PageRequest.class, pageRequest);
+
+        return this.buildPagingUtil()
+            .applyPaging(elements)
+            .toList();
+    }
+
+    private List<Pageable> buildCursorPagingElements() {
+        return List.of(
+            new Pageable("1", "b"),
+            new Pageable("2", "a"),
+            new Pageable("3", "b"),
+            new Pageable("4", "a"),
+            new Pageable("5", "c"));
+    }
+
+    @Test
+    public void testCursorPagingWalksCollectionInAscendingOrder() {
+        List<Pageable> elements = this.buildCursorPagingElements();
+        PageRequest pageRequest = new PageRequest()
+            .setSortBy("fieldTwo")
+            .setOrder(PageRequest.Order.ASCENDING)
+            .setPage(1)
+            .setPerPage(2)
+            .setCursorPaging(true);
+
+        List<Pageable> page = this.fetchCursorPage(elements, pageRequest);
+        assertEquals(List.of(elements.get(1), elements.get(3)), page);
+
+        Page contextPage = ResteasyContext.getContextData(Page.class);
+        assertNotNull(contextPage);
+        assertTrue(contextPage.isCursorPage());
+        assertNull(contextPage.getMaxRecords());
+        assertNotNull(contextPage.getNextCursor());
+
+        page = this.fetchCursorPage(elements, pageRequest.setCursor(contextPage.getNextCursor()));
+        assertEquals(List.of(elements.get(0), elements.get(2)), page);
+
+        contextPage = ResteasyContext.getContextData(Page.class);
+        assertNotNull(contextPage.getNextCursor());
+
+        page = this.fetchCursorPage(elements, pageRequest.setCursor(contextPage.getNextCursor()));
+        assertEquals(List.of(elements.get(4)), page);
+
+        contextPage = ResteasyContext.getContextData(Page.class);
+        assertNull(contextPage.getNextCursor());
+    }
+
+    @Test
+    public void testCursorPagingWalksCollectionInDescendingOrder() {
+        List<Pageable> elements = this.buildCursorPagingElements();
+        PageRequest pageRequest = new PageRequest()
+            .setSortBy("fieldTwo")
+            .setOrder(PageRequest.Order.DESCENDING)
+            .setPage(1)
+            .setPerPage(3)
+            .setCursorPaging(true);
+
+        List<Pageable> page = this.fetchCursorPage(elements, pageRequest);
+        assertEquals(List.of(elements.get(4), elements.get(2), elements.get(0)), page);
+
+        Page contextPage = ResteasyContext.getContextData(Page.class);
+        assertNotNull(contextPage.getNextCursor());
+
+        page = this.fetchCursorPage(elements, pageRequest.setCursor(contextPage.getNextCursor()));
+        assertEquals(List.of(elements.get(3), elements.get(1)), page);
+
+        contextPage = ResteasyContext.getContextData(Page.class);
+        assertNull(contextPage.getNextCursor());
+    }
+
+    @Test
+    public void testCursorPagingCountsElementsWhenRequested() {
+        List<Pageable> elements = this.buildCursorPagingElements();
+        PageRequest pageRequest = new PageRequest()
+            .setSortBy("fieldTwo")
+            .setPage(1)
+            .setPerPage(2)
+            .setCursorPaging(true)
+            .setIncludeCount(true);
+
+        this.fetchCursorPage(elements, pageRequest);
+
+        Page contextPage = ResteasyContext.getContextData(Page.class);
+        assertEquals(elements.size(), contextPage.getMaxRecords());
+    }
+
+    @Test
+    public void testCursorPagingRejectsCursorForDifferentSort() {
+        PageRequest pageRequest = new PageRequest()
+            .setSortBy("fieldTwo")
+            .setOrder(PageRequest.Order.ASCENDING)
+            .setPage(1)
+            .setPerPage(2)
+            .setCursorPaging(true)
+            .setCursor(PageCursor.after("fieldOne", PageRequest.Order.ASCENDING, "1", "1"));
+
+        List<Pageable> elements = this.buildCursorPagingElements();
+        assertThrows(BadRequestException.class, () -> this.fetchCursorPage(elements, pageRequest));
+    }
+
+    @Test
+    public void testCursorPagingRequiresFieldAccessors() {
+        PageRequest pageRequest = new PageRequest()
+            .setSortBy("fieldTwo")
+            .setPage(1)
+            .setPerPage(2)
+            .setCursorPaging(true);
+
+        ResteasyContext.pushContext(PageRequest.class, pageRequest);
+
+        PagingUtil<Pageable> pagingUtil = new PagingUtil<>(this.i18n, new PageableComparatorFactory() {
+            @Override
+            public Function<Pageable, Object> getFieldAccessor(String fieldName) {
+                return null;
+            }
+        });
+
+        List<Pageable> input = this.buildCursorPagingElements();
+        assertThrows(BadRequestException.class, () -> pagingUtil.applyPaging(input));
+        assertNull(ResteasyContext.getContextData(Page.class));
+    }
 }
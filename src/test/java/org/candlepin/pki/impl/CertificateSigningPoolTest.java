@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.pki.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.SignatureException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class CertificateSigningPoolTest {
+
+    private final List<CertificateSigningPool> pools = new ArrayList<>();
+
+    private CertificateSigningPool buildPool(int threads) {
+        CertificateSigningPool pool = new CertificateSigningPool(threads);
+        this.pools.add(pool);
+
+        return pool;
+    }
+
+    private List<CertificateSigningPool.SigningTask<Integer>> buildTasks(int count) {
+        List<CertificateSigningPool.SigningTask<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            int value = i;
+            tasks.add(() -> value);
+        }
+
+        return tasks;
+    }
+
+    @AfterEach
+    public void shutdownPools() {
+        this.pools.forEach(CertificateSigningPool::shutdown);
+    }
+
+    @Test
+    public void testInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new CertificateSigningPool(-1));
+    }
+
+    @Test
+    public void testDefaultsToAvailableProcessors() {
+        CertificateSigningPool pool = this.buildPool(0);
+
+        assertEquals(Runtime.getRuntime().availableProcessors(), pool.getThreadCount());
+    }
+
+    @Test
+    public void testResultsPreserveTaskOrder() throws Exception {
+        CertificateSigningPool pool = this.buildPool(4);
+
+        List<Integer> results = pool.signAll(this.buildTasks(100));
+
+        assertEquals(100, results.size());
+        for (int i = 0; i < results.size(); ++i) {
+            assertEquals(i, results.get(i));
+        }
+    }
+
+    @Test
+    public void testSingleThreadSignsOnCallingThread() throws Exception {
+        CertificateSigningPool pool = this.buildPool(1);
+        Thread caller = Thread.currentThread();
+
+        List<CertificateSigningPool.SigningTask<Thread>> tasks = List.of(Thread::currentThread,
+            Thread::currentThread);
+
+        assertTrue(pool.signAll(tasks).stream().allMatch(thread -> thread == caller));
+    }
+
+    @Test
+    public void testTasksRunConcurrently() throws Exception {
+        CertificateSigningPool pool = this.buildPool(2);
+        CountDownLatch latch = new CountDownLatch(2);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        // Each task waits for the other; this can only complete if both are running at once
+        CertificateSigningPool.SigningTask<Boolean> task = () -> {
+            threads.add(Thread.currentThread().getName());
+            latch.countDown();
+
+            try {
+                return latch.await(30, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+        };
+
+        assertEquals(List.of(true, true), pool.signAll(List.of(task, task)));
+        assertEquals(2, threads.size());
+    }
+
+    @Test
+    public void testFailuresAreUnwrapped() {
+        CertificateSigningPool pool = this.buildPool(2);
+
+        List<CertificateSigningPool.SigningTask<Integer>> securityTasks = this.buildTasks(4);
+        securityTasks.set(2, () -> {
+            throw new SignatureException("bad signature");
+        });
+
+        GeneralSecurityException gse = assertThrows(GeneralSecurityException.class,
+            () -> pool.signAll(securityTasks));
+        assertEquals("bad signature", gse.getMessage());
+
+        List<CertificateSigningPool.SigningTask<Integer>> ioTasks = this.buildTasks(4);
+        ioTasks.set(1, () -> {
+            throw new IOException("bad payload");
+        });
+
+        IOException ioe = assertThrows(IOException.class, () -> pool.signAll(ioTasks));
+        assertEquals("bad payload", ioe.getMessage());
+
+        List<CertificateSigningPool.SigningTask<Integer>> runtimeTasks = this.buildTasks(4);
+        runtimeTasks.set(3, () -> {
+            throw new IllegalStateException("bad state");
+        });
+
+        IllegalStateException ise = assertThrows(IllegalStateException.class,
+            () -> pool.signAll(runtimeTasks));
+        assertEquals("bad state", ise.getMessage());
+    }
+
+    @Test
+    public void testSignsOnCallingThreadAfterShutdown() throws Exception {
+        CertificateSigningPool pool = this.buildPool(4);
+        pool.shutdown();
+
+        assertEquals(List.of(0, 1, 2), pool.signAll(this.buildTasks(3)));
+    }
+
+    @Test
+    public void testShutdownCompletesSubmittedTasks() throws Exception {
+        CertificateSigningPool pool = this.buildPool(2);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // More tasks than threads, so some are still queued when the pool is shut down
+        List<CertificateSigningPool.SigningTask<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 4; ++i) {
+            int value = i;
+            tasks.add(() -> {
+                started.countDown();
+
+                try {
+                    release.await(30, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+
+                return value;
+            });
+        }
+
+        CompletableFuture<List<Integer>> results = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.signAll(tasks);
+            }
+            catch (GeneralSecurityException | IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+
+        assertTrue(started.await(30, TimeUnit.SECONDS));
+        pool.shutdown();
+        release.countDown();
+
+        assertEquals(List.of(0, 1, 2, 3), results.get(30, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.pki.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class KeyPairPoolTest {
+
+    private final AtomicInteger generated = new AtomicInteger();
+    private final List<KeyPairPool> pools = new ArrayList<>();
+
+    private KeyPair generate() throws KeyException {
+        try {
+            this.generated.incrementAndGet();
+
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(512);
+            return generator.generateKeyPair();
+        }
+        catch (Exception e) {
+            throw new KeyException(e);
+        }
+    }
+
+    private KeyPairPool buildPool(int capacity, int lowWaterMark, int threads) {
+        KeyPairPool pool = new KeyPairPool(capacity, lowWaterMark, threads, this::generate);
+        this.pools.add(pool);
+
+        return pool;
+    }
+
+    private void waitForDepth(KeyPairPool pool, int depth) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30000;
+        while (pool.getDepth() < depth && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(depth, pool.getDepth());
+    }
+
+    @AfterEach
+    public void shutdownPools() {
+        this.pools.forEach(KeyPairPool::shutdown);
+    }
+
+    @Test
+    public void testInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new KeyPairPool(-1, 0, 1, this::generate));
+        assertThrows(IllegalArgumentException.class, () -> new KeyPairPool(4, 4, 1, this::generate));
+        assertThrows(IllegalArgumentException.class, () -> new KeyPairPool(4, -1, 1, this::generate));
+        assertThrows(IllegalArgumentException.class, () -> new KeyPairPool(4, 1, 0, this::generate));
+        assertThrows(NullPointerException.class, () -> new KeyPairPool(4, 1, 1, null));
+    }
+
+    @Test
+    public void testDisabledPoolGeneratesOnDemand() throws Exception {
+        KeyPairPool pool = this.buildPool(0, 0, 0);
+
+        assertNotNull(pool.take());
+        assertNotNull(pool.take());
+
+        assertEquals(2, this.generated.get());
+        assertEquals(0, pool.getDepth());
+        assertEquals(0, pool.getFallbackCount());
+    }
+
+    @Test
+    public void testPoolIsFilledInBackground() throws Exception {
+        KeyPairPool pool = this.buildPool(4, 1, 2);
+        this.waitForDepth(pool, 4);
+
+        KeyPair first = pool.take();
+        KeyPair second = pool.take();
+
+        assertNotNull(first);
+        assertNotSame(first, second);
+        assertEquals(2, pool.getPooledCount());
+        assertEquals(0, pool.getFallbackCount());
+    }
+
+    @Test
+    public void testPoolIsRefilledAtLowWaterMark() throws Exception {
+        KeyPairPool pool = this.buildPool(4, 2, 1);
+        this.waitForDepth(pool, 4);
+
+        pool.take();
+        pool.take();
+
+        // Depth hit the low water mark, so the pool should top itself back up
+        this.waitForDepth(pool, 4);
+        assertTrue(pool.getGeneratedCount() >= 6);
+    }
+
+    @Test
+    public void testFallsBackToSynchronousGenerationWhenDrained() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        // Let the initial fill through, then stall the background threads so the pool stays empty
+        KeyPairPool pool = new KeyPairPool(1, 0, 1, () -> {
+            if (calls.incrementAndGet() > 1 && Thread.currentThread().getName().startsWith("keypair-pool")) {
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            return this.generate();
+        });
+        this.pools.add(pool);
+
+        try {
+            this.waitForDepth(pool, 1);
+
+            assertNotNull(pool.take());
+            assertNotNull(pool.take());
+
+            assertEquals(1, pool.getPooledCount());
+            assertEquals(1, pool.getFallbackCount());
+        }
+        finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testShutdownPoolGeneratesOnDemand() throws Exception {
+        KeyPairPool pool = this.buildPool(2, 0, 1);
+        pool.shutdown();
+
+        assertNotNull(pool.take());
+        assertEquals(0, pool.getPooledCount());
+    }
+}
@@ -116,6 +116,14 @@ public class AutobindRulesTest {
     private static final String HIGHEST_QUANTITY_PRODUCT = "QUANTITY001";
     private Map<String, String> activeGuestAttrs;
 
+    /**
+     * Builds the mapper used to pass arguments to the rules. Subclasses may override this to run the
+     * same scenarios with a different type of rules context.
+     */
+    protected RulesObjectMapper buildRulesObjectMapper() {
+        return ObjectMapperFactory.getRulesObjectMapper();
+    }
+
     @BeforeEach
     public void init() {
         this.config = TestConfig.defaults();
@@ -129,7 +137,7 @@ public class AutobindRulesTest {
         doReturn(cache).when(this.cacheProvider).get();
 
         jsRules = new JsRunnerProvider(rulesCurator, cacheProvider).get();
-        mapper = ObjectMapperFactory.getRulesObjectMapper();
+        mapper = this.buildRulesObjectMapper();
 
         translator = new StandardTranslator(consumerTypeCurator, environmentCurator, mockOwnerCurator);
         autobindRules = new AutobindRules(jsRules, consumerTypeCurator, mockOwnerCurator,
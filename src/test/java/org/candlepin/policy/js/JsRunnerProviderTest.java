@@ -15,7 +15,10 @@
 package org.candlepin.policy.js;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -25,6 +28,7 @@ import org.candlepin.model.Rules;
 import org.candlepin.model.Rules.RulesSourceEnum;
 import org.candlepin.model.RulesCurator;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Provider;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -100,4 +104,64 @@ public class JsRunnerProviderTest {
         verify(rulesCurator, times(3)).getUpdated();
     }
 
+    @Test
+    public void metricsRecordRulesInvocations() {
+        String script = "var test_namespace = function() { return {\n" +
+            "  echo: function() { return JSON.parse(json_context).value; },\n" +
+            "  fail: function() { throw 'induced failure'; }\n" +
+            "}; };";
+
+        when(rules.getRules()).thenReturn(script);
+        when(rules.getVersion()).thenReturn("5.1");
+        when(cacheProvider.get()).thenReturn(new JsRunnerRequestCache());
+
+        RulesMetrics metrics = new RulesMetrics(true);
+        JsRunnerProvider provider = new JsRunnerProvider(rulesCurator, cacheProvider, metrics);
+
+        JsRunner runner = provider.get();
+        runner.init("test_namespace");
+
+        JsonJsContext context = new JsonJsContext(new RulesObjectMapper(new ObjectMapper()));
+        context.put("value", "test");
+
+        assertEquals("test", runner.runJsFunction(String.class, "echo", context));
+        assertThrows(RuleExecutionException.class, () -> runner.invokeRule("fail"));
+
+        assertEquals(1, metrics.getRecompileCount());
+        assertEquals("5.1", metrics.getLastRecompileVersion());
+        assertNotNull(metrics.getLastRecompileDate());
+        assertEquals(1, metrics.getScopeCreationCount());
+        assertEquals(1, metrics.getScopeCreationTime().getCount());
+
+        RulesMetrics.FunctionStatistics echo = metrics.getFunctionStatistics().get("test_namespace.echo");
+        assertNotNull(echo);
+        assertEquals(1, echo.getInvocationCount());
+        assertEquals(0, echo.getFailureCount());
+        assertEquals(1, echo.getSerializationTime().getCount());
+        assertEquals(1, echo.getPayloadSize().getCount());
+        assertEquals("{\"value\":\"test\"}".length(), echo.getPayloadSize().getMax());
+
+        RulesMetrics.FunctionStatistics fail = metrics.getFunctionStatistics().get("test_namespace.fail");
+        assertNotNull(fail);
+        assertEquals(1, fail.getInvocationCount());
+        assertEquals(1, fail.getFailureCount());
+        assertEquals(0, fail.getSerializationTime().getCount());
+    }
+
+    @Test
+    public void disabledMetricsOnlyCountScopesAndRecompiles() {
+        when(cacheProvider.get()).thenReturn(new JsRunnerRequestCache());
+
+        RulesMetrics metrics = new RulesMetrics(false);
+        JsRunnerProvider provider = new JsRunnerProvider(rulesCurator, cacheProvider, metrics);
+
+        provider.get();
+        provider.get();
+
+        assertEquals(1, metrics.getRecompileCount());
+        assertEquals(2, metrics.getScopeCreationCount());
+        assertEquals(0, metrics.getScopeCreationTime().getCount());
+        assertTrue(metrics.getFunctionStatistics().isEmpty());
+    }
+
 }
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import org.candlepin.dto.rules.v1.ConsumerDTO;
+import org.candlepin.dto.rules.v1.ConsumerTypeDTO;
+import org.candlepin.dto.rules.v1.EntitlementDTO;
+import org.candlepin.dto.rules.v1.PoolDTO;
+import org.candlepin.model.Rules;
+import org.candlepin.model.RulesCurator;
+import org.candlepin.util.ObjectMapperFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.stream.Stream;
+
+
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class ObjectJsContextTest {
+
+    private static final String RULES = String.join("\n",
+        "// Version: 1.0",
+        "function test_name_space() { return Test; }",
+        "var Test = {",
+        "    roundtrip: function() { return JSON.stringify(JSON.parse(json_context)); },",
+        "    modify: function() {",
+        "        var context = JSON.parse(json_context);",
+        "        context.consumer.uuid = 'changed';",
+        "        context.consumer.facts['added'] = 'fact';",
+        "        delete context.consumer.username;",
+        "        return JSON.stringify(context.consumer);",
+        "    },",
+        "    reparse: function() {",
+        "        JSON.parse(json_context).consumer.uuid = 'changed';",
+        "        return JSON.parse(json_context).consumer.uuid;",
+        "    },",
+        "    parse_string: function() { return JSON.parse('{\"value\": 42}').value; },",
+        "    numeric_key: function() {",
+        "        var context = JSON.parse(json_context);",
+        "        return context.products['69'] + ',' + context.products[69];",
+        "    },",
+        "    has_properties: function() {",
+        "        var consumer = JSON.parse(json_context).consumer;",
+        "        return ('uuid' in consumer) && consumer.hasOwnProperty('facts') &&",
+        "            !('missing' in consumer);",
+        "    },",
+        "    pool_attribute: function() {",
+        "        var pool = JSON.parse(json_context).pool;",
+        "        pool.attributes.push({ name: 'added', value: '1' });",
+        "        var attribute = pool.attributes[0];",
+        "        return attribute.name + '=' + attribute.value + ':' + pool.attributes.length;",
+        "    }",
+        "};");
+
+    @Mock
+    private RulesCurator rulesCurator;
+    @Mock
+    private Provider<JsRunnerRequestCache> cacheProvider;
+
+    private JsRunner jsRules;
+    private RulesObjectMapper jsonMapper;
+    private RulesObjectMapper objectMapper;
+    private ObjectMapper mapper;
+
+    @BeforeEach
+    public void setUp() {
+        when(this.rulesCurator.getUpdated()).thenReturn(new Date());
+        when(this.rulesCurator.getRules()).thenReturn(new Rules(RULES));
+        when(this.cacheProvider.get()).thenReturn(new JsRunnerRequestCache());
+
+        this.jsRules = new JsRunnerProvider(this.rulesCurator, this.cacheProvider).get();
+        this.jsRules.init("test_name_space");
+
+        this.mapper = ObjectMapperFactory.getObjectMapper();
+        this.jsonMapper = new RulesObjectMapper(this.mapper, false);
+        this.objectMapper = new RulesObjectMapper(this.mapper, true);
+    }
+
+    private ConsumerDTO buildConsumer() {
+        ConsumerDTO consumer = new ConsumerDTO()
+            .setUuid("consumer-uuid")
+            .setUsername("username")
+            .setType(new ConsumerTypeDTO().setLabel("system").setManifest(false))
+            .setFact("cpu.cpu_socket(s)", "4")
+            .setFact("virt.is_guest", "false");
+
+        consumer.addInstalledProduct("69");
+        consumer.addInstalledProduct("prod-1");
+
+        return consumer;
+    }
+
+    private PoolDTO buildPool(String id) {
+        PoolDTO pool = new PoolDTO()
+            .setId(id)
+            .setQuantity(10L)
+            .setConsumed(2L)
+            .setProductId("prod-1")
+            .setStartDate(new Date(1000000L))
+            .setEndDate(new Date(2000000L))
+            .setAttributes(Map.of("virt_only", "true"))
+            .setProductAttributes(Map.of("sockets", "2"));
+
+        pool.addProvidedProduct(new PoolDTO.ProvidedProductDTO("69", "provided"));
+
+        return pool;
+    }
+
+    private void populate(JsonJsContext context) {
+        PoolDTO pool = this.buildPool("pool-1");
+
+        context.put("consumer", this.buildConsumer());
+        context.put("pool", pool);
+        context.put("pools", new Object[] { pool, this.buildPool("pool-2") });
+        context.put("entitlements", Stream.of(new EntitlementDTO()
+            .setId("ent-1")
+            .setQuantity(3)
+            .setPool(pool)
+            .setStartDate(new Date(1000000L))
+            .setEndDate(new Date(2000000L))));
+        context.put("products", Map.of("69", "numeric", "prod-1", "named"));
+        context.put("ondate", new Date(1500000L));
+        context.put("considerDerived", true);
+        context.put("missing", null);
+    }
+
+    private <T> T run(String function, JsonJsContext context) throws NoSuchMethodException {
+        this.populate(context);
+        return this.jsRules.invokeMethod(function, context);
+    }
+
+    @Test
+    public void testContextMatchesJsonContext() throws Exception {
+        String expected = this.run("roundtrip", this.jsonMapper.createContext());
+        String actual = this.run("roundtrip", this.objectMapper.createContext());
+
+        assertEquals(this.mapper.readTree(expected), this.mapper.readTree(actual));
+    }
+
+    @Test
+    public void testCreateContextUsesConfiguredContext() {
+        assertEquals(JsonJsContext.class, this.jsonMapper.createContext().getClass());
+        assertEquals(ObjectJsContext.class, this.objectMapper.createContext().getClass());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testModificationsDoNotAffectDtos() throws Exception {
+        ObjectJsContext context = new ObjectJsContext(this.objectMapper);
+        String json = this.run("modify", context);
+
+        Map<String, Object> consumer = this.mapper.readValue(json, Map.class);
+        assertEquals("changed", consumer.get("uuid"));
+        assertEquals("fact", ((Map<String, Object>) consumer.get("facts")).get("added"));
+        assertFalse(consumer.containsKey("username"));
+
+        ConsumerDTO dto = (ConsumerDTO) this.getArgument(context, "consumer");
+        assertEquals("consumer-uuid", dto.getUuid());
+        assertEquals("username", dto.getUsername());
+        assertNull(dto.getFacts().get("added"));
+    }
+
+    @Test
+    public void testEachParseCreatesNewObjects() throws Exception {
+        String uuid = this.run("reparse", new ObjectJsContext(this.objectMapper));
+        assertEquals("consumer-uuid", uuid);
+    }
+
+    @Test
+    public void testStringsAreStillParsed() throws Exception {
+        Object value = this.run("parse_string", new ObjectJsContext(this.objectMapper));
+        assertEquals(42.0, ((Number) value).doubleValue());
+    }
+
+    @Test
+    public void testNumericKeysAreAccessibleAsIndexes() throws Exception {
+        String value = this.run("numeric_key", new ObjectJsContext(this.objectMapper));
+        assertEquals("numeric,numeric", value);
+    }
+
+    @Test
+    public void testPropertiesAreVisibleToInOperator() throws Exception {
+        Boolean value = this.run("has_properties", new ObjectJsContext(this.objectMapper));
+        assertTrue(value);
+    }
+
+    @Test
+    public void testCustomSerializedPropertiesMatchJson() throws Exception {
+        String value = this.run("pool_attribute", new ObjectJsContext(this.objectMapper));
+        assertEquals("virt_only=true:2", value);
+    }
+
+    @Test
+    public void testJsonContextStillWorksAfterObjectContext() throws Exception {
+        String first = this.run("roundtrip", new ObjectJsContext(this.objectMapper));
+        String second = this.run("roundtrip", new JsonJsContext(this.jsonMapper));
+
+        assertEquals(this.mapper.readTree(first), this.mapper.readTree(second));
+    }
+
+    private Object getArgument(JsContext context, String key) {
+        return context.contextArgs.get(key);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.DevConfig;
+import org.candlepin.config.TestConfig;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+
+
+public class RulesMetricsTest {
+
+    @Test
+    public void testEnabledFromConfiguration() {
+        DevConfig config = TestConfig.defaults();
+        assertFalse(new RulesMetrics(config).isEnabled());
+
+        config.setProperty(ConfigProperties.RULES_METRICS_ENABLED, "true");
+        assertTrue(new RulesMetrics(config).isEnabled());
+    }
+
+    @Test
+    public void testCanBeToggledAtRuntime() {
+        RulesMetrics metrics = new RulesMetrics(false);
+
+        metrics.setEnabled(true);
+        assertTrue(metrics.isEnabled());
+
+        metrics.setEnabled(false);
+        assertFalse(metrics.isEnabled());
+    }
+
+    @Test
+    public void testFunctionsRecordedPerNamespace() {
+        RulesMetrics metrics = new RulesMetrics(true);
+
+        metrics.recordSerialization("compliance_name_space", "get_status", 100, 2048);
+        metrics.recordExecution("compliance_name_space", "get_status", 1000, true);
+        metrics.recordExecution("compliance_name_space", "get_status", 3000, false);
+        metrics.recordExecution(null, "select_pools", 500, true);
+
+        Map<String, RulesMetrics.FunctionStatistics> stats = metrics.getFunctionStatistics();
+        assertEquals(2, stats.size());
+
+        RulesMetrics.FunctionStatistics status = stats.get("compliance_name_space.get_status");
+        assertEquals(2, status.getInvocationCount());
+        assertEquals(1, status.getFailureCount());
+        assertEquals(2000.0, status.getExecutionTime().getMean());
+        assertEquals(3000, status.getExecutionTime().getMax());
+        assertEquals(1, status.getSerializationTime().getCount());
+        assertEquals(2048, status.getPayloadSize().getMax());
+
+        RulesMetrics.FunctionStatistics select = stats.get(RulesMetrics.GLOBAL_NAMESPACE + ".select_pools");
+        assertEquals(1, select.getInvocationCount());
+        assertEquals(0, select.getPayloadSize().getCount());
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        RulesMetrics.Histogram histogram = new RulesMetrics.Histogram();
+        for (int i = 1; i <= 100; ++i) {
+            histogram.record(i);
+        }
+
+        RulesMetrics.HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.getCount());
+        assertEquals(50.5, snapshot.getMean());
+        assertEquals(100, snapshot.getMax());
+
+        // Percentiles are reported as the upper bound of their power-of-two bucket
+        assertEquals(63, snapshot.getP50());
+        assertEquals(100, snapshot.getP95());
+        assertEquals(100, snapshot.getP99());
+    }
+
+    @Test
+    public void testEmptyHistogram() {
+        RulesMetrics.HistogramSnapshot snapshot = new RulesMetrics.Histogram().snapshot();
+
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0.0, snapshot.getMean());
+        assertEquals(0, snapshot.getMax());
+        assertEquals(0, snapshot.getP99());
+    }
+
+    @Test
+    public void testReset() {
+        RulesMetrics metrics = new RulesMetrics(true);
+        metrics.recordExecution("ns", "fn", 10, true);
+        metrics.recordScopeCreation(10);
+        metrics.recordRecompile("1.0", 10);
+
+        metrics.reset();
+
+        assertTrue(metrics.getFunctionStatistics().isEmpty());
+        assertEquals(0, metrics.getScopeCreationCount());
+        assertEquals(0, metrics.getScopeCreationTime().getCount());
+        assertEquals(1, metrics.getRecompileCount());
+    }
+}
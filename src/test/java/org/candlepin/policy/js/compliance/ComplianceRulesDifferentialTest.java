@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js.compliance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+import org.candlepin.audit.EventSink;
+import org.candlepin.cache.ComplianceStatusCache;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.TestConfig;
+import org.candlepin.dto.ModelTranslator;
+import org.candlepin.dto.StandardTranslator;
+import org.candlepin.dto.api.server.v1.DateRange;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.ConsumerCurator;
+import org.candlepin.model.ConsumerInstalledProduct;
+import org.candlepin.model.ConsumerType;
+import org.candlepin.model.ConsumerTypeCurator;
+import org.candlepin.model.Entitlement;
+import org.candlepin.model.EntitlementCurator;
+import org.candlepin.model.EnvironmentCurator;
+import org.candlepin.model.GuestId;
+import org.candlepin.model.Owner;
+import org.candlepin.model.OwnerCurator;
+import org.candlepin.model.Pool;
+import org.candlepin.model.Product;
+import org.candlepin.model.Rules;
+import org.candlepin.model.RulesCurator;
+import org.candlepin.policy.js.JsRunnerProvider;
+import org.candlepin.policy.js.JsRunnerRequestCache;
+import org.candlepin.test.TestUtil;
+import org.candlepin.util.ObjectMapperFactory;
+import org.candlepin.util.Util;
+
+import com.google.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.xnap.commons.i18n.I18n;
+import org.xnap.commons.i18n.I18nFactory;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+
+
+/**
+ * Verifies the native compliance engine produces the same results as the rules file for randomly
+ * generated consumers and entitlements, including malformed facts and attribute values.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class ComplianceRulesDifferentialTest {
+    private static final int SCENARIO_COUNT = 500;
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private static final String[] PRODUCT_IDS = { "p1", "p2", "p3", "p4" };
+    private static final Map<String, String[]> ATTRIBUTE_VALUES = Map.ofEntries(
+        Map.entry(Product.Attributes.SOCKETS, new String[] { "1", "2", "4", "8", "0", "x", "3abc" }),
+        Map.entry(Product.Attributes.CORES, new String[] { "2", "4", "8", "16", "0" }),
+        Map.entry(Product.Attributes.RAM, new String[] { "2", "4", "8", "16", "0" }),
+        Map.entry(Product.Attributes.VCPU, new String[] { "1", "2", "4", "8", "0" }),
+        Map.entry(Product.Attributes.ARCHITECTURE,
+            new String[] { "x86_64", "x86", "ALL", "ppc64,s390x", "i386", "X86_64,ppc64" }),
+        Map.entry(Product.Attributes.GUEST_LIMIT, new String[] { "-1", "1", "4", "0", "2" }),
+        Map.entry("storage_band", new String[] { "1", "10", "256" }),
+        Map.entry(Product.Attributes.INSTANCE_MULTIPLIER, new String[] { "1", "2", "4", "0" }),
+        Map.entry(Product.Attributes.STACKING_ID, new String[] { "s1", "s2", "s3" }),
+        Map.entry(Pool.Attributes.REQUIRES_HOST, new String[] { "host-1", "" }),
+        Map.entry(Pool.Attributes.UNMAPPED_GUESTS_ONLY, new String[] { "true", "false" }));
+
+    @Mock
+    private ConsumerCurator consumerCurator;
+    @Mock
+    private ConsumerTypeCurator consumerTypeCurator;
+    @Mock
+    private OwnerCurator ownerCurator;
+    @Mock
+    private EntitlementCurator entCurator;
+    @Mock
+    private RulesCurator rulesCurator;
+    @Mock
+    private EventSink eventSink;
+    @Mock
+    private Provider<JsRunnerRequestCache> cacheProvider;
+    @Mock
+    private JsRunnerRequestCache cache;
+    @Mock
+    private EnvironmentCurator environmentCurator;
+
+    private ComplianceRules jsRules;
+    private ComplianceRules nativeRules;
+    private Owner owner;
+
+    @BeforeEach
+    public void setUp() {
+        ModelTranslator translator = new StandardTranslator(this.consumerTypeCurator,
+            this.environmentCurator, this.ownerCurator);
+        I18n i18n = I18nFactory.getI18n(getClass(), "org.candlepin.i18n.Messages", new Locale("en_US"),
+            I18nFactory.FALLBACK);
+
+        InputStream is = this.getClass().getResourceAsStream(RulesCurator.DEFAULT_RULES_FILE);
+        when(this.rulesCurator.getUpdated()).thenReturn(new Date());
+        when(this.rulesCurator.getRules()).thenReturn(new Rules(Util.readFile(is)));
+        when(this.cacheProvider.get()).thenReturn(this.cache);
+        JsRunnerProvider provider = new JsRunnerProvider(this.rulesCurator, this.cacheProvider);
+
+        this.jsRules = new ComplianceRules(provider.get(), this.entCurator,
+            new StatusReasonMessageGenerator(i18n), this.eventSink, this.consumerCurator,
+            this.consumerTypeCurator, ObjectMapperFactory.getRulesObjectMapper(), translator,
+            TestConfig.custom(Map.of(ConfigProperties.COMPLIANCE_ENGINE, ComplianceRules.ENGINE_JS)),
+            new NativeComplianceCalculator(), new ComplianceStatusCache(TestConfig.defaults()),
+            this.rulesCurator);
+
+        this.nativeRules = new ComplianceRules(provider.get(), this.entCurator,
+            new StatusReasonMessageGenerator(i18n), this.eventSink, this.consumerCurator,
+            this.consumerTypeCurator, ObjectMapperFactory.getRulesObjectMapper(), translator,
+            TestConfig.custom(Map.of(ConfigProperties.COMPLIANCE_ENGINE, ComplianceRules.ENGINE_JAVA)),
+            new NativeComplianceCalculator(), new ComplianceStatusCache(TestConfig.defaults()),
+            this.rulesCurator);
+
+        this.owner = new Owner()
+            .setId("test-owner")
+            .setKey("test")
+            .setDisplayName("test");
+        when(this.ownerCurator.findOwnerById(this.owner.getId())).thenReturn(this.owner);
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = { 1, 7, 42 })
+    public void nativeEngineMatchesRulesFile(long seed) {
+        Random random = new Random(seed);
+        long baseDate = TestUtil.createDate(2024, 1, 1).getTime();
+
+        for (int i = 0; i < SCENARIO_COUNT; ++i) {
+            Consumer consumer = this.buildConsumer(random, i);
+            List<Entitlement> entitlements = this.buildEntitlements(random, consumer, baseDate);
+            consumer.setEntitlements(new HashSet<>(entitlements));
+
+            Date onDate = new Date(baseDate + (random.nextInt(30) - 10) * DAY);
+
+            ComplianceStatus expected = this.jsRules.getStatus(consumer, null, onDate, true, false, true,
+                false);
+            ComplianceStatus actual = this.nativeRules.getStatus(consumer, null, onDate, true, false, true,
+                false);
+
+            String scenario = "seed " + seed + ", scenario " + i;
+            assertEquals(expected.getStatus(), actual.getStatus(), scenario);
+            assertEquals(expected.getNonCompliantProducts(), actual.getNonCompliantProducts(), scenario);
+            assertEquals(toIds(expected.getCompliantProducts()), toIds(actual.getCompliantProducts()),
+                scenario);
+            assertEquals(toIds(expected.getPartiallyCompliantProducts()),
+                toIds(actual.getPartiallyCompliantProducts()), scenario);
+            assertEquals(toIds(expected.getPartialStacks()), toIds(actual.getPartialStacks()), scenario);
+            assertEquals(toReasons(expected.getReasons()), toReasons(actual.getReasons()), scenario);
+            assertEquals(expected.getCompliantUntil(), actual.getCompliantUntil(), scenario);
+            assertEquals(toRanges(expected.getProductComplianceDateRanges()),
+                toRanges(actual.getProductComplianceDateRanges()), scenario);
+        }
+    }
+
+    private static String pick(Random random, String... values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private Consumer buildConsumer(Random random, int index) {
+        ConsumerType ctype = new ConsumerType(random.nextInt(3) == 0 ?
+            ConsumerType.ConsumerTypeEnum.PERSON : ConsumerType.ConsumerTypeEnum.SYSTEM);
+        ctype.setId("test-ctype-" + index);
+
+        Consumer consumer = new Consumer()
+            .setUuid("consumer-" + index)
+            .setType(ctype);
+
+        when(this.consumerTypeCurator.get(ctype.getId())).thenReturn(ctype);
+        when(this.consumerTypeCurator.getConsumerType(consumer)).thenReturn(ctype);
+
+        if (random.nextDouble() < 0.8) {
+            consumer.setFact("cpu.cpu_socket(s)", pick(random, "1", "2", "4", "8", "16", ""));
+        }
+
+        if (random.nextDouble() < 0.7) {
+            consumer.setFact("cpu.core(s)_per_socket", pick(random, "1", "2", "4", "8", ""));
+        }
+
+        if (random.nextDouble() < 0.6) {
+            consumer.setFact("memory.memtotal",
+                pick(random, "2000000", "8388608", "16777216", "33554432", "abc"));
+        }
+
+        if (random.nextDouble() < 0.7) {
+            consumer.setFact("uname.machine", pick(random, "x86_64", "i686", "ppc64", "s390x", ""));
+        }
+
+        if (random.nextDouble() < 0.5) {
+            consumer.setFact("virt.is_guest", pick(random, "true", "false", "True"));
+        }
+
+        if (random.nextDouble() < 0.3) {
+            consumer.setFact("band.storage.usage", pick(random, "5", "100", "300"));
+        }
+
+        for (String productId : PRODUCT_IDS) {
+            if (random.nextBoolean()) {
+                consumer.addInstalledProduct(new ConsumerInstalledProduct()
+                    .setProductId(productId)
+                    .setProductName(productId));
+            }
+        }
+
+        for (int guest = random.nextInt(4); guest > 0; --guest) {
+            Map<String, String> attributes = new HashMap<>();
+            if (random.nextDouble() < 0.7) {
+                attributes.put("virtWhoType", pick(random, "libvirt", "esx"));
+                attributes.put("active", pick(random, "1", "0"));
+            }
+
+            consumer.addGuestId(new GuestId("guest-" + guest, consumer, attributes));
+        }
+
+        return consumer;
+    }
+
+    private List<Entitlement> buildEntitlements(Random random, Consumer consumer, long baseDate) {
+        List<Entitlement> entitlements = new ArrayList<>();
+
+        for (int index = random.nextInt(6); index > 0; --index) {
+            Product product = new Product(pick(random, "p1", "p2", "p3", "p4", "m1", "m2"), "product");
+
+            Set<Product> provided = new HashSet<>();
+            for (String productId : PRODUCT_IDS) {
+                if (random.nextDouble() < 0.3) {
+                    provided.add(new Product(productId, productId));
+                }
+            }
+            product.setProvidedProducts(provided);
+
+            long start = baseDate + (random.nextInt(40) - 20) * DAY +
+                (random.nextDouble() < 0.3 ? random.nextInt(1000) : 0);
+            long end = start + random.nextInt(60) * DAY;
+
+            Pool pool = new Pool()
+                .setId("pool-" + index)
+                .setOwner(this.owner)
+                .setProduct(product)
+                .setQuantity(1000L)
+                .setStartDate(new Date(start))
+                .setEndDate(new Date(end));
+
+            for (Map.Entry<String, String[]> entry : new TreeMap<>(ATTRIBUTE_VALUES).entrySet()) {
+                if (random.nextDouble() < 0.25) {
+                    product.setAttribute(entry.getKey(), pick(random, entry.getValue()));
+                }
+                else if (random.nextDouble() < 0.1) {
+                    pool.setAttribute(entry.getKey(), pick(random, entry.getValue()));
+                }
+            }
+
+            int quantity = new int[] { 0, 1, 2, 3, 4, 8 }[random.nextInt(6)];
+            Entitlement entitlement = new Entitlement(pool, consumer, this.owner, quantity);
+            entitlement.setId("ent-" + index);
+            entitlements.add(entitlement);
+        }
+
+        return entitlements;
+    }
+
+    private static Map<String, Set<String>> toIds(Map<String, Set<Entitlement>> entitlements) {
+        Map<String, Set<String>> ids = new TreeMap<>();
+        entitlements.forEach((key, ents) -> ids.put(key, ents.stream()
+            .map(Entitlement::getId)
+            .collect(Collectors.toCollection(TreeSet::new))));
+
+        return ids;
+    }
+
+    private static Set<String> toReasons(Set<ComplianceReason> reasons) {
+        return reasons.stream()
+            .map(reason -> reason.getKey() + new TreeMap<>(reason.getAttributes()))
+            .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private static Map<String, String> toRanges(Map<String, DateRange> ranges) {
+        Map<String, String> output = new TreeMap<>();
+        ranges.forEach((pid, range) -> output.put(pid,
+            range.getStartDate().toInstant() + " - " + range.getEndDate().toInstant()));
+
+        return output;
+    }
+}
@@ -18,15 +18,23 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.candlepin.audit.EventSink;
+import org.candlepin.cache.ComplianceStatusCache;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.config.DevConfig;
+import org.candlepin.config.TestConfig;
 import org.candlepin.dto.ModelTranslator;
 import org.candlepin.dto.StandardTranslator;
 import org.candlepin.model.CandlepinQuery;
@@ -49,6 +57,7 @@ import org.candlepin.policy.js.JsContext;
 import org.candlepin.policy.js.JsRunner;
 import org.candlepin.policy.js.JsRunnerProvider;
 import org.candlepin.policy.js.JsRunnerRequestCache;
+import org.candlepin.policy.js.RulesObjectMapper;
 import org.candlepin.test.TestUtil;
 import org.candlepin.util.ObjectMapperFactory;
 import org.candlepin.util.Util;
@@ -117,6 +126,22 @@ public class ComplianceRulesTest {
     private JsRunnerProvider provider;
     private Map<String, String> activeGuestAttrs;
 
+    /**
+     * Builds the configuration for the compliance rules under test. Subclasses may override this to
+     * run the same scenarios against a different compliance engine.
+     */
+    protected Configuration buildConfig() {
+        return TestConfig.defaults();
+    }
+
+    /**
+     * Builds the mapper used to pass arguments to the rules. Subclasses may override this to run the
+     * same scenarios with a different type of rules context.
+     */
+    protected RulesObjectMapper buildRulesObjectMapper() {
+        return ObjectMapperFactory.getRulesObjectMapper();
+    }
+
     @BeforeEach
     public void setUp() {
         translator = new StandardTranslator(consumerTypeCurator, environmentCurator, mockOwnerCurator);
@@ -131,8 +156,9 @@ public class ComplianceRulesTest {
         when(cacheProvider.get()).thenReturn(cache);
         provider = new JsRunnerProvider(rulesCuratorMock, cacheProvider);
         compliance = new ComplianceRules(provider.get(), entCurator, new StatusReasonMessageGenerator(i18n),
-            eventSink, consumerCurator, consumerTypeCurator, ObjectMapperFactory.getRulesObjectMapper(),
-            translator);
+            eventSink, consumerCurator, consumerTypeCurator, this.buildRulesObjectMapper(),
+            translator, this.buildConfig(), new NativeComplianceCalculator(),
+            new ComplianceStatusCache(TestConfig.defaults()), rulesCuratorMock);
 
         this.owner = new Owner()
             .setId(TestUtil.randomString())
@@ -157,7 +183,8 @@ public class ComplianceRulesTest {
         JsRunner mockRunner = mock(JsRunner.class);
         compliance = new ComplianceRules(mockRunner, entCurator, new StatusReasonMessageGenerator(i18n),
             eventSink, consumerCurator, consumerTypeCurator, ObjectMapperFactory.getRulesObjectMapper(),
-            translator);
+            translator, TestConfig.defaults(), new NativeComplianceCalculator(),
+            new ComplianceStatusCache(TestConfig.defaults()), rulesCuratorMock);
 
         when(mockRunner.runJsFunction(any(Class.class), eq("get_status"),
             any(JsContext.class))).thenReturn("{\"unknown\": \"thing\"}");
@@ -2163,4 +2190,171 @@ public class ComplianceRulesTest {
         assertEquals(0, status.getNonCompliantProducts().size());
         assertEquals(0, status.getPartiallyCompliantProducts().size());
     }
+
+    private ComplianceRules buildCachingComplianceRules(JsRunner runner) {
+        DevConfig cacheConfig = TestConfig.defaults();
+        cacheConfig.setProperty(ConfigProperties.CACHE_COMPLIANCE_STATUS_ENABLED, "true");
+
+        return new ComplianceRules(runner, entCurator, new StatusReasonMessageGenerator(i18n),
+            eventSink, consumerCurator, consumerTypeCurator, this.buildRulesObjectMapper(),
+            translator, this.buildConfig(), new NativeComplianceCalculator(),
+            new ComplianceStatusCache(cacheConfig), rulesCuratorMock);
+    }
+
+    private void verifyStatusCalculations(JsRunner runner, int count) {
+        // The native engine does not use the rules runner at all
+        if (!ComplianceRules.ENGINE_JAVA.equals(this.buildConfig().getString(
+            ConfigProperties.COMPLIANCE_ENGINE))) {
+
+            verify(runner, times(count)).runJsFunction(eq(String.class), eq("get_status"),
+                any(JsContext.class));
+        }
+    }
+
+    @Test
+    public void testCurrentStatusIsServedFromCache() {
+        JsRunner runner = spy(provider.get());
+        ComplianceRules rules = this.buildCachingComplianceRules(runner);
+
+        Consumer consumer = mockConsumer(PRODUCT_1, PRODUCT_2);
+        consumer.ensureUUID();
+        mockEntCurator(consumer, List.of(mockEntitlement(consumer, TestUtil.createProduct("Awesome Product"),
+            PRODUCT_1)));
+
+        ComplianceStatus first = rules.getStatus(consumer);
+        ComplianceStatus second = rules.getStatus(consumer);
+
+        this.verifyStatusCalculations(runner, 1);
+        assertNotSame(first, second);
+        assertEquals(first.getStatus(), second.getStatus());
+        assertEquals(first.getNonCompliantProducts(), second.getNonCompliantProducts());
+        assertEquals(first.getCompliantProducts().keySet(), second.getCompliantProducts().keySet());
+        assertEquals(first.getReasons().size(), second.getReasons().size());
+
+        for (ComplianceReason reason : second.getReasons()) {
+            assertNotNull(reason.getMessage());
+        }
+    }
+
+    @Test
+    public void testCachedStatusRefersToCurrentEntitlements() {
+        JsRunner runner = spy(provider.get());
+        ComplianceRules rules = this.buildCachingComplianceRules(runner);
+
+        Consumer consumer = mockConsumer(PRODUCT_1);
+        consumer.ensureUUID();
+        Entitlement ent = mockEntitlement(consumer, TestUtil.createProduct("Awesome Product"), PRODUCT_1);
+        mockEntCurator(consumer, List.of(ent));
+
+        rules.getStatus(consumer);
+        ComplianceStatus status = rules.getStatus(consumer);
+
+        this.verifyStatusCalculations(runner, 1);
+        Set<Entitlement> providing = status.getCompliantProducts().get(PRODUCT_1.getId());
+        assertNotNull(providing);
+        assertEquals(1, providing.size());
+        assertEquals(ent.getId(), providing.iterator().next().getId());
+    }
+
+    @Test
+    public void testChangedInputsBypassCache() {
+        JsRunner runner = spy(provider.get());
+        ComplianceRules rules = this.buildCachingComplianceRules(runner);
+
+        Consumer consumer = mockConsumer(PRODUCT_1, PRODUCT_2);
+        consumer.ensureUUID();
+        mockEntCurator(consumer, new LinkedList<>());
+
+        ComplianceStatus before = rules.getStatus(consumer);
+        assertEquals(2, before.getNonCompliantProducts().size());
+
+        mockEntCurator(consumer, List.of(mockEntitlement(consumer, TestUtil.createProduct("Awesome Product"),
+            PRODUCT_1)));
+        ComplianceStatus entitled = rules.getStatus(consumer);
+        assertEquals(1, entitled.getNonCompliantProducts().size());
+
+        consumer.addInstalledProduct(new ConsumerInstalledProduct()
+            .setProductId(PRODUCT_3.getId())
+            .setProductName(PRODUCT_3.getName()));
+        ComplianceStatus installed = rules.getStatus(consumer);
+        assertEquals(2, installed.getNonCompliantProducts().size());
+
+        this.verifyStatusCalculations(runner, 3);
+    }
+
+    @Test
+    public void testChangedProductAttributeBypassesCache() {
+        JsRunner runner = spy(provider.get());
+        ComplianceRules rules = this.buildCachingComplianceRules(runner);
+
+        Consumer consumer = mockConsumer(PRODUCT_1);
+        consumer.ensureUUID();
+        Entitlement ent = mockEntitlement(consumer, TestUtil.createProduct("Awesome Product"), PRODUCT_1);
+        mockEntCurator(consumer, List.of(ent));
+
+        ComplianceStatus before = rules.getStatus(consumer);
+        assertEquals(1, before.getCompliantProducts().size());
+
+        // A refresh may change the product without updating the pool using it
+        Date updated = ent.getPool().getUpdated();
+        ent.getPool().getProduct().setAttribute(Product.Attributes.SOCKETS, "4");
+        assertEquals(updated, ent.getPool().getUpdated());
+
+        ComplianceStatus after = rules.getStatus(consumer);
+        assertEquals(0, after.getCompliantProducts().size());
+        assertEquals(1, after.getPartiallyCompliantProducts().size());
+
+        this.verifyStatusCalculations(runner, 2);
+    }
+
+    @Test
+    public void testRulesUpdateBypassesCache() {
+        JsRunner runner = spy(provider.get());
+        ComplianceRules rules = this.buildCachingComplianceRules(runner);
+
+        Consumer consumer = mockConsumer(PRODUCT_1);
+        consumer.ensureUUID();
+        mockEntCurator(consumer, new LinkedList<>());
+
+        rules.getStatus(consumer);
+
+        // Rules imported on another node leave this node's cache in place
+        Date updated = rulesCuratorMock.getUpdated();
+        when(rulesCuratorMock.getUpdated()).thenReturn(new Date(updated.getTime() + 1000));
+
+        rules.getStatus(consumer);
+
+        this.verifyStatusCalculations(runner, 2);
+    }
+
+    @Test
+    public void testInvalidatedStatusIsRecalculated() {
+        JsRunner runner = spy(provider.get());
+        ComplianceRules rules = this.buildCachingComplianceRules(runner);
+
+        Consumer consumer = mockConsumer(PRODUCT_1);
+        consumer.ensureUUID();
+        mockEntCurator(consumer, new LinkedList<>());
+
+        rules.getStatus(consumer);
+        rules.invalidateStatus(consumer);
+        rules.getStatus(consumer);
+
+        this.verifyStatusCalculations(runner, 2);
+    }
+
+    @Test
+    public void testStatusOnSpecificDateIsNotCached() {
+        JsRunner runner = spy(provider.get());
+        ComplianceRules rules = this.buildCachingComplianceRules(runner);
+
+        Consumer consumer = mockConsumer(PRODUCT_1);
+        consumer.ensureUUID();
+        mockEntCurator(consumer, new LinkedList<>());
+
+        rules.getStatus(consumer, TestUtil.createDate(2011, 8, 30));
+        rules.getStatus(consumer, TestUtil.createDate(2011, 8, 30));
+
+        this.verifyStatusCalculations(runner, 2);
+    }
 }
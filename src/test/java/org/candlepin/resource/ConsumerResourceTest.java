@@ -52,6 +52,7 @@ import org.candlepin.config.Configuration;
 import org.candlepin.config.TestConfig;
 import org.candlepin.controller.AutobindDisabledForOwnerException;
 import org.candlepin.controller.AutobindHypervisorDisabledException;
+import org.candlepin.controller.ConsumerCheckInRecorder;
 import org.candlepin.controller.ContentAccessManager;
 import org.candlepin.controller.ContentAccessManager.ContentAccessMode;
 import org.candlepin.controller.EntitlementCertificateGenerator;
@@ -276,6 +277,8 @@ public class ConsumerResourceTest {
     private AnonymousCloudConsumerCurator anonymousConsumerCurator;
     @Mock
     private AnonymousContentAccessCertificateCurator anonymousCertCurator;
+    @Mock
+    private ConsumerCheckInRecorder checkInRecorder;
 
     private ModelTranslator translator;
     private ConsumerResource consumerResource;
@@ -352,7 +355,8 @@ public class ConsumerResourceTest {
             this.cloudRegistrationAdapter,
             this.poolCurator,
             this.anonymousConsumerCurator,
-            this.anonymousCertCurator
+            this.anonymousCertCurator,
+            this.checkInRecorder
         );
     }
 
@@ -559,7 +563,8 @@ public class ConsumerResourceTest {
             this.cloudRegistrationAdapter,
             this.poolCurator,
             this.anonymousConsumerCurator,
-            this.anonymousCertCurator
+            this.anonymousCertCurator,
+            this.checkInRecorder
         );
 
         // Fixme throw custom exception from generator instead of generic RuntimeException
@@ -25,6 +25,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.ArgumentMatchers.nullable;
@@ -48,6 +49,7 @@ import org.candlepin.audit.EventFactory;
 import org.candlepin.audit.EventSink;
 import org.candlepin.config.Configuration;
 import org.candlepin.config.TestConfig;
+import org.candlepin.controller.ConsumerCheckInRecorder;
 import org.candlepin.controller.ContentAccessManager;
 import org.candlepin.controller.EntitlementCertificateGenerator;
 import org.candlepin.controller.Entitler;
@@ -233,6 +235,8 @@ public class ConsumerResourceUpdateTest {
     private AnonymousCloudConsumerCurator anonymousConsumerCurator;
     @Mock
     private AnonymousContentAccessCertificateCurator anonymousCertCurator;
+    @Mock
+    private ConsumerCheckInRecorder checkInRecorder;
 
     private ModelTranslator translator;
 
@@ -296,7 +300,8 @@ public class ConsumerResourceUpdateTest {
             this.cloudRegistrationAdapter,
             this.poolCurator,
             this.anonymousConsumerCurator,
-            this.anonymousCertCurator);
+            this.anonymousCertCurator,
+            this.checkInRecorder);
 
         when(this.complianceRules.getStatus(any(Consumer.class), any(Date.class), any(Boolean.class),
             any(Boolean.class))).thenReturn(new ComplianceStatus(new Date()));
@@ -500,8 +505,8 @@ public class ConsumerResourceUpdateTest {
 
         this.resource.updateConsumer(consumer.getUuid(), incoming);
         verify(sink).queueEvent(any());
-        verify(complianceRules).getStatus(eq(consumer), nullable(Date.class),
-            any(Boolean.class), any(Boolean.class));
+        verify(complianceRules).getStatus(eq(consumer), isNull(), nullable(Date.class),
+            any(Boolean.class), any(Boolean.class), any(Boolean.class), any(Boolean.class), anyString());
     }
 
     @Test
@@ -110,6 +110,7 @@ import org.candlepin.model.UpstreamConsumer;
 import org.candlepin.model.activationkeys.ActivationKey;
 import org.candlepin.model.activationkeys.ActivationKeyCurator;
 import org.candlepin.paging.Page;
+import org.candlepin.paging.PageCursor;
 import org.candlepin.paging.PageRequest;
 import org.candlepin.paging.PagingUtilFactory;
 import org.candlepin.resource.util.CalculatedAttributesUtil;
@@ -766,6 +767,68 @@ public class OwnerResourceTest extends DatabaseTestFixture {
             null, null, null, null, null, null));
     }
 
+    @Test
+    public void testListConsumersWithCursorSpansNullSortKeys() {
+        Owner owner = this.mockOwner("test_owner");
+        ConsumerType ctype = this.mockConsumerType();
+
+        Consumer neverCheckedIn = this.mockConsumer(owner, ctype);
+        Consumer checkedIn1 = this.mockConsumer(owner, ctype).setLastCheckin(new Date(1000L));
+        Consumer checkedIn2 = this.mockConsumer(owner, ctype).setLastCheckin(new Date(2000L));
+
+        List<PageCursor> cursors = new ArrayList<>();
+        doAnswer(invocation -> {
+            PageCursor cursor = invocation.getArgument(0, ConsumerQueryArguments.class).getCursor();
+            cursors.add(cursor);
+
+            return cursor.isNullKeySegment() ? List.of(neverCheckedIn) : List.of(checkedIn1, checkedIn2);
+        }).when(this.mockConsumerCurator).findConsumers(any(ConsumerQueryArguments.class));
+
+        PageRequest pageRequest = new PageRequest()
+            .setPage(PageRequest.DEFAULT_PAGE)
+            .setPerPage(2)
+            .setSortBy("lastCheckin")
+            .setOrder(PageRequest.Order.ASCENDING)
+            .setCursorPaging(true);
+        ResteasyContext.pushContext(PageRequest.class, pageRequest);
+
+        OwnerResource resource = this.buildOwnerResource();
+        List<String> result = resource.listConsumers(owner.getKey(), null, null, null, null, null, null,
+            null, null, null)
+            .map(ConsumerDTOArrayElement::getId)
+            .collect(Collectors.toList());
+
+        // Consumers without a check-in date come first, followed by the start of the next segment
+        assertEquals(List.of(neverCheckedIn.getId(), checkedIn1.getId()), result);
+
+        PageCursor first = PageCursor.first("lastCheckin", PageRequest.Order.ASCENDING);
+        assertEquals(List.of(first, first.nextSegment()), cursors);
+
+        Page<?> page = ResteasyContext.getContextData(Page.class);
+        assertEquals(PageCursor.after("lastCheckin", PageRequest.Order.ASCENDING, new Date(1000L),
+            checkedIn1.getId()), page.getNextCursor());
+    }
+
+    @Test
+    public void testListConsumersWithCursorRejectsUnsupportedSortFieldUpFront() {
+        Owner owner = this.mockOwner("test_owner");
+
+        PageRequest pageRequest = new PageRequest()
+            .setPage(PageRequest.DEFAULT_PAGE)
+            .setPerPage(2)
+            .setSortBy("owner")
+            .setOrder(PageRequest.Order.ASCENDING)
+            .setCursorPaging(true);
+        ResteasyContext.pushContext(PageRequest.class, pageRequest);
+
+        OwnerResource resource = this.buildOwnerResource();
+
+        assertThrows(BadRequestException.class, () -> resource.listConsumers(owner.getKey(), null, null,
+            null, null, null, null, null, null, null));
+
+        verify(this.mockConsumerCurator, never()).findConsumers(any(ConsumerQueryArguments.class));
+    }
+
     @Test
     public void testListConsumersByOwner() {
         Owner owner = this.mockOwner("test_owner");
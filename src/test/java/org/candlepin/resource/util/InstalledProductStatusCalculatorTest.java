@@ -25,6 +25,8 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import org.candlepin.audit.EventSink;
+import org.candlepin.cache.ComplianceStatusCache;
+import org.candlepin.config.TestConfig;
 import org.candlepin.dto.ModelTranslator;
 import org.candlepin.dto.StandardTranslator;
 import org.candlepin.dto.api.server.v1.DateRange;
@@ -49,6 +51,7 @@ import org.candlepin.policy.js.JsRunnerProvider;
 import org.candlepin.policy.js.JsRunnerRequestCache;
 import org.candlepin.policy.js.compliance.ComplianceRules;
 import org.candlepin.policy.js.compliance.ComplianceStatus;
+import org.candlepin.policy.js.compliance.NativeComplianceCalculator;
 import org.candlepin.policy.js.compliance.StatusReasonMessageGenerator;
 import org.candlepin.test.TestUtil;
 import org.candlepin.util.ObjectMapperFactory;
@@ -138,7 +141,9 @@ public class InstalledProductStatusCalculatorTest {
 
         this.complianceRules = new ComplianceRules(provider.get(), this.entCurator,
             new StatusReasonMessageGenerator(i18n), eventSink, this.consumerCurator, this.consumerTypeCurator,
-            ObjectMapperFactory.getRulesObjectMapper(), translator);
+            ObjectMapperFactory.getRulesObjectMapper(), translator, TestConfig.defaults(),
+            new NativeComplianceCalculator(), new ComplianceStatusCache(TestConfig.defaults()),
+            this.rulesCuratorMock);
 
         this.consumerEnricher = new ConsumerEnricher(this.complianceRules, this.productCurator);
     }
@@ -16,11 +16,13 @@ package org.candlepin.resteasy.filter;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import org.candlepin.auth.ConsumerPrincipal;
 import org.candlepin.auth.Principal;
 import org.candlepin.auth.UpdateConsumerCheckIn;
+import org.candlepin.controller.ConsumerCheckInRecorder;
 import org.candlepin.model.Consumer;
 import org.candlepin.model.Owner;
 import org.candlepin.resteasy.AnnotationLocator;
@@ -29,6 +31,7 @@ import org.candlepin.test.DatabaseTestFixture;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.Module;
+import com.google.inject.persist.UnitOfWork;
 
 import org.jboss.resteasy.core.ResteasyContext;
 import org.jboss.resteasy.core.interception.jaxrs.PostMatchContainerRequestContext;
@@ -88,7 +91,9 @@ public class ConsumerCheckInFilterTest extends DatabaseTestFixture {
         MethodLocator methodLocator = new MethodLocator(injector);
         methodLocator.init();
         AnnotationLocator annotationLocator = new AnnotationLocator(methodLocator);
-        interceptor = new ConsumerCheckInFilter(consumerCurator, annotationLocator);
+        ConsumerCheckInRecorder checkInRecorder = new ConsumerCheckInRecorder(this.config,
+            this.consumerCurator, mock(UnitOfWork.class));
+        interceptor = new ConsumerCheckInFilter(checkInRecorder, annotationLocator);
     }
 
     private void mockResourceMethod(Method method) {
@@ -15,6 +15,7 @@
 package org.candlepin.resteasy.filter;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.times;
@@ -25,6 +26,7 @@ import org.candlepin.config.Configuration;
 import org.candlepin.config.DevConfig;
 import org.candlepin.config.TestConfig;
 import org.candlepin.paging.Page;
+import org.candlepin.paging.PageCursor;
 import org.candlepin.paging.PageRequest;
 
 import org.apache.commons.lang3.StringUtils;
@@ -168,6 +170,18 @@ public class LinkHeaderResponseFilterTest {
         assertEquals(URI.create("https://localhost:8443/candlepin/resource"), returned);
     }
 
+    @Test
+    public void testDoesNotAddCursorQueryParameter() {
+        MultivaluedMap<String, String> map = new MultivaluedMapImpl<>();
+        map.add("cursor", "abc");
+        map.add("per_page", "10");
+        UriBuilder bu = UriBuilder.fromUri("https://localhost:8443/candlepin/resource");
+        LinkHeaderResponseFilter interceptor = new LinkHeaderResponseFilter(config, apiUrlPrefixKey);
+
+        URI returned = interceptor.addUnchangingQueryParams(bu, map).build();
+        assertEquals(URI.create("https://localhost:8443/candlepin/resource?per_page=10"), returned);
+    }
+
     @Test
     public void testDoesNotAddAnythingWhenNoQueryParameters() {
         UriBuilder bu = UriBuilder.fromUri("https://localhost:8443/candlepin/resource");
@@ -410,4 +424,117 @@ public class LinkHeaderResponseFilterTest {
         // Make sure that the page variable is only contained 4 times (once for each URI)
         assertEquals(4, StringUtils.countMatches(header, "&page="));
     }
+
+    @Test
+    public void testPostProcessWithCursorPaging() throws Exception {
+        PageRequest cursorRequest = new PageRequest()
+            .setPage(1)
+            .setPerPage(5)
+            .setCursorPaging(true);
+
+        PageCursor next = PageCursor.after("name", PageRequest.Order.ASCENDING, "name-5", "id-5");
+        Page<Object> cursorPage = new Page<>()
+            .setPageRequest(cursorRequest)
+            .setCursorPage(true)
+            .setNextCursor(next);
+
+        ResteasyContext.pushContext(Page.class, cursorPage);
+
+        MultivaluedMap<String, Object> map = new MultivaluedMapImpl<>();
+
+        mockReq = MockHttpRequest.create("GET",
+            new URI("/candlepin/resource?sort_by=name&per_page=5&cursor="),
+            new URI("https://example.com"));
+        when(mockRequestContext.getUriInfo()).thenReturn(mockReq.getUri());
+
+        when(mockResponseContext.getHeaders()).thenReturn(map);
+        LinkHeaderResponseFilter interceptor = new LinkHeaderResponseFilter(config, apiUrlPrefixKey);
+
+        interceptor.filter(mockRequestContext, mockResponseContext);
+        String header = (String) map.getFirst(LinkHeaderResponseFilter.LINK_HEADER);
+
+        // Cursor pages can only link forward
+        assertTrue(header.contains("rel=\"first\""));
+        assertTrue(header.contains("rel=\"next\""));
+        assertFalse(header.contains("rel=\"last\""));
+        assertFalse(header.contains("rel=\"prev\""));
+
+        assertTrue(header.contains("cursor=" + next.encode()));
+        assertEquals(2, StringUtils.countMatches(header, "cursor="));
+        assertFalse(header.contains("?page=") || header.contains("&page="));
+
+        // The results weren't counted, so there should be no total
+        assertNull(map.getFirst("X-total-count"));
+    }
+
+    @Test
+    public void testPostProcessWithLastCursorPage() throws Exception {
+        PageRequest cursorRequest = new PageRequest()
+            .setPage(1)
+            .setPerPage(5)
+            .setCursorPaging(true)
+            .setIncludeCount(true);
+
+        Page<Object> cursorPage = new Page<>()
+            .setPageRequest(cursorRequest)
+            .setCursorPage(true)
+            .setMaxRecords(3);
+
+        ResteasyContext.pushContext(Page.class, cursorPage);
+
+        MultivaluedMap<String, Object> map = new MultivaluedMapImpl<>();
+
+        mockReq = MockHttpRequest.create("GET",
+            new URI("/candlepin/resource?per_page=5&include_count=true&cursor=abc"),
+            new URI("https://example.com"));
+        when(mockRequestContext.getUriInfo()).thenReturn(mockReq.getUri());
+
+        when(mockResponseContext.getHeaders()).thenReturn(map);
+        LinkHeaderResponseFilter interceptor = new LinkHeaderResponseFilter(config, apiUrlPrefixKey);
+
+        interceptor.filter(mockRequestContext, mockResponseContext);
+        String header = (String) map.getFirst(LinkHeaderResponseFilter.LINK_HEADER);
+
+        assertTrue(header.contains("rel=\"first\""));
+        assertFalse(header.contains("rel=\"next\""));
+        assertFalse(header.contains("cursor=abc"));
+        assertEquals(3, map.getFirst("X-total-count"));
+    }
+
+    @Test
+    public void testPostProcessWithLowerBoundCount() throws Exception {
+        PageRequest pageRequest = new PageRequest()
+            .setPage(2)
+            .setPerPage(5)
+            .setIncludeCount(false);
+
+        Page<Object> page = new Page<>()
+            .setPageRequest(pageRequest)
+            .setMaxRecords(11)
+            .setMaxRecordsLowerBound(true);
+
+        ResteasyContext.pushContext(Page.class, page);
+
+        MultivaluedMap<String, Object> map = new MultivaluedMapImpl<>();
+
+        mockReq = MockHttpRequest.create("GET",
+            new URI("/candlepin/resource?page=2&per_page=5&include_count=false"),
+            new URI("https://example.com"));
+        when(mockRequestContext.getUriInfo()).thenReturn(mockReq.getUri());
+
+        when(mockResponseContext.getHeaders()).thenReturn(map);
+        LinkHeaderResponseFilter interceptor = new LinkHeaderResponseFilter(config, apiUrlPrefixKey);
+
+        interceptor.filter(mockRequestContext, mockResponseContext);
+        String header = (String) map.getFirst(LinkHeaderResponseFilter.LINK_HEADER);
+
+        // The total is unknown, so the last page can't be linked
+        assertTrue(header.contains("rel=\"first\""));
+        assertTrue(header.contains("rel=\"next\""));
+        assertTrue(header.contains("rel=\"prev\""));
+        assertFalse(header.contains("rel=\"last\""));
+
+        assertNull(map.getFirst("X-total-count"));
+        assertEquals(11, map.getFirst("X-total-count-lower-bound"));
+    }
 }
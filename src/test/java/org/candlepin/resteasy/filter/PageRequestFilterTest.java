@@ -18,11 +18,18 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import org.candlepin.exceptions.BadRequestException;
 import org.candlepin.guice.I18nProvider;
+import org.candlepin.paging.CursorPaging;
+import org.candlepin.paging.PageCursor;
 import org.candlepin.paging.PageRequest;
+import org.candlepin.resteasy.AnnotationLocator;
+import org.candlepin.resteasy.MethodLocator;
 
 import org.jboss.resteasy.core.ResteasyContext;
 import org.jboss.resteasy.mock.MockHttpRequest;
@@ -33,8 +40,11 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.xnap.commons.i18n.I18n;
 
+import java.lang.reflect.Method;
+
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ResourceInfo;
 
 
 
@@ -57,7 +67,26 @@ public class PageRequestFilterTest {
     @BeforeEach
     public void setUp() {
         this.i18nProvider = new I18nProvider(() -> this.mockServletReq);
-        interceptor = new PageRequestFilter(this.i18nProvider);
+        AnnotationLocator annotationLocator = new AnnotationLocator(mock(MethodLocator.class));
+        interceptor = new PageRequestFilter(this.i18nProvider, annotationLocator);
+    }
+
+    private void mockResourceMethod(String name) throws Exception {
+        Method method = PageRequestFilterTest.class.getDeclaredMethod(name);
+
+        ResourceInfo resourceInfo = mock(ResourceInfo.class);
+        doReturn(method).when(resourceInfo).getResourceMethod();
+
+        ResteasyContext.pushContext(ResourceInfo.class, resourceInfo);
+    }
+
+    @CursorPaging
+    public void cursorPagedResource() {
+        // Intentionally left empty
+    }
+
+    public void pagedResource() {
+        // Intentionally left empty
     }
 
     @Test
@@ -177,4 +206,113 @@ public class PageRequestFilterTest {
         assertEquals("id", p.getSortBy());
     }
 
+    @Test
+    public void testEmptyCursorRequestsFirstCursorPage() throws Exception {
+        mockResourceMethod("cursorPagedResource");
+
+        mockReq = MockHttpRequest.create("GET",
+            "http://localhost/candlepin/status?per_page=20&cursor=");
+        when(mockRequestContext.getUriInfo()).thenReturn(mockReq.getUri());
+
+        interceptor.filter(mockRequestContext);
+
+        PageRequest p = ResteasyContext.getContextData(PageRequest.class);
+        assertTrue(p.isCursorPaging());
+        assertTrue(p.isPaging());
+        assertNull(p.getCursor());
+        assertEquals(Integer.valueOf(20), p.getPerPage());
+        assertEquals(PageRequest.DEFAULT_PAGE, p.getPage());
+        assertFalse(p.isIncludeCount());
+    }
+
+    @Test
+    public void testCursorWithoutLimitUsesDefaultLimit() throws Exception {
+        mockResourceMethod("cursorPagedResource");
+
+        mockReq = MockHttpRequest.create("GET",
+            "http://localhost/candlepin/status?cursor=&include_count=true");
+        when(mockRequestContext.getUriInfo()).thenReturn(mockReq.getUri());
+
+        interceptor.filter(mockRequestContext);
+
+        PageRequest p = ResteasyContext.getContextData(PageRequest.class);
+        assertTrue(p.isCursorPaging());
+        assertEquals(PageRequest.DEFAULT_PER_PAGE, p.getPerPage());
+        assertTrue(p.isIncludeCount());
+    }
+
+    @Test
+    public void testCursorIsDecoded() throws Exception {
+        mockResourceMethod("cursorPagedResource");
+
+        PageCursor cursor = PageCursor.after("name", PageRequest.Order.DESCENDING, "abc", "id-1");
+
+        mockReq = MockHttpRequest.create("GET",
+            "http://localhost/candlepin/status?per_page=5&order=desc&sort_by=name&cursor=" + cursor.encode());
+        when(mockRequestContext.getUriInfo()).thenReturn(mockReq.getUri());
+
+        interceptor.filter(mockRequestContext);
+
+        PageRequest p = ResteasyContext.getContextData(PageRequest.class);
+        assertTrue(p.isCursorPaging());
+        assertEquals(cursor, p.getCursor());
+    }
+
+    @Test
+    public void testMalformedCursor() throws Exception {
+        mockResourceMethod("cursorPagedResource");
+
+        mockReq = MockHttpRequest.create("GET",
+            "http://localhost/candlepin/status?per_page=5&cursor=garbage");
+        when(mockRequestContext.getUriInfo()).thenReturn(mockReq.getUri());
+
+        assertThrows(BadRequestException.class, () -> interceptor.filter(mockRequestContext));
+    }
+
+    @Test
+    public void testCursorAndPageAreMutuallyExclusive() throws Exception {
+        mockReq = MockHttpRequest.create("GET",
+            "http://localhost/candlepin/status?page=2&per_page=5&cursor=");
+        when(mockRequestContext.getUriInfo()).thenReturn(mockReq.getUri());
+
+        assertThrows(BadRequestException.class, () -> interceptor.filter(mockRequestContext));
+    }
+
+    @Test
+    public void testNumberedPagesAreAlwaysCounted() throws Exception {
+        mockReq = MockHttpRequest.create("GET",
+            "http://localhost/candlepin/status?page=2&per_page=5");
+        when(mockRequestContext.getUriInfo()).thenReturn(mockReq.getUri());
+
+        interceptor.filter(mockRequestContext);
+
+        PageRequest p = ResteasyContext.getContextData(PageRequest.class);
+        assertFalse(p.isCursorPaging());
+        assertTrue(p.isIncludeCount());
+    }
+
+    @Test
+    public void testNumberedPagesMayDeclineCount() throws Exception {
+        mockReq = MockHttpRequest.create("GET",
+            "http://localhost/candlepin/status?page=2&per_page=5&include_count=false");
+        when(mockRequestContext.getUriInfo()).thenReturn(mockReq.getUri());
+
+        interceptor.filter(mockRequestContext);
+
+        PageRequest p = ResteasyContext.getContextData(PageRequest.class);
+        assertFalse(p.isCursorPaging());
+        assertFalse(p.isIncludeCount());
+    }
+
+    @Test
+    public void testCursorRejectedWhenResourceDoesNotSupportCursors() throws Exception {
+        mockResourceMethod("pagedResource");
+
+        mockReq = MockHttpRequest.create("GET",
+            "http://localhost/candlepin/status?per_page=5&cursor=");
+        when(mockRequestContext.getUriInfo()).thenReturn(mockReq.getUri());
+
+        assertThrows(BadRequestException.class, () -> interceptor.filter(mockRequestContext));
+    }
+
 }
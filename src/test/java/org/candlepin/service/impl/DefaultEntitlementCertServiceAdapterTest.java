@@ -68,6 +68,7 @@ import org.candlepin.pki.X509Extension;
 import org.candlepin.pki.impl.BouncyCastlePKIUtility;
 import org.candlepin.pki.impl.BouncyCastleSecurityProvider;
 import org.candlepin.pki.impl.BouncyCastleSubjectKeyIdentifierWriter;
+import org.candlepin.pki.impl.CertificateSigningPool;
 import org.candlepin.test.CertificateReaderForTesting;
 import org.candlepin.test.TestUtil;
 import org.candlepin.util.CertificateSizeException;
@@ -118,6 +119,7 @@ import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -237,7 +239,8 @@ public class DefaultEntitlementCertServiceAdapterTest {
             mock(EntitlementCertificateCurator.class),
             serialCurator, ownerCurator, entCurator,
             I18nFactory.getI18n(getClass(), Locale.US, I18nFactory.FALLBACK),
-            config, this.mockConsumerTypeCurator, this.mockEnvironmentCurator);
+            config, this.mockConsumerTypeCurator, this.mockEnvironmentCurator,
+            new CertificateSigningPool(1));
 
         product = TestUtil.createProduct("12345", "a product");
         product.setAttribute(Product.Attributes.VERSION, "version");
@@ -408,7 +411,8 @@ public class DefaultEntitlementCertServiceAdapterTest {
             mock(EntitlementCertificateCurator.class),
             serialCurator, ownerCurator, entCurator,
             I18nFactory.getI18n(getClass(), Locale.US, I18nFactory.FALLBACK),
-            config, this.mockConsumerTypeCurator, this.mockEnvironmentCurator);
+            config, this.mockConsumerTypeCurator, this.mockEnvironmentCurator,
+            new CertificateSigningPool(1));
 
         PromotedContent promotedContent = new PromotedContent(prefix(owner));
         X509Certificate result = certServiceAdapter.createX509Certificate(consumer, owner, pool,
@@ -438,7 +442,8 @@ public class DefaultEntitlementCertServiceAdapterTest {
             mock(EntitlementCertificateCurator.class),
             serialCurator, ownerCurator, entCurator,
             I18nFactory.getI18n(getClass(), Locale.US, I18nFactory.FALLBACK),
-            config, this.mockConsumerTypeCurator, this.mockEnvironmentCurator);
+            config, this.mockConsumerTypeCurator, this.mockEnvironmentCurator,
+            new CertificateSigningPool(1));
 
         // pool start date is more than an hour ago, use it
         Calendar cal = Calendar.getInstance();
@@ -826,7 +831,8 @@ public class DefaultEntitlementCertServiceAdapterTest {
             mock(EntitlementCertificateCurator.class),
             serialCurator, ownerCurator, entCurator,
             I18nFactory.getI18n(getClass(), Locale.US, I18nFactory.FALLBACK),
-            mockConfig, this.mockConsumerTypeCurator, this.mockEnvironmentCurator);
+            mockConfig, this.mockConsumerTypeCurator, this.mockEnvironmentCurator,
+            new CertificateSigningPool(1));
     }
 
     @Test
@@ -1663,6 +1669,72 @@ public class DefaultEntitlementCertServiceAdapterTest {
         assertFalse(cert.getCert().contains("ENTITLEMENT DATA"));
     }
 
+    @Test
+    public void testRegenerateEntitlementCertsAcrossConsumers() throws Exception {
+        List<Collection<CertificateSerial>> serialBatches = new ArrayList<>();
+        when(mockedPKI.getConsumerKeyPair(any(Consumer.class))).thenReturn(keyPair);
+        when(serialCurator.saveOrUpdateAll(any(), anyBoolean(), anyBoolean()))
+            .then((Answer<Iterable<CertificateSerial>>) invocationOnMock -> {
+                Collection<CertificateSerial> certificateSerials = invocationOnMock.getArgument(0);
+                certificateSerials
+                    .forEach(certificateSerial -> certificateSerial.setId(Util.generateUniqueLong()));
+                serialBatches.add(certificateSerials);
+                return certificateSerials;
+            });
+
+        when(mockedPKI.createX509Certificate(any(DistinguishedName.class), anySet(),
+            any(Date.class), any(Date.class), any(KeyPair.class), any(BigInteger.class),
+            nullable(String.class)))
+            .thenReturn(mock(X509Certificate.class));
+        when(mockedPKI.getPemEncoded(any(X509Certificate.class))).thenReturn("cert".getBytes());
+        when(mockedPKI.getPemEncoded(any(PrivateKey.class))).thenReturn("key".getBytes());
+
+        pool.setId("poolId");
+        consumer.setId("consumer-1");
+
+        ConsumerType type = new ConsumerType(ConsumerType.ConsumerTypeEnum.SYSTEM);
+        type.setId("test-id");
+
+        Consumer consumer2 = new Consumer()
+            .setUuid("test-consumer-2")
+            .setName("Test Consumer 2")
+            .setUsername("bob")
+            .setOwner(owner)
+            .setType(type)
+            .setId("consumer-2");
+        when(this.mockConsumerTypeCurator.getConsumerType(consumer2)).thenReturn(type);
+
+        Entitlement entitlement2 = new Entitlement().setId("test_ent_2").setPool(pool)
+            .setQuantity(Integer.valueOf(ENTITLEMENT_QUANTITY));
+        entitlement2.setConsumer(consumer2);
+        entitlement2.setOwner(owner);
+
+        DefaultEntitlementCertServiceAdapter adapter = new DefaultEntitlementCertServiceAdapter(
+            mockedPKI, extensionUtil, v3extensionUtil,
+            mock(EntitlementCertificateCurator.class),
+            serialCurator, ownerCurator, entCurator,
+            I18nFactory.getI18n(getClass(), Locale.US, I18nFactory.FALLBACK),
+            config, this.mockConsumerTypeCurator, this.mockEnvironmentCurator,
+            new CertificateSigningPool(2));
+
+        Map<String, EntitlementCertificate> certs = adapter.regenerateEntitlementCerts(
+            List.of(entitlement, entitlement2));
+
+        assertEquals(Set.of("test_ent", "test_ent_2"), certs.keySet());
+        for (EntitlementCertificate cert : certs.values()) {
+            assertEquals("cert", cert.getCert());
+            assertEquals("key", cert.getKey());
+            assertNotNull(cert.getSerial());
+            assertNull(cert.getEntitlement());
+        }
+
+        // Every serial is persisted in a single batch, and each consumer's key pair is loaded once
+        assertEquals(1, serialBatches.size());
+        assertEquals(2, serialBatches.get(0).size());
+        verify(mockedPKI).getConsumerKeyPair(consumer);
+        verify(mockedPKI).getConsumerKeyPair(consumer2);
+    }
+
     @Test
     public void testContentExtension() throws IOException {
         Set<Product> products = new HashSet<>();
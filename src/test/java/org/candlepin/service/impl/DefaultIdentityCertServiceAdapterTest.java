@@ -18,6 +18,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyBoolean;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.nullable;
@@ -95,7 +96,7 @@ public class DefaultIdentityCertServiceAdapterTest {
         KeyPair kp = createKeyPair();
         when(pki.getConsumerKeyPair(consumer)).thenReturn(kp);
         when(idcur.get(consumer.getId())).thenReturn(null);
-        when(csc.create(any(CertificateSerial.class))).thenAnswer(
+        when(csc.create(any(CertificateSerial.class), anyBoolean())).thenAnswer(
             new Answer<CertificateSerial>() {
                 public CertificateSerial answer(InvocationOnMock invocation) {
                     Object[] args = invocation.getArguments();
@@ -130,7 +131,7 @@ public class DefaultIdentityCertServiceAdapterTest {
         assertNotNull(ic.getCertAsBytes());
         assertNotNull(ic.getKeyAsBytes());
         verify(consumer).setIdCert(ic);
-        verify(csc).create(any(CertificateSerial.class));
+        verify(csc).create(any(CertificateSerial.class), anyBoolean());
     }
 
     @Test
@@ -163,12 +164,13 @@ public class DefaultIdentityCertServiceAdapterTest {
 
         KeyPair kp = createKeyPair();
         when(pki.getConsumerKeyPair(consumer)).thenReturn(kp);
-        when(csc.create(any(CertificateSerial.class))).thenAnswer((Answer<CertificateSerial>) invocation -> {
-            Object[] args = invocation.getArguments();
-            CertificateSerial cs = (CertificateSerial) args[0];
-            cs.setId(42L);
-            return cs;
-        });
+        when(csc.create(any(CertificateSerial.class), anyBoolean()))
+            .thenAnswer((Answer<CertificateSerial>) invocation -> {
+                Object[] args = invocation.getArguments();
+                CertificateSerial cs = (CertificateSerial) args[0];
+                cs.setId(42L);
+                return cs;
+            });
         when(pki.createX509Certificate(any(DistinguishedName.class), nullable(Set.class),
             any(Date.class), any(Date.class), any(KeyPair.class), any(BigInteger.class),
             nullable(String.class)))
@@ -197,7 +199,7 @@ public class DefaultIdentityCertServiceAdapterTest {
         assertNotNull(ic.getCertAsBytes());
         assertNotNull(ic.getKeyAsBytes());
         verify(consumer).setIdCert(ic);
-        verify(csc).create(any(CertificateSerial.class));
+        verify(csc).create(any(CertificateSerial.class), anyBoolean());
 
     }
 
@@ -215,12 +217,13 @@ public class DefaultIdentityCertServiceAdapterTest {
 
         KeyPair kp = createKeyPair();
         when(pki.getConsumerKeyPair(consumer)).thenReturn(kp);
-        when(csc.create(any(CertificateSerial.class))).thenAnswer((Answer<CertificateSerial>) invocation -> {
-            Object[] args = invocation.getArguments();
-            CertificateSerial cs = (CertificateSerial) args[0];
-            cs.setId(42L);
-            return cs;
-        });
+        when(csc.create(any(CertificateSerial.class), anyBoolean()))
+            .thenAnswer((Answer<CertificateSerial>) invocation -> {
+                Object[] args = invocation.getArguments();
+                CertificateSerial cs = (CertificateSerial) args[0];
+                cs.setId(42L);
+                return cs;
+            });
 
         when(pki.createX509Certificate(any(DistinguishedName.class), nullable(Set.class),
             any(Date.class), any(Date.class), any(KeyPair.class), any(BigInteger.class),
@@ -250,7 +253,7 @@ public class DefaultIdentityCertServiceAdapterTest {
         assertNotNull(ic.getCertAsBytes());
         assertNotNull(ic.getKeyAsBytes());
         verify(consumer).setIdCert(ic);
-        verify(csc).create(any(CertificateSerial.class));
+        verify(csc).create(any(CertificateSerial.class), anyBoolean());
 
     }
 }
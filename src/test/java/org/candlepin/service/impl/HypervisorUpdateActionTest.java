@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.candlepin.audit.EventFactory;
+import org.candlepin.audit.EventSink;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.dto.api.server.v1.ConsumerDTO;
+import org.candlepin.dto.api.server.v1.GuestIdDTO;
+import org.candlepin.dto.api.server.v1.HypervisorConsumerDTO;
+import org.candlepin.dto.api.server.v1.HypervisorIdDTO;
+import org.candlepin.dto.api.server.v1.HypervisorUpdateResultDTO;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.ConsumerType;
+import org.candlepin.model.ConsumerType.ConsumerTypeEnum;
+import org.candlepin.model.GuestId;
+import org.candlepin.model.HypervisorId;
+import org.candlepin.model.Owner;
+import org.candlepin.resource.ConsumerResource;
+import org.candlepin.service.SubscriptionServiceAdapter;
+import org.candlepin.test.DatabaseTestFixture;
+import org.candlepin.test.TestUtil;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+
+
+/**
+ * Exercises the bulk hypervisor reconciliation against the database, where the per-batch
+ * transactions, locking and rollback behavior are real.
+ */
+public class HypervisorUpdateActionTest extends DatabaseTestFixture {
+
+    private Owner owner;
+    private EventFactory evtFactory;
+    private HypervisorUpdateAction action;
+
+    @BeforeEach
+    public void init() throws Exception {
+        super.init(false);
+
+        this.config.setProperty(ConfigProperties.HYPERVISOR_BULK_RECONCILIATION, "true");
+        this.config.setProperty(ConfigProperties.HYPERVISOR_RECONCILIATION_BATCH_SIZE, "10");
+
+        this.owner = this.createOwner(TestUtil.randomString(), TestUtil.randomString());
+        this.evtFactory = mock(EventFactory.class);
+
+        this.action = new HypervisorUpdateAction(this.consumerCurator, this.consumerTypeCurator,
+            mock(ConsumerResource.class), mock(SubscriptionServiceAdapter.class), this.modelTranslator,
+            this.config, mock(EventSink.class), this.evtFactory);
+    }
+
+    private Consumer createHost(String hypervisorId, String... guestIds) {
+        ConsumerType hypervisorType = this.consumerTypeCurator
+            .getByLabel(ConsumerTypeEnum.HYPERVISOR.getLabel(), true);
+
+        Consumer host = new Consumer()
+            .setType(hypervisorType)
+            .setOwner(this.owner)
+            .setName(hypervisorId)
+            .setUsername("username");
+
+        host.setHypervisorId(new HypervisorId()
+            .setOwner(this.owner)
+            .setConsumer(host)
+            .setHypervisorId(hypervisorId));
+
+        for (String guestId : guestIds) {
+            host.addGuestId(new GuestId(guestId));
+        }
+
+        return this.consumerCurator.create(host);
+    }
+
+    private ConsumerDTO report(String hypervisorId, String... guestIds) {
+        List<GuestIdDTO> guests = Arrays.stream(guestIds)
+            .map(guestId -> new GuestIdDTO().guestId(guestId))
+            .collect(Collectors.toList());
+
+        return new ConsumerDTO()
+            .name(hypervisorId)
+            .hypervisorId(new HypervisorIdDTO().hypervisorId(hypervisorId))
+            .guestIds(guests);
+    }
+
+    private HypervisorUpdateResultDTO checkIn(ConsumerDTO... hosts) {
+        // The action removes entries it cannot use from the report, so it needs a mutable list
+        return this.action.update(this.owner, new ArrayList<>(Arrays.asList(hosts)), true, "principal",
+            "reporter").getResult();
+    }
+
+    private Set<String> getGuestIds(String hypervisorId) {
+        this.consumerCurator.clear();
+
+        Consumer host = this.consumerCurator.getHostConsumersMap(this.owner, List.of(hypervisorId))
+            .get(hypervisorId);
+        assertNotNull(host);
+
+        return host.getGuestIds().stream()
+            .map(GuestId::getGuestId)
+            .collect(Collectors.toSet());
+    }
+
+    private Set<String> names(Set<HypervisorConsumerDTO> consumers) {
+        return consumers.stream()
+            .map(HypervisorConsumerDTO::getName)
+            .collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testOverlappingBatchesDoNotLoseGuestMappings() throws Exception {
+        this.createHost("hypervisor-1", "guest-a");
+
+        List<ConsumerDTO> first = List.of(
+            this.report("hypervisor-1", "guest-b", "guest-c"),
+            this.report("hypervisor-2", "guest-d"));
+
+        List<ConsumerDTO> second = List.of(
+            this.report("hypervisor-1", "guest-e"),
+            this.report("hypervisor-3", "guest-f"));
+
+        // Both check-ins are released together so their batches reconcile hypervisor-1 at once
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        List<Callable<HypervisorUpdateResultDTO>> checkIns = new ArrayList<>();
+        for (List<ConsumerDTO> hosts : List.of(first, second)) {
+            checkIns.add(() -> {
+                barrier.await(10, TimeUnit.SECONDS);
+                return this.checkIn(hosts.toArray(new ConsumerDTO[0]));
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (Future<HypervisorUpdateResultDTO> future : executor.invokeAll(checkIns)) {
+                HypervisorUpdateResultDTO result = future.get();
+
+                assertTrue(result.getFailedUpdate().isEmpty());
+                assertEquals(1, result.getCreated().size());
+                assertEquals(Set.of("hypervisor-1"), this.names(result.getUpdated()));
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        // Whichever check-in was applied last owns hypervisor-1's guests, without any from the other
+        Set<String> guestIds = this.getGuestIds("hypervisor-1");
+        assertTrue(guestIds.equals(Set.of("guest-b", "guest-c")) || guestIds.equals(Set.of("guest-e")),
+            "unexpected guests for hypervisor-1: " + guestIds);
+
+        assertEquals(Set.of("guest-d"), this.getGuestIds("hypervisor-2"));
+        assertEquals(Set.of("guest-f"), this.getGuestIds("hypervisor-3"));
+    }
+
+    @Test
+    public void testFailedBatchIsDiscardedBeforeReconcilingPerHost() {
+        this.createHost("hypervisor-1", "guest-a");
+
+        // Fail the batch after it has created hypervisor-2 and changed hypervisor-1 in the session;
+        // the per-host retry must not see or flush any of those changes
+        when(this.evtFactory.consumerCreated(any(Consumer.class)))
+            .thenThrow(new RuntimeException("event failure"))
+            .thenReturn(null);
+
+        HypervisorUpdateResultDTO result = this.checkIn(
+            this.report("hypervisor-1", "guest-b"),
+            this.report("hypervisor-2", "guest-c"));
+
+        assertTrue(result.getFailedUpdate().isEmpty());
+        assertEquals(Set.of("hypervisor-2"), this.names(result.getCreated()));
+        assertEquals(Set.of("hypervisor-1"), this.names(result.getUpdated()));
+
+        assertEquals(Set.of("guest-b"), this.getGuestIds("hypervisor-1"));
+        assertEquals(Set.of("guest-c"), this.getGuestIds("hypervisor-2"));
+
+        // The host created by the failed batch must not have been persisted alongside the retry's
+        assertEquals(2, this.consumerCurator.listByOwner(this.owner).list().size());
+    }
+}
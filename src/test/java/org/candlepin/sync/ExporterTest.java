@@ -70,10 +70,13 @@ import org.candlepin.version.VersionUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -81,12 +84,17 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
 import java.security.PrivateKey;
+import java.security.Signature;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -130,8 +138,17 @@ public class ExporterTest {
     private ModelTranslator translator;
     private ContentAccessManager contentAccessManager;
 
+    private static KeyPair signingKeyPair;
+
+    @BeforeAll
+    public static void generateSigningKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        signingKeyPair = generator.generateKeyPair();
+    }
+
     @BeforeEach
-    public void setUp() {
+    public void setUp() throws Exception {
         ctc = mock(ConsumerTypeCurator.class);
         mockEnvironmentCurator = mock(EnvironmentCurator.class);
         oc = mock(OwnerCurator.class);
@@ -157,6 +174,11 @@ public class ExporterTest {
         su = new SyncUtils(config);
         contentAccessManager = mock(ContentAccessManager.class);
         when(exportRules.canExport(any(Entitlement.class))).thenReturn(Boolean.TRUE);
+        when(pki.getSHA256WithRSASigner()).thenAnswer(invocation -> {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initSign(signingKeyPair.getPrivate());
+            return signature;
+        });
     }
 
     private KeyPairData buildConsumerKeyPairData() {
@@ -225,7 +247,6 @@ public class ExporterTest {
 
         when(ent.getPool()).thenReturn(pool);
         when(mrules.getRules()).thenReturn("foobar");
-        when(pki.getSHA256WithRSAHash(any(InputStream.class))).thenReturn("signature".getBytes());
         when(rc.getRules()).thenReturn(mrules);
         when(consumer.getEntitlements()).thenReturn(entitlements);
         when(pprov.get()).thenReturn(principal);
@@ -289,8 +310,6 @@ public class ExporterTest {
         List<Entitlement> entitlements = new ArrayList<>();
         entitlements.add(ent);
 
-        when(pki.getSHA256WithRSAHash(any(InputStream.class))).thenReturn(
-            "signature".getBytes());
         when(pprov.get()).thenReturn(principal);
         when(principal.getUsername()).thenReturn("testUser");
 
@@ -329,7 +348,6 @@ public class ExporterTest {
         IdentityCertificate idcert = new IdentityCertificate();
 
         when(mrules.getRules()).thenReturn("foobar");
-        when(pki.getSHA256WithRSAHash(any(InputStream.class))).thenReturn("signature".getBytes());
         when(rc.getRules()).thenReturn(mrules);
         when(pprov.get()).thenReturn(principal);
         when(principal.getUsername()).thenReturn("testUser");
@@ -379,7 +397,6 @@ public class ExporterTest {
         Principal principal = mock(Principal.class);
 
         when(mrules.getRules()).thenReturn("foobar");
-        when(pki.getSHA256WithRSAHash(any(InputStream.class))).thenReturn("signature".getBytes());
         when(rc.getRules()).thenReturn(mrules);
         when(pprov.get()).thenReturn(principal);
         when(principal.getUsername()).thenReturn("testUser");
@@ -429,7 +446,6 @@ public class ExporterTest {
         Principal principal = mock(Principal.class);
 
         when(mrules.getRules()).thenReturn("foobar");
-        when(pki.getSHA256WithRSAHash(any(InputStream.class))).thenReturn("signature".getBytes());
         when(rc.getRules()).thenReturn(mrules);
         when(pprov.get()).thenReturn(principal);
         when(principal.getUsername()).thenReturn("testUser");
@@ -485,7 +501,6 @@ public class ExporterTest {
         Principal principal = mock(Principal.class);
 
         when(mrules.getRules()).thenReturn("foobar");
-        when(pki.getSHA256WithRSAHash(any(InputStream.class))).thenReturn("signature".getBytes());
         when(rc.getRules()).thenReturn(mrules);
         when(pprov.get()).thenReturn(principal);
         when(principal.getUsername()).thenReturn("testUser");
@@ -558,8 +573,6 @@ public class ExporterTest {
         when(ctc.getConsumerType(eq(consumer))).thenReturn(ctype);
         when(ctc.get(eq(ctype.getId()))).thenReturn(ctype);
 
-        when(pki.getSHA256WithRSAHash(any(InputStream.class))).thenReturn("signature".getBytes());
-
         // Setup principal
         Principal principal = mock(Principal.class);
         when(pprov.get()).thenReturn(principal);
@@ -601,6 +614,59 @@ public class ExporterTest {
         assertTrue(verifyHasEntry(export, "export/content_access_certificates/654321.pem"));
     }
 
+    @Test
+    public void testEntitlementExportIsSignedWhileStreamed() throws Exception {
+        Consumer consumer = mock(Consumer.class);
+        when(consumer.getUuid()).thenReturn("consumer");
+
+        Principal principal = mock(Principal.class);
+        when(pprov.get()).thenReturn(principal);
+
+        EntitlementCertificate entCert = new EntitlementCertificate();
+        CertificateSerial entSerial = new CertificateSerial();
+        entSerial.setId(123456L);
+        entCert.setSerial(entSerial);
+        entCert.setCert("ent-cert");
+        entCert.setKey("ent-cert-key");
+
+        when(ecsa.listForConsumer(consumer)).thenReturn(Arrays.asList(entCert));
+        ObjectMapper mapper = ObjectMapperFactory.getSyncObjectMapper(config);
+
+        Exporter e = new Exporter(ctc, oc, me, ce, cte, re, ecsa, pe, psa,
+            ec, ee, pki, config, exportRules, pprov, dvc, dve, cdnc, cdne, su, mapper,
+            translator, contentAccessManager);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        e.writeEntitlementExport(consumer, null, output);
+
+        Map<String, byte[]> outer = readEntries(new ByteArrayInputStream(output.toByteArray()));
+        assertEquals(Set.of("consumer_export.zip", "signature"), outer.keySet());
+
+        // The signature must cover the exact bytes of the inner archive
+        Signature verifier = Signature.getInstance("SHA256withRSA");
+        verifier.initVerify(signingKeyPair.getPublic());
+        verifier.update(outer.get("consumer_export.zip"));
+        assertTrue(verifier.verify(outer.get("signature")));
+
+        Map<String, byte[]> inner = readEntries(new ByteArrayInputStream(outer.get("consumer_export.zip")));
+        assertTrue(inner.containsKey("export/meta.json"));
+        assertEquals("ent-certent-cert-key",
+            new String(inner.get("export/entitlement_certificates/123456.pem"), StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, byte[]> readEntries(InputStream input) throws IOException {
+        Map<String, byte[]> entries = new HashMap<>();
+
+        try (ZipInputStream zis = new ZipInputStream(input)) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                entries.put(entry.getName(), zis.readAllBytes());
+            }
+        }
+
+        return entries;
+    }
+
     @Test
     public void testGetEntitlementExportWithUnknownSerialId() throws ExportCreationException,
         IOException {
@@ -619,8 +685,6 @@ public class ExporterTest {
         doReturn(ctype).when(ctc).getConsumerType(eq(consumer));
         doReturn(ctype).when(ctc).get(eq(ctype.getId()));
 
-        doReturn("signature".getBytes()).when(pki).getSHA256WithRSAHash(any(InputStream.class));
-
         // Setup principal
         Principal principal = mock(Principal.class);
         doReturn(principal).when(pprov).get();
@@ -682,8 +746,6 @@ public class ExporterTest {
         doReturn(ctype).when(ctc).getConsumerType(eq(consumer));
         doReturn(ctype).when(ctc).get(eq(ctype.getId()));
 
-        doReturn("signature".getBytes()).when(pki).getSHA256WithRSAHash(any(InputStream.class));
-
         // Setup principal
         Principal principal = mock(Principal.class);
         doReturn(principal).when(pprov).get();
@@ -745,8 +807,6 @@ public class ExporterTest {
         doReturn(ctype).when(ctc).getConsumerType(eq(consumer));
         doReturn(ctype).when(ctc).get(eq(ctype.getId()));
 
-        doReturn("signature".getBytes()).when(pki).getSHA256WithRSAHash(any(InputStream.class));
-
         // Setup principal
         Principal principal = mock(Principal.class);
         doReturn(principal).when(pprov).get();
@@ -22,6 +22,8 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
@@ -39,6 +41,7 @@ import org.candlepin.controller.Refresher;
 import org.candlepin.controller.RefresherFactory;
 import org.candlepin.dto.ModelTranslator;
 import org.candlepin.dto.StandardTranslator;
+import org.candlepin.dto.manifest.v1.CertificateDTO;
 import org.candlepin.dto.manifest.v1.ConsumerDTO;
 import org.candlepin.dto.manifest.v1.ConsumerTypeDTO;
 import org.candlepin.dto.manifest.v1.DistributorVersionDTO;
@@ -70,17 +73,18 @@ import org.candlepin.model.dto.Subscription;
 import org.candlepin.pki.PKIUtility;
 import org.candlepin.service.ProductServiceAdapter;
 import org.candlepin.service.SubscriptionServiceAdapter;
-import org.candlepin.sync.Importer.ImportFile;
 import org.candlepin.util.ObjectMapperFactory;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.hamcrest.core.StringContains;
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
@@ -95,11 +99,17 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.Reader;
+import java.io.StringReader;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
@@ -114,13 +124,16 @@ import java.util.zip.ZipOutputStream;
 @MockitoSettings(strictness = Strictness.LENIENT)
 public class ImporterTest {
 
+    private static final String MOCK_RULES = "// nothing to see here";
+
+    private static KeyPair signingKeyPair;
+
     @TempDir
     protected File tmpFolder;
 
     private DevConfig config;
     private I18n i18n;
     private ModelTranslator modelTranslator;
-    private SyncUtils syncUtils;
 
     @Mock
     private CdnCurator mockCdnCurator;
@@ -153,7 +166,13 @@ public class ImporterTest {
 
     private ObjectMapper mapper;
     private ClassLoader classLoader = getClass().getClassLoader();
-    private String mockJsPath;
+
+    @BeforeAll
+    public static void generateSigningKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        signingKeyPair = generator.generateKeyPair();
+    }
 
     @BeforeEach
     public void init() throws Exception {
@@ -165,8 +184,12 @@ public class ImporterTest {
             this.mockEnvironmentCurator, this.mockOwnerCurator);
 
         this.mapper = ObjectMapperFactory.getSyncObjectMapper(config);
-        this.syncUtils = new SyncUtils(this.config);
-        this.mockJsPath = new File(this.tmpFolder, "empty.js").getPath();
+
+        when(this.mockPKIUtility.getSHA256WithRSAVerifiers()).thenAnswer(invocation -> {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initVerify(signingKeyPair.getPublic());
+            return List.of(signature);
+        });
 
         this.updateReleaseVersion("0.0.3", "1");
     }
@@ -193,7 +216,7 @@ public class ImporterTest {
             this.mockOwnerCurator, this.mockIdentityCertCurator, this.refresherFactory,
             this.mockPKIUtility, this.mockExporterMetadataCurator,
             this.mockCertSerialCurator, this.mockEventSink, this.i18n, this.mockDistributorVersionCurator,
-            this.mockCdnCurator, this.syncUtils, this.mapper, this.mockImportRecordCurator,
+            this.mockCdnCurator, this.mapper, this.mockImportRecordCurator,
             this.mockSubscriptionReconciler, this.modelTranslator);
     }
 
@@ -217,16 +240,8 @@ public class ImporterTest {
         return file;
     }
 
-    private File[] createMockJsFile(String filename)
-        throws IOException {
-
-        FileWriter f = new FileWriter(filename);
-        f.write("// nothing to see here");
-        f.close();
-
-        File[] fileArray = new File[1];
-        fileArray[0] = new File(filename);
-        return fileArray;
+    private Meta readMeta(File file) throws IOException {
+        return this.mapper.readValue(file, Meta.class);
     }
 
     private Date getDateBeforeDays(int days) {
@@ -250,17 +265,23 @@ public class ImporterTest {
         in.close();
     }
 
-    private Map<String, File> getTestImportFiles() {
-        Map<String, File> importFiles = new HashMap<>();
-        importFiles.put(ImportFile.META.fileName(), mock(File.class));
-        importFiles.put(ImportFile.RULES_FILE.fileName(), mock(File.class));
-        importFiles.put(ImportFile.CONSUMER_TYPE.fileName(), mock(File.class));
-        importFiles.put(ImportFile.CONSUMER.fileName(), mock(File.class));
-        importFiles.put(ImportFile.PRODUCTS.fileName(), mock(File.class));
-        importFiles.put(ImportFile.ENTITLEMENTS.fileName(), mock(File.class));
-        importFiles.put(ImportFile.DISTRIBUTOR_VERSIONS.fileName(), mock(File.class));
-
-        return importFiles;
+    private byte[] sign(File file) throws GeneralSecurityException, IOException {
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(signingKeyPair.getPrivate());
+        signature.update(Files.readAllBytes(file.toPath()));
+
+        return signature.sign();
+    }
+
+    private ManifestContent getTestManifest() {
+        return new ManifestContent()
+            .setMeta(new Meta("0.0.3", new Date(), "test_user", "prefix", null))
+            .setRules(MOCK_RULES)
+            .setConsumerTypes(new HashSet<>())
+            .setConsumer(new ConsumerDTO())
+            .setProductImporter(new ProductImporter(this.mapper, this.i18n))
+            .setEntitlements(new ArrayList<>())
+            .setDistributorVersions(new HashSet<>());
     }
 
     private ConsumerType mockConsumerType(ConsumerType mock) {
@@ -306,7 +327,8 @@ public class ImporterTest {
             .getByType(ExporterMetadata.TYPE_SYSTEM);
 
         Importer importer = this.buildImporter();
-        importer.validateMetadata(ExporterMetadata.TYPE_SYSTEM, null, actual, new ConflictOverrides());
+        importer.validateMetadata(ExporterMetadata.TYPE_SYSTEM, null, this.readMeta(actual),
+            new ConflictOverrides());
 
         Meta fileMeta = mapper.readValue(file, Meta.class);
         Meta actualMeta = mapper.readValue(actual, Meta.class);
@@ -327,8 +349,8 @@ public class ImporterTest {
         File actualmeta = createFile("meta.json", "0.0.3", now, "test_user", "prefix");
 
         Importer importer = this.buildImporter();
-        ExporterMetadata metadata = importer.validateMetadata(ExporterMetadata.TYPE_SYSTEM, null, actualmeta,
-            new ConflictOverrides());
+        ExporterMetadata metadata = importer.validateMetadata(ExporterMetadata.TYPE_SYSTEM, null,
+            this.readMeta(actualmeta), new ConflictOverrides());
 
         assertNotNull(metadata);
         assertEquals(ExporterMetadata.TYPE_SYSTEM, metadata.getType());
@@ -357,7 +379,7 @@ public class ImporterTest {
 
         try {
             ExporterMetadata metadata = importer.validateMetadata(ExporterMetadata.TYPE_SYSTEM, null,
-                actualmeta, new ConflictOverrides());
+                this.readMeta(actualmeta), new ConflictOverrides());
 
             fail("Expected an ImportConflictException, but no exception was thrown");
         }
@@ -386,7 +408,7 @@ public class ImporterTest {
         Importer importer = this.buildImporter();
 
         try {
-            importer.validateMetadata(ExporterMetadata.TYPE_SYSTEM, null, actualmeta,
+            importer.validateMetadata(ExporterMetadata.TYPE_SYSTEM, null, this.readMeta(actualmeta),
                 new ConflictOverrides());
 
             fail("Expected an ImportConflictException, but no exception was thrown");
@@ -434,8 +456,8 @@ public class ImporterTest {
             .getByType(ExporterMetadata.TYPE_SYSTEM);
 
         Importer importer = this.buildImporter();
-        ExporterMetadata metadata = importer.validateMetadata(ExporterMetadata.TYPE_SYSTEM, null, actualmeta,
-            new ConflictOverrides());
+        ExporterMetadata metadata = importer.validateMetadata(ExporterMetadata.TYPE_SYSTEM, null,
+            this.readMeta(actualmeta), new ConflictOverrides());
 
         assertNotNull(metadata);
         assertEquals(ExporterMetadata.TYPE_SYSTEM, metadata.getType());
@@ -453,7 +475,7 @@ public class ImporterTest {
 
         // null Type should cause exception
         assertThrows(ImporterException.class,
-            () -> importer.validateMetadata(null, null, actualmeta, new ConflictOverrides()));
+            () -> importer.validateMetadata(null, null, this.readMeta(actualmeta), new ConflictOverrides()));
 
         assertTrue(actualmeta.delete());
     }
@@ -467,7 +489,8 @@ public class ImporterTest {
 
         // null Type should cause exception
         assertThrows(ImporterException.class,
-            () -> importer.validateMetadata(ExporterMetadata.TYPE_PER_USER, null, actualmeta, overrides));
+            () -> importer.validateMetadata(ExporterMetadata.TYPE_PER_USER, null, this.readMeta(actualmeta),
+                overrides));
 
         verify(this.mockExporterMetadataCurator, never()).create(any(ExporterMetadata.class));
     }
@@ -536,24 +559,19 @@ public class ImporterTest {
 
     @Test
     public void testImportBadConsumerZip() throws Exception {
-        // Mock a passed signature check:
-        doReturn(true)
-            .when(this.mockPKIUtility)
-            .verifySHA256WithRSAHashAgainstCACerts(any(File.class), any(byte[].class));
-
         Owner owner = mock(Owner.class);
         ConflictOverrides co = mock(ConflictOverrides.class);
 
-        File archive = new File(this.tmpFolder, "file.zip");
-        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
-        out.putNextEntry(new ZipEntry("signature"));
-        out.write("This is the placeholder for the signature file".getBytes());
-
         File ceArchive = new File(this.tmpFolder, "consumer_export.zip");
         FileOutputStream fos = new FileOutputStream(ceArchive);
         fos.write("This is just a flat file".getBytes());
         fos.close();
 
+        File archive = new File(this.tmpFolder, "file.zip");
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+        out.putNextEntry(new ZipEntry("signature"));
+        out.write(this.sign(ceArchive));
+
         addFileToArchive(out, ceArchive);
         out.close();
 
@@ -567,24 +585,19 @@ public class ImporterTest {
 
     @Test
     public void testImportZipSigAndEmptyConsumerZip() throws Exception {
-        // Mock a passed signature check:
-        doReturn(true)
-            .when(this.mockPKIUtility)
-            .verifySHA256WithRSAHashAgainstCACerts(any(File.class), any(byte[].class));
-
         Owner owner = mock(Owner.class);
         ConflictOverrides co = mock(ConflictOverrides.class);
 
-        File archive = new File(this.tmpFolder, "file.zip");
-        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
-        out.putNextEntry(new ZipEntry("signature"));
-        out.write("This is the placeholder for the signature file".getBytes());
-
         File ceArchive = new File(this.tmpFolder, "consumer_export.zip");
         ZipOutputStream cezip = new ZipOutputStream(new FileOutputStream(ceArchive));
         cezip.putNextEntry(new ZipEntry("no_content"));
         cezip.close();
 
+        File archive = new File(this.tmpFolder, "file.zip");
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+        out.putNextEntry(new ZipEntry("signature"));
+        out.write(this.sign(ceArchive));
+
         addFileToArchive(out, ceArchive);
         out.close();
 
@@ -601,12 +614,12 @@ public class ImporterTest {
         Owner owner = mock(Owner.class);
         ConflictOverrides co = mock(ConflictOverrides.class);
 
-        Map<String, File> importFiles = this.getTestImportFiles();
-        importFiles.put(ImportFile.META.fileName(), null);
+        ManifestContent manifest = this.getTestManifest()
+            .setMeta(null);
 
         Importer importer = this.buildImporter();
         Throwable throwable = assertThrows(ImporterException.class,
-            () -> importer.importObjects(owner, importFiles, co));
+            () -> importer.importObjects(owner, manifest, co));
 
         String errmsg = i18n.tr("The archive does not contain the required meta.json file");
         assertThat(throwable.getMessage(), StringContains.containsString(errmsg));
@@ -616,13 +629,12 @@ public class ImporterTest {
     public void testImportNoConsumerTypesDir() {
         Owner owner = mock(Owner.class);
         ConflictOverrides co = mock(ConflictOverrides.class);
-        Map<String, File> importFiles = this.getTestImportFiles();
-
-        importFiles.put(ImportFile.CONSUMER_TYPE.fileName(), null);
+        ManifestContent manifest = this.getTestManifest()
+            .setConsumerTypes(null);
 
         Importer importer = this.buildImporter();
         Throwable throwable = assertThrows(ImporterException.class,
-            () -> importer.importObjects(owner, importFiles, co));
+            () -> importer.importObjects(owner, manifest, co));
 
         String errmsg = i18n.tr("The archive does not contain the required consumer_types directory");
         assertThat(throwable.getMessage(), StringContains.containsString(errmsg));
@@ -632,13 +644,12 @@ public class ImporterTest {
     public void testImportNoConsumer() {
         Owner owner = mock(Owner.class);
         ConflictOverrides co = mock(ConflictOverrides.class);
-        Map<String, File> importFiles = this.getTestImportFiles();
-
-        importFiles.put(ImportFile.CONSUMER.fileName(), null);
+        ManifestContent manifest = this.getTestManifest()
+            .setConsumer(null);
 
         Importer importer = this.buildImporter();
         Throwable throwable = assertThrows(ImporterException.class,
-            () -> importer.importObjects(owner, importFiles, co));
+            () -> importer.importObjects(owner, manifest, co));
 
         String errmsg = i18n.tr("The archive does not contain the required consumer.json file");
         assertThat(throwable.getMessage(), StringContains.containsString(errmsg));
@@ -649,12 +660,6 @@ public class ImporterTest {
         Owner owner = mock(Owner.class);
         ConflictOverrides co = mock(ConflictOverrides.class);
 
-        Map<String, File> importFiles = this.getTestImportFiles();
-        File ruleDir = mock(File.class);
-        File[] rulesFiles = createMockJsFile(mockJsPath);
-        when(ruleDir.listFiles()).thenReturn(rulesFiles);
-        File actualmeta = createFile("meta.json", "0.0.3", new Date(), "test_user", "prefix");
-
         // this is the hook to stop testing. we confirm that the archive component tests
         //  are passed and then jump out instead of trying to fake the actual file
         //  processing.
@@ -663,15 +668,13 @@ public class ImporterTest {
             .when(this.mockRulesImporter)
             .importObject(any(Reader.class));
 
-        importFiles.put(ImportFile.META.fileName(), actualmeta);
-        importFiles.put(ImportFile.RULES_FILE.fileName(), rulesFiles[0]);
-        importFiles.put(ImportFile.PRODUCTS.fileName(), null);
-        importFiles.put(ImportFile.ENTITLEMENTS.fileName(), null);
-        importFiles.put(ImportFile.UPSTREAM_CONSUMER.fileName(), mock(File.class));
+        ManifestContent manifest = this.getTestManifest()
+            .setProductImporter(null)
+            .setEntitlements(null);
 
         Importer importer = this.buildImporter();
         Throwable throwable = assertThrows(RuntimeException.class,
-            () -> importer.importObjects(owner, importFiles, co));
+            () -> importer.importObjects(owner, manifest, co));
 
         String errmsg = "Done with the test";
         assertThat(throwable.getMessage(), StringContains.containsString(errmsg));
@@ -693,15 +696,6 @@ public class ImporterTest {
             .getRefresher(any(SubscriptionServiceAdapter.class), any(ProductServiceAdapter.class));
         doReturn(mockRefresher).when(mockRefresher).add(any(Owner.class));
 
-        Map<String, File> importFiles = new HashMap<>();
-        File ruleDir = mock(File.class);
-        File[] rulesFiles = createMockJsFile(mockJsPath);
-        when(ruleDir.listFiles()).thenReturn(rulesFiles); // bad bad bad bad bad bad bad bad bad bad bad bad
-        importFiles.put(ImportFile.RULES_FILE.fileName(), rulesFiles[0]);
-
-        File actualmeta = createFile("meta.json", "0.0.3", new Date(), "test_user", "prefix");
-        importFiles.put(ImportFile.META.fileName(), actualmeta);
-
         ConsumerDTO consumerDTO = new ConsumerDTO();
         consumerDTO.setUuid("eb5e04bf-be27-44cf-abe3-0c0b1edd523e");
         consumerDTO.setName("mymachine");
@@ -721,28 +715,15 @@ public class ImporterTest {
         ctype.setId("test-ctype");
         this.mockConsumerType(ctype);
 
-        File consumerFile = new File(this.tmpFolder, "consumer.json");
-        this.mapper.writeValue(consumerFile, consumerDTO);
-        importFiles.put(ImportFile.CONSUMER.fileName(), consumerFile);
-
-        // setup source data for consumer types
-        File consumerTypesDir = this.createTempDirectory("consumer_types");
-        importFiles.put(ImportFile.CONSUMER_TYPE.fileName(), consumerTypesDir);
-
         // setup source data for products
-        File productsDir = this.createTempDirectory("products");
+        ProductImporter productImporter = new ProductImporter(this.mapper, this.i18n);
 
         Product prod = new Product("prodId", "prodTest", null)
             .setDependentProductIds(null);
 
-        File prodFile = new File(productsDir, "product.json");
-        this.mapper.writeValue(prodFile, prod);
-
-        importFiles.put(ImportFile.PRODUCTS.fileName(), productsDir);
+        productImporter.readProduct(new StringReader(this.mapper.writeValueAsString(prod)));
 
         // Setup source data for entitlements
-        File entitlementsDir = this.createTempDirectory("entitlements");
-
         Pool pool = new Pool()
             .setProduct(prod);
 
@@ -750,32 +731,107 @@ public class ImporterTest {
             .setPool(pool)
             .setQuantity(2);
 
-        File entFile = new File(entitlementsDir, "entitlement.json");
-        this.mapper.writeValue(entFile, this.modelTranslator.translate(ent, EntitlementDTO.class));
-
-        importFiles.put(ImportFile.ENTITLEMENTS.fileName(), entitlementsDir);
+        ManifestContent manifest = this.getTestManifest()
+            .setConsumer(consumerDTO)
+            .setProductImporter(productImporter)
+            .addEntitlement(this.modelTranslator.translate(ent, EntitlementDTO.class));
 
         ConflictOverrides co = mock(ConflictOverrides.class);
 
         Importer importer = this.buildImporter();
-        List<SubscriptionDTO> subscriptions = importer.importObjects(owner, importFiles, co);
+        List<SubscriptionDTO> subscriptions = importer.importObjects(owner, manifest, co);
 
         assertEquals(1, subscriptions.size());
         assertEquals("prodId", subscriptions.get(0).getProduct().getId());
         assertEquals(2, subscriptions.get(0).getQuantity().longValue());
+
+        // The entitlements should be released from the manifest once imported
+        assertEquals(1, manifest.getEntitlements().size());
+        assertNull(manifest.getEntitlements().get(0));
+    }
+
+    @Test
+    public void testLoadExportReadsSignedArchiveInSinglePass() throws Exception {
+        Owner owner = new Owner()
+            .setKey("admin")
+            .setDisplayName("Admin Owner");
+
+        ConsumerType ctype = new ConsumerType(ConsumerTypeEnum.CANDLEPIN);
+        ctype.setId("test-ctype");
+        this.mockConsumerType(ctype);
+
+        Refresher mockRefresher = mock(Refresher.class);
+        doReturn(mockRefresher)
+            .when(this.refresherFactory)
+            .getRefresher(any(SubscriptionServiceAdapter.class), any(ProductServiceAdapter.class));
+        doReturn(mockRefresher).when(mockRefresher).add(any(Owner.class));
+
+        ConsumerTypeDTO typeDTO = new ConsumerTypeDTO()
+            .setLabel("candlepin")
+            .setManifest(true);
+
+        ConsumerDTO consumerDTO = new ConsumerDTO();
+        consumerDTO.setUuid("eb5e04bf-be27-44cf-abe3-0c0b1edd523e");
+        consumerDTO.setName("mymachine");
+        consumerDTO.setType(typeDTO);
+        consumerDTO.setUrlWeb("foo.example.com/subscription");
+        consumerDTO.setUrlApi("/candlepin");
+        consumerDTO.setContentAccessMode("");
+        consumerDTO.setOwner(new OwnerDTO().setKey("admin").setDisplayName("Admin Owner"));
+
+        Product prod = new Product("prodId", "prodTest", null)
+            .setDependentProductIds(null);
+
+        Entitlement ent = new Entitlement()
+            .setPool(new Pool().setProduct(prod))
+            .setQuantity(2);
+
+        Signature signer = Signature.getInstance("SHA256withRSA");
+        signer.initSign(signingKeyPair.getPrivate());
+
+        // Entitlements precede the products they reference, and the signature follows the inner
+        // archive, as they do in the manifests we export
+        File archive = new File(this.tmpFolder, "manifest.zip");
+        try (ExportArchiveWriter writer = new ExportArchiveWriter(new FileOutputStream(archive), signer,
+            "comment", "signed comment")) {
+
+            Meta meta = new Meta("0.0.3", new Date(), "test_user", "prefix", null);
+            EntitlementDTO entitlement = this.modelTranslator.translate(ent, EntitlementDTO.class);
+
+            writer.addEntry("meta.json", out -> this.mapper.writeValue(out, meta));
+            writer.addEntry("consumer.json", out -> this.mapper.writeValue(out, consumerDTO));
+            writer.addEntry("entitlements/ent.json", out -> this.mapper.writeValue(out, entitlement));
+            writer.addEntry("products/prodId.json", out -> this.mapper.writeValue(out, prod));
+            writer.addEntry("consumer_types/candlepin.json", out -> this.mapper.writeValue(out, typeDTO));
+            writer.addEntry("rules2/rules.js", out -> out.write(MOCK_RULES));
+            writer.finish();
+        }
+
+        Importer importer = this.buildImporter();
+        ImportRecord record = importer.loadExport(owner, archive, new ConflictOverrides(), "manifest.zip");
+
+        assertEquals(ImportRecord.Status.SUCCESS, record.getStatus());
+        assertEquals("manifest.zip", record.getFileName());
+
+        ArgumentCaptor<Reader> rulesCaptor = ArgumentCaptor.forClass(Reader.class);
+        verify(this.mockRulesImporter).importObject(rulesCaptor.capture());
+        assertEquals(MOCK_RULES, StringFromReader.asString(rulesCaptor.getValue()));
+
+        verify(this.mockSubscriptionReconciler).reconcile(eq(owner), argThat(subs -> subs.size() == 1 &&
+            "prodId".equals(subs.iterator().next().getProduct().getId())));
+        verify(mockRefresher).run();
     }
 
     @Test
     public void testImportProductNoEntitlementDir() {
         Owner owner = mock(Owner.class);
         ConflictOverrides co = mock(ConflictOverrides.class);
-        Map<String, File> importFiles = this.getTestImportFiles();
-
-        importFiles.put(ImportFile.ENTITLEMENTS.fileName(), null);
+        ManifestContent manifest = this.getTestManifest()
+            .setEntitlements(null);
 
         Importer importer = this.buildImporter();
         Throwable throwable = assertThrows(ImporterException.class,
-            () -> importer.importObjects(owner, importFiles, co));
+            () -> importer.importObjects(owner, manifest, co));
 
         String errmsg = i18n.tr("The archive does not contain the required entitlements directory");
         assertThat(throwable.getMessage(), StringContains.containsString(errmsg));
@@ -787,7 +843,8 @@ public class ImporterTest {
         type.setId("test-ctype");
         this.mockConsumerType(type);
 
-        File[] upstream = createUpstreamFiles();
+        CertificateDTO upstream = this.mapper.readValue(
+            new File(classLoader.getResource("upstream/testidcert.json").toURI()), CertificateDTO.class);
         Owner owner = new Owner()
             .setKey("admin")
             .setDisplayName("Admin Owner");
@@ -807,28 +864,17 @@ public class ImporterTest {
         ownerDTO.setDisplayName("Admin Owner");
         consumerDTO.setOwner(ownerDTO);
 
-        File consumerfile = new File(this.tmpFolder, "consumer.json");
-        this.mapper.writeValue(consumerfile, consumerDTO);
         ConflictOverrides forcedConflicts = mock(ConflictOverrides.class);
         when(forcedConflicts.isForced(any(Importer.Conflict.class))).thenReturn(false);
 
         Meta meta = new Meta("1.0", new Date(), "admin", "/candlepin/owners", null);
 
         Importer importer = this.buildImporter();
-        importer.importConsumer(owner, consumerfile, upstream, forcedConflicts, meta);
+        importer.importConsumer(owner, consumerDTO, upstream, forcedConflicts, meta);
 
         verify(this.mockOwnerCurator).merge(owner);
     }
 
-    private File[] createUpstreamFiles() throws URISyntaxException {
-        File[] upstream = new File[2];
-        File idcertfile = new File(classLoader.getResource("upstream/testidcert.json").toURI());
-        File kpfile = new File(classLoader.getResource("upstream/keypair.pem").toURI());
-        upstream[0] = idcertfile;
-        upstream[1] = kpfile;
-        return upstream;
-    }
-
     private DistributorVersionDTO createDistributorVersionDTO() {
         Set<DistributorVersionCapabilityDTO> capabilities = Set.of(
             new DistributorVersionCapabilityDTO(null, "capability-1"),
@@ -842,12 +888,8 @@ public class ImporterTest {
 
     @Test
     public void importDistributorVersionCreate() throws Exception {
-        File[] distVer = new File[1];
-        distVer[0] = new File(this.tmpFolder, "dist-ver.json");
-        mapper.writeValue(distVer[0], this.createDistributorVersionDTO());
-
         Importer importer = this.buildImporter();
-        importer.importDistributorVersions(distVer);
+        importer.importDistributorVersions(Set.of(this.createDistributorVersionDTO()));
 
         verify(this.mockDistributorVersionCurator).create(any(DistributorVersion.class));
         verify(this.mockDistributorVersionCurator, never()).merge(any(DistributorVersion.class));
@@ -859,12 +901,8 @@ public class ImporterTest {
             .when(this.mockDistributorVersionCurator)
             .findByName("test-dist-ver");
 
-        File[] distVer = new File[1];
-        distVer[0] = new File(this.tmpFolder, "dist-ver.json");
-        mapper.writeValue(distVer[0], createDistributorVersionDTO());
-
         Importer importer = this.buildImporter();
-        importer.importDistributorVersions(distVer);
+        importer.importDistributorVersions(Set.of(this.createDistributorVersionDTO()));
 
         verify(this.mockDistributorVersionCurator, never()).create(any(DistributorVersion.class));
         verify(this.mockDistributorVersionCurator).merge(any(DistributorVersion.class));
@@ -886,40 +924,19 @@ public class ImporterTest {
         OwnerCurator oc = mock(OwnerCurator.class);
         Owner owner = mock(Owner.class);
         ConflictOverrides co = mock(ConflictOverrides.class);
-        Map<String, File> importFiles = createAndSetImportFiles();
+        ManifestContent manifest = this.getTestManifest()
+            .setProductImporter(null)
+            .setEntitlements(null)
+            .setDistributorVersions(null);
 
         Importer importer = this.buildImporter();
         Throwable throwable = assertThrows(RuntimeException.class,
-            () -> importer.importObjects(owner, importFiles, co));
+            () -> importer.importObjects(owner, manifest, co));
 
         String errmsg = "Done with the test";
         assertThat(throwable.getMessage(), StringContains.containsString(errmsg));
     }
 
-    private Map<String, File> createAndSetImportFiles()
-        throws IOException {
-
-        File[] rulesFiles = createMockJsFile(mockJsPath);
-        File ruleDir = mock(File.class);
-        when(ruleDir.listFiles()).thenReturn(rulesFiles);
-
-        File actualmeta = createFile("meta.json", "0.0.3", new Date(), "test_user", "prefix");
-
-        Map<String, File> importFiles = this.getTestImportFiles();
-        importFiles.put(ImportFile.META.fileName(), actualmeta);
-        importFiles.put(ImportFile.RULES_FILE.fileName(), rulesFiles[0]);
-        importFiles.put(ImportFile.PRODUCTS.fileName(), null);
-        importFiles.put(ImportFile.ENTITLEMENTS.fileName(), null);
-        importFiles.put(ImportFile.DISTRIBUTOR_VERSIONS.fileName(), null);
-
-        File cTypes = mock(File.class);
-        when(cTypes.listFiles()).thenReturn(new File[] {});
-
-        importFiles.put(ImportFile.CONSUMER_TYPE.fileName(), cTypes);
-
-        return importFiles;
-    }
-
     @Test
     public void testRecordImportSuccess() {
         String expectedOwnerKey = "TEST_OWNER";
@@ -37,10 +37,9 @@ import org.junit.jupiter.api.Test;
 import org.xnap.commons.i18n.I18n;
 import org.xnap.commons.i18n.I18nFactory;
 
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
@@ -56,7 +55,7 @@ public class ProductImporterTest {
 
     private I18n i18n;
     private DevConfig config;
-    private File tmpdir;
+    private List<String> productData;
     private ObjectMapper mapper;
 
     @BeforeEach
@@ -66,8 +65,7 @@ public class ProductImporterTest {
         this.config = TestConfig.defaults();
         this.config.setProperty(ConfigProperties.FAIL_ON_UNKNOWN_IMPORT_PROPERTIES, "false");
 
-        this.tmpdir = Files.createTempDirectory("product_importer_test").toFile();
-        this.tmpdir.deleteOnExit();
+        this.productData = new ArrayList<>();
 
         this.mapper = ObjectMapperFactory.getSyncObjectMapper(config);
     }
@@ -301,8 +299,14 @@ public class ProductImporterTest {
         }
     }
 
-    private ProductImporter buildProductImporter() {
-        return new ProductImporter(this.tmpdir, this.mapper, this.i18n);
+    private ProductImporter buildProductImporter() throws IOException {
+        ProductImporter importer = new ProductImporter(this.mapper, this.i18n);
+
+        for (String json : this.productData) {
+            importer.readProduct(new StringReader(json));
+        }
+
+        return importer;
     }
 
     private void writeMockProductData(ProductDTO... products) throws IOException {
@@ -314,12 +318,7 @@ public class ProductImporterTest {
         // easily test the case where a child product does not exist in the manifest
 
         for (ProductDTO pdto : products) {
-            File pfile = new File(this.tmpdir, pdto.getId() + ProductImporter.PRODUCT_FILE_SUFFIX);
-            pfile.deleteOnExit();
-
-            try (FileWriter writer = new FileWriter(pfile)) {
-                this.mapper.writeValue(writer, pdto);
-            }
+            this.productData.add(this.mapper.writeValueAsString(pdto));
         }
     }
 
@@ -20,6 +20,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.candlepin.audit.EventSink;
+import org.candlepin.cache.ComplianceStatusCache;
 import org.candlepin.model.Rules;
 import org.candlepin.model.RulesCurator;
 import org.candlepin.policy.js.JsRunnerProvider;
@@ -40,11 +41,12 @@ public class RulesImporterTest {
     @Mock private EventSink sink;
     @Mock private RulesCurator curator;
     @Mock private JsRunnerProvider jsProvider;
+    @Mock private ComplianceStatusCache complianceStatusCache;
     private RulesImporter importer;
 
     @BeforeEach
     public void setUp() {
-        this.importer = new RulesImporter(curator, sink, jsProvider);
+        this.importer = new RulesImporter(curator, sink, jsProvider, complianceStatusCache);
     }
 
     @Test
@@ -54,6 +56,7 @@ public class RulesImporterTest {
 
         importer.importObject(new StringReader("//Version: 2.1"));
         verify(curator).update(any(Rules.class));
+        verify(complianceStatusCache).removeAll();
     }
 
     @Test
@@ -63,6 +66,7 @@ public class RulesImporterTest {
 
         importer.importObject(new StringReader("// Version: 2.0"));
         verify(curator, never()).update(any(Rules.class));
+        verify(complianceStatusCache, never()).removeAll();
     }
 
     @Test
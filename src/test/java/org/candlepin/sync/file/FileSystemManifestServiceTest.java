@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) 2009 - 2023 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.sync.file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.candlepin.model.ManifestFileRecord;
+import org.candlepin.test.DatabaseTestFixture;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Calendar;
+import java.util.Random;
+import java.util.stream.Stream;
+
+
+
+public class FileSystemManifestServiceTest extends DatabaseTestFixture {
+
+    @TempDir
+    protected Path tmpFolder;
+
+    private Path storeDir;
+    private FileSystemManifestService service;
+
+    @BeforeEach
+    public void setupTest() throws Exception {
+        this.storeDir = this.tmpFolder.resolve("store");
+        this.service = new FileSystemManifestService(this.storeDir, this.manifestFileRecordCurator);
+    }
+
+    private byte[] generateContent(int size) {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        return content;
+    }
+
+    private File createFile(String name, byte[] content) throws IOException {
+        return Files.write(this.tmpFolder.resolve(name), content).toFile();
+    }
+
+    private Path getContentPath(byte[] content) {
+        String hash = DigestUtils.sha256Hex(content);
+        return this.storeDir.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private byte[] readFile(ManifestFile file) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long written = file.writeTo(output);
+        assertEquals(written, output.size());
+
+        return output.toByteArray();
+    }
+
+    /**
+     * Backdates the stored content past the period in which it is protected from deletion
+     */
+    private void ageContent(byte[] content) throws IOException {
+        Calendar cal = Calendar.getInstance();
+        cal.add(Calendar.HOUR_OF_DAY, -3);
+        Files.setLastModifiedTime(this.getContentPath(content), FileTime.fromMillis(cal.getTimeInMillis()));
+    }
+
+    private long countStoredFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(this.storeDir)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    @Test
+    public void testStoreWritesContentAddressedFile() throws Exception {
+        // Larger than a single chunk, and not a multiple of the chunk size
+        byte[] content = this.generateContent(200 * 1024 + 17);
+        File file = this.createFile("manifest.zip", content);
+
+        ManifestFile stored = this.service.store(ManifestFileType.EXPORT, file, "principal", "consumer");
+
+        assertNotNull(stored.getId());
+        assertEquals("manifest.zip", stored.getName());
+        assertEquals("consumer", stored.getTargetId());
+        assertArrayEquals(content, Files.readAllBytes(this.getContentPath(content)));
+        assertEquals(1, this.countStoredFiles());
+
+        ManifestFileRecord record = this.manifestFileRecordCurator.findFile(stored.getId());
+        assertEquals(DigestUtils.sha256Hex(content), record.getContentHash());
+        assertEquals(content.length, record.getFileSize());
+        assertNull(record.getFileData());
+    }
+
+    @Test
+    public void testGetReadsStoredContent() throws Exception {
+        byte[] content = this.generateContent(100 * 1024);
+        File file = this.createFile("manifest.zip", content);
+        String id = this.service.store(ManifestFileType.IMPORT, file, "principal", "owner").getId();
+
+        ManifestFile fetched = this.service.get(id);
+
+        assertNotNull(fetched);
+        assertEquals(id, fetched.getId());
+        assertEquals("manifest.zip", fetched.getName());
+        assertEquals("owner", fetched.getTargetId());
+        assertArrayEquals(content, this.readFile(fetched));
+
+        try (InputStream input = fetched.getInputStream()) {
+            assertArrayEquals(content, input.readAllBytes());
+        }
+    }
+
+    @Test
+    public void testGetReturnsNullForUnknownFile() {
+        assertNull(this.service.get("unknown"));
+    }
+
+    @Test
+    public void testGetFailsWhenContentIsMissing() throws Exception {
+        byte[] content = this.generateContent(1024);
+        File file = this.createFile("manifest.zip", content);
+        String id = this.service.store(ManifestFileType.EXPORT, file, "principal", "consumer").getId();
+
+        Files.delete(this.getContentPath(content));
+
+        assertThrows(ManifestFileServiceException.class, () -> this.service.get(id));
+    }
+
+    @Test
+    public void testIdenticalFilesShareContent() throws Exception {
+        byte[] content = this.generateContent(1024);
+        File file1 = this.createFile("manifest1.zip", content);
+        File file2 = this.createFile("manifest2.zip", content);
+
+        String id1 = this.service.store(ManifestFileType.EXPORT, file1, "principal", "consumer1").getId();
+        String id2 = this.service.store(ManifestFileType.EXPORT, file2, "principal", "consumer2").getId();
+        assertEquals(1, this.countStoredFiles());
+
+        this.ageContent(content);
+        this.commitTransaction();
+
+        assertTrue(this.service.delete(id1));
+        assertNull(this.service.get(id1));
+        assertTrue(Files.exists(this.getContentPath(content)));
+        assertArrayEquals(content, this.readFile(this.service.get(id2)));
+
+        assertTrue(this.service.delete(id2));
+        assertFalse(Files.exists(this.getContentPath(content)));
+    }
+
+    @Test
+    public void testDeleteUnknownFile() {
+        assertFalse(this.service.delete("unknown"));
+    }
+
+    @Test
+    public void testDeleteByTypeAndTarget() throws Exception {
+        byte[] content1 = this.generateContent(1024);
+        byte[] content2 = this.generateContent(2048);
+        String id1 = this.service.store(ManifestFileType.EXPORT, this.createFile("m1.zip", content1),
+            "principal", "consumer").getId();
+        String id2 = this.service.store(ManifestFileType.IMPORT, this.createFile("m2.zip", content2),
+            "principal", "consumer").getId();
+
+        this.ageContent(content1);
+        this.ageContent(content2);
+
+        assertEquals(1, this.service.delete(ManifestFileType.EXPORT, "consumer"));
+
+        // Content is only deleted once the records referring to it are deleted for good
+        assertTrue(Files.exists(this.getContentPath(content1)));
+        this.commitTransaction();
+
+        assertNull(this.service.get(id1));
+        assertFalse(Files.exists(this.getContentPath(content1)));
+        assertNotNull(this.service.get(id2));
+        assertTrue(Files.exists(this.getContentPath(content2)));
+    }
+
+    @Test
+    public void testDeleteExpiredRemovesContentAndIncompleteFiles() throws Exception {
+        byte[] content = this.generateContent(1024);
+        String id = this.service.store(ManifestFileType.EXPORT, this.createFile("m.zip", content),
+            "principal", "consumer").getId();
+
+        Path incomplete = this.storeDir.resolve(".incoming-abandoned.tmp");
+        Files.write(incomplete, this.generateContent(10));
+
+        Calendar cal = Calendar.getInstance();
+        cal.add(Calendar.HOUR_OF_DAY, -4);
+        Files.setLastModifiedTime(incomplete, FileTime.fromMillis(cal.getTimeInMillis()));
+
+        cal.add(Calendar.HOUR_OF_DAY, 2);
+        assertEquals(0, this.service.deleteExpired(cal.getTime()));
+        assertNotNull(this.service.get(id));
+        assertFalse(Files.exists(incomplete));
+
+        this.ageContent(content);
+
+        cal.add(Calendar.HOUR_OF_DAY, 4);
+        assertEquals(1, this.service.deleteExpired(cal.getTime()));
+        this.commitTransaction();
+
+        assertNull(this.service.get(id));
+        assertEquals(0, this.countStoredFiles());
+    }
+
+    @Test
+    public void testDeleteKeepsContentWhenRolledBack() throws Exception {
+        byte[] content = this.generateContent(1024);
+        String id = this.service.store(ManifestFileType.EXPORT, this.createFile("m.zip", content),
+            "principal", "consumer").getId();
+
+        this.ageContent(content);
+        this.commitTransaction();
+
+        this.beginTransaction();
+        assertTrue(this.service.delete(id));
+        this.rollbackTransaction();
+
+        assertArrayEquals(content, this.readFile(this.service.get(id)));
+
+        this.beginTransaction();
+        assertTrue(this.service.delete(id));
+        this.commitTransaction();
+
+        assertFalse(Files.exists(this.getContentPath(content)));
+    }
+
+    @Test
+    public void testDeleteKeepsContentRewrittenByConcurrentStore() throws Exception {
+        byte[] content = this.generateContent(1024);
+        String id = this.service.store(ManifestFileType.EXPORT, this.createFile("m.zip", content),
+            "principal", "consumer").getId();
+
+        this.ageContent(content);
+        this.commitTransaction();
+
+        this.beginTransaction();
+        assertTrue(this.service.delete(id));
+
+        // Another store of the same content rewrites it, and has yet to commit its record when the
+        // delete commits; the content must survive for that record
+        Files.write(this.getContentPath(content), content);
+        this.commitTransaction();
+
+        assertArrayEquals(content, Files.readAllBytes(this.getContentPath(content)));
+    }
+
+    @Test
+    public void testDeleteExpiredSweepsContentOfRolledBackStores() throws Exception {
+        byte[] kept = this.generateContent(1024);
+        String id = this.service.store(ManifestFileType.EXPORT, this.createFile("kept.zip", kept),
+            "principal", "consumer").getId();
+        this.commitTransaction();
+
+        this.beginTransaction();
+        byte[] orphaned = this.generateContent(2048);
+        this.service.store(ManifestFileType.EXPORT, this.createFile("orphaned.zip", orphaned), "principal",
+            "consumer");
+        this.rollbackTransaction();
+
+        // The rolled back store leaves its content behind, which is swept once it expires
+        assertTrue(Files.exists(this.getContentPath(orphaned)));
+        this.ageContent(kept);
+        this.ageContent(orphaned);
+
+        Calendar cal = Calendar.getInstance();
+        cal.add(Calendar.HOUR_OF_DAY, -2);
+        assertEquals(0, this.service.deleteExpired(cal.getTime()));
+
+        assertFalse(Files.exists(this.getContentPath(orphaned)));
+        assertArrayEquals(kept, this.readFile(this.service.get(id)));
+    }
+
+    @Test
+    public void testMigrateDatabaseFiles() throws Exception {
+        byte[] content = this.generateContent(100 * 1024);
+        File file = this.createFile("manifest.zip", content);
+
+        ManifestFileRecord record = this.manifestFileRecordCurator.createFile(ManifestFileType.EXPORT, file,
+            "principal", "consumer");
+
+        // Files stored in the DB remain readable until they are migrated
+        assertArrayEquals(content, this.readFile(this.service.get(record.getId())));
+
+        assertEquals(1, this.service.migrateDatabaseFiles());
+        this.manifestFileRecordCurator.flush();
+
+        ManifestFileRecord migrated = this.manifestFileRecordCurator.findFile(record.getId());
+        assertEquals(DigestUtils.sha256Hex(content), migrated.getContentHash());
+        assertNull(migrated.getFileData());
+        assertArrayEquals(content, Files.readAllBytes(this.getContentPath(content)));
+        assertArrayEquals(content, this.readFile(this.service.get(record.getId())));
+
+        assertEquals(0, this.service.migrateDatabaseFiles());
+    }
+}
@@ -15,6 +15,7 @@
 package org.candlepin.util;
 
 import static org.candlepin.util.X509Util.ARCH_FACT;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -33,20 +34,37 @@ import org.candlepin.model.Pool;
 import org.candlepin.model.Product;
 import org.candlepin.model.ProductContent;
 import org.candlepin.model.dto.TinySubscription;
+import org.candlepin.pki.X509Extension;
 import org.candlepin.test.TestUtil;
+import org.candlepin.util.X509V3ExtensionUtil.HuffNode;
 import org.candlepin.util.X509V3ExtensionUtil.NodePair;
 import org.candlepin.util.X509V3ExtensionUtil.PathNode;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import org.bouncycastle.asn1.DEROctetString;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 
 
 
@@ -314,4 +332,311 @@ public class X509V3ExtensionUtilTest {
         assertTrue(output.contains("my_addon3"), "The serialized data should contain addon!");
     }
 
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 10, 500})
+    public void contentPayloadRoundTripsThroughHydration(int contentCount) throws IOException {
+        Set<String> expected = new HashSet<>();
+        List<org.candlepin.model.dto.Content> contents = new ArrayList<>();
+
+        for (int i = 0; i < contentCount; i++) {
+            String path = String.format("/content/dist/rhel%d/server/repo-%d/$releasever/$basearch/os",
+                i % 7, i);
+
+            org.candlepin.model.dto.Content content = new org.candlepin.model.dto.Content();
+            content.setPath(path);
+
+            contents.add(content);
+            expected.add(path);
+        }
+
+        org.candlepin.model.dto.Product product = new org.candlepin.model.dto.Product();
+        product.setContent(contents);
+
+        X509Extension extension = util.getByteExtensions(List.of(product)).iterator().next();
+        byte[] payload = ((DEROctetString) extension.value()).getOctets();
+
+        assertEquals(expected, new HashSet<>(util.hydrateContentPackage(payload)));
+    }
+
+    public static Stream<Arguments> goldenContentSets() {
+        List<String> large = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            large.add(String.format("/content/dist/rhel%d/server/repo-%d/$releasever/$basearch/os",
+                i % 7, i));
+        }
+
+        List<String> wide = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String stream = i % 3 == 0 ? "beta" : "dist";
+            wide.add(String.format("/content/%s/product-%d/%d/os", stream, i, i % 11));
+        }
+
+        return Stream.of(
+            Arguments.of(List.of("/content/dist/rhel/server/7/$releasever/$basearch/os")),
+            Arguments.of(List.of(
+                "/content/dist/rhel/server/7/$releasever/$basearch/os",
+                "/content/dist/rhel/server/7/$releasever/$basearch/debug",
+                "/content/dist/rhel/server/7/$releasever/$basearch/source/SRPMS",
+                "/content/beta/rhel/server/7/$releasever/$basearch/os",
+                "/content/beta/rhel/server/7/$releasever/$basearch/debug")),
+            Arguments.of(List.of(
+                "/content/dist/rhel8/8/x86_64/baseos/os",
+                "/content/dist/rhel8/8/x86_64/appstream/os",
+                "/content/dist/rhel8/8/aarch64/baseos/os",
+                "/content/dist/rhel8/8/aarch64/appstream/os",
+                "/content/dist/rhel8/8/ppc64le/baseos/os",
+                "/content/dist/layered/rhel8/x86_64/ansible/2/os",
+                "/content/dist/layered/rhel8/x86_64/ansible/2/os",
+                "/a", "/b/c", "/b/c/d")),
+            Arguments.of(large),
+            Arguments.of(wide));
+    }
+
+    @ParameterizedTest
+    @MethodSource("goldenContentSets")
+    public void contentPayloadMatchesLegacyEncoder(List<String> paths) throws IOException {
+        List<org.candlepin.model.dto.Content> contents = new ArrayList<>();
+        for (String path : paths) {
+            org.candlepin.model.dto.Content content = new org.candlepin.model.dto.Content();
+            content.setPath(path);
+
+            contents.add(content);
+        }
+
+        // Path node ordering follows identity hashes, so both encoders must work from the same tree
+        PathNode treeRoot = util.makePathTree(contents, util.new PathNode());
+
+        byte[] expected = new LegacyPathTreeEncoder(util).encode(treeRoot);
+        byte[] actual = util.encodePathTree(treeRoot);
+
+        assertArrayEquals(expected, actual);
+        assertEquals(new HashSet<>(paths), new HashSet<>(util.hydrateContentPackage(actual)));
+    }
+
+    /**
+     * Reference copy of the content payload encoder as it stood before the trie construction and
+     * bit packing were reworked. The payload format is read by every deployed client, so the
+     * current encoder must produce exactly the same bytes as this one.
+     */
+    private static class LegacyPathTreeEncoder {
+        private static final Object END_NODE = new Object();
+
+        private final X509V3ExtensionUtil util;
+
+        LegacyPathTreeEncoder(X509V3ExtensionUtil util) {
+            this.util = util;
+        }
+
+        public byte[] encode(PathNode treeRoot) throws IOException {
+            List<String> nodeStrings = orderStrings(treeRoot);
+            if (nodeStrings.size() == 0) {
+                return new byte[0];
+            }
+            ByteArrayOutputStream data = new ByteArrayOutputStream();
+            List<HuffNode> stringHuffNodes = getStringNodeList(nodeStrings);
+            HuffNode stringTrieParent = makeTrie(stringHuffNodes);
+            data.write(byteProcess(nodeStrings));
+
+            List<PathNode> orderedNodes = orderNodes(treeRoot);
+            List<HuffNode> pathNodeHuffNodes = getPathNodeNodeList(orderedNodes);
+            HuffNode pathNodeTrieParent = makeTrie(pathNodeHuffNodes);
+            data.write(makeNodeDictionary(stringTrieParent, pathNodeTrieParent, orderedNodes));
+
+            return data.toByteArray();
+        }
+
+        private List<String> orderStrings(PathNode parent) {
+            List<String> parts = new ArrayList<>();
+            Map<String, Integer> segments = new HashMap<>();
+            Set<PathNode> nodes = new HashSet<>();
+            buildSegments(segments, nodes, parent);
+            for (Entry<String, Integer> entry : segments.entrySet()) {
+                String part = entry.getKey();
+                if (!part.equals("")) {
+                    int count = entry.getValue();
+                    if (parts.size() == 0) {
+                        parts.add(part);
+                    }
+                    else {
+                        int pos = parts.size();
+                        for (int i = 0; i < parts.size(); i++) {
+                            if (count < segments.get(parts.get(i))) {
+                                pos = i;
+                                break;
+                            }
+                        }
+                        parts.add(pos, part);
+                    }
+                }
+            }
+            return parts;
+        }
+
+        private void buildSegments(Map<String, Integer> segments, Set<PathNode> nodes, PathNode parent) {
+            if (!nodes.contains(parent)) {
+                nodes.add(parent);
+                for (NodePair np : parent.getChildren()) {
+                    Integer count = segments.get(np.getName());
+                    if (count == null) {
+                        count = 0;
+                    }
+                    segments.put(np.getName(), ++count);
+                    buildSegments(segments, nodes, np.getConnection());
+                }
+            }
+        }
+
+        private List<PathNode> orderNodes(PathNode treeRoot) {
+            List<PathNode> result = new ArrayList<>();
+            Set<PathNode> nodes = getPathNodes(treeRoot);
+            for (PathNode pn : nodes) {
+                int count = pn.getParents().size();
+                int pos = result.size();
+                for (int i = 0; i < result.size(); i++) {
+                    if (count <= result.get(i).getParents().size()) {
+                        pos = i;
+                        break;
+                    }
+                }
+                result.add(pos, pn);
+            }
+            if (result.size() == 2) {
+                result.add(util.new PathNode());
+            }
+            return result;
+        }
+
+        private Set<PathNode> getPathNodes(PathNode treeRoot) {
+            Set<PathNode> nodes = new HashSet<>();
+            nodes.add(treeRoot);
+            for (NodePair np : treeRoot.getChildren()) {
+                nodes.addAll(getPathNodes(np.getConnection()));
+            }
+            return nodes;
+        }
+
+        private byte[] makeNodeDictionary(HuffNode stringParent, HuffNode pathNodeParent,
+            List<PathNode> pathNodes) throws IOException {
+
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            int nodeSize = pathNodes.size();
+            if (nodeSize > 127) {
+                ByteArrayOutputStream countBaos = new ByteArrayOutputStream();
+                boolean start = false;
+                for (byte b : toByteArray(nodeSize)) {
+                    if (b == 0 && !start) {
+                        continue;
+                    }
+                    countBaos.write(b);
+                    start = true;
+                }
+                baos.write(128 + countBaos.size());
+                baos.write(countBaos.toByteArray());
+            }
+            else {
+                baos.write(nodeSize);
+            }
+            StringBuilder bits = new StringBuilder();
+            String endNodeLocation = util.findHuffPath(stringParent, END_NODE);
+            for (PathNode pn : pathNodes) {
+                for (NodePair np : pn.getChildren()) {
+                    bits.append(util.findHuffPath(stringParent, np.getName()));
+                    bits.append(util.findHuffPath(pathNodeParent, np.getConnection()));
+                }
+                bits.append(endNodeLocation);
+                while (bits.length() >= 8) {
+                    int next = 0;
+                    for (int i = 0; i < 8; i++) {
+                        next = (byte) next << 1;
+                        if (bits.charAt(i) == '1') {
+                            next++;
+                        }
+                    }
+                    baos.write(next);
+                    bits.delete(0, 8);
+                }
+            }
+
+            if (bits.length() > 0) {
+                int next = 0;
+                for (int i = 0; i < 8; i++) {
+                    next = (byte) next << 1;
+                    if (i < bits.length() && bits.charAt(i) == '1') {
+                        next++;
+                    }
+                }
+                baos.write(next);
+            }
+            return baos.toByteArray();
+        }
+
+        private byte[] toByteArray(int value) {
+            return new byte[] {
+                (byte) (value >> 24),
+                (byte) (value >> 16),
+                (byte) (value >> 8),
+                (byte) value};
+        }
+
+        private byte[] byteProcess(List<String> entries) throws IOException {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            DeflaterOutputStream dos = new DeflaterOutputStream(baos, new Deflater(Deflater.BEST_COMPRESSION));
+            for (String segment : entries) {
+                dos.write(segment.getBytes(StandardCharsets.UTF_8));
+                dos.write("\0".getBytes(StandardCharsets.UTF_8));
+            }
+            dos.finish();
+            dos.close();
+            return baos.toByteArray();
+        }
+
+        private List<HuffNode> getStringNodeList(List<String> pathStrings) {
+            List<HuffNode> nodes = new ArrayList<>();
+            int idx = 1;
+            for (String part : pathStrings) {
+                nodes.add(util.new HuffNode(part, idx++));
+            }
+            nodes.add(util.new HuffNode(END_NODE, idx));
+            return nodes;
+        }
+
+        private List<HuffNode> getPathNodeNodeList(List<PathNode> pathNodes) {
+            List<HuffNode> nodes = new ArrayList<>();
+            int idx = 0;
+            for (PathNode pn : pathNodes) {
+                nodes.add(util.new HuffNode(pn, idx++));
+            }
+            return nodes;
+        }
+
+        private HuffNode makeTrie(List<HuffNode> nodesList) {
+            if (nodesList.get(0).getValue() instanceof PathNode) {
+                nodesList.remove(0);
+            }
+            while (nodesList.size() > 1) {
+                int node1 = findSmallest(-1, nodesList);
+                int node2 = findSmallest(node1, nodesList);
+                HuffNode hn1 = nodesList.get(node1);
+                HuffNode hn2 = nodesList.get(node2);
+                HuffNode merged = util.new HuffNode(null, hn1.getWeight() + hn2.getWeight(), hn1, hn2);
+                nodesList.remove(hn1);
+                nodesList.remove(hn2);
+                nodesList.add(merged);
+            }
+            return nodesList.get(0);
+        }
+
+        private int findSmallest(int exclude, List<HuffNode> nodes) {
+            int smallest = -1;
+            for (int index = 0; index < nodes.size(); index++) {
+                if (index == exclude) {
+                    continue;
+                }
+                if (smallest == -1 || nodes.get(index).getWeight() < nodes.get(smallest).getWeight()) {
+                    smallest = index;
+                }
+            }
+            return smallest;
+        }
+    }
 }